@@ -0,0 +1,176 @@
+/*
+
+    dsh-bio-alignment  Aligments.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.alignment.sam;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Reusable cursor over the aligned blocks of a SAM record, the maximal runs of
+ * read bases aligned to reference bases by <code>M</code>, <code>=</code>, or
+ * <code>X</code> CIGAR operations.
+ *
+ * <p>
+ * A cursor may be reset to another SAM record, so that walking the aligned
+ * blocks of many records does not allocate.
+ * <pre>
+ * AlignedBlocks blocks = new AlignedBlocks();
+ * for (SamRecord record : records) {
+ *   blocks.reset(record);
+ *   while (blocks.next()) {
+ *     // blocks.getReadStart(), blocks.getReferenceStart(), blocks.getLength()
+ *   }
+ * }
+ * </pre>
+ * </p>
+ *
+ * @since 4.1
+ * @author  Michael Heuer
+ */
+public final class AlignedBlocks {
+    /** Packed CIGAR. */
+    private int[] cigar = new int[0];
+
+    /** Index of the next CIGAR operation. */
+    private int index;
+
+    /** Next read offset, 0-based. */
+    private int readOffset;
+
+    /** Next reference position, 1-based. */
+    private long referencePosition;
+
+    /** Current block read start, 0-based. */
+    private int readStart = -1;
+
+    /** Current block reference start, 1-based. */
+    private long referenceStart = -1L;
+
+    /** Current block length, or <code>-1</code> if not positioned on a block. */
+    private int length = -1;
+
+
+    /**
+     * Create a new aligned blocks cursor with no blocks.
+     */
+    public AlignedBlocks() {
+        // empty
+    }
+
+    /**
+     * Create a new aligned blocks cursor for the specified SAM record.
+     *
+     * @param record SAM record, must not be null
+     */
+    public AlignedBlocks(final SamRecord record) {
+        reset(record);
+    }
+
+
+    /**
+     * Reset this cursor to before the first aligned block of the specified SAM record.
+     *
+     * @param record SAM record, must not be null
+     * @return this cursor
+     */
+    public AlignedBlocks reset(final SamRecord record) {
+        checkNotNull(record);
+        cigar = record.getPackedCigar();
+        index = 0;
+        readOffset = 0;
+        referencePosition = record.getPos();
+        readStart = -1;
+        referenceStart = -1L;
+        length = -1;
+        return this;
+    }
+
+    /**
+     * Advance this cursor to the next aligned block, if any.  Adjacent aligned
+     * operations, for example <code>5=1X4=</code>, are merged into a single block.
+     *
+     * @return true if this cursor is positioned on an aligned block, false if
+     *    there are no more aligned blocks
+     */
+    public boolean next() {
+        length = -1;
+        while (index < cigar.length) {
+            int op = Cigar.operation(cigar[index]);
+            int n = Cigar.length(cigar[index]);
+            if (Cigar.isAligned(op)) {
+                if (length < 0) {
+                    readStart = readOffset;
+                    referenceStart = referencePosition;
+                    length = 0;
+                }
+                length += n;
+            }
+            else if (length >= 0 && n > 0) {
+                break;
+            }
+            if (Cigar.consumesRead(op)) {
+                readOffset += n;
+            }
+            if (Cigar.consumesReference(op)) {
+                referencePosition += n;
+            }
+            index++;
+        }
+        return length >= 0;
+    }
+
+    /**
+     * Return the start of the current aligned block in the read, as a 0-based offset
+     * into SEQ including any soft clipped bases.
+     *
+     * @return the start of the current aligned block in the read
+     * @throws IllegalStateException if this cursor is not positioned on an aligned block
+     */
+    public int getReadStart() {
+        checkState(length >= 0, "not positioned on an aligned block");
+        return readStart;
+    }
+
+    /**
+     * Return the start of the current aligned block in the reference, as a 1-based position.
+     *
+     * @return the start of the current aligned block in the reference
+     * @throws IllegalStateException if this cursor is not positioned on an aligned block
+     */
+    public long getReferenceStart() {
+        checkState(length >= 0, "not positioned on an aligned block");
+        return referenceStart;
+    }
+
+    /**
+     * Return the length of the current aligned block.
+     *
+     * @return the length of the current aligned block
+     * @throws IllegalStateException if this cursor is not positioned on an aligned block
+     */
+    public int getLength() {
+        checkState(length >= 0, "not positioned on an aligned block");
+        return length;
+    }
+}
@@ -0,0 +1,1047 @@
+/*
+
+    dsh-bio-alignment  Aligments.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.alignment.sam;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+
+import java.nio.charset.StandardCharsets;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.dishevelled.bio.annotation.Annotation;
+
+/**
+ * BAM binary header and record codec.
+ *
+ * <p>
+ * Records are read and written with their <code>block_size</code> prefix, so that a
+ * single array holds a complete record.  Decoded optional fields are rendered in
+ * SAM text format and parsed lazily on first access.
+ * </p>
+ *
+ * @author  Michael Heuer
+ */
+final class BamCodec {
+    /** Bases, indexed by BAM 4-bit base code. */
+    private static final String BASES = "=ACMGRSVTWYHKDBN";
+
+    /** BAM 4-bit base codes, indexed by ASCII character. */
+    private static final byte[] BASE_CODES = new byte[128];
+
+    /** Offset of the first byte past the fixed-length fields of a record. */
+    private static final int READ_NAME_OFFSET = 36;
+
+    /** FLAG bit for an unmapped segment. */
+    private static final int UNMAPPED = 0x4;
+
+    static {
+        Arrays.fill(BASE_CODES, (byte) 15);
+        for (int i = 0; i < BASES.length(); i++) {
+            BASE_CODES[BASES.charAt(i)] = (byte) i;
+            BASE_CODES[Character.toLowerCase(BASES.charAt(i))] = (byte) i;
+        }
+    }
+
+
+    /**
+     * Private no-arg constructor.
+     */
+    private BamCodec() {
+        // empty
+    }
+
+
+    /**
+     * Read a BAM header from the specified input stream, adding reference names in
+     * binary header order to the specified list.  If the header text does not contain
+     * <code>@SQ</code> header lines, they are created from the binary reference list,
+     * along with an <code>@HD</code> header line if necessary.
+     *
+     * @param inputStream input stream to read from, positioned at the start of uncompressed BAM data
+     * @param references list of reference names to add to
+     * @return the BAM header read from the specified input stream
+     * @throws IOException if an I/O error occurs or the header is not valid
+     */
+    static SamHeader readHeader(final InputStream inputStream, final List<String> references) throws IOException {
+        byte[] bytes = new byte[4];
+        if (!readFully(inputStream, bytes, 0, 4)) {
+            throw new EOFException("could not read BAM header, empty input");
+        }
+        if (bytes[0] != 'B' || bytes[1] != 'A' || bytes[2] != 'M' || bytes[3] != 1) {
+            throw new IOException("could not read BAM header, invalid magic");
+        }
+        byte[] text = new byte[readInt(inputStream, bytes)];
+        readRequired(inputStream, text, 0, text.length);
+        int textLength = text.length;
+        while (textLength > 0 && text[textLength - 1] == 0) {
+            textLength--;
+        }
+        SamHeader header = SamHeaderReader.header(new StringReader(new String(text, 0, textLength, StandardCharsets.UTF_8)));
+        int n = readInt(inputStream, bytes);
+        SamHeader.Builder builder = null;
+        if (n > 0 && header.getSequenceHeaderLines().isEmpty()) {
+            builder = SamHeader.builder(header);
+            if (!header.getHeaderLineOpt().isPresent()) {
+                builder.withHeaderLine(SamHeaderLine.valueOf("@HD\tVN:1.6"));
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            byte[] name = new byte[readInt(inputStream, bytes)];
+            readRequired(inputStream, name, 0, name.length);
+            String reference = new String(name, 0, Math.max(0, name.length - 1), StandardCharsets.UTF_8);
+            int length = readInt(inputStream, bytes);
+            references.add(reference);
+            if (builder != null) {
+                builder.withSequenceHeaderLine(SamSequenceHeaderLine.valueOf("@SQ\tSN:" + reference + "\tLN:" + length));
+            }
+        }
+        return builder == null ? header : builder.build();
+    }
+
+    /**
+     * Write the specified SAM header as a BAM header to the specified output stream.
+     *
+     * @param header SAM header to write
+     * @param outputStream output stream to write to
+     * @throws IOException if an I/O error occurs
+     */
+    static void writeHeader(final SamHeader header, final OutputStream outputStream) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        if (header.getHeaderLineOpt().isPresent()) {
+            sb.append(header.getHeaderLineOpt().get()).append("\n");
+        }
+        for (SamSequenceHeaderLine sequenceHeaderLine : header.getSequenceHeaderLines()) {
+            sb.append(sequenceHeaderLine).append("\n");
+        }
+        for (SamReadGroupHeaderLine readGroupHeaderLine : header.getReadGroupHeaderLines()) {
+            sb.append(readGroupHeaderLine).append("\n");
+        }
+        for (SamProgramHeaderLine programHeaderLine : header.getProgramHeaderLines()) {
+            sb.append(programHeaderLine).append("\n");
+        }
+        for (SamCommentHeaderLine commentHeaderLine : header.getCommentHeaderLines()) {
+            sb.append(commentHeaderLine).append("\n");
+        }
+        byte[] text = sb.toString().getBytes(StandardCharsets.UTF_8);
+
+        Buffer buffer = new Buffer();
+        buffer.writeBytes(new byte[] { 'B', 'A', 'M', 1 });
+        buffer.writeInt(text.length);
+        buffer.writeBytes(text);
+        buffer.writeInt(header.getSequenceHeaderLines().size());
+        for (SamSequenceHeaderLine sequenceHeaderLine : header.getSequenceHeaderLines()) {
+            byte[] name = sequenceHeaderLine.getSn().getBytes(StandardCharsets.UTF_8);
+            buffer.writeInt(name.length + 1);
+            buffer.writeBytes(name);
+            buffer.writeByte(0);
+            try {
+                buffer.writeInt(Integer.parseInt(sequenceHeaderLine.getLn()));
+            }
+            catch (NumberFormatException e) {
+                throw new IOException("could not write BAM header, invalid LN for reference " + sequenceHeaderLine.getSn(), e);
+            }
+        }
+        buffer.writeTo(outputStream);
+    }
+
+    /**
+     * Return reference ids keyed by reference name for the specified SAM header.
+     *
+     * @param header SAM header
+     * @return reference ids keyed by reference name for the specified SAM header
+     */
+    static Map<String, Integer> references(final SamHeader header) {
+        List<SamSequenceHeaderLine> sequenceHeaderLines = header.getSequenceHeaderLines();
+        Map<String, Integer> references = new HashMap<String, Integer>(sequenceHeaderLines.size() * 2);
+        for (int i = 0, size = sequenceHeaderLines.size(); i < size; i++) {
+            references.put(sequenceHeaderLines.get(i).getSn(), i);
+        }
+        return references;
+    }
+
+    /**
+     * Read the next BAM record, including its <code>block_size</code> prefix, from the
+     * specified input stream into the specified buffer, growing it if necessary.
+     *
+     * @param inputStream input stream to read from
+     * @param buffer buffer to read into, must be at least four bytes in length
+     * @return the buffer containing the next BAM record, or <code>null</code> if
+     *    the end of the input stream has been reached
+     * @throws IOException if an I/O error occurs or the record is truncated
+     */
+    static byte[] readRecord(final InputStream inputStream, final byte[] buffer) throws IOException {
+        if (!readFully(inputStream, buffer, 0, 4)) {
+            return null;
+        }
+        int blockSize = readInt(buffer, 0);
+        if (blockSize < READ_NAME_OFFSET - 4) {
+            throw new IOException("invalid BAM record, block_size " + blockSize + " too small");
+        }
+        byte[] bytes = buffer.length < blockSize + 4 ? Arrays.copyOf(buffer, Math.max(buffer.length * 2, blockSize + 4)) : buffer;
+        readRequired(inputStream, bytes, 4, blockSize);
+        return bytes;
+    }
+
+    /**
+     * Return the size of the specified BAM record, including its <code>block_size</code> prefix.
+     *
+     * @param record BAM record
+     * @return the size of the specified BAM record, including its <code>block_size</code> prefix
+     */
+    static int size(final byte[] record) {
+        return readInt(record, 0) + 4;
+    }
+
+    /**
+     * Return the reference id of the specified BAM record.
+     *
+     * @param record BAM record
+     * @return the reference id of the specified BAM record
+     */
+    static int referenceId(final byte[] record) {
+        return readInt(record, 4);
+    }
+
+    /**
+     * Return the 0-based leftmost position of the specified BAM record.
+     *
+     * @param record BAM record
+     * @return the 0-based leftmost position of the specified BAM record
+     */
+    static int position(final byte[] record) {
+        return readInt(record, 8);
+    }
+
+    /**
+     * Return the 0-based exclusive reference end position of the specified BAM record,
+     * at least one past its leftmost position.
+     *
+     * @param record BAM record
+     * @return the 0-based exclusive reference end position of the specified BAM record
+     */
+    static int end(final byte[] record) {
+        int pos = position(record);
+        if ((unsignedShort(record, 18) & UNMAPPED) != 0) {
+            return pos + 1;
+        }
+        int cigarOffset = READ_NAME_OFFSET + (record[12] & 0xff);
+        int n = unsignedShort(record, 16);
+        int length = 0;
+        for (int i = 0; i < n; i++) {
+            int value = readInt(record, cigarOffset + 4 * i);
+            if (Cigar.consumesReference(value & 0xf)) {
+                length += value >>> 4;
+            }
+        }
+        return pos + Math.max(1, length);
+    }
+
+    /**
+     * Decode the specified BAM record into a SAM record.
+     *
+     * @param record BAM record, including its <code>block_size</code> prefix
+     * @param references reference names in binary header order
+     * @return the specified BAM record decoded into a SAM record
+     * @throws IOException if the record is not valid
+     */
+    static SamRecord decodeRecord(final byte[] record, final List<String> references) throws IOException {
+        try {
+            int end = size(record);
+            int refId = readInt(record, 4);
+            int pos = readInt(record, 8);
+            int readNameLength = record[12] & 0xff;
+            int mapq = record[13] & 0xff;
+            int cigarLength = unsignedShort(record, 16);
+            int flag = unsignedShort(record, 18);
+            int seqLength = readInt(record, 20);
+            int nextRefId = readInt(record, 24);
+            int nextPos = readInt(record, 28);
+            int tlen = readInt(record, 32);
+
+            int cigarOffset = READ_NAME_OFFSET + readNameLength;
+            int seqOffset = cigarOffset + 4 * cigarLength;
+            int qualOffset = seqOffset + (seqLength + 1) / 2;
+            int tagsOffset = qualOffset + seqLength;
+            if (readNameLength == 0 || seqLength < 0 || tagsOffset > end) {
+                throw new IOException("invalid BAM record, field lengths exceed block_size");
+            }
+
+            String qname = new String(record, READ_NAME_OFFSET, readNameLength - 1, StandardCharsets.UTF_8);
+            if ("*".equals(qname)) {
+                qname = null;
+            }
+
+            // a placeholder kSmN CIGAR indicates the actual CIGAR is in the CG optional field
+            boolean longCigar = cigarLength == 2
+                && (readInt(record, cigarOffset) & 0xf) == 4
+                && (readInt(record, cigarOffset) >>> 4) == seqLength
+                && (readInt(record, cigarOffset + 4) & 0xf) == 3;
+
+            String cigar = null;
+            if (cigarLength > 0) {
+                StringBuilder sb = new StringBuilder(cigarLength * 4);
+                for (int i = 0; i < cigarLength; i++) {
+                    appendCigarOperation(readInt(record, cigarOffset + 4 * i), sb);
+                }
+                cigar = sb.toString();
+            }
+
+            String seq = null;
+            String qual = null;
+            if (seqLength > 0) {
+                char[] bases = new char[seqLength];
+                for (int i = 0; i < seqLength; i++) {
+                    int b = record[seqOffset + (i >> 1)];
+                    bases[i] = BASES.charAt((i & 1) == 0 ? (b >> 4) & 0xf : b & 0xf);
+                }
+                seq = new String(bases);
+
+                if ((record[qualOffset] & 0xff) != 0xff) {
+                    char[] quals = new char[seqLength];
+                    for (int i = 0; i < seqLength; i++) {
+                        quals[i] = (char) ((record[qualOffset + i] & 0xff) + 33);
+                    }
+                    qual = new String(quals);
+                }
+            }
+
+            StringBuilder tags = new StringBuilder();
+            int offset = tagsOffset;
+            while (offset < end) {
+                char c0 = (char) record[offset];
+                char c1 = (char) record[offset + 1];
+                char type = (char) record[offset + 2];
+                offset += 3;
+
+                if (type == 'B' && longCigar && c0 == 'C' && c1 == 'G' && record[offset] == 'I') {
+                    int n = readInt(record, offset + 1);
+                    StringBuilder sb = new StringBuilder(n * 4);
+                    for (int i = 0; i < n; i++) {
+                        appendCigarOperation(readInt(record, offset + 5 + 4 * i), sb);
+                    }
+                    cigar = sb.toString();
+                    offset += 5 + 4 * n;
+                    continue;
+                }
+
+                if (tags.length() > 0) {
+                    tags.append('\t');
+                }
+                tags.append(c0).append(c1).append(':');
+                switch (type) {
+                case 'A':
+                    tags.append("A:").append((char) record[offset]);
+                    offset += 1;
+                    break;
+                case 'c':
+                    tags.append("i:").append(record[offset]);
+                    offset += 1;
+                    break;
+                case 'C':
+                    tags.append("i:").append(record[offset] & 0xff);
+                    offset += 1;
+                    break;
+                case 's':
+                    tags.append("i:").append((short) unsignedShort(record, offset));
+                    offset += 2;
+                    break;
+                case 'S':
+                    tags.append("i:").append(unsignedShort(record, offset));
+                    offset += 2;
+                    break;
+                case 'i':
+                    tags.append("i:").append(readInt(record, offset));
+                    offset += 4;
+                    break;
+                case 'I':
+                    tags.append("i:").append(readInt(record, offset) & 0xffffffffL);
+                    offset += 4;
+                    break;
+                case 'f':
+                    tags.append("f:");
+                    appendFloat(Float.intBitsToFloat(readInt(record, offset)), tags);
+                    offset += 4;
+                    break;
+                case 'Z':
+                case 'H':
+                    int nul = offset;
+                    while (record[nul] != 0) {
+                        nul++;
+                    }
+                    tags.append(type).append(':').append(new String(record, offset, nul - offset, StandardCharsets.UTF_8));
+                    offset = nul + 1;
+                    break;
+                case 'B':
+                    char arrayType = (char) record[offset];
+                    int n = readInt(record, offset + 1);
+                    offset += 5;
+                    tags.append("B:").append(arrayType);
+                    for (int i = 0; i < n; i++) {
+                        tags.append(',');
+                        switch (arrayType) {
+                        case 'c':
+                            tags.append(record[offset]);
+                            offset += 1;
+                            break;
+                        case 'C':
+                            tags.append(record[offset] & 0xff);
+                            offset += 1;
+                            break;
+                        case 's':
+                            tags.append((short) unsignedShort(record, offset));
+                            offset += 2;
+                            break;
+                        case 'S':
+                            tags.append(unsignedShort(record, offset));
+                            offset += 2;
+                            break;
+                        case 'i':
+                            tags.append(readInt(record, offset));
+                            offset += 4;
+                            break;
+                        case 'I':
+                            tags.append(readInt(record, offset) & 0xffffffffL);
+                            offset += 4;
+                            break;
+                        case 'f':
+                            appendFloat(Float.intBitsToFloat(readInt(record, offset)), tags);
+                            offset += 4;
+                            break;
+                        default:
+                            throw new IOException("invalid BAM record, unknown array type " + arrayType + " for optional field " + c0 + c1);
+                        }
+                    }
+                    break;
+                default:
+                    throw new IOException("invalid BAM record, unknown type " + type + " for optional field " + c0 + c1);
+                }
+            }
+            if (offset != end) {
+                throw new IOException("invalid BAM record, optional fields exceed block_size");
+            }
+
+            return new SamRecord(qname,
+                                 flag,
+                                 refId < 0 ? null : reference(refId, references),
+                                 pos + 1,
+                                 mapq,
+                                 cigar,
+                                 nextRefId < 0 ? null : (nextRefId == refId ? "=" : reference(nextRefId, references)),
+                                 nextPos + 1,
+                                 tlen,
+                                 seq,
+                                 qual,
+                                 tags.toString());
+        }
+        catch (ArrayIndexOutOfBoundsException | StringIndexOutOfBoundsException e) {
+            throw new IOException("invalid BAM record, truncated", e);
+        }
+    }
+
+    /**
+     * Encode the specified SAM record into the specified buffer as a BAM record,
+     * including its <code>block_size</code> prefix.
+     *
+     * @param record SAM record to encode
+     * @param references reference ids keyed by reference name
+     * @param buffer buffer to encode into
+     * @throws IOException if the record cannot be encoded
+     */
+    static void encodeRecord(final SamRecord record, final Map<String, Integer> references, final Buffer buffer) throws IOException {
+        try {
+            int start = buffer.size();
+            int refId = referenceId(record.getRname(), references);
+            int pos = record.getPos() - 1;
+            int nextRefId = "=".equals(record.getRnext()) ? refId : referenceId(record.getRnext(), references);
+
+            byte[] qname = (record.getQname() == null ? "*" : record.getQname()).getBytes(StandardCharsets.UTF_8);
+            if (qname.length > 254) {
+                throw new IOException("could not encode SAM record " + record.getQname() + ", QNAME too long");
+            }
+            int[] cigar;
+            try {
+                cigar = record.getPackedCigar();
+            }
+            catch (IllegalArgumentException e) {
+                throw new IOException("could not encode SAM record " + record.getQname() + ", caught " + e.getMessage(), e);
+            }
+            String seq = record.getSeq();
+            String qual = record.getQual();
+            int seqLength = seq == null ? 0 : seq.length();
+            if (qual != null && qual.length() != seqLength) {
+                throw new IOException("could not encode SAM record " + record.getQname() + ", SEQ and QUAL lengths differ");
+            }
+
+            int length = 0;
+            if ((record.getFlag() & UNMAPPED) == 0) {
+                for (int value : cigar) {
+                    if (Cigar.consumesReference(value & 0xf)) {
+                        length += value >>> 4;
+                    }
+                }
+            }
+            boolean longCigar = cigar.length > 0xffff;
+
+            buffer.writeInt(0);
+            buffer.writeInt(refId);
+            buffer.writeInt(pos);
+            buffer.writeByte(qname.length + 1);
+            buffer.writeByte(record.getMapq());
+            buffer.writeShort(reg2bin(pos, pos + Math.max(1, length)));
+            buffer.writeShort(longCigar ? 2 : cigar.length);
+            buffer.writeShort(record.getFlag());
+            buffer.writeInt(seqLength);
+            buffer.writeInt(nextRefId);
+            buffer.writeInt(record.getPnext() - 1);
+            buffer.writeInt(record.getTlen());
+            buffer.writeBytes(qname);
+            buffer.writeByte(0);
+            if (longCigar) {
+                buffer.writeInt((seqLength << 4) | 4);
+                buffer.writeInt((length << 4) | 3);
+            }
+            else {
+                for (int value : cigar) {
+                    buffer.writeInt(value);
+                }
+            }
+            for (int i = 0; i < seqLength; i += 2) {
+                int hi = baseCode(seq.charAt(i));
+                int lo = i + 1 < seqLength ? baseCode(seq.charAt(i + 1)) : 0;
+                buffer.writeByte((hi << 4) | lo);
+            }
+            for (int i = 0; i < seqLength; i++) {
+                buffer.writeByte(qual == null ? 0xff : qual.charAt(i) - 33);
+            }
+            for (Annotation annotation : record.getAnnotations().values()) {
+                encodeAnnotation(annotation, buffer);
+            }
+            if (longCigar) {
+                buffer.writeByte('C');
+                buffer.writeByte('G');
+                buffer.writeByte('B');
+                buffer.writeByte('I');
+                buffer.writeInt(cigar.length);
+                for (int value : cigar) {
+                    buffer.writeInt(value);
+                }
+            }
+            buffer.setInt(start, buffer.size() - start - 4);
+        }
+        catch (NumberFormatException e) {
+            throw new IOException("could not encode SAM record " + record.getQname() + ", caught " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Encode the specified annotation into the specified buffer as a BAM optional field.
+     *
+     * @param annotation annotation to encode
+     * @param buffer buffer to encode into
+     * @throws IOException if the annotation cannot be encoded
+     */
+    private static void encodeAnnotation(final Annotation annotation, final Buffer buffer) throws IOException {
+        String name = annotation.getName();
+        if (name.length() != 2) {
+            throw new IOException("could not encode optional field " + name + ", name must be two characters");
+        }
+        buffer.writeByte(name.charAt(0));
+        buffer.writeByte(name.charAt(1));
+        String value = annotation.getValue();
+        switch (annotation.getType()) {
+        case "A":
+            if (value.length() != 1) {
+                throw new IOException("could not encode optional field " + name + ", type A value must be one character");
+            }
+            buffer.writeByte('A');
+            buffer.writeByte(value.charAt(0));
+            break;
+        case "i":
+            long i = Long.parseLong(value);
+            if (i >= 0L) {
+                if (i <= 0xffL) {
+                    buffer.writeByte('C');
+                    buffer.writeByte((int) i);
+                }
+                else if (i <= 0xffffL) {
+                    buffer.writeByte('S');
+                    buffer.writeShort((int) i);
+                }
+                else if (i <= 0xffffffffL) {
+                    buffer.writeByte('I');
+                    buffer.writeInt((int) i);
+                }
+                else {
+                    throw new IOException("could not encode optional field " + name + ", value " + value + " out of range");
+                }
+            }
+            else {
+                if (i >= Byte.MIN_VALUE) {
+                    buffer.writeByte('c');
+                    buffer.writeByte((int) i);
+                }
+                else if (i >= Short.MIN_VALUE) {
+                    buffer.writeByte('s');
+                    buffer.writeShort((int) i);
+                }
+                else if (i >= Integer.MIN_VALUE) {
+                    buffer.writeByte('i');
+                    buffer.writeInt((int) i);
+                }
+                else {
+                    throw new IOException("could not encode optional field " + name + ", value " + value + " out of range");
+                }
+            }
+            break;
+        case "f":
+            buffer.writeByte('f');
+            buffer.writeInt(Float.floatToIntBits(Float.parseFloat(value)));
+            break;
+        case "Z":
+        case "H":
+            buffer.writeByte(annotation.getType().charAt(0));
+            buffer.writeBytes(value.getBytes(StandardCharsets.UTF_8));
+            buffer.writeByte(0);
+            break;
+        case "B":
+            char arrayType = annotation.getArrayType().charAt(0);
+            String[] values = value.isEmpty() ? new String[0] : value.split(",");
+            buffer.writeByte('B');
+            buffer.writeByte(arrayType);
+            buffer.writeInt(values.length);
+            for (String v : values) {
+                switch (arrayType) {
+                case 'c':
+                case 'C':
+                    buffer.writeByte(Integer.parseInt(v.trim()));
+                    break;
+                case 's':
+                case 'S':
+                    buffer.writeShort(Integer.parseInt(v.trim()));
+                    break;
+                case 'i':
+                case 'I':
+                    buffer.writeInt((int) Long.parseLong(v.trim()));
+                    break;
+                default:
+                    buffer.writeInt(Float.floatToIntBits(Float.parseFloat(v.trim())));
+                    break;
+                }
+            }
+            break;
+        default:
+            throw new IOException("could not encode optional field " + name + ", unknown type " + annotation.getType());
+        }
+    }
+
+    /**
+     * Return the reference id for the specified reference name.
+     *
+     * @param name reference name, if any
+     * @param references reference ids keyed by reference name
+     * @return the reference id for the specified reference name, or <code>-1</code> if the name is null
+     * @throws IOException if the specified reference name is not in the header
+     */
+    private static int referenceId(final String name, final Map<String, Integer> references) throws IOException {
+        if (name == null) {
+            return -1;
+        }
+        Integer refId = references.get(name);
+        if (refId == null) {
+            throw new IOException("could not encode SAM record, reference " + name + " not found in header");
+        }
+        return refId;
+    }
+
+    /**
+     * Return the reference name for the specified reference id.
+     *
+     * @param refId reference id
+     * @param references reference names in binary header order
+     * @return the reference name for the specified reference id
+     * @throws IOException if the specified reference id is not in the header
+     */
+    private static String reference(final int refId, final List<String> references) throws IOException {
+        if (refId >= references.size()) {
+            throw new IOException("invalid BAM record, reference id " + refId + " not found in header");
+        }
+        return references.get(refId);
+    }
+
+    /**
+     * Append the specified BAM CIGAR operation to the specified string builder.
+     *
+     * @param value BAM CIGAR operation
+     * @param sb string builder to append to
+     * @throws IOException if the specified BAM CIGAR operation is not valid
+     */
+    private static void appendCigarOperation(final int value, final StringBuilder sb) throws IOException {
+        int op = value & 0xf;
+        if (op >= Cigar.OPERATIONS.length()) {
+            throw new IOException("invalid BAM record, unknown CIGAR operation " + op);
+        }
+        sb.append(value >>> 4).append(Cigar.OPERATIONS.charAt(op));
+    }
+
+    /**
+     * Append the specified float value to the specified string builder, without
+     * a fractional part if the value is integral.
+     *
+     * @param value float value
+     * @param sb string builder to append to
+     */
+    private static void appendFloat(final float value, final StringBuilder sb) {
+        if (value == Math.rint(value) && Math.abs(value) < 1.0e7f) {
+            sb.append((long) value);
+        }
+        else {
+            sb.append(value);
+        }
+    }
+
+    /**
+     * Pack the specified SEQ and QUAL mandatory fields into a single byte array, SEQ as BAM 4-bit
+     * base codes followed by QUAL as raw Phred-scaled base qualities, or <code>0xff</code> bytes
+     * if QUAL is missing.  Returns <code>null</code> if the specified fields cannot be packed
+     * without loss, for example if SEQ contains lowercase bases.
+     *
+     * @param seq SEQ mandatory field, must not be null
+     * @param qual QUAL mandatory field, if any
+     * @return the specified SEQ and QUAL mandatory fields packed into a single byte array,
+     *    or <code>null</code> if they cannot be packed without loss
+     */
+    static byte[] pack(final String seq, final String qual) {
+        int seqLength = seq.length();
+        if (qual != null && qual.length() != seqLength) {
+            return null;
+        }
+        int qualOffset = (seqLength + 1) / 2;
+        byte[] packed = new byte[qualOffset + seqLength];
+        for (int i = 0; i < seqLength; i++) {
+            char c = seq.charAt(i);
+            int code = baseCode(c);
+            if (BASES.charAt(code) != c) {
+                return null;
+            }
+            packed[i >> 1] |= (byte) ((i & 1) == 0 ? code << 4 : code);
+        }
+        for (int i = 0; i < seqLength; i++) {
+            if (qual == null) {
+                packed[qualOffset + i] = (byte) 0xff;
+            }
+            else {
+                char c = qual.charAt(i);
+                if (c < '!' || c > '~') {
+                    return null;
+                }
+                packed[qualOffset + i] = (byte) (c - 33);
+            }
+        }
+        return packed;
+    }
+
+    /**
+     * Return the SEQ length of the specified packed SEQ and QUAL mandatory fields.  The packed
+     * length is <code>ceil(n / 2) + n</code> for SEQ length <code>n</code>, so <code>n</code>
+     * is <code>floor(2 * length / 3)</code>.
+     *
+     * @param packed packed SEQ and QUAL mandatory fields
+     * @return the SEQ length of the specified packed SEQ and QUAL mandatory fields
+     */
+    private static int packedLength(final byte[] packed) {
+        return (2 * packed.length) / 3;
+    }
+
+    /**
+     * Unpack the SEQ mandatory field from the specified packed SEQ and QUAL mandatory fields.
+     *
+     * @param packed packed SEQ and QUAL mandatory fields, must not be null
+     * @return the SEQ mandatory field unpacked from the specified packed SEQ and QUAL mandatory fields
+     */
+    static String unpackSeq(final byte[] packed) {
+        int seqLength = packedLength(packed);
+        char[] bases = new char[seqLength];
+        for (int i = 0; i < seqLength; i++) {
+            int b = packed[i >> 1];
+            bases[i] = BASES.charAt((i & 1) == 0 ? (b >> 4) & 0xf : b & 0xf);
+        }
+        return new String(bases);
+    }
+
+    /**
+     * Unpack the QUAL mandatory field from the specified packed SEQ and QUAL mandatory fields.
+     *
+     * @param packed packed SEQ and QUAL mandatory fields, must not be null
+     * @return the QUAL mandatory field unpacked from the specified packed SEQ and QUAL mandatory
+     *    fields, or <code>null</code> if QUAL is missing
+     */
+    static String unpackQual(final byte[] packed) {
+        int seqLength = packedLength(packed);
+        int qualOffset = (seqLength + 1) / 2;
+        if (seqLength == 0 || (packed[qualOffset] & 0xff) == 0xff) {
+            return null;
+        }
+        char[] quals = new char[seqLength];
+        for (int i = 0; i < seqLength; i++) {
+            quals[i] = (char) ((packed[qualOffset + i] & 0xff) + 33);
+        }
+        return new String(quals);
+    }
+
+    /**
+     * Return the BAM 4-bit base code for the specified base.
+     *
+     * @param c base
+     * @return the BAM 4-bit base code for the specified base
+     */
+    private static int baseCode(final char c) {
+        return c < 128 ? BASE_CODES[c] : 15;
+    }
+
+    /**
+     * Return the BAI bin for the specified region.
+     *
+     * @param beg start, 0-based inclusive
+     * @param end end, 0-based exclusive
+     * @return the BAI bin for the specified region
+     */
+    static int reg2bin(final int beg, final int end) {
+        int last = end - 1;
+        if (beg >> 14 == last >> 14) {
+            return ((1 << 15) - 1) / 7 + (beg >> 14);
+        }
+        if (beg >> 17 == last >> 17) {
+            return ((1 << 12) - 1) / 7 + (beg >> 17);
+        }
+        if (beg >> 20 == last >> 20) {
+            return ((1 << 9) - 1) / 7 + (beg >> 20);
+        }
+        if (beg >> 23 == last >> 23) {
+            return ((1 << 6) - 1) / 7 + (beg >> 23);
+        }
+        if (beg >> 26 == last >> 26) {
+            return ((1 << 3) - 1) / 7 + (beg >> 26);
+        }
+        return 0;
+    }
+
+    /**
+     * Read exactly the specified number of bytes from the specified input stream.
+     *
+     * @param inputStream input stream
+     * @param bytes array to read into
+     * @param offset offset
+     * @param length number of bytes to read
+     * @return true if the bytes were read, false if the end of the input stream was reached before any bytes were read
+     * @throws IOException if an I/O error occurs or the end of the input stream was reached after some bytes were read
+     */
+    private static boolean readFully(final InputStream inputStream, final byte[] bytes, final int offset, final int length) throws IOException {
+        int n = 0;
+        while (n < length) {
+            int read = inputStream.read(bytes, offset + n, length - n);
+            if (read < 0) {
+                if (n == 0) {
+                    return false;
+                }
+                throw new EOFException("truncated BAM data");
+            }
+            n += read;
+        }
+        return true;
+    }
+
+    /**
+     * Read exactly the specified number of bytes from the specified input stream.
+     *
+     * @param inputStream input stream
+     * @param bytes array to read into
+     * @param offset offset
+     * @param length number of bytes to read
+     * @throws IOException if an I/O error occurs or the end of the input stream was reached
+     */
+    private static void readRequired(final InputStream inputStream, final byte[] bytes, final int offset, final int length) throws IOException {
+        if (length > 0 && !readFully(inputStream, bytes, offset, length)) {
+            throw new EOFException("truncated BAM data");
+        }
+    }
+
+    /**
+     * Read a little-endian int from the specified input stream.
+     *
+     * @param inputStream input stream
+     * @param bytes scratch array, at least four bytes in length
+     * @return a little-endian int read from the specified input stream
+     * @throws IOException if an I/O error occurs or the end of the input stream was reached
+     */
+    private static int readInt(final InputStream inputStream, final byte[] bytes) throws IOException {
+        readRequired(inputStream, bytes, 0, 4);
+        return readInt(bytes, 0);
+    }
+
+    /**
+     * Return the little-endian int at the specified offset.
+     *
+     * @param bytes bytes
+     * @param offset offset
+     * @return the little-endian int at the specified offset
+     */
+    static int readInt(final byte[] bytes, final int offset) {
+        return (bytes[offset] & 0xff)
+            | ((bytes[offset + 1] & 0xff) << 8)
+            | ((bytes[offset + 2] & 0xff) << 16)
+            | ((bytes[offset + 3] & 0xff) << 24);
+    }
+
+    /**
+     * Return the little-endian unsigned short at the specified offset.
+     *
+     * @param bytes bytes
+     * @param offset offset
+     * @return the little-endian unsigned short at the specified offset
+     */
+    private static int unsignedShort(final byte[] bytes, final int offset) {
+        return (bytes[offset] & 0xff) | ((bytes[offset + 1] & 0xff) << 8);
+    }
+
+    /**
+     * Growable little-endian byte buffer.
+     */
+    static final class Buffer {
+        /** Bytes. */
+        private byte[] bytes = new byte[1024];
+
+        /** Size. */
+        private int size = 0;
+
+
+        /**
+         * Return the number of bytes in this buffer.
+         *
+         * @return the number of bytes in this buffer
+         */
+        int size() {
+            return size;
+        }
+
+        /**
+         * Reset this buffer to empty.
+         */
+        void reset() {
+            size = 0;
+        }
+
+        /**
+         * Write the specified value as a byte.
+         *
+         * @param value value
+         */
+        void writeByte(final int value) {
+            ensureCapacity(1);
+            bytes[size++] = (byte) value;
+        }
+
+        /**
+         * Write the specified value as a little-endian short.
+         *
+         * @param value value
+         */
+        void writeShort(final int value) {
+            ensureCapacity(2);
+            bytes[size++] = (byte) value;
+            bytes[size++] = (byte) (value >>> 8);
+        }
+
+        /**
+         * Write the specified value as a little-endian int.
+         *
+         * @param value value
+         */
+        void writeInt(final int value) {
+            ensureCapacity(4);
+            setInt(size, value);
+            size += 4;
+        }
+
+        /**
+         * Write the specified bytes.
+         *
+         * @param value bytes
+         */
+        void writeBytes(final byte[] value) {
+            ensureCapacity(value.length);
+            System.arraycopy(value, 0, bytes, size, value.length);
+            size += value.length;
+        }
+
+        /**
+         * Set the little-endian int at the specified offset to the specified value.
+         *
+         * @param offset offset
+         * @param value value
+         */
+        void setInt(final int offset, final int value) {
+            bytes[offset] = (byte) value;
+            bytes[offset + 1] = (byte) (value >>> 8);
+            bytes[offset + 2] = (byte) (value >>> 16);
+            bytes[offset + 3] = (byte) (value >>> 24);
+        }
+
+        /**
+         * Return a copy of the bytes in this buffer.
+         *
+         * @return a copy of the bytes in this buffer
+         */
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+
+        /**
+         * Write the bytes in this buffer to the specified output stream.
+         *
+         * @param outputStream output stream to write to
+         * @throws IOException if an I/O error occurs
+         */
+        void writeTo(final OutputStream outputStream) throws IOException {
+            outputStream.write(bytes, 0, size);
+        }
+
+        /**
+         * Ensure capacity for the specified number of additional bytes.
+         *
+         * @param n number of additional bytes
+         */
+        private void ensureCapacity(final int n) {
+            if (size + n > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + n));
+            }
+        }
+    }
+}
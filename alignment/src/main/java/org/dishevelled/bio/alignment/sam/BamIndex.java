@@ -0,0 +1,209 @@
+/*
+
+    dsh-bio-alignment  Aligments.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.alignment.sam;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.io.LittleEndianDataInputStream;
+
+/**
+ * BAM index (<code>.bai</code>).
+ *
+ * @author  Michael Heuer
+ */
+final class BamIndex {
+    /** Minimum shift, the log2 size of the smallest bin. */
+    private static final int MIN_SHIFT = 14;
+
+    /** Depth of the binning scheme. */
+    private static final int DEPTH = 5;
+
+    /** Pseudo-bin containing metadata rather than chunks. */
+    private static final int PSEUDO_BIN = 37450;
+
+    /** Chunks keyed by bin, per reference; each chunk a pair of begin and end virtual offsets. */
+    private final List<Map<Integer, long[]>> chunks;
+
+    /** Linear index of minimum virtual offsets per window, per reference. */
+    private final List<long[]> linearOffsets;
+
+
+    /**
+     * Create a new BAM index.
+     *
+     * @param chunks chunks keyed by bin, per reference
+     * @param linearOffsets linear index, per reference
+     */
+    private BamIndex(final List<Map<Integer, long[]>> chunks, final List<long[]> linearOffsets) {
+        this.chunks = chunks;
+        this.linearOffsets = linearOffsets;
+    }
+
+
+    /**
+     * Return the merged chunks that may contain records overlapping the specified
+     * region, in order.
+     *
+     * @param ref reference id
+     * @param start start, 0-based inclusive
+     * @param end end, 0-based exclusive
+     * @return the merged chunks that may contain records overlapping the specified
+     *    region, in order, each a pair of begin and end virtual offsets
+     */
+    List<long[]> query(final int ref, final long start, final long end) {
+        if (ref < 0 || ref >= chunks.size() || end <= start) {
+            return Collections.emptyList();
+        }
+        long beg = Math.max(0L, start);
+        long minOffset = minOffset(ref, beg);
+        Map<Integer, long[]> binChunks = chunks.get(ref);
+
+        List<long[]> result = new ArrayList<long[]>();
+        long last = end - 1L;
+        int s = MIN_SHIFT + DEPTH * 3;
+        for (int level = 0, t = 0; level <= DEPTH; s -= 3, t += 1 << (level * 3), level++) {
+            long b = t + (beg >> s);
+            long e = t + (last >> s);
+            for (long bin = b; bin <= e; bin++) {
+                long[] c = binChunks.get((int) bin);
+                if (c != null) {
+                    for (int i = 0; i < c.length; i += 2) {
+                        if (Long.compareUnsigned(c[i + 1], minOffset) > 0) {
+                            result.add(new long[] { c[i], c[i + 1] });
+                        }
+                    }
+                }
+            }
+        }
+        return merge(result);
+    }
+
+    /**
+     * Return the minimum virtual offset for records overlapping the specified position.
+     *
+     * @param ref reference id
+     * @param beg position, 0-based
+     * @return the minimum virtual offset for records overlapping the specified position
+     */
+    private long minOffset(final int ref, final long beg) {
+        long[] offsets = linearOffsets.get(ref);
+        if (offsets.length == 0) {
+            return 0L;
+        }
+        int window = (int) Math.min(beg >> MIN_SHIFT, offsets.length - 1);
+        return offsets[window];
+    }
+
+    /**
+     * Sort and merge the specified chunks.
+     *
+     * @param chunks chunks to merge
+     * @return the specified chunks, sorted and merged
+     */
+    private static List<long[]> merge(final List<long[]> chunks) {
+        if (chunks.size() < 2) {
+            return chunks;
+        }
+        Collections.sort(chunks, new Comparator<long[]>() {
+                @Override
+                public int compare(final long[] c0, final long[] c1) {
+                    return Long.compareUnsigned(c0[0], c1[0]);
+                }
+            });
+        List<long[]> merged = new ArrayList<long[]>(chunks.size());
+        long[] current = chunks.get(0);
+        for (int i = 1, size = chunks.size(); i < size; i++) {
+            long[] chunk = chunks.get(i);
+            // merge overlapping chunks and chunks starting in the same block
+            if (Long.compareUnsigned(chunk[0], current[1]) <= 0 || (chunk[0] >>> 16) == (current[1] >>> 16)) {
+                if (Long.compareUnsigned(chunk[1], current[1]) > 0) {
+                    current[1] = chunk[1];
+                }
+            }
+            else {
+                merged.add(current);
+                current = chunk;
+            }
+        }
+        merged.add(current);
+        return merged;
+    }
+
+    /**
+     * Read a BAM index from the specified path.
+     *
+     * @param path path to read from, must not be null
+     * @return a BAM index read from the specified path
+     * @throws IOException if an I/O error occurs
+     */
+    static BamIndex read(final Path path) throws IOException {
+        checkNotNull(path);
+        try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(path))) {
+            LittleEndianDataInputStream in = new LittleEndianDataInputStream(inputStream);
+            byte[] magic = new byte[4];
+            in.readFully(magic);
+            if (magic[0] != 'B' || magic[1] != 'A' || magic[2] != 'I' || magic[3] != 1) {
+                throw new IOException("invalid index " + path + ", expected BAM index (.bai) magic");
+            }
+            int n = in.readInt();
+            List<Map<Integer, long[]>> chunks = new ArrayList<Map<Integer, long[]>>(n);
+            List<long[]> linearOffsets = new ArrayList<long[]>(n);
+            for (int i = 0; i < n; i++) {
+                int bins = in.readInt();
+                Map<Integer, long[]> binChunks = new HashMap<Integer, long[]>(bins * 2);
+                for (int j = 0; j < bins; j++) {
+                    int bin = in.readInt();
+                    long[] c = new long[2 * in.readInt()];
+                    for (int k = 0; k < c.length; k++) {
+                        c[k] = in.readLong();
+                    }
+                    if (bin != PSEUDO_BIN) {
+                        binChunks.put(bin, c);
+                    }
+                }
+                chunks.add(binChunks);
+                long[] offsets = new long[in.readInt()];
+                for (int j = 0; j < offsets.length; j++) {
+                    offsets[j] = in.readLong();
+                }
+                linearOffsets.add(offsets);
+            }
+            return new BamIndex(chunks, linearOffsets);
+        }
+    }
+}
@@ -0,0 +1,306 @@
+/*
+
+    dsh-bio-alignment  Aligments.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.alignment.sam;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.concurrent.Immutable;
+
+import org.dishevelled.bio.bgzf.BgzfReader;
+import org.dishevelled.bio.bgzf.ParallelBgzfInputStream;
+
+/**
+ * BAM reader.
+ *
+ * <p>
+ * BGZF blocks are inflated and binary records decoded directly into SAM records,
+ * optionally inflating blocks with a pool of worker threads.  Coordinate-sorted BAM
+ * files with a BAM index (<code>.bai</code>) may be queried by region.
+ * </p>
+ *
+ * @since 4.1
+ * @author  Michael Heuer
+ */
+@Immutable
+public final class BamReader {
+
+    /**
+     * Private no-arg constructor.
+     */
+    private BamReader() {
+        // empty
+    }
+
+
+    /**
+     * Return true if the specified path is a BAM file, that is BGZF compressed
+     * with the BAM magic number at the start of its uncompressed data.
+     *
+     * @param path path, must not be null
+     * @return true if the specified path is a BAM file
+     * @throws IOException if an I/O error occurs
+     */
+    public static boolean isBam(final Path path) throws IOException {
+        checkNotNull(path);
+        if (!Files.isRegularFile(path)) {
+            return false;
+        }
+        try (InputStream inputStream = new BgzfReader(new BufferedInputStream(Files.newInputStream(path)))) {
+            byte[] magic = new byte[4];
+            int n = 0;
+            while (n < magic.length) {
+                int read = inputStream.read(magic, n, magic.length - n);
+                if (read < 0) {
+                    return false;
+                }
+                n += read;
+            }
+            return magic[0] == 'B' && magic[1] == 'A' && magic[2] == 'M' && magic[3] == 1;
+        }
+        catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Return true if the specified path has a BAM index (<code>.bai</code>), either
+     * <code>path.bai</code> or with the <code>.bam</code> extension replaced by <code>.bai</code>.
+     *
+     * @param path path, must not be null
+     * @return true if the specified path has a BAM index
+     */
+    public static boolean isIndexed(final Path path) {
+        checkNotNull(path);
+        return index(path) != null;
+    }
+
+    /**
+     * Return the path to the BAM index for the specified path, if any.
+     *
+     * @param path path
+     * @return the path to the BAM index for the specified path, or <code>null</code> if none exists
+     */
+    static Path index(final Path path) {
+        String fileName = path.getFileName().toString();
+        Path bai = path.resolveSibling(fileName + ".bai");
+        if (Files.isRegularFile(bai)) {
+            return bai;
+        }
+        if (fileName.endsWith(".bam")) {
+            bai = path.resolveSibling(fileName.substring(0, fileName.length() - 4) + ".bai");
+            if (Files.isRegularFile(bai)) {
+                return bai;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Read the BAM header from the specified input stream.
+     *
+     * @param inputStream input stream to read from, must not be null
+     * @return the BAM header read from the specified input stream
+     * @throws IOException if an I/O error occurs
+     */
+    public static SamHeader header(final InputStream inputStream) throws IOException {
+        checkNotNull(inputStream);
+        try (BgzfReader reader = new BgzfReader(new BufferedInputStream(inputStream))) {
+            return BamCodec.readHeader(reader, new ArrayList<String>());
+        }
+    }
+
+    /**
+     * Read the BAM header from the specified path.
+     *
+     * @param path path to read from, must not be null
+     * @return the BAM header read from the specified path
+     * @throws IOException if an I/O error occurs
+     */
+    public static SamHeader header(final Path path) throws IOException {
+        checkNotNull(path);
+        return header(Files.newInputStream(path));
+    }
+
+    /**
+     * Read zero or more BAM records from the specified input stream.
+     *
+     * @param inputStream input stream to read from, must not be null
+     * @return zero or more BAM records read from the specified input stream
+     * @throws IOException if an I/O error occurs
+     */
+    public static Iterable<SamRecord> records(final InputStream inputStream) throws IOException {
+        final List<SamRecord> records = new ArrayList<SamRecord>();
+        stream(inputStream, new SamAdapter() {
+                @Override
+                public boolean record(final SamRecord record) {
+                    records.add(record);
+                    return true;
+                }
+            });
+        return records;
+    }
+
+    /**
+     * Read zero or more BAM records from the specified path.
+     *
+     * @param path path to read from, must not be null
+     * @return zero or more BAM records read from the specified path
+     * @throws IOException if an I/O error occurs
+     */
+    public static Iterable<SamRecord> records(final Path path) throws IOException {
+        checkNotNull(path);
+        return records(Files.newInputStream(path));
+    }
+
+    /**
+     * Stream BAM header and records if any from the specified input stream.
+     *
+     * @param inputStream input stream to stream from, must not be null
+     * @param listener event based listener callback, must not be null
+     * @throws IOException if an I/O error occurs
+     */
+    public static void stream(final InputStream inputStream, final SamListener listener) throws IOException {
+        stream(inputStream, listener, 1);
+    }
+
+    /**
+     * Stream BAM header and records if any from the specified input stream, inflating
+     * BGZF blocks with the specified number of threads.
+     *
+     * @param inputStream input stream to stream from, must not be null
+     * @param listener event based listener callback, must not be null
+     * @param threads number of inflater threads, must be at least one
+     * @throws IOException if an I/O error occurs
+     */
+    public static void stream(final InputStream inputStream, final SamListener listener, final int threads) throws IOException {
+        checkNotNull(inputStream);
+        checkNotNull(listener);
+        checkArgument(threads > 0, "threads must be at least one");
+
+        InputStream buffered = new BufferedInputStream(inputStream);
+        try (InputStream in = threads == 1 ? new BgzfReader(buffered) : new ParallelBgzfInputStream(buffered, threads)) {
+            List<String> references = new ArrayList<String>();
+            if (!listener.header(BamCodec.readHeader(in, references))) {
+                return;
+            }
+            byte[] buffer = new byte[1024];
+            while ((buffer = BamCodec.readRecord(in, buffer)) != null) {
+                if (!listener.record(BamCodec.decodeRecord(buffer, references))) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Stream BAM header and records if any from the specified path.
+     *
+     * @param path path to stream from, must not be null
+     * @param listener event based listener callback, must not be null
+     * @throws IOException if an I/O error occurs
+     */
+    public static void stream(final Path path, final SamListener listener) throws IOException {
+        stream(path, listener, 1);
+    }
+
+    /**
+     * Stream BAM header and records if any from the specified path, inflating
+     * BGZF blocks with the specified number of threads.
+     *
+     * @param path path to stream from, must not be null
+     * @param listener event based listener callback, must not be null
+     * @param threads number of inflater threads, must be at least one
+     * @throws IOException if an I/O error occurs
+     */
+    public static void stream(final Path path, final SamListener listener, final int threads) throws IOException {
+        checkNotNull(path);
+        stream(Files.newInputStream(path), listener, threads);
+    }
+
+    /**
+     * Stream the BAM header and the records overlapping the specified region from the
+     * specified coordinate-sorted, indexed BAM file.  Records are filtered by reference
+     * span before they are decoded.
+     *
+     * @param path path to query, must not be null and must have a BAM index (<code>.bai</code>)
+     * @param rname reference name, must not be null
+     * @param start start, 0-based inclusive
+     * @param end end, 0-based exclusive
+     * @param listener event based listener callback, must not be null
+     * @throws IOException if an I/O error occurs or the specified path does not have a BAM index
+     */
+    public static void query(final Path path,
+                             final String rname,
+                             final long start,
+                             final long end,
+                             final SamListener listener) throws IOException {
+        checkNotNull(path);
+        checkNotNull(rname);
+        checkNotNull(listener);
+
+        Path indexPath = index(path);
+        if (indexPath == null) {
+            throw new IOException("could not find BAM index (.bai) for " + path);
+        }
+        try (BgzfReader reader = new BgzfReader(path)) {
+            List<String> references = new ArrayList<String>();
+            if (!listener.header(BamCodec.readHeader(reader, references))) {
+                return;
+            }
+            int ref = references.indexOf(rname);
+            if (ref < 0) {
+                return;
+            }
+            byte[] buffer = new byte[1024];
+            for (long[] chunk : BamIndex.read(indexPath).query(ref, start, end)) {
+                reader.seek(chunk[0]);
+                while (Long.compareUnsigned(reader.getVirtualOffset(), chunk[1]) < 0) {
+                    byte[] record = BamCodec.readRecord(reader, buffer);
+                    if (record == null) {
+                        break;
+                    }
+                    buffer = record;
+                    if (BamCodec.referenceId(record) != ref || BamCodec.position(record) >= end) {
+                        // records are coordinate-sorted, no later record overlaps
+                        return;
+                    }
+                    if (BamCodec.end(record) > start && !listener.record(BamCodec.decodeRecord(record, references))) {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+}
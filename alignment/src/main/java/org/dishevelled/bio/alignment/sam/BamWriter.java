@@ -0,0 +1,155 @@
+/*
+
+    dsh-bio-alignment  Aligments.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.alignment.sam;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import java.util.Map;
+
+import org.dishevelled.bio.bgzf.ParallelBgzfOutputStream;
+
+/**
+ * BAM writer.
+ *
+ * <p>
+ * SAM records are encoded into binary records and BGZF blocks are deflated with a
+ * pool of worker threads.  Closing this writer writes the BGZF end-of-file block and
+ * closes the underlying output stream.
+ * </p>
+ *
+ * @since 4.1
+ * @author  Michael Heuer
+ */
+public final class BamWriter implements Closeable {
+    /** BGZF output stream. */
+    private final OutputStream outputStream;
+
+    /** Reference ids keyed by reference name. */
+    private final Map<String, Integer> references;
+
+    /** Record buffer. */
+    private final BamCodec.Buffer buffer = new BamCodec.Buffer();
+
+
+    /**
+     * Create a new BAM writer with the specified output stream and header,
+     * deflating BGZF blocks with a single worker thread.
+     *
+     * @param outputStream output stream to write to, must not be null
+     * @param header SAM header, must not be null
+     * @throws IOException if an I/O error occurs
+     */
+    public BamWriter(final OutputStream outputStream, final SamHeader header) throws IOException {
+        this(outputStream, header, 1);
+    }
+
+    /**
+     * Create a new BAM writer with the specified output stream and header,
+     * deflating BGZF blocks with the specified number of worker threads.
+     *
+     * @param outputStream output stream to write to, must not be null
+     * @param header SAM header, must not be null
+     * @param threads number of deflater threads, must be at least one
+     * @throws IOException if an I/O error occurs
+     */
+    public BamWriter(final OutputStream outputStream, final SamHeader header, final int threads) throws IOException {
+        this(outputStream, header, threads, true);
+    }
+
+    /**
+     * Create a new BAM writer with the specified output stream and header,
+     * deflating BGZF blocks with the specified number of worker threads.  If
+     * <code>writeHeader</code> is false, the header is used only to resolve
+     * reference ids, and records are written as a continuation of a BAM stream
+     * whose header has already been written, for example when appending to an
+     * existing BAM file.
+     *
+     * @param outputStream output stream to write to, must not be null
+     * @param header SAM header, must not be null
+     * @param threads number of deflater threads, must be at least one
+     * @param writeHeader true to write the specified header
+     * @throws IOException if an I/O error occurs
+     */
+    public BamWriter(final OutputStream outputStream, final SamHeader header, final int threads, final boolean writeHeader) throws IOException {
+        this(new ParallelBgzfOutputStream(checkNotNull(outputStream), threads), header, writeHeader);
+    }
+
+    /**
+     * Create a new BAM writer with the specified BGZF output stream and header, for
+     * example a BGZF output stream deflating blocks with a shared executor service.
+     * If <code>writeHeader</code> is false, the header is used only to resolve reference
+     * ids, and records are written as a continuation of a BAM stream whose header has
+     * already been written.  Closing this writer closes the specified BGZF output stream.
+     *
+     * @param outputStream BGZF output stream to write to, must not be null
+     * @param header SAM header, must not be null
+     * @param writeHeader true to write the specified header
+     * @throws IOException if an I/O error occurs
+     */
+    public BamWriter(final ParallelBgzfOutputStream outputStream, final SamHeader header, final boolean writeHeader) throws IOException {
+        checkNotNull(outputStream);
+        checkNotNull(header);
+        this.outputStream = outputStream;
+        this.references = BamCodec.references(header);
+        if (writeHeader) {
+            BamCodec.writeHeader(header, this.outputStream);
+        }
+    }
+
+
+    /**
+     * Write the specified SAM record.
+     *
+     * @param record SAM record to write, must not be null
+     * @throws IOException if an I/O error occurs or the specified record cannot be encoded
+     */
+    public void write(final SamRecord record) throws IOException {
+        checkNotNull(record);
+        buffer.reset();
+        BamCodec.encodeRecord(record, references, buffer);
+        buffer.writeTo(outputStream);
+    }
+
+    /**
+     * Write the specified SAM records.
+     *
+     * @param records zero or more SAM records to write, must not be null
+     * @throws IOException if an I/O error occurs or a record cannot be encoded
+     */
+    public void write(final Iterable<SamRecord> records) throws IOException {
+        checkNotNull(records);
+        for (SamRecord record : records) {
+            write(record);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        outputStream.close();
+    }
+}
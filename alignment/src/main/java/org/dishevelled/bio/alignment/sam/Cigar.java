@@ -0,0 +1,313 @@
+/*
+
+    dsh-bio-alignment  Aligments.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.alignment.sam;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * Packed CIGAR utility methods.
+ *
+ * <p>
+ * A packed CIGAR is an array of operations, each with the operation code in the
+ * low four bits and the operation length in the high 28 bits, as in BAM.
+ * </p>
+ *
+ * @since 4.1
+ * @author  Michael Heuer
+ */
+@Immutable
+public final class Cigar {
+    /** Alignment match operation code, <code>M</code>. */
+    public static final int MATCH = 0;
+
+    /** Insertion operation code, <code>I</code>. */
+    public static final int INSERTION = 1;
+
+    /** Deletion operation code, <code>D</code>. */
+    public static final int DELETION = 2;
+
+    /** Skipped region operation code, <code>N</code>. */
+    public static final int SKIP = 3;
+
+    /** Soft clip operation code, <code>S</code>. */
+    public static final int SOFT_CLIP = 4;
+
+    /** Hard clip operation code, <code>H</code>. */
+    public static final int HARD_CLIP = 5;
+
+    /** Padding operation code, <code>P</code>. */
+    public static final int PADDING = 6;
+
+    /** Sequence match operation code, <code>=</code>. */
+    public static final int SEQUENCE_MATCH = 7;
+
+    /** Sequence mismatch operation code, <code>X</code>. */
+    public static final int SEQUENCE_MISMATCH = 8;
+
+    /** Operation characters, indexed by operation code. */
+    static final String OPERATIONS = "MIDNSHP=X";
+
+    /** Maximum operation length. */
+    static final int MAX_LENGTH = (1 << 28) - 1;
+
+    /** Empty packed CIGAR. */
+    private static final int[] EMPTY = new int[0];
+
+
+    /**
+     * Private no-arg constructor.
+     */
+    private Cigar() {
+        // empty
+    }
+
+
+    /**
+     * Parse the specified CIGAR into a packed CIGAR.
+     *
+     * @param cigar CIGAR, if any
+     * @return the specified CIGAR parsed into a packed CIGAR, or an empty array if
+     *    the specified CIGAR is null or <code>*</code>
+     * @throws IllegalArgumentException if the specified CIGAR is not valid
+     */
+    public static int[] parse(final String cigar) {
+        if (cigar == null || "*".equals(cigar)) {
+            return EMPTY;
+        }
+        int n = 0;
+        for (int i = 0, length = cigar.length(); i < length; i++) {
+            char c = cigar.charAt(i);
+            if (c < '0' || c > '9') {
+                n++;
+            }
+        }
+        int[] packed = new int[n];
+        long count = 0L;
+        boolean digits = false;
+        for (int i = 0, j = 0, length = cigar.length(); i < length; i++) {
+            char c = cigar.charAt(i);
+            if (c >= '0' && c <= '9') {
+                count = count * 10L + (c - '0');
+                digits = true;
+                if (count > MAX_LENGTH) {
+                    throw new IllegalArgumentException("invalid CIGAR " + cigar + ", operation length too large");
+                }
+            }
+            else {
+                int op = OPERATIONS.indexOf(c);
+                if (op < 0 || !digits) {
+                    throw new IllegalArgumentException("invalid CIGAR " + cigar);
+                }
+                packed[j++] = pack(op, (int) count);
+                count = 0L;
+                digits = false;
+            }
+        }
+        if (digits) {
+            throw new IllegalArgumentException("invalid CIGAR " + cigar + ", missing operation");
+        }
+        return packed;
+    }
+
+    /**
+     * Format the specified packed CIGAR.
+     *
+     * @param packed packed CIGAR, must not be null
+     * @return the specified packed CIGAR formatted as a CIGAR, or <code>null</code>
+     *    if the specified packed CIGAR is empty
+     */
+    public static String format(final int[] packed) {
+        checkNotNull(packed);
+        if (packed.length == 0) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder(packed.length * 4);
+        for (int p : packed) {
+            sb.append(length(p)).append(OPERATIONS.charAt(operation(p)));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Pack the specified operation code and length.
+     *
+     * @param operation operation code
+     * @param length operation length
+     * @return the specified operation code and length packed into an int
+     */
+    public static int pack(final int operation, final int length) {
+        checkArgument(operation >= 0 && operation < OPERATIONS.length(), "invalid operation code " + operation);
+        checkArgument(length >= 0 && length <= MAX_LENGTH, "invalid operation length " + length);
+        return (length << 4) | operation;
+    }
+
+    /**
+     * Return the operation code of the specified packed operation.
+     *
+     * @param packed packed operation
+     * @return the operation code of the specified packed operation
+     */
+    public static int operation(final int packed) {
+        return packed & 0xf;
+    }
+
+    /**
+     * Return the length of the specified packed operation.
+     *
+     * @param packed packed operation
+     * @return the length of the specified packed operation
+     */
+    public static int length(final int packed) {
+        return packed >>> 4;
+    }
+
+    /**
+     * Return true if the specified operation code consumes the reference.
+     *
+     * @param operation operation code
+     * @return true if the specified operation code consumes the reference
+     */
+    public static boolean consumesReference(final int operation) {
+        return operation == MATCH || operation == DELETION || operation == SKIP || operation == SEQUENCE_MATCH || operation == SEQUENCE_MISMATCH;
+    }
+
+    /**
+     * Return true if the specified operation code consumes the read.
+     *
+     * @param operation operation code
+     * @return true if the specified operation code consumes the read
+     */
+    public static boolean consumesRead(final int operation) {
+        return operation == MATCH || operation == INSERTION || operation == SOFT_CLIP || operation == SEQUENCE_MATCH || operation == SEQUENCE_MISMATCH;
+    }
+
+    /**
+     * Return true if the specified operation code aligns read bases to reference bases.
+     *
+     * @param operation operation code
+     * @return true if the specified operation code aligns read bases to reference bases
+     */
+    public static boolean isAligned(final int operation) {
+        return operation == MATCH || operation == SEQUENCE_MATCH || operation == SEQUENCE_MISMATCH;
+    }
+
+    /**
+     * Return the number of reference bases spanned by the specified packed CIGAR.
+     *
+     * @param packed packed CIGAR, must not be null
+     * @return the number of reference bases spanned by the specified packed CIGAR
+     */
+    public static int referenceLength(final int[] packed) {
+        checkNotNull(packed);
+        int length = 0;
+        for (int p : packed) {
+            if (consumesReference(operation(p))) {
+                length += length(p);
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Return the number of read bases consumed by the specified packed CIGAR.
+     *
+     * @param packed packed CIGAR, must not be null
+     * @return the number of read bases consumed by the specified packed CIGAR
+     */
+    public static int readLength(final int[] packed) {
+        checkNotNull(packed);
+        int length = 0;
+        for (int p : packed) {
+            if (consumesRead(operation(p))) {
+                length += length(p);
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Return the number of read bases aligned to reference bases by the specified packed CIGAR.
+     *
+     * @param packed packed CIGAR, must not be null
+     * @return the number of read bases aligned to reference bases by the specified packed CIGAR
+     */
+    public static int alignedLength(final int[] packed) {
+        checkNotNull(packed);
+        int length = 0;
+        for (int p : packed) {
+            if (isAligned(operation(p))) {
+                length += length(p);
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Return the length of the soft clip at the start of the specified packed CIGAR,
+     * after any hard clip.
+     *
+     * @param packed packed CIGAR, must not be null
+     * @return the length of the soft clip at the start of the specified packed CIGAR
+     */
+    public static int leadingSoftClipLength(final int[] packed) {
+        checkNotNull(packed);
+        for (int i = 0; i < packed.length; i++) {
+            int op = operation(packed[i]);
+            if (op == SOFT_CLIP) {
+                return length(packed[i]);
+            }
+            if (op != HARD_CLIP) {
+                break;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Return the length of the soft clip at the end of the specified packed CIGAR,
+     * before any hard clip.
+     *
+     * @param packed packed CIGAR, must not be null
+     * @return the length of the soft clip at the end of the specified packed CIGAR
+     */
+    public static int trailingSoftClipLength(final int[] packed) {
+        checkNotNull(packed);
+        int i = packed.length - 1;
+        while (i >= 0 && operation(packed[i]) == HARD_CLIP) {
+            i--;
+        }
+        if (i < 0 || operation(packed[i]) != SOFT_CLIP) {
+            return 0;
+        }
+        int j = i - 1;
+        while (j >= 0 && operation(packed[j]) == HARD_CLIP) {
+            j--;
+        }
+        // a soft clip with no other operations is counted once, as leading
+        return j < 0 ? 0 : length(packed[i]);
+    }
+}
@@ -0,0 +1,336 @@
+/*
+
+    dsh-bio-alignment  Aligments.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.alignment.sam;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.google.common.io.CharStreams;
+import com.google.common.io.LineProcessor;
+
+/**
+ * Parallel streaming SAM parser.
+ *
+ * <p>
+ * The calling thread reads header lines and batches of record lines from the readable,
+ * submitting each batch to a pool of worker threads that parse the batch into SAM records.
+ * In ordered mode the calling thread then notifies the listener of the parsed SAM records
+ * in their original order, so listener callbacks need not be thread safe.  In unordered
+ * mode the worker threads notify the listener directly, as each SAM record is parsed.
+ * </p>
+ *
+ * @author  Michael Heuer
+ */
+final class ParallelSamParser {
+    /** Number of record lines per batch. */
+    static final int BATCH_SIZE = 1024;
+
+
+    /**
+     * Private no-arg constructor.
+     */
+    private ParallelSamParser() {
+        // empty
+    }
+
+
+    /**
+     * Stream the specified readable in parallel.
+     *
+     * @param readable readable, must not be null
+     * @param listener event based reader callback, must not be null
+     * @param threads number of parser threads, must be at least one
+     * @param ordered true to notify the listener of SAM records in their original order
+     *    on the calling thread, false to notify the listener in no particular order on the
+     *    parser threads
+     * @throws IOException if an I/O error occurs
+     */
+    static void stream(final Readable readable,
+                       final SamListener listener,
+                       final int threads,
+                       final boolean ordered) throws IOException {
+        stream(readable, listener, threads, ordered, BATCH_SIZE);
+    }
+
+    /**
+     * Stream the specified readable in parallel.
+     *
+     * @param readable readable, must not be null
+     * @param listener event based reader callback, must not be null
+     * @param threads number of parser threads, must be at least one
+     * @param ordered true to notify the listener of SAM records in their original order
+     *    on the calling thread, false to notify the listener in no particular order on the
+     *    parser threads
+     * @param batchSize number of record lines per batch, must be at least one
+     * @throws IOException if an I/O error occurs
+     */
+    static void stream(final Readable readable,
+                       final SamListener listener,
+                       final int threads,
+                       final boolean ordered,
+                       final int batchSize) throws IOException {
+        checkNotNull(readable);
+        checkNotNull(listener);
+        checkArgument(threads > 0, "threads must be at least one");
+        checkArgument(batchSize > 0, "batchSize must be at least one");
+
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        try {
+            Pipeline pipeline = new Pipeline(listener, executorService, threads, ordered, batchSize);
+            CharStreams.readLines(readable, pipeline);
+            pipeline.finish();
+        }
+        finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * Pipeline.
+     */
+    private static final class Pipeline implements LineProcessor<Object> {
+        /** Event based reader callback. */
+        private final SamListener listener;
+
+        /** Executor service. */
+        private final ExecutorService executorService;
+
+        /** Maximum number of batches in flight. */
+        private final int maxPending;
+
+        /** True to notify the listener of SAM records in their original order. */
+        private final boolean ordered;
+
+        /** Number of record lines per batch. */
+        private final int batchSize;
+
+        /** Batches in flight, in order. */
+        private final Deque<Future<List<SamRecord>>> pending = new ArrayDeque<Future<List<SamRecord>>>();
+
+        /** SAM header builder. */
+        private final SamHeader.Builder headerBuilder = SamHeader.builder();
+
+        /** True once the listener has asked to stop. */
+        private final AtomicBoolean stopped = new AtomicBoolean(false);
+
+        /** True if the header is complete. */
+        private boolean headerComplete = false;
+
+        /** Current batch. */
+        private List<String> batch;
+
+        /** Line number of the first line in the current batch. */
+        private long batchLineNumber;
+
+        /** Line number. */
+        private long lineNumber = 0L;
+
+
+        /**
+         * Create a new pipeline.
+         *
+         * @param listener event based reader callback
+         * @param executorService executor service
+         * @param threads number of parser threads
+         * @param ordered true to notify the listener of SAM records in their original order
+         * @param batchSize number of record lines per batch
+         */
+        private Pipeline(final SamListener listener,
+                         final ExecutorService executorService,
+                         final int threads,
+                         final boolean ordered,
+                         final int batchSize) {
+            this.listener = listener;
+            this.executorService = executorService;
+            this.maxPending = 2 * threads;
+            this.ordered = ordered;
+            this.batchSize = batchSize;
+        }
+
+
+        @Override
+        public Object getResult() {
+            return null;
+        }
+
+        @Override
+        public boolean processLine(final String line) throws IOException {
+            lineNumber++;
+
+            if (!headerComplete) {
+                // continue processing blank lines
+                if (line.isEmpty()) {
+                    return true;
+                }
+                if (line.startsWith("@")) {
+                    SamReader.headerLine(headerBuilder, line, lineNumber);
+                    return true;
+                }
+                try {
+                    if (!listener.header(headerBuilder.build())) {
+                        stopped.set(true);
+                        return false;
+                    }
+                }
+                catch (IllegalArgumentException e) {
+                    throw new IOException("could not parse SAM header, caught " + e.getMessage(), e);
+                }
+                headerComplete = true;
+            }
+            if (batch == null) {
+                batch = new ArrayList<String>(batchSize);
+                batchLineNumber = lineNumber;
+            }
+            batch.add(line);
+            if (batch.size() == batchSize) {
+                submit();
+            }
+            return !stopped.get();
+        }
+
+        /**
+         * Finish the pipeline, notifying the listener of all remaining SAM records.
+         *
+         * @throws IOException if an I/O error occurs
+         */
+        void finish() throws IOException {
+            if (batch != null && !stopped.get()) {
+                submit();
+            }
+            while (!pending.isEmpty() && !stopped.get()) {
+                next();
+            }
+        }
+
+        /**
+         * Submit the current batch for parsing.
+         *
+         * @throws IOException if an I/O error occurs
+         */
+        private void submit() throws IOException {
+            final List<String> lines = batch;
+            final long offset = batchLineNumber;
+            batch = null;
+            pending.addLast(executorService.submit(new Callable<List<SamRecord>>() {
+                    @Override
+                    public List<SamRecord> call() throws IOException {
+                        return parse(lines, offset);
+                    }
+                }));
+
+            while (pending.size() > maxPending && !stopped.get()) {
+                next();
+            }
+        }
+
+        /**
+         * Parse the specified record lines into SAM records.  In unordered mode, the listener is
+         * notified of each SAM record as it is parsed and an empty list is returned.
+         *
+         * @param lines record lines
+         * @param offset line number of the first record line
+         * @return the SAM records parsed from the specified record lines, in ordered mode
+         * @throws IOException if an I/O error occurs
+         */
+        private List<SamRecord> parse(final List<String> lines, final long offset) throws IOException {
+            List<SamRecord> records = ordered ? new ArrayList<SamRecord>(lines.size()) : Collections.<SamRecord>emptyList();
+            for (int i = 0, size = lines.size(); i < size; i++) {
+                String line = lines.get(i);
+                // skip blank lines
+                if (line.isEmpty()) {
+                    continue;
+                }
+                SamRecord record;
+                try {
+                    record = SamRecord.valueOf(line);
+                }
+                catch (IllegalArgumentException e) {
+                    throw new IOException("could not read SAM record at line " + (offset + i) + ", caught exception: " + e.getMessage(), e);
+                }
+                if (ordered) {
+                    records.add(record);
+                }
+                else if (stopped.get() || !listener.record(record)) {
+                    stopped.set(true);
+                    break;
+                }
+            }
+            return records;
+        }
+
+        /**
+         * Notify the listener of the SAM records in the next batch, waiting for it to be parsed if necessary.
+         *
+         * @throws IOException if an I/O error occurs
+         */
+        private void next() throws IOException {
+            List<SamRecord> records;
+            try {
+                records = pending.removeFirst().get();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                InterruptedIOException interruptedIOException = new InterruptedIOException("interrupted while parsing SAM records");
+                interruptedIOException.initCause(e);
+                throw interruptedIOException;
+            }
+            catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new IOException(cause);
+            }
+            for (SamRecord record : records) {
+                if (!listener.record(record)) {
+                    stopped.set(true);
+                    break;
+                }
+            }
+        }
+    }
+}
@@ -26,7 +26,9 @@ package org.dishevelled.bio.alignment.sam;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import javax.annotation.Nullable;
@@ -162,6 +164,9 @@ public final class SamHeader {
      * SAM header builder.
      */
     public static final class Builder {
+        /** SAM format version for header lines created by this builder. */
+        static final String DEFAULT_VERSION = "1.6";
+
         /** SAM header line. */
         private SamHeaderLine headerLine;
 
@@ -197,6 +202,28 @@ public final class SamHeader {
             return this;
         }
 
+        /**
+         * Return this SAM header builder configured with the specified sort order (<code>SO</code>)
+         * in its header line.  If no header line has been specified, a new header line with
+         * version (<code>VN</code>) {@value #DEFAULT_VERSION} is created.
+         *
+         * @param sortOrder sort order, e.g. <code>coordinate</code> or <code>queryname</code>, must not be null
+         * @return this SAM header builder configured with the specified sort order in its header line
+         */
+        public Builder withSortOrder(final String sortOrder) {
+            checkNotNull(sortOrder);
+            Map<String, String> annotations = new LinkedHashMap<String, String>();
+            if (headerLine == null) {
+                annotations.put("VN", DEFAULT_VERSION);
+            }
+            else {
+                annotations.putAll(headerLine.getAnnotations());
+            }
+            annotations.put("SO", sortOrder);
+            headerLine = new SamHeaderLine(annotations);
+            return this;
+        }
+
         /**
          * Return this SAM header builder configured with the specified sequence header line.
          *
@@ -47,7 +47,7 @@ public final class SamHeaderLine extends AbstractSamHeaderLine {
      *
      * @param annotations annotation values keyed by key, must not be null
      */
-    private SamHeaderLine(final Map<String, String> annotations) {
+    SamHeaderLine(final Map<String, String> annotations) {
         super("HD", annotations);
     }
 
@@ -0,0 +1,579 @@
+/*
+
+    dsh-bio-alignment  Aligments.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.alignment.sam;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.DiscreteDomain;
+import com.google.common.collect.Range;
+import com.google.common.collect.RangeSet;
+
+/**
+ * Streaming pileup over coordinate-sorted SAM records.
+ *
+ * <p>
+ * Per-position counts are accumulated in a ring buffer of primitive arrays that spans
+ * only the reference positions covered by the reads still active at the current position,
+ * so memory is proportional to read length, not to reference sequence or region length.
+ * Columns are emitted to a {@link SamPileupListener} as soon as no further record can
+ * contribute to them, reusing a single {@link Column} instance.
+ * </p>
+ *
+ * <p>
+ * Without target regions, only columns with at least one aligned or deleted base are
+ * emitted.  With target regions, every position in the target regions is emitted,
+ * including zero depth positions, and records on reference sequences without target
+ * regions are ignored.
+ * </p>
+ *
+ * <p>
+ * Usage:
+ * <pre>
+ * SamPileup pileup = new SamPileup(listener);
+ * SamReader.stream(readable, pileup);
+ * pileup.finish();
+ * </pre>
+ * </p>
+ *
+ * @since 4.1
+ * @author  Michael Heuer
+ */
+public final class SamPileup implements SamListener {
+    /** Default minimum mapping quality, <code>0</code>. */
+    public static final int DEFAULT_MIN_MAPQ = 0;
+
+    /** Default excluded flags, unmapped, secondary, QC fail, and duplicate, <code>0x704</code>. */
+    public static final int DEFAULT_EXCLUDE_FLAGS = 0x704;
+
+    /** Initial ring buffer capacity. */
+    static final int INITIAL_CAPACITY = 1024;
+
+    /** Number of base count slots per position, A, C, G, T, and N. */
+    private static final int BASES = 5;
+
+    /** Base count slot by ASCII character. */
+    private static final byte[] BASE_INDEX = new byte[128];
+
+    static {
+        for (int i = 0; i < BASE_INDEX.length; i++) {
+            BASE_INDEX[i] = 4;
+        }
+        BASE_INDEX['A'] = 0;
+        BASE_INDEX['a'] = 0;
+        BASE_INDEX['C'] = 1;
+        BASE_INDEX['c'] = 1;
+        BASE_INDEX['G'] = 2;
+        BASE_INDEX['g'] = 2;
+        BASE_INDEX['T'] = 3;
+        BASE_INDEX['t'] = 3;
+    }
+
+    /** SAM pileup listener. */
+    private final SamPileupListener listener;
+
+    /** Target regions as flattened 1-based closed-open intervals keyed by reference name, if any. */
+    private final Map<String, long[]> regions;
+
+    /** Minimum mapping quality. */
+    private final int minMapq;
+
+    /** Excluded flags. */
+    private final int excludeFlags;
+
+    /** Reference names already finished. */
+    private final Set<String> finished = new HashSet<String>();
+
+    /** Reused pileup column. */
+    private final Column column = new Column();
+
+    /** Depth by ring buffer slot. */
+    private int[] depths;
+
+    /** Deletions by ring buffer slot. */
+    private int[] deletions;
+
+    /** Base counts by ring buffer slot, <code>BASES</code> per slot. */
+    private int[] baseCounts;
+
+    /** Sum of mapping qualities by ring buffer slot. */
+    private long[] mapqSums;
+
+    /** Ring buffer mask. */
+    private int mask;
+
+    /** Current reference name, if any. */
+    private String rname;
+
+    /** Target regions for the current reference name, if any. */
+    private long[] currentRegions;
+
+    /** Index of the current target region. */
+    private int regionIndex;
+
+    /** Next position to emit, 1-based. */
+    private long next;
+
+    /** End of coverage, 1-based exclusive. */
+    private long end;
+
+    /** Last record position. */
+    private long lastPos;
+
+    /** True if the listener has asked to stop. */
+    private boolean stopped;
+
+
+    /**
+     * Create a new SAM pileup with the specified listener.
+     *
+     * @param listener SAM pileup listener, must not be null
+     */
+    public SamPileup(final SamPileupListener listener) {
+        this(listener, null, DEFAULT_MIN_MAPQ, DEFAULT_EXCLUDE_FLAGS);
+    }
+
+    /**
+     * Create a new SAM pileup with the specified listener, target regions, minimum mapping
+     * quality, and excluded flags.
+     *
+     * @param listener SAM pileup listener, must not be null
+     * @param regions target regions as 0-based ranges keyed by reference name, if any;
+     *    ranges must be bounded
+     * @param minMapq minimum mapping quality, must be at least zero
+     * @param excludeFlags records with any of these flags set are excluded
+     */
+    public SamPileup(final SamPileupListener listener,
+                     final Map<String, RangeSet<Long>> regions,
+                     final int minMapq,
+                     final int excludeFlags) {
+        checkNotNull(listener);
+        checkArgument(minMapq >= 0, "minMapq must be at least zero");
+        this.listener = listener;
+        this.minMapq = minMapq;
+        this.excludeFlags = excludeFlags;
+        this.regions = regions == null ? null : flatten(regions);
+
+        depths = new int[INITIAL_CAPACITY];
+        deletions = new int[INITIAL_CAPACITY];
+        baseCounts = new int[INITIAL_CAPACITY * BASES];
+        mapqSums = new long[INITIAL_CAPACITY];
+        mask = INITIAL_CAPACITY - 1;
+    }
+
+
+    @Override
+    public boolean header(final SamHeader header) {
+        return !stopped;
+    }
+
+    @Override
+    public boolean record(final SamRecord record) {
+        if (stopped) {
+            return false;
+        }
+        if (record.getRname() == null || (record.getFlag() & excludeFlags) != 0 || record.getMapq() < minMapq) {
+            return true;
+        }
+        if (!record.getRname().equals(rname)) {
+            finishReference();
+            checkArgument(!finished.contains(record.getRname()), "input not coordinate-sorted, found %s again after other reference sequences", record.getRname());
+            startReference(record.getRname());
+        }
+        if (currentRegions != null && currentRegions.length == 0) {
+            return true;
+        }
+        checkArgument(record.getPos() >= lastPos, "input not coordinate-sorted, found %s:%s after %s:%s", rname, record.getPos(), rname, lastPos);
+        lastPos = record.getPos();
+
+        advance(record.getPos());
+        if (stopped) {
+            return false;
+        }
+        add(record);
+        return true;
+    }
+
+    /**
+     * Emit all remaining columns.  With target regions, zero depth columns are also emitted
+     * for target regions on reference sequences with no records.  Call this method once
+     * after the last record.
+     */
+    public void finish() {
+        finishReference();
+        if (regions != null) {
+            for (String name : regions.keySet()) {
+                if (stopped) {
+                    return;
+                }
+                if (!finished.contains(name)) {
+                    startReference(name);
+                    finishReference();
+                }
+            }
+        }
+    }
+
+    /**
+     * Start accumulating columns for the specified reference name.
+     *
+     * @param name reference name
+     */
+    private void startReference(final String name) {
+        rname = name;
+        currentRegions = regions == null ? null : (regions.containsKey(name) ? regions.get(name) : new long[0]);
+        regionIndex = 0;
+        next = 1L;
+        end = 1L;
+        lastPos = 0L;
+    }
+
+    /**
+     * Emit all remaining columns for the current reference name, if any.
+     */
+    private void finishReference() {
+        if (rname != null) {
+            advance(Long.MAX_VALUE);
+            finished.add(rname);
+            rname = null;
+        }
+    }
+
+    /**
+     * Emit columns from the next position up to but not including the specified limit.
+     *
+     * @param limit limit, 1-based exclusive
+     */
+    private void advance(final long limit) {
+        while (next < limit && !stopped) {
+            if (next >= end) {
+                // no coverage at or after next, skip ahead to the next target region position
+                if (currentRegions == null) {
+                    next = limit;
+                    break;
+                }
+                while (regionIndex < currentRegions.length && currentRegions[regionIndex + 1] <= next) {
+                    regionIndex += 2;
+                }
+                if (regionIndex == currentRegions.length || currentRegions[regionIndex] >= limit) {
+                    next = limit;
+                    break;
+                }
+                next = Math.max(next, currentRegions[regionIndex]);
+            }
+            int slot = (int) (next & mask);
+            if (currentRegions == null ? (depths[slot] > 0 || deletions[slot] > 0) : inRegion(next)) {
+                emit(slot);
+            }
+            clear(slot);
+            next++;
+        }
+    }
+
+    /**
+     * Return true if the specified position is in a target region, advancing the region
+     * index past target regions that end at or before the specified position.
+     *
+     * @param position position, 1-based
+     * @return true if the specified position is in a target region
+     */
+    private boolean inRegion(final long position) {
+        while (regionIndex < currentRegions.length && currentRegions[regionIndex + 1] <= position) {
+            regionIndex += 2;
+        }
+        return regionIndex < currentRegions.length && currentRegions[regionIndex] <= position;
+    }
+
+    /**
+     * Emit the column at the next position from the specified ring buffer slot.
+     *
+     * @param slot ring buffer slot
+     */
+    private void emit(final int slot) {
+        column.referenceName = rname;
+        column.position = next;
+        column.depth = depths[slot];
+        column.deletions = deletions[slot];
+        column.mapqSum = mapqSums[slot];
+        System.arraycopy(baseCounts, slot * BASES, column.baseCounts, 0, BASES);
+        if (!listener.column(column)) {
+            stopped = true;
+        }
+    }
+
+    /**
+     * Clear the specified ring buffer slot.
+     *
+     * @param slot ring buffer slot
+     */
+    private void clear(final int slot) {
+        depths[slot] = 0;
+        deletions[slot] = 0;
+        mapqSums[slot] = 0L;
+        int offset = slot * BASES;
+        for (int i = 0; i < BASES; i++) {
+            baseCounts[offset + i] = 0;
+        }
+    }
+
+    /**
+     * Add the aligned and deleted bases of the specified record.
+     *
+     * @param record record to add
+     */
+    private void add(final SamRecord record) {
+        int[] cigar = record.getPackedCigar();
+        long recordEnd = record.getPos() + Cigar.referenceLength(cigar);
+        ensureCapacity(recordEnd - next);
+
+        String seq = record.getSeq();
+        int seqLength = seq == null ? 0 : seq.length();
+        int mapq = record.getMapq();
+        int readOffset = 0;
+        long position = record.getPos();
+        for (int packed : cigar) {
+            int op = Cigar.operation(packed);
+            int length = Cigar.length(packed);
+            if (Cigar.isAligned(op)) {
+                for (int i = 0; i < length; i++) {
+                    int slot = (int) ((position + i) & mask);
+                    int readIndex = readOffset + i;
+                    char base = readIndex < seqLength ? seq.charAt(readIndex) : 'N';
+                    depths[slot]++;
+                    mapqSums[slot] += mapq;
+                    baseCounts[slot * BASES + (base < 128 ? BASE_INDEX[base] : 4)]++;
+                }
+            }
+            else if (op == Cigar.DELETION) {
+                for (int i = 0; i < length; i++) {
+                    deletions[(int) ((position + i) & mask)]++;
+                }
+            }
+            if (Cigar.consumesRead(op)) {
+                readOffset += length;
+            }
+            if (Cigar.consumesReference(op)) {
+                position += length;
+            }
+        }
+        end = Math.max(end, recordEnd);
+    }
+
+    /**
+     * Ensure the ring buffer spans at least the specified number of positions from the
+     * next position, growing it if necessary.
+     *
+     * @param span number of positions
+     */
+    private void ensureCapacity(final long span) {
+        if (span <= depths.length) {
+            return;
+        }
+        checkArgument(span <= (Integer.MAX_VALUE / BASES), "record span %s too large", span);
+        int capacity = depths.length;
+        while (capacity < span) {
+            capacity <<= 1;
+        }
+        int newMask = capacity - 1;
+        int[] newDepths = new int[capacity];
+        int[] newDeletions = new int[capacity];
+        int[] newBaseCounts = new int[capacity * BASES];
+        long[] newMapqSums = new long[capacity];
+        for (long position = next; position < end; position++) {
+            int slot = (int) (position & mask);
+            int newSlot = (int) (position & newMask);
+            newDepths[newSlot] = depths[slot];
+            newDeletions[newSlot] = deletions[slot];
+            newMapqSums[newSlot] = mapqSums[slot];
+            System.arraycopy(baseCounts, slot * BASES, newBaseCounts, newSlot * BASES, BASES);
+        }
+        depths = newDepths;
+        deletions = newDeletions;
+        baseCounts = newBaseCounts;
+        mapqSums = newMapqSums;
+        mask = newMask;
+    }
+
+    /**
+     * Return the ring buffer capacity.
+     *
+     * @return the ring buffer capacity
+     */
+    int capacity() {
+        return depths.length;
+    }
+
+    /**
+     * Flatten the specified target regions into sorted 1-based closed-open intervals.
+     *
+     * @param regions target regions as 0-based ranges keyed by reference name
+     * @return the specified target regions flattened into sorted 1-based closed-open intervals
+     */
+    private static Map<String, long[]> flatten(final Map<String, RangeSet<Long>> regions) {
+        Map<String, long[]> flattened = new LinkedHashMap<String, long[]>(regions.size());
+        for (Map.Entry<String, RangeSet<Long>> entry : regions.entrySet()) {
+            Set<Range<Long>> ranges = entry.getValue().asRanges();
+            long[] intervals = new long[ranges.size() * 2];
+            int i = 0;
+            for (Range<Long> range : ranges) {
+                Range<Long> canonical = range.canonical(DiscreteDomain.longs());
+                checkArgument(canonical.hasLowerBound() && canonical.hasUpperBound(), "target regions must be bounded");
+                intervals[i++] = canonical.lowerEndpoint() + 1L;
+                intervals[i++] = canonical.upperEndpoint() + 1L;
+            }
+            flattened.put(entry.getKey(), intervals);
+        }
+        return flattened;
+    }
+
+
+    /**
+     * Pileup column.
+     */
+    public static final class Column {
+        /** Reference name. */
+        private String referenceName;
+
+        /** Position, 1-based. */
+        private long position;
+
+        /** Depth. */
+        private int depth;
+
+        /** Deletions. */
+        private int deletions;
+
+        /** Sum of mapping qualities. */
+        private long mapqSum;
+
+        /** Base counts, A, C, G, T, and N. */
+        private final int[] baseCounts = new int[BASES];
+
+
+        /**
+         * Create a new pileup column.
+         */
+        private Column() {
+            // empty
+        }
+
+
+        /**
+         * Return the reference name for this column.
+         *
+         * @return the reference name for this column
+         */
+        public String getReferenceName() {
+            return referenceName;
+        }
+
+        /**
+         * Return the position for this column, 1-based.
+         *
+         * @return the position for this column, 1-based
+         */
+        public long getPosition() {
+            return position;
+        }
+
+        /**
+         * Return the depth for this column, the number of aligned bases.
+         *
+         * @return the depth for this column
+         */
+        public int getDepth() {
+            return depth;
+        }
+
+        /**
+         * Return the number of deleted bases for this column.
+         *
+         * @return the number of deleted bases for this column
+         */
+        public int getDeletions() {
+            return deletions;
+        }
+
+        /**
+         * Return the number of aligned <code>A</code> bases for this column.
+         *
+         * @return the number of aligned <code>A</code> bases for this column
+         */
+        public int getA() {
+            return baseCounts[0];
+        }
+
+        /**
+         * Return the number of aligned <code>C</code> bases for this column.
+         *
+         * @return the number of aligned <code>C</code> bases for this column
+         */
+        public int getC() {
+            return baseCounts[1];
+        }
+
+        /**
+         * Return the number of aligned <code>G</code> bases for this column.
+         *
+         * @return the number of aligned <code>G</code> bases for this column
+         */
+        public int getG() {
+            return baseCounts[2];
+        }
+
+        /**
+         * Return the number of aligned <code>T</code> bases for this column.
+         *
+         * @return the number of aligned <code>T</code> bases for this column
+         */
+        public int getT() {
+            return baseCounts[3];
+        }
+
+        /**
+         * Return the number of aligned <code>N</code> or other bases for this column,
+         * including bases from records with missing SEQ.
+         *
+         * @return the number of aligned <code>N</code> or other bases for this column
+         */
+        public int getN() {
+            return baseCounts[4];
+        }
+
+        /**
+         * Return the mean mapping quality of the aligned bases for this column, or
+         * <code>Double.NaN</code> if the depth is zero.
+         *
+         * @return the mean mapping quality of the aligned bases for this column
+         */
+        public double getMeanMapq() {
+            return depth == 0 ? Double.NaN : ((double) mapqSum) / depth;
+        }
+    }
+}
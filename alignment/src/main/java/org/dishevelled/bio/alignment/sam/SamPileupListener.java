@@ -0,0 +1,43 @@
+/*
+
+    dsh-bio-alignment  Aligments.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.alignment.sam;
+
+/**
+ * Event based SAM pileup callback.
+ *
+ * @since 4.1
+ * @author  Michael Heuer
+ */
+public interface SamPileupListener {
+
+    /**
+     * Notify this SAM pileup listener of a pileup column, in coordinate order.  The
+     * specified column is reused by the pileup and is only valid for the duration of
+     * this call.
+     *
+     * @param column pileup column
+     * @return true to continue processing, false to stop
+     */
+    boolean column(SamPileup.Column column);
+}
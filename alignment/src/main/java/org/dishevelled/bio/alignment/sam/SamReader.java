@@ -265,6 +265,44 @@ public final class SamReader {
         }
     }
 
+    // stream callback in parallel, header and records
+
+    /**
+     * Stream SAM header and records if any from the specified readable in parallel.
+     * Batches of record lines are parsed by a pool of parser threads, while the listener
+     * is notified of the SAM header and SAM records in their original order on the calling
+     * thread.
+     *
+     * @param readable readable to stream, must not be null
+     * @param listener event based reader callback, must not be null
+     * @param threads number of parser threads, must be at least one
+     * @throws IOException if an I/O error occurs
+     */
+    public static void streamParallel(final Readable readable, final SamListener listener, final int threads) throws IOException {
+        ParallelSamParser.stream(readable, listener, threads, true);
+    }
+
+    /**
+     * Stream SAM header and records if any from the specified readable in parallel.
+     * Batches of record lines are parsed by a pool of parser threads.  If <code>ordered</code>
+     * is true, the listener is notified of SAM records in their original order on the calling
+     * thread.  Otherwise the listener is notified of SAM records in no particular order on the
+     * parser threads, and so must be thread safe.  In either case the listener is notified of
+     * the SAM header on the calling thread before any SAM records.
+     *
+     * @param readable readable to stream, must not be null
+     * @param listener event based reader callback, must not be null
+     * @param threads number of parser threads, must be at least one
+     * @param ordered true to notify the listener of SAM records in their original order
+     * @throws IOException if an I/O error occurs
+     */
+    public static void streamParallel(final Readable readable,
+                                      final SamListener listener,
+                                      final int threads,
+                                      final boolean ordered) throws IOException {
+        ParallelSamParser.stream(readable, listener, threads, ordered);
+    }
+
     // stream records-only
 
     /**
@@ -429,31 +467,8 @@ public final class SamReader {
 
             // process as header line
             if (line.startsWith("@")) {
-                try {
-                    if (line.startsWith("@HD")) {
-                        headerBuilder.withHeaderLine(SamHeaderLine.valueOf(line));
-                    }
-                    else if (line.startsWith("@SQ")) {
-                        headerBuilder.withSequenceHeaderLine(SamSequenceHeaderLine.valueOf(line));
-                    }
-                    else if (line.startsWith("@RG")) {
-                        headerBuilder.withReadGroupHeaderLine(SamReadGroupHeaderLine.valueOf(line));
-                    }
-                    else if (line.startsWith("@PG")) {
-                        headerBuilder.withProgramHeaderLine(SamProgramHeaderLine.valueOf(line));
-                    }
-                    else if (line.startsWith("@CO")) {
-                        headerBuilder.withCommentHeaderLine(SamCommentHeaderLine.valueOf(line));
-                    }
-                    else {
-                        String key = line.substring(0, Math.min(3, line.length()));
-                        throw new IOException("found invalid SAM header line key " + key + " at line number " + lineNumber);
-                    }
-                    return true;
-                }
-                catch (IllegalArgumentException e) {
-                    throw new IOException("could not parse SAM header line at line number " + lineNumber + ", caught " + e.getMessage(), e);
-                }
+                headerLine(headerBuilder, line, lineNumber);
+                return true;
             }
             // or as record
             else {
@@ -478,6 +493,41 @@ public final class SamReader {
         }
     }
 
+    /**
+     * Parse the specified SAM header line into the specified SAM header builder.
+     *
+     * @param headerBuilder SAM header builder
+     * @param line SAM header line
+     * @param lineNumber line number
+     * @throws IOException if the specified SAM header line could not be parsed
+     */
+    static void headerLine(final SamHeader.Builder headerBuilder, final String line, final long lineNumber) throws IOException {
+        try {
+            if (line.startsWith("@HD")) {
+                headerBuilder.withHeaderLine(SamHeaderLine.valueOf(line));
+            }
+            else if (line.startsWith("@SQ")) {
+                headerBuilder.withSequenceHeaderLine(SamSequenceHeaderLine.valueOf(line));
+            }
+            else if (line.startsWith("@RG")) {
+                headerBuilder.withReadGroupHeaderLine(SamReadGroupHeaderLine.valueOf(line));
+            }
+            else if (line.startsWith("@PG")) {
+                headerBuilder.withProgramHeaderLine(SamProgramHeaderLine.valueOf(line));
+            }
+            else if (line.startsWith("@CO")) {
+                headerBuilder.withCommentHeaderLine(SamCommentHeaderLine.valueOf(line));
+            }
+            else {
+                String key = line.substring(0, Math.min(3, line.length()));
+                throw new IOException("found invalid SAM header line key " + key + " at line number " + lineNumber);
+            }
+        }
+        catch (IllegalArgumentException e) {
+            throw new IOException("could not parse SAM header line at line number " + lineNumber + ", caught " + e.getMessage(), e);
+        }
+    }
+
     /**
      * Collect.
      */
@@ -35,9 +35,6 @@ import javax.annotation.Nullable;
 import javax.annotation.concurrent.Immutable;
 
 import com.google.common.base.Joiner;
-import com.google.common.base.Splitter;
-
-import com.google.common.collect.ImmutableMap;
 
 import org.dishevelled.bio.annotation.Annotation;
 import org.dishevelled.bio.annotation.AnnotatedRecord;
@@ -84,8 +81,14 @@ public final class SamRecord extends AnnotatedRecord {
     /** QUAL mandatory field. */
     private final String qual;
 
-    /** Cached hash code. */
-    private final int hashCode;
+    /** SEQ and QUAL mandatory fields packed in compact mode, if any. */
+    private final byte[] packed;
+
+    /** Packed CIGAR, computed on first use. */
+    private volatile int[] packedCigar;
+
+    /** Cached hash code, computed on first use. */
+    private int hashCode;
 
 
     /**
@@ -129,11 +132,103 @@ public final class SamRecord extends AnnotatedRecord {
         this.tlen = tlen;
         this.seq = seq;
         this.qual = qual;
+        this.packed = null;
+    }
 
-        hashCode = Objects.hash(this.qname, this.flag, this.rname, this.pos, this.mapq, this.cigar,
-                                this.rnext, this.pnext, this.tlen, this.seq, this.qual, getAnnotations());
+    /**
+     * Create a new SAM record with the specified raw optional fields, to be parsed on first access.
+     *
+     * @param qname QNAME mandatory field
+     * @param flag FLAG mandatory field
+     * @param rname RNAME mandatory field
+     * @param pos POS mandatory field
+     * @param mapq MAPQ mandatory field
+     * @param cigar CIGAR mandatory field
+     * @param rnext RNEXT mandatory field
+     * @param pnext PNEXT mandatory field
+     * @param tlen TLEN mandatory field
+     * @param seq SEQ mandatory field
+     * @param qual QUAL mandatory field
+     * @param rawAnnotations raw optional fields, tab-separated, must not be null
+     */
+    SamRecord(@Nullable final String qname,
+              final int flag,
+              @Nullable final String rname,
+              final int pos,
+              final int mapq,
+              @Nullable final String cigar,
+              @Nullable final String rnext,
+              final int pnext,
+              final int tlen,
+              @Nullable final String seq,
+              @Nullable final String qual,
+              final String rawAnnotations) {
+
+        super(rawAnnotations);
+        this.qname = qname;
+        this.flag = flag;
+        this.rname = rname;
+        this.pos = pos;
+        this.mapq = mapq;
+        this.cigar = cigar;
+        this.rnext = rnext;
+        this.pnext = pnext;
+        this.tlen = tlen;
+        this.seq = seq;
+        this.qual = qual;
+        this.packed = null;
+    }
+
+    /**
+     * Create a new compact SAM record copying the specified SAM record, with the specified
+     * packed SEQ and QUAL mandatory fields.
+     *
+     * @param record SAM record to copy
+     * @param packed packed SEQ and QUAL mandatory fields
+     */
+    private SamRecord(final SamRecord record, final byte[] packed) {
+        super(record);
+        this.qname = record.qname;
+        this.flag = record.flag;
+        this.rname = record.rname;
+        this.pos = record.pos;
+        this.mapq = record.mapq;
+        this.cigar = record.cigar;
+        this.rnext = record.rnext;
+        this.pnext = record.pnext;
+        this.tlen = record.tlen;
+        this.seq = null;
+        this.qual = null;
+        this.packed = packed;
+        this.packedCigar = record.packedCigar;
+    }
+
+
+    /**
+     * Return a compact copy of this SAM record, with the SEQ mandatory field stored as 4-bit
+     * base codes and the QUAL mandatory field stored as raw bytes, decoded back to strings on
+     * each access.  Returns this SAM record if it is already compact, or if its SEQ and QUAL
+     * mandatory fields cannot be stored compactly without loss, for example if SEQ is missing
+     * or contains lowercase bases.
+     *
+     * @return a compact copy of this SAM record, or this SAM record
+     */
+    public SamRecord compact() {
+        if (packed != null || seq == null || seq.isEmpty()) {
+            return this;
+        }
+        byte[] p = BamCodec.pack(seq, qual);
+        return p == null ? this : new SamRecord(this, p);
     }
 
+    /**
+     * Return true if this SAM record stores its SEQ and QUAL mandatory fields compactly.
+     *
+     * @return true if this SAM record stores its SEQ and QUAL mandatory fields compactly
+     */
+    public boolean isCompact() {
+        return packed != null;
+    }
 
     /**
      * Return the QNAME mandatory field for this SAM record. May be null.
@@ -216,6 +311,78 @@ public final class SamRecord extends AnnotatedRecord {
         return Optional.ofNullable(cigar);
     }
 
+    /**
+     * Return the CIGAR mandatory field for this SAM record as a packed CIGAR, parsed on
+     * first access.  The returned array is shared and must not be modified.
+     *
+     * @see Cigar
+     * @return the CIGAR mandatory field for this SAM record as a packed CIGAR, or an
+     *    empty array if the CIGAR mandatory field is null
+     * @throws IllegalArgumentException if the CIGAR mandatory field is not valid
+     */
+    public int[] getPackedCigar() {
+        int[] result = packedCigar;
+        if (result == null) {
+            result = Cigar.parse(cigar);
+            packedCigar = result;
+        }
+        return result;
+    }
+
+    /**
+     * Return the 1-based inclusive reference end position for this SAM record, from
+     * POS and the reference bases spanned by the CIGAR mandatory field.  If the CIGAR
+     * mandatory field is null or does not consume reference bases, the reference end
+     * position is the same as POS.
+     *
+     * @return the 1-based inclusive reference end position for this SAM record
+     */
+    public long getReferenceEnd() {
+        return (long) pos + Math.max(1, Cigar.referenceLength(getPackedCigar())) - 1L;
+    }
+
+    /**
+     * Return the number of read bases aligned to reference bases for this SAM record, by
+     * <code>M</code>, <code>=</code>, or <code>X</code> CIGAR operations.
+     *
+     * @return the number of read bases aligned to reference bases for this SAM record
+     */
+    public int getAlignedLength() {
+        return Cigar.alignedLength(getPackedCigar());
+    }
+
+    /**
+     * Return true if the CIGAR mandatory field for this SAM record contains a soft clip.
+     *
+     * @return true if the CIGAR mandatory field for this SAM record contains a soft clip
+     */
+    public boolean isSoftClipped() {
+        for (int p : getPackedCigar()) {
+            if (Cigar.operation(p) == Cigar.SOFT_CLIP) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Return the length of the soft clip at the start of this SAM record.
+     *
+     * @return the length of the soft clip at the start of this SAM record
+     */
+    public int getLeadingSoftClipLength() {
+        return Cigar.leadingSoftClipLength(getPackedCigar());
+    }
+
+    /**
+     * Return the length of the soft clip at the end of this SAM record.
+     *
+     * @return the length of the soft clip at the end of this SAM record
+     */
+    public int getTrailingSoftClipLength() {
+        return Cigar.trailingSoftClipLength(getPackedCigar());
+    }
+
     /**
      * Return the RNEXT mandatory field for this SAM record. May be null.
      *
@@ -258,7 +425,7 @@ public final class SamRecord extends AnnotatedRecord {
      * @return the SEQ mandatory field for this SAM record
      */
     public String getSeq() {
-        return seq;
+        return packed == null ? seq : BamCodec.unpackSeq(packed);
     }
 
     /**
@@ -267,7 +434,7 @@ public final class SamRecord extends AnnotatedRecord {
      * @return an optional wrapping the SEQ mandatory field for this SAM record
      */
     public Optional<String> getSeqOpt() {
-        return Optional.ofNullable(seq);
+        return Optional.ofNullable(getSeq());
     }
 
     /**
@@ -276,7 +443,7 @@ public final class SamRecord extends AnnotatedRecord {
      * @return the QUAL mandatory field for this SAM record
      */
     public String getQual() {
-        return qual;
+        return packed == null ? qual : BamCodec.unpackQual(packed);
     }
 
     /**
@@ -285,7 +452,7 @@ public final class SamRecord extends AnnotatedRecord {
      * @return an optional wrapping the QUAL mandatory field for this SAM record
      */
     public Optional<String> getQualOpt() {
-        return Optional.ofNullable(qual);
+        return Optional.ofNullable(getQual());
     }
 
 
@@ -1973,7 +2140,12 @@ public final class SamRecord extends AnnotatedRecord {
 
     @Override
     public int hashCode() {
-        return hashCode;
+        int result = hashCode;
+        if (result == 0) {
+            result = Objects.hash(qname, flag, rname, pos, mapq, cigar, rnext, pnext, tlen, getSeq(), getQual(), getAnnotations());
+            hashCode = result;
+        }
+        return result;
     }
 
     @Override
@@ -1995,8 +2167,8 @@ public final class SamRecord extends AnnotatedRecord {
             && Objects.equals(rnext, r.getRnext())
             && Objects.equals(pnext, r.getPnext())
             && Objects.equals(tlen, r.getTlen())
-            && Objects.equals(seq, r.getSeq())
-            && Objects.equals(qual, r.getQual())
+            && Objects.equals(getSeq(), r.getSeq())
+            && Objects.equals(getQual(), r.getQual())
             && Objects.equals(getAnnotations(), r.getAnnotations());
     }
 
@@ -2004,6 +2176,8 @@ public final class SamRecord extends AnnotatedRecord {
     public String toString() {
         Joiner joiner = Joiner.on("\t");
         StringBuilder sb = new StringBuilder();
+        String seqValue = getSeq();
+        String qualValue = getQual();
         joiner.appendTo(sb,
                         qname == null ? "*" : qname,
                         flag,
@@ -2014,10 +2188,17 @@ public final class SamRecord extends AnnotatedRecord {
                         rnext == null ? "*" : rnext,
                         pnext,
                         tlen,
-                        seq == null ? "*" : seq,
-                        qual == null ? "*" : qual);
-
-        if (!getAnnotations().isEmpty()) {
+                        seqValue == null ? "*" : seqValue,
+                        qualValue == null ? "*" : qualValue);
+
+        String rawAnnotations = getRawAnnotations();
+        if (rawAnnotations != null) {
+            if (!rawAnnotations.isEmpty()) {
+                sb.append("\t");
+                sb.append(rawAnnotations);
+            }
+        }
+        else if (!getAnnotations().isEmpty()) {
             sb.append("\t");
             joiner.appendTo(sb, getAnnotations().values());
         }
@@ -2025,60 +2206,146 @@ public final class SamRecord extends AnnotatedRecord {
     }
 
     /**
-     * Parse a SAM record from the specified value.
+     * Parse a SAM record from the specified value.  The value is scanned once; mandatory
+     * integer fields are parsed without intermediate strings, and optional fields are kept
+     * as a single raw slice, parsed on first access.
      *
      * @param value value, must not be null
      * @return a SAM record parsed from the specified value
+     * @throws IllegalArgumentException if the mandatory fields of the specified value are not valid
      */
     public static SamRecord valueOf(final String value) {
         checkNotNull(value);
-        List<String> tokens = Splitter.on("\t").splitToList(value);
-        if (tokens.size() < 11) {
-            throw new IllegalArgumentException("invalid record, expected 11 or more tokens, found " + tokens.size());
-        }
+        int length = value.length();
+
         // QNAME String [!-?A-~]{1,254} Query template NAME
-        String qname = "*".equals(tokens.get(0)) ? null : tokens.get(0);
+        int qnameEnd = tab(value, 0);
         // FLAG Int [0,2^16-1] bitwise FLAG
-        int flag = Integer.parseInt(tokens.get(1));
+        int flagEnd = tab(value, qnameEnd + 1);
         // RNAME String \*|[!-()+-<>-~][!-~]* Reference sequence NAME
-        String rname = "*".equals(tokens.get(2)) ? null : tokens.get(2);
+        int rnameEnd = tab(value, flagEnd + 1);
         // POS Int [0,2^31-1] 1-based leftmost mapping POSition
-        int pos = Integer.parseInt(tokens.get(3));
+        int posEnd = tab(value, rnameEnd + 1);
         // MAPQ Int [0,28-1] MAPping Quality
-        int mapq = Integer.parseInt(tokens.get(4));
+        int mapqEnd = tab(value, posEnd + 1);
         // CIGAR String \*|([0-9]+[MIDNSHPX=])+ CIGAR string
-        String cigar = "*".equals(tokens.get(5)) ? null : tokens.get(5);
+        int cigarEnd = tab(value, mapqEnd + 1);
         // RNEXT String \*|=|[!-()+-<>-~][!-~]* Ref. name of the mate/next read
-        String rnext = "*".equals(tokens.get(6)) ? null : tokens.get(6);
+        int rnextEnd = tab(value, cigarEnd + 1);
         // PNEXT Int [0,2^31-1] Position of the mate/next read
-        int pnext = Integer.parseInt(tokens.get(7));
+        int pnextEnd = tab(value, rnextEnd + 1);
         // TLEN Int [-2^31+1,2^31-1] observed Template LENgth
-        int tlen = Integer.parseInt(tokens.get(8));
+        int tlenEnd = tab(value, pnextEnd + 1);
         // SEQ String \*|[A-Za-z=.]+ segment SEQuence
-        String seq = "*".equals(tokens.get(9)) ? null : tokens.get(9);
+        int seqEnd = tab(value, tlenEnd + 1);
         // QUAL String [!-~]+ ASCII of Phred-scaled base QUALity+33
-        String qual = "*".equals(tokens.get(10)) ? null : tokens.get(10);
-
-        ImmutableMap.Builder<String, Annotation> annotations = ImmutableMap.builder();
-        for (int i = 11; i < tokens.size(); i++) {
-            String token = tokens.get(i);
-            if (!token.isEmpty()) {
-                Annotation annotation = Annotation.valueOf(tokens.get(i));
-                annotations.put(annotation.getName(), annotation);
+        int qualEnd = value.indexOf('\t', seqEnd + 1);
+        if (qualEnd < 0) {
+            qualEnd = length;
+        }
+
+        // optional fields, without trailing tabs
+        int annotationsEnd = length;
+        while (annotationsEnd > qualEnd && value.charAt(annotationsEnd - 1) == '\t') {
+            annotationsEnd--;
+        }
+        String rawAnnotations = annotationsEnd > qualEnd ? value.substring(qualEnd + 1, annotationsEnd) : "";
+
+        return new SamRecord(string(value, 0, qnameEnd),
+                             parseInt(value, qnameEnd + 1, flagEnd),
+                             string(value, flagEnd + 1, rnameEnd),
+                             parseInt(value, rnameEnd + 1, posEnd),
+                             parseInt(value, posEnd + 1, mapqEnd),
+                             string(value, mapqEnd + 1, cigarEnd),
+                             string(value, cigarEnd + 1, rnextEnd),
+                             parseInt(value, rnextEnd + 1, pnextEnd),
+                             parseInt(value, pnextEnd + 1, tlenEnd),
+                             string(value, tlenEnd + 1, seqEnd),
+                             string(value, seqEnd + 1, qualEnd),
+                             rawAnnotations);
+    }
+
+    /**
+     * Return the index of the next tab character in the specified value.
+     *
+     * @param value value
+     * @param from index to search from
+     * @return the index of the next tab character in the specified value
+     * @throws IllegalArgumentException if no tab character is found
+     */
+    private static int tab(final String value, final int from) {
+        int index = value.indexOf('\t', from);
+        if (index < 0) {
+            int tokens = 1;
+            for (int i = 0, length = value.length(); i < length; i++) {
+                if (value.charAt(i) == '\t') {
+                    tokens++;
+                }
+            }
+            throw new IllegalArgumentException("invalid record, expected 11 or more tokens, found " + tokens);
+        }
+        return index;
+    }
+
+    /**
+     * Return the specified region of the specified value as a string, or <code>null</code>
+     * if the region is the missing value <code>*</code>.
+     *
+     * @param value value
+     * @param start start index, inclusive
+     * @param end end index, exclusive
+     * @return the specified region of the specified value as a string, or <code>null</code>
+     *    if the region is the missing value <code>*</code>
+     */
+    private static String string(final String value, final int start, final int end) {
+        if (end - start == 1) {
+            char c = value.charAt(start);
+            if (c == '*') {
+                return null;
+            }
+            if (c == '=') {
+                return "=";
             }
         }
+        return value.substring(start, end);
+    }
 
-        return new SamRecord(qname,
-                             flag,
-                             rname,
-                             pos,
-                             mapq,
-                             cigar,
-                             rnext,
-                             pnext,
-                             tlen,
-                             seq,
-                             qual,
-                             annotations.build());
+    /**
+     * Parse the specified region of the specified value into an integer.
+     *
+     * @param value value
+     * @param start start index, inclusive
+     * @param end end index, exclusive
+     * @return the specified region of the specified value parsed into an integer
+     * @throws NumberFormatException if the specified region is not a valid integer
+     */
+    private static int parseInt(final String value, final int start, final int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (value.charAt(i) == '-' || value.charAt(i) == '+')) {
+            negative = value.charAt(i) == '-';
+            i++;
+        }
+        if (i == end) {
+            throw new NumberFormatException("For input string: \"" + value.substring(start, end) + "\"");
+        }
+        long result = 0L;
+        for (; i < end; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                throw new NumberFormatException("For input string: \"" + value.substring(start, end) + "\"");
+            }
+            result = result * 10L + (c - '0');
+            if (result > Integer.MAX_VALUE + 1L) {
+                throw new NumberFormatException("For input string: \"" + value.substring(start, end) + "\"");
+            }
+        }
+        if (negative) {
+            result = -result;
+        }
+        if (result > Integer.MAX_VALUE) {
+            throw new NumberFormatException("For input string: \"" + value.substring(start, end) + "\"");
+        }
+        return (int) result;
     }
 }
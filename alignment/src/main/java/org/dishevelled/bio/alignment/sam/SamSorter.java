@@ -0,0 +1,1012 @@
+/*
+
+    dsh-bio-alignment  Aligments.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.alignment.sam;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.PrintWriter;
+
+import java.nio.charset.StandardCharsets;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import com.google.common.io.CharStreams;
+import com.google.common.io.LineProcessor;
+
+import com.google.common.util.concurrent.Futures;
+
+/**
+ * External merge sort for SAM records.
+ *
+ * <p>
+ * A SAM sorter is a SAM listener; stream a SAM header and SAM records to it, for example with
+ * {@link SamReader#stream(Readable, SamListener)} or {@link BamReader#stream(java.nio.file.Path, SamListener)},
+ * then call {@link #sort(SamListener)} to notify another listener of the SAM header, with its sort
+ * order (<code>SO</code>) updated, and the SAM records in sorted order.
+ * <pre>
+ * try (SamSorter sorter = new SamSorter(SamSorter.SortOrder.COORDINATE)) {
+ *   SamReader.stream(readable, sorter);
+ *   sorter.sort(listener);
+ * }
+ * </pre>
+ * </p>
+ *
+ * <p>
+ * In coordinate order, reference sequences are ordered as in the <code>@SQ</code> header lines,
+ * followed by any reference sequences not present in header lines in the order they are first
+ * encountered, and then SAM records without a reference sequence.  SAM records at the same
+ * reference sequence and position are ordered forward strand first.  In query name order, SAM
+ * records are ordered by query name, then first segment before last segment, then primary
+ * alignments before secondary and supplementary alignments.  Otherwise SAM records keep their
+ * input order.
+ * </p>
+ *
+ * <p>
+ * SAM records are held in chunks bounded by an approximate memory budget.  Chunks are sorted
+ * in parallel and spilled to temporary compressed runs, which are then k-way merged, at most
+ * {@value #MAX_RUNS} runs at a time.  If all of the SAM records fit in a single chunk, they are
+ * sorted in memory without temporary files.
+ * </p>
+ *
+ * @since 4.1
+ * @author  Michael Heuer
+ */
+public final class SamSorter implements SamListener, Closeable {
+    /** Default memory budget, in bytes. */
+    public static final long DEFAULT_MEMORY = 512L * 1024L * 1024L;
+
+    /** Default number of threads. */
+    public static final int DEFAULT_THREADS = 1;
+
+    /** Maximum number of runs merged at once. */
+    static final int MAX_RUNS = 64;
+
+    /** Buffer size. */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /** Approximate memory overhead per SAM record, in bytes. */
+    private static final long RECORD_OVERHEAD = 96L;
+
+    /** Reference sequence ordinal of SAM records without a reference sequence. */
+    private static final int NO_REFERENCE = Integer.MAX_VALUE;
+
+    /** Flag bits for first and last segments. */
+    private static final int SEGMENT_FLAGS = 0x40 | 0x80;
+
+    /** Flag bits for secondary and supplementary alignments. */
+    private static final int NON_PRIMARY_FLAGS = 0x100 | 0x800;
+
+    /** Flag bit for reverse strand. */
+    private static final int REVERSE_FLAG = 0x10;
+
+    /** Compare entries in coordinate order. */
+    private static final Comparator<Entry> COORDINATE_ENTRY_COMPARATOR = new Comparator<Entry>() {
+            @Override
+            public int compare(final Entry entry0, final Entry entry1) {
+                return compareCoordinate(entry0.ordinal, entry0.pos, entry0.flag, entry1.ordinal, entry1.pos, entry1.flag);
+            }
+        };
+
+    /** Compare entries in query name order. */
+    private static final Comparator<Entry> QUERYNAME_ENTRY_COMPARATOR = new Comparator<Entry>() {
+            @Override
+            public int compare(final Entry entry0, final Entry entry1) {
+                int result = entry0.qname.compareTo(entry1.qname);
+                if (result == 0) {
+                    result = compareQueryNameFlags(entry0.flag, entry1.flag);
+                }
+                return result;
+            }
+        };
+
+    /** Compare runs in coordinate order of their current SAM record, then by run index. */
+    private static final Comparator<RunReader> COORDINATE_RUN_COMPARATOR = new Comparator<RunReader>() {
+            @Override
+            public int compare(final RunReader run0, final RunReader run1) {
+                int result = compareCoordinate(run0.ordinal, run0.pos, run0.flag, run1.ordinal, run1.pos, run1.flag);
+                if (result == 0) {
+                    result = Integer.compare(run0.index, run1.index);
+                }
+                return result;
+            }
+        };
+
+    /** Compare runs in query name order of their current SAM record, then by run index. */
+    private static final Comparator<RunReader> QUERYNAME_RUN_COMPARATOR = new Comparator<RunReader>() {
+            @Override
+            public int compare(final RunReader run0, final RunReader run1) {
+                int result = compareQname(run0.bytes, run0.qnameLength, run1.bytes, run1.qnameLength);
+                if (result == 0) {
+                    result = compareQueryNameFlags(run0.flag, run1.flag);
+                }
+                if (result == 0) {
+                    result = Integer.compare(run0.index, run1.index);
+                }
+                return result;
+            }
+        };
+
+    /** Sort order. */
+    private final SortOrder sortOrder;
+
+    /** Approximate memory budget per chunk, in bytes. */
+    private final long chunkMemory;
+
+    /** Directory for temporary runs, if any. */
+    private final File tempDirectory;
+
+    /** Number of threads. */
+    private final int threads;
+
+    /** Compare entries in sort order. */
+    private final Comparator<Entry> entryComparator;
+
+    /** Reference sequence ordinals keyed by reference sequence name. */
+    private final Map<String, Integer> ordinals = new HashMap<String, Integer>();
+
+    /** Temporary files to delete when sorting completes. */
+    private final List<File> files = Collections.synchronizedList(new ArrayList<File>());
+
+    /** Spills in flight, in order. */
+    private final Deque<Future<File>> pending = new ArrayDeque<Future<File>>();
+
+    /** Spilled runs, in order. */
+    private final List<File> runs = new ArrayList<File>();
+
+    /** Executor service. */
+    private final ExecutorService executorService;
+
+    /** SAM header, if any. */
+    private SamHeader header;
+
+    /** Current chunk. */
+    private List<Entry> chunk = new ArrayList<Entry>();
+
+    /** Approximate memory used by the current chunk, in bytes. */
+    private long used = 0L;
+
+    /** True once sorted. */
+    private boolean sorted = false;
+
+
+    /**
+     * Create a new SAM sorter with the specified sort order and the default memory budget,
+     * temporary directory, and number of threads.
+     *
+     * @param sortOrder sort order, must not be null
+     */
+    public SamSorter(final SortOrder sortOrder) {
+        this(sortOrder, DEFAULT_MEMORY, null, DEFAULT_THREADS);
+    }
+
+    /**
+     * Create a new SAM sorter.
+     *
+     * @param sortOrder sort order, must not be null
+     * @param memory approximate memory budget for SAM records held in memory, in bytes, must be greater than zero
+     * @param tempDirectory directory for temporary runs, or <code>null</code> for the default temporary-file directory
+     * @param threads number of threads, must be at least one
+     */
+    public SamSorter(final SortOrder sortOrder, final long memory, final File tempDirectory, final int threads) {
+        checkNotNull(sortOrder);
+        checkArgument(memory > 0L, "memory must be greater than zero");
+        checkArgument(threads > 0, "threads must be at least one");
+        this.sortOrder = sortOrder;
+        this.chunkMemory = Math.max(1L, memory / (threads + 1));
+        this.tempDirectory = tempDirectory;
+        this.threads = threads;
+        this.entryComparator = sortOrder == SortOrder.COORDINATE ? COORDINATE_ENTRY_COMPARATOR : QUERYNAME_ENTRY_COMPARATOR;
+        this.executorService = Executors.newFixedThreadPool(threads);
+    }
+
+
+    @Override
+    public boolean header(final SamHeader header) {
+        checkNotNull(header);
+        checkState(!sorted, "already sorted");
+        this.header = header;
+        ordinals.clear();
+        for (SamSequenceHeaderLine sequenceHeaderLine : header.getSequenceHeaderLines()) {
+            if (!ordinals.containsKey(sequenceHeaderLine.getSn())) {
+                ordinals.put(sequenceHeaderLine.getSn(), ordinals.size());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws RuntimeException if the current chunk could not be spilled to a temporary run
+     */
+    @Override
+    public boolean record(final SamRecord record) {
+        checkNotNull(record);
+        checkState(!sorted, "already sorted");
+        String line = record.toString();
+        chunk.add(new Entry(ordinal(record.getRname()), record.getPos(), record.getFlag(), record.getQname(), line));
+        used += RECORD_OVERHEAD + 2L * line.length();
+
+        if (used >= chunkMemory) {
+            try {
+                spill();
+            }
+            catch (IOException e) {
+                throw new RuntimeException("could not spill SAM records to temporary run", e);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Notify the specified listener of the SAM header, with its sort order updated, and of
+     * the SAM records in sorted order.  If no SAM header was streamed to this sorter, the
+     * listener is not notified of a SAM header.
+     *
+     * @param listener event based listener callback, must not be null
+     * @throws IOException if an I/O error occurs
+     */
+    public void sort(final SamListener listener) throws IOException {
+        checkNotNull(listener);
+        checkState(!sorted, "already sorted");
+        sorted = true;
+
+        if (header != null && !listener.header(SamHeader.builder(header).withSortOrder(sortOrder.getValue()).build())) {
+            return;
+        }
+        if (pending.isEmpty() && runs.isEmpty()) {
+            Collections.sort(chunk, entryComparator);
+            for (Entry entry : chunk) {
+                if (!listener.record(SamRecord.valueOf(entry.line))) {
+                    break;
+                }
+            }
+            chunk = null;
+        }
+        else {
+            if (!chunk.isEmpty()) {
+                pending.add(executorService.submit(new Spill(chunk)));
+            }
+            chunk = null;
+            while (!pending.isEmpty()) {
+                runs.add(await(pending.removeFirst()));
+            }
+            List<File> toMerge = new ArrayList<File>(runs);
+            while (toMerge.size() > MAX_RUNS) {
+                List<Future<File>> merges = new ArrayList<Future<File>>();
+                for (int i = 0, size = toMerge.size(); i < size; i += MAX_RUNS) {
+                    List<File> group = toMerge.subList(i, Math.min(size, i + MAX_RUNS));
+                    merges.add(group.size() == 1 ? Futures.immediateFuture(group.get(0)) : executorService.submit(new Merge(group)));
+                }
+                List<File> merged = new ArrayList<File>(merges.size());
+                for (Future<File> merge : merges) {
+                    merged.add(await(merge));
+                }
+                for (File run : toMerge) {
+                    if (!merged.contains(run)) {
+                        delete(run);
+                    }
+                }
+                toMerge = merged;
+            }
+            merge(toMerge, new ListenerRunWriter(listener));
+        }
+    }
+
+    /**
+     * Stop any sorting in progress and delete all temporary runs.
+     */
+    @Override
+    public void close() {
+        executorService.shutdownNow();
+        try {
+            // wait for running tasks, so that no temporary files are created after they are deleted
+            executorService.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (files) {
+            for (File file : files) {
+                file.delete();
+            }
+            files.clear();
+        }
+        chunk = null;
+    }
+
+    /**
+     * Sort the SAM header and records read from the specified readable to the specified print writer,
+     * with the default memory budget, temporary directory, and number of threads.
+     *
+     * @param readable readable, must not be null
+     * @param writer print writer to write sorted SAM to, must not be null
+     * @param sortOrder sort order, must not be null
+     * @throws IOException if an I/O error occurs, or if a header line or record is not valid
+     */
+    public static void sort(final Readable readable, final PrintWriter writer, final SortOrder sortOrder) throws IOException {
+        sort(readable, writer, sortOrder, DEFAULT_MEMORY, null, DEFAULT_THREADS);
+    }
+
+    /**
+     * Sort the SAM header and records read from the specified readable to the specified print writer.
+     *
+     * @param readable readable, must not be null
+     * @param writer print writer to write sorted SAM to, must not be null
+     * @param sortOrder sort order, must not be null
+     * @param memory approximate memory budget for SAM records held in memory, in bytes, must be greater than zero
+     * @param tempDirectory directory for temporary runs, or <code>null</code> for the default temporary-file directory
+     * @param threads number of threads, must be at least one
+     * @throws IOException if an I/O error occurs, or if a header line or record is not valid
+     */
+    public static void sort(final Readable readable,
+                            final PrintWriter writer,
+                            final SortOrder sortOrder,
+                            final long memory,
+                            final File tempDirectory,
+                            final int threads) throws IOException {
+        checkNotNull(readable);
+        checkNotNull(writer);
+
+        try (SamSorter sorter = new SamSorter(sortOrder, memory, tempDirectory, threads)) {
+            SortLineProcessor lineProcessor = new SortLineProcessor(sorter);
+            CharStreams.readLines(readable, lineProcessor);
+            lineProcessor.finish();
+
+            sorter.sort(new SamListener() {
+                    @Override
+                    public boolean header(final SamHeader header) {
+                        SamWriter.writeHeader(header, writer);
+                        return true;
+                    }
+
+                    @Override
+                    public boolean record(final SamRecord record) {
+                        SamWriter.writeRecord(record, writer);
+                        return true;
+                    }
+                });
+        }
+        if (writer.checkError()) {
+            throw new IOException("could not write sorted SAM");
+        }
+    }
+
+    /**
+     * Return the reference sequence ordinal for the specified reference sequence name.
+     *
+     * @param rname reference sequence name, if any
+     * @return the reference sequence ordinal for the specified reference sequence name
+     */
+    private int ordinal(final String rname) {
+        if (rname == null) {
+            return NO_REFERENCE;
+        }
+        Integer ordinal = ordinals.get(rname);
+        if (ordinal == null) {
+            ordinal = ordinals.size();
+            ordinals.put(rname, ordinal);
+        }
+        return ordinal;
+    }
+
+    /**
+     * Submit the current chunk to be sorted and spilled to a temporary run, waiting
+     * for an earlier spill to complete if all threads are busy.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    private void spill() throws IOException {
+        if (pending.size() >= threads) {
+            runs.add(await(pending.removeFirst()));
+        }
+        pending.add(executorService.submit(new Spill(chunk)));
+        chunk = new ArrayList<Entry>();
+        used = 0L;
+    }
+
+    /**
+     * Wait for and return the result of the specified future.
+     *
+     * @param future future
+     * @return the result of the specified future
+     * @throws IOException if an I/O error occurs
+     */
+    private static File await(final Future<File> future) throws IOException {
+        try {
+            return future.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            InterruptedIOException interruptedIOException = new InterruptedIOException("interrupted while sorting SAM records");
+            interruptedIOException.initCause(e);
+            throw interruptedIOException;
+        }
+        catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Create and return a new temporary run file.
+     *
+     * @return a new temporary run file
+     * @throws IOException if an I/O error occurs
+     */
+    private File createRun() throws IOException {
+        File run = File.createTempFile("samSorter", ".run", tempDirectory);
+        files.add(run);
+        return run;
+    }
+
+    /**
+     * Delete the specified temporary run file.
+     *
+     * @param run temporary run file to delete
+     */
+    private void delete(final File run) {
+        if (run.delete()) {
+            files.remove(run);
+        }
+    }
+
+    /**
+     * Merge the specified runs to the specified run writer.
+     *
+     * @param runs runs to merge
+     * @param runWriter run writer
+     * @throws IOException if an I/O error occurs
+     */
+    private void merge(final List<File> runs, final RunWriter runWriter) throws IOException {
+        List<RunReader> readers = new ArrayList<RunReader>(runs.size());
+        try {
+            PriorityQueue<RunReader> queue = new PriorityQueue<RunReader>(Math.max(1, runs.size()),
+                                                                         sortOrder == SortOrder.COORDINATE ? COORDINATE_RUN_COMPARATOR : QUERYNAME_RUN_COMPARATOR);
+            for (int i = 0, size = runs.size(); i < size; i++) {
+                RunReader runReader = new RunReader(i, runs.get(i));
+                readers.add(runReader);
+                if (runReader.next()) {
+                    queue.add(runReader);
+                }
+            }
+            while (!queue.isEmpty()) {
+                RunReader runReader = queue.poll();
+                if (!runWriter.write(runReader.ordinal, runReader.pos, runReader.flag, runReader.bytes, runReader.length)) {
+                    break;
+                }
+                if (runReader.next()) {
+                    queue.add(runReader);
+                }
+            }
+        }
+        finally {
+            for (RunReader runReader : readers) {
+                runReader.close();
+            }
+        }
+    }
+
+    /**
+     * Compare the specified query names, as UTF-8 bytes.
+     *
+     * @param bytes0 first bytes
+     * @param length0 length of the first query name
+     * @param bytes1 second bytes
+     * @param length1 length of the second query name
+     * @return the comparison of the specified query names
+     */
+    private static int compareQname(final byte[] bytes0, final int length0, final byte[] bytes1, final int length1) {
+        for (int i = 0, length = Math.min(length0, length1); i < length; i++) {
+            int result = Integer.compare(bytes0[i] & 0xff, bytes1[i] & 0xff);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return Integer.compare(length0, length1);
+    }
+
+    /**
+     * Compare the specified flags in query name order, after query name.
+     *
+     * @param flag0 first flag
+     * @param flag1 second flag
+     * @return the comparison of the specified flags in query name order
+     */
+    private static int compareQueryNameFlags(final int flag0, final int flag1) {
+        int result = Integer.compare(flag0 & SEGMENT_FLAGS, flag1 & SEGMENT_FLAGS);
+        if (result == 0) {
+            result = Integer.compare(flag0 & NON_PRIMARY_FLAGS, flag1 & NON_PRIMARY_FLAGS);
+        }
+        return result;
+    }
+
+    /**
+     * Compare the specified sort keys in coordinate order.
+     *
+     * @param ordinal0 first reference sequence ordinal
+     * @param pos0 first position
+     * @param flag0 first flag
+     * @param ordinal1 second reference sequence ordinal
+     * @param pos1 second position
+     * @param flag1 second flag
+     * @return the comparison of the specified sort keys in coordinate order
+     */
+    private static int compareCoordinate(final int ordinal0, final int pos0, final int flag0,
+                                         final int ordinal1, final int pos1, final int flag1) {
+        int result = Integer.compare(ordinal0, ordinal1);
+        if (result == 0) {
+            result = Integer.compare(pos0, pos1);
+        }
+        if (result == 0) {
+            result = Integer.compare(flag0 & REVERSE_FLAG, flag1 & REVERSE_FLAG);
+        }
+        return result;
+    }
+
+    /**
+     * Build the specified SAM header builder.
+     *
+     * @param headerBuilder SAM header builder
+     * @return the SAM header built from the specified SAM header builder
+     * @throws IOException if the SAM header is not valid
+     */
+    private static SamHeader build(final SamHeader.Builder headerBuilder) throws IOException {
+        try {
+            return headerBuilder.build();
+        }
+        catch (IllegalArgumentException e) {
+            throw new IOException("could not parse SAM header, caught " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Sort order.
+     */
+    public enum SortOrder {
+        /** Coordinate order, by reference sequence and position. */
+        COORDINATE("coordinate"),
+
+        /** Query name order. */
+        QUERYNAME("queryname");
+
+        /** Value of the <code>SO</code> header line tag. */
+        private final String value;
+
+
+        /**
+         * Create a new sort order.
+         *
+         * @param value value of the <code>SO</code> header line tag
+         */
+        SortOrder(final String value) {
+            this.value = value;
+        }
+
+
+        /**
+         * Return the value of the <code>SO</code> header line tag for this sort order.
+         *
+         * @return the value of the <code>SO</code> header line tag for this sort order
+         */
+        public String getValue() {
+            return value;
+        }
+    }
+
+    /**
+     * SAM record line with its sort key.
+     */
+    private static final class Entry {
+        /** Reference sequence ordinal. */
+        private final int ordinal;
+
+        /** Position. */
+        private final int pos;
+
+        /** Flag. */
+        private final int flag;
+
+        /** Query name. */
+        private final String qname;
+
+        /** SAM record line. */
+        private final String line;
+
+
+        /**
+         * Create a new entry.
+         *
+         * @param ordinal reference sequence ordinal
+         * @param pos position
+         * @param flag flag
+         * @param qname query name
+         * @param line SAM record line
+         */
+        private Entry(final int ordinal, final int pos, final int flag, final String qname, final String line) {
+            this.ordinal = ordinal;
+            this.pos = pos;
+            this.flag = flag;
+            this.qname = qname == null ? "*" : qname;
+            this.line = line;
+        }
+    }
+
+    /**
+     * Line processor that streams a SAM header and records to a SAM sorter.
+     */
+    private static final class SortLineProcessor implements LineProcessor<Object> {
+        /** SAM sorter. */
+        private final SamSorter sorter;
+
+        /** SAM header builder. */
+        private final SamHeader.Builder headerBuilder = SamHeader.builder();
+
+        /** True if the header is complete. */
+        private boolean headerComplete = false;
+
+        /** Line number. */
+        private long lineNumber = 0L;
+
+
+        /**
+         * Create a new sort line processor.
+         *
+         * @param sorter SAM sorter
+         */
+        private SortLineProcessor(final SamSorter sorter) {
+            this.sorter = sorter;
+        }
+
+
+        @Override
+        public Object getResult() {
+            return null;
+        }
+
+        @Override
+        public boolean processLine(final String line) throws IOException {
+            lineNumber++;
+            if (line.isEmpty()) {
+                return true;
+            }
+            if (!headerComplete) {
+                if (line.startsWith("@")) {
+                    SamReader.headerLine(headerBuilder, line, lineNumber);
+                    return true;
+                }
+                sorter.header(build(headerBuilder));
+                headerComplete = true;
+            }
+            try {
+                return sorter.record(SamRecord.valueOf(line));
+            }
+            catch (IllegalArgumentException e) {
+                throw new IOException("could not read SAM record at line " + lineNumber + ", caught exception: " + e.getMessage(), e);
+            }
+        }
+
+        /**
+         * Finish streaming, notifying the SAM sorter of the SAM header if there were no records.
+         *
+         * @throws IOException if the SAM header is not valid
+         */
+        void finish() throws IOException {
+            if (!headerComplete) {
+                sorter.header(build(headerBuilder));
+                headerComplete = true;
+            }
+        }
+    }
+
+    /**
+     * Sort a chunk of entries and spill it to a temporary run.
+     */
+    private final class Spill implements Callable<File> {
+        /** Chunk of entries. */
+        private final List<Entry> chunk;
+
+
+        /**
+         * Create a new spill task.
+         *
+         * @param chunk chunk of entries
+         */
+        Spill(final List<Entry> chunk) {
+            this.chunk = chunk;
+        }
+
+
+        @Override
+        public File call() throws IOException {
+            Collections.sort(chunk, entryComparator);
+            File run = createRun();
+            BinaryRunWriter runWriter = new BinaryRunWriter(run);
+            try {
+                for (Entry entry : chunk) {
+                    byte[] bytes = entry.line.getBytes(StandardCharsets.UTF_8);
+                    runWriter.write(entry.ordinal, entry.pos, entry.flag, bytes, bytes.length);
+                }
+            }
+            finally {
+                runWriter.close();
+            }
+            return run;
+        }
+    }
+
+    /**
+     * Merge a group of runs to a temporary run.
+     */
+    private final class Merge implements Callable<File> {
+        /** Runs to merge. */
+        private final List<File> runs;
+
+
+        /**
+         * Create a new merge task.
+         *
+         * @param runs runs to merge
+         */
+        Merge(final List<File> runs) {
+            this.runs = new ArrayList<File>(runs);
+        }
+
+
+        @Override
+        public File call() throws IOException {
+            File run = createRun();
+            BinaryRunWriter runWriter = new BinaryRunWriter(run);
+            try {
+                merge(runs, runWriter);
+            }
+            finally {
+                runWriter.close();
+            }
+            return run;
+        }
+    }
+
+    /**
+     * Run writer.
+     */
+    private interface RunWriter {
+
+        /**
+         * Write the specified SAM record line.
+         *
+         * @param ordinal reference sequence ordinal
+         * @param pos position
+         * @param flag flag
+         * @param bytes SAM record line as UTF-8 bytes
+         * @param length length of SAM record line in bytes
+         * @return true to continue writing, false to stop
+         * @throws IOException if an I/O error occurs
+         */
+        boolean write(int ordinal, int pos, int flag, byte[] bytes, int length) throws IOException;
+    }
+
+    /**
+     * Run writer that notifies a SAM listener.
+     */
+    private static final class ListenerRunWriter implements RunWriter {
+        /** SAM listener. */
+        private final SamListener listener;
+
+
+        /**
+         * Create a new listener run writer.
+         *
+         * @param listener SAM listener
+         */
+        ListenerRunWriter(final SamListener listener) {
+            this.listener = listener;
+        }
+
+
+        @Override
+        public boolean write(final int ordinal, final int pos, final int flag, final byte[] bytes, final int length) {
+            return listener.record(SamRecord.valueOf(new String(bytes, 0, length, StandardCharsets.UTF_8)));
+        }
+    }
+
+    /**
+     * Run writer that writes SAM record lines with their sort keys to a temporary compressed run.
+     */
+    private static final class BinaryRunWriter implements RunWriter {
+        /** Deflater. */
+        private final Deflater deflater;
+
+        /** Output stream. */
+        private final DataOutputStream outputStream;
+
+
+        /**
+         * Create a new binary run writer.
+         *
+         * @param run temporary run file
+         * @throws IOException if an I/O error occurs
+         */
+        BinaryRunWriter(final File run) throws IOException {
+            deflater = new Deflater(Deflater.BEST_SPEED);
+            outputStream = new DataOutputStream(new BufferedOutputStream(new DeflaterOutputStream(new FileOutputStream(run), deflater, BUFFER_SIZE), BUFFER_SIZE));
+        }
+
+
+        @Override
+        public boolean write(final int ordinal, final int pos, final int flag, final byte[] bytes, final int length) throws IOException {
+            outputStream.writeInt(ordinal);
+            outputStream.writeInt(pos);
+            outputStream.writeInt(flag);
+            outputStream.writeInt(length);
+            outputStream.write(bytes, 0, length);
+            return true;
+        }
+
+        /**
+         * Close this binary run writer.
+         *
+         * @throws IOException if an I/O error occurs
+         */
+        void close() throws IOException {
+            try {
+                outputStream.close();
+            }
+            finally {
+                deflater.end();
+            }
+        }
+    }
+
+    /**
+     * Reader for SAM record lines with their sort keys from a temporary compressed run.
+     */
+    private static final class RunReader {
+        /** Run index. */
+        private final int index;
+
+        /** Inflater. */
+        private final Inflater inflater;
+
+        /** Input stream. */
+        private final DataInputStream inputStream;
+
+        /** Reference sequence ordinal of the current SAM record line. */
+        private int ordinal;
+
+        /** Position of the current SAM record line. */
+        private int pos;
+
+        /** Flag of the current SAM record line. */
+        private int flag;
+
+        /** Current SAM record line as UTF-8 bytes. */
+        private byte[] bytes = new byte[1024];
+
+        /** Length of the current SAM record line in bytes. */
+        private int length;
+
+        /** Length of the query name of the current SAM record line in bytes. */
+        private int qnameLength;
+
+
+        /**
+         * Create a new run reader.
+         *
+         * @param index run index
+         * @param run temporary run file
+         * @throws IOException if an I/O error occurs
+         */
+        RunReader(final int index, final File run) throws IOException {
+            this.index = index;
+            inflater = new Inflater();
+            inputStream = new DataInputStream(new BufferedInputStream(new InflaterInputStream(new FileInputStream(run), inflater, BUFFER_SIZE), BUFFER_SIZE));
+        }
+
+
+        /**
+         * Read the next SAM record line, if any.
+         *
+         * @return true if a SAM record line was read
+         * @throws IOException if an I/O error occurs
+         */
+        boolean next() throws IOException {
+            try {
+                ordinal = inputStream.readInt();
+            }
+            catch (EOFException e) {
+                return false;
+            }
+            pos = inputStream.readInt();
+            flag = inputStream.readInt();
+            length = inputStream.readInt();
+            if (length > bytes.length) {
+                bytes = new byte[Math.max(length, 2 * bytes.length)];
+            }
+            inputStream.readFully(bytes, 0, length);
+            qnameLength = 0;
+            while (qnameLength < length && bytes[qnameLength] != '\t') {
+                qnameLength++;
+            }
+            return true;
+        }
+
+        /**
+         * Close this run reader.
+         */
+        void close() {
+            try {
+                inputStream.close();
+            }
+            catch (IOException e) {
+                // ignore
+            }
+            finally {
+                inflater.end();
+            }
+        }
+    }
+}
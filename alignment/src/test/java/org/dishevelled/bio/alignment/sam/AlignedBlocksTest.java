@@ -0,0 +1,113 @@
+/*
+
+    dsh-bio-alignment  Aligments.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.alignment.sam;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableMap;
+
+import org.dishevelled.bio.annotation.Annotation;
+
+import org.junit.Test;
+
+/**
+ * Unit test for AlignedBlocks.
+ *
+ * @author  Michael Heuer
+ */
+public final class AlignedBlocksTest {
+
+    private static SamRecord record(final int pos, final String cigar) {
+        return new SamRecord("read1", 0, "chr1", pos, 60, cigar, null, 0, 0, null, null, ImmutableMap.<String, Annotation>of());
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testConstructorNullRecord() {
+        new AlignedBlocks(null);
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testResetNullRecord() {
+        new AlignedBlocks().reset(null);
+    }
+
+    @Test
+    public void testEmpty() {
+        assertFalse(new AlignedBlocks().next());
+        assertFalse(new AlignedBlocks(record(100, null)).next());
+    }
+
+    @Test(expected=IllegalStateException.class)
+    public void testGetLengthBeforeNext() {
+        new AlignedBlocks(record(100, "4M")).getLength();
+    }
+
+    @Test(expected=IllegalStateException.class)
+    public void testGetReadStartAfterLast() {
+        AlignedBlocks blocks = new AlignedBlocks(record(100, "4M"));
+        assertTrue(blocks.next());
+        assertFalse(blocks.next());
+        blocks.getReadStart();
+    }
+
+    @Test
+    public void testBlocks() {
+        AlignedBlocks blocks = new AlignedBlocks(record(100, "2H3S10M2I5=1X4D100N6M2S"));
+        assertTrue(blocks.next());
+        assertEquals(3, blocks.getReadStart());
+        assertEquals(100L, blocks.getReferenceStart());
+        assertEquals(10, blocks.getLength());
+
+        assertTrue(blocks.next());
+        assertEquals(15, blocks.getReadStart());
+        assertEquals(110L, blocks.getReferenceStart());
+        assertEquals(6, blocks.getLength());
+
+        assertTrue(blocks.next());
+        assertEquals(21, blocks.getReadStart());
+        assertEquals(220L, blocks.getReferenceStart());
+        assertEquals(6, blocks.getLength());
+
+        assertFalse(blocks.next());
+    }
+
+    @Test
+    public void testReset() {
+        AlignedBlocks blocks = new AlignedBlocks();
+        assertSame(blocks, blocks.reset(record(100, "4M")));
+        assertTrue(blocks.next());
+        assertEquals(100L, blocks.getReferenceStart());
+        assertEquals(4, blocks.getLength());
+
+        blocks.reset(record(50, "1S2M"));
+        assertTrue(blocks.next());
+        assertEquals(1, blocks.getReadStart());
+        assertEquals(50L, blocks.getReferenceStart());
+        assertEquals(2, blocks.getLength());
+        assertFalse(blocks.next());
+    }
+}
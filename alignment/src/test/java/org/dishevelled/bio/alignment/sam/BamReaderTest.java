@@ -0,0 +1,316 @@
+/*
+
+    dsh-bio-alignment  Aligments.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.alignment.sam;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.google.common.collect.ImmutableList;
+
+import com.google.common.io.LittleEndianDataOutputStream;
+
+import org.dishevelled.bio.bgzf.BgzfReader;
+import org.dishevelled.bio.bgzf.ParallelBgzfOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for BamReader.
+ *
+ * @author  Michael Heuer
+ */
+public final class BamReaderTest {
+    private SamHeader header;
+    private List<SamRecord> records;
+    private byte[] bam;
+    private Path bamPath;
+    private static final String SAM = "NA12878-platinum-chr20.1-60250.sam";
+
+    @Before
+    public void setUp() throws Exception {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(getClass().getResourceAsStream(SAM)))) {
+            header = SamReader.header(reader);
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(getClass().getResourceAsStream(SAM)))) {
+            records = ImmutableList.copyOf(SamReader.records(reader));
+        }
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (BamWriter writer = new BamWriter(outputStream, header)) {
+            writer.write(records);
+        }
+        bam = outputStream.toByteArray();
+        bamPath = File.createTempFile("bamReaderTest", ".bam").toPath();
+        Files.write(bamPath, bam);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(bamPath);
+        Files.deleteIfExists(bamPath.resolveSibling(bamPath.getFileName() + ".bai"));
+    }
+
+    @Test
+    public void testIsBam() throws Exception {
+        assertTrue(BamReader.isBam(bamPath));
+    }
+
+    @Test
+    public void testIsBamNotBgzf() throws Exception {
+        Path samPath = File.createTempFile("bamReaderTest", ".sam").toPath();
+        try {
+            Files.write(samPath, "@HD\tVN:1.5\n".getBytes("UTF-8"));
+            assertFalse(BamReader.isBam(samPath));
+        }
+        finally {
+            Files.delete(samPath);
+        }
+    }
+
+    @Test
+    public void testIsBamBgzfNotBam() throws Exception {
+        Path bgzfPath = File.createTempFile("bamReaderTest", ".sam.gz").toPath();
+        try (OutputStream outputStream = new ParallelBgzfOutputStream(Files.newOutputStream(bgzfPath), 1)) {
+            outputStream.write("@HD\tVN:1.5\n".getBytes("UTF-8"));
+        }
+        try {
+            assertFalse(BamReader.isBam(bgzfPath));
+        }
+        finally {
+            Files.delete(bgzfPath);
+        }
+    }
+
+    @Test
+    public void testIsIndexed() throws Exception {
+        assertFalse(BamReader.isIndexed(bamPath));
+        writeIndex();
+        assertTrue(BamReader.isIndexed(bamPath));
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testHeaderNullInputStream() throws Exception {
+        BamReader.header((java.io.InputStream) null);
+    }
+
+    @Test
+    public void testHeader() throws Exception {
+        SamHeader read = BamReader.header(bamPath);
+        assertEquals(header.getSequenceHeaderLines().size(), read.getSequenceHeaderLines().size());
+        assertEquals(header.getHeaderLineOpt().get().toString(), read.getHeaderLineOpt().get().toString());
+    }
+
+    @Test
+    public void testHeaderFromBinaryReferences() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (LittleEndianDataOutputStream out = new LittleEndianDataOutputStream(new ParallelBgzfOutputStream(outputStream, 1))) {
+            out.write(new byte[] { 'B', 'A', 'M', 1 });
+            out.writeInt(0);
+            out.writeInt(1);
+            out.writeInt(5);
+            out.write(new byte[] { 'c', 'h', 'r', 'M', 0 });
+            out.writeInt(16569);
+        }
+        SamHeader read = BamReader.header(new ByteArrayInputStream(outputStream.toByteArray()));
+        assertTrue(read.getHeaderLineOpt().isPresent());
+        assertEquals(1, read.getSequenceHeaderLines().size());
+        assertEquals("chrM", read.getSequenceHeaderLines().get(0).getSn());
+        assertEquals("16569", read.getSequenceHeaderLines().get(0).getLn());
+    }
+
+    @Test
+    public void testRecords() throws Exception {
+        assertEquals(records, ImmutableList.copyOf(BamReader.records(bamPath)));
+    }
+
+    @Test
+    public void testStreamMultipleThreads() throws Exception {
+        final List<SamRecord> read = new ArrayList<SamRecord>();
+        BamReader.stream(new ByteArrayInputStream(bam), new SamAdapter() {
+                @Override
+                public boolean record(final SamRecord record) {
+                    read.add(record);
+                    return true;
+                }
+            }, 4);
+        assertEquals(records, read);
+    }
+
+    @Test
+    public void testStreamStopsEarly() throws Exception {
+        final List<SamRecord> read = new ArrayList<SamRecord>();
+        BamReader.stream(bamPath, new SamAdapter() {
+                @Override
+                public boolean record(final SamRecord record) {
+                    read.add(record);
+                    return read.size() < 10;
+                }
+            });
+        assertEquals(10, read.size());
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testStreamInvalidThreads() throws Exception {
+        BamReader.stream(new ByteArrayInputStream(bam), new SamAdapter() {}, 0);
+    }
+
+    @Test(expected=IOException.class)
+    public void testStreamNotBam() throws Exception {
+        BamReader.stream(new ByteArrayInputStream("@HD\tVN:1.5\n".getBytes("UTF-8")), new SamAdapter() {});
+    }
+
+    @Test(expected=IOException.class)
+    public void testQueryNotIndexed() throws Exception {
+        BamReader.query(bamPath, "chr20", 60100L, 60200L, new SamAdapter() {});
+    }
+
+    @Test
+    public void testQuery() throws Exception {
+        writeIndex();
+        assertEquals(overlapping("chr20", 60100L, 60200L), query("chr20", 60100L, 60200L));
+        assertEquals(overlapping("chr20", 0L, 60000L), query("chr20", 0L, 60000L));
+        assertEquals(records, query("chr20", 0L, 1000000L));
+        assertTrue(query("chr20", 1000000L, 2000000L).isEmpty());
+        assertTrue(query("chr1", 0L, 1000000L).isEmpty());
+        assertTrue(query("chrUn", 0L, 1000000L).isEmpty());
+    }
+
+    private List<SamRecord> query(final String rname, final long start, final long end) throws IOException {
+        final List<SamRecord> read = new ArrayList<SamRecord>();
+        BamReader.query(bamPath, rname, start, end, new SamAdapter() {
+                @Override
+                public boolean record(final SamRecord record) {
+                    read.add(record);
+                    return true;
+                }
+            });
+        return read;
+    }
+
+    private List<SamRecord> overlapping(final String rname, final long start, final long end) {
+        List<SamRecord> overlapping = new ArrayList<SamRecord>();
+        for (SamRecord record : records) {
+            long recordStart = record.getPos() - 1L;
+            long recordEnd = recordStart + referenceLength(record.getCigar());
+            if (rname.equals(record.getRname()) && recordStart < end && recordEnd > start) {
+                overlapping.add(record);
+            }
+        }
+        return overlapping;
+    }
+
+    private static long referenceLength(final String cigar) {
+        long length = 0L;
+        int count = 0;
+        for (char c : cigar.toCharArray()) {
+            if (Character.isDigit(c)) {
+                count = count * 10 + (c - '0');
+            }
+            else {
+                if ("MDN=X".indexOf(c) >= 0) {
+                    length += count;
+                }
+                count = 0;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Write a BAM index (.bai) for the BAM file, with one chunk per record.
+     */
+    private void writeIndex() throws IOException {
+        int n = header.getSequenceHeaderLines().size();
+        List<Map<Integer, List<long[]>>> bins = new ArrayList<Map<Integer, List<long[]>>>(n);
+        List<Map<Integer, Long>> linear = new ArrayList<Map<Integer, Long>>(n);
+        for (int i = 0; i < n; i++) {
+            bins.add(new TreeMap<Integer, List<long[]>>());
+            linear.add(new TreeMap<Integer, Long>());
+        }
+        try (BgzfReader reader = new BgzfReader(bamPath)) {
+            BamCodec.readHeader(reader, new ArrayList<String>());
+            byte[] buffer = new byte[1024];
+            long start = reader.getVirtualOffset();
+            while ((buffer = BamCodec.readRecord(reader, buffer)) != null) {
+                long end = reader.getVirtualOffset();
+                int ref = BamCodec.referenceId(buffer);
+                int pos = BamCodec.position(buffer);
+                int bin = BamCodec.reg2bin(pos, BamCodec.end(buffer));
+                List<long[]> chunks = bins.get(ref).get(bin);
+                if (chunks == null) {
+                    chunks = new ArrayList<long[]>();
+                    bins.get(ref).put(bin, chunks);
+                }
+                chunks.add(new long[] { start, end });
+                for (int window = pos >> 14; window <= (BamCodec.end(buffer) - 1) >> 14; window++) {
+                    if (!linear.get(ref).containsKey(window)) {
+                        linear.get(ref).put(window, start);
+                    }
+                }
+                start = end;
+            }
+        }
+        try (LittleEndianDataOutputStream out = new LittleEndianDataOutputStream(Files.newOutputStream(bamPath.resolveSibling(bamPath.getFileName() + ".bai")))) {
+            out.write(new byte[] { 'B', 'A', 'I', 1 });
+            out.writeInt(n);
+            for (int i = 0; i < n; i++) {
+                out.writeInt(bins.get(i).size());
+                for (Map.Entry<Integer, List<long[]>> entry : bins.get(i).entrySet()) {
+                    out.writeInt(entry.getKey());
+                    out.writeInt(entry.getValue().size());
+                    for (long[] chunk : entry.getValue()) {
+                        out.writeLong(chunk[0]);
+                        out.writeLong(chunk[1]);
+                    }
+                }
+                int windows = linear.get(i).isEmpty() ? 0 : ((TreeMap<Integer, Long>) linear.get(i)).lastKey() + 1;
+                out.writeInt(windows);
+                long offset = 0L;
+                for (int window = 0; window < windows; window++) {
+                    Long value = linear.get(i).get(window);
+                    offset = value == null ? offset : value;
+                    out.writeLong(offset);
+                }
+            }
+        }
+    }
+}
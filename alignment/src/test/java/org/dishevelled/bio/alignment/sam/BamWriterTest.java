@@ -0,0 +1,190 @@
+/*
+
+    dsh-bio-alignment  Aligments.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.alignment.sam;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import java.util.List;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.google.common.collect.ImmutableList;
+
+import org.dishevelled.bio.bgzf.ParallelBgzfOutputStream;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for BamWriter.
+ *
+ * @author  Michael Heuer
+ */
+public final class BamWriterTest {
+    private SamHeader header;
+    private ByteArrayOutputStream outputStream;
+
+    @Before
+    public void setUp() {
+        header = SamHeader.builder()
+            .withHeaderLine(SamHeaderLine.valueOf("@HD\tVN:1.6\tSO:coordinate"))
+            .withSequenceHeaderLine(SamSequenceHeaderLine.valueOf("@SQ\tSN:chr1\tLN:248956422"))
+            .withSequenceHeaderLine(SamSequenceHeaderLine.valueOf("@SQ\tSN:chr2\tLN:242193529"))
+            .build();
+        outputStream = new ByteArrayOutputStream();
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testConstructorNullOutputStream() throws Exception {
+        new BamWriter(null, header);
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testConstructorNullHeader() throws Exception {
+        new BamWriter(outputStream, null);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testConstructorInvalidThreads() throws Exception {
+        new BamWriter(outputStream, header, 0);
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testConstructorNullBgzfOutputStream() throws Exception {
+        new BamWriter((ParallelBgzfOutputStream) null, header, true);
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testWriteNullRecord() throws Exception {
+        try (BamWriter writer = new BamWriter(outputStream, header)) {
+            writer.write((SamRecord) null);
+        }
+    }
+
+    @Test
+    public void testWriteHeaderOnly() throws Exception {
+        new BamWriter(outputStream, header).close();
+        SamHeader read = BamReader.header(new ByteArrayInputStream(outputStream.toByteArray()));
+        assertEquals(2, read.getSequenceHeaderLines().size());
+        assertEquals("chr2", read.getSequenceHeaderLines().get(1).getSn());
+        assertEquals("242193529", read.getSequenceHeaderLines().get(1).getLn());
+    }
+
+    @Test
+    public void testWrite() throws Exception {
+        List<SamRecord> records = ImmutableList.of(SamRecord.valueOf("read1\t99\tchr1\t100\t60\t5M1I4M\t=\t300\t210\tACGTNACGTA\tIIIIIIIIII\tNM:i:1\tRG:Z:rg1\tXA:A:x\tXF:f:1.5\tXN:i:-100000\tXB:B:S,1,2,65535"),
+                                                  SamRecord.valueOf("read2\t0\tchr2\t1\t0\t*\tchr1\t5\t0\tacgt\t*"),
+                                                  SamRecord.valueOf("*\t4\t*\t0\t0\t*\t*\t0\t0\t*\t*"));
+        try (BamWriter writer = new BamWriter(outputStream, header, 2)) {
+            writer.write(records);
+        }
+        List<SamRecord> read = ImmutableList.copyOf(BamReader.records(new ByteArrayInputStream(outputStream.toByteArray())));
+        assertEquals(3, read.size());
+        assertEquals(records.get(0), read.get(0));
+        assertEquals("ACGT", read.get(1).getSeq());
+        assertNull(read.get(1).getQual());
+        assertEquals("chr1", read.get(1).getRnext());
+        assertEquals(records.get(2), read.get(2));
+    }
+
+    @Test
+    public void testWriteAppend() throws Exception {
+        try (BamWriter writer = new BamWriter(outputStream, header)) {
+            writer.write(SamRecord.valueOf("read1\t0\tchr1\t1\t60\t4M\t*\t0\t0\tACGT\t*"));
+        }
+        try (BamWriter writer = new BamWriter(outputStream, header, 1, false)) {
+            writer.write(SamRecord.valueOf("read2\t0\tchr2\t1\t60\t4M\t*\t0\t0\tACGT\t*"));
+        }
+        List<SamRecord> read = ImmutableList.copyOf(BamReader.records(new ByteArrayInputStream(outputStream.toByteArray())));
+        assertEquals(2, read.size());
+        assertEquals("read1", read.get(0).getQname());
+        assertEquals("chr2", read.get(1).getRname());
+    }
+
+    @Test
+    public void testWriteSharedExecutorService() throws Exception {
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try {
+            ByteArrayOutputStream other = new ByteArrayOutputStream();
+            try (BamWriter writer = new BamWriter(new ParallelBgzfOutputStream(outputStream, executorService, 2), header, true);
+                 BamWriter otherWriter = new BamWriter(new ParallelBgzfOutputStream(other, executorService, 2), header, true)) {
+                writer.write(SamRecord.valueOf("read1\t0\tchr1\t1\t60\t4M\t*\t0\t0\tACGT\t*"));
+                otherWriter.write(SamRecord.valueOf("read2\t0\tchr2\t1\t60\t4M\t*\t0\t0\tACGT\t*"));
+            }
+            List<SamRecord> read = ImmutableList.copyOf(BamReader.records(new ByteArrayInputStream(outputStream.toByteArray())));
+            assertEquals(1, read.size());
+            assertEquals("read1", read.get(0).getQname());
+            read = ImmutableList.copyOf(BamReader.records(new ByteArrayInputStream(other.toByteArray())));
+            assertEquals(1, read.size());
+            assertEquals("read2", read.get(0).getQname());
+        }
+        finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testWriteLongCigar() throws Exception {
+        StringBuilder cigar = new StringBuilder();
+        StringBuilder seq = new StringBuilder();
+        for (int i = 0; i < 40000; i++) {
+            cigar.append("1M1I");
+            seq.append("AC");
+        }
+        SamRecord record = SamRecord.valueOf("long\t0\tchr1\t1\t60\t" + cigar + "\t*\t0\t0\t" + seq + "\t*\tNM:i:40000");
+        try (BamWriter writer = new BamWriter(outputStream, header)) {
+            writer.write(record);
+        }
+        SamRecord read = BamReader.records(new ByteArrayInputStream(outputStream.toByteArray())).iterator().next();
+        assertEquals(record, read);
+        assertEquals(1, read.getAnnotations().size());
+    }
+
+    @Test(expected=IOException.class)
+    public void testWriteUnknownReference() throws Exception {
+        try (BamWriter writer = new BamWriter(outputStream, header)) {
+            writer.write(SamRecord.valueOf("read1\t0\tchr3\t1\t60\t4M\t*\t0\t0\tACGT\t*"));
+        }
+    }
+
+    @Test(expected=IOException.class)
+    public void testWriteInvalidCigar() throws Exception {
+        try (BamWriter writer = new BamWriter(outputStream, header)) {
+            writer.write(SamRecord.valueOf("read1\t0\tchr1\t1\t60\t4Q\t*\t0\t0\tACGT\t*"));
+        }
+    }
+
+    @Test(expected=IOException.class)
+    public void testWriteSeqQualLengthMismatch() throws Exception {
+        try (BamWriter writer = new BamWriter(outputStream, header)) {
+            writer.write(SamRecord.valueOf("read1\t0\tchr1\t1\t60\t4M\t*\t0\t0\tACGT\tII"));
+        }
+    }
+}
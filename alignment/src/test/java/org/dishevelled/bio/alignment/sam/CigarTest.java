@@ -0,0 +1,143 @@
+/*
+
+    dsh-bio-alignment  Aligments.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.alignment.sam;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Unit test for Cigar.
+ *
+ * @author  Michael Heuer
+ */
+public final class CigarTest {
+
+    @Test
+    public void testParseNull() {
+        assertEquals(0, Cigar.parse(null).length);
+    }
+
+    @Test
+    public void testParseMissing() {
+        assertEquals(0, Cigar.parse("*").length);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testParseInvalidOperation() {
+        Cigar.parse("4Q");
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testParseMissingLength() {
+        Cigar.parse("4MI");
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testParseMissingOperation() {
+        Cigar.parse("4M2");
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testParseLengthTooLarge() {
+        Cigar.parse("268435456M");
+    }
+
+    @Test
+    public void testParse() {
+        int[] packed = Cigar.parse("2H3S10M2I5=1X4D100N6M2S");
+        assertEquals(10, packed.length);
+        assertEquals(Cigar.HARD_CLIP, Cigar.operation(packed[0]));
+        assertEquals(2, Cigar.length(packed[0]));
+        assertEquals(Cigar.SOFT_CLIP, Cigar.operation(packed[1]));
+        assertEquals(3, Cigar.length(packed[1]));
+        assertEquals(Cigar.MATCH, Cigar.operation(packed[2]));
+        assertEquals(10, Cigar.length(packed[2]));
+        assertEquals(Cigar.SKIP, Cigar.operation(packed[7]));
+        assertEquals(100, Cigar.length(packed[7]));
+        assertEquals((10 << 4) | Cigar.MATCH, packed[2]);
+    }
+
+    @Test
+    public void testParseMaxLength() {
+        assertEquals(Cigar.MAX_LENGTH, Cigar.length(Cigar.parse("268435455M")[0]));
+    }
+
+    @Test
+    public void testFormat() {
+        assertNull(Cigar.format(new int[0]));
+        assertEquals("2H3S10M2I5=1X4D100N6M2S", Cigar.format(Cigar.parse("2H3S10M2I5=1X4D100N6M2S")));
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testPackInvalidOperation() {
+        Cigar.pack(9, 1);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testPackInvalidLength() {
+        Cigar.pack(Cigar.MATCH, -1);
+    }
+
+    @Test
+    public void testPack() {
+        assertArrayEquals(new int[] { Cigar.pack(Cigar.MATCH, 4), Cigar.pack(Cigar.INSERTION, 1) }, Cigar.parse("4M1I"));
+    }
+
+    @Test
+    public void testConsumes() {
+        for (int op = 0; op < Cigar.OPERATIONS.length(); op++) {
+            char c = Cigar.OPERATIONS.charAt(op);
+            assertEquals("MDN=X".indexOf(c) >= 0, Cigar.consumesReference(op));
+            assertEquals("MIS=X".indexOf(c) >= 0, Cigar.consumesRead(op));
+            assertEquals("M=X".indexOf(c) >= 0, Cigar.isAligned(op));
+        }
+    }
+
+    @Test
+    public void testLengths() {
+        int[] packed = Cigar.parse("2H3S10M2I5=1X4D100N6M2S");
+        assertEquals(10 + 5 + 1 + 4 + 100 + 6, Cigar.referenceLength(packed));
+        assertEquals(3 + 10 + 2 + 5 + 1 + 6 + 2, Cigar.readLength(packed));
+        assertEquals(10 + 5 + 1 + 6, Cigar.alignedLength(packed));
+        assertEquals(3, Cigar.leadingSoftClipLength(packed));
+        assertEquals(2, Cigar.trailingSoftClipLength(packed));
+    }
+
+    @Test
+    public void testSoftClipLengths() {
+        assertEquals(0, Cigar.leadingSoftClipLength(new int[0]));
+        assertEquals(0, Cigar.trailingSoftClipLength(new int[0]));
+        assertEquals(0, Cigar.leadingSoftClipLength(Cigar.parse("10M5S")));
+        assertEquals(5, Cigar.trailingSoftClipLength(Cigar.parse("10M5S3H")));
+        assertEquals(4, Cigar.leadingSoftClipLength(Cigar.parse("4S")));
+        assertEquals(0, Cigar.trailingSoftClipLength(Cigar.parse("4S")));
+        assertFalse(Cigar.leadingSoftClipLength(Cigar.parse("1M4S")) > 0);
+        assertTrue(Cigar.trailingSoftClipLength(Cigar.parse("1M4S")) > 0);
+    }
+}
@@ -74,6 +74,24 @@ public final class SamHeaderTest {
         assertEquals(expectedHeader.getCommentHeaderLines().size(), observedHeader.getCommentHeaderLines().size());        
     }
 
+    @Test(expected=NullPointerException.class)
+    public void testBuilderWithSortOrderNull() {
+        SamHeader.builder().withSortOrder(null);
+    }
+
+    @Test
+    public void testBuilderWithSortOrder() throws Exception {
+        SamHeader header = SamHeader.builder().withSortOrder("coordinate").build();
+        assertEquals("1.6", header.getHeaderLineOpt().get().getVn());
+        assertEquals("coordinate", header.getHeaderLineOpt().get().getSo());
+
+        SamHeader expectedHeader = header(createInputStream(SAM));
+        SamHeader observedHeader = SamHeader.builder(expectedHeader).withSortOrder("queryname").build();
+        assertEquals(expectedHeader.getHeaderLineOpt().get().getVn(), observedHeader.getHeaderLineOpt().get().getVn());
+        assertEquals("queryname", observedHeader.getHeaderLineOpt().get().getSo());
+        assertEquals(expectedHeader.getSequenceHeaderLines().size(), observedHeader.getSequenceHeaderLines().size());
+    }
+
     private static InputStream createInputStream(final String name) {
         return SamHeaderTest.class.getResourceAsStream(name);
     }
@@ -0,0 +1,201 @@
+/*
+
+    dsh-bio-alignment  Aligments.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.alignment.sam;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.ImmutableRangeSet;
+import com.google.common.collect.Range;
+import com.google.common.collect.RangeSet;
+
+import org.junit.Test;
+
+/**
+ * Unit test for SamPileup.
+ *
+ * @author  Michael Heuer
+ */
+public final class SamPileupTest {
+    private static final String HEADER = "@HD\tVN:1.6\tSO:coordinate\n"
+        + "@SQ\tSN:chr1\tLN:1000\n"
+        + "@SQ\tSN:chr2\tLN:1000\n";
+
+    private static final String SAM = HEADER
+        + "read1\t0\tchr1\t10\t60\t4M\t*\t0\t0\tACGT\t*\n"
+        + "read2\t0\tchr1\t12\t20\t2S2M1D2M\t*\t0\t0\tTTGTCA\t*\n"
+        + "read3\t4\tchr1\t12\t0\t*\t*\t0\t0\tACGT\t*\n"
+        + "read4\t0\tchr2\t5\t30\t2M\t*\t0\t0\t*\t*\n";
+
+    @Test(expected=NullPointerException.class)
+    public void testConstructorNullListener() {
+        new SamPileup(null);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testConstructorInvalidMinMapq() {
+        new SamPileup(new RecordingListener(), null, -1, SamPileup.DEFAULT_EXCLUDE_FLAGS);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testConstructorUnboundedRegions() {
+        Map<String, RangeSet<Long>> regions = new LinkedHashMap<String, RangeSet<Long>>();
+        regions.put("chr1", ImmutableRangeSet.of(Range.atLeast(10L)));
+        new SamPileup(new RecordingListener(), regions, 0, SamPileup.DEFAULT_EXCLUDE_FLAGS);
+    }
+
+    @Test
+    public void testPileup() throws Exception {
+        RecordingListener listener = new RecordingListener();
+        pileup(SAM, new SamPileup(listener));
+
+        assertEquals("chr1:10 1 1/0/0/0/0 0 60.0\n"
+                     + "chr1:11 1 0/1/0/0/0 0 60.0\n"
+                     + "chr1:12 2 0/0/2/0/0 0 40.0\n"
+                     + "chr1:13 2 0/0/0/2/0 0 40.0\n"
+                     + "chr1:14 0 0/0/0/0/0 1 NaN\n"
+                     + "chr1:15 1 0/1/0/0/0 0 20.0\n"
+                     + "chr1:16 1 1/0/0/0/0 0 20.0\n"
+                     + "chr2:5 1 0/0/0/0/1 0 30.0\n"
+                     + "chr2:6 1 0/0/0/0/1 0 30.0\n", listener.toString());
+    }
+
+    @Test
+    public void testPileupMinMapq() throws Exception {
+        RecordingListener listener = new RecordingListener();
+        pileup(SAM, new SamPileup(listener, null, 30, SamPileup.DEFAULT_EXCLUDE_FLAGS));
+
+        assertEquals("chr1:10 1 1/0/0/0/0 0 60.0\n"
+                     + "chr1:11 1 0/1/0/0/0 0 60.0\n"
+                     + "chr1:12 1 0/0/1/0/0 0 60.0\n"
+                     + "chr1:13 1 0/0/0/1/0 0 60.0\n"
+                     + "chr2:5 1 0/0/0/0/1 0 30.0\n"
+                     + "chr2:6 1 0/0/0/0/1 0 30.0\n", listener.toString());
+    }
+
+    @Test
+    public void testPileupRegions() throws Exception {
+        Map<String, RangeSet<Long>> regions = new LinkedHashMap<String, RangeSet<Long>>();
+        regions.put("chr1", ImmutableRangeSet.<Long>builder().add(Range.closedOpen(7L, 10L)).add(Range.closedOpen(14L, 18L)).build());
+        regions.put("chr3", ImmutableRangeSet.of(Range.closedOpen(0L, 2L)));
+
+        RecordingListener listener = new RecordingListener();
+        pileup(SAM, new SamPileup(listener, regions, 0, SamPileup.DEFAULT_EXCLUDE_FLAGS));
+
+        assertEquals("chr1:8 0 0/0/0/0/0 0 NaN\n"
+                     + "chr1:9 0 0/0/0/0/0 0 NaN\n"
+                     + "chr1:10 1 1/0/0/0/0 0 60.0\n"
+                     + "chr1:15 1 0/1/0/0/0 0 20.0\n"
+                     + "chr1:16 1 1/0/0/0/0 0 20.0\n"
+                     + "chr1:17 0 0/0/0/0/0 0 NaN\n"
+                     + "chr1:18 0 0/0/0/0/0 0 NaN\n"
+                     + "chr3:1 0 0/0/0/0/0 0 NaN\n"
+                     + "chr3:2 0 0/0/0/0/0 0 NaN\n", listener.toString());
+    }
+
+    @Test
+    public void testPileupStop() throws Exception {
+        RecordingListener listener = new RecordingListener(3);
+        pileup(SAM, new SamPileup(listener));
+        assertEquals(3, listener.columns.size());
+    }
+
+    @Test(expected=IOException.class)
+    public void testPileupUnsorted() throws Exception {
+        pileup(HEADER
+               + "read1\t0\tchr1\t20\t60\t4M\t*\t0\t0\tACGT\t*\n"
+               + "read2\t0\tchr1\t10\t60\t4M\t*\t0\t0\tACGT\t*\n", new SamPileup(new RecordingListener()));
+    }
+
+    @Test(expected=IOException.class)
+    public void testPileupUnsortedReferences() throws Exception {
+        pileup(HEADER
+               + "read1\t0\tchr1\t10\t60\t4M\t*\t0\t0\tACGT\t*\n"
+               + "read2\t0\tchr2\t10\t60\t4M\t*\t0\t0\tACGT\t*\n"
+               + "read3\t0\tchr1\t20\t60\t4M\t*\t0\t0\tACGT\t*\n", new SamPileup(new RecordingListener()));
+    }
+
+    @Test
+    public void testPileupLongReads() throws Exception {
+        int length = 3 * SamPileup.INITIAL_CAPACITY;
+        StringBuilder sb = new StringBuilder(HEADER);
+        for (int i = 0; i < 4; i++) {
+            sb.append("read" + i + "\t0\tchr1\t" + (1 + i * 100) + "\t60\t" + length + "M\t*\t0\t0\t*\t*\n");
+        }
+        RecordingListener listener = new RecordingListener();
+        SamPileup pileup = new SamPileup(listener);
+        pileup(sb.toString(), pileup);
+
+        assertTrue(pileup.capacity() >= length);
+        assertTrue(pileup.capacity() < 2 * length);
+        assertEquals(length + 300, listener.columns.size());
+        assertEquals("chr1:1 1 0/0/0/0/1 0 60.0", listener.columns.get(0));
+        assertEquals("chr1:350 4 0/0/0/0/4 0 60.0", listener.columns.get(349));
+        assertEquals("chr1:" + (length + 300) + " 1 0/0/0/0/1 0 60.0", listener.columns.get(length + 299));
+    }
+
+    private static void pileup(final String sam, final SamPileup pileup) throws Exception {
+        SamReader.stream(new StringReader(sam), pileup);
+        pileup.finish();
+    }
+
+    private static final class RecordingListener implements SamPileupListener {
+        private final int limit;
+        private final List<String> columns = new ArrayList<String>();
+
+        RecordingListener() {
+            this(Integer.MAX_VALUE);
+        }
+
+        RecordingListener(final int limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public boolean column(final SamPileup.Column column) {
+            columns.add(column.getReferenceName() + ":" + column.getPosition() + " " + column.getDepth() + " "
+                        + column.getA() + "/" + column.getC() + "/" + column.getG() + "/" + column.getT() + "/" + column.getN() + " "
+                        + column.getDeletions() + " " + column.getMeanMapq());
+            return columns.size() < limit;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            for (String column : columns) {
+                sb.append(column);
+                sb.append("\n");
+            }
+            return sb.toString();
+        }
+    }
+}
@@ -25,6 +25,7 @@ package org.dishevelled.bio.alignment.sam;
 
 import static org.dishevelled.bio.alignment.sam.SamReader.header;
 import static org.dishevelled.bio.alignment.sam.SamReader.stream;
+import static org.dishevelled.bio.alignment.sam.SamReader.streamParallel;
 import static org.dishevelled.bio.alignment.sam.SamReader.records;
 
 import static org.apache.commons.codec.binary.Hex.decodeHex;
@@ -33,6 +34,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.BufferedReader;
 import java.io.File;
@@ -46,10 +48,14 @@ import java.net.URL;
 
 import java.nio.CharBuffer;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
@@ -109,6 +115,92 @@ public final class SamReaderTest {
         }
     }
 
+    @Test(expected=NullPointerException.class)
+    public void testStreamParallelNullReadable() throws Exception {
+        streamParallel((Readable) null, listener, 2);
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testStreamParallelNullListener() throws Exception {
+        streamParallel(readable, null, 2);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testStreamParallelInvalidThreads() throws Exception {
+        streamParallel(readable, listener, 0);
+    }
+
+    @Test
+    public void testStreamParallel() throws Exception {
+        final List<SamRecord> expected = ImmutableList.copyOf(records(createInputStream(SAM)));
+        final List<SamRecord> records = new ArrayList<SamRecord>();
+        final List<SamHeader> headers = new ArrayList<SamHeader>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(createFile(SAM)))) {
+            ParallelSamParser.stream(reader, new SamListener() {
+                    @Override
+                    public boolean header(final SamHeader header) {
+                        assertTrue(records.isEmpty());
+                        headers.add(header);
+                        return true;
+                    }
+
+                    @Override
+                    public boolean record(final SamRecord record) {
+                        records.add(record);
+                        return true;
+                    }
+                }, 4, true, 7);
+        }
+        assertEquals(1, headers.size());
+        assertEquals(header(createInputStream(SAM)).getSequenceHeaderLines().size(), headers.get(0).getSequenceHeaderLines().size());
+        assertEquals(expected, records);
+    }
+
+    @Test
+    public void testStreamParallelUnordered() throws Exception {
+        final AtomicInteger count = new AtomicInteger();
+        try (BufferedReader reader = new BufferedReader(new FileReader(createFile(SAM)))) {
+            ParallelSamParser.stream(reader, new SamAdapter() {
+                    @Override
+                    public boolean record(final SamRecord record) {
+                        validateRecord(record);
+                        count.incrementAndGet();
+                        return true;
+                    }
+                }, 4, false, 7);
+        }
+        assertEquals(180, count.get());
+    }
+
+    @Test
+    public void testStreamParallelStop() throws Exception {
+        final List<SamRecord> records = new ArrayList<SamRecord>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(createFile(SAM)))) {
+            ParallelSamParser.stream(reader, new SamAdapter() {
+                    @Override
+                    public boolean record(final SamRecord record) {
+                        records.add(record);
+                        return records.size() < 10;
+                    }
+                }, 4, true, 7);
+        }
+        assertEquals(10, records.size());
+    }
+
+    @Test
+    public void testStreamParallelInvalidRecord() throws Exception {
+        Readable invalid = CharBuffer.wrap("@HD\tVN:1.5\n"
+                                           + "read1\t0\tchr1\t1\t60\t4M\t*\t0\t0\tACGT\tIIII\n"
+                                           + "read2\t0\tchr1\tfoo\t60\t4M\t*\t0\t0\tACGT\tIIII\n");
+        try {
+            streamParallel(invalid, listener, 2);
+            fail("expected IOException");
+        }
+        catch (IOException e) {
+            assertTrue(e.getMessage().contains("line 3"));
+        }
+    }
+
     @Test(expected=NullPointerException.class)
     public void testHeaderNullReadable() throws Exception {
         header((Readable) null);
@@ -24,9 +24,12 @@
 package org.dishevelled.bio.alignment.sam;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.util.Map;
 
@@ -35,6 +38,8 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.ListMultimap;
 
+import org.dishevelled.bio.annotation.Annotation;
+
 import org.junit.Test;
 
 /**
@@ -43,5 +48,193 @@ import org.junit.Test;
  * @author  Michael Heuer
  */
 public final class SamRecordTest {
-    // empty
+    private static final String LINE = "read1\t99\tchr1\t100\t60\t4M\t=\t200\t104\tACGT\tIIII\tNM:i:0\tRG:Z:group1\tXB:B:i,1,2";
+
+    @Test(expected=NullPointerException.class)
+    public void testValueOfNull() {
+        SamRecord.valueOf(null);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testValueOfTooFewTokens() {
+        SamRecord.valueOf("read1\t99\tchr1\t100\t60\t4M\t=\t200\t104\tACGT");
+    }
+
+    @Test(expected=NumberFormatException.class)
+    public void testValueOfInvalidPos() {
+        SamRecord.valueOf("read1\t99\tchr1\tfoo\t60\t4M\t=\t200\t104\tACGT\tIIII");
+    }
+
+    @Test(expected=NumberFormatException.class)
+    public void testValueOfEmptyMapq() {
+        SamRecord.valueOf("read1\t99\tchr1\t100\t\t4M\t=\t200\t104\tACGT\tIIII");
+    }
+
+    @Test(expected=NumberFormatException.class)
+    public void testValueOfPosOverflow() {
+        SamRecord.valueOf("read1\t99\tchr1\t2147483648\t60\t4M\t=\t200\t104\tACGT\tIIII");
+    }
+
+    @Test
+    public void testValueOf() {
+        SamRecord record = SamRecord.valueOf(LINE);
+        assertEquals("read1", record.getQname());
+        assertEquals(99, record.getFlag());
+        assertEquals("chr1", record.getRname());
+        assertEquals(100, record.getPos());
+        assertEquals(60, record.getMapq());
+        assertEquals("4M", record.getCigar());
+        assertEquals("=", record.getRnext());
+        assertEquals(200, record.getPnext());
+        assertEquals(104, record.getTlen());
+        assertEquals("ACGT", record.getSeq());
+        assertEquals("IIII", record.getQual());
+        assertEquals(3, record.getAnnotations().size());
+        assertEquals(0, record.getNm());
+        assertEquals("group1", record.getRg());
+        assertEquals(ImmutableList.of(1, 2), record.getAnnotationIntegers("XB"));
+        assertEquals(LINE, record.toString());
+    }
+
+    @Test
+    public void testValueOfNegativeTlen() {
+        assertEquals(-104, SamRecord.valueOf("read1\t147\tchr1\t200\t60\t4M\t=\t100\t-104\tACGT\tIIII").getTlen());
+    }
+
+    @Test
+    public void testValueOfMissingFields() {
+        SamRecord record = SamRecord.valueOf("*\t4\t*\t0\t0\t*\t*\t0\t0\t*\t*");
+        assertNull(record.getQname());
+        assertNull(record.getRname());
+        assertNull(record.getCigar());
+        assertNull(record.getRnext());
+        assertNull(record.getSeq());
+        assertNull(record.getQual());
+        assertTrue(record.getAnnotations().isEmpty());
+        assertEquals("*\t4\t*\t0\t0\t*\t*\t0\t0\t*\t*", record.toString());
+    }
+
+    @Test
+    public void testValueOfTrailingTabs() {
+        SamRecord record = SamRecord.valueOf("read1\t0\tchr1\t1\t60\t4M\t*\t0\t0\tACGT\tIIII\tNM:i:1\t\t");
+        assertEquals(1, record.getAnnotations().size());
+        assertEquals("read1\t0\tchr1\t1\t60\t4M\t*\t0\t0\tACGT\tIIII\tNM:i:1", record.toString());
+    }
+
+    @Test
+    public void testValueOfInvalidAnnotationsParsedLazily() {
+        SamRecord record = SamRecord.valueOf("read1\t0\tchr1\t1\t60\t4M\t*\t0\t0\tACGT\tIIII\tNM");
+        assertEquals("chr1", record.getRname());
+        assertEquals(1, record.getPos());
+        assertEquals(60, record.getMapq());
+        try {
+            record.getAnnotations();
+            fail("expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testPackedCigar() {
+        SamRecord record = SamRecord.valueOf(LINE);
+        int[] packed = record.getPackedCigar();
+        assertEquals(1, packed.length);
+        assertEquals(Cigar.MATCH, Cigar.operation(packed[0]));
+        assertEquals(4, Cigar.length(packed[0]));
+        assertTrue(packed == record.getPackedCigar());
+    }
+
+    @Test
+    public void testReferenceEnd() {
+        assertEquals(103L, SamRecord.valueOf(LINE).getReferenceEnd());
+        assertEquals(100L + 3 + 2 + 100 + 4 - 1, SamRecord.valueOf(LINE.replace("\t4M\t", "\t1S3M2D100N4M\t")).getReferenceEnd());
+        assertEquals(100L, SamRecord.valueOf(LINE.replace("\t4M\t", "\t*\t")).getReferenceEnd());
+        assertEquals(100L, SamRecord.valueOf(LINE.replace("\t4M\t", "\t4I\t")).getReferenceEnd());
+    }
+
+    @Test
+    public void testAlignedLengthAndSoftClips() {
+        SamRecord record = SamRecord.valueOf(LINE);
+        assertEquals(4, record.getAlignedLength());
+        assertFalse(record.isSoftClipped());
+        assertEquals(0, record.getLeadingSoftClipLength());
+        assertEquals(0, record.getTrailingSoftClipLength());
+
+        record = SamRecord.valueOf(LINE.replace("\t4M\t", "\t5H1S2=1X2S\t"));
+        assertEquals(3, record.getAlignedLength());
+        assertTrue(record.isSoftClipped());
+        assertEquals(1, record.getLeadingSoftClipLength());
+        assertEquals(2, record.getTrailingSoftClipLength());
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testReferenceEndInvalidCigar() {
+        SamRecord.valueOf(LINE.replace("\t4M\t", "\t4Q\t")).getReferenceEnd();
+    }
+
+    @Test
+    public void testEqualsHashCode() {
+        SamRecord record = SamRecord.valueOf(LINE);
+        Map<String, Annotation> annotations = ImmutableMap.of("NM", Annotation.valueOf("NM:i:0"),
+                                                              "RG", Annotation.valueOf("RG:Z:group1"),
+                                                              "XB", Annotation.valueOf("XB:B:i,1,2"));
+        SamRecord other = new SamRecord("read1", 99, "chr1", 100, 60, "4M", "=", 200, 104, "ACGT", "IIII", annotations);
+        assertEquals(other, record);
+        assertEquals(record, other);
+        assertEquals(other.hashCode(), record.hashCode());
+        assertEquals(record.hashCode(), SamRecord.valueOf(LINE).hashCode());
+        assertEquals(other.toString(), record.toString());
+        assertNotEquals(record, SamRecord.valueOf(LINE.replace("NM:i:0", "NM:i:1")));
+    }
+
+    @Test
+    public void testCompact() {
+        SamRecord record = SamRecord.valueOf(LINE);
+        assertFalse(record.isCompact());
+
+        SamRecord compact = record.compact();
+        assertTrue(compact.isCompact());
+        assertTrue(compact == compact.compact());
+        assertEquals("ACGT", compact.getSeq());
+        assertEquals("IIII", compact.getQual());
+        assertEquals("read1", compact.getQname());
+        assertEquals(104, compact.getTlen());
+        assertEquals("group1", compact.getRg());
+        assertEquals(4, compact.getAlignedLength());
+        assertEquals(record, compact);
+        assertEquals(compact, record);
+        assertEquals(record.hashCode(), compact.hashCode());
+        assertEquals(LINE, compact.toString());
+    }
+
+    @Test
+    public void testCompactOddLengthMissingQual() {
+        SamRecord compact = SamRecord.valueOf(LINE.replace("\t4M\t", "\t5M\t").replace("\tACGT\tIIII\t", "\tN=ACG\t*\t")).compact();
+        assertTrue(compact.isCompact());
+        assertEquals("N=ACG", compact.getSeq());
+        assertNull(compact.getQual());
+        assertFalse(compact.getQualOpt().isPresent());
+    }
+
+    @Test
+    public void testCompactNotRepresentable() {
+        SamRecord record = SamRecord.valueOf(LINE.replace("\tACGT\t", "\tacgt\t"));
+        assertTrue(record == record.compact());
+
+        record = SamRecord.valueOf(LINE.replace("\tACGT\tIIII\t", "\t*\t*\t"));
+        assertTrue(record == record.compact());
+
+        record = SamRecord.valueOf(LINE.replace("\tIIII\t", "\tIII\t"));
+        assertTrue(record == record.compact());
+    }
+
+    @Test
+    public void testCompactAnnotations() {
+        Map<String, Annotation> annotations = ImmutableMap.of("NM", Annotation.valueOf("NM:i:0"));
+        SamRecord compact = new SamRecord("read1", 0, "chr1", 100, 60, "4M", null, 0, 0, "ACGT", "IIII", annotations).compact();
+        assertTrue(compact.isCompact());
+        assertEquals(annotations, compact.getAnnotations());
+    }
 }
@@ -0,0 +1,285 @@
+/*
+
+    dsh-bio-alignment  Aligments.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.alignment.sam;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import com.google.common.collect.ImmutableList;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for SamSorter.
+ *
+ * @author  Michael Heuer
+ */
+public final class SamSorterTest {
+    private File tempDirectory;
+
+    private static final String HEADER = "@HD\tVN:1.6\tSO:unsorted\n"
+        + "@SQ\tSN:chr2\tLN:1000\n"
+        + "@SQ\tSN:chr1\tLN:1000\n";
+
+    private static final String UNSORTED = HEADER
+        + "b\t0\tchr1\t200\t60\t4M\t*\t0\t0\tACGT\tIIII\n"
+        + "c\t4\t*\t0\t0\t*\t*\t0\t0\tACGT\tIIII\n"
+        + "d\t16\tchr1\t100\t60\t4M\t*\t0\t0\tACGT\tIIII\n"
+        + "\n"
+        + "e\t0\tchr3\t1\t60\t4M\t*\t0\t0\tACGT\tIIII\n"
+        + "a\t0\tchr2\t300\t60\t4M\t*\t0\t0\tACGT\tIIII\tNM:i:0\n"
+        + "g\t0\tchr1\t100\t60\t4M\t*\t0\t0\tACGT\tIIII\n"
+        + "a\t0\tchr1\t100\t60\t4M\t*\t0\t0\tACGT\tIIII\n";
+
+    private static final String COORDINATE_SORTED = HEADER.replace("SO:unsorted", "SO:coordinate")
+        + "a\t0\tchr2\t300\t60\t4M\t*\t0\t0\tACGT\tIIII\tNM:i:0\n"
+        + "g\t0\tchr1\t100\t60\t4M\t*\t0\t0\tACGT\tIIII\n"
+        + "a\t0\tchr1\t100\t60\t4M\t*\t0\t0\tACGT\tIIII\n"
+        + "d\t16\tchr1\t100\t60\t4M\t*\t0\t0\tACGT\tIIII\n"
+        + "b\t0\tchr1\t200\t60\t4M\t*\t0\t0\tACGT\tIIII\n"
+        + "e\t0\tchr3\t1\t60\t4M\t*\t0\t0\tACGT\tIIII\n"
+        + "c\t4\t*\t0\t0\t*\t*\t0\t0\tACGT\tIIII\n";
+
+    private static final String QUERYNAME_SORTED = HEADER.replace("SO:unsorted", "SO:queryname")
+        + "a\t0\tchr2\t300\t60\t4M\t*\t0\t0\tACGT\tIIII\tNM:i:0\n"
+        + "a\t0\tchr1\t100\t60\t4M\t*\t0\t0\tACGT\tIIII\n"
+        + "b\t0\tchr1\t200\t60\t4M\t*\t0\t0\tACGT\tIIII\n"
+        + "c\t4\t*\t0\t0\t*\t*\t0\t0\tACGT\tIIII\n"
+        + "d\t16\tchr1\t100\t60\t4M\t*\t0\t0\tACGT\tIIII\n"
+        + "e\t0\tchr3\t1\t60\t4M\t*\t0\t0\tACGT\tIIII\n"
+        + "g\t0\tchr1\t100\t60\t4M\t*\t0\t0\tACGT\tIIII\n";
+
+    @Before
+    public void setUp() throws Exception {
+        tempDirectory = java.nio.file.Files.createTempDirectory("samSorterTest").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        for (File file : tempDirectory.listFiles()) {
+            file.delete();
+        }
+        tempDirectory.delete();
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testConstructorNullSortOrder() {
+        new SamSorter(null);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testConstructorInvalidMemory() {
+        new SamSorter(SamSorter.SortOrder.COORDINATE, 0L, null, 1);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testConstructorInvalidThreads() {
+        new SamSorter(SamSorter.SortOrder.COORDINATE, SamSorter.DEFAULT_MEMORY, null, 0);
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testSortNullReadable() throws Exception {
+        SamSorter.sort(null, new PrintWriter(new StringWriter()), SamSorter.SortOrder.COORDINATE);
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testSortNullWriter() throws Exception {
+        SamSorter.sort(new StringReader(UNSORTED), null, SamSorter.SortOrder.COORDINATE);
+    }
+
+    @Test(expected=IllegalStateException.class)
+    public void testSortTwice() throws Exception {
+        try (SamSorter sorter = new SamSorter(SamSorter.SortOrder.COORDINATE)) {
+            sorter.sort(new SamAdapter() {});
+            sorter.sort(new SamAdapter() {});
+        }
+    }
+
+    @Test(expected=IOException.class)
+    public void testSortInvalidPosExternal() throws Exception {
+        try {
+            sort(UNSORTED + "z\t0\tchr1\tfoo\t60\t4M\t*\t0\t0\tACGT\tIIII\n", SamSorter.SortOrder.COORDINATE, 1L, 2);
+        }
+        finally {
+            assertEquals(0, tempDirectory.listFiles().length);
+        }
+    }
+
+    @Test
+    public void testSortCoordinateInMemory() throws Exception {
+        assertEquals(COORDINATE_SORTED, sort(UNSORTED, SamSorter.SortOrder.COORDINATE, SamSorter.DEFAULT_MEMORY, 1));
+        assertEquals(0, tempDirectory.listFiles().length);
+    }
+
+    @Test
+    public void testSortCoordinateExternal() throws Exception {
+        assertEquals(COORDINATE_SORTED, sort(UNSORTED, SamSorter.SortOrder.COORDINATE, 1L, 1));
+        assertEquals(COORDINATE_SORTED, sort(UNSORTED, SamSorter.SortOrder.COORDINATE, 1L, 4));
+        assertEquals(0, tempDirectory.listFiles().length);
+    }
+
+    @Test
+    public void testSortQuerynameInMemory() throws Exception {
+        assertEquals(QUERYNAME_SORTED, sort(UNSORTED, SamSorter.SortOrder.QUERYNAME, SamSorter.DEFAULT_MEMORY, 1));
+    }
+
+    @Test
+    public void testSortQuerynameExternal() throws Exception {
+        assertEquals(QUERYNAME_SORTED, sort(UNSORTED, SamSorter.SortOrder.QUERYNAME, 1L, 1));
+        assertEquals(QUERYNAME_SORTED, sort(UNSORTED, SamSorter.SortOrder.QUERYNAME, 1L, 4));
+        assertEquals(0, tempDirectory.listFiles().length);
+    }
+
+    @Test
+    public void testSortQuerynameSegments() throws Exception {
+        String unsorted = HEADER
+            + "a\t131\tchr1\t200\t60\t4M\t=\t100\t0\tACGT\tIIII\n"
+            + "a\t2115\tchr2\t100\t60\t4M\t*\t0\t0\tACGT\tIIII\n"
+            + "a\t67\tchr1\t100\t60\t4M\t=\t200\t0\tACGT\tIIII\n";
+        String sorted = HEADER.replace("SO:unsorted", "SO:queryname")
+            + "a\t67\tchr1\t100\t60\t4M\t=\t200\t0\tACGT\tIIII\n"
+            + "a\t2115\tchr2\t100\t60\t4M\t*\t0\t0\tACGT\tIIII\n"
+            + "a\t131\tchr1\t200\t60\t4M\t=\t100\t0\tACGT\tIIII\n";
+        assertEquals(sorted, sort(unsorted, SamSorter.SortOrder.QUERYNAME, SamSorter.DEFAULT_MEMORY, 1));
+        assertEquals(sorted, sort(unsorted, SamSorter.SortOrder.QUERYNAME, 1L, 2));
+    }
+
+    @Test
+    public void testSortHeaderOnly() throws Exception {
+        assertEquals(HEADER.replace("SO:unsorted", "SO:coordinate"), sort(HEADER, SamSorter.SortOrder.COORDINATE, 1L, 1));
+    }
+
+    @Test
+    public void testSortNoHeaderLine() throws Exception {
+        assertEquals("@HD\tVN:1.6\tSO:queryname\n"
+                     + "a\t4\t*\t0\t0\t*\t*\t0\t0\t*\t*\n"
+                     + "b\t4\t*\t0\t0\t*\t*\t0\t0\t*\t*\n",
+                     sort("b\t4\t*\t0\t0\t*\t*\t0\t0\t*\t*\n"
+                          + "a\t4\t*\t0\t0\t*\t*\t0\t0\t*\t*\n", SamSorter.SortOrder.QUERYNAME, SamSorter.DEFAULT_MEMORY, 1));
+    }
+
+    @Test
+    public void testSortManyRuns() throws Exception {
+        List<String> lines = new ArrayList<String>();
+        for (int i = 0; i < 10 * SamSorter.MAX_RUNS; i++) {
+            lines.add("r" + i + "\t0\t" + (i % 2 == 0 ? "chr1" : "chr2") + "\t" + (i / 4 + 1) + "\t60\t4M\t*\t0\t0\tACGT\tIIII\n");
+        }
+        StringBuilder sorted = new StringBuilder(HEADER.replace("SO:unsorted", "SO:coordinate"));
+        for (int i = 1; i < lines.size(); i += 2) {
+            sorted.append(lines.get(i));
+        }
+        for (int i = 0; i < lines.size(); i += 2) {
+            sorted.append(lines.get(i));
+        }
+
+        // shuffle blocks of lines at the same position, keeping input order within each position
+        List<List<String>> blocks = new ArrayList<List<String>>();
+        for (int i = 0; i < lines.size(); i += 4) {
+            blocks.add(lines.subList(i, i + 4));
+        }
+        Collections.shuffle(blocks, new Random(42L));
+        StringBuilder unsorted = new StringBuilder(HEADER);
+        for (List<String> block : blocks) {
+            for (String line : block) {
+                unsorted.append(line);
+            }
+        }
+
+        // 1000 bytes of memory per thread holds only a few lines, forcing intermediate merges
+        assertEquals(sorted.toString(), sort(unsorted.toString(), SamSorter.SortOrder.COORDINATE, 2000L, 1));
+        assertEquals(sorted.toString(), sort(unsorted.toString(), SamSorter.SortOrder.COORDINATE, 5000L, 4));
+        assertEquals(sorted.toString(), sort(unsorted.toString(), SamSorter.SortOrder.COORDINATE, SamSorter.DEFAULT_MEMORY, 4));
+        assertEquals(0, tempDirectory.listFiles().length);
+    }
+
+    @Test
+    public void testSortListener() throws Exception {
+        final List<SamHeader> headers = new ArrayList<SamHeader>();
+        final List<SamRecord> records = new ArrayList<SamRecord>();
+        try (SamSorter sorter = new SamSorter(SamSorter.SortOrder.COORDINATE, 4096L, tempDirectory, 2)) {
+            SamReader.stream(new InputStreamReader(getClass().getResourceAsStream("NA12878-platinum-chr20.1-60250.sam")), sorter);
+            sorter.sort(new SamListener() {
+                    @Override
+                    public boolean header(final SamHeader header) {
+                        headers.add(header);
+                        return true;
+                    }
+
+                    @Override
+                    public boolean record(final SamRecord record) {
+                        records.add(record);
+                        return true;
+                    }
+                });
+        }
+        assertEquals(0, tempDirectory.listFiles().length);
+        assertEquals(1, headers.size());
+        assertEquals("coordinate", headers.get(0).getHeaderLineOpt().get().getSo());
+        List<SamRecord> expected = ImmutableList.copyOf(SamReader.records(getClass().getResourceAsStream("NA12878-platinum-chr20.1-60250.sam")));
+        assertEquals(expected.size(), records.size());
+        assertTrue(records.containsAll(expected));
+        for (int i = 1; i < records.size(); i++) {
+            assertTrue(records.get(i - 1).getPos() <= records.get(i).getPos());
+        }
+    }
+
+    @Test
+    public void testSortListenerStop() throws Exception {
+        final List<SamRecord> records = new ArrayList<SamRecord>();
+        try (SamSorter sorter = new SamSorter(SamSorter.SortOrder.QUERYNAME, 1L, tempDirectory, 1)) {
+            SamReader.stream(new StringReader(UNSORTED), sorter);
+            sorter.sort(new SamAdapter() {
+                    @Override
+                    public boolean record(final SamRecord record) {
+                        records.add(record);
+                        return records.size() < 2;
+                    }
+                });
+        }
+        assertEquals(2, records.size());
+        assertEquals(0, tempDirectory.listFiles().length);
+    }
+
+    private String sort(final String sam, final SamSorter.SortOrder sortOrder, final long memory, final int threads) throws IOException {
+        StringWriter stringWriter = new StringWriter();
+        PrintWriter writer = new PrintWriter(stringWriter);
+        SamSorter.sort(new StringReader(sam), writer, sortOrder, memory, tempDirectory, threads);
+        writer.flush();
+        return stringWriter.toString().replace(System.lineSeparator(), "\n");
+    }
+}
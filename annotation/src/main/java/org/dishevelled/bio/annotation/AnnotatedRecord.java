@@ -40,8 +40,11 @@ import com.google.common.collect.ImmutableMap;
  * @author  Michael Heuer
  */
 public abstract class AnnotatedRecord {
-    /** Map of annotations keyed by annotation name. */
-    private final Map<String, Annotation> annotations;
+    /** Map of annotations keyed by annotation name, parsed from raw annotations on first access if necessary. */
+    private volatile Map<String, Annotation> annotations;
+
+    /** Raw annotations, if any. */
+    private final String rawAnnotations;
 
 
     /**
@@ -52,18 +55,62 @@ public abstract class AnnotatedRecord {
     protected AnnotatedRecord(final Map<String, Annotation> annotations) {
         checkNotNull(annotations);
         this.annotations = ImmutableMap.copyOf(annotations);
+        this.rawAnnotations = null;
+    }
+
+    /**
+     * Create a new annotated record with the specified raw annotations, to be parsed
+     * on first access.
+     *
+     * @param rawAnnotations raw annotations, tab-separated annotations in <code>NAME:TYPE:VALUE</code>
+     *    format, must not be null
+     */
+    protected AnnotatedRecord(final String rawAnnotations) {
+        checkNotNull(rawAnnotations);
+        this.annotations = rawAnnotations.isEmpty() ? ImmutableMap.<String, Annotation>of() : null;
+        this.rawAnnotations = rawAnnotations;
+    }
+
+    /**
+     * Create a new annotated record with the annotations of the specified annotated record.
+     * If the specified annotated record was created with raw annotations, only the raw
+     * annotations are copied, to be parsed on first access.
+     *
+     * @param record annotated record to copy annotations from, must not be null
+     */
+    protected AnnotatedRecord(final AnnotatedRecord record) {
+        checkNotNull(record);
+        this.rawAnnotations = record.rawAnnotations;
+        this.annotations = rawAnnotations == null ? record.annotations : (rawAnnotations.isEmpty() ? ImmutableMap.<String, Annotation>of() : null);
     }
 
 
     /**
      * Return an immutable map of annotations keyed by annotation name
-     * for this record.
+     * for this record.  If this record was created with raw annotations,
+     * the raw annotations are parsed on first access.
      *
      * @return an immutable map of annotations keyed by annotation name
      *    for this record
+     * @throws IllegalArgumentException if the raw annotations for this record are not valid
      */
     public final Map<String, Annotation> getAnnotations() {
-        return annotations;
+        Map<String, Annotation> result = annotations;
+        if (result == null) {
+            result = parseAnnotations(rawAnnotations);
+            annotations = result;
+        }
+        return result;
+    }
+
+    /**
+     * Return the raw annotations for this record, if this record was created with raw annotations.
+     *
+     * @return the raw annotations for this record, or <code>null</code> if this record was
+     *    created with a map of annotations
+     */
+    protected final String getRawAnnotations() {
+        return rawAnnotations;
     }
 
     /**
@@ -74,7 +121,7 @@ public abstract class AnnotatedRecord {
      */
     public final Annotation getAnnotation(final String key) {
         checkNotNull(key);
-        return annotations.get(key);
+        return getAnnotations().get(key);
     }
 
     /**
@@ -96,7 +143,7 @@ public abstract class AnnotatedRecord {
      * @return true if this record contains the specified annotation key
      */
     public final boolean containsAnnotationKey(final String key) {
-        return annotations.containsKey(key);
+        return getAnnotations().containsKey(key);
     }
 
     /**
@@ -106,7 +153,7 @@ public abstract class AnnotatedRecord {
      * @return the Type=A field value for the specified key parsed into a character
      */
     public final char getAnnotationCharacter(final String key) {
-        return parseCharacter(key, annotations);
+        return parseCharacter(key, getAnnotations());
     }
 
     /**
@@ -116,7 +163,7 @@ public abstract class AnnotatedRecord {
      * @return the Type=f field value for the specified key parsed into a float
      */
     public final float getAnnotationFloat(final String key) {
-        return parseFloat(key, annotations);
+        return parseFloat(key, getAnnotations());
     }
 
     /**
@@ -126,7 +173,7 @@ public abstract class AnnotatedRecord {
      * @return the Type=i field value for the specified key parsed into an integer
      */
     public final int getAnnotationInteger(final String key) {
-        return parseInteger(key, annotations);
+        return parseInteger(key, getAnnotations());
     }
 
     /**
@@ -136,7 +183,7 @@ public abstract class AnnotatedRecord {
      * @return the Type=H field value for the specified key parsed into a byte array
      */
     public final byte[] getAnnotationByteArray(final String key) {
-        return parseByteArray(key, annotations);
+        return parseByteArray(key, getAnnotations());
     }
 
     /**
@@ -146,7 +193,7 @@ public abstract class AnnotatedRecord {
      * @return the Type=H field value for the specified key parsed into an immutable list of bytes
      */
     public final List<Byte> getAnnotationBytes(final String key) {
-        return parseBytes(key, annotations);
+        return parseBytes(key, getAnnotations());
     }
 
     /**
@@ -156,7 +203,7 @@ public abstract class AnnotatedRecord {
      * @return the Type=Z field value for the specified key parsed into a string
      */
     public final String getAnnotationString(final String key) {
-        return parseString(key, annotations);
+        return parseString(key, getAnnotations());
     }
 
     /**
@@ -168,7 +215,7 @@ public abstract class AnnotatedRecord {
      *    into an immutable list of floats
      */
     public final List<Float> getAnnotationFloats(final String key) {
-        return parseFloats(key, annotations);
+        return parseFloats(key, getAnnotations());
     }
 
     /**
@@ -180,7 +227,7 @@ public abstract class AnnotatedRecord {
      *    into an immutable list of integers
      */
     public final List<Integer> getAnnotationIntegers(final String key) {
-        return parseIntegers(key, annotations);
+        return parseIntegers(key, getAnnotations());
     }
 
     /**
@@ -266,4 +313,27 @@ public abstract class AnnotatedRecord {
     public final Optional<List<Integer>> getAnnotationIntegersOpt(final String key) {
         return Optional.ofNullable(containsAnnotationKey(key) ? getAnnotationIntegers(key) : null);
     }
+
+    /**
+     * Parse the specified raw annotations into an immutable map of annotations keyed by annotation name.
+     *
+     * @param rawAnnotations raw annotations, tab-separated annotations in <code>NAME:TYPE:VALUE</code> format
+     * @return the specified raw annotations parsed into an immutable map of annotations keyed by annotation name
+     * @throws IllegalArgumentException if the specified raw annotations are not valid
+     */
+    private static Map<String, Annotation> parseAnnotations(final String rawAnnotations) {
+        ImmutableMap.Builder<String, Annotation> builder = ImmutableMap.builder();
+        for (int start = 0, length = rawAnnotations.length(); start <= length; ) {
+            int end = rawAnnotations.indexOf('\t', start);
+            if (end < 0) {
+                end = length;
+            }
+            if (end > start) {
+                Annotation annotation = Annotation.valueOf(rawAnnotations.substring(start, end));
+                builder.put(annotation.getName(), annotation);
+            }
+            start = end + 1;
+        }
+        return builder.build();
+    }
 }
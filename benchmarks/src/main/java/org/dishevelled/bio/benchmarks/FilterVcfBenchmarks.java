@@ -25,15 +25,30 @@ package org.dishevelled.bio.benchmarks;
 
 import static org.dishevelled.bio.benchmarks.Utils.copyResource;
 
+import static org.dishevelled.compress.Readers.reader;
+
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.PrintWriter;
 
 import java.nio.file.Path;
 
+import java.util.List;
+
 import com.google.common.collect.ImmutableList;
 
+import com.google.common.io.CharStreams;
+
 import org.dishevelled.bio.tools.FilterVcf;
 import org.dishevelled.bio.tools.FilterVcf.QualFilter;
 
+import org.dishevelled.bio.variant.vcf.BufferedVcfWriter;
+import org.dishevelled.bio.variant.vcf.VcfHeader;
+import org.dishevelled.bio.variant.vcf.VcfReader;
+import org.dishevelled.bio.variant.vcf.VcfRecord;
+import org.dishevelled.bio.variant.vcf.VcfSample;
+import org.dishevelled.bio.variant.vcf.VcfWriter;
+
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.Level;
 import org.openjdk.jmh.annotations.Scope;
@@ -50,6 +65,29 @@ import org.openjdk.jmh.annotations.TearDown;
 public class FilterVcfBenchmarks {
     private Path inputVcfFile;
     private File outputVcfFile;
+    private VcfHeader header;
+    private List<VcfSample> samples;
+    private List<VcfRecord> records;
+
+    @Setup(Level.Trial)
+    public void setUpRecords() throws Exception {
+        Path path = File.createTempFile("filterVcfBenchmarks", ".vcf.gz").toPath();
+        try {
+            copyResource("HG001_GRCh38_GIAB_highconf_CG-IllFB-IllGATKHC-Ion-10X-SOLID_CHROM1-X_v.3.3.2_highconf_PGandRTGphasetransfer.10k.0.vcf.gz", path);
+            try (BufferedReader reader = reader(path)) {
+                header = VcfReader.header(reader);
+            }
+            try (BufferedReader reader = reader(path)) {
+                samples = ImmutableList.copyOf(VcfReader.samples(reader));
+            }
+            try (BufferedReader reader = reader(path)) {
+                records = ImmutableList.copyOf(VcfReader.records(reader, true));
+            }
+        }
+        finally {
+            path.toFile().delete();
+        }
+    }
 
     @Setup(Level.Invocation)
     public void setUp() throws Exception {
@@ -69,4 +107,20 @@ public class FilterVcfBenchmarks {
     public void filterVcfByQualityScore() throws Exception {
         new FilterVcf(ImmutableList.of(new QualFilter(30.0d)), inputVcfFile, outputVcfFile).call();
     }
+
+    @Benchmark
+    public void writeVcfRecords() throws Exception {
+        try (PrintWriter writer = new PrintWriter(CharStreams.nullWriter())) {
+            VcfWriter.write(header, samples, records, writer);
+        }
+    }
+
+    @Benchmark
+    public void writeVcfRecordsBuffered() throws Exception {
+        try (BufferedVcfWriter writer = new BufferedVcfWriter(CharStreams.nullWriter())) {
+            writer.writeHeader(header);
+            writer.writeColumnHeader(samples);
+            writer.writeRecords(samples, records);
+        }
+    }
 }
@@ -102,6 +102,20 @@ public class SamCollectBenchmarks {
         }
     }
 
+    @Benchmark
+    public void collectCompactSamLargeCapacityArrayList() throws Exception {
+        Collect collect = new Collect(new ArrayList<SamRecord>(10_000_000), true);
+        streamRecords(inputSamFile, collect);
+
+        int count = 0;
+        for (SamRecord record : collect.records()) {
+            count++;
+        }
+        if (count < EXPECTED_COUNT) {
+            throw new Exception("incorrect count, " + count);
+        }
+    }
+
     @Benchmark
     public void collectSamLinkedList() throws Exception {
         Collect collect = new Collect(new LinkedList<SamRecord>());
@@ -130,6 +144,59 @@ public class SamCollectBenchmarks {
         }
     }
 
+    /**
+     * Return the approximate retained heap size per collected SAM record, in bytes.
+     *
+     * @param inputSamFile input SAM file
+     * @param compact true to collect compact SAM records
+     * @return the approximate retained heap size per collected SAM record, in bytes
+     * @throws Exception if an error occurs
+     */
+    static long bytesPerRecord(final File inputSamFile, final boolean compact) throws Exception {
+        long before = usedHeap();
+        Collect collect = new Collect(new ArrayList<SamRecord>(), compact);
+        streamRecords(inputSamFile, collect);
+        long after = usedHeap();
+        int count = collect.records().size();
+        return count == 0 ? 0L : (after - before) / count;
+    }
+
+    /**
+     * Return the used heap size after garbage collection, in bytes.
+     *
+     * @return the used heap size after garbage collection, in bytes
+     */
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Measure the approximate retained heap size per collected SAM record, with and without compact SAM records.
+     *
+     * @param args command line arguments, ignored
+     * @throws Exception if an error occurs
+     */
+    public static void main(final String[] args) throws Exception {
+        File inputSamFile = File.createTempFile("samCollectBenchmarks", ".sam");
+        try {
+            copyResource("CEUTrio.HiSeq.WGS.b37.NA12878.20.21.10k.sam", inputSamFile.toPath());
+
+            // warm up
+            bytesPerRecord(inputSamFile, false);
+            bytesPerRecord(inputSamFile, true);
+
+            System.out.println("default " + bytesPerRecord(inputSamFile, false) + " bytes per record");
+            System.out.println("compact " + bytesPerRecord(inputSamFile, true) + " bytes per record");
+        }
+        finally {
+            inputSamFile.delete();
+        }
+    }
+
     /**
      * Collect.
      */
@@ -137,19 +204,33 @@ public class SamCollectBenchmarks {
         /** List of SAM records. */
         private final Collection<SamRecord> records;
 
+        /** True to collect compact SAM records. */
+        private final boolean compact;
+
         /**
          * Create a new collect adapter with the specified collection implementation.
          *
          * @param records list of SAM records
          */
         private Collect(final Collection<SamRecord> records) {
+            this(records, false);
+        }
+
+        /**
+         * Create a new collect adapter with the specified collection implementation.
+         *
+         * @param records list of SAM records
+         * @param compact true to collect compact SAM records
+         */
+        private Collect(final Collection<SamRecord> records, final boolean compact) {
             this.records = records;
+            this.compact = compact;
         }
 
 
         @Override
         public boolean record(final SamRecord record) {
-            records.add(record);
+            records.add(compact ? record.compact() : record);
             return true;
         }
 
@@ -0,0 +1,164 @@
+/*
+
+    dsh-bio-benchmarks.  Benchmarks.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.benchmarks;
+
+import java.io.StringReader;
+
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+
+import org.dishevelled.bio.variant.ann.SnpEffAnnotations;
+import org.dishevelled.bio.variant.ann.SnpEffVariantAnnotation;
+
+import org.dishevelled.bio.variant.vcf.VcfReader;
+import org.dishevelled.bio.variant.vcf.VcfRecord;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * SnpEff variant annotation benchmarks.
+ *
+ * @author  Michael Heuer
+ */
+@State(Scope.Thread)
+public class SnpEffAnnotationBenchmarks {
+    private List<VcfRecord> records;
+
+    /** Number of records. */
+    private static final int RECORDS = 1000;
+
+    /** Number of transcript annotations per record. */
+    private static final int TRANSCRIPTS = 60;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        sb.append("##fileformat=VCFv4.2\n");
+        sb.append("##INFO=<ID=ANN,Number=.,Type=String,Description=\"Functional annotations\">\n");
+        sb.append("#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\n");
+        for (int i = 0; i < RECORDS; i++) {
+            sb.append("1\t");
+            sb.append(1000 + i);
+            sb.append("\t.\tC\tT\t30\tPASS\tANN=");
+            for (int j = 0; j < TRANSCRIPTS; j++) {
+                if (j > 0) {
+                    sb.append(",");
+                }
+                // one HIGH impact annotation in every tenth record, at the end
+                boolean high = (i % 10 == 0) && (j == TRANSCRIPTS - 1);
+                sb.append("T|");
+                sb.append(high ? "stop_gained" : "downstream_gene_variant");
+                sb.append("|");
+                sb.append(high ? "HIGH" : "MODIFIER");
+                sb.append("|GENE");
+                sb.append(j % 5);
+                sb.append("|ENSG0000010740");
+                sb.append(j % 5);
+                sb.append("|transcript|ENST000003788");
+                sb.append(j);
+                sb.append(".9|protein_coding|2/15|c.*5281G>A|p.Arg12Cys|100/2000|90/1500|30/500|4415|");
+            }
+            sb.append("\n");
+        }
+        records = ImmutableList.copyOf(VcfReader.records(new StringReader(sb.toString())));
+    }
+
+    @Benchmark
+    public int anyHighImpact() {
+        int count = 0;
+        for (VcfRecord record : records) {
+            for (SnpEffVariantAnnotation annotation : SnpEffVariantAnnotation.annotate(record)) {
+                if ("HIGH".equals(annotation.getAnnotationImpact())) {
+                    count++;
+                    break;
+                }
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int anyHighImpactLazy() {
+        int count = 0;
+        for (VcfRecord record : records) {
+            if (SnpEffAnnotations.valueOf(record).anyImpact("HIGH")) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int anyEffect() {
+        int count = 0;
+        for (VcfRecord record : records) {
+            for (SnpEffVariantAnnotation annotation : SnpEffVariantAnnotation.annotate(record)) {
+                if (annotation.getEffects().contains("stop_gained")) {
+                    count++;
+                    break;
+                }
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int anyEffectLazy() {
+        int count = 0;
+        for (VcfRecord record : records) {
+            if (SnpEffAnnotations.valueOf(record).anyEffect("stop_gained")) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int geneNames() {
+        int length = 0;
+        for (VcfRecord record : records) {
+            for (SnpEffVariantAnnotation annotation : SnpEffVariantAnnotation.annotate(record)) {
+                length += annotation.getGeneName().length();
+            }
+        }
+        return length;
+    }
+
+    @Benchmark
+    public int geneNamesLazy() {
+        int length = 0;
+        for (VcfRecord record : records) {
+            SnpEffAnnotations annotations = SnpEffAnnotations.valueOf(record);
+            for (int i = 0, size = annotations.size(); i < size; i++) {
+                length += annotations.getGeneName(i).length();
+            }
+        }
+        return length;
+    }
+}
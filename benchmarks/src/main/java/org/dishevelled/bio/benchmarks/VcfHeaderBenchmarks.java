@@ -0,0 +1,147 @@
+/*
+
+    dsh-bio-benchmarks.  Benchmarks.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.benchmarks;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+
+import java.nio.charset.StandardCharsets;
+
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.dishevelled.bio.variant.vcf.VcfHeader;
+import org.dishevelled.bio.variant.vcf.VcfPedigree;
+import org.dishevelled.bio.variant.vcf.VcfReader;
+import org.dishevelled.bio.variant.vcf.VcfSample;
+import org.dishevelled.bio.variant.vcf.VcfStreamAdapter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * VCF header, samples, and pedigree benchmarks.  The header-only methods should
+ * have constant cost regardless of the number of records.
+ *
+ * @author  Michael Heuer
+ */
+@State(Scope.Thread)
+public class VcfHeaderBenchmarks {
+    private File vcfFile;
+    private File gzipVcfFile;
+
+    /** Number of records. */
+    @Param({"1000", "100000", "1000000"})
+    public int records;
+
+    /** Number of samples. */
+    private static final int SAMPLES = 12;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        vcfFile = File.createTempFile("vcfHeaderBenchmarks", ".vcf");
+        gzipVcfFile = File.createTempFile("vcfHeaderBenchmarks", ".vcf.gz");
+        try (PrintWriter writer = new PrintWriter(new OutputStreamWriter(new FileOutputStream(vcfFile), StandardCharsets.UTF_8));
+             PrintWriter gzipWriter = new PrintWriter(new OutputStreamWriter(new GZIPOutputStream(new FileOutputStream(gzipVcfFile)), StandardCharsets.UTF_8))) {
+            write(writer);
+            write(gzipWriter);
+        }
+    }
+
+    private void write(final PrintWriter writer) {
+        writer.println("##fileformat=VCFv4.2");
+        writer.println("##contig=<ID=1,length=249250621>");
+        writer.println("##FORMAT=<ID=GT,Number=1,Type=String,Description=\"Genotype\">");
+        StringBuilder columnHeader = new StringBuilder("#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\tFORMAT");
+        for (int i = 0; i < SAMPLES; i += 3) {
+            writer.println("##PEDIGREE=<Child=S" + i + ",Mother=S" + (i + 1) + ",Father=S" + (i + 2) + ">");
+        }
+        for (int i = 0; i < SAMPLES; i++) {
+            columnHeader.append("\tS");
+            columnHeader.append(i);
+        }
+        writer.println(columnHeader);
+        for (int i = 0; i < records; i++) {
+            writer.print("1\t");
+            writer.print(1000 + i);
+            writer.print("\t.\tC\tT\t30\tPASS\t.\tGT");
+            for (int j = 0; j < SAMPLES; j++) {
+                writer.print((i + j) % 3 == 0 ? "\t0/1" : "\t0/0");
+            }
+            writer.println();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        vcfFile.delete();
+        gzipVcfFile.delete();
+    }
+
+    @Benchmark
+    public VcfHeader header() throws Exception {
+        return VcfReader.header(vcfFile);
+    }
+
+    @Benchmark
+    public VcfHeader headerGzip() throws Exception {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(new FileInputStream(gzipVcfFile)), StandardCharsets.UTF_8))) {
+            return VcfReader.header(reader);
+        }
+    }
+
+    @Benchmark
+    public Iterable<VcfSample> samples() throws Exception {
+        return VcfReader.samples(vcfFile);
+    }
+
+    @Benchmark
+    public VcfPedigree pedigree() throws Exception {
+        return VcfReader.pedigree(vcfFile);
+    }
+
+    @Benchmark
+    public int streamSamples() throws Exception {
+        final int[] count = new int[1];
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(vcfFile), StandardCharsets.UTF_8))) {
+            VcfReader.stream(reader, new VcfStreamAdapter() {
+                    @Override
+                    public void sample(final VcfSample sample) {
+                        count[0]++;
+                    }
+                }, true);
+        }
+        return count[0];
+    }
+}
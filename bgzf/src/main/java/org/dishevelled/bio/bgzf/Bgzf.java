@@ -0,0 +1,328 @@
+/*
+
+    dsh-bio-bgzf  BGZF (blocked GNU zip format) support.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.bgzf;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import java.util.Arrays;
+
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * BGZF (blocked GNU zip format) support.
+ *
+ * @since 4.1
+ * @author  Michael Heuer
+ */
+public final class Bgzf {
+    /** Maximum size of a BGZF block, compressed or uncompressed. */
+    static final int MAX_BLOCK_SIZE = 64 * 1024;
+
+    /** Maximum size of uncompressed data per BGZF block when deflating. */
+    static final int MAX_DATA_SIZE = 0xff00;
+
+    /** Empty BGZF block marking the end of a BGZF file. */
+    static final byte[] EOF_BLOCK = new byte[] {
+        0x1f, (byte) 0x8b, 0x08, 0x04, 0x00, 0x00, 0x00, 0x00, 0x00, (byte) 0xff, 0x06, 0x00, 0x42, 0x43, 0x02, 0x00,
+        0x1b, 0x00, 0x03, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00
+    };
+
+    /** Size of the fixed part of a BGZF block header, before the extra subfields. */
+    private static final int HEADER_SIZE = 12;
+
+    /** Size of the BGZF block header written when deflating, including the BC extra subfield. */
+    private static final int BLOCK_HEADER_SIZE = 18;
+
+    /** Size of the BGZF block footer, CRC32 and ISIZE. */
+    private static final int FOOTER_SIZE = 8;
+
+
+    /**
+     * Private no-arg constructor.
+     */
+    private Bgzf() {
+        // empty
+    }
+
+
+    /**
+     * Return true if the specified path starts with a BGZF block.
+     *
+     * @param path path, must not be null
+     * @return true if the specified path starts with a BGZF block
+     * @throws IOException if an I/O error occurs
+     */
+    public static boolean isBgzf(final Path path) throws IOException {
+        checkNotNull(path);
+        byte[] header = new byte[BLOCK_HEADER_SIZE];
+        try (InputStream inputStream = Files.newInputStream(path)) {
+            int n = 0;
+            while (n < header.length) {
+                int read = inputStream.read(header, n, header.length - n);
+                if (read < 0) {
+                    return false;
+                }
+                n += read;
+            }
+        }
+        return isBlockHeader(header)
+            && unsignedShort(header, 10) == 6
+            && header[12] == 'B'
+            && header[13] == 'C'
+            && unsignedShort(header, 14) == 2;
+    }
+
+    /**
+     * Read the next BGZF block from the specified input stream into the specified array.
+     *
+     * @param inputStream input stream to read from
+     * @param block array to read into, must be at least <code>MAX_BLOCK_SIZE</code> in length
+     * @return the size of the block, or <code>-1</code> if the end of the input stream has been reached
+     * @throws IOException if an I/O error occurs or the block is not valid
+     */
+    static int readBlock(final InputStream inputStream, final byte[] block) throws IOException {
+        int first = inputStream.read();
+        if (first < 0) {
+            return -1;
+        }
+        block[0] = (byte) first;
+        readFully(inputStream, block, 1, HEADER_SIZE - 1);
+        if (!isBlockHeader(block)) {
+            throw new IOException("invalid BGZF block header");
+        }
+        int xlen = unsignedShort(block, 10);
+        readFully(inputStream, block, HEADER_SIZE, xlen);
+
+        int size = -1;
+        for (int i = HEADER_SIZE; i + 4 <= HEADER_SIZE + xlen; ) {
+            int slen = unsignedShort(block, i + 2);
+            if (block[i] == 'B' && block[i + 1] == 'C' && slen == 2) {
+                size = unsignedShort(block, i + 4) + 1;
+                break;
+            }
+            i += 4 + slen;
+        }
+        if (size < HEADER_SIZE + xlen + FOOTER_SIZE || size > MAX_BLOCK_SIZE) {
+            throw new IOException("invalid BGZF block, missing or invalid BSIZE field");
+        }
+        readFully(inputStream, block, HEADER_SIZE + xlen, size - HEADER_SIZE - xlen);
+        return size;
+    }
+
+    /**
+     * Inflate the specified BGZF block into the specified array.
+     *
+     * @param block BGZF block
+     * @param size size of the BGZF block
+     * @param data array to inflate into, must be at least <code>MAX_BLOCK_SIZE</code> in length
+     * @param inflater inflater, configured to not wrap
+     * @return the number of bytes inflated
+     * @throws IOException if the block is not valid
+     */
+    static int inflateBlock(final byte[] block, final int size, final byte[] data, final Inflater inflater) throws IOException {
+        int xlen = unsignedShort(block, 10);
+        int start = HEADER_SIZE + xlen;
+        int length = size - start - FOOTER_SIZE;
+        int isize = (int) unsignedInt(block, size - 4);
+        if (isize > MAX_BLOCK_SIZE) {
+            throw new IOException("invalid BGZF block, ISIZE " + isize + " too large");
+        }
+        inflater.reset();
+        inflater.setInput(block, start, length);
+        try {
+            int n = 0;
+            while (n < isize) {
+                int inflated = inflater.inflate(data, n, isize - n);
+                if (inflated == 0) {
+                    break;
+                }
+                n += inflated;
+            }
+            if (n != isize) {
+                throw new IOException("invalid BGZF block, expected " + isize + " bytes, inflated " + n);
+            }
+            return n;
+        }
+        catch (DataFormatException e) {
+            throw new IOException("invalid BGZF block, caught " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Deflate the specified data into the specified BGZF block with the specified deflater.
+     * If the data do not fit in a BGZF block at the specified compression level, they are
+     * stored uncompressed.  The deflater is reset before use, so it may be reused across blocks.
+     *
+     * @param data data to deflate
+     * @param length length of data to deflate, must not be greater than <code>MAX_DATA_SIZE</code>
+     * @param block block to deflate into, must be at least <code>MAX_BLOCK_SIZE</code> in length
+     * @param deflater deflater, configured to not wrap
+     * @param level compression level
+     * @return the size of the BGZF block
+     */
+    static int deflateBlock(final byte[] data, final int length, final byte[] block, final Deflater deflater, final int level) {
+        int capacity = MAX_BLOCK_SIZE - BLOCK_HEADER_SIZE - FOOTER_SIZE;
+        deflater.reset();
+        deflater.setLevel(level);
+        deflater.setInput(data, 0, length);
+        deflater.finish();
+        int n = deflate(deflater, block, capacity);
+        if (!deflater.finished()) {
+            deflater.reset();
+            deflater.setLevel(Deflater.NO_COMPRESSION);
+            deflater.setInput(data, 0, length);
+            deflater.finish();
+            n = deflate(deflater, block, capacity);
+        }
+        int size = BLOCK_HEADER_SIZE + n + FOOTER_SIZE;
+        Arrays.fill(block, 0, BLOCK_HEADER_SIZE, (byte) 0);
+        block[0] = 31;
+        block[1] = (byte) 139;
+        block[2] = 8;
+        block[3] = 4;
+        block[9] = (byte) 255;
+        block[10] = 6;
+        block[12] = 'B';
+        block[13] = 'C';
+        block[14] = 2;
+        writeShort(block, 16, size - 1);
+
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, length);
+        writeInt(block, size - 8, (int) crc.getValue());
+        writeInt(block, size - 4, length);
+        return size;
+    }
+
+    /**
+     * Deflate into the specified block after its header, up to the specified capacity.
+     *
+     * @param deflater deflater
+     * @param block block
+     * @param capacity capacity
+     * @return the number of bytes deflated
+     */
+    private static int deflate(final Deflater deflater, final byte[] block, final int capacity) {
+        int n = 0;
+        while (!deflater.finished() && n < capacity) {
+            int deflated = deflater.deflate(block, BLOCK_HEADER_SIZE + n, capacity - n);
+            if (deflated == 0 && deflater.needsInput()) {
+                break;
+            }
+            n += deflated;
+        }
+        return n;
+    }
+
+    /**
+     * Return true if the specified array starts with a gzip header with the extra field flag set.
+     *
+     * @param header header
+     * @return true if the specified array starts with a gzip header with the extra field flag set
+     */
+    static boolean isBlockHeader(final byte[] header) {
+        return (header[0] & 0xff) == 31
+            && (header[1] & 0xff) == 139
+            && (header[2] & 0xff) == 8
+            && (header[3] & 4) != 0;
+    }
+
+    /**
+     * Read exactly the specified number of bytes from the specified input stream.
+     *
+     * @param inputStream input stream
+     * @param bytes array to read into
+     * @param offset offset
+     * @param length number of bytes to read
+     * @throws IOException if an I/O error occurs or the end of the input stream is reached
+     */
+    private static void readFully(final InputStream inputStream, final byte[] bytes, final int offset, final int length) throws IOException {
+        int n = 0;
+        while (n < length) {
+            int read = inputStream.read(bytes, offset + n, length - n);
+            if (read < 0) {
+                throw new EOFException("truncated BGZF block");
+            }
+            n += read;
+        }
+    }
+
+    /**
+     * Return the little-endian unsigned short at the specified offset.
+     *
+     * @param bytes bytes
+     * @param offset offset
+     * @return the little-endian unsigned short at the specified offset
+     */
+    static int unsignedShort(final byte[] bytes, final int offset) {
+        return (bytes[offset] & 0xff) | ((bytes[offset + 1] & 0xff) << 8);
+    }
+
+    /**
+     * Return the little-endian unsigned int at the specified offset.
+     *
+     * @param bytes bytes
+     * @param offset offset
+     * @return the little-endian unsigned int at the specified offset
+     */
+    static long unsignedInt(final byte[] bytes, final int offset) {
+        return (unsignedShort(bytes, offset) | ((long) unsignedShort(bytes, offset + 2) << 16));
+    }
+
+    /**
+     * Write the specified value as a little-endian short at the specified offset.
+     *
+     * @param bytes bytes
+     * @param offset offset
+     * @param value value
+     */
+    static void writeShort(final byte[] bytes, final int offset, final int value) {
+        bytes[offset] = (byte) value;
+        bytes[offset + 1] = (byte) (value >>> 8);
+    }
+
+    /**
+     * Write the specified value as a little-endian int at the specified offset.
+     *
+     * @param bytes bytes
+     * @param offset offset
+     * @param value value
+     */
+    static void writeInt(final byte[] bytes, final int offset, final int value) {
+        bytes[offset] = (byte) value;
+        bytes[offset + 1] = (byte) (value >>> 8);
+        bytes[offset + 2] = (byte) (value >>> 16);
+        bytes[offset + 3] = (byte) (value >>> 24);
+    }
+}
@@ -0,0 +1,258 @@
+/*
+
+    dsh-bio-bgzf  BGZF (blocked GNU zip format) support.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.bgzf;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+
+import java.nio.charset.StandardCharsets;
+
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import java.util.Arrays;
+
+import java.util.zip.Inflater;
+
+/**
+ * BGZF input stream and line reader, seekable by virtual offset if created for a path.
+ *
+ * @since 4.1
+ * @author  Michael Heuer
+ */
+public final class BgzfReader extends InputStream {
+    /** File channel, if seekable. */
+    private final FileChannel channel;
+
+    /** Underlying input stream, unbuffered if seekable so the channel position tracks block addresses. */
+    private final InputStream inputStream;
+
+    /** Inflater. */
+    private final Inflater inflater = new Inflater(true);
+
+    /** Compressed block. */
+    private final byte[] block = new byte[Bgzf.MAX_BLOCK_SIZE];
+
+    /** Uncompressed block data. */
+    private final byte[] data = new byte[Bgzf.MAX_BLOCK_SIZE];
+
+    /** Address of the current block. */
+    private long blockAddress;
+
+    /** Compressed size of the current block. */
+    private int blockSize;
+
+    /** Length of the current block data, or <code>-1</code> if the current block has not been loaded. */
+    private int blockLength = -1;
+
+    /** Offset in the current block data. */
+    private int blockOffset;
+
+    /** Line buffer. */
+    private byte[] line = new byte[1024];
+
+
+    /**
+     * Create a new sequential BGZF reader for the specified input stream.
+     *
+     * @param inputStream input stream, must not be null
+     */
+    public BgzfReader(final InputStream inputStream) {
+        checkNotNull(inputStream);
+        this.channel = null;
+        this.inputStream = inputStream;
+    }
+
+    /**
+     * Create a new seekable BGZF reader for the specified path.
+     *
+     * @param path path, must not be null
+     * @throws IOException if an I/O error occurs
+     */
+    public BgzfReader(final Path path) throws IOException {
+        checkNotNull(path);
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        inputStream = Channels.newInputStream(channel);
+    }
+
+
+    /**
+     * Seek to the specified virtual offset.
+     *
+     * @param virtualOffset virtual offset, the block address in the upper 48 bits and
+     *    the offset into the uncompressed block data in the lower 16 bits
+     * @throws IOException if an I/O error occurs
+     */
+    public void seek(final long virtualOffset) throws IOException {
+        if (channel == null) {
+            throw new IOException("BGZF reader is not seekable");
+        }
+        blockAddress = virtualOffset >>> 16;
+        blockOffset = (int) (virtualOffset & 0xffff);
+        blockLength = -1;
+        if (blockOffset > 0) {
+            if (!load()) {
+                throw new IOException("invalid virtual offset " + virtualOffset + ", past end of file");
+            }
+            if (blockOffset > blockLength) {
+                throw new IOException("invalid virtual offset " + virtualOffset + ", past end of block");
+            }
+        }
+    }
+
+    /**
+     * Return the virtual offset of the next byte to be read.  At the end of a block,
+     * this is normalized to the start of the next block.
+     *
+     * @return the virtual offset of the next byte to be read
+     */
+    public long getVirtualOffset() {
+        if (blockLength >= 0 && blockOffset == blockLength) {
+            return (blockAddress + blockSize) << 16;
+        }
+        return (blockAddress << 16) | blockOffset;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        return data[blockOffset++] & 0xff;
+    }
+
+    @Override
+    public int read(final byte[] bytes, final int off, final int len) throws IOException {
+        checkNotNull(bytes);
+        if (off < 0 || len < 0 || len > bytes.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len == 0) {
+            return 0;
+        }
+        if (!fill()) {
+            return -1;
+        }
+        int n = Math.min(len, blockLength - blockOffset);
+        System.arraycopy(data, blockOffset, bytes, off, n);
+        blockOffset += n;
+        return n;
+    }
+
+    /**
+     * Read the next line, without its line terminator.
+     *
+     * @return the next line, or <code>null</code> if the end of the file has been reached
+     * @throws IOException if an I/O error occurs
+     */
+    public String readLine() throws IOException {
+        int length = 0;
+        boolean found = false;
+        while (!found && fill()) {
+            int end = blockOffset;
+            while (end < blockLength && data[end] != '\n') {
+                end++;
+            }
+            found = end < blockLength;
+            int n = end - blockOffset;
+            if (length + n > line.length) {
+                line = Arrays.copyOf(line, Math.max(line.length * 2, length + n));
+            }
+            System.arraycopy(data, blockOffset, line, length, n);
+            length += n;
+            blockOffset = found ? end + 1 : end;
+        }
+        if (!found && length == 0) {
+            return null;
+        }
+        if (length > 0 && line[length - 1] == '\r') {
+            length--;
+        }
+        return new String(line, 0, length, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public int available() throws IOException {
+        return blockLength < 0 ? 0 : blockLength - blockOffset;
+    }
+
+    /**
+     * Load blocks as necessary until data are available, skipping empty blocks.
+     *
+     * @return true if data are available, false if the end of the file has been reached
+     * @throws IOException if an I/O error occurs
+     */
+    private boolean fill() throws IOException {
+        while (blockLength < 0 || blockOffset == blockLength) {
+            if (blockLength >= 0) {
+                next();
+            }
+            if (!load()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Advance past the current block.
+     */
+    private void next() {
+        blockAddress = blockAddress + blockSize;
+        blockOffset = 0;
+        blockLength = -1;
+    }
+
+    /**
+     * Load the block at the current block address.
+     *
+     * @return true if a block was loaded, false if the end of the file has been reached
+     * @throws IOException if an I/O error occurs
+     */
+    private boolean load() throws IOException {
+        if (blockLength >= 0) {
+            return true;
+        }
+        if (channel != null) {
+            channel.position(blockAddress);
+        }
+        blockSize = Bgzf.readBlock(inputStream, block);
+        if (blockSize < 0) {
+            return false;
+        }
+        blockLength = Bgzf.inflateBlock(block, blockSize, data, inflater);
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        inflater.end();
+        inputStream.close();
+    }
+}
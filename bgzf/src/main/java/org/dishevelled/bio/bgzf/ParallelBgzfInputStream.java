@@ -0,0 +1,279 @@
+/*
+
+    dsh-bio-bgzf  BGZF (blocked GNU zip format) support.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.bgzf;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import java.util.zip.Inflater;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Block-parallel BGZF input stream.
+ *
+ * <p>
+ * Compressed BGZF blocks are read ahead from the underlying input stream on the
+ * reading thread and inflated by a pool of worker threads.  Uncompressed data are
+ * returned in their original order.  Each worker thread borrows an inflater and
+ * an uncompressed block buffer from a fixed pool, so neither is allocated per block.
+ * </p>
+ *
+ * @since 4.1
+ * @author  Michael Heuer
+ */
+public final class ParallelBgzfInputStream extends InputStream {
+    /** Underlying input stream. */
+    private final InputStream inputStream;
+
+    /** Executor service. */
+    private final ExecutorService executorService;
+
+    /** Maximum number of blocks in flight. */
+    private final int maxPending;
+
+    /** Idle inflaters and their uncompressed block buffers, one per worker thread. */
+    private final BlockingQueue<Worker> workers;
+
+    /** Blocks in flight, in order. */
+    private final Deque<Future<byte[]>> pending = new ArrayDeque<Future<byte[]>>();
+
+    /** Compressed block read buffer. */
+    private final byte[] block = new byte[Bgzf.MAX_BLOCK_SIZE];
+
+    /** Current uncompressed block data. */
+    private byte[] data = new byte[0];
+
+    /** Offset in the current uncompressed block data. */
+    private int offset = 0;
+
+    /** True if the end of the underlying input stream has been reached. */
+    private boolean eof = false;
+
+    /** True if this input stream has been closed. */
+    private volatile boolean closed = false;
+
+
+    /**
+     * Create a new block-parallel BGZF input stream.
+     *
+     * @param inputStream underlying input stream, must not be null
+     * @param threads number of inflater threads, must be at least one
+     */
+    public ParallelBgzfInputStream(final InputStream inputStream, final int threads) {
+        checkNotNull(inputStream);
+        checkArgument(threads > 0, "threads must be at least one");
+        this.inputStream = inputStream;
+        this.executorService = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder().setDaemon(true).setNameFormat("bgzf-inflater-%d").build());
+        this.maxPending = 4 * threads;
+        this.workers = new ArrayBlockingQueue<Worker>(threads);
+        for (int i = 0; i < threads; i++) {
+            workers.add(new Worker());
+        }
+    }
+
+
+    @Override
+    public int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        return data[offset++] & 0xff;
+    }
+
+    @Override
+    public int read(final byte[] bytes, final int off, final int len) throws IOException {
+        checkNotNull(bytes);
+        if (off < 0 || len < 0 || len > bytes.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len == 0) {
+            return 0;
+        }
+        if (!fill()) {
+            return -1;
+        }
+        int n = Math.min(len, data.length - offset);
+        System.arraycopy(data, offset, bytes, off, n);
+        offset += n;
+        return n;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return data.length - offset;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            executorService.shutdownNow();
+            pending.clear();
+            endWorkers();
+            inputStream.close();
+        }
+    }
+
+    /**
+     * Fill the current uncompressed block data if necessary.
+     *
+     * @return true if data are available, false if the end of the stream has been reached
+     * @throws IOException if an I/O error occurs
+     */
+    private boolean fill() throws IOException {
+        if (closed) {
+            throw new IOException("stream closed");
+        }
+        while (offset == data.length) {
+            readAhead();
+            if (pending.isEmpty()) {
+                return false;
+            }
+            data = next();
+            offset = 0;
+        }
+        return true;
+    }
+
+    /**
+     * Read compressed blocks ahead and submit them for inflating.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    private void readAhead() throws IOException {
+        while (!eof && pending.size() < maxPending) {
+            final int size = Bgzf.readBlock(inputStream, block);
+            if (size < 0) {
+                eof = true;
+            }
+            else {
+                final byte[] compressed = Arrays.copyOf(block, size);
+                pending.addLast(executorService.submit(new Callable<byte[]>() {
+                        @Override
+                        public byte[] call() throws IOException {
+                            Worker worker = borrow();
+                            try {
+                                int length = Bgzf.inflateBlock(compressed, size, worker.data, worker.inflater);
+                                return Arrays.copyOf(worker.data, length);
+                            }
+                            finally {
+                                workers.add(worker);
+                                if (closed) {
+                                    endWorkers();
+                                }
+                            }
+                        }
+                    }));
+            }
+        }
+    }
+
+    /**
+     * Borrow an idle worker from the pool, waiting for one to be returned if necessary.
+     *
+     * @return an idle worker
+     * @throws IOException if interrupted while waiting
+     */
+    private Worker borrow() throws IOException {
+        try {
+            return workers.take();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            InterruptedIOException interruptedIOException = new InterruptedIOException("interrupted while waiting for BGZF inflater");
+            interruptedIOException.initCause(e);
+            throw interruptedIOException;
+        }
+    }
+
+    /**
+     * End the inflaters of all idle workers, releasing their native resources.
+     */
+    private void endWorkers() {
+        Worker worker;
+        while ((worker = workers.poll()) != null) {
+            worker.inflater.end();
+        }
+    }
+
+    /**
+     * Return the next uncompressed block data, waiting for it to be inflated if necessary.
+     *
+     * @return the next uncompressed block data
+     * @throws IOException if an I/O error occurs
+     */
+    private byte[] next() throws IOException {
+        try {
+            return pending.removeFirst().get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            InterruptedIOException interruptedIOException = new InterruptedIOException("interrupted while inflating BGZF block");
+            interruptedIOException.initCause(e);
+            throw interruptedIOException;
+        }
+        catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+
+    /**
+     * Inflater and uncompressed block buffer, reused across blocks.
+     */
+    private static final class Worker {
+        /** Inflater, configured to not wrap. */
+        private final Inflater inflater = new Inflater(true);
+
+        /** Uncompressed block buffer. */
+        private final byte[] data = new byte[Bgzf.MAX_BLOCK_SIZE];
+    }
+}
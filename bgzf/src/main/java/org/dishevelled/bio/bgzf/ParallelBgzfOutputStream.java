@@ -0,0 +1,386 @@
+/*
+
+    dsh-bio-bgzf  BGZF (blocked GNU zip format) support.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.bgzf;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import java.util.zip.Deflater;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Block-parallel BGZF output stream.
+ *
+ * <p>
+ * Uncompressed data are buffered into blocks on the writing thread and deflated by
+ * a pool of worker threads.  Compressed BGZF blocks are written to the underlying
+ * output stream in their original order, followed by an empty end-of-file block on close.
+ * Each worker thread borrows a deflater from a pool of at most one per thread, and block
+ * buffers are recycled once written, so neither is allocated per block.  Several output
+ * streams may share one executor service, for example when writing many output files at
+ * once with a fixed number of worker threads.
+ * </p>
+ *
+ * @since 4.1
+ * @author  Michael Heuer
+ */
+public final class ParallelBgzfOutputStream extends OutputStream {
+    /** Underlying output stream. */
+    private final OutputStream outputStream;
+
+    /** Compression level. */
+    private final int level;
+
+    /** Executor service. */
+    private final ExecutorService executorService;
+
+    /** True if the executor service is owned by, and should be shut down with, this output stream. */
+    private final boolean ownsExecutorService;
+
+    /** Maximum number of deflaters, one per worker thread. */
+    private final int maxDeflaters;
+
+    /** Maximum number of blocks in flight. */
+    private final int maxPending;
+
+    /** Idle deflaters. */
+    private final BlockingQueue<Deflater> deflaters = new LinkedBlockingQueue<Deflater>();
+
+    /** Number of deflaters created. */
+    private final AtomicInteger createdDeflaters = new AtomicInteger();
+
+    /** Blocks in flight, in order. */
+    private final Deque<Future<Block>> pending = new ArrayDeque<Future<Block>>();
+
+    /** Written blocks, available for reuse. */
+    private final Deque<Block> free = new ArrayDeque<Block>();
+
+    /** Current block. */
+    private Block current = new Block();
+
+    /** True if this output stream has been closed. */
+    private volatile boolean closed = false;
+
+
+    /**
+     * Create a new block-parallel BGZF output stream with the default compression level.
+     *
+     * @param outputStream underlying output stream, must not be null
+     * @param threads number of deflater threads, must be at least one
+     */
+    public ParallelBgzfOutputStream(final OutputStream outputStream, final int threads) {
+        this(outputStream, threads, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Create a new block-parallel BGZF output stream.
+     *
+     * @param outputStream underlying output stream, must not be null
+     * @param threads number of deflater threads, must be at least one
+     * @param level compression level, <code>-1</code> for the default compression level
+     *    or <code>0</code> through <code>9</code>
+     */
+    public ParallelBgzfOutputStream(final OutputStream outputStream, final int threads, final int level) {
+        checkNotNull(outputStream);
+        checkArgument(threads > 0, "threads must be at least one");
+        checkArgument(level >= -1 && level <= 9, "level must be in the range [-1, 9]");
+        this.outputStream = outputStream;
+        this.level = level;
+        this.executorService = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder().setDaemon(true).setNameFormat("bgzf-deflater-%d").build());
+        this.ownsExecutorService = true;
+        this.maxDeflaters = threads;
+        this.maxPending = 4 * threads;
+    }
+
+    /**
+     * Create a new block-parallel BGZF output stream with the default compression level,
+     * deflating blocks with the specified shared executor service.  The executor service
+     * is not shut down when this output stream is closed.
+     *
+     * @param outputStream underlying output stream, must not be null
+     * @param executorService executor service, must not be null
+     * @param threads number of deflater threads in the specified executor service, must be at least one
+     */
+    public ParallelBgzfOutputStream(final OutputStream outputStream, final ExecutorService executorService, final int threads) {
+        this(outputStream, executorService, threads, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Create a new block-parallel BGZF output stream, deflating blocks with the specified
+     * shared executor service.  The executor service is not shut down when this output
+     * stream is closed.
+     *
+     * @param outputStream underlying output stream, must not be null
+     * @param executorService executor service, must not be null
+     * @param threads number of deflater threads in the specified executor service, must be at least one
+     * @param level compression level, <code>-1</code> for the default compression level
+     *    or <code>0</code> through <code>9</code>
+     */
+    public ParallelBgzfOutputStream(final OutputStream outputStream, final ExecutorService executorService, final int threads, final int level) {
+        checkNotNull(outputStream);
+        checkNotNull(executorService);
+        checkArgument(threads > 0, "threads must be at least one");
+        checkArgument(level >= -1 && level <= 9, "level must be in the range [-1, 9]");
+        this.outputStream = outputStream;
+        this.level = level;
+        this.executorService = executorService;
+        this.ownsExecutorService = false;
+        this.maxDeflaters = threads;
+        this.maxPending = 4 * threads;
+    }
+
+
+    @Override
+    public void write(final int b) throws IOException {
+        ensureOpen();
+        if (current.length == current.data.length) {
+            submit();
+        }
+        current.data[current.length++] = (byte) b;
+    }
+
+    @Override
+    public void write(final byte[] bytes, final int off, final int len) throws IOException {
+        checkNotNull(bytes);
+        if (off < 0 || len < 0 || len > bytes.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        ensureOpen();
+        int offset = off;
+        int remaining = len;
+        while (remaining > 0) {
+            if (current.length == current.data.length) {
+                submit();
+            }
+            int n = Math.min(remaining, current.data.length - current.length);
+            System.arraycopy(bytes, offset, current.data, current.length, n);
+            current.length += n;
+            offset += n;
+            remaining -= n;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * Flushing ends the current block early and waits for all blocks in flight to be written.
+     * </p>
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        if (current.length > 0) {
+            submit();
+        }
+        while (!pending.isEmpty()) {
+            writeNext();
+        }
+        outputStream.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            try {
+                flush();
+                outputStream.write(Bgzf.EOF_BLOCK);
+            }
+            finally {
+                closed = true;
+                if (ownsExecutorService) {
+                    executorService.shutdownNow();
+                }
+                else {
+                    for (Future<Block> future : pending) {
+                        future.cancel(true);
+                    }
+                }
+                pending.clear();
+                free.clear();
+                endDeflaters();
+                outputStream.close();
+            }
+        }
+    }
+
+    /**
+     * Throw an exception if this output stream has been closed.
+     *
+     * @throws IOException if this output stream has been closed
+     */
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("stream closed");
+        }
+    }
+
+    /**
+     * Submit the current block for deflating, writing blocks no longer in flight as necessary.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    private void submit() throws IOException {
+        while (pending.size() >= maxPending) {
+            writeNext();
+        }
+        final Block block = current;
+        pending.addLast(executorService.submit(new Callable<Block>() {
+                @Override
+                public Block call() throws IOException {
+                    Deflater deflater = borrow();
+                    try {
+                        block.size = Bgzf.deflateBlock(block.data, block.length, block.block, deflater, level);
+                        return block;
+                    }
+                    finally {
+                        deflaters.add(deflater);
+                        if (closed) {
+                            endDeflaters();
+                        }
+                    }
+                }
+            }));
+        current = free.isEmpty() ? new Block() : free.removeFirst();
+        current.length = 0;
+        while (!pending.isEmpty() && pending.peekFirst().isDone()) {
+            writeNext();
+        }
+    }
+
+    /**
+     * Borrow an idle deflater, creating one if fewer than one per worker thread have been
+     * created, otherwise waiting for one to be returned.
+     *
+     * @return an idle deflater
+     * @throws IOException if interrupted while waiting
+     */
+    private Deflater borrow() throws IOException {
+        Deflater deflater = deflaters.poll();
+        if (deflater != null) {
+            return deflater;
+        }
+        if (createdDeflaters.getAndIncrement() < maxDeflaters) {
+            return new Deflater(level, true);
+        }
+        try {
+            return deflaters.take();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            InterruptedIOException interruptedIOException = new InterruptedIOException("interrupted while waiting for BGZF deflater");
+            interruptedIOException.initCause(e);
+            throw interruptedIOException;
+        }
+    }
+
+    /**
+     * End all idle deflaters, releasing their native resources.
+     */
+    private void endDeflaters() {
+        Deflater deflater;
+        while ((deflater = deflaters.poll()) != null) {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Write the next compressed block, waiting for it to be deflated if necessary,
+     * and recycle its buffers.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    private void writeNext() throws IOException {
+        Block block = next();
+        outputStream.write(block.block, 0, block.size);
+        free.addLast(block);
+    }
+
+    /**
+     * Return the next compressed block, waiting for it to be deflated if necessary.
+     *
+     * @return the next compressed block
+     * @throws IOException if an I/O error occurs
+     */
+    private Block next() throws IOException {
+        try {
+            return pending.removeFirst().get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            InterruptedIOException interruptedIOException = new InterruptedIOException("interrupted while deflating BGZF block");
+            interruptedIOException.initCause(e);
+            throw interruptedIOException;
+        }
+        catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+
+    /**
+     * Uncompressed block data and compressed block buffers, reused across blocks.
+     */
+    private static final class Block {
+        /** Uncompressed block data. */
+        private final byte[] data = new byte[Bgzf.MAX_DATA_SIZE];
+
+        /** Length of the uncompressed block data. */
+        private int length = 0;
+
+        /** Compressed BGZF block. */
+        private final byte[] block = new byte[Bgzf.MAX_BLOCK_SIZE];
+
+        /** Size of the compressed BGZF block. */
+        private int size = 0;
+    }
+}
@@ -0,0 +1,118 @@
+/*
+
+    dsh-bio-bgzf  BGZF (blocked GNU zip format) support.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.bgzf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import java.nio.charset.StandardCharsets;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.common.io.Resources;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for BgzfReader.
+ *
+ * @author  Michael Heuer
+ */
+public final class BgzfReaderTest {
+    private byte[] bgzf;
+    private List<String> expected;
+    private Path path;
+    private static final String VCF = "ALL.chr22.phase1_release_v3.20101123.snps_indels_svs.genotypes-2-indv-thin-20000bp-trim.vcf";
+
+    @Before
+    public void setUp() throws Exception {
+        bgzf = Resources.toByteArray(getClass().getResource(VCF + ".gz"));
+        expected = Resources.readLines(getClass().getResource(VCF), StandardCharsets.UTF_8);
+        path = Files.createTempFile("bgzfReaderTest", ".vcf.gz");
+        Files.write(path, bgzf);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(path);
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testConstructorNullInputStream() {
+        new BgzfReader((InputStream) null);
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testConstructorNullPath() throws Exception {
+        new BgzfReader((Path) null);
+    }
+
+    @Test
+    public void testReadLine() throws Exception {
+        List<String> lines = new ArrayList<String>();
+        try (BgzfReader reader = new BgzfReader(new ByteArrayInputStream(bgzf))) {
+            String line = null;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+            assertNull(reader.readLine());
+        }
+        assertEquals(expected, lines);
+    }
+
+    @Test
+    public void testSeek() throws Exception {
+        try (BgzfReader reader = new BgzfReader(path)) {
+            for (int i = 0; i < 10; i++) {
+                reader.readLine();
+            }
+            long virtualOffset = reader.getVirtualOffset();
+            String line = reader.readLine();
+            assertEquals(expected.get(10), line);
+
+            reader.seek(0L);
+            assertEquals(expected.get(0), reader.readLine());
+
+            reader.seek(virtualOffset);
+            assertEquals(line, reader.readLine());
+        }
+    }
+
+    @Test(expected=IOException.class)
+    public void testSeekNotSeekable() throws Exception {
+        try (BgzfReader reader = new BgzfReader(new ByteArrayInputStream(bgzf))) {
+            reader.seek(0L);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+
+    dsh-bio-bgzf  BGZF (blocked GNU zip format) support.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.bgzf;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import com.google.common.io.Resources;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for Bgzf.
+ *
+ * @author  Michael Heuer
+ */
+public final class BgzfTest {
+    private Path bgzfPath;
+    private Path textPath;
+    private Path emptyPath;
+    private static final String VCF = "ALL.chr22.phase1_release_v3.20101123.snps_indels_svs.genotypes-2-indv-thin-20000bp-trim.vcf";
+
+    @Before
+    public void setUp() throws Exception {
+        bgzfPath = Files.createTempFile("bgzfTest", ".vcf.gz");
+        Files.write(bgzfPath, Resources.toByteArray(getClass().getResource(VCF + ".gz")));
+        textPath = Files.createTempFile("bgzfTest", ".vcf");
+        Files.write(textPath, Resources.toByteArray(getClass().getResource(VCF)));
+        emptyPath = Files.createTempFile("bgzfTest", ".vcf.gz");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(bgzfPath);
+        Files.deleteIfExists(textPath);
+        Files.deleteIfExists(emptyPath);
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testIsBgzfNullPath() throws Exception {
+        Bgzf.isBgzf(null);
+    }
+
+    @Test
+    public void testIsBgzf() throws Exception {
+        assertTrue(Bgzf.isBgzf(bgzfPath));
+    }
+
+    @Test
+    public void testIsBgzfNotBgzf() throws Exception {
+        assertFalse(Bgzf.isBgzf(textPath));
+    }
+
+    @Test
+    public void testIsBgzfEmpty() throws Exception {
+        assertFalse(Bgzf.isBgzf(emptyPath));
+    }
+
+    @Test
+    public void testDeflateBlockReusesDeflater() throws Exception {
+        byte[] compressible = new byte[Bgzf.MAX_DATA_SIZE];
+        Arrays.fill(compressible, (byte) 'A');
+        byte[] uncompressible = new byte[Bgzf.MAX_DATA_SIZE];
+        new Random(42L).nextBytes(uncompressible);
+
+        byte[] block = new byte[Bgzf.MAX_BLOCK_SIZE];
+        byte[] data = new byte[Bgzf.MAX_BLOCK_SIZE];
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        Inflater inflater = new Inflater(true);
+        try {
+            for (byte[] expected : new byte[][] { compressible, uncompressible, compressible }) {
+                int size = Bgzf.deflateBlock(expected, expected.length, block, deflater, Deflater.DEFAULT_COMPRESSION);
+                assertEquals(expected.length, Bgzf.inflateBlock(block, size, data, inflater));
+                assertArrayEquals(expected, Arrays.copyOf(data, expected.length));
+            }
+        }
+        finally {
+            deflater.end();
+            inflater.end();
+        }
+    }
+}
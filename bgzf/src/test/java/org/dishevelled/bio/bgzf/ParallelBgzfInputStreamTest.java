@@ -0,0 +1,105 @@
+/*
+
+    dsh-bio-bgzf  BGZF (blocked GNU zip format) support.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.bgzf;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Resources;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for ParallelBgzfInputStream.
+ *
+ * @author  Michael Heuer
+ */
+public final class ParallelBgzfInputStreamTest {
+    private byte[] bgzf;
+    private byte[] expected;
+    private static final String VCF = "ALL.chr22.phase1_release_v3.20101123.snps_indels_svs.genotypes-2-indv-thin-20000bp-trim.vcf";
+
+    @Before
+    public void setUp() throws Exception {
+        bgzf = Resources.toByteArray(getClass().getResource(VCF + ".gz"));
+        expected = Resources.toByteArray(getClass().getResource(VCF));
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testConstructorNullInputStream() {
+        new ParallelBgzfInputStream(null, 2);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testConstructorInvalidThreads() {
+        new ParallelBgzfInputStream(new ByteArrayInputStream(bgzf), 0);
+    }
+
+    @Test
+    public void testReadSingleThread() throws Exception {
+        try (InputStream inputStream = new ParallelBgzfInputStream(new ByteArrayInputStream(bgzf), 1)) {
+            assertArrayEquals(expected, ByteStreams.toByteArray(inputStream));
+        }
+    }
+
+    @Test
+    public void testReadMultipleThreads() throws Exception {
+        try (InputStream inputStream = new ParallelBgzfInputStream(new ByteArrayInputStream(bgzf), 4)) {
+            assertArrayEquals(expected, ByteStreams.toByteArray(inputStream));
+        }
+    }
+
+    @Test
+    public void testReadByte() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (InputStream inputStream = new ParallelBgzfInputStream(new ByteArrayInputStream(bgzf), 4)) {
+            int b;
+            while ((b = inputStream.read()) != -1) {
+                outputStream.write(b);
+            }
+        }
+        assertArrayEquals(expected, outputStream.toByteArray());
+    }
+
+    @Test
+    public void testReadEmpty() throws Exception {
+        try (InputStream inputStream = new ParallelBgzfInputStream(new ByteArrayInputStream(new byte[0]), 2)) {
+            assertEquals(-1, inputStream.read());
+        }
+    }
+
+    @Test(expected=IOException.class)
+    public void testReadNotBgzf() throws Exception {
+        try (InputStream inputStream = new ParallelBgzfInputStream(new ByteArrayInputStream(expected), 2)) {
+            inputStream.read();
+        }
+    }
+}
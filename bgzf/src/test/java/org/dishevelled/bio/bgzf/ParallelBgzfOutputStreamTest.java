@@ -0,0 +1,244 @@
+/*
+
+    dsh-bio-bgzf  BGZF (blocked GNU zip format) support.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.bgzf;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import java.util.zip.GZIPInputStream;
+
+import com.google.common.io.ByteStreams;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for ParallelBgzfOutputStream.
+ *
+ * @author  Michael Heuer
+ */
+public final class ParallelBgzfOutputStreamTest {
+    private byte[] data;
+
+    @Before
+    public void setUp() {
+        // compressible data spanning several BGZF blocks
+        Random random = new Random(42L);
+        data = new byte[5 * Bgzf.MAX_DATA_SIZE + 1234];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) ("ACGT".charAt(random.nextInt(4)));
+        }
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testConstructorNullOutputStream() {
+        new ParallelBgzfOutputStream(null, 2);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testConstructorInvalidThreads() {
+        new ParallelBgzfOutputStream(new ByteArrayOutputStream(), 0);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testConstructorInvalidLevel() {
+        new ParallelBgzfOutputStream(new ByteArrayOutputStream(), 2, 10);
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testConstructorNullExecutorService() {
+        new ParallelBgzfOutputStream(new ByteArrayOutputStream(), null, 2);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testConstructorExecutorServiceInvalidThreads() {
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try {
+            new ParallelBgzfOutputStream(new ByteArrayOutputStream(), executorService, 0);
+        }
+        finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testConstructorExecutorServiceInvalidLevel() {
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try {
+            new ParallelBgzfOutputStream(new ByteArrayOutputStream(), executorService, 2, 10);
+        }
+        finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testWriteSharedExecutorServiceLevel() throws Exception {
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try {
+            ByteArrayOutputStream stored = new ByteArrayOutputStream();
+            ByteArrayOutputStream best = new ByteArrayOutputStream();
+            try (OutputStream a = new ParallelBgzfOutputStream(stored, executorService, 2, 0);
+                 OutputStream b = new ParallelBgzfOutputStream(best, executorService, 2, 9)) {
+                a.write(data);
+                b.write(data);
+            }
+            assertArrayEquals(data, roundTrip(stored.toByteArray()));
+            assertArrayEquals(data, roundTrip(best.toByteArray()));
+            assertTrue(stored.size() > data.length);
+            assertTrue(best.size() < data.length / 2);
+        }
+        finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testWriteManyBlocks() throws Exception {
+        // more blocks than are in flight at once, so that block buffers are recycled
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        try (OutputStream outputStream = new ParallelBgzfOutputStream(bytes, 2)) {
+            for (int i = 0; i < 20; i++) {
+                outputStream.write(data);
+                expected.write(data);
+                if (i % 7 == 0) {
+                    outputStream.flush();
+                }
+            }
+        }
+        assertArrayEquals(expected.toByteArray(), roundTrip(bytes.toByteArray()));
+    }
+
+    @Test
+    public void testWriteSharedExecutorService() throws Exception {
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try {
+            ByteArrayOutputStream first = new ByteArrayOutputStream();
+            ByteArrayOutputStream second = new ByteArrayOutputStream();
+            try (OutputStream a = new ParallelBgzfOutputStream(first, executorService, 2);
+                 OutputStream b = new ParallelBgzfOutputStream(second, executorService, 2)) {
+                int half = data.length / 2;
+                a.write(data, 0, half);
+                b.write(data, half, data.length - half);
+                a.write(data, half, data.length - half);
+                b.write(data, 0, half);
+            }
+            assertFalse(executorService.isShutdown());
+            assertArrayEquals(data, roundTrip(first.toByteArray()));
+
+            byte[] swapped = new byte[data.length];
+            int half = data.length / 2;
+            System.arraycopy(data, half, swapped, 0, data.length - half);
+            System.arraycopy(data, 0, swapped, data.length - half, half);
+            assertArrayEquals(swapped, roundTrip(second.toByteArray()));
+        }
+        finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testWriteSingleThread() throws Exception {
+        assertArrayEquals(data, roundTrip(write(data, 1)));
+    }
+
+    @Test
+    public void testWriteMultipleThreads() throws Exception {
+        assertArrayEquals(data, roundTrip(write(data, 4)));
+    }
+
+    @Test
+    public void testWriteByte() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream outputStream = new ParallelBgzfOutputStream(bytes, 4)) {
+            for (byte b : data) {
+                outputStream.write(b);
+            }
+        }
+        assertArrayEquals(data, roundTrip(bytes.toByteArray()));
+    }
+
+    @Test
+    public void testWriteUncompressible() throws Exception {
+        byte[] random = new byte[3 * Bgzf.MAX_DATA_SIZE];
+        new Random(42L).nextBytes(random);
+        assertArrayEquals(random, roundTrip(write(random, 2)));
+    }
+
+    @Test
+    public void testWriteEmpty() throws Exception {
+        byte[] bgzf = write(new byte[0], 2);
+        assertArrayEquals(Bgzf.EOF_BLOCK, bgzf);
+        assertEquals(0, roundTrip(bgzf).length);
+    }
+
+    @Test
+    public void testEndsWithEofBlock() throws Exception {
+        byte[] bgzf = write(data, 2);
+        assertArrayEquals(Bgzf.EOF_BLOCK, Arrays.copyOfRange(bgzf, bgzf.length - Bgzf.EOF_BLOCK.length, bgzf.length));
+    }
+
+    @Test
+    public void testGzipCompatible() throws Exception {
+        try (InputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(write(data, 2)))) {
+            assertArrayEquals(data, ByteStreams.toByteArray(inputStream));
+        }
+    }
+
+    @Test(expected=IOException.class)
+    public void testWriteAfterClose() throws Exception {
+        OutputStream outputStream = new ParallelBgzfOutputStream(new ByteArrayOutputStream(), 2);
+        outputStream.close();
+        outputStream.write(42);
+    }
+
+    private static byte[] write(final byte[] data, final int threads) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream outputStream = new ParallelBgzfOutputStream(bytes, threads)) {
+            outputStream.write(data);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] roundTrip(final byte[] bgzf) throws IOException {
+        try (InputStream inputStream = new ParallelBgzfInputStream(new ByteArrayInputStream(bgzf), 3)) {
+            return ByteStreams.toByteArray(inputStream);
+        }
+    }
+}
@@ -130,6 +130,26 @@ abstract class AbstractSplit implements Callable<Integer> {
         return leftPad > 0 ? Strings.padStart(String.valueOf(n), leftPad, '0') : String.valueOf(n);
     }
 
+    /**
+     * Return the output file name consisting of <code>prefix + n + suffix</code>.
+     *
+     * @param n n
+     * @return the output file name consisting of <code>prefix + n + suffix</code>
+     */
+    protected final String outputFileName(final int n) {
+        return prefix + leftPad(n) + suffix;
+    }
+
+    /**
+     * Return the output file name consisting of <code>prefix + name + suffix</code>.
+     *
+     * @param name name
+     * @return the output file name consisting of <code>prefix + name + suffix</code>
+     */
+    protected final String outputFileName(final String name) {
+        return prefix + name + suffix;
+    }
+
     /**
      * Create and return a new CountingWriter for a file name consisting
      * of <code>prefix + n + suffix</code>.
@@ -139,7 +159,7 @@ abstract class AbstractSplit implements Callable<Integer> {
      *    of <code>prefix + n + suffix</code>
      */
     protected final CountingWriter createCountingWriter(final int n) {
-        String outputFileName = prefix + leftPad(n) + suffix;
+        String outputFileName = outputFileName(n);
         try {
             CountingWriter writer = new CountingWriter(writer(new File(outputFileName)));
             writers.add(writer);
@@ -0,0 +1,298 @@
+/*
+
+    dsh-bio-tools  Command line tools.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.tools;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import static org.dishevelled.compress.Readers.reader;
+import static org.dishevelled.compress.Writers.writer;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+
+import java.nio.file.Path;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import java.util.concurrent.Callable;
+
+import com.google.common.collect.ImmutableList;
+
+import org.dishevelled.bio.variant.vcf.BufferedVcfWriter;
+import org.dishevelled.bio.variant.vcf.VcfHeader;
+import org.dishevelled.bio.variant.vcf.VcfMergeAdapter;
+import org.dishevelled.bio.variant.vcf.VcfMerger;
+import org.dishevelled.bio.variant.vcf.VcfRecord;
+import org.dishevelled.bio.variant.vcf.VcfSample;
+
+import org.dishevelled.commandline.ArgumentList;
+import org.dishevelled.commandline.CommandLine;
+import org.dishevelled.commandline.CommandLineParseException;
+import org.dishevelled.commandline.CommandLineParser;
+import org.dishevelled.commandline.Switch;
+import org.dishevelled.commandline.Usage;
+
+import org.dishevelled.commandline.argument.FileArgument;
+import org.dishevelled.commandline.argument.PathArgument;
+import org.dishevelled.commandline.argument.StringListArgument;
+
+/**
+ * Annotate variant ids in VCF format from a database in VCF format, e.g. dbSNP.
+ *
+ * <p>
+ * The input and database VCF files must both be coordinate-sorted.  Input records matching
+ * a database record by CHROM, POS, and REF, whose ALT alleles are all present in the ALT
+ * alleles of the database record, have the ID values of the database record added to their own.
+ * </p>
+ *
+ * <p>
+ * Both are sorted by contig in the order of the specified contigs, if any, followed by the
+ * contigs in their <code>##contig</code> header lines.  Every contig must be present in one
+ * or the other, e.g. for inputs without <code>##contig</code> header lines specify the contig
+ * order with a list of contigs or a reference FASTA index (<code>.fai</code>) or sequence
+ * dictionary (<code>.dict</code>).
+ * </p>
+ *
+ * @since 4.1
+ * @author  Michael Heuer
+ */
+public final class AnnotateVcfIds implements Callable<Integer> {
+    private final Path inputVcfPath;
+    private final Path databaseVcfPath;
+    private final List<String> contigs;
+    private final Path referenceIndexPath;
+    private final File outputVcfFile;
+    private static final String USAGE = "dsh-annotate-vcf-ids -d dbsnp.vcf.gz [-i input.vcf.gz] [-c chr1,chr2 | -f reference.fa.fai] [-o output.vcf.gz]";
+
+
+    /**
+     * Annotate variant ids in VCF format from a database in VCF format.
+     *
+     * @since 4.1
+     * @param inputVcfPath coordinate-sorted input VCF path, if any
+     * @param databaseVcfPath coordinate-sorted database VCF path, must not be null
+     * @param outputVcfFile output VCF file, if any
+     */
+    public AnnotateVcfIds(final Path inputVcfPath, final Path databaseVcfPath, final File outputVcfFile) {
+        this(inputVcfPath, databaseVcfPath, Collections.<String>emptyList(), null, outputVcfFile);
+    }
+
+    /**
+     * Annotate variant ids in VCF format from a database in VCF format, sorted by contig in
+     * the order of the specified contigs, followed by the contigs in the specified reference
+     * FASTA index or sequence dictionary, if any, followed by the contigs in their
+     * <code>##contig</code> header lines.
+     *
+     * @since 4.1
+     * @param inputVcfPath coordinate-sorted input VCF path, if any
+     * @param databaseVcfPath coordinate-sorted database VCF path, must not be null
+     * @param contigs contig order, may be empty but must not be null
+     * @param referenceIndexPath reference FASTA index (<code>.fai</code>) or sequence
+     *    dictionary (<code>.dict</code>) path for contig order, if any
+     * @param outputVcfFile output VCF file, if any
+     */
+    public AnnotateVcfIds(final Path inputVcfPath,
+                          final Path databaseVcfPath,
+                          final List<String> contigs,
+                          final Path referenceIndexPath,
+                          final File outputVcfFile) {
+        checkNotNull(databaseVcfPath);
+        checkNotNull(contigs);
+        this.inputVcfPath = inputVcfPath;
+        this.databaseVcfPath = databaseVcfPath;
+        this.contigs = ImmutableList.copyOf(contigs);
+        this.referenceIndexPath = referenceIndexPath;
+        this.outputVcfFile = outputVcfFile;
+    }
+
+
+    @Override
+    public Integer call() throws Exception {
+        BufferedReader inputReader = null;
+        BufferedReader databaseReader = null;
+        BufferedVcfWriter writer = null;
+        try {
+            inputReader = reader(inputVcfPath);
+            databaseReader = reader(databaseVcfPath);
+            writer = new BufferedVcfWriter(writer(outputVcfFile));
+
+            final BufferedVcfWriter w = writer;
+            final List<VcfSample> samples = new ArrayList<VcfSample>();
+
+            VcfMerger.merge(Arrays.asList(inputReader, databaseReader), new VcfMergeAdapter() {
+                    @Override
+                    public void header(final int input, final VcfHeader header) {
+                        try {
+                            if (input == 0) {
+                                w.writeHeader(header);
+                            }
+                            else {
+                                // all input samples have been notified before the database header
+                                w.writeColumnHeader(samples);
+                            }
+                        }
+                        catch (IOException e) {
+                            throw new RuntimeException("could not write VCF header", e);
+                        }
+                    }
+
+                    @Override
+                    public void sample(final int input, final VcfSample sample) {
+                        if (input == 0) {
+                            samples.add(sample);
+                        }
+                    }
+
+                    @Override
+                    public void matched(final VcfRecord... records) {
+                        write(annotate(records[0], records[1]));
+                    }
+
+                    @Override
+                    public void unmatched(final int input, final VcfRecord record) {
+                        if (input == 0) {
+                            write(record);
+                        }
+                    }
+
+                    /**
+                     * Write the specified record.
+                     *
+                     * @param record record to write
+                     */
+                    private void write(final VcfRecord record) {
+                        try {
+                            w.writeRecord(samples, record);
+                        }
+                        catch (IOException e) {
+                            throw new RuntimeException("could not write VCF record", e);
+                        }
+                    }
+                }, true, VcfMerger.AlleleMatching.SUBSET, MergeVcf.contigs(contigs, referenceIndexPath));
+            return 0;
+        }
+        finally {
+            try {
+                inputReader.close();
+            }
+            catch (Exception e) {
+                // ignore
+            }
+            try {
+                databaseReader.close();
+            }
+            catch (Exception e) {
+                // ignore
+            }
+            try {
+                writer.close();
+            }
+            catch (Exception e) {
+                // ignore
+            }
+        }
+    }
+
+    /**
+     * Annotate the specified record with the ID values of the specified database record.
+     *
+     * @param record record to annotate
+     * @param databaseRecord database record
+     * @return the specified record annotated with the ID values of the specified database record
+     */
+    static VcfRecord annotate(final VcfRecord record, final VcfRecord databaseRecord) {
+        if (databaseRecord.getId() == null || databaseRecord.getId().length == 0) {
+            return record;
+        }
+        Set<String> id = new LinkedHashSet<String>();
+        if (record.getId() != null) {
+            id.addAll(Arrays.asList(record.getId()));
+        }
+        id.addAll(Arrays.asList(databaseRecord.getId()));
+        return VcfRecord.builder(record).withId(id.toArray(new String[id.size()])).build();
+    }
+
+
+    /**
+     * Main.
+     *
+     * @param args command line args
+     */
+    public static void main(final String[] args) {
+        Switch about = new Switch("a", "about", "display about message");
+        Switch help = new Switch("h", "help", "display help message");
+        PathArgument inputVcfPath = new PathArgument("i", "input-vcf-path", "coordinate-sorted input VCF path, default stdin", false);
+        PathArgument databaseVcfPath = new PathArgument("d", "database-vcf-path", "coordinate-sorted database VCF path, e.g. dbSNP", true);
+        StringListArgument contigs = new StringListArgument("c", "contigs", "comma-separated list of contigs in sort order, for inputs without ##contig header lines", false);
+        PathArgument referenceIndexPath = new PathArgument("f", "reference-index-path", "reference FASTA index (.fai) or sequence dictionary (.dict) path, for contig sort order", false);
+        FileArgument outputVcfFile = new FileArgument("o", "output-vcf-file", "output VCF file, default stdout", false);
+
+        ArgumentList arguments = new ArgumentList(about, help, inputVcfPath, databaseVcfPath, contigs, referenceIndexPath, outputVcfFile);
+        CommandLine commandLine = new CommandLine(args);
+
+        AnnotateVcfIds annotateVcfIds = null;
+        try {
+            CommandLineParser.parse(commandLine, arguments);
+            if (about.wasFound()) {
+                About.about(System.out);
+                System.exit(0);
+            }
+            if (help.wasFound()) {
+                Usage.usage(USAGE, null, commandLine, arguments, System.out);
+                System.exit(0);
+            }
+            List<String> c = contigs.wasFound() ? contigs.getValue() : Collections.<String>emptyList();
+            annotateVcfIds = new AnnotateVcfIds(inputVcfPath.getValue(), databaseVcfPath.getValue(), c, referenceIndexPath.getValue(), outputVcfFile.getValue());
+        }
+        catch (CommandLineParseException e) {
+            if (about.wasFound()) {
+                About.about(System.out);
+                System.exit(0);
+            }
+            if (help.wasFound()) {
+                Usage.usage(USAGE, null, commandLine, arguments, System.out);
+                System.exit(0);
+            }
+            Usage.usage(USAGE, e, commandLine, arguments, System.err);
+            System.exit(-1);
+        }
+        catch (NullPointerException | IllegalArgumentException e) {
+            Usage.usage(USAGE, e, commandLine, arguments, System.err);
+            System.exit(-1);
+        }
+        try {
+            System.exit(annotateVcfIds.call());
+        }
+        catch (Exception e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+}
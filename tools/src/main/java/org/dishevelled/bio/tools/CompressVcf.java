@@ -28,7 +28,7 @@ import static org.dishevelled.compress.Writers.writer;
 
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.PrintWriter;
+import java.io.IOException;
 
 import java.nio.file.Path;
 
@@ -37,11 +37,11 @@ import java.util.List;
 
 import java.util.concurrent.Callable;
 
+import org.dishevelled.bio.variant.vcf.BufferedVcfWriter;
 import org.dishevelled.bio.variant.vcf.VcfHeader;
 import org.dishevelled.bio.variant.vcf.VcfReader;
 import org.dishevelled.bio.variant.vcf.VcfRecord;
 import org.dishevelled.bio.variant.vcf.VcfSample;
-import org.dishevelled.bio.variant.vcf.VcfWriter;
 import org.dishevelled.bio.variant.vcf.VcfStreamAdapter;
 
 import org.dishevelled.commandline.ArgumentList;
@@ -81,19 +81,24 @@ public final class CompressVcf implements Callable<Integer> {
     @Override
     public Integer call() throws Exception {
         BufferedReader reader = null;
-        PrintWriter writer = null;
+        BufferedVcfWriter writer = null;
         try {
             reader = reader(inputVcfPath);
-            writer = writer(outputVcfFile);
-            
-            final PrintWriter w = writer;
+            writer = new BufferedVcfWriter(writer(outputVcfFile));
+
+            final BufferedVcfWriter w = writer;
             VcfReader.stream(reader, new VcfStreamAdapter() {
                     private boolean wroteSamples = false;
                     private List<VcfSample> samples = new ArrayList<VcfSample>();
 
                     @Override
                     public void header(final VcfHeader header) {
-                        VcfWriter.writeHeader(header, w);
+                        try {
+                            w.writeHeader(header);
+                        }
+                        catch (IOException e) {
+                            throw new RuntimeException("could not write VCF header", e);
+                        }
                     }
 
                     @Override
@@ -103,14 +108,19 @@ public final class CompressVcf implements Callable<Integer> {
 
                     @Override
                     public void record(final VcfRecord record) {
-                        // write out samples
-                        if (!wroteSamples) {
-                            VcfWriter.writeColumnHeader(samples, w);
-                            wroteSamples = true;
+                        try {
+                            // write out samples
+                            if (!wroteSamples) {
+                                w.writeColumnHeader(samples);
+                                wroteSamples = true;
+                            }
+                            w.writeRecord(samples, record);
+                        }
+                        catch (IOException e) {
+                            throw new RuntimeException("could not write VCF record", e);
                         }
-                        VcfWriter.writeRecord(samples, record, w);
                     }
-                });
+                }, true);
 
             return 0;
         }
@@ -238,6 +238,86 @@ public final class FilterBed extends AbstractFilter {
         }
     }
 
+    /**
+     * Expression filter.
+     *
+     * @since 4.1
+     */
+    public static final class ExpressionFilter implements Filter {
+        /** Compiled filter expression. */
+        private final FilterExpression<BedRecord> expression;
+
+        /**
+         * Create a new expression filter with the specified expression.  Identifiers
+         * <code>chrom</code>, <code>start</code>, <code>end</code>, <code>name</code>,
+         * <code>score</code>, and <code>strand</code> resolve to fields of each BED record.
+         *
+         * @param expression expression
+         * @throws IllegalArgumentException if the specified expression is not valid
+         */
+        public ExpressionFilter(final String expression) {
+            this.expression = FilterExpression.compile(expression, BINDINGS);
+        }
+
+        @Override
+        public boolean accept(final BedRecord record) {
+            return expression.test(record);
+        }
+
+        /** BED record bindings. */
+        private static final FilterExpression.Bindings<BedRecord> BINDINGS = new FilterExpression.Bindings<BedRecord>() {
+                @Override
+                public FilterExpression.Accessor<BedRecord> resolve(final String identifier) {
+                    switch (identifier) {
+                    case "chrom":
+                        return new FilterExpression.StringAccessor<BedRecord>() {
+                            @Override
+                            public String get(final BedRecord record) {
+                                return record.getChrom();
+                            }
+                        };
+                    case "start":
+                        return new FilterExpression.NumberAccessor<BedRecord>() {
+                            @Override
+                            public double get(final BedRecord record) {
+                                return record.getStart();
+                            }
+                        };
+                    case "end":
+                        return new FilterExpression.NumberAccessor<BedRecord>() {
+                            @Override
+                            public double get(final BedRecord record) {
+                                return record.getEnd();
+                            }
+                        };
+                    case "name":
+                        return new FilterExpression.StringAccessor<BedRecord>() {
+                            @Override
+                            public String get(final BedRecord record) {
+                                return record.getName();
+                            }
+                        };
+                    case "score":
+                        return new FilterExpression.NumberAccessor<BedRecord>() {
+                            @Override
+                            public double get(final BedRecord record) {
+                                return record.getScore();
+                            }
+                        };
+                    case "strand":
+                        return new FilterExpression.StringAccessor<BedRecord>() {
+                            @Override
+                            public String get(final BedRecord record) {
+                                return record.getStrand();
+                            }
+                        };
+                    default:
+                        return null;
+                    }
+                }
+            };
+    }
+
     /**
      * Main.
      *
@@ -248,7 +328,7 @@ public final class FilterBed extends AbstractFilter {
         Switch help = new Switch("h", "help", "display help message");
         StringArgument rangeFilter = new StringArgument("r", "range", "filter by range, specify as chrom:start-end in 0-based coordindates", false);
         IntegerArgument scoreFilter = new IntegerArgument("s", "score", "filter by score", false);
-        StringArgument scriptFilter = new StringArgument("e", "script", "filter by script, eval against r", false);
+        StringArgument scriptFilter = new StringArgument("e", "script", "filter by expression, or by JavaScript script eval against r", false);
         PathArgument inputBedPath = new PathArgument("i", "input-bed-path", "input BED path, default stdin", false);
         FileArgument outputBedFile = new FileArgument("o", "output-bed-file", "output BED file, default stdout", false);
 
@@ -274,7 +354,16 @@ public final class FilterBed extends AbstractFilter {
                 filters.add(new ScoreFilter(scoreFilter.getValue()));
             }
             if (scriptFilter.wasFound()) {
-                filters.add(new ScriptFilter(scriptFilter.getValue()));
+                try {
+                    filters.add(new ExpressionFilter(scriptFilter.getValue()));
+                }
+                catch (IllegalArgumentException e) {
+                    if (!FilterExpression.isScript(scriptFilter.getValue())) {
+                        throw e;
+                    }
+                    // fall back to script engine
+                    filters.add(new ScriptFilter(scriptFilter.getValue()));
+                }
             }
             filterBed = new FilterBed(filters, inputBedPath.getValue(), outputBedFile.getValue());
         }
@@ -0,0 +1,830 @@
+/*
+
+    dsh-bio-tools  Command line tools.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.tools;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import java.util.regex.Pattern;
+
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * Filter expression, compiled against record accessors without a script engine.
+ *
+ * <p>
+ * Filter expressions support number and quoted string literals, <code>true</code> and
+ * <code>false</code>, identifiers resolved by bindings (e.g. <code>qual</code> or
+ * <code>info.DP</code>), arithmetic operators <code>+ - * / %</code>, comparison operators
+ * <code>== != &lt; &lt;= &gt; &gt;=</code>, logical operators <code>&amp;&amp; || !</code>,
+ * and parentheses, for example
+ * <pre>
+ * qual &gt; 30 &amp;&amp; info.DP &gt;= 10 &amp;&amp; filter == "PASS"
+ * </pre>
+ * String values are converted to numbers when compared with or combined with numbers.
+ * Missing numbers are <code>NaN</code> and missing strings are <code>null</code>, so
+ * comparisons against missing values other than <code>!=</code> evaluate to false.
+ * In a boolean context, a string value is true if present and not equal to <code>"false"</code>,
+ * and a number value is true if present and not equal to zero.
+ * </p>
+ *
+ * <p>
+ * Compiled filter expressions are stateless and thus safe for use by multiple threads.
+ * </p>
+ *
+ * @param <T> record type
+ * @since 4.1
+ * @author  Michael Heuer
+ */
+@Immutable
+public final class FilterExpression<T> {
+    /** Pattern matching a property or element reference to a record <code>r</code>. */
+    private static final Pattern SCRIPT = Pattern.compile("(?<![\\w.$])r\\s*[.\\[]");
+
+    /** Expression. */
+    private final String expression;
+
+    /** Compiled expression. */
+    private final BooleanAccessor<T> compiled;
+
+
+    /**
+     * Create a new filter expression.
+     *
+     * @param expression expression
+     * @param compiled compiled expression
+     */
+    private FilterExpression(final String expression, final BooleanAccessor<T> compiled) {
+        this.expression = expression;
+        this.compiled = compiled;
+    }
+
+
+    /**
+     * Return true if the specified record is accepted by this filter expression.
+     *
+     * @param record record
+     * @return true if the specified record is accepted by this filter expression
+     */
+    public boolean test(final T record) {
+        return compiled.get(record);
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+
+
+    /**
+     * Compile the specified expression against the specified bindings.
+     *
+     * @param <T> record type
+     * @param expression expression to compile, must not be null
+     * @param bindings bindings, must not be null
+     * @return the specified expression compiled against the specified bindings
+     * @throws IllegalArgumentException if the specified expression is not valid
+     *    or refers to identifiers not resolved by the specified bindings
+     */
+    public static <T> FilterExpression<T> compile(final String expression, final Bindings<T> bindings) {
+        checkNotNull(expression);
+        checkNotNull(bindings);
+        Compiler<T> compiler = new Compiler<T>(expression, bindings);
+        return new FilterExpression<T>(expression, compiler.compile());
+    }
+
+    /**
+     * Return true if the specified text looks like a JavaScript script evaluated against
+     * a record <code>r</code> rather than a filter expression, that is if it refers to a
+     * property or element of <code>r</code>, e.g. <code>r.qual</code> or <code>r["qual"]</code>.
+     *
+     * @param text text, must not be null
+     * @return true if the specified text looks like a JavaScript script evaluated against
+     *    a record <code>r</code>
+     */
+    public static boolean isScript(final String text) {
+        checkNotNull(text);
+        return SCRIPT.matcher(text).find();
+    }
+
+
+    /**
+     * Bindings, resolves identifiers to record accessors.
+     *
+     * @param <T> record type
+     */
+    public interface Bindings<T> {
+
+        /**
+         * Return the record accessor for the specified identifier, or <code>null</code> if
+         * the specified identifier cannot be resolved.
+         *
+         * @param identifier identifier
+         * @return the record accessor for the specified identifier, or <code>null</code> if
+         *    the specified identifier cannot be resolved
+         */
+        Accessor<T> resolve(String identifier);
+    }
+
+    /**
+     * Record accessor.
+     *
+     * @param <T> record type
+     */
+    public abstract static class Accessor<T> {
+
+        /**
+         * Package-private no-arg constructor.
+         */
+        Accessor() {
+            // empty
+        }
+    }
+
+    /**
+     * Number record accessor.
+     *
+     * @param <T> record type
+     */
+    public abstract static class NumberAccessor<T> extends Accessor<T> {
+
+        /**
+         * Return the number value for the specified record.
+         *
+         * @param record record
+         * @return the number value for the specified record, or <code>NaN</code> if missing
+         */
+        public abstract double get(T record);
+    }
+
+    /**
+     * String record accessor.
+     *
+     * @param <T> record type
+     */
+    public abstract static class StringAccessor<T> extends Accessor<T> {
+
+        /**
+         * Return the string value for the specified record.
+         *
+         * @param record record
+         * @return the string value for the specified record, or <code>null</code> if missing
+         */
+        public abstract String get(T record);
+    }
+
+    /**
+     * Boolean record accessor.
+     *
+     * @param <T> record type
+     */
+    public abstract static class BooleanAccessor<T> extends Accessor<T> {
+
+        /**
+         * Return the boolean value for the specified record.
+         *
+         * @param record record
+         * @return the boolean value for the specified record
+         */
+        public abstract boolean get(T record);
+    }
+
+
+    /**
+     * Token types.
+     */
+    private enum TokenType {
+        /** Number literal. */
+        NUMBER,
+
+        /** String literal. */
+        STRING,
+
+        /** Identifier. */
+        IDENTIFIER,
+
+        /** Operator or parenthesis. */
+        OPERATOR,
+
+        /** End of expression. */
+        END
+    }
+
+    /**
+     * Token.
+     */
+    private static final class Token {
+        /** Token type. */
+        private final TokenType type;
+
+        /** Token text, or string literal value. */
+        private final String text;
+
+        /** Position of this token in the expression. */
+        private final int position;
+
+
+        /**
+         * Create a new token.
+         *
+         * @param type token type
+         * @param text token text
+         * @param position position of this token in the expression
+         */
+        private Token(final TokenType type, final String text, final int position) {
+            this.type = type;
+            this.text = text;
+            this.position = position;
+        }
+
+
+        /**
+         * Return true if this token is the specified operator.
+         *
+         * @param operator operator
+         * @return true if this token is the specified operator
+         */
+        private boolean is(final String operator) {
+            return type == TokenType.OPERATOR && text.equals(operator);
+        }
+    }
+
+    /**
+     * Recursive descent compiler.
+     *
+     * @param <T> record type
+     */
+    private static final class Compiler<T> {
+        /** Expression. */
+        private final String expression;
+
+        /** Bindings. */
+        private final Bindings<T> bindings;
+
+        /** Tokens. */
+        private final List<Token> tokens;
+
+        /** Index of the current token. */
+        private int index = 0;
+
+
+        /**
+         * Create a new compiler.
+         *
+         * @param expression expression
+         * @param bindings bindings
+         */
+        private Compiler(final String expression, final Bindings<T> bindings) {
+            this.expression = expression;
+            this.bindings = bindings;
+            this.tokens = tokenize(expression);
+        }
+
+
+        /**
+         * Compile the expression.
+         *
+         * @return the compiled expression
+         */
+        private BooleanAccessor<T> compile() {
+            Accessor<T> accessor = or();
+            if (peek().type != TokenType.END) {
+                throw error("unexpected token " + peek().text, peek());
+            }
+            return toBoolean(accessor);
+        }
+
+        /**
+         * Return the current token.
+         *
+         * @return the current token
+         */
+        private Token peek() {
+            return tokens.get(index);
+        }
+
+        /**
+         * Return the current token and advance to the next token.
+         *
+         * @return the current token
+         */
+        private Token next() {
+            Token token = tokens.get(index);
+            if (token.type != TokenType.END) {
+                index++;
+            }
+            return token;
+        }
+
+        /**
+         * Create and return a new illegal argument exception for the specified message and token.
+         *
+         * @param message message
+         * @param token token
+         * @return a new illegal argument exception for the specified message and token
+         */
+        private IllegalArgumentException error(final String message, final Token token) {
+            return new IllegalArgumentException("could not compile expression " + expression + ", " + message + " at position " + token.position);
+        }
+
+        /**
+         * Compile <code>and ('||' and)*</code>.
+         *
+         * @return the compiled accessor
+         */
+        private Accessor<T> or() {
+            Accessor<T> left = and();
+            while (peek().is("||")) {
+                next();
+                final BooleanAccessor<T> a = toBoolean(left);
+                final BooleanAccessor<T> b = toBoolean(and());
+                left = new BooleanAccessor<T>() {
+                        @Override
+                        public boolean get(final T record) {
+                            return a.get(record) || b.get(record);
+                        }
+                    };
+            }
+            return left;
+        }
+
+        /**
+         * Compile <code>not ('&amp;&amp;' not)*</code>.
+         *
+         * @return the compiled accessor
+         */
+        private Accessor<T> and() {
+            Accessor<T> left = not();
+            while (peek().is("&&")) {
+                next();
+                final BooleanAccessor<T> a = toBoolean(left);
+                final BooleanAccessor<T> b = toBoolean(not());
+                left = new BooleanAccessor<T>() {
+                        @Override
+                        public boolean get(final T record) {
+                            return a.get(record) && b.get(record);
+                        }
+                    };
+            }
+            return left;
+        }
+
+        /**
+         * Compile <code>'!' not | comparison</code>.
+         *
+         * @return the compiled accessor
+         */
+        private Accessor<T> not() {
+            if (peek().is("!")) {
+                next();
+                final BooleanAccessor<T> a = toBoolean(not());
+                return new BooleanAccessor<T>() {
+                    @Override
+                    public boolean get(final T record) {
+                        return !a.get(record);
+                    }
+                };
+            }
+            return comparison();
+        }
+
+        /**
+         * Compile <code>sum (('==' | '!=' | '&lt;' | '&lt;=' | '&gt;' | '&gt;=') sum)?</code>.
+         *
+         * @return the compiled accessor
+         */
+        private Accessor<T> comparison() {
+            Accessor<T> left = sum();
+            Token token = peek();
+            if (token.is("==") || token.is("!=") || token.is("<") || token.is("<=") || token.is(">") || token.is(">=")) {
+                next();
+                Accessor<T> right = sum();
+                return compare(token, left, right);
+            }
+            return left;
+        }
+
+        /**
+         * Compile <code>product (('+' | '-') product)*</code>.
+         *
+         * @return the compiled accessor
+         */
+        private Accessor<T> sum() {
+            Accessor<T> left = product();
+            while (peek().is("+") || peek().is("-")) {
+                Token token = next();
+                left = arithmetic(token, left, product());
+            }
+            return left;
+        }
+
+        /**
+         * Compile <code>unary (('*' | '/' | '%') unary)*</code>.
+         *
+         * @return the compiled accessor
+         */
+        private Accessor<T> product() {
+            Accessor<T> left = unary();
+            while (peek().is("*") || peek().is("/") || peek().is("%")) {
+                Token token = next();
+                left = arithmetic(token, left, unary());
+            }
+            return left;
+        }
+
+        /**
+         * Compile <code>'-' unary | primary</code>.
+         *
+         * @return the compiled accessor
+         */
+        private Accessor<T> unary() {
+            if (peek().is("-")) {
+                Token token = next();
+                final NumberAccessor<T> a = toNumber(unary(), token);
+                return new NumberAccessor<T>() {
+                    @Override
+                    public double get(final T record) {
+                        return -a.get(record);
+                    }
+                };
+            }
+            return primary();
+        }
+
+        /**
+         * Compile <code>number | string | identifier | '(' or ')'</code>.
+         *
+         * @return the compiled accessor
+         */
+        private Accessor<T> primary() {
+            Token token = next();
+            switch (token.type) {
+            case NUMBER:
+                final double number = Double.parseDouble(token.text);
+                return new NumberAccessor<T>() {
+                    @Override
+                    public double get(final T record) {
+                        return number;
+                    }
+                };
+            case STRING:
+                final String string = token.text;
+                return new StringAccessor<T>() {
+                    @Override
+                    public String get(final T record) {
+                        return string;
+                    }
+                };
+            case IDENTIFIER:
+                if ("true".equals(token.text) || "false".equals(token.text)) {
+                    final boolean value = "true".equals(token.text);
+                    return new BooleanAccessor<T>() {
+                        @Override
+                        public boolean get(final T record) {
+                            return value;
+                        }
+                    };
+                }
+                Accessor<T> accessor = bindings.resolve(token.text);
+                if (accessor == null) {
+                    throw error("unknown identifier " + token.text, token);
+                }
+                return accessor;
+            case OPERATOR:
+                if (token.is("(")) {
+                    Accessor<T> inner = or();
+                    if (!next().is(")")) {
+                        throw error("expected )", token);
+                    }
+                    return inner;
+                }
+                throw error("unexpected token " + token.text, token);
+            default:
+                throw error("unexpected end of expression", token);
+            }
+        }
+
+        /**
+         * Compile the specified comparison.
+         *
+         * @param operator operator token
+         * @param left left operand
+         * @param right right operand
+         * @return the compiled comparison
+         */
+        private BooleanAccessor<T> compare(final Token operator, final Accessor<T> left, final Accessor<T> right) {
+            final String op = operator.text;
+            if (left instanceof NumberAccessor || right instanceof NumberAccessor) {
+                final NumberAccessor<T> a = toNumber(left, operator);
+                final NumberAccessor<T> b = toNumber(right, operator);
+                switch (op) {
+                case "==":
+                    return new BooleanAccessor<T>() {
+                        @Override
+                        public boolean get(final T record) {
+                            return a.get(record) == b.get(record);
+                        }
+                    };
+                case "!=":
+                    return new BooleanAccessor<T>() {
+                        @Override
+                        public boolean get(final T record) {
+                            return a.get(record) != b.get(record);
+                        }
+                    };
+                case "<":
+                    return new BooleanAccessor<T>() {
+                        @Override
+                        public boolean get(final T record) {
+                            return a.get(record) < b.get(record);
+                        }
+                    };
+                case "<=":
+                    return new BooleanAccessor<T>() {
+                        @Override
+                        public boolean get(final T record) {
+                            return a.get(record) <= b.get(record);
+                        }
+                    };
+                case ">":
+                    return new BooleanAccessor<T>() {
+                        @Override
+                        public boolean get(final T record) {
+                            return a.get(record) > b.get(record);
+                        }
+                    };
+                default:
+                    return new BooleanAccessor<T>() {
+                        @Override
+                        public boolean get(final T record) {
+                            return a.get(record) >= b.get(record);
+                        }
+                    };
+                }
+            }
+            if (left instanceof StringAccessor && right instanceof StringAccessor) {
+                final StringAccessor<T> a = (StringAccessor<T>) left;
+                final StringAccessor<T> b = (StringAccessor<T>) right;
+                if ("==".equals(op) || "!=".equals(op)) {
+                    final boolean equal = "==".equals(op);
+                    return new BooleanAccessor<T>() {
+                        @Override
+                        public boolean get(final T record) {
+                            String s = a.get(record);
+                            String t = b.get(record);
+                            return (s != null && t != null && s.equals(t)) == equal;
+                        }
+                    };
+                }
+                return new BooleanAccessor<T>() {
+                    @Override
+                    public boolean get(final T record) {
+                        String s = a.get(record);
+                        String t = b.get(record);
+                        if (s == null || t == null) {
+                            return false;
+                        }
+                        int c = s.compareTo(t);
+                        return "<".equals(op) ? c < 0 : "<=".equals(op) ? c <= 0 : ">".equals(op) ? c > 0 : c >= 0;
+                    }
+                };
+            }
+            if ("==".equals(op) || "!=".equals(op)) {
+                final BooleanAccessor<T> a = toBoolean(left);
+                final BooleanAccessor<T> b = toBoolean(right);
+                final boolean equal = "==".equals(op);
+                return new BooleanAccessor<T>() {
+                    @Override
+                    public boolean get(final T record) {
+                        return (a.get(record) == b.get(record)) == equal;
+                    }
+                };
+            }
+            throw error("operator " + op + " not supported for boolean values", operator);
+        }
+
+        /**
+         * Compile the specified arithmetic operation.
+         *
+         * @param operator operator token
+         * @param left left operand
+         * @param right right operand
+         * @return the compiled arithmetic operation
+         */
+        private NumberAccessor<T> arithmetic(final Token operator, final Accessor<T> left, final Accessor<T> right) {
+            final NumberAccessor<T> a = toNumber(left, operator);
+            final NumberAccessor<T> b = toNumber(right, operator);
+            switch (operator.text) {
+            case "+":
+                return new NumberAccessor<T>() {
+                    @Override
+                    public double get(final T record) {
+                        return a.get(record) + b.get(record);
+                    }
+                };
+            case "-":
+                return new NumberAccessor<T>() {
+                    @Override
+                    public double get(final T record) {
+                        return a.get(record) - b.get(record);
+                    }
+                };
+            case "*":
+                return new NumberAccessor<T>() {
+                    @Override
+                    public double get(final T record) {
+                        return a.get(record) * b.get(record);
+                    }
+                };
+            case "/":
+                return new NumberAccessor<T>() {
+                    @Override
+                    public double get(final T record) {
+                        return a.get(record) / b.get(record);
+                    }
+                };
+            default:
+                return new NumberAccessor<T>() {
+                    @Override
+                    public double get(final T record) {
+                        return a.get(record) % b.get(record);
+                    }
+                };
+            }
+        }
+
+        /**
+         * Convert the specified accessor to a number accessor.
+         *
+         * @param accessor accessor
+         * @param token token, for error messages
+         * @return the specified accessor converted to a number accessor
+         */
+        private NumberAccessor<T> toNumber(final Accessor<T> accessor, final Token token) {
+            if (accessor instanceof NumberAccessor) {
+                return (NumberAccessor<T>) accessor;
+            }
+            if (accessor instanceof StringAccessor) {
+                final StringAccessor<T> a = (StringAccessor<T>) accessor;
+                return new NumberAccessor<T>() {
+                    @Override
+                    public double get(final T record) {
+                        return parseNumber(a.get(record));
+                    }
+                };
+            }
+            throw error("expected number or string operand for " + token.text, token);
+        }
+
+        /**
+         * Convert the specified accessor to a boolean accessor.
+         *
+         * @param accessor accessor
+         * @return the specified accessor converted to a boolean accessor
+         */
+        private BooleanAccessor<T> toBoolean(final Accessor<T> accessor) {
+            if (accessor instanceof BooleanAccessor) {
+                return (BooleanAccessor<T>) accessor;
+            }
+            if (accessor instanceof NumberAccessor) {
+                final NumberAccessor<T> a = (NumberAccessor<T>) accessor;
+                return new BooleanAccessor<T>() {
+                    @Override
+                    public boolean get(final T record) {
+                        double value = a.get(record);
+                        return !Double.isNaN(value) && value != 0.0d;
+                    }
+                };
+            }
+            final StringAccessor<T> a = (StringAccessor<T>) accessor;
+            return new BooleanAccessor<T>() {
+                @Override
+                public boolean get(final T record) {
+                    String value = a.get(record);
+                    return value != null && !"false".equals(value);
+                }
+            };
+        }
+
+        /**
+         * Tokenize the specified expression.
+         *
+         * @param expression expression
+         * @return the specified expression tokenized
+         */
+        private List<Token> tokenize(final String expression) {
+            List<Token> result = new ArrayList<Token>();
+            int length = expression.length();
+            int i = 0;
+            while (i < length) {
+                char c = expression.charAt(i);
+                int start = i;
+                if (Character.isWhitespace(c)) {
+                    i++;
+                }
+                else if (Character.isDigit(c) || (c == '.' && i + 1 < length && Character.isDigit(expression.charAt(i + 1)))) {
+                    while (i < length && (Character.isDigit(expression.charAt(i)) || expression.charAt(i) == '.')) {
+                        i++;
+                    }
+                    if (i < length && (expression.charAt(i) == 'e' || expression.charAt(i) == 'E')) {
+                        i++;
+                        if (i < length && (expression.charAt(i) == '-' || expression.charAt(i) == '+')) {
+                            i++;
+                        }
+                        while (i < length && Character.isDigit(expression.charAt(i))) {
+                            i++;
+                        }
+                    }
+                    String text = expression.substring(start, i);
+                    try {
+                        Double.parseDouble(text);
+                    }
+                    catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("could not compile expression " + expression + ", invalid number " + text + " at position " + start);
+                    }
+                    result.add(new Token(TokenType.NUMBER, text, start));
+                }
+                else if (c == '"' || c == '\'') {
+                    StringBuilder sb = new StringBuilder();
+                    i++;
+                    while (i < length && expression.charAt(i) != c) {
+                        if (expression.charAt(i) == '\\' && i + 1 < length) {
+                            i++;
+                        }
+                        sb.append(expression.charAt(i));
+                        i++;
+                    }
+                    if (i == length) {
+                        throw new IllegalArgumentException("could not compile expression " + expression + ", unterminated string at position " + start);
+                    }
+                    i++;
+                    result.add(new Token(TokenType.STRING, sb.toString(), start));
+                }
+                else if (Character.isLetter(c) || c == '_') {
+                    while (i < length && (Character.isLetterOrDigit(expression.charAt(i)) || expression.charAt(i) == '_' || expression.charAt(i) == '.')) {
+                        i++;
+                    }
+                    result.add(new Token(TokenType.IDENTIFIER, expression.substring(start, i), start));
+                }
+                else {
+                    String two = i + 1 < length ? expression.substring(i, i + 2) : "";
+                    if ("&&".equals(two) || "||".equals(two) || "==".equals(two) || "!=".equals(two) || "<=".equals(two) || ">=".equals(two)) {
+                        i += 2;
+                        result.add(new Token(TokenType.OPERATOR, two, start));
+                    }
+                    else if ("!<>+-*/%()".indexOf(c) >= 0) {
+                        i++;
+                        result.add(new Token(TokenType.OPERATOR, String.valueOf(c), start));
+                    }
+                    else {
+                        throw new IllegalArgumentException("could not compile expression " + expression + ", unexpected character " + c + " at position " + start);
+                    }
+                }
+            }
+            result.add(new Token(TokenType.END, "", length));
+            return result;
+        }
+    }
+
+    /**
+     * Parse the specified value into a number.
+     *
+     * @param value value
+     * @return the specified value parsed into a number, or <code>NaN</code> if
+     *    the specified value is missing or not a number
+     */
+    static double parseNumber(final String value) {
+        if (value == null || value.isEmpty()) {
+            return Double.NaN;
+        }
+        try {
+            return Double.parseDouble(value);
+        }
+        catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+}
@@ -246,6 +246,140 @@ public final class FilterGaf extends AbstractFilter {
         }
     }
 
+    /**
+     * Expression filter.
+     *
+     * @since 4.1
+     */
+    public static final class ExpressionFilter implements Filter {
+        /** Compiled filter expression. */
+        private final FilterExpression<GafRecord> expression;
+
+        /**
+         * Create a new expression filter with the specified expression.  Identifiers
+         * <code>queryName</code>, <code>queryLength</code>, <code>queryStart</code>,
+         * <code>queryEnd</code>, <code>strand</code>, <code>pathName</code>, <code>pathLength</code>,
+         * <code>pathStart</code>, <code>pathEnd</code>, <code>matches</code>,
+         * <code>alignmentBlockLength</code>, <code>mappingQuality</code>, and <code>tag.TAG</code>
+         * resolve to fields of each GAF record.
+         *
+         * @param expression expression
+         * @throws IllegalArgumentException if the specified expression is not valid
+         */
+        public ExpressionFilter(final String expression) {
+            this.expression = FilterExpression.compile(expression, BINDINGS);
+        }
+
+        @Override
+        public boolean accept(final GafRecord record) {
+            return expression.test(record);
+        }
+
+        /** GAF record bindings. */
+        private static final FilterExpression.Bindings<GafRecord> BINDINGS = new FilterExpression.Bindings<GafRecord>() {
+                @Override
+                public FilterExpression.Accessor<GafRecord> resolve(final String identifier) {
+                    if (identifier.startsWith("tag.") && identifier.length() > 4) {
+                        final String key = identifier.substring(4);
+                        return new FilterExpression.StringAccessor<GafRecord>() {
+                            @Override
+                            public String get(final GafRecord record) {
+                                return record.containsAnnotationKey(key) ? record.getAnnotation(key).getValue() : null;
+                            }
+                        };
+                    }
+                    switch (identifier) {
+                    case "queryName":
+                        return new FilterExpression.StringAccessor<GafRecord>() {
+                            @Override
+                            public String get(final GafRecord record) {
+                                return record.getQueryName();
+                            }
+                        };
+                    case "queryLength":
+                        return new FilterExpression.NumberAccessor<GafRecord>() {
+                            @Override
+                            public double get(final GafRecord record) {
+                                return record.getQueryLength();
+                            }
+                        };
+                    case "queryStart":
+                        return new FilterExpression.NumberAccessor<GafRecord>() {
+                            @Override
+                            public double get(final GafRecord record) {
+                                return record.getQueryStart();
+                            }
+                        };
+                    case "queryEnd":
+                        return new FilterExpression.NumberAccessor<GafRecord>() {
+                            @Override
+                            public double get(final GafRecord record) {
+                                return record.getQueryEnd();
+                            }
+                        };
+                    case "strand":
+                        return new FilterExpression.StringAccessor<GafRecord>() {
+                            @Override
+                            public String get(final GafRecord record) {
+                                return String.valueOf(record.getStrand());
+                            }
+                        };
+                    case "pathName":
+                        return new FilterExpression.StringAccessor<GafRecord>() {
+                            @Override
+                            public String get(final GafRecord record) {
+                                return record.getPathName();
+                            }
+                        };
+                    case "pathLength":
+                        return new FilterExpression.NumberAccessor<GafRecord>() {
+                            @Override
+                            public double get(final GafRecord record) {
+                                return record.getPathLength();
+                            }
+                        };
+                    case "pathStart":
+                        return new FilterExpression.NumberAccessor<GafRecord>() {
+                            @Override
+                            public double get(final GafRecord record) {
+                                return record.getPathStart();
+                            }
+                        };
+                    case "pathEnd":
+                        return new FilterExpression.NumberAccessor<GafRecord>() {
+                            @Override
+                            public double get(final GafRecord record) {
+                                return record.getPathEnd();
+                            }
+                        };
+                    case "matches":
+                        return new FilterExpression.NumberAccessor<GafRecord>() {
+                            @Override
+                            public double get(final GafRecord record) {
+                                return record.getMatches();
+                            }
+                        };
+                    case "alignmentBlockLength":
+                        return new FilterExpression.NumberAccessor<GafRecord>() {
+                            @Override
+                            public double get(final GafRecord record) {
+                                return record.getAlignmentBlockLength();
+                            }
+                        };
+                    case "mappingQuality":
+                        return new FilterExpression.NumberAccessor<GafRecord>() {
+                            @Override
+                            public double get(final GafRecord record) {
+                                return record.getMappingQuality();
+                            }
+                        };
+                    default:
+                        return null;
+                    }
+                }
+            };
+    }
+
     /**
      * Main.
      *
@@ -256,7 +390,7 @@ public final class FilterGaf extends AbstractFilter {
         Switch help = new Switch("h", "help", "display help message");
         StringArgument queryRangeFilter = new StringArgument("r", "query", "filter by query range, specify as queryName:start-end in 0-based coordindates", false);
         IntegerArgument mappingQualityFilter = new IntegerArgument("q", "mapping-quality", "filter by mapping quality", false);
-        StringArgument scriptFilter = new StringArgument("e", "script", "filter by script, eval against r", false);
+        StringArgument scriptFilter = new StringArgument("e", "script", "filter by expression, or by JavaScript script eval against r", false);
         PathArgument inputGafPath = new PathArgument("i", "input-gaf-path", "input GAF path, default stdin", false);
         FileArgument outputGafFile = new FileArgument("o", "output-gaf-file", "output GAF file, default stdout", false);
 
@@ -282,7 +416,16 @@ public final class FilterGaf extends AbstractFilter {
                 filters.add(new MappingQualityFilter(mappingQualityFilter.getValue()));
             }
             if (scriptFilter.wasFound()) {
-                filters.add(new ScriptFilter(scriptFilter.getValue()));
+                try {
+                    filters.add(new ExpressionFilter(scriptFilter.getValue()));
+                }
+                catch (IllegalArgumentException e) {
+                    if (!FilterExpression.isScript(scriptFilter.getValue())) {
+                        throw e;
+                    }
+                    // fall back to script engine
+                    filters.add(new ScriptFilter(scriptFilter.getValue()));
+                }
             }
             filterGaf = new FilterGaf(filters, inputGafPath.getValue(), outputGafFile.getValue());
         }
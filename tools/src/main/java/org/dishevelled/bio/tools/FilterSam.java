@@ -23,14 +23,24 @@
 */
 package org.dishevelled.bio.tools;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import static org.dishevelled.compress.Readers.reader;
 import static org.dishevelled.compress.Writers.writer;
 
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.PrintWriter;
 
+import java.nio.charset.StandardCharsets;
+
+import java.nio.file.Files;
 import java.nio.file.Path;
 
 import java.util.ArrayList;
@@ -49,12 +59,17 @@ import com.google.common.collect.Range;
 
 import org.dishevelled.bio.range.Ranges;
 
+import org.dishevelled.bio.alignment.sam.BamReader;
+import org.dishevelled.bio.alignment.sam.BamWriter;
 import org.dishevelled.bio.alignment.sam.SamHeader;
 import org.dishevelled.bio.alignment.sam.SamReader;
 import org.dishevelled.bio.alignment.sam.SamRecord;
 import org.dishevelled.bio.alignment.sam.SamWriter;
 import org.dishevelled.bio.alignment.sam.SamListener;
 
+import org.dishevelled.bio.bgzf.Bgzf;
+import org.dishevelled.bio.bgzf.ParallelBgzfInputStream;
+
 import org.dishevelled.commandline.ArgumentList;
 import org.dishevelled.commandline.CommandLine;
 import org.dishevelled.commandline.CommandLineParseException;
@@ -68,7 +83,7 @@ import org.dishevelled.commandline.argument.PathArgument;
 import org.dishevelled.commandline.argument.StringArgument;
 
 /**
- * Filter alignments in SAM format.
+ * Filter alignments in SAM or BAM format.
  *
  * @since 1.1
  * @author  Michael Heuer
@@ -77,6 +92,8 @@ public final class FilterSam extends AbstractFilter {
     private final List<Filter> filters;
     private final Path inputSamPath;
     private final File outputSamFile;
+    private final int threads;
+    static final int DEFAULT_THREADS = 1;
     private static final String USAGE = "dsh-filter-sam --mapq 30 -i input.sam.bgz -o output.sam.bgz";
 
 
@@ -89,49 +106,150 @@ public final class FilterSam extends AbstractFilter {
      * @param outputSamFile output SAM file, if any
      */
     public FilterSam(final List<Filter> filters, final Path inputSamPath, final File outputSamFile) {
+        this(filters, inputSamPath, outputSamFile, DEFAULT_THREADS);
+    }
+
+    /**
+     * Filter alignments in SAM or BAM format.
+     *
+     * @since 4.1
+     * @param filters list of filters, must not be null
+     * @param inputSamPath input SAM or BAM path, if any
+     * @param outputSamFile output SAM or BAM file, if any
+     * @param threads number of parser threads, must be at least one
+     */
+    public FilterSam(final List<Filter> filters, final Path inputSamPath, final File outputSamFile, final int threads) {
         checkNotNull(filters);
+        checkArgument(threads > 0, "threads must be at least one");
         this.filters = ImmutableList.copyOf(filters);
         this.inputSamPath = inputSamPath;
         this.outputSamFile = outputSamFile;
+        this.threads = threads;
     }
 
 
     @Override
     public Integer call() throws Exception {
-        PrintWriter writer = null;
-        try {
-            writer = writer(outputSamFile);
-
-            final PrintWriter w = writer;
-            SamReader.stream(reader(inputSamPath), new SamListener() {
-                    @Override
-                    public boolean header(final SamHeader header) {
-                        SamWriter.writeHeader(header, w);
-                        return true;
-                    }
+        try (FilterListener listener = new FilterListener()) {
+            if (inputSamPath != null && BamReader.isBam(inputSamPath)) {
+                RangeFilter rangeFilter = rangeFilter();
+                if (rangeFilter != null && BamReader.isIndexed(inputSamPath)) {
+                    // seek to overlapping blocks with the index, range filter still applies
+                    BamReader.query(inputSamPath, rangeFilter.getChrom(), rangeFilter.getStart(), rangeFilter.getEnd(), listener);
+                }
+                else {
+                    BamReader.stream(inputSamPath, listener, threads);
+                }
+            }
+            else if (threads > 1 && inputSamPath != null && Bgzf.isBgzf(inputSamPath)) {
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(new ParallelBgzfInputStream(Files.newInputStream(inputSamPath), threads), StandardCharsets.UTF_8))) {
+                    SamReader.streamParallel(reader, listener, threads);
+                }
+            }
+            else if (threads > 1) {
+                SamReader.streamParallel(reader(inputSamPath), listener, threads);
+            }
+            else {
+                SamReader.stream(reader(inputSamPath), listener);
+            }
+            return 0;
+        }
+    }
 
-                    @Override
-                    public boolean record(final SamRecord record) {
-                        // write out record
-                        boolean pass = true;
-                        for (Filter filter : filters) {
-                            pass &= filter.accept(record);
-                        }
-                        if (pass) {
-                            SamWriter.writeRecord(record, w);
-                        }
-                        return true;
-                    }
-                });
+    /**
+     * Return the first range filter, if any.
+     *
+     * @return the first range filter, or <code>null</code> if no range filter is configured
+     */
+    private RangeFilter rangeFilter() {
+        for (Filter filter : filters) {
+            if (filter instanceof RangeFilter) {
+                return (RangeFilter) filter;
+            }
+        }
+        return null;
+    }
 
-            return 0;
+    /**
+     * Return true if the specified output file should be written in BAM format.
+     *
+     * @param file output file, if any
+     * @return true if the specified output file should be written in BAM format
+     */
+    static boolean isBam(final File file) {
+        return file != null && file.getName().endsWith(".bam");
+    }
+
+    /**
+     * Filter listener, writes records accepted by all filters in SAM format, or in
+     * BAM format if the output SAM file name ends with <code>.bam</code>.
+     */
+    private final class FilterListener implements SamListener, Closeable {
+        /** SAM writer, if writing SAM format. */
+        private PrintWriter writer;
+
+        /** BAM writer, if writing BAM format, created on header. */
+        private BamWriter bamWriter;
+
+
+        /**
+         * Create a new filter listener.
+         *
+         * @throws IOException if an I/O error occurs
+         */
+        private FilterListener() throws IOException {
+            if (!isBam(outputSamFile)) {
+                writer = writer(outputSamFile);
+            }
         }
-        finally {
-            try {
+
+
+        @Override
+        public boolean header(final SamHeader header) {
+            if (writer != null) {
+                SamWriter.writeHeader(header, writer);
+            }
+            else {
+                try {
+                    bamWriter = new BamWriter(new BufferedOutputStream(new FileOutputStream(outputSamFile)), header, threads);
+                }
+                catch (IOException e) {
+                    throw new RuntimeException("could not write BAM header", e);
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public boolean record(final SamRecord record) {
+            // write out record
+            boolean pass = true;
+            for (Filter filter : filters) {
+                pass &= filter.accept(record);
+            }
+            if (pass) {
+                if (bamWriter != null) {
+                    try {
+                        bamWriter.write(record);
+                    }
+                    catch (IOException e) {
+                        throw new RuntimeException("could not write BAM record", e);
+                    }
+                }
+                else {
+                    SamWriter.writeRecord(record, writer);
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (writer != null) {
                 writer.close();
             }
-            catch (Exception e) {
-                // empty
+            if (bamWriter != null) {
+                bamWriter.close();
             }
         }
     }
@@ -151,7 +269,7 @@ public final class FilterSam extends AbstractFilter {
     }
 
     /**
-     * Range filter.
+     * Range filter, accepts SAM records whose aligned reference span overlaps the range.
      */
     public static final class RangeFilter implements Filter {
         /** Chromosome. */
@@ -180,9 +298,36 @@ public final class FilterSam extends AbstractFilter {
             this.range = Range.closedOpen(start, end);
         }
 
+        /**
+         * Return the chromosome for this range filter.
+         *
+         * @return the chromosome for this range filter
+         */
+        String getChrom() {
+            return chrom;
+        }
+
+        /**
+         * Return the start for this range filter, in 0-based coordinates.
+         *
+         * @return the start for this range filter, in 0-based coordinates
+         */
+        long getStart() {
+            return range.lowerEndpoint();
+        }
+
+        /**
+         * Return the end for this range filter, in 0-based coordinates.
+         *
+         * @return the end for this range filter, in 0-based coordinates
+         */
+        long getEnd() {
+            return range.upperEndpoint();
+        }
+
         @Override
         public boolean accept(final SamRecord record) {
-            return chrom.equals(record.getRname()) && Ranges.intersect(range, Range.singleton(record.getPos() - 1L));
+            return chrom.equals(record.getRname()) && Ranges.intersect(range, Range.closedOpen(record.getPos() - 1L, record.getReferenceEnd()));
         }
     }
 
@@ -244,6 +389,132 @@ public final class FilterSam extends AbstractFilter {
         }
     }
 
+    /**
+     * Expression filter.
+     *
+     * @since 4.1
+     */
+    public static final class ExpressionFilter implements Filter {
+        /** Compiled filter expression. */
+        private final FilterExpression<SamRecord> expression;
+
+        /**
+         * Create a new expression filter with the specified expression.  Identifiers
+         * <code>qname</code>, <code>flag</code>, <code>rname</code>, <code>pos</code>,
+         * <code>mapq</code>, <code>cigar</code>, <code>rnext</code>, <code>pnext</code>,
+         * <code>tlen</code>, <code>seq</code>, <code>qual</code>, and <code>tag.TAG</code>
+         * resolve to fields of each SAM record.
+         *
+         * @param expression expression
+         * @throws IllegalArgumentException if the specified expression is not valid
+         */
+        public ExpressionFilter(final String expression) {
+            this.expression = FilterExpression.compile(expression, BINDINGS);
+        }
+
+        @Override
+        public boolean accept(final SamRecord record) {
+            return expression.test(record);
+        }
+
+        /** SAM record bindings. */
+        private static final FilterExpression.Bindings<SamRecord> BINDINGS = new FilterExpression.Bindings<SamRecord>() {
+                @Override
+                public FilterExpression.Accessor<SamRecord> resolve(final String identifier) {
+                    if (identifier.startsWith("tag.") && identifier.length() > 4) {
+                        final String key = identifier.substring(4);
+                        return new FilterExpression.StringAccessor<SamRecord>() {
+                            @Override
+                            public String get(final SamRecord record) {
+                                return record.containsAnnotationKey(key) ? record.getAnnotation(key).getValue() : null;
+                            }
+                        };
+                    }
+                    switch (identifier) {
+                    case "qname":
+                        return new FilterExpression.StringAccessor<SamRecord>() {
+                            @Override
+                            public String get(final SamRecord record) {
+                                return record.getQname();
+                            }
+                        };
+                    case "flag":
+                        return new FilterExpression.NumberAccessor<SamRecord>() {
+                            @Override
+                            public double get(final SamRecord record) {
+                                return record.getFlag();
+                            }
+                        };
+                    case "rname":
+                        return new FilterExpression.StringAccessor<SamRecord>() {
+                            @Override
+                            public String get(final SamRecord record) {
+                                return record.getRname();
+                            }
+                        };
+                    case "pos":
+                        return new FilterExpression.NumberAccessor<SamRecord>() {
+                            @Override
+                            public double get(final SamRecord record) {
+                                return record.getPos();
+                            }
+                        };
+                    case "mapq":
+                        return new FilterExpression.NumberAccessor<SamRecord>() {
+                            @Override
+                            public double get(final SamRecord record) {
+                                return record.getMapq();
+                            }
+                        };
+                    case "cigar":
+                        return new FilterExpression.StringAccessor<SamRecord>() {
+                            @Override
+                            public String get(final SamRecord record) {
+                                return record.getCigar();
+                            }
+                        };
+                    case "rnext":
+                        return new FilterExpression.StringAccessor<SamRecord>() {
+                            @Override
+                            public String get(final SamRecord record) {
+                                return record.getRnext();
+                            }
+                        };
+                    case "pnext":
+                        return new FilterExpression.NumberAccessor<SamRecord>() {
+                            @Override
+                            public double get(final SamRecord record) {
+                                return record.getPnext();
+                            }
+                        };
+                    case "tlen":
+                        return new FilterExpression.NumberAccessor<SamRecord>() {
+                            @Override
+                            public double get(final SamRecord record) {
+                                return record.getTlen();
+                            }
+                        };
+                    case "seq":
+                        return new FilterExpression.StringAccessor<SamRecord>() {
+                            @Override
+                            public String get(final SamRecord record) {
+                                return record.getSeq();
+                            }
+                        };
+                    case "qual":
+                        return new FilterExpression.StringAccessor<SamRecord>() {
+                            @Override
+                            public String get(final SamRecord record) {
+                                return record.getQual();
+                            }
+                        };
+                    default:
+                        return null;
+                    }
+                }
+            };
+    }
+
     /**
      * Main.
      *
@@ -254,11 +525,12 @@ public final class FilterSam extends AbstractFilter {
         Switch help = new Switch("h", "help", "display help message");
         StringArgument rangeFilter = new StringArgument("r", "range", "filter by range, specify as chrom:start-end in 0-based coordindates", false);
         IntegerArgument mapqFilter = new IntegerArgument("q", "mapq", "filter by mapq", false);
-        StringArgument scriptFilter = new StringArgument("e", "script", "filter by script, eval against r", false);
-        PathArgument inputSamPath = new PathArgument("i", "input-sam-path", "input SAM path, default stdin", false);
-        FileArgument outputSamFile = new FileArgument("o", "output-sam-file", "output SAM file, default stdout", false);
+        StringArgument scriptFilter = new StringArgument("e", "script", "filter by expression, or by JavaScript script eval against r", false);
+        PathArgument inputSamPath = new PathArgument("i", "input-sam-path", "input SAM or BAM path, default stdin", false);
+        FileArgument outputSamFile = new FileArgument("o", "output-sam-file", "output SAM file, or BAM if the file name ends with .bam, default stdout", false);
+        IntegerArgument threads = new IntegerArgument("t", "threads", "number of parser threads, default " + DEFAULT_THREADS, false);
 
-        ArgumentList arguments = new ArgumentList(about, help, rangeFilter, mapqFilter, scriptFilter, inputSamPath, outputSamFile);
+        ArgumentList arguments = new ArgumentList(about, help, rangeFilter, mapqFilter, scriptFilter, inputSamPath, outputSamFile, threads);
         CommandLine commandLine = new CommandLine(args);
 
         FilterSam filterSam = null;
@@ -280,9 +552,18 @@ public final class FilterSam extends AbstractFilter {
                 filters.add(new MapqFilter(mapqFilter.getValue()));
             }
             if (scriptFilter.wasFound()) {
-                filters.add(new ScriptFilter(scriptFilter.getValue()));
+                try {
+                    filters.add(new ExpressionFilter(scriptFilter.getValue()));
+                }
+                catch (IllegalArgumentException e) {
+                    if (!FilterExpression.isScript(scriptFilter.getValue())) {
+                        throw e;
+                    }
+                    // fall back to script engine
+                    filters.add(new ScriptFilter(scriptFilter.getValue()));
+                }
             }
-            filterSam = new FilterSam(filters, inputSamPath.getValue(), outputSamFile.getValue());
+            filterSam = new FilterSam(filters, inputSamPath.getValue(), outputSamFile.getValue(), threads.getValue(DEFAULT_THREADS));
         }
         catch (CommandLineParseException e) {
             if (about.wasFound()) {
@@ -23,19 +23,27 @@
 */
 package org.dishevelled.bio.tools;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import static org.dishevelled.compress.Readers.reader;
 import static org.dishevelled.compress.Writers.writer;
 
+import java.io.BufferedReader;
 import java.io.File;
-import java.io.PrintWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
 
+import java.nio.charset.StandardCharsets;
+
+import java.nio.file.Files;
 import java.nio.file.Path;
 
 import java.util.ArrayList;
 import java.util.List;
 
+import java.util.function.Predicate;
+
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -49,12 +57,16 @@ import com.google.common.collect.Range;
 
 import org.dishevelled.bio.range.Ranges;
 
+import org.dishevelled.bio.bgzf.Bgzf;
+import org.dishevelled.bio.bgzf.ParallelBgzfInputStream;
+
+import org.dishevelled.bio.variant.vcf.BufferedVcfWriter;
 import org.dishevelled.bio.variant.vcf.VcfHeader;
 import org.dishevelled.bio.variant.vcf.VcfReader;
 import org.dishevelled.bio.variant.vcf.VcfRecord;
 import org.dishevelled.bio.variant.vcf.VcfSample;
-import org.dishevelled.bio.variant.vcf.VcfWriter;
 import org.dishevelled.bio.variant.vcf.VcfStreamAdapter;
+import org.dishevelled.bio.variant.vcf.VcfStreamListener;
 
 import org.dishevelled.commandline.ArgumentList;
 import org.dishevelled.commandline.CommandLine;
@@ -65,6 +77,7 @@ import org.dishevelled.commandline.Usage;
 
 import org.dishevelled.commandline.argument.DoubleArgument;
 import org.dishevelled.commandline.argument.FileArgument;
+import org.dishevelled.commandline.argument.IntegerArgument;
 import org.dishevelled.commandline.argument.PathArgument;
 import org.dishevelled.commandline.argument.StringArgument;
 import org.dishevelled.commandline.argument.StringListArgument;
@@ -78,6 +91,9 @@ public final class FilterVcf extends AbstractFilter {
     private final List<Filter> filters;
     private final Path inputVcfPath;
     private final File outputVcfFile;
+    private final int threads;
+    static final int DEFAULT_THREADS = 1;
+    static final int DEFAULT_BATCH_SIZE = 1024;
     private static final String USAGE = "dsh-filter-vcf -d rs149201999 -i input.vcf.gz -o output.vcf.gz";
 
 
@@ -90,27 +106,63 @@ public final class FilterVcf extends AbstractFilter {
      * @param outputVcfFile output VCF file, if any
      */
     public FilterVcf(final List<Filter> filters, final Path inputVcfPath, final File outputVcfFile) {
+        this(filters, inputVcfPath, outputVcfFile, DEFAULT_THREADS);
+    }
+
+    /**
+     * Filter variants in VCF format.
+     *
+     * @since 4.1
+     * @param filters list of filters, must not be null
+     * @param inputVcfPath input VCF path, if any
+     * @param outputVcfFile output VCF file, if any
+     * @param threads number of parser threads, must be at least one
+     */
+    public FilterVcf(final List<Filter> filters, final Path inputVcfPath, final File outputVcfFile, final int threads) {
         checkNotNull(filters);
+        checkArgument(threads > 0, "threads must be at least one");
         this.filters = ImmutableList.copyOf(filters);
         this.inputVcfPath = inputVcfPath;
         this.outputVcfFile = outputVcfFile;
+        this.threads = threads;
     }
 
 
     @Override
     public Integer call() throws Exception {
-        PrintWriter writer = null;
+        BufferedVcfWriter writer = null;
         try {
-            writer = writer(outputVcfFile);
+            writer = new BufferedVcfWriter(writer(outputVcfFile));
+
+            RangeFilter rangeFilter = rangeFilter();
+            boolean indexed = rangeFilter != null && inputVcfPath != null && VcfReader.isIndexed(inputVcfPath);
+            boolean parallel = !indexed && threads > 1;
+
+            // when streaming in parallel, thread safe filters are evaluated by the parser threads
+            final List<Filter> parserFilters = new ArrayList<Filter>();
+            final List<Filter> recordFilters = new ArrayList<Filter>();
+            for (Filter filter : filters) {
+                if (parallel && !(filter instanceof ScriptFilter)) {
+                    parserFilters.add(filter);
+                }
+                else {
+                    recordFilters.add(filter);
+                }
+            }
 
-            final PrintWriter w = writer;
-            VcfReader.stream(reader(inputVcfPath), new VcfStreamAdapter() {
+            final BufferedVcfWriter w = writer;
+            VcfStreamListener listener = new VcfStreamAdapter() {
                     private boolean wroteSamples = false;
                     private List<VcfSample> samples = new ArrayList<VcfSample>();
 
                     @Override
                     public void header(final VcfHeader header) {
-                        VcfWriter.writeHeader(header, w);
+                        try {
+                            w.writeHeader(header);
+                        }
+                        catch (IOException e) {
+                            throw new RuntimeException("could not write VCF header", e);
+                        }
                     }
 
                     @Override
@@ -120,22 +172,46 @@ public final class FilterVcf extends AbstractFilter {
 
                     @Override
                     public void record(final VcfRecord record) {
-                        // write out samples
-                        if (!wroteSamples) {
-                            VcfWriter.writeColumnHeader(samples, w);
-                            wroteSamples = true;
+                        try {
+                            // write out samples
+                            if (!wroteSamples) {
+                                w.writeColumnHeader(samples);
+                                wroteSamples = true;
+                            }
+
+                            // write out record
+                            if (accept(recordFilters, record)) {
+                                w.writeRecord(samples, record);
+                            }
                         }
-
-                        // write out record
-                        boolean pass = true;
-                        for (Filter filter : filters) {
-                            pass &= filter.accept(record);
-                        }
-                        if (pass) {
-                            VcfWriter.writeRecord(samples, record, w);
+                        catch (IOException e) {
+                            throw new RuntimeException("could not write VCF record", e);
                         }
                     }
-                });
+                };
+
+            Predicate<VcfRecord> predicate = new Predicate<VcfRecord>() {
+                    @Override
+                    public boolean test(final VcfRecord record) {
+                        return accept(parserFilters, record);
+                    }
+                };
+
+            if (indexed) {
+                // seek to overlapping blocks with the index, range filter still applies
+                VcfReader.query(inputVcfPath, rangeFilter.getChrom(), rangeFilter.getStart(), rangeFilter.getEnd(), listener);
+            }
+            else if (parallel && inputVcfPath != null && Bgzf.isBgzf(inputVcfPath)) {
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(new ParallelBgzfInputStream(Files.newInputStream(inputVcfPath), threads), StandardCharsets.UTF_8))) {
+                    VcfReader.streamParallel(reader, listener, threads, DEFAULT_BATCH_SIZE, true, predicate);
+                }
+            }
+            else if (parallel) {
+                VcfReader.streamParallel(reader(inputVcfPath), listener, threads, DEFAULT_BATCH_SIZE, true, predicate);
+            }
+            else {
+                VcfReader.stream(reader(inputVcfPath), listener, true);
+            }
 
             return 0;
         }
@@ -149,6 +225,36 @@ public final class FilterVcf extends AbstractFilter {
         }
     }
 
+    /**
+     * Return true if the specified VCF record is accepted by all of the specified filters.
+     *
+     * @param filters list of filters
+     * @param record VCF record
+     * @return true if the specified VCF record is accepted by all of the specified filters
+     */
+    private static boolean accept(final List<Filter> filters, final VcfRecord record) {
+        for (Filter filter : filters) {
+            if (!filter.accept(record)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Return the first range filter, if any.
+     *
+     * @return the first range filter, or <code>null</code> if no range filter is configured
+     */
+    private RangeFilter rangeFilter() {
+        for (Filter filter : filters) {
+            if (filter instanceof RangeFilter) {
+                return (RangeFilter) filter;
+            }
+        }
+        return null;
+    }
+
     /**
      * Filter.
      */
@@ -215,12 +321,40 @@ public final class FilterVcf extends AbstractFilter {
             if (!m.matches()) {
                 throw new IllegalArgumentException("invalid range format, expected chrom:start-end in 0-based coordinates");
             }
-            this.chrom = m.group(1);
+            // interned, as are CHROM values in parsed records, so equals succeeds on reference equality
+            this.chrom = m.group(1).intern();
             long start = Long.parseLong(m.group(2));
             long end = Long.parseLong(m.group(3));
             this.range = Range.closedOpen(start, end);
         }
 
+        /**
+         * Return the chromosome for this range filter.
+         *
+         * @return the chromosome for this range filter
+         */
+        String getChrom() {
+            return chrom;
+        }
+
+        /**
+         * Return the start for this range filter, in 0-based coordinates.
+         *
+         * @return the start for this range filter, in 0-based coordinates
+         */
+        long getStart() {
+            return range.lowerEndpoint();
+        }
+
+        /**
+         * Return the end for this range filter, in 0-based coordinates.
+         *
+         * @return the end for this range filter, in 0-based coordinates
+         */
+        long getEnd() {
+            return range.upperEndpoint();
+        }
+
         @Override
         public boolean accept(final VcfRecord record) {
             return chrom.equals(record.getChrom()) && Ranges.intersect(range, Range.singleton(record.getPos() - 1L));
@@ -297,6 +431,104 @@ public final class FilterVcf extends AbstractFilter {
         }
     }
 
+    /**
+     * Expression filter.
+     *
+     * @since 4.1
+     */
+    public static final class ExpressionFilter implements Filter {
+        /** Compiled filter expression. */
+        private final FilterExpression<VcfRecord> expression;
+
+        /**
+         * Create a new expression filter with the specified expression.  Identifiers
+         * <code>chrom</code>, <code>pos</code>, <code>id</code>, <code>ref</code>, <code>alt</code>,
+         * <code>qual</code>, <code>filter</code>, and <code>info.KEY</code> resolve to fields
+         * of each VCF record.
+         *
+         * @param expression expression
+         * @throws IllegalArgumentException if the specified expression is not valid
+         */
+        public ExpressionFilter(final String expression) {
+            this.expression = FilterExpression.compile(expression, BINDINGS);
+        }
+
+        @Override
+        public boolean accept(final VcfRecord record) {
+            return expression.test(record);
+        }
+
+        /** VCF record bindings. */
+        private static final FilterExpression.Bindings<VcfRecord> BINDINGS = new FilterExpression.Bindings<VcfRecord>() {
+                @Override
+                public FilterExpression.Accessor<VcfRecord> resolve(final String identifier) {
+                    if (identifier.startsWith("info.") && identifier.length() > 5) {
+                        final String key = identifier.substring(5);
+                        return new FilterExpression.StringAccessor<VcfRecord>() {
+                            @Override
+                            public String get(final VcfRecord record) {
+                                List<String> values = record.getInfo().get(key);
+                                return values.isEmpty() ? null : values.get(0);
+                            }
+                        };
+                    }
+                    switch (identifier) {
+                    case "chrom":
+                        return new FilterExpression.StringAccessor<VcfRecord>() {
+                            @Override
+                            public String get(final VcfRecord record) {
+                                return record.getChrom();
+                            }
+                        };
+                    case "pos":
+                        return new FilterExpression.NumberAccessor<VcfRecord>() {
+                            @Override
+                            public double get(final VcfRecord record) {
+                                return record.getPos();
+                            }
+                        };
+                    case "id":
+                        return new FilterExpression.StringAccessor<VcfRecord>() {
+                            @Override
+                            public String get(final VcfRecord record) {
+                                return (record.getId() == null || record.getId().length == 0) ? null : String.join(";", record.getId());
+                            }
+                        };
+                    case "ref":
+                        return new FilterExpression.StringAccessor<VcfRecord>() {
+                            @Override
+                            public String get(final VcfRecord record) {
+                                return record.getRef();
+                            }
+                        };
+                    case "alt":
+                        return new FilterExpression.StringAccessor<VcfRecord>() {
+                            @Override
+                            public String get(final VcfRecord record) {
+                                return (record.getAlt() == null || record.getAlt().length == 0) ? null : String.join(",", record.getAlt());
+                            }
+                        };
+                    case "qual":
+                        return new FilterExpression.NumberAccessor<VcfRecord>() {
+                            @Override
+                            public double get(final VcfRecord record) {
+                                return record.getQual() == null ? Double.NaN : record.getQual();
+                            }
+                        };
+                    case "filter":
+                        return new FilterExpression.StringAccessor<VcfRecord>() {
+                            @Override
+                            public String get(final VcfRecord record) {
+                                return (record.getFilter() == null || record.getFilter().length == 0) ? null : String.join(";", record.getFilter());
+                            }
+                        };
+                    default:
+                        return null;
+                    }
+                }
+            };
+    }
+
     /**
      * Main.
      *
@@ -309,11 +541,12 @@ public final class FilterVcf extends AbstractFilter {
         StringArgument rangeFilter = new StringArgument("r", "range", "filter by range, specify as chrom:start-end in 0-based coordindates", false);
         DoubleArgument qualFilter = new DoubleArgument("q", "qual", "filter by quality score", false);
         Switch filterFilter = new Switch("f", "filter", "filter to records that have passed all filters");
-        StringArgument scriptFilter = new StringArgument("e", "script", "filter by script, eval against r", false);
+        StringArgument scriptFilter = new StringArgument("e", "script", "filter by expression, or by JavaScript script eval against r", false);
         PathArgument inputVcfPath = new PathArgument("i", "input-vcf-path", "input VCF path, default stdin", false);
         FileArgument outputVcfFile = new FileArgument("o", "output-vcf-file", "output VCF file, default stdout", false);
+        IntegerArgument threads = new IntegerArgument("t", "threads", "number of parser threads, default " + DEFAULT_THREADS, false);
 
-        ArgumentList arguments = new ArgumentList(about, help, idFilter, rangeFilter, qualFilter, filterFilter, scriptFilter, inputVcfPath, outputVcfFile);
+        ArgumentList arguments = new ArgumentList(about, help, idFilter, rangeFilter, qualFilter, filterFilter, scriptFilter, inputVcfPath, outputVcfFile, threads);
         CommandLine commandLine = new CommandLine(args);
 
         FilterVcf filterVcf = null;
@@ -341,9 +574,18 @@ public final class FilterVcf extends AbstractFilter {
                 filters.add(new FilterFilter());
             }
             if (scriptFilter.wasFound()) {
-                filters.add(new ScriptFilter(scriptFilter.getValue()));
+                try {
+                    filters.add(new ExpressionFilter(scriptFilter.getValue()));
+                }
+                catch (IllegalArgumentException e) {
+                    if (!FilterExpression.isScript(scriptFilter.getValue())) {
+                        throw e;
+                    }
+                    // fall back to script engine
+                    filters.add(new ScriptFilter(scriptFilter.getValue()));
+                }
             }
-            filterVcf = new FilterVcf(filters, inputVcfPath.getValue(), outputVcfFile.getValue());
+            filterVcf = new FilterVcf(filters, inputVcfPath.getValue(), outputVcfFile.getValue(), threads.getValue(DEFAULT_THREADS));
         }
         catch (CommandLineParseException e) {
             if (about.wasFound()) {
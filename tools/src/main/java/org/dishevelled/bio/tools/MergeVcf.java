@@ -0,0 +1,433 @@
+/*
+
+    dsh-bio-tools  Command line tools.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.tools;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import static org.dishevelled.compress.Readers.reader;
+import static org.dishevelled.compress.Writers.writer;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import java.util.concurrent.Callable;
+
+import com.google.common.collect.ImmutableList;
+
+import org.dishevelled.bio.variant.vcf.BufferedVcfWriter;
+import org.dishevelled.bio.variant.vcf.VcfGenotype;
+import org.dishevelled.bio.variant.vcf.VcfHeader;
+import org.dishevelled.bio.variant.vcf.VcfMergeAdapter;
+import org.dishevelled.bio.variant.vcf.VcfMerger;
+import org.dishevelled.bio.variant.vcf.VcfRecord;
+import org.dishevelled.bio.variant.vcf.VcfSample;
+
+import org.dishevelled.commandline.ArgumentList;
+import org.dishevelled.commandline.CommandLine;
+import org.dishevelled.commandline.CommandLineParseException;
+import org.dishevelled.commandline.CommandLineParser;
+import org.dishevelled.commandline.Switch;
+import org.dishevelled.commandline.Usage;
+
+import org.dishevelled.commandline.argument.FileArgument;
+import org.dishevelled.commandline.argument.PathArgument;
+import org.dishevelled.commandline.argument.StringListArgument;
+
+/**
+ * Merge variants in VCF format from coordinate-sorted inputs.
+ *
+ * <p>
+ * Records are joined by CHROM, POS, REF, and ALT.  Merged records have the ID values of all
+ * inputs, the site-level QUAL, FILTER, and INFO values of the first input containing the
+ * site, and the genotypes of the samples in all inputs, missing for samples in inputs not
+ * containing the site.
+ * </p>
+ *
+ * <p>
+ * Inputs are sorted by contig in the order of the specified contigs, if any, followed by
+ * the contigs in their <code>##contig</code> header lines.  Every contig in the inputs must
+ * be present in one or the other, e.g. for inputs without <code>##contig</code> header lines
+ * specify the contig order with a list of contigs or a reference FASTA index
+ * (<code>.fai</code>) or sequence dictionary (<code>.dict</code>).
+ * </p>
+ *
+ * @since 4.1
+ * @author  Michael Heuer
+ */
+public final class MergeVcf implements Callable<Integer> {
+    private final List<Path> inputVcfPaths;
+    private final List<String> contigs;
+    private final Path referenceIndexPath;
+    private final File outputVcfFile;
+    private static final String USAGE = "dsh-merge-vcf -i input1.vcf.gz,input2.vcf.gz [-c chr1,chr2 | -f reference.fa.fai] [-o output.vcf.gz]";
+
+
+    /**
+     * Merge variants in VCF format from coordinate-sorted inputs.
+     *
+     * @since 4.1
+     * @param inputVcfPaths list of coordinate-sorted input VCF paths, must not be null or empty
+     * @param outputVcfFile output VCF file, if any
+     */
+    public MergeVcf(final List<Path> inputVcfPaths, final File outputVcfFile) {
+        this(inputVcfPaths, Collections.<String>emptyList(), null, outputVcfFile);
+    }
+
+    /**
+     * Merge variants in VCF format from coordinate-sorted inputs, sorted by contig in the
+     * order of the specified contigs, followed by the contigs in the specified reference
+     * FASTA index or sequence dictionary, if any, followed by the contigs in their
+     * <code>##contig</code> header lines.
+     *
+     * @since 4.1
+     * @param inputVcfPaths list of coordinate-sorted input VCF paths, must not be null or empty
+     * @param contigs contig order, may be empty but must not be null
+     * @param referenceIndexPath reference FASTA index (<code>.fai</code>) or sequence
+     *    dictionary (<code>.dict</code>) path for contig order, if any
+     * @param outputVcfFile output VCF file, if any
+     */
+    public MergeVcf(final List<Path> inputVcfPaths, final List<String> contigs, final Path referenceIndexPath, final File outputVcfFile) {
+        checkNotNull(inputVcfPaths);
+        checkNotNull(contigs);
+        checkArgument(!inputVcfPaths.isEmpty(), "input VCF paths must not be empty");
+        this.inputVcfPaths = ImmutableList.copyOf(inputVcfPaths);
+        this.contigs = ImmutableList.copyOf(contigs);
+        this.referenceIndexPath = referenceIndexPath;
+        this.outputVcfFile = outputVcfFile;
+    }
+
+
+    @Override
+    public Integer call() throws Exception {
+        final List<BufferedReader> readers = new ArrayList<BufferedReader>(inputVcfPaths.size());
+        BufferedVcfWriter writer = null;
+        try {
+            for (Path inputVcfPath : inputVcfPaths) {
+                readers.add(reader(inputVcfPath));
+            }
+            writer = new BufferedVcfWriter(writer(outputVcfFile));
+
+            final BufferedVcfWriter w = writer;
+            final int k = readers.size();
+            final VcfHeader[] headers = new VcfHeader[k];
+            final List<List<VcfSample>> inputSamples = new ArrayList<List<VcfSample>>(k);
+            for (int i = 0; i < k; i++) {
+                inputSamples.add(new ArrayList<VcfSample>());
+            }
+            final Map<String, VcfSample> samples = new LinkedHashMap<String, VcfSample>();
+
+            MergeListener listener = new MergeListener() {
+                    /** Merged samples. */
+                    private final List<VcfSample> mergedSamples = new ArrayList<VcfSample>();
+
+                    /** True if the header has been written. */
+                    private boolean wroteHeader = false;
+
+
+                    @Override
+                    public void header(final int input, final VcfHeader header) {
+                        headers[input] = header;
+                    }
+
+                    @Override
+                    public void sample(final int input, final VcfSample sample) {
+                        if (samples.containsKey(sample.getId())) {
+                            throw new IllegalArgumentException("duplicate sample " + sample.getId() + " in input VCF path " + inputVcfPaths.get(input));
+                        }
+                        samples.put(sample.getId(), sample);
+                        inputSamples.get(input).add(sample);
+                    }
+
+                    @Override
+                    public void matched(final VcfRecord... records) {
+                        write(records);
+                    }
+
+                    @Override
+                    public void unmatched(final int input, final VcfRecord record) {
+                        VcfRecord[] records = new VcfRecord[k];
+                        records[input] = record;
+                        write(records);
+                    }
+
+                    @Override
+                    void writeHeader() {
+                        if (!wroteHeader) {
+                            try {
+                                w.writeHeader(mergeHeaders(headers));
+                                mergedSamples.addAll(samples.values());
+                                w.writeColumnHeader(mergedSamples);
+                            }
+                            catch (IOException e) {
+                                throw new RuntimeException("could not write VCF header", e);
+                            }
+                            wroteHeader = true;
+                        }
+                    }
+
+                    /**
+                     * Write the specified records, indexed by input, as a merged record.
+                     *
+                     * @param records records to merge, indexed by input
+                     */
+                    private void write(final VcfRecord[] records) {
+                        writeHeader();
+                        try {
+                            w.writeRecord(mergedSamples, mergeRecords(records, inputSamples));
+                        }
+                        catch (IOException e) {
+                            throw new RuntimeException("could not write VCF record", e);
+                        }
+                    }
+                };
+
+            VcfMerger.merge(readers, listener, true, VcfMerger.AlleleMatching.EXACT, contigs(contigs, referenceIndexPath));
+            listener.writeHeader();
+
+            return 0;
+        }
+        finally {
+            for (BufferedReader reader : readers) {
+                try {
+                    reader.close();
+                }
+                catch (Exception e) {
+                    // ignore
+                }
+            }
+            try {
+                writer.close();
+            }
+            catch (Exception e) {
+                // ignore
+            }
+        }
+    }
+
+    /**
+     * Merge listener that writes the merged header.
+     */
+    private abstract static class MergeListener extends VcfMergeAdapter {
+
+        /**
+         * Write the merged header, if not already written.
+         */
+        abstract void writeHeader();
+    }
+
+    /**
+     * Read the contig order from the specified reference FASTA index (<code>.fai</code>)
+     * or sequence dictionary (<code>.dict</code>) path.
+     *
+     * @param path reference FASTA index or sequence dictionary path, must not be null
+     * @return the contig order read from the specified path
+     * @throws IOException if an I/O error occurs
+     */
+    static List<String> readContigs(final Path path) throws IOException {
+        checkNotNull(path);
+        List<String> contigs = new ArrayList<String>();
+        try (BufferedReader reader = reader(path)) {
+            String line = null;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("@SQ\t")) {
+                    // sequence dictionary
+                    for (String field : line.split("\t")) {
+                        if (field.startsWith("SN:")) {
+                            contigs.add(field.substring(3));
+                        }
+                    }
+                }
+                else if (!line.isEmpty() && !line.startsWith("@")) {
+                    // FASTA index
+                    int tab = line.indexOf('\t');
+                    contigs.add(tab < 0 ? line : line.substring(0, tab));
+                }
+            }
+        }
+        return contigs;
+    }
+
+    /**
+     * Return the contig order from the specified list of contigs, followed by the
+     * contigs read from the specified reference FASTA index or sequence dictionary path, if any.
+     *
+     * @param contigs list of contigs, must not be null
+     * @param path reference FASTA index or sequence dictionary path, if any
+     * @return the contig order from the specified list of contigs and path
+     * @throws IOException if an I/O error occurs
+     */
+    static List<String> contigs(final List<String> contigs, final Path path) throws IOException {
+        List<String> result = new ArrayList<String>(contigs);
+        if (path != null) {
+            result.addAll(readContigs(path));
+        }
+        return result;
+    }
+
+    /**
+     * Merge the specified VCF headers, keeping the first of any duplicate meta-information header lines.
+     *
+     * @param headers VCF headers to merge
+     * @return the specified VCF headers merged
+     */
+    static VcfHeader mergeHeaders(final VcfHeader[] headers) {
+        Set<String> meta = new LinkedHashSet<String>();
+        for (int i = 0; i < headers.length; i++) {
+            for (String m : headers[i].getMeta()) {
+                if (i == 0 || !m.startsWith("##fileformat=")) {
+                    meta.add(m);
+                }
+            }
+        }
+        return VcfHeader.builder()
+            .withFileFormat(headers[0].getFileFormat())
+            .withMeta(new ArrayList<String>(meta))
+            .build();
+    }
+
+    /**
+     * Merge the specified VCF records, indexed by input, into a single VCF record.
+     *
+     * @param records VCF records to merge, indexed by input, <code>null</code> for inputs not containing the site
+     * @param inputSamples lists of VCF samples, indexed by input
+     * @return the specified VCF records merged into a single VCF record
+     */
+    static VcfRecord mergeRecords(final VcfRecord[] records, final List<List<VcfSample>> inputSamples) {
+        VcfRecord first = null;
+        Set<String> id = new LinkedHashSet<String>();
+        Set<String> format = new LinkedHashSet<String>();
+        for (VcfRecord record : records) {
+            if (record != null) {
+                if (first == null) {
+                    first = record;
+                }
+                if (record.getId() != null) {
+                    id.addAll(Arrays.asList(record.getId()));
+                }
+                if (record.getFormat() != null) {
+                    format.addAll(Arrays.asList(record.getFormat()));
+                }
+            }
+        }
+
+        Map<String, VcfGenotype> genotypes = new HashMap<String, VcfGenotype>();
+        VcfGenotype missing = null;
+        for (int i = 0; i < records.length; i++) {
+            for (VcfSample sample : inputSamples.get(i)) {
+                VcfGenotype genotype = records[i] == null ? null : records[i].getGenotype(sample.getId());
+                if (genotype == null) {
+                    if (missing == null) {
+                        missing = VcfGenotype.builder().withRef(first.getRef()).withAlt(first.getAlt()).withField("GT", ".").build();
+                    }
+                    genotype = missing;
+                }
+                genotypes.put(sample.getId(), genotype);
+            }
+        }
+        if (format.isEmpty() && !genotypes.isEmpty()) {
+            format.add("GT");
+        }
+
+        return VcfRecord.builder(first)
+            .withId(id.toArray(new String[id.size()]))
+            .withFormat(format.toArray(new String[format.size()]))
+            .replaceGenotypes(genotypes)
+            .build();
+    }
+
+
+    /**
+     * Main.
+     *
+     * @param args command line args
+     */
+    public static void main(final String[] args) {
+        Switch about = new Switch("a", "about", "display about message");
+        Switch help = new Switch("h", "help", "display help message");
+        StringListArgument inputVcfPaths = new StringListArgument("i", "input-vcf-paths", "comma-separated list of coordinate-sorted input VCF paths", true);
+        StringListArgument contigs = new StringListArgument("c", "contigs", "comma-separated list of contigs in sort order, for inputs without ##contig header lines", false);
+        PathArgument referenceIndexPath = new PathArgument("f", "reference-index-path", "reference FASTA index (.fai) or sequence dictionary (.dict) path, for contig sort order", false);
+        FileArgument outputVcfFile = new FileArgument("o", "output-vcf-file", "output VCF file, default stdout", false);
+
+        ArgumentList arguments = new ArgumentList(about, help, inputVcfPaths, contigs, referenceIndexPath, outputVcfFile);
+        CommandLine commandLine = new CommandLine(args);
+
+        MergeVcf mergeVcf = null;
+        try {
+            CommandLineParser.parse(commandLine, arguments);
+            if (about.wasFound()) {
+                About.about(System.out);
+                System.exit(0);
+            }
+            if (help.wasFound()) {
+                Usage.usage(USAGE, null, commandLine, arguments, System.out);
+                System.exit(0);
+            }
+            List<Path> paths = new ArrayList<Path>();
+            for (String inputVcfPath : inputVcfPaths.getValue()) {
+                paths.add(Paths.get(inputVcfPath));
+            }
+            List<String> c = contigs.wasFound() ? contigs.getValue() : Collections.<String>emptyList();
+            mergeVcf = new MergeVcf(paths, c, referenceIndexPath.getValue(), outputVcfFile.getValue());
+        }
+        catch (CommandLineParseException e) {
+            if (about.wasFound()) {
+                About.about(System.out);
+                System.exit(0);
+            }
+            if (help.wasFound()) {
+                Usage.usage(USAGE, null, commandLine, arguments, System.out);
+                System.exit(0);
+            }
+            Usage.usage(USAGE, e, commandLine, arguments, System.err);
+            System.exit(-1);
+        }
+        catch (NullPointerException | IllegalArgumentException e) {
+            Usage.usage(USAGE, e, commandLine, arguments, System.err);
+            System.exit(-1);
+        }
+        try {
+            System.exit(mergeVcf.call());
+        }
+        catch (Exception e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+}
@@ -45,6 +45,7 @@ import org.dishevelled.bio.variant.vcf.VcfStreamAdapter;
 
 import org.dishevelled.bio.variant.vcf.header.VcfHeaderLineType;
 import org.dishevelled.bio.variant.vcf.header.VcfHeaderLines;
+import org.dishevelled.bio.variant.vcf.header.VcfInfoHeaderLine;
 
 import org.dishevelled.commandline.ArgumentList;
 import org.dishevelled.commandline.CommandLine;
@@ -98,8 +99,8 @@ public final class RemapDbSnp implements Callable<Integer> {
                         VcfHeaderLines headerLines = VcfHeaderLines.fromHeader(header);
 
                         // add additional dbsnp INFO field header line if necessary
-                        if (headerLines.getInfoHeaderLines().containsKey("DB") &&
-                            VcfHeaderLineType.String.equals(headerLines.getInfoHeaderLines().get("DB").getType())) {
+                        VcfInfoHeaderLine db = headerLines.getInfoHeaderLine("DB");
+                        if (db != null && VcfHeaderLineType.String.equals(db.getType())) {
 
                             remapDbSnp = true;
                             VcfHeader.Builder builder = VcfHeader.builder().withFileFormat(header.getFileFormat());
@@ -145,7 +146,7 @@ public final class RemapDbSnp implements Callable<Integer> {
                             VcfWriter.writeRecord(samples, record, w);
                         }
                     }
-                });
+                }, true);
 
             return 0;
         }
@@ -46,6 +46,7 @@ import org.dishevelled.bio.variant.vcf.VcfSample;
 import org.dishevelled.bio.variant.vcf.VcfWriter;
 import org.dishevelled.bio.variant.vcf.VcfStreamAdapter;
 
+import org.dishevelled.bio.variant.vcf.header.VcfFormatHeaderLine;
 import org.dishevelled.bio.variant.vcf.header.VcfHeaderLineType;
 import org.dishevelled.bio.variant.vcf.header.VcfHeaderLines;
 
@@ -100,14 +101,14 @@ public final class RemapPhaseSet implements Callable<Integer> {
                     @Override
                     public void header(final VcfHeader header) {
                         VcfHeaderLines headerLines = VcfHeaderLines.fromHeader(header);
-                        if (headerLines.getFormatHeaderLines().containsKey("PS") &&
-                            VcfHeaderLineType.String.equals(headerLines.getFormatHeaderLines().get("PS").getType())) {
+                        VcfFormatHeaderLine ps = headerLines.getFormatHeaderLine("PS");
+                        if (ps != null && VcfHeaderLineType.String.equals(ps.getType())) {
 
                             remapPhaseSet = true;
                             VcfHeader.Builder builder = VcfHeader.builder().withFileFormat(header.getFileFormat());
                             for (String meta : header.getMeta()) {
                                 if (meta.startsWith("##FORMAT=<ID=PS")) {
-                                    String description = headerLines.getFormatHeaderLines().get("PS").getDescription() + " (converted from Type=String to Type=Integer)";
+                                    String description = ps.getDescription() + " (converted from Type=String to Type=Integer)";
                                     builder.withMeta("##FORMAT=<ID=PS,Number=1,Type=Integer,Description=\"" + description + "\">");
                                 }
                                 else {
@@ -126,7 +126,7 @@ public final class RenameVcfReferences extends AbstractRenameReferences {
 
                         VcfWriter.writeRecord(samples, renamed, w);
                     }
-                });
+                }, true);
             return 0;
         }
         finally {
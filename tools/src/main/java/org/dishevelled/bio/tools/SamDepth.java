@@ -0,0 +1,259 @@
+/*
+
+    dsh-bio-tools  Command line tools.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.tools;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import static org.dishevelled.compress.Readers.reader;
+import static org.dishevelled.compress.Writers.writer;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+
+import java.nio.charset.StandardCharsets;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import java.util.concurrent.Callable;
+
+import com.google.common.collect.RangeSet;
+import com.google.common.collect.TreeRangeSet;
+
+import org.dishevelled.bio.alignment.sam.BamReader;
+import org.dishevelled.bio.alignment.sam.SamPileup;
+import org.dishevelled.bio.alignment.sam.SamPileupListener;
+import org.dishevelled.bio.alignment.sam.SamReader;
+
+import org.dishevelled.bio.feature.bed.BedReader;
+import org.dishevelled.bio.feature.bed.BedRecord;
+
+import org.dishevelled.bio.bgzf.Bgzf;
+import org.dishevelled.bio.bgzf.ParallelBgzfInputStream;
+
+import org.dishevelled.commandline.ArgumentList;
+import org.dishevelled.commandline.CommandLine;
+import org.dishevelled.commandline.CommandLineParseException;
+import org.dishevelled.commandline.CommandLineParser;
+import org.dishevelled.commandline.Switch;
+import org.dishevelled.commandline.Usage;
+
+import org.dishevelled.commandline.argument.FileArgument;
+import org.dishevelled.commandline.argument.IntegerArgument;
+import org.dishevelled.commandline.argument.PathArgument;
+
+/**
+ * Calculate per-base depth, base counts, and mean mapping quality for coordinate-sorted
+ * alignments in SAM or BAM format.
+ *
+ * <p>
+ * If a BED file of target regions is specified, a row is written for every position in the
+ * target regions, including zero depth positions.  Otherwise a row is written for every
+ * position with at least one aligned or deleted base.
+ * </p>
+ *
+ * @since 4.1
+ * @author  Michael Heuer
+ */
+public final class SamDepth implements Callable<Integer> {
+    private final Path inputSamPath;
+    private final Path bedPath;
+    private final File outputFile;
+    private final int minMapq;
+    private final int threads;
+    static final int DEFAULT_THREADS = 1;
+    private static final String USAGE = "dsh-sam-depth [-b regions.bed] [-q 0] [-i input.bam] [-o output.txt.gz] [-t threads]";
+
+
+    /**
+     * Calculate per-base depth for coordinate-sorted alignments in SAM or BAM format.
+     *
+     * @since 4.1
+     * @param inputSamPath input SAM or BAM path, if any
+     * @param bedPath BED path of target regions, if any
+     * @param outputFile output file, if any
+     * @param minMapq minimum mapping quality, must be at least zero
+     * @param threads number of parser threads, must be at least one
+     */
+    public SamDepth(final Path inputSamPath,
+                    final Path bedPath,
+                    final File outputFile,
+                    final int minMapq,
+                    final int threads) {
+        checkArgument(minMapq >= 0, "minMapq must be at least zero");
+        checkArgument(threads > 0, "threads must be at least one");
+        this.inputSamPath = inputSamPath;
+        this.bedPath = bedPath;
+        this.outputFile = outputFile;
+        this.minMapq = minMapq;
+        this.threads = threads;
+    }
+
+
+    @Override
+    public Integer call() throws Exception {
+        Map<String, RangeSet<Long>> regions = bedPath == null ? null : readRegions(bedPath);
+
+        try (PrintWriter writer = writer(outputFile)) {
+            writer.println("#chrom\tpos\tdepth\tA\tC\tG\tT\tN\tdeletions\tmean_mapq");
+
+            SamPileup pileup = new SamPileup(new SamPileupListener() {
+                    @Override
+                    public boolean column(final SamPileup.Column column) {
+                        writer.print(column.getReferenceName());
+                        writer.print("\t");
+                        writer.print(column.getPosition());
+                        writer.print("\t");
+                        writer.print(column.getDepth());
+                        writer.print("\t");
+                        writer.print(column.getA());
+                        writer.print("\t");
+                        writer.print(column.getC());
+                        writer.print("\t");
+                        writer.print(column.getG());
+                        writer.print("\t");
+                        writer.print(column.getT());
+                        writer.print("\t");
+                        writer.print(column.getN());
+                        writer.print("\t");
+                        writer.print(column.getDeletions());
+                        writer.print("\t");
+                        if (column.getDepth() == 0) {
+                            writer.println(".");
+                        }
+                        else {
+                            writer.println(Math.round(column.getMeanMapq() * 100.0d) / 100.0d);
+                        }
+                        return true;
+                    }
+                }, regions, minMapq, SamPileup.DEFAULT_EXCLUDE_FLAGS);
+
+            if (inputSamPath != null && BamReader.isBam(inputSamPath)) {
+                BamReader.stream(inputSamPath, pileup, threads);
+            }
+            else if (threads > 1 && inputSamPath != null && Bgzf.isBgzf(inputSamPath)) {
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(new ParallelBgzfInputStream(Files.newInputStream(inputSamPath), threads), StandardCharsets.UTF_8))) {
+                    SamReader.streamParallel(reader, pileup, threads);
+                }
+            }
+            else {
+                try (BufferedReader reader = reader(inputSamPath)) {
+                    if (threads > 1) {
+                        SamReader.streamParallel(reader, pileup, threads);
+                    }
+                    else {
+                        SamReader.stream(reader, pileup);
+                    }
+                }
+            }
+            pileup.finish();
+            return 0;
+        }
+    }
+
+    /**
+     * Read target regions from the specified BED path.
+     *
+     * @param bedPath BED path
+     * @return target regions as 0-based ranges keyed by reference name, in BED file order
+     * @throws IOException if an I/O error occurs
+     */
+    static Map<String, RangeSet<Long>> readRegions(final Path bedPath) throws IOException {
+        Map<String, RangeSet<Long>> regions = new LinkedHashMap<String, RangeSet<Long>>();
+        try (BufferedReader reader = reader(bedPath)) {
+            for (BedRecord record : BedReader.read(reader)) {
+                RangeSet<Long> rangeSet = regions.get(record.getChrom());
+                if (rangeSet == null) {
+                    rangeSet = TreeRangeSet.create();
+                    regions.put(record.getChrom(), rangeSet);
+                }
+                rangeSet.add(record.toRange());
+            }
+        }
+        return regions;
+    }
+
+
+    /**
+     * Main.
+     *
+     * @param args command line args
+     */
+    public static void main(final String[] args) {
+        Switch about = new Switch("a", "about", "display about message");
+        Switch help = new Switch("h", "help", "display help message");
+        PathArgument inputSamPath = new PathArgument("i", "input-sam-path", "input SAM or BAM path, default stdin", false);
+        PathArgument bedPath = new PathArgument("b", "bed-path", "BED path of target regions", false);
+        FileArgument outputFile = new FileArgument("o", "output-file", "output file, default stdout", false);
+        IntegerArgument minMapq = new IntegerArgument("q", "min-mapq", "minimum mapping quality, default " + SamPileup.DEFAULT_MIN_MAPQ, false);
+        IntegerArgument threads = new IntegerArgument("t", "threads", "number of parser threads, default " + DEFAULT_THREADS, false);
+
+        ArgumentList arguments = new ArgumentList(about, help, inputSamPath, bedPath, outputFile, minMapq, threads);
+        CommandLine commandLine = new CommandLine(args);
+
+        SamDepth samDepth = null;
+        try {
+            CommandLineParser.parse(commandLine, arguments);
+            if (about.wasFound()) {
+                About.about(System.out);
+                System.exit(0);
+            }
+            if (help.wasFound()) {
+                Usage.usage(USAGE, null, commandLine, arguments, System.out);
+                System.exit(0);
+            }
+            samDepth = new SamDepth(inputSamPath.getValue(), bedPath.getValue(), outputFile.getValue(),
+                                    minMapq.getValue(SamPileup.DEFAULT_MIN_MAPQ), threads.getValue(DEFAULT_THREADS));
+        }
+        catch (CommandLineParseException e) {
+            if (about.wasFound()) {
+                About.about(System.out);
+                System.exit(0);
+            }
+            if (help.wasFound()) {
+                Usage.usage(USAGE, null, commandLine, arguments, System.out);
+                System.exit(0);
+            }
+            Usage.usage(USAGE, e, commandLine, arguments, System.err);
+            System.exit(-1);
+        }
+        catch (IllegalArgumentException e) {
+            Usage.usage(USAGE, e, commandLine, arguments, System.err);
+            System.exit(-1);
+        }
+        try {
+            System.exit(samDepth.call());
+        }
+        catch (Exception e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+}
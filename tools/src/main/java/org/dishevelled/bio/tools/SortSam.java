@@ -0,0 +1,281 @@
+/*
+
+    dsh-bio-tools  Command line tools.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.tools;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import static org.dishevelled.bio.tools.AbstractSplit.toBytes;
+
+import static org.dishevelled.compress.Readers.reader;
+import static org.dishevelled.compress.Writers.writer;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+
+import java.nio.charset.StandardCharsets;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import java.util.concurrent.Callable;
+
+import org.dishevelled.bio.alignment.sam.BamReader;
+import org.dishevelled.bio.alignment.sam.BamWriter;
+import org.dishevelled.bio.alignment.sam.SamHeader;
+import org.dishevelled.bio.alignment.sam.SamListener;
+import org.dishevelled.bio.alignment.sam.SamReader;
+import org.dishevelled.bio.alignment.sam.SamRecord;
+import org.dishevelled.bio.alignment.sam.SamSorter;
+import org.dishevelled.bio.alignment.sam.SamWriter;
+
+import org.dishevelled.bio.bgzf.Bgzf;
+import org.dishevelled.bio.bgzf.ParallelBgzfInputStream;
+
+import org.dishevelled.commandline.ArgumentList;
+import org.dishevelled.commandline.CommandLine;
+import org.dishevelled.commandline.CommandLineParseException;
+import org.dishevelled.commandline.CommandLineParser;
+import org.dishevelled.commandline.Switch;
+import org.dishevelled.commandline.Usage;
+
+import org.dishevelled.commandline.argument.FileArgument;
+import org.dishevelled.commandline.argument.IntegerArgument;
+import org.dishevelled.commandline.argument.PathArgument;
+import org.dishevelled.commandline.argument.StringArgument;
+
+/**
+ * Sort alignments in SAM or BAM format.
+ *
+ * <p>
+ * Alignments are coordinate-sorted by default, with reference sequences ordered as in the
+ * <code>@SQ</code> header lines, or sorted by query name.  The <code>SO</code> tag in the
+ * <code>@HD</code> header line is updated to match.  Inputs larger than the memory budget
+ * are sorted in chunks spilled to temporary compressed runs, which are then merged.
+ * </p>
+ *
+ * @since 4.1
+ * @author  Michael Heuer
+ */
+public final class SortSam implements Callable<Integer> {
+    private final Path inputSamPath;
+    private final File outputSamFile;
+    private final SamSorter.SortOrder sortOrder;
+    private final long memory;
+    private final File tempDirectory;
+    private final int threads;
+    static final String DEFAULT_MEMORY = "512mb";
+    static final int DEFAULT_THREADS = 1;
+    private static final String USAGE = "dsh-sort-sam [-n] [-i input.sam.gz] [-o output.bam] [-m 512mb] [-d /tmp] [-t threads]";
+
+
+    /**
+     * Sort alignments in SAM or BAM format.
+     *
+     * @since 4.1
+     * @param inputSamPath input SAM or BAM path, if any
+     * @param outputSamFile output SAM file, or BAM file if the file name ends with <code>.bam</code>, if any
+     * @param sortOrder sort order, must not be null
+     * @param memory approximate memory budget in bytes, must be greater than zero
+     * @param tempDirectory directory for temporary files, if any
+     * @param threads number of threads, must be greater than zero
+     */
+    public SortSam(final Path inputSamPath,
+                   final File outputSamFile,
+                   final SamSorter.SortOrder sortOrder,
+                   final long memory,
+                   final File tempDirectory,
+                   final int threads) {
+        checkNotNull(sortOrder);
+        checkArgument(memory > 0L, "memory must be greater than zero");
+        checkArgument(threads > 0, "threads must be greater than zero");
+        this.inputSamPath = inputSamPath;
+        this.outputSamFile = outputSamFile;
+        this.sortOrder = sortOrder;
+        this.memory = memory;
+        this.tempDirectory = tempDirectory;
+        this.threads = threads;
+    }
+
+
+    @Override
+    public Integer call() throws Exception {
+        try (SamSorter sorter = new SamSorter(sortOrder, memory, tempDirectory, threads);
+             SortListener listener = new SortListener()) {
+
+            if (inputSamPath != null && BamReader.isBam(inputSamPath)) {
+                BamReader.stream(inputSamPath, sorter, threads);
+            }
+            else if (threads > 1 && inputSamPath != null && Bgzf.isBgzf(inputSamPath)) {
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(new ParallelBgzfInputStream(Files.newInputStream(inputSamPath), threads), StandardCharsets.UTF_8))) {
+                    SamReader.streamParallel(reader, sorter, threads);
+                }
+            }
+            else {
+                try (BufferedReader reader = reader(inputSamPath)) {
+                    if (threads > 1) {
+                        SamReader.streamParallel(reader, sorter, threads);
+                    }
+                    else {
+                        SamReader.stream(reader, sorter);
+                    }
+                }
+            }
+            sorter.sort(listener);
+            return 0;
+        }
+    }
+
+    /**
+     * Sort listener, writes sorted records in SAM format, or in BAM format if the
+     * output SAM file name ends with <code>.bam</code>.
+     */
+    private final class SortListener implements SamListener, Closeable {
+        /** SAM writer, if writing SAM format. */
+        private PrintWriter writer;
+
+        /** BAM writer, if writing BAM format, created on header. */
+        private BamWriter bamWriter;
+
+
+        /**
+         * Create a new sort listener.
+         *
+         * @throws IOException if an I/O error occurs
+         */
+        private SortListener() throws IOException {
+            if (!FilterSam.isBam(outputSamFile)) {
+                writer = writer(outputSamFile);
+            }
+        }
+
+
+        @Override
+        public boolean header(final SamHeader header) {
+            if (writer != null) {
+                SamWriter.writeHeader(header, writer);
+            }
+            else {
+                try {
+                    bamWriter = new BamWriter(new BufferedOutputStream(new FileOutputStream(outputSamFile)), header, threads);
+                }
+                catch (IOException e) {
+                    throw new RuntimeException("could not write BAM header", e);
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public boolean record(final SamRecord record) {
+            if (bamWriter != null) {
+                try {
+                    bamWriter.write(record);
+                }
+                catch (IOException e) {
+                    throw new RuntimeException("could not write BAM record", e);
+                }
+            }
+            else {
+                SamWriter.writeRecord(record, writer);
+            }
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (writer != null) {
+                writer.close();
+            }
+            if (bamWriter != null) {
+                bamWriter.close();
+            }
+        }
+    }
+
+
+    /**
+     * Main.
+     *
+     * @param args command line args
+     */
+    public static void main(final String[] args) {
+        Switch about = new Switch("a", "about", "display about message");
+        Switch help = new Switch("h", "help", "display help message");
+        Switch queryname = new Switch("n", "queryname", "sort by query name instead of by coordinate");
+        PathArgument inputSamPath = new PathArgument("i", "input-sam-path", "input SAM or BAM path, default stdin", false);
+        FileArgument outputSamFile = new FileArgument("o", "output-sam-file", "output SAM file, or BAM if the file name ends with .bam, default stdout", false);
+        StringArgument memory = new StringArgument("m", "memory", "approximate memory budget, default " + DEFAULT_MEMORY, false);
+        FileArgument tempDirectory = new FileArgument("d", "temp-directory", "directory for temporary files, default java.io.tmpdir", false);
+        IntegerArgument threads = new IntegerArgument("t", "threads", "number of threads, default " + DEFAULT_THREADS, false);
+
+        ArgumentList arguments = new ArgumentList(about, help, queryname, inputSamPath, outputSamFile, memory, tempDirectory, threads);
+        CommandLine commandLine = new CommandLine(args);
+
+        SortSam sortSam = null;
+        try {
+            CommandLineParser.parse(commandLine, arguments);
+            if (about.wasFound()) {
+                About.about(System.out);
+                System.exit(0);
+            }
+            if (help.wasFound()) {
+                Usage.usage(USAGE, null, commandLine, arguments, System.out);
+                System.exit(0);
+            }
+            sortSam = new SortSam(inputSamPath.getValue(), outputSamFile.getValue(),
+                                  queryname.wasFound() ? SamSorter.SortOrder.QUERYNAME : SamSorter.SortOrder.COORDINATE,
+                                  toBytes(memory.getValue(DEFAULT_MEMORY)), tempDirectory.getValue(), threads.getValue(DEFAULT_THREADS));
+        }
+        catch (CommandLineParseException e) {
+            if (about.wasFound()) {
+                About.about(System.out);
+                System.exit(0);
+            }
+            if (help.wasFound()) {
+                Usage.usage(USAGE, null, commandLine, arguments, System.out);
+                System.exit(0);
+            }
+            Usage.usage(USAGE, e, commandLine, arguments, System.err);
+            System.exit(-1);
+        }
+        catch (NullPointerException | IllegalArgumentException e) {
+            Usage.usage(USAGE, e, commandLine, arguments, System.err);
+            System.exit(-1);
+        }
+        try {
+            System.exit(sortSam.call());
+        }
+        catch (Exception e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+/*
+
+    dsh-bio-tools  Command line tools.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.tools;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import static org.dishevelled.bio.tools.AbstractSplit.toBytes;
+
+import static org.dishevelled.compress.Readers.reader;
+import static org.dishevelled.compress.Writers.writer;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.PrintWriter;
+
+import java.nio.file.Path;
+
+import java.util.concurrent.Callable;
+
+import org.dishevelled.bio.variant.vcf.VcfSorter;
+
+import org.dishevelled.commandline.ArgumentList;
+import org.dishevelled.commandline.CommandLine;
+import org.dishevelled.commandline.CommandLineParseException;
+import org.dishevelled.commandline.CommandLineParser;
+import org.dishevelled.commandline.Switch;
+import org.dishevelled.commandline.Usage;
+
+import org.dishevelled.commandline.argument.FileArgument;
+import org.dishevelled.commandline.argument.IntegerArgument;
+import org.dishevelled.commandline.argument.PathArgument;
+import org.dishevelled.commandline.argument.StringArgument;
+
+/**
+ * Coordinate-sort variants in VCF format.
+ *
+ * <p>
+ * Contigs are ordered as in the <code>##contig</code> header lines, followed by any contigs
+ * not present in header lines in the order they are first encountered.  Inputs larger than
+ * the memory budget are sorted in chunks spilled to temporary compressed runs, which are then merged.
+ * </p>
+ *
+ * @since 4.1
+ * @author  Michael Heuer
+ */
+public final class SortVcf implements Callable<Integer> {
+    private final Path inputVcfPath;
+    private final File outputVcfFile;
+    private final long memory;
+    private final File tempDirectory;
+    private final int threads;
+    static final String DEFAULT_MEMORY = "512mb";
+    static final int DEFAULT_THREADS = 1;
+    private static final String USAGE = "dsh-sort-vcf [-i input.vcf.gz] [-o output.vcf.gz] [-m 512mb] [-d /tmp] [-t threads]";
+
+
+    /**
+     * Coordinate-sort variants in VCF format.
+     *
+     * @since 4.1
+     * @param inputVcfPath input VCF path, if any
+     * @param outputVcfFile output VCF file, if any
+     * @param memory approximate memory budget in bytes, must be greater than zero
+     * @param tempDirectory directory for temporary files, if any
+     * @param threads number of threads, must be greater than zero
+     */
+    public SortVcf(final Path inputVcfPath,
+                   final File outputVcfFile,
+                   final long memory,
+                   final File tempDirectory,
+                   final int threads) {
+        checkArgument(memory > 0L, "memory must be greater than zero");
+        checkArgument(threads > 0, "threads must be greater than zero");
+        this.inputVcfPath = inputVcfPath;
+        this.outputVcfFile = outputVcfFile;
+        this.memory = memory;
+        this.tempDirectory = tempDirectory;
+        this.threads = threads;
+    }
+
+
+    @Override
+    public Integer call() throws Exception {
+        BufferedReader reader = null;
+        PrintWriter writer = null;
+        try {
+            reader = reader(inputVcfPath);
+            writer = writer(outputVcfFile);
+
+            VcfSorter.sort(reader, writer, memory, tempDirectory, threads);
+
+            return 0;
+        }
+        finally {
+            try {
+                reader.close();
+            }
+            catch (Exception e) {
+                // empty
+            }
+            try {
+                writer.close();
+            }
+            catch (Exception e) {
+                // empty
+            }
+        }
+    }
+
+
+    /**
+     * Main.
+     *
+     * @param args command line args
+     */
+    public static void main(final String[] args) {
+        Switch about = new Switch("a", "about", "display about message");
+        Switch help = new Switch("h", "help", "display help message");
+        PathArgument inputVcfPath = new PathArgument("i", "input-vcf-path", "input VCF path, default stdin", false);
+        FileArgument outputVcfFile = new FileArgument("o", "output-vcf-file", "output VCF file, default stdout", false);
+        StringArgument memory = new StringArgument("m", "memory", "approximate memory budget, default " + DEFAULT_MEMORY, false);
+        FileArgument tempDirectory = new FileArgument("d", "temp-directory", "directory for temporary files, default java.io.tmpdir", false);
+        IntegerArgument threads = new IntegerArgument("t", "threads", "number of threads, default " + DEFAULT_THREADS, false);
+
+        ArgumentList arguments = new ArgumentList(about, help, inputVcfPath, outputVcfFile, memory, tempDirectory, threads);
+        CommandLine commandLine = new CommandLine(args);
+
+        SortVcf sortVcf = null;
+        try {
+            CommandLineParser.parse(commandLine, arguments);
+            if (about.wasFound()) {
+                About.about(System.out);
+                System.exit(0);
+            }
+            if (help.wasFound()) {
+                Usage.usage(USAGE, null, commandLine, arguments, System.out);
+                System.exit(0);
+            }
+            sortVcf = new SortVcf(inputVcfPath.getValue(), outputVcfFile.getValue(), toBytes(memory.getValue(DEFAULT_MEMORY)), tempDirectory.getValue(), threads.getValue(DEFAULT_THREADS));
+        }
+        catch (CommandLineParseException e) {
+            if (about.wasFound()) {
+                About.about(System.out);
+                System.exit(0);
+            }
+            if (help.wasFound()) {
+                Usage.usage(USAGE, null, commandLine, arguments, System.out);
+                System.exit(0);
+            }
+            Usage.usage(USAGE, e, commandLine, arguments, System.err);
+            System.exit(-1);
+        }
+        catch (NullPointerException | IllegalArgumentException e) {
+            Usage.usage(USAGE, e, commandLine, arguments, System.err);
+            System.exit(-1);
+        }
+        try {
+            System.exit(sortVcf.call());
+        }
+        catch (Exception e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+}
@@ -23,20 +23,57 @@
 */
 package org.dishevelled.bio.tools;
 
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
 import static org.dishevelled.compress.Readers.reader;
 
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
+import java.io.Closeable;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+
+import java.nio.charset.StandardCharsets;
 
+import java.nio.file.Files;
 import java.nio.file.Path;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import java.util.zip.Deflater;
+
+import com.google.common.io.CountingOutputStream;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import org.dishevelled.bio.alignment.sam.BamReader;
+import org.dishevelled.bio.alignment.sam.BamWriter;
 import org.dishevelled.bio.alignment.sam.SamHeader;
 import org.dishevelled.bio.alignment.sam.SamReader;
 import org.dishevelled.bio.alignment.sam.SamRecord;
 import org.dishevelled.bio.alignment.sam.SamListener;
 import org.dishevelled.bio.alignment.sam.SamWriter;
 
+import org.dishevelled.bio.bgzf.Bgzf;
+import org.dishevelled.bio.bgzf.ParallelBgzfInputStream;
+import org.dishevelled.bio.bgzf.ParallelBgzfOutputStream;
+
 import org.dishevelled.commandline.ArgumentList;
 import org.dishevelled.commandline.CommandLine;
 import org.dishevelled.commandline.CommandLineParseException;
@@ -52,13 +89,33 @@ import org.dishevelled.commandline.argument.StringArgument;
 import org.dishevelled.compress.Compress;
 
 /**
- * Split SAM files.
+ * Split SAM or BAM files.
+ *
+ * <p>
+ * SAM or BAM files are split at the next record after each n bytes or after each n records,
+ * into one output file at a time, or split by reference name or by read group, into one output
+ * file per key.  When splitting by key, records are buffered per key and written in batches,
+ * at most <code>maxOpenFiles</code> output files are open at once, and compressed output files
+ * share one pool of <code>threads</code> BGZF deflater threads.  The least recently written
+ * output file is closed, after writing its pending records, when another must be opened, and
+ * is reopened in append mode if more records arrive for its key.  Each output file repeats
+ * the SAM header.
+ * </p>
  *
  * @since 1.1
  * @author  Michael Heuer
  */
 public final class SplitSam extends AbstractSplit {
-    private static final String USAGE = "dsh-split-sam -r 100 -i foo.sam.bgz";
+    private final Key key;
+    private final int maxOpenFiles;
+    private final int threads;
+    private final int level;
+    static final int DEFAULT_THREADS = 1;
+    static final int DEFAULT_LEVEL = Deflater.DEFAULT_COMPRESSION;
+    static final int DEFAULT_MAX_OPEN_FILES = 64;
+    static final int MAX_PENDING_RECORDS_PER_KEY = 4096;
+    static final int MAX_PENDING_RECORDS = 65536;
+    private static final String USAGE = "dsh-split-sam [-r 100 | --by-reference | --by-read-group] -i foo.sam.bgz";
 
 
     /**
@@ -87,73 +144,520 @@ public final class SplitSam extends AbstractSplit {
      * @param suffix output file suffix, must not be null
      */
     public SplitSam(final Path inputPath, final Long bytes, final Long records, final String prefix, final int leftPad, final String suffix) {
+        this(inputPath, bytes, records, prefix, leftPad, suffix, DEFAULT_THREADS);
+    }
+
+    /**
+     * Split SAM or BAM files.
+     *
+     * @since 4.1
+     * @param inputPath input path, if any
+     * @param bytes split the input path at next record after each n bytes, if any
+     * @param records split the input path after each n records, if any
+     * @param prefix output file prefix, must not be null
+     * @param leftPad left pad split index in output file name
+     * @param suffix output file suffix, must not be null
+     * @param threads number of parser threads, must be at least one
+     */
+    public SplitSam(final Path inputPath, final Long bytes, final Long records, final String prefix, final int leftPad, final String suffix, final int threads) {
         super(inputPath, bytes, records, prefix, leftPad, suffix);
+        checkArgument(threads > 0, "threads must be at least one");
+        this.key = null;
+        this.maxOpenFiles = DEFAULT_MAX_OPEN_FILES;
+        this.threads = threads;
+        this.level = DEFAULT_LEVEL;
+    }
+
+    /**
+     * Split SAM or BAM files by key, into one output file per key.
+     *
+     * @since 4.1
+     * @param inputPath input path, if any
+     * @param key split key, must not be null
+     * @param prefix output file prefix, must not be null
+     * @param suffix output file suffix, must end with <code>.sam</code>, <code>.gz</code>,
+     *    <code>.bgz</code>, <code>.bgzf</code>, or <code>.bam</code>
+     * @param maxOpenFiles maximum number of open output files, must be at least one
+     * @param threads number of parser and deflater threads, must be at least one
+     */
+    public SplitSam(final Path inputPath, final Key key, final String prefix, final String suffix, final int maxOpenFiles, final int threads) {
+        this(inputPath, key, prefix, suffix, maxOpenFiles, threads, DEFAULT_LEVEL);
+    }
+
+    /**
+     * Split SAM or BAM files by key, into one output file per key, with the specified
+     * compression level for BGZF-compressed and BAM output files.
+     *
+     * @since 4.1
+     * @param inputPath input path, if any
+     * @param key split key, must not be null
+     * @param prefix output file prefix, must not be null
+     * @param suffix output file suffix, must end with <code>.sam</code>, <code>.gz</code>,
+     *    <code>.bgz</code>, <code>.bgzf</code>, or <code>.bam</code>
+     * @param maxOpenFiles maximum number of open output files, must be at least one
+     * @param threads number of parser and deflater threads, must be at least one
+     * @param level compression level, <code>-1</code> for the default compression level
+     *    or <code>0</code> through <code>9</code>
+     */
+    public SplitSam(final Path inputPath, final Key key, final String prefix, final String suffix, final int maxOpenFiles, final int threads, final int level) {
+        super(inputPath, null, null, prefix, -1, suffix);
+        checkNotNull(key);
+        checkArgument(isBgzf(suffix) || suffix.endsWith(".bam") || suffix.endsWith(".sam"),
+                      "suffix must end with .sam, .gz, .bgz, .bgzf, or .bam when splitting by key, was %s", suffix);
+        checkArgument(maxOpenFiles > 0, "maxOpenFiles must be at least one");
+        checkArgument(threads > 0, "threads must be at least one");
+        checkArgument(level >= -1 && level <= 9, "level must be in the range [-1, 9]");
+        this.key = key;
+        this.maxOpenFiles = maxOpenFiles;
+        this.threads = threads;
+        this.level = level;
+    }
+
+
+    /**
+     * Split key.
+     *
+     * @since 4.1
+     */
+    public enum Key {
+        /** Split by RNAME mandatory field, with unmapped records without RNAME split to <code>unmapped</code>. */
+        REFERENCE("unmapped"),
+
+        /** Split by <code>RG</code> optional field, with records without read group split to <code>unknown</code>. */
+        READ_GROUP("unknown");
+
+
+        /** Output file name for records without a key. */
+        private final String missing;
+
+
+        /**
+         * Create a new split key.
+         *
+         * @param missing output file name for records without a key
+         */
+        Key(final String missing) {
+            this.missing = missing;
+        }
+
+
+        /**
+         * Return the key for the specified SAM record, or <code>null</code> if it has none.
+         *
+         * @param record SAM record
+         * @return the key for the specified SAM record, or <code>null</code> if it has none
+         */
+        String key(final SamRecord record) {
+            return this == REFERENCE ? record.getRname() : (record.containsRg() ? record.getRg() : null);
+        }
     }
 
 
     @Override
     public Integer call() throws Exception {
-        BufferedReader reader = null;
+        SamListener listener = key != null ? new KeySplitListener() : (outputFileName(0).endsWith(".bam") ? new BamSplitListener() : new SamSplitListener());
         try {
-            reader = reader(inputPath);
-
-            SamReader.stream(reader, new SamListener() {
-                    private long r = 0L;
-                    private int files = 0;
-                    private CountingWriter writer;
-                    private SamHeader header;
-
-                    @Override
-                    public boolean header(final SamHeader header) {
-                        this.header = header;
-                        return true;
-                    }
-
-                    @Override
-                    public boolean record(final SamRecord record) {
-                        if (writer == null) {
-                            writer = createCountingWriter(files);
-                            SamWriter.writeHeader(header, writer.asPrintWriter());
-                        }
-                        SamWriter.writeRecord(record, writer.asPrintWriter());
-                        try {
-                            writer.flush();
-                        }
-                        catch (IOException e) {
-                            // ignore
-                        }
-                        r++;
-
-                        if (r >= records || writer.getCount() >= bytes) {
-                            r = 0L;
-                            files++;
-
-                            try {
-                                writer.close();
-                            }
-                            catch (Exception e) {
-                                // ignore
-                            }
-                            finally {
-                                writer = null;
-                            }
-                        }
-                        return true;
-                    }
-                });
+            if (inputPath != null && BamReader.isBam(inputPath)) {
+                BamReader.stream(inputPath, listener, threads);
+            }
+            else if (threads > 1 && inputPath != null && Bgzf.isBgzf(inputPath)) {
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(new ParallelBgzfInputStream(Files.newInputStream(inputPath), threads), StandardCharsets.UTF_8))) {
+                    SamReader.streamParallel(reader, listener, threads);
+                }
+            }
+            else if (threads > 1) {
+                try (BufferedReader reader = reader(inputPath)) {
+                    SamReader.streamParallel(reader, listener, threads);
+                }
+            }
+            else {
+                try (BufferedReader reader = reader(inputPath)) {
+                    SamReader.stream(reader, listener);
+                }
+            }
             return 0;
         }
         finally {
+            if (listener instanceof Closeable) {
+                ((Closeable) listener).close();
+            }
+            closeWriters();
+        }
+    }
+
+    /**
+     * Split listener writing SAM format.
+     */
+    private final class SamSplitListener implements SamListener {
+        private long r = 0L;
+        private int files = 0;
+        private CountingWriter writer;
+        private SamHeader header;
+
+        @Override
+        public boolean header(final SamHeader header) {
+            this.header = header;
+            return true;
+        }
+
+        @Override
+        public boolean record(final SamRecord record) {
+            if (writer == null) {
+                writer = createCountingWriter(files);
+                SamWriter.writeHeader(header, writer.asPrintWriter());
+            }
+            SamWriter.writeRecord(record, writer.asPrintWriter());
             try {
-                reader.close();
+                writer.flush();
             }
-            catch (Exception e) {
+            catch (IOException e) {
                 // ignore
             }
-            closeWriters();
+            r++;
+
+            if (r >= records || writer.getCount() >= bytes) {
+                r = 0L;
+                files++;
+
+                try {
+                    writer.close();
+                }
+                catch (Exception e) {
+                    // ignore
+                }
+                finally {
+                    writer = null;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Split listener writing BAM format, counting compressed bytes.
+     */
+    private final class BamSplitListener implements SamListener {
+        private long r = 0L;
+        private int files = 0;
+        private CountingOutputStream outputStream;
+        private BamWriter writer;
+        private SamHeader header;
+
+        @Override
+        public boolean header(final SamHeader header) {
+            this.header = header;
+            return true;
+        }
+
+        @Override
+        public boolean record(final SamRecord record) {
+            try {
+                if (writer == null) {
+                    outputStream = new CountingOutputStream(new BufferedOutputStream(new FileOutputStream(outputFileName(files))));
+                    writer = new BamWriter(outputStream, header, threads);
+                }
+                writer.write(record);
+                r++;
+
+                if (r >= records || outputStream.getCount() >= bytes) {
+                    r = 0L;
+                    files++;
+                    close();
+                }
+            }
+            catch (IOException e) {
+                throw new RuntimeException("could not write BAM file " + outputFileName(files), e);
+            }
+            return true;
+        }
+
+        /**
+         * Close the current BAM writer, if any.
+         *
+         * @throws IOException if an I/O error occurs
+         */
+        void close() throws IOException {
+            if (writer != null) {
+                try {
+                    writer.close();
+                }
+                finally {
+                    writer = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Split listener writing one output file per key, keeping a bounded number of output files open.
+     */
+    private final class KeySplitListener implements SamListener, Closeable {
+        /** Open outputs keyed by key, in least recently written order. */
+        private final Map<String, Output> outputs = new LinkedHashMap<String, Output>(16, 0.75f, true);
+
+        /** Pending records keyed by key, not yet written to their output. */
+        private final Map<String, List<SamRecord>> pending = new HashMap<String, List<SamRecord>>();
+
+        /** Output file names keyed by key, for all keys seen so far. */
+        private final Map<String, String> fileNames = new HashMap<String, String>();
+
+        /** Output file names in use. */
+        private final Set<String> usedFileNames = new HashSet<String>();
+
+        /** Deflater executor service, shared by all outputs. */
+        private final ExecutorService executorService = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder().setDaemon(true).setNameFormat("split-sam-deflater-%d").build());
+
+        /** Number of pending records across all keys. */
+        private int pendingRecords = 0;
+
+        /** SAM header. */
+        private SamHeader header;
+
+        @Override
+        public boolean header(final SamHeader header) {
+            this.header = header;
+            return true;
+        }
+
+        @Override
+        public boolean record(final SamRecord record) {
+            String k = key.key(record);
+            if (k == null) {
+                k = "";
+            }
+            List<SamRecord> records = pending.get(k);
+            if (records == null) {
+                records = new ArrayList<SamRecord>();
+                pending.put(k, records);
+            }
+            records.add(record);
+            pendingRecords++;
+            try {
+                if (records.size() >= MAX_PENDING_RECORDS_PER_KEY) {
+                    flush(k);
+                }
+                else if (pendingRecords >= MAX_PENDING_RECORDS) {
+                    flush(largest());
+                }
+            }
+            catch (IOException e) {
+                throw new RuntimeException("could not write file " + fileNames.get(k), e);
+            }
+            return true;
+        }
+
+        /**
+         * Return the key with the most pending records.
+         *
+         * @return the key with the most pending records
+         */
+        private String largest() {
+            String largest = null;
+            int size = 0;
+            for (Map.Entry<String, List<SamRecord>> entry : pending.entrySet()) {
+                if (entry.getValue().size() > size) {
+                    largest = entry.getKey();
+                    size = entry.getValue().size();
+                }
+            }
+            return largest;
+        }
+
+        /**
+         * Write the pending records for the specified key to its output, opening it if necessary.
+         *
+         * @param k key, or empty string for records without a key
+         * @throws IOException if an I/O error occurs
+         */
+        private void flush(final String k) throws IOException {
+            List<SamRecord> records = pending.get(k);
+            if (records != null && !records.isEmpty()) {
+                write(output(k), records);
+            }
+        }
+
+        /**
+         * Write the specified pending records to the specified output.
+         *
+         * @param output output
+         * @param records pending records
+         * @throws IOException if an I/O error occurs
+         */
+        private void write(final Output output, final List<SamRecord> records) throws IOException {
+            for (SamRecord record : records) {
+                output.write(record);
+            }
+            pendingRecords -= records.size();
+            records.clear();
+        }
+
+        /**
+         * Return the output for the specified key, opening it if necessary.  If another
+         * output must be closed first, its pending records are written before it is closed.
+         *
+         * @param k key, or empty string for records without a key
+         * @return the output for the specified key
+         * @throws IOException if an I/O error occurs
+         */
+        private Output output(final String k) throws IOException {
+            Output output = outputs.get(k);
+            if (output == null) {
+                if (outputs.size() >= maxOpenFiles) {
+                    Iterator<Map.Entry<String, Output>> eldest = outputs.entrySet().iterator();
+                    Map.Entry<String, Output> entry = eldest.next();
+                    eldest.remove();
+                    try {
+                        List<SamRecord> records = pending.get(entry.getKey());
+                        if (records != null && !records.isEmpty()) {
+                            write(entry.getValue(), records);
+                        }
+                    }
+                    finally {
+                        entry.getValue().close();
+                    }
+                }
+                String fileName = fileNames.get(k);
+                boolean append = fileName != null;
+                if (!append) {
+                    fileName = fileName(k);
+                    fileNames.put(k, fileName);
+                }
+                output = new Output(new File(fileName), header, append, executorService);
+                outputs.put(k, output);
+            }
+            return output;
+        }
+
+        /**
+         * Return a new, unique output file name for the specified key.
+         *
+         * @param k key, or empty string for records without a key
+         * @return a new, unique output file name for the specified key
+         */
+        private String fileName(final String k) {
+            String name = k.isEmpty() ? key.missing : k.replaceAll("[^A-Za-z0-9._-]", "_");
+            String fileName = outputFileName(name);
+            for (int i = 2; usedFileNames.contains(fileName); i++) {
+                fileName = outputFileName(name + "_" + i);
+            }
+            usedFileNames.add(fileName);
+            return fileName;
+        }
+
+        @Override
+        public void close() throws IOException {
+            IOException exception = null;
+            try {
+                // write pending records for open outputs first, to avoid reopening them
+                for (Map.Entry<String, Output> entry : outputs.entrySet()) {
+                    List<SamRecord> records = pending.get(entry.getKey());
+                    if (records != null && !records.isEmpty()) {
+                        write(entry.getValue(), records);
+                    }
+                }
+                for (String k : new ArrayList<String>(pending.keySet())) {
+                    flush(k);
+                }
+            }
+            catch (IOException e) {
+                exception = e;
+            }
+            for (Output output : outputs.values()) {
+                try {
+                    output.close();
+                }
+                catch (IOException e) {
+                    exception = e;
+                }
+            }
+            outputs.clear();
+            pending.clear();
+            executorService.shutdownNow();
+            if (exception != null) {
+                throw exception;
+            }
+        }
+    }
+
+    /**
+     * Output file for a key, writing SAM format, BGZF-compressed SAM format, or BAM format
+     * depending on the output file suffix.
+     */
+    private final class Output implements Closeable {
+        /** SAM writer, if writing SAM format. */
+        private final PrintWriter writer;
+
+        /** BAM writer, if writing BAM format. */
+        private final BamWriter bamWriter;
+
+
+        /**
+         * Create a new output for the specified file.
+         *
+         * @param file output file
+         * @param header SAM header
+         * @param append true to append to the specified file, without repeating the SAM header
+         * @param executorService shared deflater executor service
+         * @throws IOException if an I/O error occurs
+         */
+        private Output(final File file, final SamHeader header, final boolean append, final ExecutorService executorService) throws IOException {
+            OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(file, append));
+            if (file.getName().endsWith(".bam")) {
+                writer = null;
+                bamWriter = new BamWriter(new ParallelBgzfOutputStream(outputStream, executorService, threads, level), header, !append);
+            }
+            else {
+                if (isBgzf(file.getName())) {
+                    outputStream = new ParallelBgzfOutputStream(outputStream, executorService, threads, level);
+                }
+                writer = new PrintWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+                bamWriter = null;
+                if (!append) {
+                    SamWriter.writeHeader(header, writer);
+                }
+            }
+        }
+
+
+        /**
+         * Write the specified SAM record.
+         *
+         * @param record SAM record to write
+         * @throws IOException if an I/O error occurs
+         */
+        void write(final SamRecord record) throws IOException {
+            if (bamWriter != null) {
+                bamWriter.write(record);
+            }
+            else {
+                SamWriter.writeRecord(record, writer);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (bamWriter != null) {
+                bamWriter.close();
+            }
+            else {
+                writer.close();
+                if (writer.checkError()) {
+                    throw new IOException("could not write SAM file");
+                }
+            }
         }
     }
 
+    /**
+     * Return true if the specified file name or suffix denotes BGZF-compressed output.
+     *
+     * @param name file name or suffix
+     * @return true if the specified file name or suffix denotes BGZF-compressed output
+     */
+    static boolean isBgzf(final String name) {
+        return name.endsWith(".gz") || name.endsWith(".bgz") || name.endsWith(".bgzf");
+    }
+
     static String getBaseName(final Path path) {
         String baseName = getNameWithoutExtension(path);
         // trim trailing .sam if present
@@ -175,14 +679,19 @@ public final class SplitSam extends AbstractSplit {
     public static void main(final String[] args) {
         Switch about = new Switch("a", "about", "display about message");
         Switch help = new Switch("h", "help", "display help message");
-        PathArgument inputPath = new PathArgument("i", "input-path", "input SAM path, default stdin", false);
+        PathArgument inputPath = new PathArgument("i", "input-path", "input SAM or BAM path, default stdin", false);
         StringArgument bytes = new StringArgument("b", "bytes", "split input path at next record after each n bytes", false);
         LongArgument records = new LongArgument("r", "records", "split input path after each n records", false);
         StringArgument prefix = new StringArgument("p", "prefix", "output file prefix", false);
         IntegerArgument leftPad = new IntegerArgument("d", "left-pad", "left pad split index in output file name", false);
-        StringArgument suffix = new StringArgument("s", "suffix", "output file suffix, e.g. .sam.bgz", false);
-
-        ArgumentList arguments = new ArgumentList(about, help, inputPath, bytes, records, prefix, leftPad, suffix);
+        StringArgument suffix = new StringArgument("s", "suffix", "output file suffix, e.g. .sam.bgz or .bam", false);
+        Switch byReference = new Switch("n", "by-reference", "split input path by reference name, into one output file per reference");
+        Switch byReadGroup = new Switch("g", "by-read-group", "split input path by read group, into one output file per read group");
+        IntegerArgument maxOpenFiles = new IntegerArgument("m", "max-open-files", "maximum number of open output files when splitting by key, default " + DEFAULT_MAX_OPEN_FILES, false);
+        IntegerArgument level = new IntegerArgument("l", "compression-level", "compression level for BGZF and BAM output files when splitting by key, 0 through 9, default " + DEFAULT_LEVEL, false);
+        IntegerArgument threads = new IntegerArgument("t", "threads", "number of parser and deflater threads, default " + DEFAULT_THREADS, false);
+
+        ArgumentList arguments = new ArgumentList(about, help, inputPath, bytes, records, prefix, leftPad, suffix, byReference, byReadGroup, maxOpenFiles, level, threads);
         CommandLine commandLine = new CommandLine(args);
 
         SplitSam splitSam = null;
@@ -200,6 +709,11 @@ public final class SplitSam extends AbstractSplit {
 
             Long b = bytes.wasFound() ? toBytes(bytes.getValue()) : null;
 
+            if (byReference.wasFound() && byReadGroup.wasFound()) {
+                throw new IllegalArgumentException("at most one of --by-reference or --by-read-group may be specified");
+            }
+            Key key = byReference.wasFound() ? Key.REFERENCE : (byReadGroup.wasFound() ? Key.READ_GROUP : null);
+
             String p = prefix.getValue();
             if (!prefix.wasFound()) {
                 if (inputPath.wasFound()) {
@@ -208,6 +722,9 @@ public final class SplitSam extends AbstractSplit {
                 else {
                     p = "x";
                 }
+                if (key != null) {
+                    p = p + ".";
+                }
             }
 
             String s = suffix.getValue();
@@ -231,9 +748,20 @@ public final class SplitSam extends AbstractSplit {
                 }
             }
 
-            splitSam = new SplitSam(inputPath.getValue(), b, records.getValue(), p, leftPad.getValue(-1), s);
+            if (key != null) {
+                if (b != null || records.wasFound()) {
+                    throw new IllegalArgumentException("--bytes and --records may not be specified when splitting by key");
+                }
+                splitSam = new SplitSam(inputPath.getValue(), key, p, s, maxOpenFiles.getValue(DEFAULT_MAX_OPEN_FILES), threads.getValue(DEFAULT_THREADS), level.getValue(DEFAULT_LEVEL));
+            }
+            else {
+                if (level.wasFound()) {
+                    throw new IllegalArgumentException("--compression-level may only be specified when splitting by key");
+                }
+                splitSam = new SplitSam(inputPath.getValue(), b, records.getValue(), p, leftPad.getValue(-1), s, threads.getValue(DEFAULT_THREADS));
+            }
         }
-        catch (CommandLineParseException | NullPointerException e) {
+        catch (CommandLineParseException | NullPointerException | IllegalArgumentException e) {
             if (about.wasFound()) {
                 About.about(System.out);
                 System.exit(0);
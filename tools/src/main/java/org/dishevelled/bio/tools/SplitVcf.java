@@ -148,7 +148,7 @@ public final class SplitVcf extends AbstractSplit {
                             }
                         }
                     }
-                });
+                }, true);
             return 0;
         }
         finally {
@@ -130,6 +130,7 @@ public final class Tools implements Callable<Integer> {
 
     /** Map of commands keyed by command name. */
     static SortedMap<String, Command> COMMANDS = new ImmutableSortedMap.Builder<String, Command>(Ordering.natural())
+        .put("annotate-vcf-ids", new Command("annotate-vcf-ids", "annotate variant ids in VCF format from a database in VCF format, e.g. dbSNP", AnnotateVcfIds.class))
         .put("bin-fastq-quality-scores", new Command("bin-fastq-quality-scores", "bin quality scores from files in FASTQ format", BinFastqQualityScores.class))
         .put("compress-bed", new Command("compress-bed", "compress features in BED format to splittable bgzf or bzip2 compression codecs", CompressBed.class))
         .put("compress-fasta", new Command("compress-fasta", "compress sequences in FASTA format to splittable bgzf or bzip2 compression codecs", CompressFasta.class))
@@ -182,7 +183,7 @@ public final class Tools implements Callable<Integer> {
         .put("filter-gff3", new Command("filter-gff3", "filter features in GFF3 format", FilterGff3.class))
         .put("filter-paf", new Command("filter-paf", "filter alignments in PAF format", FilterPaf.class))
         .put("filter-rgfa", new Command("filter-rgfa", "filter assembly in rGFA format", FilterRgfa.class))
-        .put("filter-sam", new Command("filter-sam", "filter alignments in SAM format", FilterSam.class))
+        .put("filter-sam", new Command("filter-sam", "filter alignments in SAM or BAM format", FilterSam.class))
         .put("filter-vcf", new Command("filter-vcf", "filter variants in VCF format", FilterVcf.class))
         .put("gfa1-to-gfa2", new Command("gfa1-to-gfa2", "convert GFA 1.0 format to GFA 2.0 format", Gfa1ToGfa2.class))
         .put("gff3-to-bed", new Command("gff3-to-bed", "convert transcript features in GFF3 format to BED format", Gff3ToBed.class))
@@ -193,6 +194,7 @@ public final class Tools implements Callable<Integer> {
         .put("links-to-cytoscape-edges", new Command("links-to-cytoscape-edges", "convert links in GFA 1.0 format to edges.txt format for Cytoscape", LinksToCytoscapeEdges.class))
         .put("links-to-property-graph", new Command("links-to-property-graph", "convert links in GFA 1.0 format to property graph CSV format", LinksToPropertyGraph.class))
         .put("list-filesystems", new Command("list-filesystems", "list filesystem providers", ListFilesystems.class))
+        .put("merge-vcf", new Command("merge-vcf", "merge variants in VCF format from coordinate-sorted inputs", MergeVcf.class))
         .put("parquet-reads-to-fastq", new Command("parquet-reads-to-fastq", "convert reads in Parquet format to FASTQ format", ParquetReadsToFastq.class))
         .put("parquet-sequences-to-fasta", new Command("parquet-sequences-to-fasta", "convert sequences in Parquet format to FASTA format", ParquetSequencesToFasta.class))
         .put("reassemble-paths", new Command("reassemble-paths", "reassemble paths in GFA 1.0 format from traversal records", ReassemblePaths.class))
@@ -201,8 +203,11 @@ public final class Tools implements Callable<Integer> {
         .put("rename-vcf-references", new Command("rename-vcf-references", "rename references in VCF files", RenameVcfReferences.class))
         .put("remap-dbsnp", new Command("remap-dbsnp", "remap DB Type=String flags in VCF format to DB Type=Flag and dbsnp Type=String fields", RemapDbSnp.class))
         .put("remap-phase-set", new Command("remap-phase-set", "remap PS Type=String phase set ids in VCF format to PS Type=Integer", RemapPhaseSet.class))
+        .put("sam-depth", new Command("sam-depth", "calculate per-base depth for alignments in SAM or BAM format", SamDepth.class))
         .put("segments-to-cytoscape-nodes", new Command("segments-to-cytoscape-nodes", "convert segments in GFA 1.0 format to nodes.txt format for Cytoscape", SegmentsToCytoscapeNodes.class))
         .put("segments-to-property-graph", new Command("segments-to-property-graph", "convert segments in GFA 1.0 format to property graph CSV format", SegmentsToPropertyGraph.class))
+        .put("sort-sam", new Command("sort-sam", "sort alignments in SAM or BAM format", SortSam.class))
+        .put("sort-vcf", new Command("sort-vcf", "coordinate-sort variants in VCF format", SortVcf.class))
         .put("split-bed", new Command("split-bed", "split files in BED format", SplitBed.class))
         .put("split-fasta", new Command("split-fasta", "split files in FASTA format", SplitFasta.class))
         .put("split-fastq", new Command("split-fastq", "split files in FASTQ format", SplitFastq.class))
@@ -210,7 +215,7 @@ public final class Tools implements Callable<Integer> {
         .put("split-gff3", new Command("split-gff3", "split files in GFF3 format", SplitGff3.class))
         .put("split-interleaved-fastq", new Command("split-interleaved-fastq", "split files in interleaved FASTQ format", SplitInterleavedFastq.class))
         .put("split-paf", new Command("split-paf", "split files in PAF format", SplitPaf.class))
-        .put("split-sam", new Command("split-sam", "split files in SAM format", SplitSam.class))
+        .put("split-sam", new Command("split-sam", "split files in SAM or BAM format", SplitSam.class))
         .put("split-vcf", new Command("split-vcf", "split files in VCF format", SplitVcf.class))
         .put("summarize-uniprot-entries", new Command("summarize-uniprot-entries", "summarize UniProt entries in XML format", SummarizeUniprotEntries.class))
         .put("summarize-uniprot-entries-to-parquet", new Command("summarize-uniprot-entries-to-parquet", "summarize UniProt entries in XML format to Parquet format", SummarizeUniprotEntriesToParquet.class))
@@ -222,6 +227,7 @@ public final class Tools implements Callable<Integer> {
         .put("truncate-fasta", new Command("truncate-fasta", "truncate DNA or protein sequences in FASTA format", TruncateFasta.class))
         .put("truncate-paths", new Command("truncate-paths", "truncate paths in GFA 1.0 format", TruncatePaths.class))
         .put("variant-table-to-vcf", new Command("variant-table-to-vcf", "convert Ensembl variant table to VCF format", EnsemblVariantTableToVcf.class))
+        .put("vcf-mendel", new Command("vcf-mendel", "check Mendelian consistency of variants in VCF format against its pedigree", VcfMendel.class))
         .put("vcf-pedigree", new Command("vcf-pedigree", "extract a pedigree from VCF format", VcfPedigree.class))
         .put("vcf-samples", new Command("vcf-samples", "extract samples from VCF format", VcfSamples.class))
         .put("vcf-to-parquet", new Command("vcf-to-parquet", "convert variants in VCF format to Parquet format", VcfToParquet.class))
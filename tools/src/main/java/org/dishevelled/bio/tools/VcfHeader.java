@@ -26,6 +26,7 @@ package org.dishevelled.bio.tools;
 import static org.dishevelled.compress.Readers.reader;
 import static org.dishevelled.compress.Writers.writer;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.PrintWriter;
 
@@ -81,10 +82,12 @@ public final class VcfHeader implements Callable<Integer> {
 
     @Override
     public Integer call() throws Exception {
+        BufferedReader reader = null;
         PrintWriter writer = null;
         try {
+            reader = reader(inputVcfPath);
             writer = writer(outputVcfHeaderFile);
-            org.dishevelled.bio.variant.vcf.VcfHeader header = VcfReader.header(reader(inputVcfPath));
+            org.dishevelled.bio.variant.vcf.VcfHeader header = VcfReader.header(reader);
 
             if (validate) {
                 VcfHeaderLines.fromHeader(header);
@@ -94,6 +97,12 @@ public final class VcfHeader implements Callable<Integer> {
             return 0;
         }
         finally {
+            try {
+                reader.close();
+            }
+            catch (Exception e) {
+                // empty
+            }
             try {
                 writer.close();
             }
@@ -0,0 +1,245 @@
+/*
+
+    dsh-bio-tools  Command line tools.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.tools;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import static org.dishevelled.compress.Readers.reader;
+import static org.dishevelled.compress.Writers.writer;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.PrintWriter;
+
+import java.nio.file.Path;
+
+import java.util.List;
+
+import java.util.concurrent.Callable;
+
+import com.google.common.base.Joiner;
+
+import org.dishevelled.bio.variant.vcf.VcfMendelian;
+import org.dishevelled.bio.variant.vcf.VcfMendelian.FamilySummary;
+import org.dishevelled.bio.variant.vcf.VcfMendelian.VariantSummary;
+import org.dishevelled.bio.variant.vcf.VcfMendelListener;
+import org.dishevelled.bio.variant.vcf.VcfRecord;
+
+import org.dishevelled.commandline.ArgumentList;
+import org.dishevelled.commandline.CommandLine;
+import org.dishevelled.commandline.CommandLineParseException;
+import org.dishevelled.commandline.CommandLineParser;
+import org.dishevelled.commandline.Switch;
+import org.dishevelled.commandline.Usage;
+
+import org.dishevelled.commandline.argument.FileArgument;
+import org.dishevelled.commandline.argument.IntegerArgument;
+import org.dishevelled.commandline.argument.PathArgument;
+
+/**
+ * Check Mendelian consistency and transmission of variants in VCF format against
+ * the trios in its pedigree.
+ *
+ * <p>
+ * Trios are read from <code>##PEDIGREE</code> meta header lines.  A summary row is written
+ * per variant, and if an output family file is specified, a summary row is written per trio,
+ * including the transmission disequilibrium test statistic.
+ * </p>
+ *
+ * @since 4.1
+ * @author  Michael Heuer
+ */
+public final class VcfMendel implements Callable<Integer> {
+    private final Path inputVcfPath;
+    private final File outputVariantFile;
+    private final File outputFamilyFile;
+    private final boolean errorsOnly;
+    private final int threads;
+    static final int DEFAULT_THREADS = 1;
+    private static final String USAGE = "dsh-vcf-mendel [-i input.vcf.gz] [-o variants.txt] [-f families.txt] [-t threads]";
+
+
+    /**
+     * Check Mendelian consistency and transmission of variants in VCF format.
+     *
+     * @since 4.1
+     * @param inputVcfPath input VCF path, if any
+     * @param outputVariantFile output per-variant summary file, if any
+     * @param outputFamilyFile output per-family summary file, if any
+     * @param errorsOnly true to only write summaries for variants with Mendelian errors
+     * @param threads number of threads, must be greater than zero
+     */
+    public VcfMendel(final Path inputVcfPath,
+                     final File outputVariantFile,
+                     final File outputFamilyFile,
+                     final boolean errorsOnly,
+                     final int threads) {
+        checkArgument(threads > 0, "threads must be greater than zero");
+        this.inputVcfPath = inputVcfPath;
+        this.outputVariantFile = outputVariantFile;
+        this.outputFamilyFile = outputFamilyFile;
+        this.errorsOnly = errorsOnly;
+        this.threads = threads;
+    }
+
+
+    @Override
+    public Integer call() throws Exception {
+        BufferedReader reader = null;
+        PrintWriter variantWriter = null;
+        PrintWriter familyWriter = null;
+        try {
+            reader = reader(inputVcfPath);
+            variantWriter = writer(outputVariantFile);
+            familyWriter = outputFamilyFile == null ? null : writer(outputFamilyFile);
+
+            final PrintWriter vw = variantWriter;
+            final PrintWriter fw = familyWriter;
+            final Joiner joiner = Joiner.on("\t");
+
+            VcfMendelian.check(reader, new VcfMendelListener() {
+                    @Override
+                    public void trios(final VcfMendelian mendelian) {
+                        vw.println("#chrom\tpos\tid\tref\talt\tconsistent\terrors\tno_calls\ttransmitted\tuntransmitted\terror_children");
+                        if (fw != null) {
+                            fw.println("#child\tmother\tfather\tconsistent\terrors\tno_calls\ttransmitted\tuntransmitted\ttdt");
+                        }
+                    }
+
+                    @Override
+                    public void variant(final VariantSummary variant) {
+                        if (errorsOnly && variant.getErrors() == 0) {
+                            return;
+                        }
+                        VcfRecord record = variant.getRecord();
+                        List<String> errorChildIds = variant.getErrorChildIds();
+                        vw.println(joiner.join(record.getChrom(),
+                                               record.getPos(),
+                                               record.getId().length == 0 ? "." : Joiner.on(";").join(record.getId()),
+                                               record.getRef(),
+                                               record.getAlt().length == 0 ? "." : Joiner.on(",").join(record.getAlt()),
+                                               variant.getConsistent(),
+                                               variant.getErrors(),
+                                               variant.getNoCalls(),
+                                               variant.getTransmitted(),
+                                               variant.getUntransmitted(),
+                                               errorChildIds.isEmpty() ? "." : Joiner.on(",").join(errorChildIds)));
+                    }
+
+                    @Override
+                    public void family(final FamilySummary family) {
+                        if (fw != null) {
+                            fw.println(joiner.join(family.getChildId(),
+                                                   family.getMotherId() == null ? "." : family.getMotherId(),
+                                                   family.getFatherId() == null ? "." : family.getFatherId(),
+                                                   family.getConsistent(),
+                                                   family.getErrors(),
+                                                   family.getNoCalls(),
+                                                   family.getTransmitted(),
+                                                   family.getUntransmitted(),
+                                                   Double.isNaN(family.getTdt()) ? "." : family.getTdt()));
+                        }
+                    }
+                }, threads);
+
+            return 0;
+        }
+        finally {
+            try {
+                reader.close();
+            }
+            catch (Exception e) {
+                // empty
+            }
+            try {
+                variantWriter.close();
+            }
+            catch (Exception e) {
+                // empty
+            }
+            try {
+                familyWriter.close();
+            }
+            catch (Exception e) {
+                // empty
+            }
+        }
+    }
+
+
+    /**
+     * Main.
+     *
+     * @param args command line args
+     */
+    public static void main(final String[] args) {
+        Switch about = new Switch("a", "about", "display about message");
+        Switch help = new Switch("h", "help", "display help message");
+        PathArgument inputVcfPath = new PathArgument("i", "input-vcf-path", "input VCF path, default stdin", false);
+        FileArgument outputVariantFile = new FileArgument("o", "output-variant-file", "output per-variant summary file, default stdout", false);
+        FileArgument outputFamilyFile = new FileArgument("f", "output-family-file", "output per-family summary file", false);
+        Switch errorsOnly = new Switch("e", "errors-only", "only write per-variant summaries for variants with Mendelian errors");
+        IntegerArgument threads = new IntegerArgument("t", "threads", "number of threads, default " + DEFAULT_THREADS, false);
+
+        ArgumentList arguments = new ArgumentList(about, help, inputVcfPath, outputVariantFile, outputFamilyFile, errorsOnly, threads);
+        CommandLine commandLine = new CommandLine(args);
+
+        VcfMendel vcfMendel = null;
+        try {
+            CommandLineParser.parse(commandLine, arguments);
+            if (about.wasFound()) {
+                About.about(System.out);
+                System.exit(0);
+            }
+            if (help.wasFound()) {
+                Usage.usage(USAGE, null, commandLine, arguments, System.out);
+                System.exit(0);
+            }
+            vcfMendel = new VcfMendel(inputVcfPath.getValue(), outputVariantFile.getValue(), outputFamilyFile.getValue(), errorsOnly.wasFound(), threads.getValue(DEFAULT_THREADS));
+        }
+        catch (CommandLineParseException e) {
+            if (about.wasFound()) {
+                About.about(System.out);
+                System.exit(0);
+            }
+            if (help.wasFound()) {
+                Usage.usage(USAGE, null, commandLine, arguments, System.out);
+                System.exit(0);
+            }
+            Usage.usage(USAGE, e, commandLine, arguments, System.err);
+            System.exit(-1);
+        }
+        catch (NullPointerException | IllegalArgumentException e) {
+            Usage.usage(USAGE, e, commandLine, arguments, System.err);
+            System.exit(-1);
+        }
+        try {
+            System.exit(vcfMendel.call());
+        }
+        catch (Exception e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+}
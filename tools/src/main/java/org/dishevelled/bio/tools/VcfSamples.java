@@ -26,6 +26,7 @@ package org.dishevelled.bio.tools;
 import static org.dishevelled.compress.Readers.reader;
 import static org.dishevelled.compress.Writers.writer;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.PrintWriter;
 
@@ -38,7 +39,6 @@ import com.google.common.base.Joiner;
 import org.dishevelled.bio.variant.vcf.VcfGenome;
 import org.dishevelled.bio.variant.vcf.VcfReader;
 import org.dishevelled.bio.variant.vcf.VcfSample;
-import org.dishevelled.bio.variant.vcf.VcfStreamAdapter;
 
 import org.dishevelled.commandline.ArgumentList;
 import org.dishevelled.commandline.CommandLine;
@@ -76,28 +76,32 @@ public final class VcfSamples implements Callable<Integer> {
 
     @Override
     public Integer call() throws Exception {
+        BufferedReader reader = null;
         PrintWriter writer = null;
         try {
+            reader = reader(inputVcfPath);
             writer = writer(outputSampleFile);
 
-            final PrintWriter w = writer;
-            VcfReader.stream(reader(inputVcfPath), new VcfStreamAdapter() {
-                    @Override
-                    public void sample(final VcfSample sample) {
-                        if (sample.getGenomes().length == 0) {
-                            w.println(sample.getId());
-                        }
-                        else {
-                            for (VcfGenome genome : sample.getGenomes()) {
-                                w.println(Joiner.on("\t").join(sample.getId(), genome.getId(), genome.getMixture(), genome.getDescription()));
-                            }
-                        }
+            // read header lines only
+            for (VcfSample sample : VcfReader.samples(reader)) {
+                if (sample.getGenomes().length == 0) {
+                    writer.println(sample.getId());
+                }
+                else {
+                    for (VcfGenome genome : sample.getGenomes()) {
+                        writer.println(Joiner.on("\t").join(sample.getId(), genome.getId(), genome.getMixture(), genome.getDescription()));
                     }
-                });
-
+                }
+            }
             return 0;
         }
         finally {
+            try {
+                reader.close();
+            }
+            catch (Exception e) {
+                // empty
+            }
             try {
                 writer.close();
             }
@@ -38,13 +38,20 @@ import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.sql.Statement;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
@@ -52,8 +59,18 @@ import java.util.concurrent.atomic.AtomicReference;
 import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.Table;
 
+import org.dishevelled.bio.variant.vcf.VcfGenotype;
+import org.dishevelled.bio.variant.vcf.VcfHeader;
 import org.dishevelled.bio.variant.vcf.VcfParseAdapter;
 import org.dishevelled.bio.variant.vcf.VcfParser;
+import org.dishevelled.bio.variant.vcf.VcfReader;
+import org.dishevelled.bio.variant.vcf.VcfRecord;
+import org.dishevelled.bio.variant.vcf.VcfStreamAdapter;
+
+import org.dishevelled.bio.variant.vcf.header.VcfFormatHeaderLine;
+import org.dishevelled.bio.variant.vcf.header.VcfHeaderLineType;
+import org.dishevelled.bio.variant.vcf.header.VcfHeaderLines;
+import org.dishevelled.bio.variant.vcf.header.VcfInfoHeaderLine;
 
 import org.dishevelled.commandline.ArgumentList;
 import org.dishevelled.commandline.CommandLine;
@@ -90,10 +107,13 @@ public final class VcfToPartitionedParquet implements Callable<Integer> {
     private final boolean multiallelic;
     private final int rowGroupSize;
     private final long partitionSize;
+    private final boolean nativeTypes;
+    private final int threads;
     static final int DEFAULT_ROW_GROUP_SIZE = 122880;
     static final String DEFAULT_INFO_PREFIX = "";
     static final String DEFAULT_SAMPLE_PREFIX = "";
     static final long DEFAULT_PARTITION_SIZE = DEFAULT_ROW_GROUP_SIZE * 10L;
+    static final int DEFAULT_THREADS = 1;
     static final List<String> EMPTY_LIST = Collections.emptyList();
     private static final String CREATE_TABLE_SQL_PREFIX = "CREATE TABLE v%d (chrom VARCHAR, pos LONG, ref VARCHAR, alt VARCHAR, qual DOUBLE, filters_applied BOOLEAN, filters_passed BOOLEAN, filters_failed VARCHAR[]";
     private static final String CREATE_TABLE_SQL_PREFIX_MULTIALLELIC = "CREATE TABLE v%d (chrom VARCHAR, pos LONG, ref VARCHAR, alt VARCHAR[], qual DOUBLE, filters_applied BOOLEAN, filters_passed BOOLEAN, filters_failed VARCHAR[]";
@@ -102,6 +122,9 @@ public final class VcfToPartitionedParquet implements Callable<Integer> {
     private static final String COPY_SQL = "COPY v%d TO '%s/part-%d-%d.parquet' (FORMAT 'parquet', COMPRESSION 'zstd', OVERWRITE_OR_IGNORE 1, ROW_GROUP_SIZE %d)";
     private static final String USAGE = "dsh-vcf-to-partitioned-parquet [args]";
 
+    /** Maximum estimated size in KiB of projected rows in partitions waiting for or being written, half the maximum heap. */
+    private static final int MAX_PENDING_KIB = (int) Math.min(Integer.MAX_VALUE, Runtime.getRuntime().maxMemory() / 2048L);
+
 
     /**
      * Convert variants in VCF format to partitioned Parquet format.
@@ -142,6 +165,47 @@ public final class VcfToPartitionedParquet implements Callable<Integer> {
                                    final boolean multiallelic,
                                    final int rowGroupSize,
                                    final long partitionSize) {
+        this(vcfPath, parquetFile, infoFields, infoPrefix, samples, samplePrefix, formatFields, lowercase, multiallelic, rowGroupSize, partitionSize, false, DEFAULT_THREADS);
+    }
+
+    /**
+     * Convert variants in VCF format to partitioned Parquet format.  If <code>nativeTypes</code> is true,
+     * INFO and FORMAT field columns have native types taken from the VCF header lines, <code>BOOLEAN</code>
+     * for flags, <code>INTEGER[]</code> and <code>FLOAT[]</code> for numbers, and <code>VARCHAR[]</code>
+     * otherwise.  If <code>nativeTypes</code> is true or <code>threads</code> is greater than one, each
+     * partition is written by one of <code>threads</code> worker threads.  Records are projected to the
+     * selected columns before they are buffered into partitions, and the reading thread waits for
+     * partitions to be written while the estimated size of pending partitions is more than half the
+     * maximum heap.
+     *
+     * @since 4.1
+     * @param vcfPath input VCF path, if any
+     * @param parquetFile output Parquet file, will be created as a directory, overwriting if necessary
+     * @param infoFields list of INFO fields, may be empty but must not be null
+     * @param infoPrefix info prefix, may be empty but must not be null
+     * @param samples list of samples, may be empty but must not be null
+     * @param samplePrefix sample prefix, may be empty but must not be null
+     * @param formatFields list of FORMAT fields, may be empty but must not be null
+     * @param lowercase true to lowercase fields and samples for column names
+     * @param multiallelic true to allow multiallelic records
+     * @param rowGroupSize row group size, must be greater than zero
+     * @param partitionSize partition size, in number of rows per partitioned Parquet file, must be greater than zero
+     * @param nativeTypes true to use native types from the VCF header lines for INFO and FORMAT field columns
+     * @param threads number of worker threads, must be greater than zero
+     */
+    public VcfToPartitionedParquet(final Path vcfPath,
+                                   final File parquetFile,
+                                   final List<String> infoFields,
+                                   final String infoPrefix,
+                                   final List<String> samples,
+                                   final String samplePrefix,
+                                   final List<String> formatFields,
+                                   final boolean lowercase,
+                                   final boolean multiallelic,
+                                   final int rowGroupSize,
+                                   final long partitionSize,
+                                   final boolean nativeTypes,
+                                   final int threads) {
         checkNotNull(parquetFile);
         checkNotNull(infoFields);
         checkNotNull(infoPrefix);
@@ -150,6 +214,7 @@ public final class VcfToPartitionedParquet implements Callable<Integer> {
         checkNotNull(formatFields);
         checkArgument(rowGroupSize > 0, "row group size must be greater than zero");
         checkArgument(partitionSize > 0, "partition size must be greater than zero");
+        checkArgument(threads > 0, "threads must be greater than zero");
         this.vcfPath = vcfPath;
         this.parquetFile = parquetFile;
         this.infoFields = infoFields;
@@ -161,6 +226,8 @@ public final class VcfToPartitionedParquet implements Callable<Integer> {
         this.multiallelic = multiallelic;
         this.rowGroupSize = rowGroupSize;
         this.partitionSize = partitionSize;
+        this.nativeTypes = nativeTypes;
+        this.threads = threads;
     }
 
 
@@ -171,13 +238,26 @@ public final class VcfToPartitionedParquet implements Callable<Integer> {
      * @return the CREATE TABLE SQL
      */
     private String createTableSql(final long firstRow) {
+        return createTableSql(firstRow, Collections.<String, ColumnType>emptyMap(), Collections.<String, ColumnType>emptyMap());
+    }
+
+    /**
+     * Create and return the CREATE TABLE SQL with the specified INFO and FORMAT field column types.
+     *
+     * @param firstRow first row
+     * @param infoTypes INFO field column types keyed by INFO field, default <code>VARCHAR[]</code>
+     * @param formatTypes FORMAT field column types keyed by FORMAT field, default <code>VARCHAR[]</code>
+     * @return the CREATE TABLE SQL
+     */
+    private String createTableSql(final long firstRow, final Map<String, ColumnType> infoTypes, final Map<String, ColumnType> formatTypes) {
         StringBuilder sb = new StringBuilder();
         sb.append(multiallelic ? String.format(CREATE_TABLE_SQL_PREFIX_MULTIALLELIC, firstRow) : String.format(CREATE_TABLE_SQL_PREFIX, firstRow));
         for (String infoField : infoFields) {
             sb.append(", ");
             sb.append(infoPrefix);
             sb.append(lowercase ? infoField.toLowerCase() : infoField);
-            sb.append(" VARCHAR[]");
+            sb.append(" ");
+            sb.append(columnType(infoTypes, infoField).getSql());
         }
         for (String sample : samples) {
             for (String formatField : formatFields) {
@@ -186,7 +266,8 @@ public final class VcfToPartitionedParquet implements Callable<Integer> {
                 sb.append(lowercase ? sample.toLowerCase() : sample);
                 sb.append("_");
                 sb.append(lowercase ? formatField.toLowerCase() : formatField);
-                sb.append(" VARCHAR[]");
+                sb.append(" ");
+                sb.append(columnType(formatTypes, formatField).getSql());
             }
         }
         sb.append(CREATE_TABLE_SQL_SUFFIX);
@@ -195,6 +276,9 @@ public final class VcfToPartitionedParquet implements Callable<Integer> {
 
     @Override
     public Integer call() throws Exception {
+        if (nativeTypes || threads > 1) {
+            return callParallel();
+        }
         BufferedReader reader = null;
         final AtomicLong rows = new AtomicLong();
         final AtomicLong firstRow = new AtomicLong();
@@ -428,6 +512,572 @@ public final class VcfToPartitionedParquet implements Callable<Integer> {
     }
 
 
+    /**
+     * Convert partitions of records in parallel, one DuckDB connection and table per partition.
+     *
+     * @return zero on success
+     * @throws Exception if an error occurs
+     */
+    private Integer callParallel() throws Exception {
+        BufferedReader reader = null;
+        DuckDBConnection connection = null;
+        final ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        try {
+            reader = reader(vcfPath);
+            parquetFile.mkdirs();
+
+            connection = (DuckDBConnection) DriverManager.getConnection("jdbc:duckdb:");
+            final DuckDBConnection c = connection;
+            final Semaphore permits = new Semaphore(threads);
+            final Semaphore memory = new Semaphore(MAX_PENDING_KIB);
+            final List<Future<Void>> futures = new ArrayList<Future<Void>>();
+            final Map<String, ColumnType> infoTypes = new HashMap<String, ColumnType>();
+            final Map<String, ColumnType> formatTypes = new HashMap<String, ColumnType>();
+
+            final PartitionListener listener = new PartitionListener() {
+                    @Override
+                    public void header(final VcfHeader header) {
+                        if (nativeTypes) {
+                            VcfHeaderLines headerLines = VcfHeaderLines.fromHeader(header);
+                            for (VcfInfoHeaderLine infoHeaderLine : headerLines.getInfoHeaderLines().values()) {
+                                infoTypes.put(infoHeaderLine.getId(), ColumnType.valueOf(infoHeaderLine.getType()));
+                            }
+                            for (VcfFormatHeaderLine formatHeaderLine : headerLines.getFormatHeaderLines().values()) {
+                                ColumnType columnType = ColumnType.valueOf(formatHeaderLine.getType());
+                                formatTypes.put(formatHeaderLine.getId(), columnType == ColumnType.BOOLEAN ? ColumnType.VARCHAR : columnType);
+                            }
+                        }
+                    }
+
+                    @Override
+                    void partition(final List<Row> rows, final long bytes, final long firstRow, final long lastRow) throws Exception {
+                        // fail fast if any partition has failed
+                        for (Iterator<Future<Void>> iterator = futures.iterator(); iterator.hasNext(); ) {
+                            Future<Void> future = iterator.next();
+                            if (future.isDone()) {
+                                future.get();
+                                iterator.remove();
+                            }
+                        }
+                        int kib = (int) Math.min(MAX_PENDING_KIB, (bytes + 1023L) / 1024L);
+                        permits.acquire();
+                        try {
+                            memory.acquire(kib);
+                        }
+                        catch (InterruptedException e) {
+                            permits.release();
+                            throw e;
+                        }
+                        try {
+                            futures.add(executorService.submit(new PartitionWriter((DuckDBConnection) c.duplicate(), rows, firstRow, lastRow, infoTypes, formatTypes, permits, memory, kib)));
+                        }
+                        catch (Exception e) {
+                            permits.release();
+                            memory.release(kib);
+                            throw e;
+                        }
+                    }
+                };
+
+            try {
+                VcfReader.stream(reader, listener, true);
+                listener.complete();
+                for (Future<Void> future : futures) {
+                    future.get();
+                }
+            }
+            catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof Exception) {
+                    throw (Exception) cause;
+                }
+                throw e;
+            }
+            catch (RuntimeException e) {
+                // unwrap checked exceptions thrown while submitting partitions from the stream listener
+                Throwable cause = e.getCause();
+                if (cause instanceof ExecutionException) {
+                    cause = cause.getCause();
+                }
+                if (cause instanceof Exception && !(cause instanceof RuntimeException)) {
+                    throw (Exception) cause;
+                }
+                throw e;
+            }
+            return 0;
+        }
+        finally {
+            executorService.shutdownNow();
+            try {
+                if (reader != null) {
+                    reader.close();
+                }
+            }
+            catch (Exception e) {
+                // ignore
+            }
+            try {
+                connection.close();
+            }
+            catch (Exception e) {
+                // ignore
+            }
+        }
+    }
+
+    /**
+     * Return the column type for the specified field, default <code>VARCHAR[]</code>.
+     *
+     * @param columnTypes column types keyed by field
+     * @param field field
+     * @return the column type for the specified field
+     */
+    private static ColumnType columnType(final Map<String, ColumnType> columnTypes, final String field) {
+        ColumnType columnType = columnTypes.get(field);
+        return columnType == null ? ColumnType.VARCHAR : columnType;
+    }
+
+    /**
+     * INFO and FORMAT field column types.
+     */
+    private enum ColumnType {
+        /** Boolean, for flags. */
+        BOOLEAN("BOOLEAN"),
+
+        /** Array of integers. */
+        INTEGER("INTEGER[]"),
+
+        /** Array of floats. */
+        FLOAT("FLOAT[]"),
+
+        /** Array of strings. */
+        VARCHAR("VARCHAR[]");
+
+        /** SQL type. */
+        private final String sql;
+
+
+        /**
+         * Create a new column type.
+         *
+         * @param sql SQL type
+         */
+        ColumnType(final String sql) {
+            this.sql = sql;
+        }
+
+
+        /**
+         * Return the SQL type for this column type.
+         *
+         * @return the SQL type for this column type
+         */
+        String getSql() {
+            return sql;
+        }
+
+        /**
+         * Return the column type for the specified VCF header line type.
+         *
+         * @param type VCF header line type
+         * @return the column type for the specified VCF header line type
+         */
+        static ColumnType valueOf(final VcfHeaderLineType type) {
+            switch (type) {
+            case Flag:
+                return BOOLEAN;
+            case Integer:
+                return INTEGER;
+            case Float:
+                return FLOAT;
+            default:
+                return VARCHAR;
+            }
+        }
+    }
+
+    /**
+     * Record projected to the selected columns.
+     */
+    private static final class Row {
+        /** Line number, for error messages. */
+        private final long lineNumber;
+
+        /** Chrom. */
+        private final String chrom;
+
+        /** Position. */
+        private final long pos;
+
+        /** Reference allele. */
+        private final String ref;
+
+        /** Alternate alleles. */
+        private final String[] alt;
+
+        /** Quality, if any. */
+        private final Double qual;
+
+        /** Filters, if any. */
+        private final String[] filter;
+
+        /** Values of the selected INFO fields, in column order, <code>null</code> if not present. */
+        private final List<String>[] info;
+
+        /** Values of the selected FORMAT fields for the selected samples, in column order. */
+        private final List<String>[] format;
+
+        /** Estimated size in bytes. */
+        private final long bytes;
+
+
+        /**
+         * Project the specified record to the selected columns.
+         *
+         * @param record record to project
+         * @param infoFields selected INFO fields
+         * @param samples selected samples
+         * @param formatFields selected FORMAT fields
+         */
+        @SuppressWarnings("unchecked")
+        Row(final VcfRecord record, final List<String> infoFields, final List<String> samples, final List<String> formatFields) {
+            lineNumber = record.getLineNumber();
+            chrom = record.getChrom();
+            pos = record.getPos();
+            ref = record.getRef();
+            alt = record.getAlt();
+            qual = record.getQual();
+            filter = record.getFilter();
+
+            long size = 96L + estimate(ref) + estimate(alt);
+            info = new List[infoFields.size()];
+            for (int i = 0; i < info.length; i++) {
+                String infoField = infoFields.get(i);
+                if (record.getInfo().containsKey(infoField)) {
+                    List<String> values = record.getInfo().get(infoField);
+                    info[i] = values.isEmpty() ? EMPTY_LIST : new ArrayList<String>(values);
+                    size += 16L + estimate(info[i]);
+                }
+            }
+            format = new List[samples.size() * formatFields.size()];
+            for (int i = 0, k = 0; i < samples.size(); i++) {
+                VcfGenotype genotype = record.getGenotype(samples.get(i));
+                for (int j = 0; j < formatFields.size(); j++, k++) {
+                    List<String> values = genotype == null ? EMPTY_LIST : genotype.getFields().get(formatFields.get(j));
+                    format[k] = values.isEmpty() ? EMPTY_LIST : new ArrayList<String>(values);
+                    size += 16L + estimate(format[k]);
+                }
+            }
+            bytes = size;
+        }
+
+
+        /**
+         * Return an estimate of the size in bytes of the specified value.
+         *
+         * @param value value
+         * @return an estimate of the size in bytes of the specified value
+         */
+        private static long estimate(final String value) {
+            return value == null ? 0L : 48L + value.length();
+        }
+
+        /**
+         * Return an estimate of the size in bytes of the specified values.
+         *
+         * @param values values
+         * @return an estimate of the size in bytes of the specified values
+         */
+        private static long estimate(final String[] values) {
+            long size = 16L;
+            for (String value : values) {
+                size += 8L + estimate(value);
+            }
+            return size;
+        }
+
+        /**
+         * Return an estimate of the size in bytes of the specified values.
+         *
+         * @param values values
+         * @return an estimate of the size in bytes of the specified values
+         */
+        private static long estimate(final List<String> values) {
+            long size = 32L;
+            for (String value : values) {
+                size += 8L + estimate(value);
+            }
+            return size;
+        }
+    }
+
+    /**
+     * Stream listener that projects records to the selected columns and batches them into partitions.
+     */
+    private abstract class PartitionListener extends VcfStreamAdapter {
+        /** Rows in the current partition. */
+        private List<Row> partition = new ArrayList<Row>();
+
+        /** Estimated size in bytes of the rows in the current partition. */
+        private long bytes = 0L;
+
+        /** Number of rows. */
+        private long rows = 0L;
+
+        /** First row of the current partition. */
+        private long firstRow = 0L;
+
+
+        @Override
+        public final void record(final VcfRecord record) {
+            Row row = new Row(record, infoFields, samples, formatFields);
+            partition.add(row);
+            bytes += row.bytes;
+            rows++;
+            if ((rows % partitionSize) == 0) {
+                submit();
+                firstRow = rows + 1;
+            }
+        }
+
+        /**
+         * Submit the final partition.
+         *
+         * @throws Exception if an error occurs
+         */
+        final void complete() throws Exception {
+            partition(partition, bytes, firstRow, rows);
+        }
+
+        /**
+         * Submit the current partition and start a new one.
+         */
+        private void submit() {
+            try {
+                partition(partition, bytes, firstRow, rows);
+                partition = new ArrayList<Row>();
+                bytes = 0L;
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("interrupted while writing partitions", e);
+            }
+            catch (RuntimeException e) {
+                throw e;
+            }
+            catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        /**
+         * Write the specified partition.
+         *
+         * @param rows rows in the partition
+         * @param bytes estimated size in bytes of the rows in the partition
+         * @param firstRow first row of the partition
+         * @param lastRow last row of the partition
+         * @throws Exception if an error occurs
+         */
+        abstract void partition(List<Row> rows, long bytes, long firstRow, long lastRow) throws Exception;
+    }
+
+    /**
+     * Writes a partition of rows to a Parquet file with its own DuckDB connection and table.
+     */
+    private final class PartitionWriter implements Callable<Void> {
+        /** DuckDB connection, closed when done. */
+        private final DuckDBConnection connection;
+
+        /** Rows in the partition. */
+        private final List<Row> rows;
+
+        /** First row of the partition. */
+        private final long firstRow;
+
+        /** Last row of the partition. */
+        private final long lastRow;
+
+        /** INFO field column types. */
+        private final Map<String, ColumnType> infoTypes;
+
+        /** FORMAT field column types. */
+        private final Map<String, ColumnType> formatTypes;
+
+        /** Permits, released when done. */
+        private final Semaphore permits;
+
+        /** Memory permits in KiB, released when done. */
+        private final Semaphore memory;
+
+        /** Number of memory permits in KiB to release when done. */
+        private final int kib;
+
+
+        /**
+         * Create a new partition writer.
+         *
+         * @param connection DuckDB connection, closed when done
+         * @param rows rows in the partition
+         * @param firstRow first row of the partition
+         * @param lastRow last row of the partition
+         * @param infoTypes INFO field column types
+         * @param formatTypes FORMAT field column types
+         * @param permits permits, released when done
+         * @param memory memory permits in KiB, released when done
+         * @param kib number of memory permits in KiB to release when done
+         */
+        PartitionWriter(final DuckDBConnection connection,
+                        final List<Row> rows,
+                        final long firstRow,
+                        final long lastRow,
+                        final Map<String, ColumnType> infoTypes,
+                        final Map<String, ColumnType> formatTypes,
+                        final Semaphore permits,
+                        final Semaphore memory,
+                        final int kib) {
+            this.connection = connection;
+            this.rows = rows;
+            this.firstRow = firstRow;
+            this.lastRow = lastRow;
+            this.infoTypes = infoTypes;
+            this.formatTypes = formatTypes;
+            this.permits = permits;
+            this.memory = memory;
+            this.kib = kib;
+        }
+
+
+        @Override
+        public Void call() throws Exception {
+            Statement statement = null;
+            try {
+                statement = connection.createStatement();
+                statement.execute(createTableSql(firstRow, infoTypes, formatTypes));
+                try (DuckDBAppender appender = connection.createAppender(DuckDBConnection.DEFAULT_SCHEMA, String.format("v%d", firstRow))) {
+                    for (Row row : rows) {
+                        append(row, appender);
+                    }
+                }
+                statement.execute(String.format(COPY_SQL, firstRow, parquetFile, firstRow, lastRow, rowGroupSize));
+                statement.execute(String.format(DROP_TABLE_SQL, firstRow));
+                return null;
+            }
+            finally {
+                try {
+                    statement.close();
+                }
+                catch (Exception e) {
+                    // ignore
+                }
+                try {
+                    connection.close();
+                }
+                catch (Exception e) {
+                    // ignore
+                }
+                memory.release(kib);
+                permits.release();
+            }
+        }
+
+        /**
+         * Append the specified row with the specified appender.
+         *
+         * @param row row to append
+         * @param appender appender
+         * @throws IOException if an I/O error occurs
+         * @throws SQLException if an SQL error occurs
+         */
+        private void append(final Row row, final DuckDBAppender appender) throws IOException, SQLException {
+            appender.beginRow();
+            appender.append(row.chrom);
+            appender.append(row.pos);
+            appender.append(row.ref);
+
+            String[] alt = row.alt;
+            if (multiallelic) {
+                appender.append(Arrays.asList(alt));
+            }
+            else if (alt.length == 0) {
+                appender.append("");
+            }
+            else if (alt.length == 1) {
+                appender.append(alt[0]);
+            }
+            else {
+                throw new IOException("multiallelic variants not supported, found alternate alleles " + Arrays.toString(alt) + " at line " + row.lineNumber);
+            }
+            appender.append(row.qual);
+
+            String[] filter = row.filter;
+            if (filter == null || filter.length == 0) {
+                appender.append(false);
+                appender.append(false);
+                appender.append(EMPTY_LIST);
+            }
+            else if (filter.length == 1 && "PASS".equals(filter[0])) {
+                appender.append(true);
+                appender.append(true);
+                appender.append(EMPTY_LIST);
+            }
+            else {
+                appender.append(true);
+                appender.append(false);
+                appender.append(Arrays.asList(filter));
+            }
+
+            for (int i = 0; i < infoFields.size(); i++) {
+                String infoField = infoFields.get(i);
+                ColumnType columnType = columnType(infoTypes, infoField);
+                if (columnType == ColumnType.BOOLEAN) {
+                    appender.append(row.info[i] != null);
+                }
+                else {
+                    appender.append(values(row.info[i] == null ? EMPTY_LIST : row.info[i], columnType, infoField, row));
+                }
+            }
+            for (int i = 0, k = 0; i < samples.size(); i++) {
+                for (String formatField : formatFields) {
+                    appender.append(values(row.format[k++], columnType(formatTypes, formatField), formatField, row));
+                }
+            }
+            appender.endRow();
+        }
+
+        /**
+         * Convert the specified values to the specified column type.
+         *
+         * @param values values to convert
+         * @param columnType column type
+         * @param field field
+         * @param row row, for error messages
+         * @return the specified values converted to the specified column type
+         * @throws IOException if a value cannot be converted
+         */
+        private List<?> values(final List<String> values, final ColumnType columnType, final String field, final Row row) throws IOException {
+            if (columnType == ColumnType.VARCHAR || values.isEmpty()) {
+                return values;
+            }
+            List<Object> result = new ArrayList<Object>(values.size());
+            for (String value : values) {
+                if (".".equals(value)) {
+                    result.add(null);
+                }
+                else {
+                    try {
+                        result.add(columnType == ColumnType.INTEGER ? (Object) Integer.valueOf(value) : (Object) Float.valueOf(value));
+                    }
+                    catch (NumberFormatException e) {
+                        throw new IOException("could not parse " + field + " value " + value + " as " + columnType.getSql() + " at line " + row.lineNumber, e);
+                    }
+                }
+            }
+            return result;
+        }
+    }
+
+
     /**
      * Main.
      *
@@ -448,8 +1098,10 @@ public final class VcfToPartitionedParquet implements Callable<Integer> {
         Switch multiallelic = new Switch("m", "multiallelic", "allow multiallelic records");
         IntegerArgument rowGroupSize = new IntegerArgument("g", "row-group-size", "row group size, default " + DEFAULT_ROW_GROUP_SIZE, false);
         LongArgument partitionSize = new LongArgument("p", "partition-size", "partition size, default " + DEFAULT_PARTITION_SIZE, false);
+        Switch nativeTypes = new Switch("y", "native-types", "use native types from VCF header lines for INFO and FORMAT field columns");
+        IntegerArgument threads = new IntegerArgument("t", "threads", "number of worker threads, each writing its own partitions, default " + DEFAULT_THREADS, false);
 
-        ArgumentList arguments = new ArgumentList(about, help, vcfPath, parquetFile, infoFields, infoPrefix, samples, samplePrefix, formatFields, lowercase, multiallelic, rowGroupSize, partitionSize);
+        ArgumentList arguments = new ArgumentList(about, help, vcfPath, parquetFile, infoFields, infoPrefix, samples, samplePrefix, formatFields, lowercase, multiallelic, rowGroupSize, partitionSize, nativeTypes, threads);
         CommandLine commandLine = new CommandLine(args);
 
         VcfToPartitionedParquet vcfToPartitionedParquet = null;
@@ -464,7 +1116,7 @@ public final class VcfToPartitionedParquet implements Callable<Integer> {
                 Usage.usage(USAGE, null, commandLine, arguments, System.out);
                 System.exit(0);
             }
-            vcfToPartitionedParquet = new VcfToPartitionedParquet(vcfPath.getValue(), parquetFile.getValue(), infoFields.getValue(EMPTY_LIST), infoPrefix.getValue(DEFAULT_INFO_PREFIX), samples.getValue(EMPTY_LIST), samplePrefix.getValue(DEFAULT_SAMPLE_PREFIX), formatFields.getValue(EMPTY_LIST), lowercase.wasFound(), multiallelic.wasFound(), rowGroupSize.getValue(DEFAULT_ROW_GROUP_SIZE), partitionSize.getValue(DEFAULT_PARTITION_SIZE));
+            vcfToPartitionedParquet = new VcfToPartitionedParquet(vcfPath.getValue(), parquetFile.getValue(), infoFields.getValue(EMPTY_LIST), infoPrefix.getValue(DEFAULT_INFO_PREFIX), samples.getValue(EMPTY_LIST), samplePrefix.getValue(DEFAULT_SAMPLE_PREFIX), formatFields.getValue(EMPTY_LIST), lowercase.wasFound(), multiallelic.wasFound(), rowGroupSize.getValue(DEFAULT_ROW_GROUP_SIZE), partitionSize.getValue(DEFAULT_PARTITION_SIZE), nativeTypes.wasFound(), threads.getValue(DEFAULT_THREADS));
         }
         catch (CommandLineParseException e) {
             Usage.usage(USAGE, e, commandLine, arguments, System.err);
@@ -0,0 +1,187 @@
+/*
+
+    dsh-bio-tools  Command line tools.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.tools;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.File;
+import java.io.IOException;
+
+import java.nio.charset.StandardCharsets;
+
+import java.nio.file.Path;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.dishevelled.bio.variant.vcf.VcfReader;
+import org.dishevelled.bio.variant.vcf.VcfRecord;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.io.Files;
+
+/**
+ * Unit test for AnnotateVcfIds.
+ *
+ * @author  Michael Heuer
+ */
+public final class AnnotateVcfIdsTest {
+    private Path inputVcfPath;
+    private Path databaseVcfPath;
+    private File outputVcfFile;
+
+    @Before
+    public void setUp() throws Exception {
+        inputVcfPath = createFile("##fileformat=VCFv4.2\n"
+                                  + "##contig=<ID=chr1>\n"
+                                  + "##contig=<ID=chr2>\n"
+                                  + "#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\tFORMAT\tNA12878\n"
+                                  + "chr1\t100\t.\tA\tG\t30\tPASS\t.\tGT\t0/1\n"
+                                  + "chr1\t200\tid1\tC\tT\t30\tPASS\t.\tGT\t1/1\n"
+                                  + "chr2\t50\t.\tG\tA\t30\tPASS\t.\tGT\t0/1\n");
+        databaseVcfPath = createFile("##fileformat=VCFv4.2\n"
+                                     + "#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\n"
+                                     + "chr1\t100\trs1\tA\tG\t.\t.\t.\n"
+                                     + "chr1\t150\trs2\tA\tG\t.\t.\t.\n"
+                                     + "chr1\t200\trs3\tC\tT\t.\t.\t.\n"
+                                     + "chr2\t50\trs4\tG\tC\t.\t.\t.\n");
+        outputVcfFile = File.createTempFile("annotateVcfIdsTest", ".vcf");
+        outputVcfFile.deleteOnExit();
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testConstructorNullDatabaseVcfPath() {
+        new AnnotateVcfIds(inputVcfPath, null, outputVcfFile);
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testConstructorNullContigs() {
+        new AnnotateVcfIds(inputVcfPath, databaseVcfPath, null, null, outputVcfFile);
+    }
+
+    @Test
+    public void testConstructor() {
+        assertNotNull(new AnnotateVcfIds(inputVcfPath, databaseVcfPath, outputVcfFile));
+    }
+
+    @Test
+    public void testAnnotateVcfIds() throws Exception {
+        assertEquals(0, (int) new AnnotateVcfIds(inputVcfPath, databaseVcfPath, outputVcfFile).call());
+
+        List<VcfRecord> records = new ArrayList<VcfRecord>();
+        for (VcfRecord record : VcfReader.records(outputVcfFile)) {
+            records.add(record);
+        }
+        assertEquals(3, records.size());
+        assertArrayEquals(new String[] { "rs1" }, records.get(0).getId());
+        assertArrayEquals(new String[] { "id1", "rs3" }, records.get(1).getId());
+        assertEquals(0, records.get(2).getId().length);
+        assertEquals("1/1", records.get(1).getGenotype("NA12878").getGt());
+    }
+
+    @Test
+    public void testAnnotateVcfIdsMultiallelicDatabase() throws Exception {
+        Path multiallelicDatabaseVcfPath = createFile("##fileformat=VCFv4.2\n"
+                                                      + "#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\n"
+                                                      + "chr1\t100\trs1\tA\tC,G\t.\t.\t.\n"
+                                                      + "chr1\t200\trs3\tC\tA,T\t.\t.\t.\n"
+                                                      + "chr2\t50\trs4\tG\tC\t.\t.\t.\n");
+        assertEquals(0, (int) new AnnotateVcfIds(inputVcfPath, multiallelicDatabaseVcfPath, outputVcfFile).call());
+
+        List<VcfRecord> records = new ArrayList<VcfRecord>();
+        for (VcfRecord record : VcfReader.records(outputVcfFile)) {
+            records.add(record);
+        }
+        assertEquals(3, records.size());
+        assertArrayEquals(new String[] { "rs1" }, records.get(0).getId());
+        assertArrayEquals(new String[] { "id1", "rs3" }, records.get(1).getId());
+        assertEquals(0, records.get(2).getId().length);
+    }
+
+    @Test
+    public void testAnnotateVcfIdsMultiallelicInput() throws Exception {
+        Path multiallelicInputVcfPath = createFile("##fileformat=VCFv4.2\n"
+                                                   + "##contig=<ID=chr1>\n"
+                                                   + "##contig=<ID=chr2>\n"
+                                                   + "#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\n"
+                                                   + "chr1\t100\t.\tA\tG,T\t.\t.\t.\n");
+        assertEquals(0, (int) new AnnotateVcfIds(multiallelicInputVcfPath, databaseVcfPath, outputVcfFile).call());
+
+        List<VcfRecord> records = new ArrayList<VcfRecord>();
+        for (VcfRecord record : VcfReader.records(outputVcfFile)) {
+            records.add(record);
+        }
+        assertEquals(1, records.size());
+        assertEquals(0, records.get(0).getId().length);
+    }
+
+    @Test(expected=IOException.class)
+    public void testAnnotateVcfIdsNoContigHeaderLines() throws Exception {
+        new AnnotateVcfIds(noContigs(), databaseVcfPath, outputVcfFile).call();
+    }
+
+    @Test
+    public void testAnnotateVcfIdsNoContigHeaderLinesContigs() throws Exception {
+        assertEquals(0, (int) new AnnotateVcfIds(noContigs(), databaseVcfPath, Arrays.asList("chr1", "chr2"), null, outputVcfFile).call());
+        validateNoContigs();
+    }
+
+    @Test
+    public void testAnnotateVcfIdsNoContigHeaderLinesFastaIndex() throws Exception {
+        Path fai = createFile("chr1\t1000\t6\t60\t61\n"
+                              + "chr2\t1000\t1029\t60\t61\n");
+        assertEquals(0, (int) new AnnotateVcfIds(noContigs(), databaseVcfPath, Collections.<String>emptyList(), fai, outputVcfFile).call());
+        validateNoContigs();
+    }
+
+    private static Path noContigs() throws IOException {
+        return createFile("##fileformat=VCFv4.2\n"
+                          + "#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\n"
+                          + "chr1\t100\t.\tA\tG\t.\t.\t.\n"
+                          + "chr2\t50\t.\tG\tC\t.\t.\t.\n");
+    }
+
+    private void validateNoContigs() throws Exception {
+        List<VcfRecord> records = new ArrayList<VcfRecord>();
+        for (VcfRecord record : VcfReader.records(outputVcfFile)) {
+            records.add(record);
+        }
+        assertEquals(2, records.size());
+        assertArrayEquals(new String[] { "rs1" }, records.get(0).getId());
+        assertArrayEquals(new String[] { "rs4" }, records.get(1).getId());
+    }
+
+    private static Path createFile(final String contents) throws IOException {
+        File file = File.createTempFile("annotateVcfIdsTest", ".vcf");
+        Files.write(contents, file, StandardCharsets.UTF_8);
+        file.deleteOnExit();
+        return file.toPath();
+    }
+}
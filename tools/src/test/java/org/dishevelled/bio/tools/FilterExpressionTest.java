@@ -0,0 +1,228 @@
+/*
+
+    dsh-bio-tools  Command line tools.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.tools;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for FilterExpression.
+ *
+ * @author  Michael Heuer
+ */
+public final class FilterExpressionTest {
+    private FilterExpression.Bindings<String> bindings;
+
+    @Before
+    public void setUp() {
+        bindings = new FilterExpression.Bindings<String>() {
+                @Override
+                public FilterExpression.Accessor<String> resolve(final String identifier) {
+                    if ("value".equals(identifier)) {
+                        return new FilterExpression.StringAccessor<String>() {
+                            @Override
+                            public String get(final String record) {
+                                return record;
+                            }
+                        };
+                    }
+                    if ("length".equals(identifier)) {
+                        return new FilterExpression.NumberAccessor<String>() {
+                            @Override
+                            public double get(final String record) {
+                                return record == null ? Double.NaN : record.length();
+                            }
+                        };
+                    }
+                    if ("attr.missing".equals(identifier)) {
+                        return new FilterExpression.StringAccessor<String>() {
+                            @Override
+                            public String get(final String record) {
+                                return null;
+                            }
+                        };
+                    }
+                    return null;
+                }
+            };
+    }
+
+    private boolean test(final String expression, final String record) {
+        return FilterExpression.compile(expression, bindings).test(record);
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testCompileNullExpression() {
+        FilterExpression.compile(null, bindings);
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testCompileNullBindings() {
+        FilterExpression.compile("true", null);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testCompileEmpty() {
+        FilterExpression.compile("", bindings);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testCompileUnknownIdentifier() {
+        FilterExpression.compile("unknown > 1", bindings);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testCompileJavaScript() {
+        FilterExpression.compile("r.getValue() == 'foo'", bindings);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testCompileUnbalancedParentheses() {
+        FilterExpression.compile("(length > 1", bindings);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testCompileUnterminatedString() {
+        FilterExpression.compile("value == \"foo", bindings);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testCompileTrailingTokens() {
+        FilterExpression.compile("length > 1 2", bindings);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testCompileUnexpectedCharacter() {
+        FilterExpression.compile("length > 1 & length < 4", bindings);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testCompileBooleanArithmetic() {
+        FilterExpression.compile("true + 1", bindings);
+    }
+
+    @Test
+    public void testCompile() {
+        FilterExpression<String> expression = FilterExpression.compile("length > 1", bindings);
+        assertNotNull(expression);
+        assertEquals("length > 1", expression.toString());
+    }
+
+    @Test
+    public void testLiterals() {
+        assertTrue(test("true", "foo"));
+        assertFalse(test("false", "foo"));
+        assertTrue(test("1", "foo"));
+        assertFalse(test("0", "foo"));
+        assertTrue(test("'foo'", "foo"));
+        assertFalse(test("\"false\"", "foo"));
+    }
+
+    @Test
+    public void testNumberComparison() {
+        assertTrue(test("length == 3", "foo"));
+        assertTrue(test("length != 4", "foo"));
+        assertTrue(test("length < 4", "foo"));
+        assertTrue(test("length <= 3", "foo"));
+        assertTrue(test("length > 2.5", "foo"));
+        assertTrue(test("length >= 3e0", "foo"));
+        assertFalse(test("length > 3", "foo"));
+    }
+
+    @Test
+    public void testStringComparison() {
+        assertTrue(test("value == \"foo\"", "foo"));
+        assertTrue(test("value != 'bar'", "foo"));
+        assertTrue(test("value > 'bar'", "foo"));
+        assertFalse(test("value < 'bar'", "foo"));
+        assertTrue(test("value == 'it\\'s'", "it's"));
+    }
+
+    @Test
+    public void testStringToNumberCoercion() {
+        assertTrue(test("value == 42", "42"));
+        assertTrue(test("value > 41.5", "42"));
+        assertTrue(test("value * 2 == 84", "42"));
+        assertFalse(test("value > 0", "foo"));
+        assertFalse(test("value == 0", "foo"));
+    }
+
+    @Test
+    public void testArithmetic() {
+        assertTrue(test("length + 1 == 4", "foo"));
+        assertTrue(test("length - 1 == 2", "foo"));
+        assertTrue(test("length * 2 == 6", "foo"));
+        assertTrue(test("length / 2 == 1.5", "foo"));
+        assertTrue(test("length % 2 == 1", "foo"));
+        assertTrue(test("-length == -3", "foo"));
+        assertTrue(test("1 + 2 * 3 == 7", "foo"));
+        assertTrue(test("(1 + 2) * 3 == 9", "foo"));
+    }
+
+    @Test
+    public void testLogical() {
+        assertTrue(test("length > 1 && value == 'foo'", "foo"));
+        assertFalse(test("length > 1 && value == 'bar'", "foo"));
+        assertTrue(test("length > 4 || value == 'foo'", "foo"));
+        assertFalse(test("length > 4 || value == 'bar'", "foo"));
+        assertTrue(test("!(length > 4)", "foo"));
+        assertTrue(test("!false && true", "foo"));
+        assertTrue(test("false && false || true", "foo"));
+        assertTrue(test("(length > 1) == true", "foo"));
+    }
+
+    @Test
+    public void testMissing() {
+        assertFalse(test("attr.missing", "foo"));
+        assertTrue(test("!attr.missing", "foo"));
+        assertFalse(test("attr.missing == 'foo'", "foo"));
+        assertTrue(test("attr.missing != 'foo'", "foo"));
+        assertFalse(test("attr.missing > 1", "foo"));
+        assertFalse(test("attr.missing <= 1", "foo"));
+        assertTrue(test("attr.missing != 1", "foo"));
+        assertFalse(test("length > 0", null));
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testIsScriptNull() {
+        FilterExpression.isScript(null);
+    }
+
+    @Test
+    public void testIsScript() {
+        assertTrue(FilterExpression.isScript("r.qual > 30"));
+        assertTrue(FilterExpression.isScript("r.info.get('DP') > 10"));
+        assertTrue(FilterExpression.isScript("r['qual'] > 30"));
+        assertTrue(FilterExpression.isScript("(r.qual > 30) && true"));
+        assertFalse(FilterExpression.isScript("qual > 30"));
+        assertFalse(FilterExpression.isScript("attr.NM < 2"));
+        assertFalse(FilterExpression.isScript("qual >> 30"));
+        assertFalse(FilterExpression.isScript("info.r.x > 1"));
+    }
+}
@@ -0,0 +1,172 @@
+/*
+
+    dsh-bio-tools  Command line tools.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.tools;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+
+import org.dishevelled.bio.alignment.sam.BamReader;
+import org.dishevelled.bio.alignment.sam.SamReader;
+import org.dishevelled.bio.alignment.sam.SamRecord;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for FilterSam.
+ *
+ * @author  Michael Heuer
+ */
+public final class FilterSamTest {
+    private FilterSam.Filter filter;
+    private Path inputBamPath;
+    private File outputFile;
+
+    @Before
+    public void setUp() throws Exception {
+        filter = new FilterSam.Filter() {
+                @Override
+                public boolean accept(final SamRecord record) {
+                    return true;
+                }
+            };
+        inputBamPath = Files.createTempFile("filterSamTest", ".bam");
+        Files.copy(getClass().getResourceAsStream("testfile2.bam"), inputBamPath, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(inputBamPath);
+        if (outputFile != null) {
+            Files.deleteIfExists(outputFile.toPath());
+        }
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testConstructorNullFilter() {
+        new FilterSam(null, inputBamPath, outputFile);
+    }
+
+    @Test
+    public void testConstructor() {
+        assertNotNull(new FilterSam(ImmutableList.of(filter), inputBamPath, outputFile));
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testConstructorInvalidThreads() {
+        new FilterSam(ImmutableList.of(filter), inputBamPath, outputFile, 0);
+    }
+
+    @Test
+    public void testFilterBamToBam() throws Exception {
+        outputFile = File.createTempFile("filterSamTest", ".bam");
+        new FilterSam(ImmutableList.<FilterSam.Filter>of(new FilterSam.MapqFilter(60)), inputBamPath, outputFile).call();
+
+        assertTrue(BamReader.isBam(outputFile.toPath()));
+        List<SamRecord> records = ImmutableList.copyOf(BamReader.records(outputFile.toPath()));
+        assertEquals(count(BamReader.records(inputBamPath), 60), records.size());
+        for (SamRecord record : records) {
+            assertTrue(record.getMapq() >= 60);
+        }
+    }
+
+    @Test
+    public void testFilterBamToSam() throws Exception {
+        outputFile = File.createTempFile("filterSamTest", ".sam");
+        new FilterSam(ImmutableList.<FilterSam.Filter>of(new FilterSam.MapqFilter(60)), inputBamPath, outputFile).call();
+
+        assertEquals(count(BamReader.records(inputBamPath), 60), ImmutableList.copyOf(SamReader.records(outputFile)).size());
+        assertEquals(24, SamReader.header(outputFile).getSequenceHeaderLines().size());
+    }
+
+    @Test
+    public void testFilterBamToBamThreads() throws Exception {
+        outputFile = File.createTempFile("filterSamTest", ".bam");
+        new FilterSam(ImmutableList.<FilterSam.Filter>of(new FilterSam.MapqFilter(60)), inputBamPath, outputFile, 4).call();
+
+        List<SamRecord> expected = new ArrayList<SamRecord>();
+        for (SamRecord record : BamReader.records(inputBamPath)) {
+            if (record.getMapq() >= 60) {
+                expected.add(record);
+            }
+        }
+        assertEquals(expected, ImmutableList.copyOf(BamReader.records(outputFile.toPath())));
+    }
+
+    @Test
+    public void testFilterSamToSamThreads() throws Exception {
+        File inputSamFile = File.createTempFile("filterSamTest", ".sam");
+        try {
+            new FilterSam(ImmutableList.of(filter), inputBamPath, inputSamFile).call();
+            outputFile = File.createTempFile("filterSamTest", ".sam");
+            new FilterSam(ImmutableList.<FilterSam.Filter>of(new FilterSam.MapqFilter(60)), inputSamFile.toPath(), outputFile, 4).call();
+
+            List<SamRecord> expected = new ArrayList<SamRecord>();
+            for (SamRecord record : SamReader.records(inputSamFile)) {
+                if (record.getMapq() >= 60) {
+                    expected.add(record);
+                }
+            }
+            assertEquals(expected, ImmutableList.copyOf(SamReader.records(outputFile)));
+        }
+        finally {
+            Files.deleteIfExists(inputSamFile.toPath());
+        }
+    }
+
+    @Test
+    public void testRangeFilterOverlapsAlignedSpan() {
+        FilterSam.RangeFilter rangeFilter = new FilterSam.RangeFilter("chr1:105-110");
+        assertTrue(rangeFilter.accept(SamRecord.valueOf("read1\t0\tchr1\t100\t60\t10M\t*\t0\t0\t*\t*")));
+        assertTrue(rangeFilter.accept(SamRecord.valueOf("read1\t0\tchr1\t100\t60\t2S4M2D2M\t*\t0\t0\t*\t*")));
+        assertFalse(rangeFilter.accept(SamRecord.valueOf("read1\t0\tchr1\t100\t60\t5M10S\t*\t0\t0\t*\t*")));
+        assertFalse(rangeFilter.accept(SamRecord.valueOf("read1\t0\tchr1\t111\t60\t10M\t*\t0\t0\t*\t*")));
+        assertFalse(rangeFilter.accept(SamRecord.valueOf("read1\t0\tchr2\t100\t60\t10M\t*\t0\t0\t*\t*")));
+    }
+
+    private static int count(final Iterable<SamRecord> records, final int mapq) throws IOException {
+        int count = 0;
+        for (SamRecord record : records) {
+            if (record.getMapq() >= mapq) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
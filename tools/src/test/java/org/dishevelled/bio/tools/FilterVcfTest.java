@@ -23,17 +23,31 @@
 */
 package org.dishevelled.bio.tools;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 import java.io.File;
+import java.io.IOException;
+
+import java.nio.charset.StandardCharsets;
 
 import java.nio.file.Path;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.junit.Before;
 import org.junit.Test;
 
 import com.google.common.collect.ImmutableList;
 
+import com.google.common.io.Files;
+
+import org.dishevelled.bio.variant.vcf.VcfReader;
 import org.dishevelled.bio.variant.vcf.VcfRecord;
 
 /**
@@ -65,4 +79,103 @@ public final class FilterVcfTest {
     public void testConstructor() {
         assertNotNull(new FilterVcf(ImmutableList.of(filter), inputVcfFile, outputVcfFile));
     }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testConstructorInvalidThreads() {
+        new FilterVcf(ImmutableList.of(filter), inputVcfFile, outputVcfFile, 0);
+    }
+
+    @Test
+    public void testFilterMultipleThreads() throws Exception {
+        inputVcfFile = createFile(3000);
+        List<FilterVcf.Filter> filters = ImmutableList.<FilterVcf.Filter>of(new FilterVcf.QualFilter(20.0d), new FilterVcf.ExpressionFilter("info.DP >= 10"));
+
+        outputVcfFile = createOutputFile();
+        new FilterVcf(filters, inputVcfFile, outputVcfFile).call();
+        List<VcfRecord> expected = records(outputVcfFile);
+        assertFalse(expected.isEmpty());
+
+        outputVcfFile = createOutputFile();
+        new FilterVcf(filters, inputVcfFile, outputVcfFile, 4).call();
+        List<VcfRecord> observed = records(outputVcfFile);
+
+        assertEquals(expected.size(), observed.size());
+        for (int i = 0, size = expected.size(); i < size; i++) {
+            assertEquals(expected.get(i).getPos(), observed.get(i).getPos());
+            assertTrue(expected.get(i).getQual() >= 20.0d);
+        }
+    }
+
+    @Test
+    public void testFilterMultipleThreadsOnParserThreads() throws Exception {
+        inputVcfFile = createFile(3000);
+        outputVcfFile = createOutputFile();
+        final Thread callingThread = Thread.currentThread();
+        final AtomicInteger count = new AtomicInteger();
+        FilterVcf.Filter parserThreadFilter = new FilterVcf.Filter() {
+                @Override
+                public boolean accept(final VcfRecord record) {
+                    if (Thread.currentThread() != callingThread) {
+                        count.incrementAndGet();
+                    }
+                    return record.getPos() % 200L == 0L;
+                }
+            };
+        new FilterVcf(ImmutableList.of(parserThreadFilter), inputVcfFile, outputVcfFile, 4).call();
+
+        assertEquals(3000, count.get());
+        assertEquals(1500, records(outputVcfFile).size());
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testExpressionFilterInvalidExpression() {
+        new FilterVcf.ExpressionFilter("r.getQual() > 30");
+    }
+
+    @Test
+    public void testExpressionFilter() {
+        VcfRecord record = VcfRecord.builder()
+            .withChrom("1")
+            .withPos(100L)
+            .withRef("A")
+            .withAlt("G")
+            .withQual(42.0d)
+            .withFilter("PASS")
+            .withInfo("DP", "12")
+            .build();
+
+        assertTrue(new FilterVcf.ExpressionFilter("qual > 30 && info.DP >= 10 && filter == \"PASS\"").accept(record));
+        assertTrue(new FilterVcf.ExpressionFilter("chrom == 1 && pos == 100 && ref == 'A' && alt == 'G'").accept(record));
+        assertFalse(new FilterVcf.ExpressionFilter("info.DP < 10").accept(record));
+        assertFalse(new FilterVcf.ExpressionFilter("info.AF > 0.1").accept(record));
+        assertFalse(new FilterVcf.ExpressionFilter("id == 'rs1'").accept(record));
+    }
+
+    private static Path createFile(final int size) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        sb.append("##fileformat=VCFv4.2\n");
+        sb.append("##INFO=<ID=DP,Number=1,Type=Integer,Description=\"Depth\">\n");
+        sb.append("#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\n");
+        for (int i = 1; i <= size; i++) {
+            sb.append("1\t" + (i * 100) + "\t.\tA\tG\t" + (i % 40) + "\tPASS\tDP=" + (i % 17) + "\n");
+        }
+        File file = File.createTempFile("filterVcfTest", ".vcf");
+        Files.write(sb.toString(), file, StandardCharsets.UTF_8);
+        file.deleteOnExit();
+        return file.toPath();
+    }
+
+    private static File createOutputFile() throws IOException {
+        File file = File.createTempFile("filterVcfTest", ".vcf");
+        file.deleteOnExit();
+        return file;
+    }
+
+    private static List<VcfRecord> records(final File file) throws IOException {
+        List<VcfRecord> records = new ArrayList<VcfRecord>();
+        for (VcfRecord record : VcfReader.records(file)) {
+            records.add(record);
+        }
+        return records;
+    }
 }
@@ -0,0 +1,207 @@
+/*
+
+    dsh-bio-tools  Command line tools.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.tools;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.File;
+import java.io.IOException;
+
+import java.nio.charset.StandardCharsets;
+
+import java.nio.file.Path;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.dishevelled.bio.variant.vcf.VcfReader;
+import org.dishevelled.bio.variant.vcf.VcfRecord;
+import org.dishevelled.bio.variant.vcf.VcfSample;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.io.Files;
+
+/**
+ * Unit test for MergeVcf.
+ *
+ * @author  Michael Heuer
+ */
+public final class MergeVcfTest {
+    private Path sample0;
+    private Path sample1;
+    private File outputVcfFile;
+
+    private static final String HEADER = "##fileformat=VCFv4.2\n"
+        + "##contig=<ID=chr1>\n"
+        + "##FORMAT=<ID=GT,Number=1,Type=String,Description=\"Genotype\">\n";
+
+    @Before
+    public void setUp() throws Exception {
+        sample0 = createFile(HEADER
+                             + "#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\tFORMAT\tNA12878\n"
+                             + "chr1\t100\trs1\tA\tG\t30\tPASS\t.\tGT\t0/1\n"
+                             + "chr1\t200\t.\tC\tT\t30\tPASS\t.\tGT\t1/1\n");
+        sample1 = createFile(HEADER
+                             + "##FILTER=<ID=q10,Description=\"Quality below 10\">\n"
+                             + "#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\tFORMAT\tNA12891\n"
+                             + "chr1\t200\trs2\tC\tT\t40\tPASS\t.\tGT\t0/1\n"
+                             + "chr1\t300\t.\tG\tA\t5\tq10\t.\tGT\t0/1\n");
+        outputVcfFile = File.createTempFile("mergeVcfTest", ".vcf");
+        outputVcfFile.deleteOnExit();
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testConstructorNullInputVcfPaths() {
+        new MergeVcf(null, outputVcfFile);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testConstructorEmptyInputVcfPaths() {
+        new MergeVcf(Collections.<Path>emptyList(), outputVcfFile);
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testConstructorNullContigs() {
+        new MergeVcf(Arrays.asList(sample0, sample1), null, null, outputVcfFile);
+    }
+
+    @Test
+    public void testConstructor() {
+        assertNotNull(new MergeVcf(Arrays.asList(sample0, sample1), outputVcfFile));
+    }
+
+    @Test
+    public void testMergeVcf() throws Exception {
+        assertEquals(0, (int) new MergeVcf(Arrays.asList(sample0, sample1), outputVcfFile).call());
+
+        assertEquals(4, VcfReader.header(outputVcfFile).getMeta().size());
+
+        List<String> samples = new ArrayList<String>();
+        for (VcfSample sample : VcfReader.samples(outputVcfFile)) {
+            samples.add(sample.getId());
+        }
+        assertEquals(Arrays.asList("NA12878", "NA12891"), samples);
+
+        List<VcfRecord> records = new ArrayList<VcfRecord>();
+        for (VcfRecord record : VcfReader.records(outputVcfFile)) {
+            records.add(record);
+        }
+        assertEquals(3, records.size());
+
+        assertEquals(100L, records.get(0).getPos());
+        assertEquals("0/1", records.get(0).getGenotype("NA12878").getGt());
+        assertEquals(".", records.get(0).getGenotype("NA12891").getGt());
+
+        assertEquals(200L, records.get(1).getPos());
+        assertArrayEquals(new String[] { "rs2" }, records.get(1).getId());
+        assertEquals(Double.valueOf(30.0d), records.get(1).getQual());
+        assertEquals("1/1", records.get(1).getGenotype("NA12878").getGt());
+        assertEquals("0/1", records.get(1).getGenotype("NA12891").getGt());
+
+        assertEquals(300L, records.get(2).getPos());
+        assertArrayEquals(new String[] { "q10" }, records.get(2).getFilter());
+        assertEquals(".", records.get(2).getGenotype("NA12878").getGt());
+        assertEquals("0/1", records.get(2).getGenotype("NA12891").getGt());
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testMergeVcfDuplicateSamples() throws Exception {
+        new MergeVcf(Arrays.asList(sample0, sample0), outputVcfFile).call();
+    }
+
+    @Test(expected=IOException.class)
+    public void testMergeVcfNoContigHeaderLines() throws Exception {
+        new MergeVcf(noContigs(), outputVcfFile).call();
+    }
+
+    @Test
+    public void testMergeVcfNoContigHeaderLinesContigs() throws Exception {
+        assertEquals(0, (int) new MergeVcf(noContigs(), Arrays.asList("chr1", "chr2"), null, outputVcfFile).call());
+        validateNoContigs();
+    }
+
+    @Test
+    public void testMergeVcfNoContigHeaderLinesFastaIndex() throws Exception {
+        Path fai = createFile("chr1\t1000\t6\t60\t61\n"
+                              + "chr2\t1000\t1029\t60\t61\n");
+        assertEquals(0, (int) new MergeVcf(noContigs(), Collections.<String>emptyList(), fai, outputVcfFile).call());
+        validateNoContigs();
+    }
+
+    @Test
+    public void testMergeVcfNoContigHeaderLinesSequenceDictionary() throws Exception {
+        Path dict = createFile("@HD\tVN:1.6\n"
+                               + "@SQ\tSN:chr1\tLN:1000\n"
+                               + "@SQ\tSN:chr2\tLN:1000\n");
+        assertEquals(0, (int) new MergeVcf(noContigs(), Collections.<String>emptyList(), dict, outputVcfFile).call());
+        validateNoContigs();
+    }
+
+    @Test
+    public void testReadContigs() throws Exception {
+        assertEquals(Arrays.asList("chr1", "chr2"), MergeVcf.readContigs(createFile("chr1\t1000\t6\t60\t61\nchr2\t1000\t1029\t60\t61\n")));
+        assertEquals(Arrays.asList("chr1", "chr2"), MergeVcf.readContigs(createFile("@HD\tVN:1.6\n@SQ\tSN:chr1\tLN:1000\n@SQ\tLN:1000\tSN:chr2\n")));
+    }
+
+    private static List<Path> noContigs() throws IOException {
+        Path first = createFile("##fileformat=VCFv4.2\n"
+                                + "#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\tFORMAT\tNA12878\n"
+                                + "chr1\t100\trs1\tA\tG\t30\tPASS\t.\tGT\t0/1\n"
+                                + "chr2\t100\t.\tC\tT\t30\tPASS\t.\tGT\t1/1\n");
+        Path second = createFile("##fileformat=VCFv4.2\n"
+                                 + "#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\tFORMAT\tNA12891\n"
+                                 + "chr2\t50\t.\tG\tA\t30\tPASS\t.\tGT\t0/1\n"
+                                 + "chr2\t100\trs2\tC\tT\t30\tPASS\t.\tGT\t0/1\n");
+        return Arrays.asList(first, second);
+    }
+
+    private void validateNoContigs() throws Exception {
+        List<VcfRecord> records = new ArrayList<VcfRecord>();
+        for (VcfRecord record : VcfReader.records(outputVcfFile)) {
+            records.add(record);
+        }
+        assertEquals(3, records.size());
+        assertEquals("chr1", records.get(0).getChrom());
+        assertEquals("chr2", records.get(1).getChrom());
+        assertEquals(50L, records.get(1).getPos());
+        assertEquals("chr2", records.get(2).getChrom());
+        assertEquals(100L, records.get(2).getPos());
+        assertArrayEquals(new String[] { "rs2" }, records.get(2).getId());
+        assertEquals("1/1", records.get(2).getGenotype("NA12878").getGt());
+        assertEquals("0/1", records.get(2).getGenotype("NA12891").getGt());
+    }
+
+    private static Path createFile(final String contents) throws IOException {
+        File file = File.createTempFile("mergeVcfTest", ".vcf");
+        Files.write(contents, file, StandardCharsets.UTF_8);
+        file.deleteOnExit();
+        return file.toPath();
+    }
+}
@@ -0,0 +1,108 @@
+/*
+
+    dsh-bio-tools  Command line tools.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.tools;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.File;
+
+import java.nio.charset.StandardCharsets;
+
+import java.nio.file.Path;
+
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.io.Files;
+
+/**
+ * Unit test for SamDepth.
+ *
+ * @author  Michael Heuer
+ */
+public final class SamDepthTest {
+    private Path inputSamPath;
+    private Path bedPath;
+    private File outputFile;
+
+    @Before
+    public void setUp() throws Exception {
+        File inputSamFile = File.createTempFile("samDepthTest", ".sam");
+        Files.write("@HD\tVN:1.6\tSO:coordinate\n"
+                    + "@SQ\tSN:chr1\tLN:1000\n"
+                    + "read1\t0\tchr1\t10\t60\t4M\t*\t0\t0\tACGT\t*\n"
+                    + "read2\t0\tchr1\t12\t20\t2M\t*\t0\t0\tGT\t*\n", inputSamFile, StandardCharsets.UTF_8);
+        inputSamFile.deleteOnExit();
+        inputSamPath = inputSamFile.toPath();
+
+        File bedFile = File.createTempFile("samDepthTest", ".bed");
+        Files.write("chr1\t10\t14\n"
+                    + "chr1\t8\t11\n", bedFile, StandardCharsets.UTF_8);
+        bedFile.deleteOnExit();
+        bedPath = bedFile.toPath();
+
+        outputFile = File.createTempFile("samDepthTest", ".txt");
+        outputFile.deleteOnExit();
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testConstructorInvalidMinMapq() {
+        new SamDepth(inputSamPath, bedPath, outputFile, -1, SamDepth.DEFAULT_THREADS);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testConstructorInvalidThreads() {
+        new SamDepth(inputSamPath, bedPath, outputFile, 0, 0);
+    }
+
+    @Test
+    public void testConstructor() {
+        assertNotNull(new SamDepth(inputSamPath, bedPath, outputFile, 0, SamDepth.DEFAULT_THREADS));
+    }
+
+    @Test
+    public void testSamDepth() throws Exception {
+        assertEquals(0, (int) new SamDepth(inputSamPath, null, outputFile, 0, SamDepth.DEFAULT_THREADS).call());
+
+        List<String> lines = Files.readLines(outputFile, StandardCharsets.UTF_8);
+        assertEquals(5, lines.size());
+        assertEquals("#chrom\tpos\tdepth\tA\tC\tG\tT\tN\tdeletions\tmean_mapq", lines.get(0));
+        assertEquals("chr1\t10\t1\t1\t0\t0\t0\t0\t0\t60.0", lines.get(1));
+        assertEquals("chr1\t12\t2\t0\t0\t2\t0\t0\t0\t40.0", lines.get(3));
+    }
+
+    @Test
+    public void testSamDepthRegions() throws Exception {
+        assertEquals(0, (int) new SamDepth(inputSamPath, bedPath, outputFile, 30, 2).call());
+
+        List<String> lines = Files.readLines(outputFile, StandardCharsets.UTF_8);
+        assertEquals(7, lines.size());
+        assertEquals("chr1\t9\t0\t0\t0\t0\t0\t0\t0\t.", lines.get(1));
+        assertEquals("chr1\t12\t1\t0\t0\t1\t0\t0\t0\t60.0", lines.get(4));
+        assertEquals("chr1\t14\t0\t0\t0\t0\t0\t0\t0\t.", lines.get(6));
+    }
+}
@@ -0,0 +1,111 @@
+/*
+
+    dsh-bio-tools  Command line tools.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.tools;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.File;
+
+import java.nio.charset.StandardCharsets;
+
+import java.nio.file.Path;
+
+import java.util.List;
+
+import org.dishevelled.bio.alignment.sam.SamSorter;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.io.Files;
+
+/**
+ * Unit test for SortSam.
+ *
+ * @author  Michael Heuer
+ */
+public final class SortSamTest {
+    private Path inputSamPath;
+    private File outputSamFile;
+
+    @Before
+    public void setUp() throws Exception {
+        File inputSamFile = File.createTempFile("sortSamTest", ".sam");
+        Files.write("@HD\tVN:1.6\tSO:unsorted\n"
+                    + "@SQ\tSN:chr2\tLN:1000\n"
+                    + "@SQ\tSN:chr1\tLN:1000\n"
+                    + "read2\t0\tchr1\t200\t60\t4M\t*\t0\t0\tACGT\t*\n"
+                    + "read1\t0\tchr1\t100\t60\t4M\t*\t0\t0\tACGT\t*\n"
+                    + "read3\t0\tchr2\t300\t60\t4M\t*\t0\t0\tACGT\t*\n", inputSamFile, StandardCharsets.UTF_8);
+        inputSamFile.deleteOnExit();
+        inputSamPath = inputSamFile.toPath();
+        outputSamFile = File.createTempFile("sortSamTest", ".sam");
+        outputSamFile.deleteOnExit();
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testConstructorNullSortOrder() {
+        new SortSam(inputSamPath, outputSamFile, null, AbstractSplit.toBytes(SortSam.DEFAULT_MEMORY), null, SortSam.DEFAULT_THREADS);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testConstructorInvalidMemory() {
+        new SortSam(inputSamPath, outputSamFile, SamSorter.SortOrder.COORDINATE, 0L, null, SortSam.DEFAULT_THREADS);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testConstructorInvalidThreads() {
+        new SortSam(inputSamPath, outputSamFile, SamSorter.SortOrder.COORDINATE, AbstractSplit.toBytes(SortSam.DEFAULT_MEMORY), null, 0);
+    }
+
+    @Test
+    public void testConstructor() {
+        assertNotNull(new SortSam(inputSamPath, outputSamFile, SamSorter.SortOrder.COORDINATE, AbstractSplit.toBytes(SortSam.DEFAULT_MEMORY), null, SortSam.DEFAULT_THREADS));
+    }
+
+    @Test
+    public void testSortSamCoordinate() throws Exception {
+        assertEquals(0, (int) new SortSam(inputSamPath, outputSamFile, SamSorter.SortOrder.COORDINATE, 1L, null, 2).call());
+
+        List<String> lines = Files.readLines(outputSamFile, StandardCharsets.UTF_8);
+        assertEquals(6, lines.size());
+        assertEquals("@HD\tVN:1.6\tSO:coordinate", lines.get(0));
+        assertEquals("read3", lines.get(3).split("\t")[0]);
+        assertEquals("read1", lines.get(4).split("\t")[0]);
+        assertEquals("read2", lines.get(5).split("\t")[0]);
+    }
+
+    @Test
+    public void testSortSamQueryname() throws Exception {
+        assertEquals(0, (int) new SortSam(inputSamPath, outputSamFile, SamSorter.SortOrder.QUERYNAME, 1L, null, 1).call());
+
+        List<String> lines = Files.readLines(outputSamFile, StandardCharsets.UTF_8);
+        assertEquals(6, lines.size());
+        assertEquals("@HD\tVN:1.6\tSO:queryname", lines.get(0));
+        assertEquals("read1", lines.get(3).split("\t")[0]);
+        assertEquals("read2", lines.get(4).split("\t")[0]);
+        assertEquals("read3", lines.get(5).split("\t")[0]);
+    }
+}
@@ -0,0 +1,92 @@
+/*
+
+    dsh-bio-tools  Command line tools.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.tools;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.File;
+
+import java.nio.charset.StandardCharsets;
+
+import java.nio.file.Path;
+
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.io.Files;
+
+/**
+ * Unit test for SortVcf.
+ *
+ * @author  Michael Heuer
+ */
+public final class SortVcfTest {
+    private Path inputVcfPath;
+    private File outputVcfFile;
+
+    @Before
+    public void setUp() throws Exception {
+        File inputVcfFile = File.createTempFile("sortVcfTest", ".vcf");
+        Files.write("##fileformat=VCFv4.2\n"
+                    + "##contig=<ID=chr2>\n"
+                    + "##contig=<ID=chr1>\n"
+                    + "#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\n"
+                    + "chr1\t200\t.\tA\tG\t.\tPASS\t.\n"
+                    + "chr1\t100\t.\tC\tT\t.\tPASS\t.\n"
+                    + "chr2\t300\t.\tG\tA\t.\tPASS\t.\n", inputVcfFile, StandardCharsets.UTF_8);
+        inputVcfFile.deleteOnExit();
+        inputVcfPath = inputVcfFile.toPath();
+        outputVcfFile = File.createTempFile("sortVcfTest", ".vcf");
+        outputVcfFile.deleteOnExit();
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testConstructorInvalidMemory() {
+        new SortVcf(inputVcfPath, outputVcfFile, 0L, null, SortVcf.DEFAULT_THREADS);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testConstructorInvalidThreads() {
+        new SortVcf(inputVcfPath, outputVcfFile, AbstractSplit.toBytes(SortVcf.DEFAULT_MEMORY), null, 0);
+    }
+
+    @Test
+    public void testConstructor() {
+        assertNotNull(new SortVcf(inputVcfPath, outputVcfFile, AbstractSplit.toBytes(SortVcf.DEFAULT_MEMORY), null, SortVcf.DEFAULT_THREADS));
+    }
+
+    @Test
+    public void testSortVcf() throws Exception {
+        assertEquals(0, (int) new SortVcf(inputVcfPath, outputVcfFile, 1L, null, 2).call());
+
+        List<String> lines = Files.readLines(outputVcfFile, StandardCharsets.UTF_8);
+        assertEquals(7, lines.size());
+        assertEquals("chr2\t300\t.\tG\tA\t.\tPASS\t.", lines.get(4));
+        assertEquals("chr1\t100\t.\tC\tT\t.\tPASS\t.", lines.get(5));
+        assertEquals("chr1\t200\t.\tA\tG\t.\tPASS\t.", lines.get(6));
+    }
+}
@@ -0,0 +1,202 @@
+/*
+
+    dsh-bio-tools  Command line tools.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.tools;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+
+import java.nio.charset.StandardCharsets;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import java.util.zip.GZIPInputStream;
+
+import com.google.common.io.CharStreams;
+
+import org.dishevelled.bio.alignment.sam.BamReader;
+import org.dishevelled.bio.alignment.sam.SamRecord;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for SplitSam.
+ *
+ * @author  Michael Heuer
+ */
+public final class SplitSamTest {
+    private File directory;
+    private Path inputFile;
+    private String prefix;
+    private String suffix;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("splitSamTest").toFile();
+        inputFile = new File(directory, "input.sam").toPath();
+        Files.write(inputFile, ("@HD\tVN:1.6\n"
+                    + "@SQ\tSN:chr1\tLN:1000\n"
+                    + "@SQ\tSN:HLA-A*01:01\tLN:1000\n"
+                    + "@RG\tID:rg1\n"
+                    + "@RG\tID:rg2\n"
+                    + "read1\t0\tchr1\t100\t60\t4M\t*\t0\t0\tACGT\t*\tRG:Z:rg1\n"
+                    + "read2\t0\tHLA-A*01:01\t100\t60\t4M\t*\t0\t0\tACGT\t*\tRG:Z:rg2\n"
+                    + "read3\t0\tchr1\t200\t60\t4M\t*\t0\t0\tACGT\t*\tRG:Z:rg2\n"
+                    + "read4\t4\t*\t0\t0\t*\t*\t0\t0\tACGT\t*\n"
+                    + "read5\t0\tHLA-A*01:01\t200\t60\t4M\t*\t0\t0\tACGT\t*\tRG:Z:rg1\n").getBytes(StandardCharsets.UTF_8));
+        prefix = new File(directory, "split.").getPath();
+        suffix = ".sam.gz";
+    }
+
+    @After
+    public void tearDown() {
+        for (File file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void testConstructor() {
+        assertNotNull(new SplitSam(inputFile, null, 100L, prefix, suffix));
+        assertNotNull(new SplitSam(inputFile, SplitSam.Key.REFERENCE, prefix, suffix, SplitSam.DEFAULT_MAX_OPEN_FILES, SplitSam.DEFAULT_THREADS));
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testConstructorNullPrefix() {
+        new SplitSam(inputFile, null, 100L, null, suffix);
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testConstructorNullSuffix() {
+        new SplitSam(inputFile, null, 100L, prefix, null);
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testConstructorNullKey() {
+        new SplitSam(inputFile, null, prefix, suffix, SplitSam.DEFAULT_MAX_OPEN_FILES, SplitSam.DEFAULT_THREADS);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testConstructorKeyInvalidSuffix() {
+        new SplitSam(inputFile, SplitSam.Key.REFERENCE, prefix, ".sam.bz2", SplitSam.DEFAULT_MAX_OPEN_FILES, SplitSam.DEFAULT_THREADS);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testConstructorKeyInvalidMaxOpenFiles() {
+        new SplitSam(inputFile, SplitSam.Key.REFERENCE, prefix, suffix, 0, SplitSam.DEFAULT_THREADS);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testConstructorKeyInvalidLevel() {
+        new SplitSam(inputFile, SplitSam.Key.REFERENCE, prefix, suffix, 1, 1, 10);
+    }
+
+    @Test
+    public void testSplitByReadGroupLevel() throws Exception {
+        assertEquals(0, (int) new SplitSam(inputFile, SplitSam.Key.READ_GROUP, prefix, suffix, 1, 2, 0).call());
+
+        List<String> rg1 = readLines(new File(prefix + "rg1.sam.gz"));
+        assertEquals(7, rg1.size());
+        assertTrue(rg1.get(5).startsWith("read1\t"));
+        assertTrue(rg1.get(6).startsWith("read5\t"));
+    }
+
+    @Test
+    public void testSplitByReference() throws Exception {
+        assertEquals(0, (int) new SplitSam(inputFile, SplitSam.Key.REFERENCE, prefix, suffix, 1, SplitSam.DEFAULT_THREADS).call());
+
+        List<String> chr1 = readLines(new File(prefix + "chr1.sam.gz"));
+        assertEquals(7, chr1.size());
+        assertEquals("@HD\tVN:1.6", chr1.get(0));
+        assertTrue(chr1.get(5).startsWith("read1\t"));
+        assertTrue(chr1.get(6).startsWith("read3\t"));
+
+        List<String> hla = readLines(new File(prefix + "HLA-A_01_01.sam.gz"));
+        assertEquals(7, hla.size());
+        assertTrue(hla.get(5).startsWith("read2\t"));
+        assertTrue(hla.get(6).startsWith("read5\t"));
+
+        List<String> unmapped = readLines(new File(prefix + "unmapped.sam.gz"));
+        assertEquals(6, unmapped.size());
+        assertTrue(unmapped.get(5).startsWith("read4\t"));
+    }
+
+    @Test
+    public void testSplitByReadGroupBam() throws Exception {
+        assertEquals(0, (int) new SplitSam(inputFile, SplitSam.Key.READ_GROUP, prefix, ".bam", 1, 2).call());
+
+        List<SamRecord> rg1 = new ArrayList<SamRecord>();
+        for (SamRecord record : BamReader.records(new File(prefix + "rg1.bam").toPath())) {
+            rg1.add(record);
+        }
+        assertEquals(2, rg1.size());
+        assertEquals("read1", rg1.get(0).getQname());
+        assertEquals("read5", rg1.get(1).getQname());
+        assertEquals(2, BamReader.header(new File(prefix + "rg2.bam").toPath()).getReadGroupHeaderLines().size());
+        assertTrue(new File(prefix + "unknown.bam").exists());
+        assertFalse(new File(prefix + "rg3.bam").exists());
+    }
+
+    @Test
+    public void testSplitByReferenceInterleaved() throws Exception {
+        StringBuilder sb = new StringBuilder("@HD\tVN:1.6\n@SQ\tSN:chr1\tLN:100000\n@SQ\tSN:chr2\tLN:100000\n@SQ\tSN:chr3\tLN:100000\n");
+        int n = SplitSam.MAX_PENDING_RECORDS_PER_KEY + 100;
+        for (int i = 0; i < n; i++) {
+            sb.append("read" + i + "\t0\tchr" + (1 + (i % 3)) + "\t" + (i + 1) + "\t60\t4M\t*\t0\t0\tACGT\t*\n");
+        }
+        Files.write(inputFile, sb.toString().getBytes(StandardCharsets.UTF_8));
+        assertEquals(0, (int) new SplitSam(inputFile, SplitSam.Key.REFERENCE, prefix, suffix, 1, 2).call());
+
+        int count = 0;
+        for (int c = 1; c <= 3; c++) {
+            List<String> lines = readLines(new File(prefix + "chr" + c + ".sam.gz"));
+            assertEquals("@HD\tVN:1.6", lines.get(0));
+            int i = c - 1;
+            for (String line : lines.subList(4, lines.size())) {
+                assertTrue(line.startsWith("read" + i + "\t"));
+                i += 3;
+                count++;
+            }
+        }
+        assertEquals(n, count);
+    }
+
+    private static List<String> readLines(final File file) throws Exception {
+        try (InputStreamReader reader = new InputStreamReader(new GZIPInputStream(new FileInputStream(file)), StandardCharsets.UTF_8)) {
+            return CharStreams.readLines(reader);
+        }
+    }
+}
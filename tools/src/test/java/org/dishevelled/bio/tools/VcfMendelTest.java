@@ -0,0 +1,102 @@
+/*
+
+    dsh-bio-tools  Command line tools.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.tools;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.File;
+
+import java.nio.charset.StandardCharsets;
+
+import java.nio.file.Path;
+
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.io.Files;
+
+/**
+ * Unit test for VcfMendel.
+ *
+ * @author  Michael Heuer
+ */
+public final class VcfMendelTest {
+    private Path inputVcfPath;
+    private File outputVariantFile;
+    private File outputFamilyFile;
+
+    @Before
+    public void setUp() throws Exception {
+        File inputVcfFile = File.createTempFile("vcfMendelTest", ".vcf");
+        Files.write("##fileformat=VCFv4.2\n"
+                    + "##PEDIGREE=<Child=kid,Mother=mom,Father=dad>\n"
+                    + "#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\tFORMAT\tmom\tdad\tkid\n"
+                    + "chr1\t100\trs1\tA\tG\t30\tPASS\t.\tGT\t0/1\t0/1\t1/1\n"
+                    + "chr1\t200\t.\tC\tT\t30\tPASS\t.\tGT\t0/0\t0/0\t0/1\n"
+                    + "chr1\t300\t.\tG\tA\t30\tPASS\t.\tGT\t0/1\t0/0\t./.\n", inputVcfFile, StandardCharsets.UTF_8);
+        inputVcfFile.deleteOnExit();
+        inputVcfPath = inputVcfFile.toPath();
+        outputVariantFile = File.createTempFile("vcfMendelTest", ".txt");
+        outputVariantFile.deleteOnExit();
+        outputFamilyFile = File.createTempFile("vcfMendelTest", ".txt");
+        outputFamilyFile.deleteOnExit();
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testConstructorInvalidThreads() {
+        new VcfMendel(inputVcfPath, outputVariantFile, outputFamilyFile, false, 0);
+    }
+
+    @Test
+    public void testConstructor() {
+        assertNotNull(new VcfMendel(inputVcfPath, outputVariantFile, outputFamilyFile, false, VcfMendel.DEFAULT_THREADS));
+    }
+
+    @Test
+    public void testVcfMendel() throws Exception {
+        assertEquals(0, (int) new VcfMendel(inputVcfPath, outputVariantFile, outputFamilyFile, false, 2).call());
+
+        List<String> variants = Files.readLines(outputVariantFile, StandardCharsets.UTF_8);
+        assertEquals(4, variants.size());
+        assertEquals("chr1\t100\trs1\tA\tG\t1\t0\t0\t2\t0\t.", variants.get(1));
+        assertEquals("chr1\t200\t.\tC\tT\t0\t1\t0\t0\t0\tkid", variants.get(2));
+        assertEquals("chr1\t300\t.\tG\tA\t0\t0\t1\t0\t0\t.", variants.get(3));
+
+        List<String> families = Files.readLines(outputFamilyFile, StandardCharsets.UTF_8);
+        assertEquals(2, families.size());
+        assertEquals("kid\tmom\tdad\t1\t1\t1\t2\t0\t2.0", families.get(1));
+    }
+
+    @Test
+    public void testVcfMendelErrorsOnly() throws Exception {
+        assertEquals(0, (int) new VcfMendel(inputVcfPath, outputVariantFile, null, true, 1).call());
+
+        List<String> variants = Files.readLines(outputVariantFile, StandardCharsets.UTF_8);
+        assertEquals(2, variants.size());
+        assertEquals("chr1\t200\t.\tC\tT\t0\t1\t0\t0\t0\tkid", variants.get(1));
+    }
+}
@@ -0,0 +1,263 @@
+/*
+
+    dsh-bio-tools  Command line tools.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.tools;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import java.nio.charset.StandardCharsets;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for VcfToPartitionedParquet.
+ *
+ * @author  Michael Heuer
+ */
+public final class VcfToPartitionedParquetTest {
+    private File directory;
+    private Path vcfPath;
+    private File parquetFile;
+    private static final int RECORDS = 10;
+    private static final List<String> INFO_FIELDS = Arrays.asList("DP", "AF", "DB", "CSQ");
+    private static final List<String> SAMPLES = Arrays.asList("NA12878", "NA12891");
+    private static final List<String> FORMAT_FIELDS = Arrays.asList("GT", "GQ");
+    private static final String HEADER = "##fileformat=VCFv4.2\n"
+        + "##INFO=<ID=DP,Number=1,Type=Integer,Description=\"Depth\">\n"
+        + "##INFO=<ID=AF,Number=A,Type=Float,Description=\"Allele frequency\">\n"
+        + "##INFO=<ID=DB,Number=0,Type=Flag,Description=\"dbSNP membership\">\n"
+        + "##INFO=<ID=CSQ,Number=.,Type=String,Description=\"Consequence\">\n"
+        + "##FORMAT=<ID=GT,Number=1,Type=String,Description=\"Genotype\">\n"
+        + "##FORMAT=<ID=GQ,Number=1,Type=Integer,Description=\"Genotype quality\">\n"
+        + "#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\tFORMAT\tNA12878\tNA12891\n";
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("vcfToPartitionedParquetTest").toFile();
+        StringBuilder sb = new StringBuilder(HEADER);
+        for (int i = 1; i <= RECORDS; i++) {
+            sb.append("chr1\t" + (i * 100) + "\t.\tA\tG\t30\t" + (i == 3 ? "q10" : "PASS") + "\t");
+            sb.append(i == 5 ? "DP=.;CSQ=missense,synonymous" : "DP=" + i + ";AF=0." + i + (i % 2 == 0 ? ";DB" : ""));
+            sb.append("\tGT:GQ\t0/1:" + (i * 10) + "\t./.:.\n");
+        }
+        vcfPath = new File(directory, "input.vcf").toPath();
+        Files.write(vcfPath, sb.toString().getBytes(StandardCharsets.UTF_8));
+        parquetFile = new File(directory, "output.parquet");
+    }
+
+    @After
+    public void tearDown() {
+        delete(directory);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testConstructorInvalidThreads() {
+        new VcfToPartitionedParquet(vcfPath, parquetFile, INFO_FIELDS, "", SAMPLES, "", FORMAT_FIELDS, true, false, 10, 3L, true, 0);
+    }
+
+    @Test
+    public void testNativeTypes() throws Exception {
+        assertEquals(0, (int) convert(true, 1).call());
+        validatePartitions();
+
+        Map<String, String> types = columnTypes();
+        assertEquals("VARCHAR", types.get("chrom"));
+        assertEquals("BIGINT", types.get("pos"));
+        assertEquals("INTEGER[]", types.get("dp"));
+        assertEquals("FLOAT[]", types.get("af"));
+        assertEquals("BOOLEAN", types.get("db"));
+        assertEquals("VARCHAR[]", types.get("csq"));
+        assertEquals("VARCHAR[]", types.get("na12878_gt"));
+        assertEquals("INTEGER[]", types.get("na12878_gq"));
+        assertEquals("INTEGER[]", types.get("na12891_gq"));
+
+        validateRows(true);
+    }
+
+    @Test
+    public void testNativeTypesMultipleThreads() throws Exception {
+        assertEquals(0, (int) convert(true, 2).call());
+        validatePartitions();
+        assertEquals("INTEGER[]", columnTypes().get("dp"));
+        validateRows(true);
+    }
+
+    @Test
+    public void testMultipleThreads() throws Exception {
+        assertEquals(0, (int) convert(false, 2).call());
+        validatePartitions();
+
+        Map<String, String> types = columnTypes();
+        assertEquals("VARCHAR[]", types.get("dp"));
+        assertEquals("VARCHAR[]", types.get("af"));
+        assertEquals("VARCHAR[]", types.get("db"));
+        assertEquals("VARCHAR[]", types.get("na12878_gq"));
+
+        validateRows(false);
+    }
+
+    @Test
+    public void testMultipleThreadsSameAsSingleThread() throws Exception {
+        assertEquals(0, (int) convert(false, 1).call());
+        List<List<Object>> expected = rows();
+        delete(parquetFile);
+
+        assertEquals(0, (int) convert(false, 2).call());
+        assertEquals(expected, rows());
+    }
+
+    @Test(expected=IOException.class)
+    public void testNativeTypesInvalidValue() throws Exception {
+        Files.write(vcfPath, (HEADER + "chr1\t100\t.\tA\tG\t30\tPASS\tDP=deep\tGT:GQ\t0/1:10\t./.:.\n").getBytes(StandardCharsets.UTF_8));
+        convert(true, 2).call();
+    }
+
+    private VcfToPartitionedParquet convert(final boolean nativeTypes, final int threads) {
+        return new VcfToPartitionedParquet(vcfPath, parquetFile, INFO_FIELDS, "", SAMPLES, "", FORMAT_FIELDS, true, false, 10, 3L, nativeTypes, threads);
+    }
+
+    private String parquet() {
+        return "read_parquet('" + parquetFile + "/*.parquet')";
+    }
+
+    private void validatePartitions() throws Exception {
+        File[] parts = parquetFile.listFiles();
+        assertNotNull(parts);
+        // ten records in partitions of three
+        assertEquals(4, parts.length);
+        try (Connection connection = DriverManager.getConnection("jdbc:duckdb:");
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT count(*), count(DISTINCT pos), sum(pos) FROM " + parquet())) {
+            assertTrue(resultSet.next());
+            assertEquals(RECORDS, resultSet.getLong(1));
+            assertEquals(RECORDS, resultSet.getLong(2));
+            assertEquals(100L * RECORDS * (RECORDS + 1) / 2, resultSet.getLong(3));
+        }
+    }
+
+    private Map<String, String> columnTypes() throws SQLException {
+        Map<String, String> columnTypes = new HashMap<String, String>();
+        try (Connection connection = DriverManager.getConnection("jdbc:duckdb:");
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("DESCRIBE SELECT * FROM " + parquet())) {
+            while (resultSet.next()) {
+                columnTypes.put(resultSet.getString("column_name"), resultSet.getString("column_type"));
+            }
+        }
+        return columnTypes;
+    }
+
+    private void validateRows(final boolean nativeTypes) throws SQLException {
+        try (Connection connection = DriverManager.getConnection("jdbc:duckdb:");
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT pos, filters_passed, filters_failed, dp, af, db, csq, na12878_gt, na12878_gq, na12891_gq FROM " + parquet() + " ORDER BY pos")) {
+            for (int i = 1; i <= RECORDS; i++) {
+                assertTrue(resultSet.next());
+                assertEquals(i * 100L, resultSet.getLong("pos"));
+                assertEquals(i != 3, resultSet.getBoolean("filters_passed"));
+                assertArrayEquals(i == 3 ? new Object[] { "q10" } : new Object[0], array(resultSet, "filters_failed"));
+                assertArrayEquals(new Object[] { "0/1" }, array(resultSet, "na12878_gt"));
+                if (i == 5) {
+                    // missing values are dropped by the parser
+                    assertArrayEquals(new Object[0], array(resultSet, "dp"));
+                    assertArrayEquals(new Object[0], array(resultSet, "af"));
+                    assertArrayEquals(new Object[] { "missense", "synonymous" }, array(resultSet, "csq"));
+                }
+                else {
+                    assertArrayEquals(new Object[] { nativeTypes ? (Object) Integer.valueOf(i) : (Object) String.valueOf(i) }, array(resultSet, "dp"));
+                    assertArrayEquals(new Object[] { nativeTypes ? (Object) Float.valueOf("0." + i) : (Object) ("0." + i) }, array(resultSet, "af"));
+                    assertArrayEquals(new Object[0], array(resultSet, "csq"));
+                }
+                if (nativeTypes) {
+                    assertEquals(i % 2 == 0 && i != 5, resultSet.getBoolean("db"));
+                    assertArrayEquals(new Object[] { Integer.valueOf(i * 10) }, array(resultSet, "na12878_gq"));
+                }
+                else {
+                    assertArrayEquals(new Object[] { String.valueOf(i * 10) }, array(resultSet, "na12878_gq"));
+                }
+                assertArrayEquals(new Object[0], array(resultSet, "na12891_gq"));
+            }
+            assertFalse(resultSet.next());
+        }
+    }
+
+    private List<List<Object>> rows() throws SQLException {
+        List<List<Object>> rows = new ArrayList<List<Object>>();
+        try (Connection connection = DriverManager.getConnection("jdbc:duckdb:");
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT * FROM " + parquet() + " ORDER BY pos")) {
+            int columns = resultSet.getMetaData().getColumnCount();
+            while (resultSet.next()) {
+                List<Object> row = new ArrayList<Object>(columns);
+                for (int i = 1; i <= columns; i++) {
+                    Object value = resultSet.getObject(i);
+                    row.add(value instanceof Array ? Arrays.asList((Object[]) ((Array) value).getArray()) : value);
+                }
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    private static Object[] array(final ResultSet resultSet, final String column) throws SQLException {
+        Array array = resultSet.getArray(column);
+        assertNotNull(array);
+        return (Object[]) array.getArray();
+    }
+
+    private static void delete(final File file) {
+        File[] files = file.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                delete(f);
+            }
+        }
+        file.delete();
+    }
+}
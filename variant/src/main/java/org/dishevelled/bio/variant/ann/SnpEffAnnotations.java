@@ -0,0 +1,434 @@
+/*
+
+    dsh-bio-variant  Variants.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.variant.ann;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.google.common.base.Splitter;
+
+import com.google.common.collect.ImmutableList;
+
+import org.dishevelled.bio.variant.vcf.VcfRecord;
+
+/**
+ * Lazy view over the SnpEff variant annotations in the INFO field ANN values of a VCF record.
+ *
+ * <p>
+ * Field boundaries for each annotation are found in a single scan the first time any of its
+ * fields are accessed, and only the fields requested are decoded.  Predicates such as
+ * {@link #anyImpact(String)} and {@link #anyEffect(String)} compare field values in place
+ * without decoding them to strings.
+ * </p>
+ *
+ * @author  Michael Heuer
+ */
+public final class SnpEffAnnotations {
+    /** Number of fields in a SnpEff variant annotation. */
+    static final int FIELDS = 16;
+
+    /** Annotations. */
+    private final List<String> annotations;
+
+    /** Field boundaries for each annotation, lazily computed. */
+    private final int[][] boundaries;
+
+    /** Empty SnpEff annotations. */
+    private static final SnpEffAnnotations EMPTY = new SnpEffAnnotations(Collections.<String>emptyList());
+
+
+    /**
+     * SnpEff variant annotation field.
+     */
+    public enum Field {
+        /** Allele. */
+        ALLELE,
+
+        /** Annotation, one or more effects separated by <code>&amp;</code>. */
+        ANNOTATION,
+
+        /** Annotation impact. */
+        ANNOTATION_IMPACT,
+
+        /** Gene name. */
+        GENE_NAME,
+
+        /** Gene id. */
+        GENE_ID,
+
+        /** Feature type. */
+        FEATURE_TYPE,
+
+        /** Feature id. */
+        FEATURE_ID,
+
+        /** Transcript biotype. */
+        TRANSCRIPT_BIOTYPE,
+
+        /** Rank / total. */
+        RANK,
+
+        /** HGVS.c. */
+        HGVS_C,
+
+        /** HGVS.p. */
+        HGVS_P,
+
+        /** cDNA.pos / cDNA.length. */
+        CDNA_POSITION,
+
+        /** CDS.pos / CDS.length. */
+        CDS_POSITION,
+
+        /** AA.pos / AA.length. */
+        PROTEIN_POSITION,
+
+        /** Distance. */
+        DISTANCE,
+
+        /** Errors, warnings, or information messages. */
+        MESSAGES
+    }
+
+
+    /**
+     * Create a new SnpEff annotations view over the specified list of annotations.
+     *
+     * @param annotations list of annotations
+     */
+    private SnpEffAnnotations(final List<String> annotations) {
+        this.annotations = annotations;
+        this.boundaries = new int[annotations.size()][];
+    }
+
+
+    /**
+     * Return the number of annotations in this view.
+     *
+     * @return the number of annotations in this view
+     */
+    public int size() {
+        return annotations.size();
+    }
+
+    /**
+     * Return true if this view contains no annotations.
+     *
+     * @return true if this view contains no annotations
+     */
+    public boolean isEmpty() {
+        return annotations.isEmpty();
+    }
+
+    /**
+     * Return the value of the specified field for the annotation at the specified index, if any.
+     *
+     * @param index annotation index
+     * @param field field, must not be null
+     * @return the value of the specified field for the annotation at the specified index, or
+     *    <code>null</code> if the value is empty
+     * @throws IllegalArgumentException if the annotation is not valid SnpEff variant annotation format
+     */
+    public String get(final int index, final Field field) {
+        checkNotNull(field);
+        String annotation = annotations.get(index);
+        int[] b = boundaries(index);
+        int start = b[field.ordinal()] + 1;
+        int end = b[field.ordinal() + 1];
+        return start == end ? null : annotation.substring(start, end);
+    }
+
+    /**
+     * Return true if the value of the specified field for the annotation at the specified
+     * index is equal to the specified value.
+     *
+     * @param index annotation index
+     * @param field field, must not be null
+     * @param value value, must not be null
+     * @return true if the value of the specified field for the annotation at the specified
+     *    index is equal to the specified value
+     * @throws IllegalArgumentException if the annotation is not valid SnpEff variant annotation format
+     */
+    public boolean isEqual(final int index, final Field field, final String value) {
+        checkNotNull(field);
+        checkNotNull(value);
+        int[] b = boundaries(index);
+        int start = b[field.ordinal()] + 1;
+        int end = b[field.ordinal() + 1];
+        return (end - start) == value.length() && annotations.get(index).regionMatches(start, value, 0, value.length());
+    }
+
+    /**
+     * Return the allele for the annotation at the specified index, if any.
+     *
+     * @param index annotation index
+     * @return the allele for the annotation at the specified index, if any
+     */
+    public String getAlternateAllele(final int index) {
+        return get(index, Field.ALLELE);
+    }
+
+    /**
+     * Return the list of effects for the annotation at the specified index.
+     *
+     * @param index annotation index
+     * @return the list of effects for the annotation at the specified index
+     */
+    public List<String> getEffects(final int index) {
+        String effects = get(index, Field.ANNOTATION);
+        return effects == null ? ImmutableList.<String>of() : Splitter.on("&").omitEmptyStrings().splitToList(effects);
+    }
+
+    /**
+     * Return the annotation impact for the annotation at the specified index, if any.
+     *
+     * @param index annotation index
+     * @return the annotation impact for the annotation at the specified index, if any
+     */
+    public String getAnnotationImpact(final int index) {
+        return get(index, Field.ANNOTATION_IMPACT);
+    }
+
+    /**
+     * Return the gene name for the annotation at the specified index, if any.
+     *
+     * @param index annotation index
+     * @return the gene name for the annotation at the specified index, if any
+     */
+    public String getGeneName(final int index) {
+        return get(index, Field.GENE_NAME);
+    }
+
+    /**
+     * Return the feature id for the annotation at the specified index, if any.
+     *
+     * @param index annotation index
+     * @return the feature id for the annotation at the specified index, if any
+     */
+    public String getFeatureId(final int index) {
+        return get(index, Field.FEATURE_ID);
+    }
+
+    /**
+     * Return true if the annotation at the specified index contains the specified effect.
+     *
+     * @param index annotation index
+     * @param effect effect, must not be null
+     * @return true if the annotation at the specified index contains the specified effect
+     * @throws IllegalArgumentException if the annotation is not valid SnpEff variant annotation format
+     */
+    public boolean containsEffect(final int index, final String effect) {
+        checkNotNull(effect);
+        String annotation = annotations.get(index);
+        int[] b = boundaries(index);
+        int start = b[Field.ANNOTATION.ordinal()] + 1;
+        int end = b[Field.ANNOTATION.ordinal() + 1];
+        int length = effect.length();
+        while (start <= end) {
+            int next = annotation.indexOf('&', start);
+            if (next < 0 || next > end) {
+                next = end;
+            }
+            if ((next - start) == length && annotation.regionMatches(start, effect, 0, length)) {
+                return true;
+            }
+            start = next + 1;
+        }
+        return false;
+    }
+
+    /**
+     * Return the annotation at the specified index, fully decoded.
+     *
+     * @param index annotation index
+     * @return the annotation at the specified index, fully decoded
+     * @throws IllegalArgumentException if the annotation is not valid SnpEff variant annotation format
+     * @throws NumberFormatException if a number valued field cannot be parsed as a number
+     */
+    public SnpEffVariantAnnotation getAnnotation(final int index) {
+        return SnpEffVariantAnnotation.valueOf(annotations.get(index), boundaries(index));
+    }
+
+    /**
+     * Return all the annotations in this view, fully decoded.
+     *
+     * @return all the annotations in this view, fully decoded
+     * @throws IllegalArgumentException if any of the annotations are not valid SnpEff variant annotation format
+     * @throws NumberFormatException if a number valued field cannot be parsed as a number
+     */
+    public List<SnpEffVariantAnnotation> getAnnotations() {
+        ImmutableList.Builder<SnpEffVariantAnnotation> builder = ImmutableList.builder();
+        for (int i = 0, size = size(); i < size; i++) {
+            builder.add(getAnnotation(i));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Return true if the value of the specified field for any annotation in this view is
+     * equal to the specified value.
+     *
+     * @param field field, must not be null
+     * @param value value, must not be null
+     * @return true if the value of the specified field for any annotation in this view is
+     *    equal to the specified value
+     * @throws IllegalArgumentException if an annotation is not valid SnpEff variant annotation format
+     */
+    public boolean anyMatch(final Field field, final String value) {
+        for (int i = 0, size = size(); i < size; i++) {
+            if (isEqual(i, field, value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Return true if any annotation in this view has the specified annotation impact,
+     * e.g. <code>HIGH</code>.
+     *
+     * @param impact annotation impact, must not be null
+     * @return true if any annotation in this view has the specified annotation impact
+     * @throws IllegalArgumentException if an annotation is not valid SnpEff variant annotation format
+     */
+    public boolean anyImpact(final String impact) {
+        return anyMatch(Field.ANNOTATION_IMPACT, impact);
+    }
+
+    /**
+     * Return true if any annotation in this view contains the specified effect,
+     * e.g. <code>missense_variant</code>.
+     *
+     * @param effect effect, must not be null
+     * @return true if any annotation in this view contains the specified effect
+     * @throws IllegalArgumentException if an annotation is not valid SnpEff variant annotation format
+     */
+    public boolean anyEffect(final String effect) {
+        for (int i = 0, size = size(); i < size; i++) {
+            if (containsEffect(i, effect)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Return true if any annotation in this view has the specified gene name.
+     *
+     * @param geneName gene name, must not be null
+     * @return true if any annotation in this view has the specified gene name
+     * @throws IllegalArgumentException if an annotation is not valid SnpEff variant annotation format
+     */
+    public boolean anyGeneName(final String geneName) {
+        return anyMatch(Field.GENE_NAME, geneName);
+    }
+
+    /**
+     * Return the field boundaries for the annotation at the specified index, computing them if necessary.
+     *
+     * @param index annotation index
+     * @return the field boundaries for the annotation at the specified index
+     */
+    private int[] boundaries(final int index) {
+        int[] b = boundaries[index];
+        if (b == null) {
+            b = boundaries(annotations.get(index));
+            boundaries[index] = b;
+        }
+        return b;
+    }
+
+    /**
+     * Find the field boundaries for the specified annotation in a single scan.  Field
+     * <code>i</code> spans from <code>b[i] + 1</code>, inclusive, to <code>b[i + 1]</code>, exclusive.
+     *
+     * @param annotation annotation
+     * @return the field boundaries for the specified annotation
+     * @throws IllegalArgumentException if the annotation does not have sixteen fields
+     */
+    static int[] boundaries(final String annotation) {
+        int[] b = new int[FIELDS + 1];
+        b[0] = -1;
+        int field = 1;
+        for (int i = 0, length = annotation.length(); i < length; i++) {
+            if (annotation.charAt(i) == '|') {
+                if (field == FIELDS) {
+                    throw new IllegalArgumentException(SnpEffVariantAnnotation.FIELDS_MESSAGE);
+                }
+                b[field++] = i;
+            }
+        }
+        if (field != FIELDS) {
+            throw new IllegalArgumentException(SnpEffVariantAnnotation.FIELDS_MESSAGE);
+        }
+        b[FIELDS] = annotation.length();
+        return b;
+    }
+
+    /**
+     * Return a lazy view over the SnpEff variant annotations in the INFO field ANN values of the specified VCF record.
+     *
+     * @param record VCF record, must not be null
+     * @return a lazy view over the SnpEff variant annotations in the INFO field ANN values of the specified VCF record
+     */
+    public static SnpEffAnnotations valueOf(final VcfRecord record) {
+        checkNotNull(record);
+        List<String> values = record.getInfo().get("ANN");
+        if (values.isEmpty()) {
+            return EMPTY;
+        }
+        return new SnpEffAnnotations(split(values));
+    }
+
+    /**
+     * Split the specified INFO field ANN values into annotations if necessary.  Values
+     * parsed from VCF are already split on <code>,</code>, so usually this returns the
+     * specified list of values.
+     *
+     * @param values INFO field ANN values
+     * @return the specified INFO field ANN values split into annotations
+     */
+    static List<String> split(final List<String> values) {
+        boolean split = false;
+        for (String value : values) {
+            if (value.indexOf(',') >= 0 || value.startsWith("ANN=")) {
+                split = true;
+                break;
+            }
+        }
+        if (!split) {
+            return values;
+        }
+        List<String> annotations = new ArrayList<String>();
+        for (String value : values) {
+            for (String annotation : Splitter.on(",").split(value.replace("ANN=", ""))) {
+                annotations.add(annotation);
+            }
+        }
+        return annotations;
+    }
+}
@@ -69,6 +69,11 @@ public final class SnpEffVariantAnnotation {
     private final List<String> messages;
     private final int hashCode;
 
+    /** Message for values without sixteen fields. */
+    static final String FIELDS_MESSAGE = "value must have sixteen fields ( Allele | Annotation | Annotation_Impact | "
+        + "Gene_Name | Gene_ID | Feature_Type | Feature_ID | Transcript_BioType | Rank / Total | HGVS.c | HGVS.p | "
+        + "cDNA.pos / cDNA.length | CDS.pos / CDS.length | AA.pos / AA.length | Distance | MESSAGES / WARNINGS / INFO)";
+
 
     /**
      * Create a new SnpEff variant annotation.
@@ -371,34 +376,43 @@ public final class SnpEffVariantAnnotation {
      */
     public static SnpEffVariantAnnotation valueOf(final String value) {
         checkNotNull(value);
+        return valueOf(value, SnpEffAnnotations.boundaries(value));
+    }
 
-        List<String> tokens = Splitter.on("|").splitToList(value);
-        if (tokens.size() != 16) {
-            throw new IllegalArgumentException("value must have sixteen fields ( Allele | Annotation | Annotation_Impact | "
-                + "Gene_Name | Gene_ID | Feature_Type | Feature_ID | Transcript_BioType | Rank / Total | HGVS.c | HGVS.p | "
-                + "cDNA.pos / cDNA.length | CDS.pos / CDS.length | AA.pos / AA.length | Distance | MESSAGES / WARNINGS / INFO)");
+    /**
+     * Return a new SnpEff variant annotation parsed from the specified value with the specified field boundaries.
+     *
+     * @param value value to parse
+     * @param boundaries field boundaries, as found by <code>SnpEffAnnotations.boundaries(value)</code>
+     * @return a new SnpEff variant annotation parsed from the specified value
+     * @throws NumberFormatException if a number valued field cannot be parsed as a number
+     */
+    static SnpEffVariantAnnotation valueOf(final String value, final int[] boundaries) {
+        String[] tokens = new String[SnpEffAnnotations.FIELDS];
+        for (int i = 0; i < SnpEffAnnotations.FIELDS; i++) {
+            tokens[i] = value.substring(boundaries[i] + 1, boundaries[i + 1]);
         }
 
-        String alternateAllele = emptyToNull(tokens.get(0));
-        List<String> effects = Splitter.on("&").omitEmptyStrings().splitToList(tokens.get(1));
-        String annotationImpact = emptyToNull(tokens.get(2));
-        String geneName = emptyToNull(tokens.get(3));
-        String geneId = emptyToNull(tokens.get(4));
-        String featureType = emptyToNull(tokens.get(5));
-        String featureId = emptyToNull(tokens.get(6));
-        String biotype = emptyToNull(tokens.get(7));
-        Integer rank = numerator(tokens.get(8));
-        Integer total = denominator(tokens.get(8));
-        String transcriptHgvs = emptyToNull(tokens.get(9));
-        String proteinHgvs = emptyToNull(tokens.get(10));
-        Integer cdnaPosition = numerator(tokens.get(11));
-        Integer cdnaLength = denominator(tokens.get(11));
-        Integer cdsPosition = numerator(tokens.get(12));
-        Integer cdsLength = denominator(tokens.get(12));
-        Integer proteinPosition = numerator(tokens.get(13));
-        Integer proteinLength = denominator(tokens.get(13));
-        Integer distance = emptyToNullInteger(tokens.get(14));
-        List<String> messages = Splitter.on("&").omitEmptyStrings().splitToList(tokens.get(15));
+        String alternateAllele = emptyToNull(tokens[0]);
+        List<String> effects = Splitter.on("&").omitEmptyStrings().splitToList(tokens[1]);
+        String annotationImpact = emptyToNull(tokens[2]);
+        String geneName = emptyToNull(tokens[3]);
+        String geneId = emptyToNull(tokens[4]);
+        String featureType = emptyToNull(tokens[5]);
+        String featureId = emptyToNull(tokens[6]);
+        String biotype = emptyToNull(tokens[7]);
+        Integer rank = numerator(tokens[8]);
+        Integer total = denominator(tokens[8]);
+        String transcriptHgvs = emptyToNull(tokens[9]);
+        String proteinHgvs = emptyToNull(tokens[10]);
+        Integer cdnaPosition = numerator(tokens[11]);
+        Integer cdnaLength = denominator(tokens[11]);
+        Integer cdsPosition = numerator(tokens[12]);
+        Integer cdsLength = denominator(tokens[12]);
+        Integer proteinPosition = numerator(tokens[13]);
+        Integer proteinLength = denominator(tokens[13]);
+        Integer distance = emptyToNullInteger(tokens[14]);
+        List<String> messages = Splitter.on("&").omitEmptyStrings().splitToList(tokens[15]);
 
         return new SnpEffVariantAnnotation(alternateAllele, effects, annotationImpact, geneName, geneId,
                                            featureType, featureId, biotype, rank, total, transcriptHgvs, proteinHgvs,
@@ -417,10 +431,8 @@ public final class SnpEffVariantAnnotation {
     public static List<SnpEffVariantAnnotation> annotate(final VcfRecord record) {
         checkNotNull(record);
         ImmutableList.Builder<SnpEffVariantAnnotation> builder = ImmutableList.builder();
-        for (String annotations : record.getInfo().get("ANN")) {
-            for (String annotation : Splitter.on(",").split(annotations.replace("ANN=", ""))) {
-                builder.add(valueOf(annotation));
-            }
+        for (String annotation : SnpEffAnnotations.split(record.getInfo().get("ANN"))) {
+            builder.add(valueOf(annotation));
         }
         return builder.build();
     }
@@ -0,0 +1,351 @@
+/*
+
+    dsh-bio-variant  Variants.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.variant.vcf;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import java.nio.charset.StandardCharsets;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import java.util.zip.GZIPInputStream;
+
+import com.google.common.io.LittleEndianDataInputStream;
+
+/**
+ * Tabix (<code>.tbi</code>) or coordinate-sorted index (<code>.csi</code>) binning index.
+ *
+ * @author  Michael Heuer
+ */
+final class BinningIndex {
+    /** Minimum shift, the log2 size of the smallest bin. */
+    private final int minShift;
+
+    /** Depth of the binning scheme. */
+    private final int depth;
+
+    /** Reference ids keyed by reference name. */
+    private final Map<String, Integer> references;
+
+    /** Chunks keyed by bin, per reference; each chunk a pair of begin and end virtual offsets. */
+    private final List<Map<Integer, long[]>> chunks;
+
+    /** Minimum virtual offsets keyed by bin, per reference (CSI). */
+    private final List<Map<Integer, Long>> binOffsets;
+
+    /** Linear index of minimum virtual offsets per window, per reference (tabix). */
+    private final List<long[]> linearOffsets;
+
+
+    /**
+     * Create a new binning index.
+     *
+     * @param minShift minimum shift
+     * @param depth depth
+     * @param references reference ids keyed by reference name
+     * @param chunks chunks keyed by bin, per reference
+     * @param binOffsets minimum virtual offsets keyed by bin, per reference, if any
+     * @param linearOffsets linear index, per reference, if any
+     */
+    private BinningIndex(final int minShift,
+                         final int depth,
+                         final Map<String, Integer> references,
+                         final List<Map<Integer, long[]>> chunks,
+                         final List<Map<Integer, Long>> binOffsets,
+                         final List<long[]> linearOffsets) {
+        this.minShift = minShift;
+        this.depth = depth;
+        this.references = references;
+        this.chunks = chunks;
+        this.binOffsets = binOffsets;
+        this.linearOffsets = linearOffsets;
+    }
+
+
+    /**
+     * Return the merged chunks that may contain records overlapping the specified
+     * region, in order.
+     *
+     * @param chrom chromosome, must not be null
+     * @param start start, 0-based inclusive
+     * @param end end, 0-based exclusive
+     * @return the merged chunks that may contain records overlapping the specified
+     *    region, in order, each a pair of begin and end virtual offsets
+     */
+    List<long[]> query(final String chrom, final long start, final long end) {
+        checkNotNull(chrom);
+        Integer ref = references.get(chrom);
+        if (ref == null || end <= start) {
+            return Collections.emptyList();
+        }
+        long beg = Math.max(0L, start);
+        long minOffset = minOffset(ref, beg);
+        Map<Integer, long[]> binChunks = chunks.get(ref);
+
+        List<long[]> result = new ArrayList<long[]>();
+        long last = end - 1L;
+        int s = minShift + depth * 3;
+        for (int level = 0, t = 0; level <= depth; s -= 3, t += 1 << (level * 3), level++) {
+            long b = t + (beg >> s);
+            long e = t + (last >> s);
+            for (long bin = b; bin <= e; bin++) {
+                long[] c = binChunks.get((int) bin);
+                if (c != null) {
+                    for (int i = 0; i < c.length; i += 2) {
+                        if (c[i + 1] > minOffset) {
+                            result.add(new long[] { c[i], c[i + 1] });
+                        }
+                    }
+                }
+            }
+        }
+        return merge(result);
+    }
+
+    /**
+     * Return the minimum virtual offset for records overlapping the specified position.
+     *
+     * @param ref reference id
+     * @param beg position, 0-based
+     * @return the minimum virtual offset for records overlapping the specified position
+     */
+    private long minOffset(final int ref, final long beg) {
+        if (linearOffsets != null) {
+            long[] offsets = linearOffsets.get(ref);
+            if (offsets.length == 0) {
+                return 0L;
+            }
+            int window = (int) Math.min(beg >> minShift, offsets.length - 1);
+            return offsets[window];
+        }
+        // walk from the smallest bin containing beg up to the root for the first bin present
+        Map<Integer, Long> offsets = binOffsets.get(ref);
+        long bin = ((1L << (depth * 3)) - 1L) / 7L + (beg >> minShift);
+        while (bin > 0) {
+            Long offset = offsets.get((int) bin);
+            if (offset != null) {
+                return offset;
+            }
+            bin = (bin - 1L) >> 3;
+        }
+        Long root = offsets.get(0);
+        return root == null ? 0L : root;
+    }
+
+    /**
+     * Sort and merge the specified chunks.
+     *
+     * @param chunks chunks to merge
+     * @return the specified chunks, sorted and merged
+     */
+    private static List<long[]> merge(final List<long[]> chunks) {
+        if (chunks.size() < 2) {
+            return chunks;
+        }
+        Collections.sort(chunks, new Comparator<long[]>() {
+                @Override
+                public int compare(final long[] c0, final long[] c1) {
+                    return Long.compareUnsigned(c0[0], c1[0]);
+                }
+            });
+        List<long[]> merged = new ArrayList<long[]>(chunks.size());
+        long[] current = chunks.get(0);
+        for (int i = 1, size = chunks.size(); i < size; i++) {
+            long[] chunk = chunks.get(i);
+            // merge overlapping chunks and chunks starting in the same block
+            if (Long.compareUnsigned(chunk[0], current[1]) <= 0 || (chunk[0] >>> 16) == (current[1] >>> 16)) {
+                if (Long.compareUnsigned(chunk[1], current[1]) > 0) {
+                    current[1] = chunk[1];
+                }
+            }
+            else {
+                merged.add(current);
+                current = chunk;
+            }
+        }
+        merged.add(current);
+        return merged;
+    }
+
+    /**
+     * Read a tabix (<code>.tbi</code>) or coordinate-sorted (<code>.csi</code>) index from the specified path.
+     *
+     * @param path path to read from, must not be null
+     * @param contigs contig names in header order, used if the index does not contain reference names, must not be null
+     * @return a binning index read from the specified path
+     * @throws IOException if an I/O error occurs
+     */
+    static BinningIndex read(final Path path, final List<String> contigs) throws IOException {
+        checkNotNull(path);
+        checkNotNull(contigs);
+        try (InputStream inputStream = new GZIPInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            LittleEndianDataInputStream in = new LittleEndianDataInputStream(inputStream);
+            byte[] magic = new byte[4];
+            in.readFully(magic);
+
+            if (magic[0] == 'T' && magic[1] == 'B' && magic[2] == 'I' && magic[3] == 1) {
+                int n = in.readInt();
+                List<String> names = readNames(in);
+                List<Map<Integer, long[]>> chunks = new ArrayList<Map<Integer, long[]>>(n);
+                List<long[]> linearOffsets = new ArrayList<long[]>(n);
+                for (int i = 0; i < n; i++) {
+                    int bins = in.readInt();
+                    Map<Integer, long[]> binChunks = new HashMap<Integer, long[]>(bins * 2);
+                    for (int j = 0; j < bins; j++) {
+                        int bin = in.readInt();
+                        binChunks.put(bin, readChunks(in));
+                    }
+                    chunks.add(binChunks);
+                    long[] offsets = new long[in.readInt()];
+                    for (int j = 0; j < offsets.length; j++) {
+                        offsets[j] = in.readLong();
+                    }
+                    linearOffsets.add(offsets);
+                }
+                return new BinningIndex(14, 5, references(names, n), chunks, null, linearOffsets);
+            }
+            else if (magic[0] == 'C' && magic[1] == 'S' && magic[2] == 'I' && magic[3] == 1) {
+                int minShift = in.readInt();
+                int depth = in.readInt();
+                int auxLength = in.readInt();
+                List<String> names = contigs;
+                if (auxLength >= 28) {
+                    names = readNames(in);
+                    skipFully(in, auxLength - 28 - namesLength(names));
+                }
+                else {
+                    skipFully(in, auxLength);
+                }
+                int n = in.readInt();
+                List<Map<Integer, long[]>> chunks = new ArrayList<Map<Integer, long[]>>(n);
+                List<Map<Integer, Long>> binOffsets = new ArrayList<Map<Integer, Long>>(n);
+                for (int i = 0; i < n; i++) {
+                    int bins = in.readInt();
+                    Map<Integer, long[]> binChunks = new HashMap<Integer, long[]>(bins * 2);
+                    Map<Integer, Long> offsets = new HashMap<Integer, Long>(bins * 2);
+                    for (int j = 0; j < bins; j++) {
+                        int bin = in.readInt();
+                        offsets.put(bin, in.readLong());
+                        binChunks.put(bin, readChunks(in));
+                    }
+                    chunks.add(binChunks);
+                    binOffsets.add(offsets);
+                }
+                return new BinningIndex(minShift, depth, references(names, n), chunks, binOffsets, null);
+            }
+            throw new IOException("invalid index " + path + ", expected tabix (.tbi) or CSI (.csi) magic");
+        }
+    }
+
+    /**
+     * Read the tabix header and reference names.
+     *
+     * @param in input to read from
+     * @return the reference names
+     * @throws IOException if an I/O error occurs
+     */
+    private static List<String> readNames(final LittleEndianDataInputStream in) throws IOException {
+        // format, col_seq, col_beg, col_end, meta, skip
+        skipFully(in, 24);
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        List<String> names = new ArrayList<String>();
+        for (int i = 0, start = 0; i < bytes.length; i++) {
+            if (bytes[i] == 0) {
+                names.add(new String(bytes, start, i - start, StandardCharsets.UTF_8));
+                start = i + 1;
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Return the length in bytes of the specified reference names, NUL-terminated.
+     *
+     * @param names reference names
+     * @return the length in bytes of the specified reference names, NUL-terminated
+     */
+    private static int namesLength(final List<String> names) {
+        int length = 0;
+        for (String name : names) {
+            length += name.getBytes(StandardCharsets.UTF_8).length + 1;
+        }
+        return length;
+    }
+
+    /**
+     * Read chunks.
+     *
+     * @param in input to read from
+     * @return the chunks, as pairs of begin and end virtual offsets
+     * @throws IOException if an I/O error occurs
+     */
+    private static long[] readChunks(final LittleEndianDataInputStream in) throws IOException {
+        long[] chunks = new long[2 * in.readInt()];
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = in.readLong();
+        }
+        return chunks;
+    }
+
+    /**
+     * Return reference ids keyed by reference name.
+     *
+     * @param names reference names
+     * @param n number of references in the index
+     * @return reference ids keyed by reference name
+     */
+    private static Map<String, Integer> references(final List<String> names, final int n) {
+        Map<String, Integer> references = new HashMap<String, Integer>(names.size() * 2);
+        for (int i = 0, size = Math.min(n, names.size()); i < size; i++) {
+            references.put(names.get(i), i);
+        }
+        return references;
+    }
+
+    /**
+     * Skip exactly the specified number of bytes.
+     *
+     * @param in input
+     * @param n number of bytes to skip
+     * @throws IOException if an I/O error occurs
+     */
+    private static void skipFully(final LittleEndianDataInputStream in, final int n) throws IOException {
+        if (n > 0) {
+            in.readFully(new byte[n]);
+        }
+    }
+}
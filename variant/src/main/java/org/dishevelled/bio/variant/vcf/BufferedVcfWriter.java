@@ -0,0 +1,417 @@
+/*
+
+    dsh-bio-variant  Variants.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.variant.vcf;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Buffered VCF writer.
+ *
+ * <p>
+ * Each VCF record is formatted directly into a reused character buffer, without intermediate
+ * strings, joiners, or boxed collections, and the buffer is written to the underlying writer in
+ * whole blocks.  Raw genotypes from VCF records read lazily are written through untouched if the
+ * samples are in the same order.  INFO key-value(s) pairs are written in record order.
+ * </p>
+ *
+ * <p>
+ * Output is not written to the underlying writer until the buffer fills or this writer is
+ * flushed or closed.
+ * </p>
+ *
+ * @author  Michael Heuer
+ */
+public final class BufferedVcfWriter implements Flushable, Closeable {
+    /** Default block size, in characters. */
+    static final int DEFAULT_BLOCK_SIZE = 65536;
+
+    /** Underlying writer. */
+    private final Writer writer;
+
+    /** Block size, in characters. */
+    private final int blockSize;
+
+    /** Reused character buffer. */
+    private char[] buffer;
+
+    /** Number of characters in the buffer. */
+    private int length = 0;
+
+    /** Samples last checked for the same order as raw genotype sample ids. */
+    private List<VcfSample> lastSamples;
+
+    /** Raw genotype sample ids last checked for the same order as samples. */
+    private String[] lastSampleIds;
+
+    /** True if the samples and raw genotype sample ids last checked are in the same order. */
+    private boolean lastSameOrder;
+
+
+    /**
+     * Create a new buffered VCF writer with the specified writer and default block size.
+     *
+     * @param writer writer to write VCF with, must not be null
+     */
+    public BufferedVcfWriter(final Writer writer) {
+        this(writer, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Create a new buffered VCF writer with the specified writer and block size.
+     *
+     * @param writer writer to write VCF with, must not be null
+     * @param blockSize block size, in characters, must be at least one
+     */
+    public BufferedVcfWriter(final Writer writer, final int blockSize) {
+        checkNotNull(writer);
+        checkArgument(blockSize > 0, "blockSize must be at least one");
+        this.writer = writer;
+        this.blockSize = blockSize;
+        this.buffer = new char[blockSize + 1024];
+    }
+
+
+    /**
+     * Write the specified VCF header.
+     *
+     * @param header VCF header, must not be null
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeHeader(final VcfHeader header) throws IOException {
+        checkNotNull(header);
+        for (String meta : header.getMeta()) {
+            append(meta);
+            newLine();
+        }
+    }
+
+    /**
+     * Write the VCF column header for the specified samples.
+     *
+     * @param samples zero or more VCF samples, must not be null
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeColumnHeader(final List<VcfSample> samples) throws IOException {
+        checkNotNull(samples);
+        append("#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO");
+        if (!samples.isEmpty()) {
+            append("\tFORMAT");
+        }
+        for (VcfSample sample : samples) {
+            append('\t');
+            append(sample.getId());
+        }
+        newLine();
+    }
+
+    /**
+     * Write the specified VCF record.
+     *
+     * @param samples zero or more VCF samples, must not be null
+     * @param record VCF record, must not be null
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeRecord(final List<VcfSample> samples, final VcfRecord record) throws IOException {
+        checkNotNull(samples);
+        checkNotNull(record);
+
+        append(record.getChrom());
+        append('\t');
+        append(record.getPos());
+        append('\t');
+        if (record.getId() == null || record.getId().length == 0) {
+            append('.');
+        }
+        else {
+            append(record.getId(), ';');
+        }
+        append('\t');
+        append(record.getRef());
+        append('\t');
+        append(record.getAlt(), ',');
+        append('\t');
+
+        Double qual = record.getQual();
+        if (qual == null || Double.isNaN(qual)) {
+            append('.');
+        }
+        else {
+            double q = qual.doubleValue();
+            if (q - (int) q == 0.0d) {
+                append((int) q);
+            }
+            else {
+                append(Double.toString(q));
+            }
+        }
+        append('\t');
+
+        if (record.getFilter() == null || record.getFilter().length == 0) {
+            append('.');
+        }
+        else {
+            append(record.getFilter(), ';');
+        }
+        append('\t');
+
+        if (record.getInfo().isEmpty()) {
+            append('.');
+        }
+        else {
+            boolean first = true;
+            for (Map.Entry<String, Collection<String>> entry : record.getInfo().asMap().entrySet()) {
+                if (!first) {
+                    append(';');
+                }
+                first = false;
+                append(entry.getKey());
+
+                // write key only for flags
+                Collection<String> values = entry.getValue();
+                if (values.size() == 1 && "true".equals(values.iterator().next())) {
+                    continue;
+                }
+                append('=');
+                append(values, ',');
+            }
+        }
+
+        if (!samples.isEmpty()) {
+            append('\t');
+            append(record.getFormat(), ':');
+
+            // write raw genotypes through untouched if samples are in the same order
+            String rawGenotypes = record.getRawGenotypes();
+            if (rawGenotypes != null && sameOrder(samples, record.getSamples())) {
+                append('\t');
+                append(rawGenotypes);
+            }
+            else {
+                Map<String, VcfGenotype> genotypes = record.getGenotypes();
+                for (VcfSample sample : samples) {
+                    append('\t');
+                    VcfGenotype genotype = genotypes.get(sample.getId());
+                    if (genotype == null) {
+                        append('.');
+                        continue;
+                    }
+                    String[] format = record.getFormat();
+                    for (int i = 0; i < format.length; i++) {
+                        if (i > 0) {
+                            append(':');
+                        }
+                        List<String> fieldValues = genotype.getFields().get(format[i]);
+                        if (fieldValues.isEmpty()) {
+                            append('.');
+                        }
+                        else {
+                            append(fieldValues, ',');
+                        }
+                    }
+                }
+            }
+        }
+        newLine();
+    }
+
+    /**
+     * Write the specified VCF records.
+     *
+     * @param samples zero or more VCF samples, must not be null
+     * @param records zero or more VCF records, must not be null
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeRecords(final List<VcfSample> samples, final Iterable<VcfRecord> records) throws IOException {
+        checkNotNull(samples);
+        checkNotNull(records);
+        for (VcfRecord record : records) {
+            writeRecord(samples, record);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writeBlock();
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            writeBlock();
+        }
+        finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Return true if the specified VCF samples and sample ids are in the same order, caching
+     * the result for the same instances.
+     *
+     * @param samples zero or more VCF samples
+     * @param sampleIds array of sample ids
+     * @return true if the specified VCF samples and sample ids are in the same order
+     */
+    private boolean sameOrder(final List<VcfSample> samples, final String[] sampleIds) {
+        if (samples != lastSamples || sampleIds != lastSampleIds) {
+            lastSamples = samples;
+            lastSampleIds = sampleIds;
+            lastSameOrder = samples.size() == sampleIds.length;
+            for (int i = 0; lastSameOrder && i < sampleIds.length; i++) {
+                lastSameOrder = sampleIds[i].equals(samples.get(i).getId());
+            }
+        }
+        return lastSameOrder;
+    }
+
+    /**
+     * Append a new line to the buffer, writing the buffer to the underlying writer
+     * if it holds at least one block.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    private void newLine() throws IOException {
+        append('\n');
+        if (length >= blockSize) {
+            writeBlock();
+        }
+    }
+
+    /**
+     * Write the buffer to the underlying writer.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    private void writeBlock() throws IOException {
+        if (length > 0) {
+            writer.write(buffer, 0, length);
+            length = 0;
+        }
+    }
+
+    /**
+     * Ensure the buffer has capacity for the specified number of additional characters.
+     *
+     * @param n number of additional characters
+     */
+    private void ensureCapacity(final int n) {
+        if (length + n > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + n));
+        }
+    }
+
+    /**
+     * Append the specified character to the buffer.
+     *
+     * @param c character
+     */
+    private void append(final char c) {
+        ensureCapacity(1);
+        buffer[length++] = c;
+    }
+
+    /**
+     * Append the specified string to the buffer.
+     *
+     * @param s string
+     */
+    private void append(final String s) {
+        int n = s.length();
+        ensureCapacity(n);
+        s.getChars(0, n, buffer, length);
+        length += n;
+    }
+
+    /**
+     * Append the specified values to the buffer, separated by the specified separator.
+     *
+     * @param values array of values
+     * @param separator separator
+     */
+    private void append(final String[] values, final char separator) {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                append(separator);
+            }
+            append(values[i]);
+        }
+    }
+
+    /**
+     * Append the specified values to the buffer, separated by the specified separator.
+     *
+     * @param values collection of values
+     * @param separator separator
+     */
+    private void append(final Collection<String> values, final char separator) {
+        boolean first = true;
+        for (String value : values) {
+            if (!first) {
+                append(separator);
+            }
+            first = false;
+            append(value);
+        }
+    }
+
+    /**
+     * Append the decimal digits of the specified value to the buffer.
+     *
+     * @param value value
+     */
+    private void append(final long value) {
+        if (value == Long.MIN_VALUE) {
+            append(Long.toString(value));
+            return;
+        }
+        ensureCapacity(20);
+        long v = value;
+        if (v < 0L) {
+            buffer[length++] = '-';
+            v = -v;
+        }
+        int digits = 1;
+        for (long p = 10L; digits < 19 && v >= p; p *= 10L) {
+            digits++;
+        }
+        int end = length + digits;
+        for (int i = end - 1; i >= length; i--) {
+            buffer[i] = (char) ('0' + (v % 10L));
+            v /= 10L;
+        }
+        length = end;
+    }
+}
@@ -0,0 +1,252 @@
+/*
+
+    dsh-bio-variant  Variants.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.variant.vcf;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+
+import java.nio.CharBuffer;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.dishevelled.bio.bgzf.BgzfReader;
+
+/**
+ * Indexed VCF parser, for region queries against bgzipped VCF files with a
+ * tabix (<code>.tbi</code>) or CSI (<code>.csi</code>) index.
+ *
+ * @author  Michael Heuer
+ */
+public final class IndexedVcfParser {
+    /** Number of VCF record lines parsed per batch. */
+    private static final int BATCH_SIZE = 256;
+
+
+    /**
+     * Private no-arg constructor.
+     */
+    private IndexedVcfParser() {
+        // empty
+    }
+
+
+    /**
+     * Return true if the specified path has a tabix (<code>.tbi</code>) or CSI (<code>.csi</code>)
+     * index next to it.
+     *
+     * @param path path, must not be null
+     * @return true if the specified path has a tabix (<code>.tbi</code>) or CSI (<code>.csi</code>)
+     *    index next to it
+     */
+    public static boolean isIndexed(final Path path) {
+        return indexPath(path) != null;
+    }
+
+    /**
+     * Stream the VCF records overlapping the specified region from the specified path,
+     * using its tabix (<code>.tbi</code>) or CSI (<code>.csi</code>) index.  The listener
+     * is notified of the VCF header and samples before any VCF records.  Line numbers of
+     * VCF records read by region query are relative to the start of each index chunk.
+     *
+     * @param path bgzipped VCF path, must not be null
+     * @param chrom chromosome, must not be null
+     * @param start start, 0-based inclusive
+     * @param end end, 0-based exclusive
+     * @param listener event based reader callback, must not be null
+     * @throws IOException if an I/O error occurs or no index is found
+     */
+    public static void query(final Path path,
+                             final String chrom,
+                             final long start,
+                             final long end,
+                             final VcfStreamListener listener) throws IOException {
+        checkNotNull(path);
+        checkNotNull(chrom);
+        checkNotNull(listener);
+
+        Path indexPath = indexPath(path);
+        if (indexPath == null) {
+            throw new IOException("no tabix (.tbi) or CSI (.csi) index found for " + path);
+        }
+
+        try (BgzfReader reader = new BgzfReader(path)) {
+            // read header lines
+            StringBuilder header = new StringBuilder();
+            String columnHeader = "";
+            List<String> contigs = new ArrayList<String>();
+            VcfSymbols symbols = new VcfSymbols();
+            String line = null;
+            while ((line = reader.readLine()) != null && (line.isEmpty() || line.charAt(0) == '#')) {
+                header.append(line).append('\n');
+                symbols.seed(line);
+                if (line.startsWith("#CHROM")) {
+                    columnHeader = line + "\n";
+                }
+                else if (line.startsWith("##contig=<ID=")) {
+                    int comma = line.indexOf(',', 13);
+                    contigs.add(line.substring(13, comma < 0 ? line.indexOf('>', 13) : comma));
+                }
+            }
+            StreamingVcfParser.stream(CharBuffer.wrap(header), listener);
+
+            BinningIndex index = BinningIndex.read(indexPath, contigs);
+            long lineNumber = columnHeader.isEmpty() ? 0L : -1L;
+            StringBuilder batch = new StringBuilder();
+            for (long[] c : index.query(chrom, start, end)) {
+                reader.seek(c[0]);
+                long lines = 0L;
+                int batchLines = 0;
+                batch.setLength(0);
+                batch.append(columnHeader);
+                boolean past = false;
+                while (!past && Long.compareUnsigned(reader.getVirtualOffset(), c[1]) < 0 && (line = reader.readLine()) != null) {
+                    if (!line.isEmpty() && line.charAt(0) != '#') {
+                        past = isPast(line, chrom, end);
+                        if (!past) {
+                            batch.append(line).append('\n');
+                            batchLines++;
+                        }
+                    }
+                    if (past || batchLines == BATCH_SIZE) {
+                        if (!records(batch, lineNumber + lines, symbols, chrom, start, end, listener)) {
+                            return;
+                        }
+                        lines += batchLines;
+                        batchLines = 0;
+                        batch.setLength(0);
+                        batch.append(columnHeader);
+                    }
+                }
+                if (past) {
+                    return;
+                }
+                if (batchLines > 0 && !records(batch, lineNumber + lines, symbols, chrom, start, end, listener)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Parse the specified batch of VCF record lines and notify the specified listener of
+     * those that overlap the specified region.
+     *
+     * @param batch batch of VCF record lines, preceded by the column header line if any
+     * @param lineNumber line number of the line preceding the first line in the batch
+     * @param symbols symbol table
+     * @param chrom chromosome
+     * @param start start, 0-based inclusive
+     * @param end end, 0-based exclusive
+     * @param listener event based reader callback
+     * @return false if a VCF record starting at or past the end of the region was found
+     * @throws IOException if an I/O error occurs
+     */
+    private static boolean records(final StringBuilder batch,
+                                   final long lineNumber,
+                                   final VcfSymbols symbols,
+                                   final String chrom,
+                                   final long start,
+                                   final long end,
+                                   final VcfStreamListener listener) throws IOException {
+        for (VcfRecord record : VcfRecordParser.records(CharBuffer.wrap(batch), false, lineNumber, symbols)) {
+            if (chrom.equals(record.getChrom())) {
+                long recordStart = record.getPos() - 1L;
+                if (recordStart >= end) {
+                    return false;
+                }
+                if (recordEnd(record) > start) {
+                    listener.record(record);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Return true if the specified VCF record line is on the specified chromosome and starts
+     * at or past the specified end, read from its <code>CHROM</code> and <code>POS</code>
+     * columns without parsing the rest of the line.
+     *
+     * @param line VCF record line
+     * @param chrom chromosome
+     * @param end end, 0-based exclusive
+     * @return true if the specified VCF record line is on the specified chromosome and starts
+     *    at or past the specified end
+     */
+    private static boolean isPast(final String line, final String chrom, final long end) {
+        int tab = line.indexOf('\t');
+        if (tab != chrom.length() || !line.startsWith(chrom)) {
+            return false;
+        }
+        long pos = 0L;
+        for (int i = tab + 1, length = line.length(); i < length; i++) {
+            char c = line.charAt(i);
+            if (c < '0' || c > '9') {
+                return c == '\t' && i > tab + 1 && pos - 1L >= end;
+            }
+            pos = pos * 10L + (c - '0');
+        }
+        return false;
+    }
+
+    /**
+     * Return the end of the specified VCF record, 0-based exclusive, from the <code>END</code>
+     * INFO field if present, otherwise from the length of the reference allele.
+     *
+     * @param record VCF record
+     * @return the end of the specified VCF record, 0-based exclusive
+     */
+    private static long recordEnd(final VcfRecord record) {
+        if (record.containsEnd()) {
+            return record.getEnd();
+        }
+        return record.getPos() - 1L + record.getRef().length();
+    }
+
+    /**
+     * Return the tabix (<code>.tbi</code>) or CSI (<code>.csi</code>) index path for the specified path, if any.
+     *
+     * @param path path, must not be null
+     * @return the tabix (<code>.tbi</code>) or CSI (<code>.csi</code>) index path for the specified path,
+     *    or <code>null</code> if no index exists
+     */
+    private static Path indexPath(final Path path) {
+        checkNotNull(path);
+        String fileName = path.getFileName().toString();
+        Path tbi = path.resolveSibling(fileName + ".tbi");
+        if (Files.isRegularFile(tbi)) {
+            return tbi;
+        }
+        Path csi = path.resolveSibling(fileName + ".csi");
+        if (Files.isRegularFile(csi)) {
+            return csi;
+        }
+        return null;
+    }
+}
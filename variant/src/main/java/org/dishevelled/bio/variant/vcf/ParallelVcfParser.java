@@ -0,0 +1,411 @@
+/*
+
+    dsh-bio-variant  Variants.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.variant.vcf;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+
+import java.nio.CharBuffer;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import java.util.function.Predicate;
+
+/**
+ * Parallel streaming VCF parser.
+ *
+ * <p>
+ * The calling thread reads batches of data lines from the readable and submits them to
+ * a pool of worker threads, which parse each batch into VCF records.  The calling thread
+ * then notifies the listener of the parsed VCF records in their original order, so listener
+ * callbacks need not be thread safe.  An optional predicate is evaluated by the worker threads
+ * after each batch is parsed, and only those VCF records accepted by it are passed to the listener,
+ * so the predicate must be thread safe.
+ * </p>
+ *
+ * @author  Michael Heuer
+ */
+public final class ParallelVcfParser {
+    /** Read buffer size. */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+
+    /**
+     * Private no-arg constructor.
+     */
+    private ParallelVcfParser() {
+        // empty
+    }
+
+
+    /**
+     * Stream the specified readable in parallel.
+     *
+     * @param readable readable, must not be null
+     * @param listener event based reader callback, must not be null
+     * @param threads number of parser threads, must be at least one
+     * @param batchSize number of data lines per batch, must be at least one
+     * @throws IOException if an I/O error occurs
+     */
+    public static void stream(final Readable readable,
+                              final VcfStreamListener listener,
+                              final int threads,
+                              final int batchSize) throws IOException {
+        stream(readable, listener, threads, batchSize, false);
+    }
+
+    /**
+     * Stream the specified readable in parallel.  If <code>lazy</code> is true, the raw genotypes
+     * for each VCF record are not parsed until the genotypes are first accessed.
+     *
+     * @param readable readable, must not be null
+     * @param listener event based reader callback, must not be null
+     * @param threads number of parser threads, must be at least one
+     * @param batchSize number of data lines per batch, must be at least one
+     * @param lazy true to parse genotypes lazily
+     * @throws IOException if an I/O error occurs
+     */
+    public static void stream(final Readable readable,
+                              final VcfStreamListener listener,
+                              final int threads,
+                              final int batchSize,
+                              final boolean lazy) throws IOException {
+        stream(readable, listener, threads, batchSize, lazy, null);
+    }
+
+    /**
+     * Stream the specified readable in parallel, notifying the listener of only those VCF records
+     * accepted by the specified predicate.  The predicate is evaluated by the parser threads and
+     * must be thread safe.  If <code>lazy</code> is true, the raw genotypes for each VCF record are
+     * not parsed until the genotypes are first accessed.
+     *
+     * @param readable readable, must not be null
+     * @param listener event based reader callback, must not be null
+     * @param threads number of parser threads, must be at least one
+     * @param batchSize number of data lines per batch, must be at least one
+     * @param lazy true to parse genotypes lazily
+     * @param predicate predicate evaluated against each VCF record by the parser threads, if any
+     * @throws IOException if an I/O error occurs
+     */
+    public static void stream(final Readable readable,
+                              final VcfStreamListener listener,
+                              final int threads,
+                              final int batchSize,
+                              final boolean lazy,
+                              final Predicate<VcfRecord> predicate) throws IOException {
+        checkNotNull(readable);
+        checkNotNull(listener);
+        checkArgument(threads > 0, "threads must be at least one");
+        checkArgument(batchSize > 0, "batchSize must be at least one");
+
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        try {
+            Pipeline pipeline = new Pipeline(listener, executorService, threads, batchSize, lazy, predicate);
+            CharBuffer buffer = CharBuffer.allocate(BUFFER_SIZE);
+            while (readable.read(buffer) != -1) {
+                buffer.flip();
+                pipeline.append(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.arrayOffset() + buffer.limit());
+                buffer.clear();
+            }
+            pipeline.finish();
+        }
+        finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * Pipeline.
+     */
+    private static final class Pipeline {
+        /** Event based reader callback. */
+        private final VcfStreamListener listener;
+
+        /** Executor service. */
+        private final ExecutorService executorService;
+
+        /** Maximum number of batches in flight. */
+        private final int maxPending;
+
+        /** Number of data lines per batch. */
+        private final int batchSize;
+
+        /** True to parse genotypes lazily. */
+        private final boolean lazy;
+
+        /** Predicate evaluated against each VCF record by the parser threads, if any. */
+        private final Predicate<VcfRecord> predicate;
+
+        /** Batches in flight, in order. */
+        private final Deque<Future<List<VcfRecord>>> pending = new ArrayDeque<Future<List<VcfRecord>>>();
+
+        /** Header lines. */
+        private final StringBuilder header = new StringBuilder();
+
+        /** Current header line. */
+        private final StringBuilder line = new StringBuilder();
+
+        /** Symbol table seeded from header lines, shared by all batches. */
+        private final VcfSymbols symbols = new VcfSymbols();
+
+        /** Column header line, prepended to each batch for sample names. */
+        private String columnHeader = "";
+
+        /** True while reading header lines. */
+        private boolean inHeader = true;
+
+        /** Current batch. */
+        private StringBuilder batch;
+
+        /** Number of data lines in the current batch. */
+        private int batchLines = 0;
+
+        /** Line number of the line preceding the current batch. */
+        private long batchLineNumber;
+
+        /** Number of lines read. */
+        private long lineNumber = 0L;
+
+
+        /**
+         * Create a new pipeline.
+         *
+         * @param listener event based reader callback
+         * @param executorService executor service
+         * @param threads number of parser threads
+         * @param batchSize number of data lines per batch
+         * @param lazy true to parse genotypes lazily
+         * @param predicate predicate evaluated against each VCF record by the parser threads, if any
+         */
+        private Pipeline(final VcfStreamListener listener,
+                         final ExecutorService executorService,
+                         final int threads,
+                         final int batchSize,
+                         final boolean lazy,
+                         final Predicate<VcfRecord> predicate) {
+            this.listener = listener;
+            this.executorService = executorService;
+            this.maxPending = 2 * threads;
+            this.batchSize = batchSize;
+            this.lazy = lazy;
+            this.predicate = predicate;
+        }
+
+
+        /**
+         * Append the specified range of characters.
+         *
+         * @param chars characters
+         * @param start start index, inclusive
+         * @param end end index, exclusive
+         * @throws IOException if an I/O error occurs
+         */
+        void append(final char[] chars, final int start, final int end) throws IOException {
+            int i = start;
+            while (i < end) {
+                int newline = i;
+                while (newline < end && chars[newline] != '\n') {
+                    newline++;
+                }
+                boolean complete = newline < end;
+                int next = complete ? newline + 1 : end;
+
+                if (inHeader) {
+                    line.append(chars, i, next - i);
+                    if (complete) {
+                        headerLine();
+                    }
+                }
+                else {
+                    batch.append(chars, i, next - i);
+                    if (complete) {
+                        dataLine();
+                    }
+                }
+                i = next;
+            }
+        }
+
+        /**
+         * Finish the pipeline, notifying the listener of all remaining VCF records.
+         *
+         * @throws IOException if an I/O error occurs
+         */
+        void finish() throws IOException {
+            if (inHeader) {
+                if (line.length() > 0) {
+                    headerLine();
+                }
+                if (inHeader) {
+                    endHeader();
+                }
+            }
+            if (batch != null && batch.length() > 0 && batch.charAt(batch.length() - 1) != '\n') {
+                batchLines++;
+            }
+            if (batchLines > 0) {
+                submit();
+            }
+            while (!pending.isEmpty()) {
+                next();
+            }
+        }
+
+        /**
+         * Process the current header line.
+         *
+         * @throws IOException if an I/O error occurs
+         */
+        private void headerLine() throws IOException {
+            if (line.length() > 0 && line.charAt(0) != '#' && line.charAt(0) != '\n' && line.charAt(0) != '\r') {
+                // first data line
+                endHeader();
+                batch.append(line);
+                line.setLength(0);
+                if (batch.charAt(batch.length() - 1) == '\n') {
+                    dataLine();
+                }
+                return;
+            }
+            lineNumber++;
+            if (line.length() > 6 && line.charAt(1) == 'C' && line.indexOf("#CHROM") == 0) {
+                columnHeader = line.toString();
+            }
+            else {
+                symbols.seed(line);
+            }
+            header.append(line);
+            line.setLength(0);
+        }
+
+        /**
+         * End the header, notifying the listener of the VCF header and samples.
+         *
+         * @throws IOException if an I/O error occurs
+         */
+        private void endHeader() throws IOException {
+            inHeader = false;
+            StreamingVcfParser.stream(CharBuffer.wrap(header), listener);
+            header.setLength(0);
+            startBatch();
+        }
+
+        /**
+         * Start a new batch.
+         */
+        private void startBatch() {
+            batch = new StringBuilder(columnHeader);
+            batchLines = 0;
+            batchLineNumber = columnHeader.isEmpty() ? lineNumber : lineNumber - 1L;
+        }
+
+        /**
+         * Process a data line in the current batch.
+         *
+         * @throws IOException if an I/O error occurs
+         */
+        private void dataLine() throws IOException {
+            lineNumber++;
+            batchLines++;
+            if (batchLines == batchSize) {
+                submit();
+                startBatch();
+            }
+        }
+
+        /**
+         * Submit the current batch for parsing and filtering.
+         *
+         * @throws IOException if an I/O error occurs
+         */
+        private void submit() throws IOException {
+            final String text = batch.toString();
+            final long offset = batchLineNumber;
+            pending.addLast(executorService.submit(new Callable<List<VcfRecord>>() {
+                    @Override
+                    public List<VcfRecord> call() throws IOException {
+                        List<VcfRecord> records = VcfRecordParser.records(CharBuffer.wrap(text), lazy, offset, symbols);
+                        if (predicate != null) {
+                            for (Iterator<VcfRecord> iterator = records.iterator(); iterator.hasNext(); ) {
+                                if (!predicate.test(iterator.next())) {
+                                    iterator.remove();
+                                }
+                            }
+                        }
+                        return records;
+                    }
+                }));
+
+            while (pending.size() > maxPending) {
+                next();
+            }
+        }
+
+        /**
+         * Notify the listener of the VCF records in the next batch, waiting for it to be parsed if necessary.
+         *
+         * @throws IOException if an I/O error occurs
+         */
+        private void next() throws IOException {
+            List<VcfRecord> records;
+            try {
+                records = pending.removeFirst().get();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                InterruptedIOException interruptedIOException = new InterruptedIOException("interrupted while parsing VCF records");
+                interruptedIOException.initCause(e);
+                throw interruptedIOException;
+            }
+            catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new IOException(cause);
+            }
+            for (VcfRecord record : records) {
+                listener.record(record);
+            }
+        }
+    }
+}
@@ -28,7 +28,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import java.io.IOException;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -57,13 +57,25 @@ public final class StreamingVcfParser {
      * @throws IOException if an I/O error occurs
      */
     public static void stream(final Readable readable, final VcfStreamListener listener) throws IOException {
+        stream(readable, listener, false);
+    }
+
+    /**
+     * Stream the specified readable.  If <code>lazy</code> is true, the raw genotypes
+     * for each VCF record are not parsed until the genotypes are first accessed.
+     *
+     * @param readable readable, must not be null
+     * @param listener event based reader callback, must not be null
+     * @param lazy true to parse genotypes lazily
+     * @throws IOException if an I/O error occurs
+     */
+    public static void stream(final Readable readable, final VcfStreamListener listener, final boolean lazy) throws IOException {
         checkNotNull(readable);
         checkNotNull(listener);
 
-        VcfParser.parse(readable, new VcfParseAdapter() {
-                /** VCF record builder. */
-                private final VcfRecord.Builder builder = VcfRecord.builder();
+        final VcfRecord.Builder builder = VcfRecord.builder();
 
+        VcfParseListener parseListener = new VcfParseAdapter() {
                 /** File format, e.g. <code>VCFv4.2</code>, the only required header field. */
                 private String fileFormat;
 
@@ -71,7 +83,7 @@ public final class StreamingVcfParser {
                 private List<String> meta = new ArrayList<String>();
 
                 /** VCF samples keyed by name. */
-                private Map<String, VcfSample> samples = new HashMap<String, VcfSample>();
+                private Map<String, VcfSample> samples = new LinkedHashMap<String, VcfSample>();
 
 
                 @Override
@@ -112,12 +124,13 @@ public final class StreamingVcfParser {
 
                 @Override
                 public void samples(final String... samples) throws IOException {
+                    // order samples by column, adding if missing in meta lines
+                    Map<String, VcfSample> ordered = new LinkedHashMap<String, VcfSample>();
                     for (String sample : samples) {
-                        // add if missing in meta lines
-                        if (!this.samples.containsKey(sample)) {
-                            this.samples.put(sample, new VcfSample(sample));
-                        }
+                        ordered.put(sample, this.samples.containsKey(sample) ? this.samples.get(sample) : new VcfSample(sample));
                     }
+                    ordered.putAll(this.samples);
+                    this.samples = ordered;
 
                     // at end of header lines, notify listener of header
                     listener.header(new VcfHeader(fileFormat, meta));
@@ -188,6 +201,13 @@ public final class StreamingVcfParser {
 
                     return true;
                 }
-            });
+            };
+
+        if (lazy) {
+            VcfParser.parse(readable, parseListener, builder);
+        }
+        else {
+            VcfParser.parse(readable, parseListener);
+        }
     }
 }
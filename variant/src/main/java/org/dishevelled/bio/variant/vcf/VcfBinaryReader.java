@@ -0,0 +1,498 @@
+/*
+
+    dsh-bio-variant  Variants.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.variant.vcf;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import static org.dishevelled.bio.variant.vcf.VcfBinaryWriter.GENOTYPES;
+import static org.dishevelled.bio.variant.vcf.VcfBinaryWriter.HEADER;
+import static org.dishevelled.bio.variant.vcf.VcfBinaryWriter.MAGIC;
+import static org.dishevelled.bio.variant.vcf.VcfBinaryWriter.MAX_DICTIONARY_SIZE;
+import static org.dishevelled.bio.variant.vcf.VcfBinaryWriter.RAW_GENOTYPES;
+import static org.dishevelled.bio.variant.vcf.VcfBinaryWriter.RECORD;
+import static org.dishevelled.bio.variant.vcf.VcfBinaryWriter.SAMPLE;
+import static org.dishevelled.bio.variant.vcf.VcfBinaryWriter.VERSION;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import java.nio.charset.StandardCharsets;
+
+import java.nio.file.Path;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * VCF binary reader, reads VCF records in the binary spill format written by {@link VcfBinaryWriter}.
+ *
+ * @author  Michael Heuer
+ */
+public final class VcfBinaryReader {
+    /** Input stream. */
+    private final InputStream inputStream;
+
+    /** Dictionary of strings by index. */
+    private final List<String> dictionary = new ArrayList<String>();
+
+    /** Reusable VCF record builder. */
+    private final VcfRecord.Builder builder = VcfRecord.builder();
+
+    /** Reusable frame payload buffer. */
+    private byte[] buffer = new byte[4096];
+
+    /** Position in the current frame payload. */
+    private int position;
+
+    /** Length of the current frame payload. */
+    private int length;
+
+
+    /**
+     * Create a new VCF binary reader with the specified input stream.
+     *
+     * @param inputStream input stream
+     */
+    private VcfBinaryReader(final InputStream inputStream) {
+        this.inputStream = inputStream;
+    }
+
+
+    /**
+     * Stream frames to the specified listener.
+     *
+     * @param listener event based reader callback
+     * @throws IOException if an I/O error occurs
+     */
+    private void stream(final VcfStreamListener listener) throws IOException {
+        int first = inputStream.read();
+        if (first == -1) {
+            return;
+        }
+        if (first != MAGIC[0] || inputStream.read() != MAGIC[1] || inputStream.read() != MAGIC[2] || inputStream.read() != MAGIC[3]) {
+            throw new IOException("invalid VCF binary format, magic number not found");
+        }
+        int version = inputStream.read();
+        if (version != VERSION) {
+            throw new IOException("unsupported VCF binary format version " + version);
+        }
+        int type;
+        while ((type = inputStream.read()) != -1) {
+            readFrame();
+            switch (type) {
+            case HEADER:
+                listener.header(readHeader());
+                break;
+            case SAMPLE:
+                listener.sample(readSample());
+                break;
+            case RECORD:
+                listener.record(readRecord());
+                break;
+            default:
+                throw new IOException("invalid VCF binary format, unknown frame type " + type);
+            }
+            if (position != length) {
+                throw new IOException("invalid VCF binary format, frame length " + length + " does not match payload length " + position);
+            }
+        }
+    }
+
+    /**
+     * Read the next frame payload from the input stream.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    private void readFrame() throws IOException {
+        int n = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = inputStream.read();
+            if (b == -1) {
+                throw new EOFException("unexpected end of VCF binary format stream");
+            }
+            if (shift > 28) {
+                throw new IOException("invalid VCF binary format, frame length too long");
+            }
+            n |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                break;
+            }
+        }
+        if (n > buffer.length) {
+            buffer = new byte[Math.max(n, buffer.length * 2)];
+        }
+        int offset = 0;
+        while (offset < n) {
+            int read = inputStream.read(buffer, offset, n - offset);
+            if (read == -1) {
+                throw new EOFException("unexpected end of VCF binary format stream");
+            }
+            offset += read;
+        }
+        position = 0;
+        length = n;
+    }
+
+    /**
+     * Read a VCF header from the current frame payload.
+     *
+     * @return a VCF header read from the current frame payload
+     * @throws IOException if an I/O error occurs
+     */
+    private VcfHeader readHeader() throws IOException {
+        String fileFormat = readString();
+        int n = readVarint();
+        List<String> meta = new ArrayList<String>(n);
+        for (int i = 0; i < n; i++) {
+            meta.add(readString());
+        }
+        return new VcfHeader(fileFormat, meta);
+    }
+
+    /**
+     * Read a VCF sample from the current frame payload.
+     *
+     * @return a VCF sample read from the current frame payload
+     * @throws IOException if an I/O error occurs
+     */
+    private VcfSample readSample() throws IOException {
+        String id = readString();
+        int n = readVarint();
+        VcfGenome[] genomes = new VcfGenome[n];
+        for (int i = 0; i < n; i++) {
+            String genomeId = readString();
+            double mixture = Double.longBitsToDouble(readLong());
+            String description = readString();
+            genomes[i] = new VcfGenome(genomeId, mixture, description);
+        }
+        return new VcfSample(id, genomes);
+    }
+
+    /**
+     * Read a VCF record from the current frame payload.
+     *
+     * @return a VCF record read from the current frame payload
+     * @throws IOException if an I/O error occurs
+     */
+    private VcfRecord readRecord() throws IOException {
+        builder.reset();
+        builder.withLineNumber(readSignedVarlong());
+        builder.withChrom(readSymbol());
+        builder.withPos(readSignedVarlong());
+        builder.withId(readStrings());
+        String ref = readString();
+        builder.withRef(ref);
+        builder.withAlt(readStrings());
+        if (readByte() != 0) {
+            builder.withQual(Double.longBitsToDouble(readLong()));
+        }
+        builder.withFilter(readSymbols());
+
+        int infoKeys = readVarint();
+        for (int i = 0; i < infoKeys; i++) {
+            String key = readSymbol();
+            String[] values = new String[readVarint()];
+            for (int j = 0; j < values.length; j++) {
+                values[j] = readString();
+            }
+            builder.withInfo(key, values);
+        }
+        builder.withFormat(readSymbols());
+
+        int genotypes = readByte();
+        if (genotypes == RAW_GENOTYPES) {
+            String[] samples = new String[readVarint()];
+            for (int i = 0; i < samples.length; i++) {
+                samples[i] = readSymbol();
+            }
+            builder.withRawGenotypes(samples, readString());
+        }
+        else if (genotypes == GENOTYPES) {
+            int n = readVarint();
+            for (int i = 0; i < n; i++) {
+                String sampleId = readSymbol();
+                int fields = readVarint();
+                for (int j = 0; j < fields; j++) {
+                    String formatId = readSymbol();
+                    String[] values = new String[readVarint()];
+                    for (int k = 0; k < values.length; k++) {
+                        values[k] = readString();
+                    }
+                    builder.withGenotype(sampleId, formatId, values);
+                }
+            }
+        }
+        else {
+            throw new IOException("invalid VCF binary format, unknown genotypes type " + genotypes);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Read a byte from the current frame payload.
+     *
+     * @return a byte read from the current frame payload, as an unsigned value
+     * @throws IOException if an I/O error occurs
+     */
+    private int readByte() throws IOException {
+        if (position >= length) {
+            throw new IOException("invalid VCF binary format, read past end of frame");
+        }
+        return buffer[position++] & 0xff;
+    }
+
+    /**
+     * Read a long from the current frame payload, as eight big-endian bytes.
+     *
+     * @return a long read from the current frame payload
+     * @throws IOException if an I/O error occurs
+     */
+    private long readLong() throws IOException {
+        long value = 0L;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | readByte();
+        }
+        return value;
+    }
+
+    /**
+     * Read an unsigned varint from the current frame payload.
+     *
+     * @return an unsigned varint read from the current frame payload
+     * @throws IOException if an I/O error occurs
+     */
+    private long readVarlong() throws IOException {
+        long value = 0L;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("invalid VCF binary format, varint too long");
+    }
+
+    /**
+     * Read an unsigned varint int from the current frame payload.
+     *
+     * @return an unsigned varint int read from the current frame payload
+     * @throws IOException if an I/O error occurs
+     */
+    private int readVarint() throws IOException {
+        long value = readVarlong();
+        if (value > Integer.MAX_VALUE) {
+            throw new IOException("invalid VCF binary format, varint " + value + " out of range");
+        }
+        return (int) value;
+    }
+
+    /**
+     * Read a zig-zag encoded varint from the current frame payload.
+     *
+     * @return a zig-zag encoded varint read from the current frame payload
+     * @throws IOException if an I/O error occurs
+     */
+    private long readSignedVarlong() throws IOException {
+        long value = readVarlong();
+        return (value >>> 1) ^ -(value & 1L);
+    }
+
+    /**
+     * Read a string from the current frame payload.
+     *
+     * @return a string read from the current frame payload, or <code>null</code> if missing
+     * @throws IOException if an I/O error occurs
+     */
+    private String readString() throws IOException {
+        int n = readVarint();
+        if (n == 0) {
+            return null;
+        }
+        n--;
+        if (n > length - position) {
+            throw new IOException("invalid VCF binary format, read past end of frame");
+        }
+        String value = new String(buffer, position, n, StandardCharsets.UTF_8);
+        position += n;
+        return value;
+    }
+
+    /**
+     * Read an array of strings from the current frame payload.
+     *
+     * @return an array of strings read from the current frame payload, or <code>null</code> if missing
+     * @throws IOException if an I/O error occurs
+     */
+    private String[] readStrings() throws IOException {
+        int n = readVarint();
+        if (n == 0) {
+            return null;
+        }
+        String[] values = new String[n - 1];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = readString();
+        }
+        return values;
+    }
+
+    /**
+     * Read a dictionary encoded string from the current frame payload.
+     *
+     * @return a dictionary encoded string read from the current frame payload
+     * @throws IOException if an I/O error occurs
+     */
+    private String readSymbol() throws IOException {
+        int index = readVarint();
+        if (index > 0) {
+            if (index > dictionary.size()) {
+                throw new IOException("invalid VCF binary format, dictionary index " + index + " out of range");
+            }
+            return dictionary.get(index - 1);
+        }
+        String value = readString();
+        if (dictionary.size() < MAX_DICTIONARY_SIZE) {
+            dictionary.add(value);
+        }
+        return value;
+    }
+
+    /**
+     * Read an array of dictionary encoded strings from the current frame payload.
+     *
+     * @return an array of dictionary encoded strings read from the current frame payload,
+     *    or <code>null</code> if missing
+     * @throws IOException if an I/O error occurs
+     */
+    private String[] readSymbols() throws IOException {
+        int n = readVarint();
+        if (n == 0) {
+            return null;
+        }
+        String[] values = new String[n - 1];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = readSymbol();
+        }
+        return values;
+    }
+
+
+    /**
+     * Stream VCF in binary format from the specified input stream.
+     *
+     * @param inputStream input stream to read from, must not be null
+     * @param listener event based reader callback, must not be null
+     * @throws IOException if an I/O error occurs
+     */
+    public static void stream(final InputStream inputStream, final VcfStreamListener listener) throws IOException {
+        checkNotNull(inputStream);
+        checkNotNull(listener);
+        InputStream buffered = (inputStream instanceof BufferedInputStream) ? inputStream : new BufferedInputStream(inputStream, 65536);
+        new VcfBinaryReader(buffered).stream(listener);
+    }
+
+    /**
+     * Read the VCF header in binary format from the specified input stream.
+     *
+     * @param inputStream input stream to read from, must not be null
+     * @return the VCF header read from the specified input stream, or <code>null</code> if none
+     * @throws IOException if an I/O error occurs
+     */
+    public static VcfHeader header(final InputStream inputStream) throws IOException {
+        final VcfHeader[] header = new VcfHeader[1];
+        stream(inputStream, new VcfStreamAdapter() {
+                @Override
+                public void header(final VcfHeader h) {
+                    header[0] = h;
+                }
+            });
+        return header[0];
+    }
+
+    /**
+     * Read zero or more VCF samples in binary format from the specified input stream.
+     *
+     * @param inputStream input stream to read from, must not be null
+     * @return zero or more VCF samples read from the specified input stream
+     * @throws IOException if an I/O error occurs
+     */
+    public static Iterable<VcfSample> samples(final InputStream inputStream) throws IOException {
+        final List<VcfSample> samples = new ArrayList<VcfSample>();
+        stream(inputStream, new VcfStreamAdapter() {
+                @Override
+                public void sample(final VcfSample sample) {
+                    samples.add(sample);
+                }
+            });
+        return samples;
+    }
+
+    /**
+     * Read zero or more VCF records in binary format from the specified input stream.
+     *
+     * @param inputStream input stream to read from, must not be null
+     * @return zero or more VCF records read from the specified input stream
+     * @throws IOException if an I/O error occurs
+     */
+    public static Iterable<VcfRecord> records(final InputStream inputStream) throws IOException {
+        final List<VcfRecord> records = new ArrayList<VcfRecord>();
+        stream(inputStream, new VcfStreamAdapter() {
+                @Override
+                public void record(final VcfRecord record) {
+                    records.add(record);
+                }
+            });
+        return records;
+    }
+
+    /**
+     * Read zero or more VCF records in binary format from the specified file.
+     *
+     * @param file file to read from, must not be null
+     * @return zero or more VCF records read from the specified file
+     * @throws IOException if an I/O error occurs
+     */
+    public static Iterable<VcfRecord> records(final File file) throws IOException {
+        checkNotNull(file);
+        try (InputStream inputStream = new FileInputStream(file)) {
+            return records(inputStream);
+        }
+    }
+
+    /**
+     * Read zero or more VCF records in binary format from the specified path.
+     *
+     * @param path path to read from, must not be null
+     * @return zero or more VCF records read from the specified path
+     * @throws IOException if an I/O error occurs
+     */
+    public static Iterable<VcfRecord> records(final Path path) throws IOException {
+        checkNotNull(path);
+        return records(path.toFile());
+    }
+}
@@ -0,0 +1,448 @@
+/*
+
+    dsh-bio-variant  Variants.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.variant.vcf;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import java.nio.charset.StandardCharsets;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.ListMultimap;
+
+/**
+ * VCF binary writer, writes VCF records in a compact binary spill format that can be read
+ * back by {@link VcfBinaryReader} without parsing VCF text.
+ *
+ * <p>
+ * The binary format is a magic number and version followed by a sequence of frames, each
+ * a frame type byte, a varint payload length, and the payload for a VCF header, a VCF sample,
+ * or a VCF record.  Integers are written as unsigned or zig-zag encoded varints, strings as a
+ * varint UTF-8 length plus one (zero for <code>null</code>) followed by UTF-8 bytes.  CHROM,
+ * FILTER, INFO key, FORMAT key, and sample id strings are dictionary encoded, as a varint
+ * dictionary index plus one, or zero followed by the string for its first occurrence, so
+ * frames must be read in the order they were written.  Raw genotypes from VCF records read
+ * lazily are written through without decoding.
+ * </p>
+ *
+ * <p>
+ * Since {@link VcfStreamListener} methods do not throw checked exceptions, the first I/O error
+ * caught while writing is rethrown by {@link #flush()} and {@link #close()}.
+ * </p>
+ *
+ * @author  Michael Heuer
+ */
+public final class VcfBinaryWriter implements VcfStreamListener, Flushable, Closeable {
+    /** Magic number, <code>VCFB</code>. */
+    static final byte[] MAGIC = new byte[] { 'V', 'C', 'F', 'B' };
+
+    /** Format version. */
+    static final int VERSION = 1;
+
+    /** Header frame type. */
+    static final int HEADER = 1;
+
+    /** Sample frame type. */
+    static final int SAMPLE = 2;
+
+    /** Record frame type. */
+    static final int RECORD = 3;
+
+    /** Decoded genotypes. */
+    static final int GENOTYPES = 0;
+
+    /** Raw genotypes. */
+    static final int RAW_GENOTYPES = 1;
+
+    /** Maximum dictionary size, strings are written inline once the dictionary is full. */
+    static final int MAX_DICTIONARY_SIZE = 65536;
+
+    /** Output stream. */
+    private final OutputStream outputStream;
+
+    /** Dictionary of string indices keyed by string. */
+    private final Map<String, Integer> dictionary = new HashMap<String, Integer>();
+
+    /** Reusable frame payload buffer. */
+    private byte[] buffer = new byte[4096];
+
+    /** Length of the current frame payload. */
+    private int length = 0;
+
+    /** True if the magic number and version have been written. */
+    private boolean started = false;
+
+    /** First I/O error caught while writing, if any. */
+    private IOException error;
+
+
+    /**
+     * Create a new VCF binary writer with the specified output stream.
+     *
+     * @param outputStream output stream to write to, must not be null
+     */
+    public VcfBinaryWriter(final OutputStream outputStream) {
+        checkNotNull(outputStream);
+        this.outputStream = (outputStream instanceof BufferedOutputStream) ? outputStream : new BufferedOutputStream(outputStream, 65536);
+    }
+
+
+    @Override
+    public void header(final VcfHeader header) {
+        checkNotNull(header);
+        length = 0;
+        writeString(header.getFileFormat());
+        List<String> meta = header.getMeta();
+        writeVarint(meta.size());
+        for (String m : meta) {
+            writeString(m);
+        }
+        writeFrame(HEADER);
+    }
+
+    @Override
+    public void sample(final VcfSample sample) {
+        checkNotNull(sample);
+        length = 0;
+        writeString(sample.getId());
+        VcfGenome[] genomes = sample.getGenomes();
+        writeVarint(genomes.length);
+        for (VcfGenome genome : genomes) {
+            writeString(genome.getId());
+            writeLong(Double.doubleToLongBits(genome.getMixture()));
+            writeString(genome.getDescription());
+        }
+        writeFrame(SAMPLE);
+    }
+
+    @Override
+    public void record(final VcfRecord record) {
+        checkNotNull(record);
+        length = 0;
+        writeSignedVarlong(record.getLineNumber());
+        writeSymbol(record.getChrom());
+        writeSignedVarlong(record.getPos());
+        writeStrings(record.getId());
+        writeString(record.getRef());
+        writeStrings(record.getAlt());
+        if (record.getQual() == null) {
+            writeByte(0);
+        }
+        else {
+            writeByte(1);
+            writeLong(Double.doubleToLongBits(record.getQual()));
+        }
+        writeSymbols(record.getFilter());
+
+        ListMultimap<String, String> info = record.getInfo();
+        writeVarint(info.keySet().size());
+        for (Map.Entry<String, Collection<String>> entry : info.asMap().entrySet()) {
+            writeSymbol(entry.getKey());
+            writeVarint(entry.getValue().size());
+            for (String value : entry.getValue()) {
+                writeString(value);
+            }
+        }
+        writeSymbols(record.getFormat());
+
+        // write raw genotypes through without decoding
+        if (record.getRawGenotypes() != null) {
+            writeByte(RAW_GENOTYPES);
+            String[] samples = record.getSamples();
+            writeVarint(samples.length);
+            for (String sample : samples) {
+                writeSymbol(sample);
+            }
+            writeString(record.getRawGenotypes());
+        }
+        else {
+            writeByte(GENOTYPES);
+            Map<String, VcfGenotype> genotypes = record.getGenotypes();
+            writeVarint(genotypes.size());
+            for (Map.Entry<String, VcfGenotype> entry : genotypes.entrySet()) {
+                writeSymbol(entry.getKey());
+                ListMultimap<String, String> fields = entry.getValue().getFields();
+                writeVarint(fields.keySet().size());
+                for (Map.Entry<String, Collection<String>> field : fields.asMap().entrySet()) {
+                    writeSymbol(field.getKey());
+                    writeVarint(field.getValue().size());
+                    for (String value : field.getValue()) {
+                        writeString(value);
+                    }
+                }
+            }
+        }
+        writeFrame(RECORD);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        checkError();
+        outputStream.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            checkError();
+            outputStream.flush();
+        }
+        finally {
+            outputStream.close();
+        }
+    }
+
+    /**
+     * Throw the first I/O error caught while writing, if any.
+     *
+     * @throws IOException if an I/O error was caught while writing
+     */
+    private void checkError() throws IOException {
+        if (error != null) {
+            IOException e = error;
+            error = null;
+            throw e;
+        }
+    }
+
+    /**
+     * Write the current frame payload with the specified frame type to the output stream.
+     *
+     * @param type frame type
+     */
+    private void writeFrame(final int type) {
+        if (error != null) {
+            return;
+        }
+        try {
+            if (!started) {
+                outputStream.write(MAGIC);
+                outputStream.write(VERSION);
+                started = true;
+            }
+            outputStream.write(type);
+            int value = length;
+            while ((value & ~0x7f) != 0) {
+                outputStream.write((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            outputStream.write(value);
+            outputStream.write(buffer, 0, length);
+        }
+        catch (IOException e) {
+            error = e;
+        }
+    }
+
+    /**
+     * Ensure the frame payload buffer has capacity for the specified number of additional bytes.
+     *
+     * @param n number of additional bytes
+     */
+    private void ensureCapacity(final int n) {
+        if (length + n > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + n));
+        }
+    }
+
+    /**
+     * Write the specified byte to the frame payload.
+     *
+     * @param value byte value
+     */
+    private void writeByte(final int value) {
+        ensureCapacity(1);
+        buffer[length++] = (byte) value;
+    }
+
+    /**
+     * Write the specified long to the frame payload as eight big-endian bytes.
+     *
+     * @param value long value
+     */
+    private void writeLong(final long value) {
+        ensureCapacity(8);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            buffer[length++] = (byte) (value >>> shift);
+        }
+    }
+
+    /**
+     * Write the specified non-negative int to the frame payload as an unsigned varint.
+     *
+     * @param value int value
+     */
+    private void writeVarint(final int value) {
+        writeVarlong(value & 0xffffffffL);
+    }
+
+    /**
+     * Write the specified long to the frame payload as an unsigned varint.
+     *
+     * @param value long value
+     */
+    private void writeVarlong(final long value) {
+        ensureCapacity(10);
+        long v = value;
+        while ((v & ~0x7fL) != 0L) {
+            buffer[length++] = (byte) ((v & 0x7f) | 0x80);
+            v >>>= 7;
+        }
+        buffer[length++] = (byte) v;
+    }
+
+    /**
+     * Write the specified long to the frame payload as a zig-zag encoded varint.
+     *
+     * @param value long value
+     */
+    private void writeSignedVarlong(final long value) {
+        writeVarlong((value << 1) ^ (value >> 63));
+    }
+
+    /**
+     * Write the specified string to the frame payload.
+     *
+     * @param value string value, if any
+     */
+    private void writeString(final String value) {
+        if (value == null) {
+            writeByte(0);
+            return;
+        }
+        int n = value.length();
+        boolean ascii = true;
+        for (int i = 0; i < n; i++) {
+            if (value.charAt(i) >= 0x80) {
+                ascii = false;
+                break;
+            }
+        }
+        if (ascii) {
+            writeVarint(n + 1);
+            ensureCapacity(n);
+            for (int i = 0; i < n; i++) {
+                buffer[length++] = (byte) value.charAt(i);
+            }
+        }
+        else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(bytes.length + 1);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, length, bytes.length);
+            length += bytes.length;
+        }
+    }
+
+    /**
+     * Write the specified array of strings to the frame payload.
+     *
+     * @param values array of string values, if any
+     */
+    private void writeStrings(final String[] values) {
+        if (values == null) {
+            writeByte(0);
+            return;
+        }
+        writeVarint(values.length + 1);
+        for (String value : values) {
+            writeString(value);
+        }
+    }
+
+    /**
+     * Write the specified string to the frame payload, dictionary encoded.
+     *
+     * @param value string value
+     */
+    private void writeSymbol(final String value) {
+        Integer index = dictionary.get(value);
+        if (index != null) {
+            writeVarint(index + 1);
+        }
+        else {
+            writeByte(0);
+            writeString(value);
+            if (dictionary.size() < MAX_DICTIONARY_SIZE) {
+                dictionary.put(value, dictionary.size());
+            }
+        }
+    }
+
+    /**
+     * Write the specified array of strings to the frame payload, dictionary encoded.
+     *
+     * @param values array of string values, if any
+     */
+    private void writeSymbols(final String[] values) {
+        if (values == null) {
+            writeByte(0);
+            return;
+        }
+        writeVarint(values.length + 1);
+        for (String value : values) {
+            writeSymbol(value);
+        }
+    }
+
+
+    /**
+     * Write VCF in binary format to the specified output stream.
+     *
+     * @param header VCF header, must not be null
+     * @param samples zero or more VCF samples, must not be null
+     * @param records zero or more VCF records, must not be null
+     * @param outputStream output stream to write to, must not be null
+     * @throws IOException if an I/O error occurs
+     */
+    public static void write(final VcfHeader header,
+                             final List<VcfSample> samples,
+                             final Iterable<VcfRecord> records,
+                             final OutputStream outputStream) throws IOException {
+        checkNotNull(header);
+        checkNotNull(samples);
+        checkNotNull(records);
+        checkNotNull(outputStream);
+
+        VcfBinaryWriter writer = new VcfBinaryWriter(outputStream);
+        writer.header(header);
+        for (VcfSample sample : samples) {
+            writer.sample(sample);
+        }
+        for (VcfRecord record : records) {
+            writer.record(record);
+        }
+        writer.flush();
+    }
+}
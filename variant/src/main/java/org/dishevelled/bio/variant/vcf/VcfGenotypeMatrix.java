@@ -0,0 +1,961 @@
+/*
+
+    dsh-bio-variant  Variants.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.variant.vcf;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkElementIndex;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.annotation.concurrent.Immutable;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Compact columnar genotype matrix, with diploid genotype calls packed into
+ * two bits per sample, phasing packed into one bit per sample, and optional
+ * DP and GQ values stored as short and byte arrays per variant.
+ *
+ * <p>
+ * Genotype calls are coded by the count of non-reference alleles, as
+ * {@link #HOM_REF}, {@link #HET}, {@link #HOM_ALT}, or {@link #MISSING}.
+ * Haploid calls are coded as homozygous, and calls with any missing allele
+ * or with ploidy greater than two are coded as missing.  Summaries for
+ * multi-allelic variants treat all alternate alleles as a single
+ * non-reference allele.
+ * </p>
+ *
+ * @author  Michael Heuer
+ */
+@Immutable
+public final class VcfGenotypeMatrix {
+    /** Homozygous reference genotype code. */
+    public static final int HOM_REF = 0;
+
+    /** Heterozygous genotype code. */
+    public static final int HET = 1;
+
+    /** Homozygous alternate genotype code. */
+    public static final int HOM_ALT = 2;
+
+    /** Missing genotype code. */
+    public static final int MISSING = 3;
+
+    /** Missing DP or GQ value. */
+    public static final int MISSING_VALUE = -1;
+
+    /** Counts of genotype codes for each possible byte of packed genotype codes, eight bits per code. */
+    private static final int[] CODE_COUNTS = new int[256];
+
+    static {
+        for (int b = 0; b < 256; b++) {
+            int counts = 0;
+            for (int shift = 0; shift < 8; shift += 2) {
+                counts += 1 << (((b >> shift) & 3) * 8);
+            }
+            CODE_COUNTS[b] = counts;
+        }
+    }
+
+    /** Sample ids, in column order. */
+    private final List<String> samples;
+
+    /** Chromosome for each variant. */
+    private final List<String> chroms;
+
+    /** Position for each variant. */
+    private final long[] positions;
+
+    /** Ids for each variant. */
+    private final List<String[]> ids;
+
+    /** Reference allele for each variant. */
+    private final List<String> refs;
+
+    /** Alternate alleles for each variant. */
+    private final List<String[]> alts;
+
+    /** Packed genotype codes for each variant, two bits per sample. */
+    private final List<byte[]> genotypes;
+
+    /** Packed phasing for each variant, one bit per sample. */
+    private final List<byte[]> phasing;
+
+    /** DP values for each variant, if any. */
+    private final List<short[]> dp;
+
+    /** GQ values for each variant, if any. */
+    private final List<byte[]> gq;
+
+
+    /**
+     * Create a new VCF genotype matrix.
+     *
+     * @param samples sample ids, in column order
+     * @param chroms chromosome for each variant
+     * @param positions position for each variant
+     * @param ids ids for each variant
+     * @param refs reference allele for each variant
+     * @param alts alternate alleles for each variant
+     * @param genotypes packed genotype codes for each variant
+     * @param phasing packed phasing for each variant
+     * @param dp DP values for each variant, if any
+     * @param gq GQ values for each variant, if any
+     */
+    private VcfGenotypeMatrix(final List<String> samples,
+                              final List<String> chroms,
+                              final long[] positions,
+                              final List<String[]> ids,
+                              final List<String> refs,
+                              final List<String[]> alts,
+                              final List<byte[]> genotypes,
+                              final List<byte[]> phasing,
+                              final List<short[]> dp,
+                              final List<byte[]> gq) {
+        this.samples = ImmutableList.copyOf(samples);
+        this.chroms = chroms;
+        this.positions = positions;
+        this.ids = ids;
+        this.refs = refs;
+        this.alts = alts;
+        this.genotypes = genotypes;
+        this.phasing = phasing;
+        this.dp = dp;
+        this.gq = gq;
+    }
+
+
+    /**
+     * Return the sample ids for this VCF genotype matrix, in column order.
+     *
+     * @return the sample ids for this VCF genotype matrix, in column order
+     */
+    public List<String> getSamples() {
+        return samples;
+    }
+
+    /**
+     * Return the number of samples in this VCF genotype matrix.
+     *
+     * @return the number of samples in this VCF genotype matrix
+     */
+    public int getSampleCount() {
+        return samples.size();
+    }
+
+    /**
+     * Return the number of variants in this VCF genotype matrix.
+     *
+     * @return the number of variants in this VCF genotype matrix
+     */
+    public int getVariantCount() {
+        return genotypes.size();
+    }
+
+    /**
+     * Return true if this VCF genotype matrix contains DP values.
+     *
+     * @return true if this VCF genotype matrix contains DP values
+     */
+    public boolean containsDp() {
+        return dp != null;
+    }
+
+    /**
+     * Return true if this VCF genotype matrix contains GQ values.
+     *
+     * @return true if this VCF genotype matrix contains GQ values
+     */
+    public boolean containsGq() {
+        return gq != null;
+    }
+
+    /**
+     * Return the chromosome for the specified variant.
+     *
+     * @param variant variant index
+     * @return the chromosome for the specified variant
+     */
+    public String getChrom(final int variant) {
+        return chroms.get(variant);
+    }
+
+    /**
+     * Return the position for the specified variant.
+     *
+     * @param variant variant index
+     * @return the position for the specified variant
+     */
+    public long getPos(final int variant) {
+        checkElementIndex(variant, getVariantCount());
+        return positions[variant];
+    }
+
+    /**
+     * Return the ids for the specified variant.
+     *
+     * @param variant variant index
+     * @return the ids for the specified variant
+     */
+    public String[] getId(final int variant) {
+        return ids.get(variant).clone();
+    }
+
+    /**
+     * Return the reference allele for the specified variant.
+     *
+     * @param variant variant index
+     * @return the reference allele for the specified variant
+     */
+    public String getRef(final int variant) {
+        return refs.get(variant);
+    }
+
+    /**
+     * Return the alternate alleles for the specified variant.
+     *
+     * @param variant variant index
+     * @return the alternate alleles for the specified variant
+     */
+    public String[] getAlt(final int variant) {
+        return alts.get(variant).clone();
+    }
+
+    /**
+     * Return the genotype code for the specified variant and sample.
+     *
+     * @param variant variant index
+     * @param sample sample index
+     * @return the genotype code for the specified variant and sample, one of {@link #HOM_REF},
+     *    {@link #HET}, {@link #HOM_ALT}, or {@link #MISSING}
+     */
+    public int getGenotype(final int variant, final int sample) {
+        checkElementIndex(sample, getSampleCount());
+        return (genotypes.get(variant)[sample >> 2] >> ((sample & 3) << 1)) & 3;
+    }
+
+    /**
+     * Return true if the genotype call for the specified variant and sample is phased.
+     *
+     * @param variant variant index
+     * @param sample sample index
+     * @return true if the genotype call for the specified variant and sample is phased
+     */
+    public boolean isPhased(final int variant, final int sample) {
+        checkElementIndex(sample, getSampleCount());
+        return ((phasing.get(variant)[sample >> 3] >> (sample & 7)) & 1) != 0;
+    }
+
+    /**
+     * Return the DP value for the specified variant and sample, saturated at <code>Short.MAX_VALUE</code>.
+     *
+     * @param variant variant index
+     * @param sample sample index
+     * @return the DP value for the specified variant and sample, or {@link #MISSING_VALUE} if missing
+     * @throws IllegalStateException if this VCF genotype matrix does not contain DP values
+     */
+    public int getDp(final int variant, final int sample) {
+        if (dp == null) {
+            throw new IllegalStateException("genotype matrix does not contain DP values");
+        }
+        return dp.get(variant)[sample];
+    }
+
+    /**
+     * Return the GQ value for the specified variant and sample, saturated at <code>Byte.MAX_VALUE</code>.
+     *
+     * @param variant variant index
+     * @param sample sample index
+     * @return the GQ value for the specified variant and sample, or {@link #MISSING_VALUE} if missing
+     * @throws IllegalStateException if this VCF genotype matrix does not contain GQ values
+     */
+    public int getGq(final int variant, final int sample) {
+        if (gq == null) {
+            throw new IllegalStateException("genotype matrix does not contain GQ values");
+        }
+        return gq.get(variant)[sample];
+    }
+
+
+    // per-variant summaries
+
+    /**
+     * Fill the specified buffer with the counts of each genotype code for the specified variant,
+     * indexed by genotype code.
+     *
+     * @param variant variant index
+     * @param counts buffer of length at least four, must not be null
+     * @return the specified buffer
+     */
+    public int[] getGenotypeCounts(final int variant, final int[] counts) {
+        checkNotNull(counts);
+        checkArgument(counts.length >= 4, "counts must have length at least four");
+
+        byte[] packed = genotypes.get(variant);
+        int homRef = 0;
+        int het = 0;
+        int homAlt = 0;
+        int missing = 0;
+        for (byte b : packed) {
+            int c = CODE_COUNTS[b & 0xff];
+            homRef += c & 0xff;
+            het += (c >> 8) & 0xff;
+            homAlt += (c >> 16) & 0xff;
+            missing += (c >>> 24) & 0xff;
+        }
+        // padding codes in the last byte are zero, i.e. HOM_REF
+        homRef -= packed.length * 4 - getSampleCount();
+
+        counts[HOM_REF] = homRef;
+        counts[HET] = het;
+        counts[HOM_ALT] = homAlt;
+        counts[MISSING] = missing;
+        return counts;
+    }
+
+    /**
+     * Return the counts of each genotype code for the specified variant, indexed by genotype code.
+     *
+     * @param variant variant index
+     * @return the counts of each genotype code for the specified variant, indexed by genotype code
+     */
+    public int[] getGenotypeCounts(final int variant) {
+        return getGenotypeCounts(variant, new int[4]);
+    }
+
+    /**
+     * Return the non-reference allele frequency for the specified variant over called genotypes.
+     *
+     * @param variant variant index
+     * @return the non-reference allele frequency for the specified variant over called genotypes,
+     *    or <code>NaN</code> if no genotypes are called
+     */
+    public double getAlleleFrequency(final int variant) {
+        return alleleFrequency(getGenotypeCounts(variant));
+    }
+
+    /**
+     * Return the non-reference allele frequencies for all variants over called genotypes.
+     *
+     * @return the non-reference allele frequencies for all variants over called genotypes
+     */
+    public double[] getAlleleFrequencies() {
+        int[] counts = new int[4];
+        double[] frequencies = new double[getVariantCount()];
+        for (int i = 0; i < frequencies.length; i++) {
+            frequencies[i] = alleleFrequency(getGenotypeCounts(i, counts));
+        }
+        return frequencies;
+    }
+
+    /**
+     * Return the fraction of missing genotypes for the specified variant.
+     *
+     * @param variant variant index
+     * @return the fraction of missing genotypes for the specified variant,
+     *    or <code>NaN</code> if this VCF genotype matrix contains no samples
+     */
+    public double getMissingRate(final int variant) {
+        return missingRate(getGenotypeCounts(variant));
+    }
+
+    /**
+     * Return the fraction of missing genotypes for all variants.
+     *
+     * @return the fraction of missing genotypes for all variants
+     */
+    public double[] getMissingRates() {
+        int[] counts = new int[4];
+        double[] rates = new double[getVariantCount()];
+        for (int i = 0; i < rates.length; i++) {
+            rates[i] = missingRate(getGenotypeCounts(i, counts));
+        }
+        return rates;
+    }
+
+    /**
+     * Return the Hardy-Weinberg equilibrium exact test p-value for the specified variant over called genotypes.
+     *
+     * @param variant variant index
+     * @return the Hardy-Weinberg equilibrium exact test p-value for the specified variant over called genotypes,
+     *    or <code>NaN</code> if no genotypes are called
+     */
+    public double getHardyWeinbergP(final int variant) {
+        int[] counts = getGenotypeCounts(variant);
+        return hardyWeinbergP(counts[HOM_REF], counts[HET], counts[HOM_ALT]);
+    }
+
+    /**
+     * Return the Hardy-Weinberg equilibrium exact test p-values for all variants over called genotypes.
+     *
+     * @return the Hardy-Weinberg equilibrium exact test p-values for all variants over called genotypes
+     */
+    public double[] getHardyWeinbergPs() {
+        int[] counts = new int[4];
+        double[] p = new double[getVariantCount()];
+        for (int i = 0; i < p.length; i++) {
+            getGenotypeCounts(i, counts);
+            p[i] = hardyWeinbergP(counts[HOM_REF], counts[HET], counts[HOM_ALT]);
+        }
+        return p;
+    }
+
+
+    // per-sample summaries
+
+    /**
+     * Return the counts of each genotype code for all samples, indexed by sample and then by genotype code.
+     *
+     * @return the counts of each genotype code for all samples, indexed by sample and then by genotype code
+     */
+    public int[][] getSampleGenotypeCounts() {
+        int sampleCount = getSampleCount();
+        int[] flat = new int[sampleCount * 4];
+        for (byte[] packed : genotypes) {
+            for (int i = 0; i < packed.length; i++) {
+                int b = packed[i] & 0xff;
+                int sample = i << 2;
+                for (int shift = 0; shift < 8 && sample < sampleCount; shift += 2, sample++) {
+                    flat[(sample << 2) + ((b >> shift) & 3)]++;
+                }
+            }
+        }
+        int[][] counts = new int[sampleCount][];
+        for (int i = 0; i < sampleCount; i++) {
+            counts[i] = Arrays.copyOfRange(flat, i << 2, (i << 2) + 4);
+        }
+        return counts;
+    }
+
+    /**
+     * Return the fraction of missing genotypes for all samples.
+     *
+     * @return the fraction of missing genotypes for all samples
+     */
+    public double[] getSampleMissingRates() {
+        int[][] counts = getSampleGenotypeCounts();
+        double[] rates = new double[counts.length];
+        for (int i = 0; i < counts.length; i++) {
+            rates[i] = missingRate(counts[i]);
+        }
+        return rates;
+    }
+
+    /**
+     * Return the fraction of heterozygous genotypes over called genotypes for all samples.
+     *
+     * @return the fraction of heterozygous genotypes over called genotypes for all samples
+     */
+    public double[] getSampleHeterozygosities() {
+        int[][] counts = getSampleGenotypeCounts();
+        double[] heterozygosities = new double[counts.length];
+        for (int i = 0; i < counts.length; i++) {
+            int called = counts[i][HOM_REF] + counts[i][HET] + counts[i][HOM_ALT];
+            heterozygosities[i] = called == 0 ? Double.NaN : counts[i][HET] / (double) called;
+        }
+        return heterozygosities;
+    }
+
+    /**
+     * Return the mean DP value over non-missing DP values for all samples.
+     *
+     * @return the mean DP value over non-missing DP values for all samples
+     * @throws IllegalStateException if this VCF genotype matrix does not contain DP values
+     */
+    public double[] getSampleMeanDp() {
+        if (dp == null) {
+            throw new IllegalStateException("genotype matrix does not contain DP values");
+        }
+        long[] sums = new long[getSampleCount()];
+        int[] counts = new int[getSampleCount()];
+        for (short[] values : dp) {
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] != MISSING_VALUE) {
+                    sums[i] += values[i];
+                    counts[i]++;
+                }
+            }
+        }
+        double[] means = new double[sums.length];
+        for (int i = 0; i < means.length; i++) {
+            means[i] = counts[i] == 0 ? Double.NaN : sums[i] / (double) counts[i];
+        }
+        return means;
+    }
+
+
+    /**
+     * Return the non-reference allele frequency for the specified genotype counts.
+     *
+     * @param counts genotype counts
+     * @return the non-reference allele frequency for the specified genotype counts
+     */
+    private static double alleleFrequency(final int[] counts) {
+        int called = counts[HOM_REF] + counts[HET] + counts[HOM_ALT];
+        return called == 0 ? Double.NaN : (counts[HET] + 2.0d * counts[HOM_ALT]) / (2.0d * called);
+    }
+
+    /**
+     * Return the fraction of missing genotypes for the specified genotype counts.
+     *
+     * @param counts genotype counts
+     * @return the fraction of missing genotypes for the specified genotype counts
+     */
+    private static double missingRate(final int[] counts) {
+        int total = counts[HOM_REF] + counts[HET] + counts[HOM_ALT] + counts[MISSING];
+        return total == 0 ? Double.NaN : counts[MISSING] / (double) total;
+    }
+
+    /**
+     * Return the Hardy-Weinberg equilibrium exact test p-value for the specified genotype counts,
+     * after Wigginton, Cutler, and Abecasis (2005).
+     *
+     * @param homRef count of homozygous reference genotypes
+     * @param het count of heterozygous genotypes
+     * @param homAlt count of homozygous alternate genotypes
+     * @return the Hardy-Weinberg equilibrium exact test p-value for the specified genotype counts,
+     *    or <code>NaN</code> if all counts are zero
+     */
+    static double hardyWeinbergP(final int homRef, final int het, final int homAlt) {
+        checkArgument(homRef >= 0 && het >= 0 && homAlt >= 0, "genotype counts must be at least zero");
+
+        int rareHom = Math.min(homRef, homAlt);
+        int commonHom = Math.max(homRef, homAlt);
+        int n = het + rareHom + commonHom;
+        if (n == 0) {
+            return Double.NaN;
+        }
+        int rare = 2 * rareHom + het;
+
+        double[] probabilities = new double[rare + 1];
+        int mid = (int) ((long) rare * (2L * n - rare) / (2L * n));
+        if ((mid & 1) != (rare & 1)) {
+            mid++;
+        }
+
+        probabilities[mid] = 1.0d;
+        double sum = 1.0d;
+
+        int hets = mid;
+        int rareHoms = (rare - mid) / 2;
+        int commonHoms = n - hets - rareHoms;
+        for (; hets > 1; hets -= 2) {
+            probabilities[hets - 2] = probabilities[hets] * hets * (hets - 1.0d) / (4.0d * (rareHoms + 1.0d) * (commonHoms + 1.0d));
+            sum += probabilities[hets - 2];
+            rareHoms++;
+            commonHoms++;
+        }
+
+        hets = mid;
+        rareHoms = (rare - mid) / 2;
+        commonHoms = n - hets - rareHoms;
+        for (; hets <= rare - 2; hets += 2) {
+            probabilities[hets + 2] = probabilities[hets] * 4.0d * rareHoms * commonHoms / ((hets + 2.0d) * (hets + 1.0d));
+            sum += probabilities[hets + 2];
+            rareHoms--;
+            commonHoms--;
+        }
+
+        double observed = probabilities[het];
+        double p = 0.0d;
+        for (int i = rare & 1; i <= rare; i += 2) {
+            if (probabilities[i] <= observed) {
+                p += probabilities[i];
+            }
+        }
+        return Math.min(1.0d, p / sum);
+    }
+
+
+    /**
+     * Read a VCF genotype matrix from the specified readable, without DP or GQ values.
+     *
+     * @param readable readable, must not be null
+     * @return a VCF genotype matrix read from the specified readable
+     * @throws IOException if an I/O error occurs
+     */
+    public static VcfGenotypeMatrix read(final Readable readable) throws IOException {
+        return read(readable, false, false);
+    }
+
+    /**
+     * Read a VCF genotype matrix from the specified readable.
+     *
+     * @param readable readable, must not be null
+     * @param includeDp true to include DP values
+     * @param includeGq true to include GQ values
+     * @return a VCF genotype matrix read from the specified readable
+     * @throws IOException if an I/O error occurs
+     */
+    public static VcfGenotypeMatrix read(final Readable readable, final boolean includeDp, final boolean includeGq) throws IOException {
+        checkNotNull(readable);
+        MatrixTokenListener listener = new MatrixTokenListener(includeDp, includeGq);
+        VcfTokenizer.tokenize(readable, listener);
+        return listener.build();
+    }
+
+
+    /**
+     * VCF token listener that packs genotypes into a VCF genotype matrix.
+     */
+    private static final class MatrixTokenListener extends VcfTokenAdapter {
+        /** True to include DP values. */
+        private final boolean includeDp;
+
+        /** True to include GQ values. */
+        private final boolean includeGq;
+
+        /** Sample ids, in column order. */
+        private String[] samples = new String[0];
+
+        /** Line number. */
+        private long lineNumber;
+
+        /** Chromosome for each variant. */
+        private final List<String> chroms = new ArrayList<String>();
+
+        /** Position for each variant. */
+        private long[] positions = new long[1024];
+
+        /** Ids for each variant. */
+        private final List<String[]> ids = new ArrayList<String[]>();
+
+        /** Reference allele for each variant. */
+        private final List<String> refs = new ArrayList<String>();
+
+        /** Alternate alleles for each variant. */
+        private final List<String[]> alts = new ArrayList<String[]>();
+
+        /** Packed genotype codes for each variant. */
+        private final List<byte[]> genotypes = new ArrayList<byte[]>();
+
+        /** Packed phasing for each variant. */
+        private final List<byte[]> phasing = new ArrayList<byte[]>();
+
+        /** DP values for each variant. */
+        private final List<short[]> dp = new ArrayList<short[]>();
+
+        /** GQ values for each variant. */
+        private final List<byte[]> gq = new ArrayList<byte[]>();
+
+        /** Index of GT in the format of the current record. */
+        private int gtIndex;
+
+        /** Index of DP in the format of the current record. */
+        private int dpIndex;
+
+        /** Index of GQ in the format of the current record. */
+        private int gqIndex;
+
+        /** True if the current record has genotypes. */
+        private boolean hasGenotypes;
+
+
+        /**
+         * Create a new matrix token listener.
+         *
+         * @param includeDp true to include DP values
+         * @param includeGq true to include GQ values
+         */
+        private MatrixTokenListener(final boolean includeDp, final boolean includeGq) {
+            this.includeDp = includeDp;
+            this.includeGq = includeGq;
+        }
+
+
+        @Override
+        public void lineNumber(final long lineNumber) throws IOException {
+            this.lineNumber = lineNumber;
+        }
+
+        @Override
+        public void samples(final String... samples) throws IOException {
+            this.samples = samples;
+        }
+
+        @Override
+        public void chrom(final CharSequence chrom) throws IOException {
+            String previous = chroms.isEmpty() ? null : chroms.get(chroms.size() - 1);
+            chroms.add(previous != null && previous.contentEquals(chrom) ? previous : chrom.toString());
+            gtIndex = -1;
+            dpIndex = -1;
+            gqIndex = -1;
+            hasGenotypes = false;
+        }
+
+        @Override
+        public void pos(final long pos) throws IOException {
+            int variant = chroms.size() - 1;
+            if (variant == positions.length) {
+                positions = Arrays.copyOf(positions, positions.length * 2);
+            }
+            positions[variant] = pos;
+        }
+
+        @Override
+        public void id(final CharSequence id) throws IOException {
+            ids.add(VcfTokenizer.isMissingValue(id) ? new String[0] : VcfTokenizer.split(id, ';'));
+        }
+
+        @Override
+        public void ref(final CharSequence ref) throws IOException {
+            refs.add(ref.toString());
+        }
+
+        @Override
+        public void alt(final CharSequence alt) throws IOException {
+            alts.add(VcfTokenizer.isMissingValue(alt) ? new String[0] : VcfTokenizer.split(alt, ','));
+        }
+
+        @Override
+        public void format(final CharSequence format) throws IOException {
+            for (int i = 0, start = 0, length = format.length(); start <= length; i++) {
+                int end = start;
+                while (end < length && format.charAt(end) != ':') {
+                    end++;
+                }
+                if (equals(format, start, end, "GT")) {
+                    gtIndex = i;
+                }
+                else if (equals(format, start, end, "DP")) {
+                    dpIndex = i;
+                }
+                else if (equals(format, start, end, "GQ")) {
+                    gqIndex = i;
+                }
+                start = end + 1;
+            }
+        }
+
+        @Override
+        public boolean genotypes(final CharSequence raw) throws IOException {
+            byte[] packed = missingGenotypes();
+            byte[] phased = new byte[(samples.length + 7) >> 3];
+            short[] dpValues = includeDp ? missingDp() : null;
+            byte[] gqValues = includeGq ? missingGq() : null;
+
+            int length = raw.length();
+            int sample = 0;
+            for (int start = 0; start <= length; sample++) {
+                if (sample >= samples.length) {
+                    throw new IOException("invalid genotypes at line number " + lineNumber + ", found more genotype columns than samples");
+                }
+                int end = start;
+                while (end < length && raw.charAt(end) != '\t') {
+                    end++;
+                }
+                for (int i = 0, fieldStart = start; fieldStart <= end; i++) {
+                    int fieldEnd = fieldStart;
+                    while (fieldEnd < end && raw.charAt(fieldEnd) != ':') {
+                        fieldEnd++;
+                    }
+                    if (i == gtIndex) {
+                        int gt = parseGenotype(raw, fieldStart, fieldEnd);
+                        int code = gt & 3;
+                        int shift = (sample & 3) << 1;
+                        packed[sample >> 2] = (byte) ((packed[sample >> 2] & ~(3 << shift)) | (code << shift));
+                        if ((gt & 4) != 0) {
+                            phased[sample >> 3] |= (byte) (1 << (sample & 7));
+                        }
+                    }
+                    else if (i == dpIndex && dpValues != null) {
+                        dpValues[sample] = (short) Math.min(Short.MAX_VALUE, parseValue(raw, fieldStart, fieldEnd, lineNumber));
+                    }
+                    else if (i == gqIndex && gqValues != null) {
+                        gqValues[sample] = (byte) Math.min(Byte.MAX_VALUE, parseValue(raw, fieldStart, fieldEnd, lineNumber));
+                    }
+                    fieldStart = fieldEnd + 1;
+                }
+                start = end + 1;
+            }
+            add(packed, phased, dpValues, gqValues);
+            hasGenotypes = true;
+            return false;
+        }
+
+        @Override
+        public boolean complete() throws IOException {
+            if (!hasGenotypes) {
+                add(missingGenotypes(), new byte[(samples.length + 7) >> 3], includeDp ? missingDp() : null, includeGq ? missingGq() : null);
+            }
+            return true;
+        }
+
+        /**
+         * Add the specified genotype values for the current variant.
+         *
+         * @param packed packed genotype codes
+         * @param phased packed phasing
+         * @param dpValues DP values, if any
+         * @param gqValues GQ values, if any
+         */
+        private void add(final byte[] packed, final byte[] phased, final short[] dpValues, final byte[] gqValues) {
+            genotypes.add(packed);
+            phasing.add(phased);
+            if (dpValues != null) {
+                dp.add(dpValues);
+            }
+            if (gqValues != null) {
+                gq.add(gqValues);
+            }
+        }
+
+        /**
+         * Return new packed genotype codes for all samples, coded as missing.
+         *
+         * @return new packed genotype codes for all samples, coded as missing
+         */
+        private byte[] missingGenotypes() {
+            byte[] packed = new byte[(samples.length + 3) >> 2];
+            Arrays.fill(packed, (byte) 0xff);
+            int padding = (packed.length << 2) - samples.length;
+            if (padding > 0) {
+                // clear padding codes in the last byte
+                packed[packed.length - 1] = (byte) (0xff >> (padding << 1));
+            }
+            return packed;
+        }
+
+        /**
+         * Return new DP values for all samples, set to missing.
+         *
+         * @return new DP values for all samples, set to missing
+         */
+        private short[] missingDp() {
+            short[] values = new short[samples.length];
+            Arrays.fill(values, (short) MISSING_VALUE);
+            return values;
+        }
+
+        /**
+         * Return new GQ values for all samples, set to missing.
+         *
+         * @return new GQ values for all samples, set to missing
+         */
+        private byte[] missingGq() {
+            byte[] values = new byte[samples.length];
+            Arrays.fill(values, (byte) MISSING_VALUE);
+            return values;
+        }
+
+        /**
+         * Build and return a new VCF genotype matrix.
+         *
+         * @return a new VCF genotype matrix
+         */
+        private VcfGenotypeMatrix build() {
+            return new VcfGenotypeMatrix(Arrays.asList(samples), chroms, Arrays.copyOf(positions, chroms.size()), ids, refs, alts,
+                                         genotypes, phasing, includeDp ? dp : null, includeGq ? gq : null);
+        }
+
+        /**
+         * Parse the genotype call in the specified range of the specified value.
+         *
+         * @param value value
+         * @param start start offset, inclusive
+         * @param end end offset, exclusive
+         * @return the genotype code, with bit <code>4</code> set if the genotype call is phased
+         */
+        private static int parseGenotype(final CharSequence value, final int start, final int end) {
+            int alleles = 0;
+            int nonReference = 0;
+            boolean missing = false;
+            boolean phased = false;
+            for (int i = start; i < end; i++) {
+                char c = value.charAt(i);
+                if (c == '/' || c == '|') {
+                    phased = c == '|';
+                }
+                else {
+                    if (c == '.') {
+                        missing = true;
+                    }
+                    else if (c != '0' || (i + 1 < end && value.charAt(i + 1) >= '0' && value.charAt(i + 1) <= '9')) {
+                        nonReference++;
+                    }
+                    while (i + 1 < end && value.charAt(i + 1) != '/' && value.charAt(i + 1) != '|') {
+                        i++;
+                    }
+                    alleles++;
+                }
+            }
+            if (missing || alleles == 0 || alleles > 2) {
+                return MISSING;
+            }
+            if (alleles == 1) {
+                return nonReference == 0 ? HOM_REF : HOM_ALT;
+            }
+            return nonReference | (phased ? 4 : 0);
+        }
+
+        /**
+         * Parse the non-negative integer value in the specified range of the specified value.
+         *
+         * @param value value
+         * @param start start offset, inclusive
+         * @param end end offset, exclusive
+         * @param lineNumber line number
+         * @return the non-negative integer value, or {@link #MISSING_VALUE} if missing or negative
+         * @throws IOException if the specified range of the specified value is not a valid integer
+         */
+        private static int parseValue(final CharSequence value, final int start, final int end, final long lineNumber) throws IOException {
+            if (start == end) {
+                return MISSING_VALUE;
+            }
+            try {
+                int result = VcfSchema.parseInt(value, start, end);
+                return result < 0 ? MISSING_VALUE : result;
+            }
+            catch (NumberFormatException e) {
+                throw new IOException("invalid genotype field value at line number " + lineNumber + ", caught " + e.getMessage(), e);
+            }
+        }
+
+        /**
+         * Return true if the specified range of the specified value is equal to the specified string.
+         *
+         * @param value value
+         * @param start start offset, inclusive
+         * @param end end offset, exclusive
+         * @param s string
+         * @return true if the specified range of the specified value is equal to the specified string
+         */
+        private static boolean equals(final CharSequence value, final int start, final int end, final String s) {
+            if (end - start != s.length()) {
+                return false;
+            }
+            for (int i = 0; i < s.length(); i++) {
+                if (value.charAt(start + i) != s.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
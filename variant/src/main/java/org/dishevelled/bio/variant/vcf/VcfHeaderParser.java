@@ -49,7 +49,8 @@ public final class VcfHeaderParser {
 
 
     /**
-     * Read the VCF header from the specified readable.
+     * Read the VCF header from the specified readable.  Only the header lines are read,
+     * reading stops at the <code>#CHROM</code> header line and data lines are never tokenized.
      *
      * @param readable readable to read from, must not be null
      * @return the VCF header read from the specified readable
@@ -58,7 +59,7 @@ public final class VcfHeaderParser {
     public static VcfHeader header(final Readable readable) throws IOException {
         checkNotNull(readable);
         ParseListener parseListener = new ParseListener();
-        VcfParser.parse(readable, parseListener);
+        VcfParser.parseHeader(readable, parseListener);
         return parseListener.getHeader();
     }
 
@@ -81,11 +82,6 @@ public final class VcfHeaderParser {
             }
         }
 
-        @Override
-        public boolean complete() throws IOException {
-            return false;
-        }
-
         /**
          * Return the VCF header.
          *
@@ -0,0 +1,53 @@
+/*
+
+    dsh-bio-variant  Variants.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.variant.vcf;
+
+/**
+ * Event based Mendelian consistency checker callback.
+ *
+ * @author  Michael Heuer
+ */
+public interface VcfMendelListener {
+
+    /**
+     * Notify this listener of the trios compiled from the VCF pedigree, before any variants.
+     *
+     * @param mendelian trios compiled from the VCF pedigree
+     */
+    void trios(VcfMendelian mendelian);
+
+    /**
+     * Notify this listener of the Mendelian consistency summary for a VCF record, in input order.
+     *
+     * @param variant Mendelian consistency summary for a VCF record
+     */
+    void variant(VcfMendelian.VariantSummary variant);
+
+    /**
+     * Notify this listener of the Mendelian consistency summary for a trio, after all variants.
+     *
+     * @param family Mendelian consistency summary for a trio
+     */
+    void family(VcfMendelian.FamilySummary family);
+}
@@ -0,0 +1,988 @@
+/*
+
+    dsh-bio-variant  Variants.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.variant.vcf;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+
+import java.nio.CharBuffer;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.dishevelled.bio.variant.vcf.VcfPedigree.Relationship;
+
+import org.dishevelled.graph.Edge;
+
+/**
+ * Mendelian consistency and transmission checker over the trios in a VCF pedigree.
+ *
+ * <p>
+ * The trios in a VCF pedigree are compiled into arrays of sample column indices, so
+ * that every trio can be evaluated against the raw genotypes of a VCF record without
+ * decoding genotypes into maps.  Only the <code>GT</code> genotype field is considered,
+ * which per the VCF specification must be the first genotype field if present.  A haploid
+ * child is consistent if its allele is present in either parent.  Transmission counts
+ * consider all non-reference alleles as a single alternate allele, and are only counted
+ * for consistent trios with diploid genotype calls for the child and both parents.
+ * </p>
+ *
+ * @author  Michael Heuer
+ */
+public final class VcfMendelian {
+    /** Number of data lines per batch. */
+    static final int BATCH_SIZE = 1024;
+
+    /** Missing allele. */
+    private static final int MISSING = -1;
+
+    /** Second allele of a haploid genotype. */
+    private static final int HAPLOID = -2;
+
+    /** Sample ids, in column order. */
+    private final String[] samples;
+
+    /** Child sample column indices, by trio. */
+    private final int[] children;
+
+    /** Mother sample column indices, by trio, <code>-1</code> if not present. */
+    private final int[] mothers;
+
+    /** Father sample column indices, by trio, <code>-1</code> if not present. */
+    private final int[] fathers;
+
+    /** Distinct sample column indices of all trio members, in column order. */
+    private final int[] members;
+
+
+    /**
+     * Create a new VCF Mendelian consistency checker.
+     *
+     * @param samples sample ids, in column order
+     * @param children child sample column indices, by trio
+     * @param mothers mother sample column indices, by trio
+     * @param fathers father sample column indices, by trio
+     * @param members distinct sample column indices of all trio members, in column order
+     */
+    private VcfMendelian(final String[] samples,
+                         final int[] children,
+                         final int[] mothers,
+                         final int[] fathers,
+                         final int[] members) {
+        this.samples = samples;
+        this.children = children;
+        this.mothers = mothers;
+        this.fathers = fathers;
+        this.members = members;
+    }
+
+
+    /**
+     * Return the number of trios in this VCF Mendelian consistency checker.
+     *
+     * @return the number of trios in this VCF Mendelian consistency checker
+     */
+    public int size() {
+        return children.length;
+    }
+
+    /**
+     * Return the child sample id for the specified trio.
+     *
+     * @param trio trio index
+     * @return the child sample id for the specified trio
+     */
+    public String getChildId(final int trio) {
+        return samples[children[trio]];
+    }
+
+    /**
+     * Return the mother sample id for the specified trio, if any.
+     *
+     * @param trio trio index
+     * @return the mother sample id for the specified trio, or <code>null</code>
+     *    if the mother is not present in the VCF samples
+     */
+    public String getMotherId(final int trio) {
+        return mothers[trio] < 0 ? null : samples[mothers[trio]];
+    }
+
+    /**
+     * Return the father sample id for the specified trio, if any.
+     *
+     * @param trio trio index
+     * @return the father sample id for the specified trio, or <code>null</code>
+     *    if the father is not present in the VCF samples
+     */
+    public String getFatherId(final int trio) {
+        return fathers[trio] < 0 ? null : samples[fathers[trio]];
+    }
+
+    /**
+     * Evaluate every trio against the specified VCF record.
+     *
+     * @param record VCF record to evaluate, must not be null
+     * @return the Mendelian consistency summary for the specified VCF record
+     */
+    public VariantSummary evaluate(final VcfRecord record) {
+        checkNotNull(record);
+        return evaluate(record, new int[2 * samples.length]);
+    }
+
+    /**
+     * Evaluate every trio against the specified VCF record, decoding genotype
+     * calls into the specified scratch array.
+     *
+     * @param record VCF record to evaluate
+     * @param alleles scratch array of two alleles per sample column
+     * @return the Mendelian consistency summary for the specified VCF record
+     */
+    private VariantSummary evaluate(final VcfRecord record, final int[] alleles) {
+        decode(record, alleles);
+
+        int size = children.length;
+        Status[] statuses = new Status[size];
+        byte[] transmitted = new byte[size];
+        byte[] untransmitted = new byte[size];
+
+        for (int trio = 0; trio < size; trio++) {
+            int child = 2 * children[trio];
+            int mother = mothers[trio] < 0 ? -1 : 2 * mothers[trio];
+            int father = fathers[trio] < 0 ? -1 : 2 * fathers[trio];
+
+            int c0 = alleles[child];
+            int c1 = alleles[child + 1];
+            int m0 = mother < 0 ? MISSING : alleles[mother];
+            int m1 = mother < 0 ? MISSING : alleles[mother + 1];
+            int f0 = father < 0 ? MISSING : alleles[father];
+            int f1 = father < 0 ? MISSING : alleles[father + 1];
+
+            if (c0 == MISSING || (m0 == MISSING && f0 == MISSING)) {
+                statuses[trio] = Status.NO_CALL;
+                continue;
+            }
+            boolean consistent = (c1 == HAPLOID)
+                ? (contains(m0, m1, c0) || contains(f0, f1, c0))
+                : ((contains(m0, m1, c0) && contains(f0, f1, c1)) || (contains(m0, m1, c1) && contains(f0, f1, c0)));
+
+            if (!consistent) {
+                statuses[trio] = Status.ERROR;
+                continue;
+            }
+            statuses[trio] = Status.CONSISTENT;
+
+            if (c1 != HAPLOID && m0 != MISSING && m1 != HAPLOID && f0 != MISSING && f1 != HAPLOID) {
+                int k = alternate(c0) + alternate(c1);
+                int m = alternate(m0) + alternate(m1);
+                int f = alternate(f0) + alternate(f1);
+
+                if (m == 1 && f == 1) {
+                    transmitted[trio] = (byte) k;
+                    untransmitted[trio] = (byte) (2 - k);
+                }
+                else if (m == 1) {
+                    int t = k - f / 2;
+                    transmitted[trio] = (byte) t;
+                    untransmitted[trio] = (byte) (1 - t);
+                }
+                else if (f == 1) {
+                    int t = k - m / 2;
+                    transmitted[trio] = (byte) t;
+                    untransmitted[trio] = (byte) (1 - t);
+                }
+            }
+        }
+        return new VariantSummary(this, record, statuses, transmitted, untransmitted);
+    }
+
+    /**
+     * Decode the genotype calls for all trio members of the specified VCF record
+     * into the specified scratch array.
+     *
+     * @param record VCF record
+     * @param alleles scratch array of two alleles per sample column
+     */
+    private void decode(final VcfRecord record, final int[] alleles) {
+        String[] format = record.getFormat();
+        boolean gt = format != null && format.length > 0 && "GT".equals(format[0]);
+        String raw = record.getRawGenotypes();
+        int[] offsets = raw == null ? null : record.getRawGenotypeOffsets();
+
+        for (int member : members) {
+            int index = 2 * member;
+            alleles[index] = MISSING;
+            alleles[index + 1] = MISSING;
+
+            if (!gt) {
+                continue;
+            }
+            if (offsets != null) {
+                if (member < offsets.length - 1) {
+                    decode(raw, offsets[member], offsets[member + 1] - 1, alleles, index);
+                }
+            }
+            else {
+                VcfGenotype genotype = record.getGenotypes().get(samples[member]);
+                if (genotype != null) {
+                    String value = genotype.getGt();
+                    decode(value, 0, value.length(), alleles, index);
+                }
+            }
+        }
+    }
+
+    /**
+     * Decode the genotype call at the start of the specified range of the specified value
+     * into the specified scratch array at the specified index.  Genotype calls with any
+     * missing allele or with more than two alleles are decoded as missing.
+     *
+     * @param value value
+     * @param start start index, inclusive
+     * @param end end index, exclusive
+     * @param alleles scratch array of two alleles per sample column
+     * @param index index into scratch array
+     */
+    private static void decode(final String value, final int start, final int end, final int[] alleles, final int index) {
+        int count = 0;
+        int allele = 0;
+        boolean missing = false;
+        boolean digits = false;
+        for (int i = start; i <= end; i++) {
+            char c = i < end ? value.charAt(i) : ':';
+            if (c >= '0' && c <= '9') {
+                allele = 10 * allele + (c - '0');
+                digits = true;
+            }
+            else if (c == '/' || c == '|' || c == ':') {
+                if (missing || !digits || count == 2) {
+                    alleles[index] = MISSING;
+                    alleles[index + 1] = MISSING;
+                    return;
+                }
+                alleles[index + count] = allele;
+                count++;
+                allele = 0;
+                digits = false;
+                if (c == ':') {
+                    break;
+                }
+            }
+            else {
+                missing = true;
+            }
+        }
+        if (count == 1) {
+            alleles[index + 1] = HAPLOID;
+        }
+    }
+
+    /**
+     * Return true if the specified parent genotype call contains the specified allele.  A missing
+     * parent genotype call contains every allele.
+     *
+     * @param p0 first allele of the parent genotype call
+     * @param p1 second allele of the parent genotype call
+     * @param allele allele
+     * @return true if the specified parent genotype call contains the specified allele
+     */
+    private static boolean contains(final int p0, final int p1, final int allele) {
+        return p0 == MISSING || p0 == allele || p1 == allele;
+    }
+
+    /**
+     * Return one if the specified allele is a non-reference allele, zero otherwise.
+     *
+     * @param allele allele
+     * @return one if the specified allele is a non-reference allele, zero otherwise
+     */
+    private static int alternate(final int allele) {
+        return allele > 0 ? 1 : 0;
+    }
+
+
+    /**
+     * Compile the trios in the specified VCF pedigree into a VCF Mendelian consistency checker
+     * over the specified sample ids, in column order.  Trios are <code>Mother</code> and
+     * <code>Father</code> relationships to a <code>Child</code> (or <code>ID</code>) target.
+     * Trios whose child or both parents are not present in the specified sample ids are skipped.
+     *
+     * @param pedigree VCF pedigree, must not be null
+     * @param samples sample ids, in column order, must not be null
+     * @return the trios in the specified VCF pedigree compiled into a VCF Mendelian consistency checker
+     */
+    public static VcfMendelian compile(final VcfPedigree pedigree, final List<String> samples) {
+        checkNotNull(pedigree);
+        checkNotNull(samples);
+
+        Map<String, Integer> columns = new HashMap<String, Integer>(samples.size());
+        for (int i = 0, size = samples.size(); i < size; i++) {
+            if (!columns.containsKey(samples.get(i))) {
+                columns.put(samples.get(i), i);
+            }
+        }
+
+        Map<String, String[]> parents = new LinkedHashMap<String, String[]>();
+        for (Edge<VcfSample, Relationship> edge : pedigree.getGraph().edges()) {
+            Relationship relationship = edge.getValue();
+            String targetLabel = relationship.getTargetLabel();
+            String sourceLabel = relationship.getSourceLabel();
+            if (!"Child".equals(targetLabel) && !"ID".equals(targetLabel)) {
+                continue;
+            }
+            int parent = "Mother".equals(sourceLabel) ? 0 : ("Father".equals(sourceLabel) ? 1 : -1);
+            if (parent < 0) {
+                continue;
+            }
+            String child = edge.target().getValue().getId();
+            if (!parents.containsKey(child)) {
+                parents.put(child, new String[2]);
+            }
+            parents.get(child)[parent] = edge.source().getValue().getId();
+        }
+
+        SortedMap<Integer, int[]> trios = new TreeMap<Integer, int[]>();
+        for (Map.Entry<String, String[]> entry : parents.entrySet()) {
+            Integer child = columns.get(entry.getKey());
+            Integer mother = entry.getValue()[0] == null ? null : columns.get(entry.getValue()[0]);
+            Integer father = entry.getValue()[1] == null ? null : columns.get(entry.getValue()[1]);
+            if (child != null && (mother != null || father != null)) {
+                trios.put(child, new int[] { child, mother == null ? -1 : mother, father == null ? -1 : father });
+            }
+        }
+
+        int size = trios.size();
+        int[] children = new int[size];
+        int[] mothers = new int[size];
+        int[] fathers = new int[size];
+        boolean[] member = new boolean[samples.size()];
+        int i = 0;
+        for (int[] trio : trios.values()) {
+            children[i] = trio[0];
+            mothers[i] = trio[1];
+            fathers[i] = trio[2];
+            for (int column : trio) {
+                if (column >= 0) {
+                    member[column] = true;
+                }
+            }
+            i++;
+        }
+        int count = 0;
+        int[] members = new int[samples.size()];
+        for (int column = 0; column < member.length; column++) {
+            if (member[column]) {
+                members[count++] = column;
+            }
+        }
+        return new VcfMendelian(samples.toArray(new String[samples.size()]), children, mothers, fathers, Arrays.copyOf(members, count));
+    }
+
+    /**
+     * Check Mendelian consistency of the trios in the VCF pedigree of the specified readable
+     * against each of its VCF records.
+     *
+     * @param readable readable, must not be null
+     * @param listener event based Mendelian consistency checker callback, must not be null
+     * @throws IOException if an I/O error occurs
+     */
+    public static void check(final Readable readable, final VcfMendelListener listener) throws IOException {
+        check(readable, listener, 1);
+    }
+
+    /**
+     * Check Mendelian consistency of the trios in the VCF pedigree of the specified readable
+     * against each of its VCF records, parsing and evaluating batches of VCF records in parallel.
+     * The listener is notified of variants in input order on the calling thread.
+     *
+     * @param readable readable, must not be null
+     * @param listener event based Mendelian consistency checker callback, must not be null
+     * @param threads number of threads, must be at least one
+     * @throws IOException if an I/O error occurs
+     */
+    public static void check(final Readable readable, final VcfMendelListener listener, final int threads) throws IOException {
+        checkNotNull(readable);
+        checkNotNull(listener);
+        checkArgument(threads > 0, "threads must be at least one");
+
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        try {
+            new Pipeline(VcfMerger.bufferedReader(readable), listener, executorService, threads).run();
+        }
+        finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * Pipeline.
+     */
+    private static final class Pipeline {
+        /** Reader. */
+        private final BufferedReader reader;
+
+        /** Event based Mendelian consistency checker callback. */
+        private final VcfMendelListener listener;
+
+        /** Executor service. */
+        private final ExecutorService executorService;
+
+        /** Maximum number of batches in flight. */
+        private final int maxPending;
+
+        /** Batches in flight, in order. */
+        private final Deque<Future<List<VariantSummary>>> pending = new ArrayDeque<Future<List<VariantSummary>>>();
+
+        /** Symbol table seeded from header lines, shared by all batches. */
+        private final VcfSymbols symbols = new VcfSymbols();
+
+        /** Column header line, prepended to each batch for sample names. */
+        private String columnHeader = "";
+
+        /** First data line, if any. */
+        private String firstLine;
+
+        /** Number of lines read. */
+        private long lineNumber = 0L;
+
+        /** Compiled trios. */
+        private VcfMendelian mendelian;
+
+        /** Family summaries, by trio. */
+        private FamilySummary[] families;
+
+
+        /**
+         * Create a new pipeline.
+         *
+         * @param reader reader
+         * @param listener event based Mendelian consistency checker callback
+         * @param executorService executor service
+         * @param threads number of threads
+         */
+        private Pipeline(final BufferedReader reader,
+                         final VcfMendelListener listener,
+                         final ExecutorService executorService,
+                         final int threads) {
+            this.reader = reader;
+            this.listener = listener;
+            this.executorService = executorService;
+            this.maxPending = 2 * threads;
+        }
+
+
+        /**
+         * Run this pipeline.
+         *
+         * @throws IOException if an I/O error occurs
+         */
+        void run() throws IOException {
+            readHeader();
+            listener.trios(mendelian);
+            while (submit()) {
+                while (pending.size() > maxPending) {
+                    next();
+                }
+            }
+            while (!pending.isEmpty()) {
+                next();
+            }
+            for (FamilySummary family : families) {
+                listener.family(family);
+            }
+        }
+
+        /**
+         * Read the header lines and the first data line, if any, and compile the trios
+         * in the VCF pedigree.
+         *
+         * @throws IOException if an I/O error occurs
+         */
+        private void readHeader() throws IOException {
+            StringBuilder sb = new StringBuilder();
+            String line = null;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty() && line.charAt(0) != '#') {
+                    firstLine = line;
+                    break;
+                }
+                lineNumber++;
+                if (line.startsWith("#CHROM")) {
+                    columnHeader = line + "\n";
+                }
+                else {
+                    symbols.seed(line);
+                }
+                sb.append(line);
+                sb.append("\n");
+            }
+
+            List<String> samples = new ArrayList<String>();
+            String[] tokens = columnHeader.trim().split("\t");
+            for (int i = 9; i < tokens.length; i++) {
+                samples.add(tokens[i]);
+            }
+            mendelian = compile(VcfPedigreeParser.pedigree(CharBuffer.wrap(sb)), samples);
+            families = new FamilySummary[mendelian.size()];
+            for (int i = 0; i < families.length; i++) {
+                families[i] = new FamilySummary(mendelian, i);
+            }
+        }
+
+        /**
+         * Read and submit the next batch of data lines.
+         *
+         * @return true if any data lines were read
+         * @throws IOException if an I/O error occurs
+         */
+        private boolean submit() throws IOException {
+            StringBuilder sb = new StringBuilder(columnHeader);
+            final long offset = columnHeader.isEmpty() ? lineNumber : lineNumber - 1L;
+            int lines = 0;
+            if (firstLine != null) {
+                sb.append(firstLine);
+                sb.append("\n");
+                firstLine = null;
+                lineNumber++;
+                lines++;
+            }
+            String line = null;
+            while (lines < BATCH_SIZE && (line = reader.readLine()) != null) {
+                sb.append(line);
+                sb.append("\n");
+                lineNumber++;
+                lines++;
+            }
+            if (lines == 0) {
+                return false;
+            }
+            final String text = sb.toString();
+            pending.addLast(executorService.submit(new Callable<List<VariantSummary>>() {
+                    @Override
+                    public List<VariantSummary> call() throws IOException {
+                        List<VcfRecord> records = VcfRecordParser.records(CharBuffer.wrap(text), true, offset, symbols);
+                        List<VariantSummary> variants = new ArrayList<VariantSummary>(records.size());
+                        int[] alleles = new int[2 * mendelian.samples.length];
+                        for (VcfRecord record : records) {
+                            variants.add(mendelian.evaluate(record, alleles));
+                        }
+                        return variants;
+                    }
+                }));
+            return true;
+        }
+
+        /**
+         * Notify the listener of the variant summaries in the next batch, waiting for it to be evaluated if necessary.
+         *
+         * @throws IOException if an I/O error occurs
+         */
+        private void next() throws IOException {
+            List<VariantSummary> variants;
+            try {
+                variants = pending.removeFirst().get();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                InterruptedIOException interruptedIOException = new InterruptedIOException("interrupted while checking VCF records");
+                interruptedIOException.initCause(e);
+                throw interruptedIOException;
+            }
+            catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new IOException(cause);
+            }
+            for (VariantSummary variant : variants) {
+                for (FamilySummary family : families) {
+                    family.add(variant);
+                }
+                listener.variant(variant);
+            }
+        }
+    }
+
+
+    /**
+     * Mendelian consistency status of a trio for a VCF record.
+     */
+    public enum Status {
+        /** Child genotype call is consistent with parent genotype calls. */
+        CONSISTENT,
+
+        /** Child genotype call is not consistent with parent genotype calls. */
+        ERROR,
+
+        /** Child genotype call or both parent genotype calls are missing. */
+        NO_CALL
+    }
+
+
+    /**
+     * Mendelian consistency summary for a VCF record.
+     */
+    public static final class VariantSummary {
+        /** Compiled trios. */
+        private final VcfMendelian mendelian;
+
+        /** VCF record. */
+        private final VcfRecord record;
+
+        /** Status, by trio. */
+        private final Status[] statuses;
+
+        /** Transmitted alternate alleles, by trio. */
+        private final byte[] transmitted;
+
+        /** Untransmitted alternate alleles, by trio. */
+        private final byte[] untransmitted;
+
+        /** Number of consistent trios. */
+        private final int consistent;
+
+        /** Number of trios with Mendelian errors. */
+        private final int errors;
+
+        /** Number of trios with missing genotype calls. */
+        private final int noCalls;
+
+        /** Total transmitted alternate alleles. */
+        private final int transmittedCount;
+
+        /** Total untransmitted alternate alleles. */
+        private final int untransmittedCount;
+
+
+        /**
+         * Create a new Mendelian consistency summary for a VCF record.
+         *
+         * @param mendelian compiled trios
+         * @param record VCF record
+         * @param statuses status, by trio
+         * @param transmitted transmitted alternate alleles, by trio
+         * @param untransmitted untransmitted alternate alleles, by trio
+         */
+        private VariantSummary(final VcfMendelian mendelian,
+                               final VcfRecord record,
+                               final Status[] statuses,
+                               final byte[] transmitted,
+                               final byte[] untransmitted) {
+            this.mendelian = mendelian;
+            this.record = record;
+            this.statuses = statuses;
+            this.transmitted = transmitted;
+            this.untransmitted = untransmitted;
+
+            int c = 0;
+            int e = 0;
+            int n = 0;
+            int t = 0;
+            int u = 0;
+            for (int i = 0; i < statuses.length; i++) {
+                switch (statuses[i]) {
+                case CONSISTENT:
+                    c++;
+                    break;
+                case ERROR:
+                    e++;
+                    break;
+                default:
+                    n++;
+                    break;
+                }
+                t += transmitted[i];
+                u += untransmitted[i];
+            }
+            consistent = c;
+            errors = e;
+            noCalls = n;
+            transmittedCount = t;
+            untransmittedCount = u;
+        }
+
+
+        /**
+         * Return the VCF record for this variant summary.
+         *
+         * @return the VCF record for this variant summary
+         */
+        public VcfRecord getRecord() {
+            return record;
+        }
+
+        /**
+         * Return the status of the specified trio for this variant summary.
+         *
+         * @param trio trio index
+         * @return the status of the specified trio for this variant summary
+         */
+        public Status getStatus(final int trio) {
+            return statuses[trio];
+        }
+
+        /**
+         * Return the number of consistent trios for this variant summary.
+         *
+         * @return the number of consistent trios for this variant summary
+         */
+        public int getConsistent() {
+            return consistent;
+        }
+
+        /**
+         * Return the number of trios with Mendelian errors for this variant summary.
+         *
+         * @return the number of trios with Mendelian errors for this variant summary
+         */
+        public int getErrors() {
+            return errors;
+        }
+
+        /**
+         * Return the number of trios with missing genotype calls for this variant summary.
+         *
+         * @return the number of trios with missing genotype calls for this variant summary
+         */
+        public int getNoCalls() {
+            return noCalls;
+        }
+
+        /**
+         * Return the total number of transmitted alternate alleles for this variant summary.
+         *
+         * @return the total number of transmitted alternate alleles for this variant summary
+         */
+        public int getTransmitted() {
+            return transmittedCount;
+        }
+
+        /**
+         * Return the total number of untransmitted alternate alleles for this variant summary.
+         *
+         * @return the total number of untransmitted alternate alleles for this variant summary
+         */
+        public int getUntransmitted() {
+            return untransmittedCount;
+        }
+
+        /**
+         * Return the child sample ids of the trios with Mendelian errors for this variant summary.
+         *
+         * @return the child sample ids of the trios with Mendelian errors for this variant summary
+         */
+        public List<String> getErrorChildIds() {
+            List<String> childIds = new ArrayList<String>(errors);
+            for (int i = 0; i < statuses.length; i++) {
+                if (statuses[i] == Status.ERROR) {
+                    childIds.add(mendelian.getChildId(i));
+                }
+            }
+            return childIds;
+        }
+    }
+
+    /**
+     * Mendelian consistency summary for a trio.
+     */
+    public static final class FamilySummary {
+        /** Compiled trios. */
+        private final VcfMendelian mendelian;
+
+        /** Trio index. */
+        private final int trio;
+
+        /** Number of consistent variants. */
+        private long consistent = 0L;
+
+        /** Number of variants with Mendelian errors. */
+        private long errors = 0L;
+
+        /** Number of variants with missing genotype calls. */
+        private long noCalls = 0L;
+
+        /** Transmitted alternate alleles. */
+        private long transmitted = 0L;
+
+        /** Untransmitted alternate alleles. */
+        private long untransmitted = 0L;
+
+
+        /**
+         * Create a new Mendelian consistency summary for the specified trio.
+         *
+         * @param mendelian compiled trios
+         * @param trio trio index
+         */
+        private FamilySummary(final VcfMendelian mendelian, final int trio) {
+            this.mendelian = mendelian;
+            this.trio = trio;
+        }
+
+
+        /**
+         * Add the specified variant summary to this family summary.
+         *
+         * @param variant variant summary to add
+         */
+        void add(final VariantSummary variant) {
+            switch (variant.statuses[trio]) {
+            case CONSISTENT:
+                consistent++;
+                break;
+            case ERROR:
+                errors++;
+                break;
+            default:
+                noCalls++;
+                break;
+            }
+            transmitted += variant.transmitted[trio];
+            untransmitted += variant.untransmitted[trio];
+        }
+
+        /**
+         * Return the trio index for this family summary.
+         *
+         * @return the trio index for this family summary
+         */
+        public int getTrio() {
+            return trio;
+        }
+
+        /**
+         * Return the child sample id for this family summary.
+         *
+         * @return the child sample id for this family summary
+         */
+        public String getChildId() {
+            return mendelian.getChildId(trio);
+        }
+
+        /**
+         * Return the mother sample id for this family summary, if any.
+         *
+         * @return the mother sample id for this family summary, or <code>null</code>
+         *    if the mother is not present in the VCF samples
+         */
+        public String getMotherId() {
+            return mendelian.getMotherId(trio);
+        }
+
+        /**
+         * Return the father sample id for this family summary, if any.
+         *
+         * @return the father sample id for this family summary, or <code>null</code>
+         *    if the father is not present in the VCF samples
+         */
+        public String getFatherId() {
+            return mendelian.getFatherId(trio);
+        }
+
+        /**
+         * Return the number of consistent variants for this family summary.
+         *
+         * @return the number of consistent variants for this family summary
+         */
+        public long getConsistent() {
+            return consistent;
+        }
+
+        /**
+         * Return the number of variants with Mendelian errors for this family summary.
+         *
+         * @return the number of variants with Mendelian errors for this family summary
+         */
+        public long getErrors() {
+            return errors;
+        }
+
+        /**
+         * Return the number of variants with missing genotype calls for this family summary.
+         *
+         * @return the number of variants with missing genotype calls for this family summary
+         */
+        public long getNoCalls() {
+            return noCalls;
+        }
+
+        /**
+         * Return the number of transmitted alternate alleles for this family summary.
+         *
+         * @return the number of transmitted alternate alleles for this family summary
+         */
+        public long getTransmitted() {
+            return transmitted;
+        }
+
+        /**
+         * Return the number of untransmitted alternate alleles for this family summary.
+         *
+         * @return the number of untransmitted alternate alleles for this family summary
+         */
+        public long getUntransmitted() {
+            return untransmitted;
+        }
+
+        /**
+         * Return the transmission disequilibrium test statistic <code>(T - U)<sup>2</sup> / (T + U)</code>
+         * for this family summary.
+         *
+         * @return the transmission disequilibrium test statistic for this family summary, or
+         *    <code>Double.NaN</code> if no alternate alleles were transmitted or untransmitted
+         */
+        public double getTdt() {
+            long n = transmitted + untransmitted;
+            if (n == 0L) {
+                return Double.NaN;
+            }
+            double d = transmitted - untransmitted;
+            return (d * d) / n;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*
+
+    dsh-bio-variant  Variants.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.variant.vcf;
+
+/**
+ * VCF merge listener.
+ *
+ * @author  Michael Heuer
+ */
+public interface VcfMergeListener {
+
+    /**
+     * Notify this listener of the VCF header for the specified input.
+     *
+     * @param input input index
+     * @param header VCF header
+     */
+    void header(int input, VcfHeader header);
+
+    /**
+     * Notify this listener of a VCF sample for the specified input.
+     *
+     * @param input input index
+     * @param sample VCF sample
+     */
+    void sample(int input, VcfSample sample);
+
+    /**
+     * Notify this listener of VCF records matched by CHROM, POS, REF, and ALT in
+     * more than one input.
+     *
+     * @param records VCF records indexed by input, <code>null</code> for inputs without a match
+     */
+    void matched(VcfRecord... records);
+
+    /**
+     * Notify this listener of a VCF record not matched in any other input.
+     *
+     * @param input input index
+     * @param record VCF record
+     */
+    void unmatched(int input, VcfRecord record);
+}
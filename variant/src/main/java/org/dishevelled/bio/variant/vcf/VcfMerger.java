@@ -0,0 +1,655 @@
+/*
+
+    dsh-bio-variant  Variants.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.variant.vcf;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+
+import java.nio.CharBuffer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import org.dishevelled.bio.variant.vcf.header.VcfHeaderLines;
+
+/**
+ * Streaming k-way VCF merge, joining VCF records from coordinate-sorted inputs by
+ * CHROM, POS, REF, and ALT.
+ *
+ * <p>
+ * Contigs are ordered as in the specified contig order, if any, followed by the contigs in the
+ * <code>##contig</code> header lines of the inputs, in input order.  Each input must be sorted
+ * in that order by contig and position.  When merging more than one input, every contig must be
+ * present in the specified contig order or in the <code>##contig</code> header lines, because
+ * the order of other contigs across inputs cannot be known until each input has been read.
+ * A single input may contain contigs not present in header lines, ordered as they are first
+ * encountered.  Inputs are read and parsed in small batches, so memory use does not depend on
+ * the size of the inputs.
+ * </p>
+ *
+ * <p>
+ * The listener is notified of the header and samples of each input, in input order, before
+ * any records.  Records at the same position are matched by REF and ALT regardless of their
+ * order in each input.  If an input contains more than one record with the same CHROM, POS, REF, and ALT,
+ * each is matched separately, in order.  By default ALT alleles must be equal to match, see
+ * {@link AlleleMatching} for matching multiallelic records against their alleles.
+ * </p>
+ *
+ * @author  Michael Heuer
+ */
+public final class VcfMerger {
+    /** Buffer size. */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /** Number of data lines per batch. */
+    static final int BATCH_SIZE = 1024;
+
+    /** Column header line for inputs without one. */
+    private static final String SITES_ONLY_COLUMN_HEADER = "#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\n";
+
+
+    /**
+     * Private no-arg constructor.
+     */
+    private VcfMerger() {
+        // empty
+    }
+
+
+    /**
+     * Merge the specified coordinate-sorted readables.
+     *
+     * @param readables list of readables, must not be null
+     * @param listener event based merge callback, must not be null
+     * @throws IOException if an I/O error occurs, or if an input is not coordinate-sorted
+     */
+    public static void merge(final List<? extends Readable> readables, final VcfMergeListener listener) throws IOException {
+        merge(readables, listener, false);
+    }
+
+    /**
+     * Merge the specified coordinate-sorted readables.  If <code>lazy</code> is true,
+     * the raw genotypes for each VCF record are not parsed until the genotypes are first accessed.
+     *
+     * @param readables list of readables, must not be null
+     * @param listener event based merge callback, must not be null
+     * @param lazy true to parse genotypes lazily
+     * @throws IOException if an I/O error occurs, or if an input is not coordinate-sorted
+     */
+    public static void merge(final List<? extends Readable> readables, final VcfMergeListener listener, final boolean lazy) throws IOException {
+        merge(readables, listener, lazy, AlleleMatching.EXACT);
+    }
+
+    /**
+     * Merge the specified coordinate-sorted readables, matching ALT alleles as specified.  If
+     * <code>lazy</code> is true, the raw genotypes for each VCF record are not parsed until the
+     * genotypes are first accessed.
+     *
+     * @param readables list of readables, must not be null
+     * @param listener event based merge callback, must not be null
+     * @param lazy true to parse genotypes lazily
+     * @param alleleMatching how ALT alleles are matched, must not be null
+     * @throws IOException if an I/O error occurs, or if an input is not coordinate-sorted
+     */
+    public static void merge(final List<? extends Readable> readables,
+                             final VcfMergeListener listener,
+                             final boolean lazy,
+                             final AlleleMatching alleleMatching) throws IOException {
+        merge(readables, listener, lazy, alleleMatching, Collections.<String>emptyList());
+    }
+
+    /**
+     * Merge the specified coordinate-sorted readables, matching ALT alleles as specified and
+     * ordering contigs by the specified contig order, followed by the contigs in the
+     * <code>##contig</code> header lines of the inputs.  If <code>lazy</code> is true, the raw
+     * genotypes for each VCF record are not parsed until the genotypes are first accessed.
+     *
+     * @param readables list of readables, must not be null
+     * @param listener event based merge callback, must not be null
+     * @param lazy true to parse genotypes lazily
+     * @param alleleMatching how ALT alleles are matched, must not be null
+     * @param contigs contig order, may be empty but must not be null
+     * @throws IOException if an I/O error occurs, if an input is not coordinate-sorted, or if
+     *    more than one input is merged and a contig is not present in the specified contig order
+     *    or in the <code>##contig</code> header lines
+     */
+    public static void merge(final List<? extends Readable> readables,
+                             final VcfMergeListener listener,
+                             final boolean lazy,
+                             final AlleleMatching alleleMatching,
+                             final List<String> contigs) throws IOException {
+        checkNotNull(readables);
+        checkNotNull(listener);
+        checkNotNull(alleleMatching);
+        checkNotNull(contigs);
+
+        int k = readables.size();
+        List<Input> inputs = new ArrayList<Input>(k);
+        for (int i = 0; i < k; i++) {
+            Input input = new Input(i, readables.get(i), lazy);
+            input.readHeader();
+            inputs.add(input);
+        }
+
+        // order contigs by the specified contig order, then by header lines, in input order
+        Map<String, Integer> ordinals = new HashMap<String, Integer>();
+        for (String contig : contigs) {
+            if (!ordinals.containsKey(contig)) {
+                ordinals.put(contig, ordinals.size());
+            }
+        }
+        for (Input input : inputs) {
+            VcfHeaderLines headerLines = VcfHeaderLines.fromHeader(input.getHeader());
+            for (int i = 0, size = headerLines.getContigCount(); i < size; i++) {
+                String contig = headerLines.getContig(i);
+                if (!ordinals.containsKey(contig)) {
+                    ordinals.put(contig, ordinals.size());
+                }
+            }
+        }
+
+        for (Input input : inputs) {
+            listener.header(input.getIndex(), input.getHeader());
+            for (VcfSample sample : input.getSamples()) {
+                listener.sample(input.getIndex(), sample);
+            }
+        }
+
+        PriorityQueue<Input> queue = new PriorityQueue<Input>(Math.max(1, k), new Comparator<Input>() {
+                @Override
+                public int compare(final Input input0, final Input input1) {
+                    return input0.compareTo(input1);
+                }
+            });
+        for (Input input : inputs) {
+            if (input.advance(ordinals, k > 1)) {
+                queue.add(input);
+            }
+        }
+
+        List<Input> current = new ArrayList<Input>(k);
+        List<VcfRecord[]> groups = new ArrayList<VcfRecord[]>();
+        while (!queue.isEmpty()) {
+            // poll all the inputs at the next position
+            current.clear();
+            current.add(queue.poll());
+            while (!queue.isEmpty() && queue.peek().samePosition(current.get(0))) {
+                current.add(queue.poll());
+            }
+            Collections.sort(current, new Comparator<Input>() {
+                    @Override
+                    public int compare(final Input input0, final Input input1) {
+                        return Integer.compare(input0.getIndex(), input1.getIndex());
+                    }
+                });
+
+            // group records at this position by REF and ALT
+            groups.clear();
+            for (Input input : current) {
+                for (VcfRecord record : input.getBlock()) {
+                    group(groups, input.getIndex(), record, k, alleleMatching);
+                }
+            }
+
+            // notify listener of matched and unmatched records
+            for (VcfRecord[] group : groups) {
+                int count = 0;
+                int last = -1;
+                for (int i = 0; i < k; i++) {
+                    if (group[i] != null) {
+                        count++;
+                        last = i;
+                    }
+                }
+                if (count > 1) {
+                    listener.matched(group);
+                }
+                else {
+                    listener.unmatched(last, group[last]);
+                }
+            }
+
+            for (Input input : current) {
+                if (input.advance(ordinals, k > 1)) {
+                    queue.add(input);
+                }
+            }
+        }
+    }
+
+    /**
+     * Add the specified record to the first group matching its REF and ALT without a record
+     * for the specified input, or for {@link AlleleMatching#SUBSET} to every such group, or to
+     * a new group if no such group exists.
+     *
+     * @param groups groups of records at the current position
+     * @param input input index
+     * @param record record to add
+     * @param k number of inputs
+     * @param alleleMatching how ALT alleles are matched
+     */
+    private static void group(final List<VcfRecord[]> groups, final int input, final VcfRecord record, final int k, final AlleleMatching alleleMatching) {
+        boolean grouped = false;
+        for (VcfRecord[] group : groups) {
+            if (group[input] == null) {
+                for (VcfRecord other : group) {
+                    if (other != null) {
+                        if (alleleMatching.matches(other, record)) {
+                            group[input] = record;
+                            if (alleleMatching == AlleleMatching.EXACT) {
+                                return;
+                            }
+                            grouped = true;
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+        if (!grouped) {
+            VcfRecord[] group = new VcfRecord[k];
+            group[input] = record;
+            groups.add(group);
+        }
+    }
+
+    /**
+     * Return the specified readable as a buffered reader.
+     *
+     * @param readable readable
+     * @return the specified readable as a buffered reader
+     */
+    static BufferedReader bufferedReader(final Readable readable) {
+        if (readable instanceof BufferedReader) {
+            return (BufferedReader) readable;
+        }
+        if (readable instanceof Reader) {
+            return new BufferedReader((Reader) readable, BUFFER_SIZE);
+        }
+        return new BufferedReader(new Reader() {
+                @Override
+                public int read(final char[] cbuf, final int off, final int len) throws IOException {
+                    return readable.read(CharBuffer.wrap(cbuf, off, len));
+                }
+
+                @Override
+                public void close() {
+                    // empty
+                }
+            }, BUFFER_SIZE);
+    }
+
+    /**
+     * How ALT alleles are matched between records at the same position with the same REF.
+     */
+    public enum AlleleMatching {
+        /** Match records with equal ALT alleles, in order. */
+        EXACT,
+
+        /**
+         * Match a record to records from earlier inputs whose ALT alleles are all present in its
+         * own ALT alleles, e.g. a database record with <code>ALT=A,G</code> matches a record
+         * with <code>ALT=A</code> and, separately, a record with <code>ALT=G</code>.
+         */
+        SUBSET;
+
+
+        /**
+         * Return true if the specified record matches the specified record from an earlier input.
+         *
+         * @param earlier record from an earlier input
+         * @param record record
+         * @return true if the specified record matches the specified record from an earlier input
+         */
+        boolean matches(final VcfRecord earlier, final VcfRecord record) {
+            if (!earlier.getRef().equals(record.getRef())) {
+                return false;
+            }
+            if (this == EXACT) {
+                return Arrays.equals(earlier.getAlt(), record.getAlt());
+            }
+            for (String alt : earlier.getAlt()) {
+                if (!contains(record.getAlt(), alt)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Return true if the specified alleles contain the specified allele.
+         *
+         * @param alleles alleles
+         * @param allele allele
+         * @return true if the specified alleles contain the specified allele
+         */
+        private static boolean contains(final String[] alleles, final String allele) {
+            for (String a : alleles) {
+                if (a.equals(allele)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Merge input.
+     */
+    private static final class Input {
+        /** Input index. */
+        private final int index;
+
+        /** Reader. */
+        private final BufferedReader reader;
+
+        /** True to parse genotypes lazily. */
+        private final boolean lazy;
+
+        /** Symbol table seeded from header lines, shared by all batches. */
+        private final VcfSymbols symbols = new VcfSymbols();
+
+        /** VCF header. */
+        private VcfHeader header;
+
+        /** VCF samples. */
+        private final List<VcfSample> samples = new ArrayList<VcfSample>();
+
+        /** Column header line, prepended to each batch for sample names. */
+        private String columnHeader = "";
+
+        /** First data line, read while reading header lines. */
+        private String firstLine;
+
+        /** Number of lines read. */
+        private long lineNumber = 0L;
+
+        /** VCF records in the current batch. */
+        private Iterator<VcfRecord> batch = Collections.<VcfRecord>emptyList().iterator();
+
+        /** Next VCF record, if any. */
+        private VcfRecord next;
+
+        /** VCF records at the current position. */
+        private List<VcfRecord> block = new ArrayList<VcfRecord>();
+
+        /** Contig ordinal of the current position, or <code>-1</code> before the first. */
+        private int ordinal = -1;
+
+        /** Contig of the current position, if any. */
+        private String chrom;
+
+        /** Current position. */
+        private long pos = -1L;
+
+
+        /**
+         * Create a new merge input.
+         *
+         * @param index input index
+         * @param readable readable, must not be null
+         * @param lazy true to parse genotypes lazily
+         */
+        Input(final int index, final Readable readable, final boolean lazy) {
+            checkNotNull(readable);
+            this.index = index;
+            this.reader = bufferedReader(readable);
+            this.lazy = lazy;
+        }
+
+
+        /**
+         * Read the header lines and the first data line, if any.
+         *
+         * @throws IOException if an I/O error occurs
+         */
+        void readHeader() throws IOException {
+            StringBuilder sb = new StringBuilder();
+            String line = null;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty() && line.charAt(0) != '#') {
+                    firstLine = line;
+                    break;
+                }
+                lineNumber++;
+                if (line.startsWith("#CHROM")) {
+                    columnHeader = line + "\n";
+                }
+                else {
+                    symbols.seed(line);
+                }
+                sb.append(line);
+                sb.append("\n");
+            }
+            if (columnHeader.isEmpty()) {
+                sb.append(SITES_ONLY_COLUMN_HEADER);
+            }
+            StreamingVcfParser.stream(CharBuffer.wrap(sb), new VcfStreamAdapter() {
+                    @Override
+                    public void header(final VcfHeader header) {
+                        Input.this.header = header;
+                    }
+
+                    @Override
+                    public void sample(final VcfSample sample) {
+                        samples.add(sample);
+                    }
+                });
+        }
+
+        /**
+         * Return the input index.
+         *
+         * @return the input index
+         */
+        int getIndex() {
+            return index;
+        }
+
+        /**
+         * Return the VCF header.
+         *
+         * @return the VCF header
+         */
+        VcfHeader getHeader() {
+            return header;
+        }
+
+        /**
+         * Return the VCF samples.
+         *
+         * @return the VCF samples
+         */
+        List<VcfSample> getSamples() {
+            return samples;
+        }
+
+        /**
+         * Return the VCF records at the current position.
+         *
+         * @return the VCF records at the current position
+         */
+        List<VcfRecord> getBlock() {
+            return block;
+        }
+
+        /**
+         * Advance to the VCF records at the next position, if any.
+         *
+         * @param ordinals contig ordinals keyed by contig
+         * @param strict true if contigs must be present in the specified contig ordinals, false to add
+         *    new contigs as encountered
+         * @return true if this input has VCF records at the next position
+         * @throws IOException if an I/O error occurs, if this input is not coordinate-sorted, or if
+         *    <code>strict</code> is true and a contig is not present in the specified contig ordinals
+         */
+        boolean advance(final Map<String, Integer> ordinals, final boolean strict) throws IOException {
+            block.clear();
+            if (ordinal == -1) {
+                next = read();
+            }
+            if (next == null) {
+                return false;
+            }
+            String nextChrom = next.getChrom();
+            long nextPos = next.getPos();
+            while (next != null && next.getPos() == nextPos && next.getChrom().equals(nextChrom)) {
+                block.add(next);
+                next = read();
+            }
+
+            Integer nextOrdinal = ordinals.get(nextChrom);
+            if (nextOrdinal == null) {
+                if (strict) {
+                    throw new IOException("input " + index + " contig " + nextChrom + " at line " + block.get(0).getLineNumber()
+                                          + " is not present in ##contig header lines or the specified contig order, required to merge more than one input");
+                }
+                nextOrdinal = ordinals.size();
+                ordinals.put(nextChrom, nextOrdinal);
+            }
+            if (nextOrdinal < ordinal) {
+                if (inHeaderOrder(chrom, nextChrom)) {
+                    throw new IOException("input " + index + " contig order disagrees with the merged contig order, found " + nextChrom
+                                          + " after " + chrom + " at line " + block.get(0).getLineNumber());
+                }
+                throw new IOException("input " + index + " is not coordinate-sorted, found " + nextChrom + ":" + nextPos + " at line " + block.get(0).getLineNumber());
+            }
+            if (nextOrdinal == ordinal && nextPos <= pos) {
+                throw new IOException("input " + index + " is not coordinate-sorted, found " + nextChrom + ":" + nextPos + " at line " + block.get(0).getLineNumber());
+            }
+            ordinal = nextOrdinal;
+            chrom = nextChrom;
+            pos = nextPos;
+            return true;
+        }
+
+        /**
+         * Return true if the specified contigs are in order in the <code>##contig</code> header
+         * lines of this input.
+         *
+         * @param first first contig
+         * @param second second contig
+         * @return true if the specified contigs are in order in the <code>##contig</code> header
+         *    lines of this input
+         */
+        private boolean inHeaderOrder(final String first, final String second) {
+            VcfHeaderLines headerLines = VcfHeaderLines.fromHeader(header);
+            int firstIndex = -1;
+            for (int i = 0, size = headerLines.getContigCount(); i < size; i++) {
+                String contig = headerLines.getContig(i);
+                if (contig.equals(first)) {
+                    firstIndex = i;
+                }
+                else if (contig.equals(second)) {
+                    return firstIndex >= 0;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Return true if this input is at the same position as the specified input.
+         *
+         * @param input input
+         * @return true if this input is at the same position as the specified input
+         */
+        boolean samePosition(final Input input) {
+            return ordinal == input.ordinal && pos == input.pos;
+        }
+
+        /**
+         * Compare this input to the specified input by current position, then by index.
+         *
+         * @param input input
+         * @return a negative integer, zero, or a positive integer as this input is less than,
+         *    equal to, or greater than the specified input
+         */
+        int compareTo(final Input input) {
+            int result = Integer.compare(ordinal, input.ordinal);
+            if (result == 0) {
+                result = Long.compare(pos, input.pos);
+            }
+            if (result == 0) {
+                result = Integer.compare(index, input.index);
+            }
+            return result;
+        }
+
+        /**
+         * Read the next VCF record, if any.
+         *
+         * @return the next VCF record, or <code>null</code> if there are no more VCF records
+         * @throws IOException if an I/O error occurs
+         */
+        private VcfRecord read() throws IOException {
+            while (!batch.hasNext()) {
+                if (!readBatch()) {
+                    return null;
+                }
+            }
+            return batch.next();
+        }
+
+        /**
+         * Read and parse the next batch of data lines.
+         *
+         * @return true if any data lines were read
+         * @throws IOException if an I/O error occurs
+         */
+        private boolean readBatch() throws IOException {
+            StringBuilder sb = new StringBuilder(columnHeader);
+            long offset = columnHeader.isEmpty() ? lineNumber : lineNumber - 1L;
+            int lines = 0;
+            if (firstLine != null) {
+                sb.append(firstLine);
+                sb.append("\n");
+                firstLine = null;
+                lineNumber++;
+                lines++;
+            }
+            String line = null;
+            while (lines < BATCH_SIZE && (line = reader.readLine()) != null) {
+                sb.append(line);
+                sb.append("\n");
+                lineNumber++;
+                lines++;
+            }
+            if (lines == 0) {
+                return false;
+            }
+            batch = VcfRecordParser.records(CharBuffer.wrap(sb), lazy, offset, symbols).iterator();
+            return true;
+        }
+    }
+}
@@ -25,16 +25,10 @@ package org.dishevelled.bio.variant.vcf;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
-import static com.google.common.collect.Maps.newHashMap;
+import static org.dishevelled.bio.variant.vcf.VcfTokenizer.split;
 
 import java.io.IOException;
 
-import java.util.Collection;
-import java.util.Map;
-
-import com.google.common.io.CharStreams;
-import com.google.common.io.LineProcessor;
-
 /**
  * Low-level VCF parser.
  *
@@ -59,150 +53,260 @@ public final class VcfParser {
      */
     public static void parse(final Readable readable, final VcfParseListener listener) throws IOException {
         checkNotNull(readable);
-        VcfLineProcessor lineProcessor = new VcfLineProcessor(listener);
-        CharStreams.readLines(readable, lineProcessor);
+        VcfTokenizer.tokenize(readable, new TokenListener(listener, new VcfSymbols()));
+    }
+
+    /**
+     * Parse the header lines of the specified readable, stopping after the <code>#CHROM</code>
+     * header line or before the first data line, whichever comes first.  The listener is
+     * notified of meta-information lines and samples only; data lines are never tokenized.
+     *
+     * @param readable readable, must not be null
+     * @param listener low-level event based parser callback, must not be null
+     * @throws IOException if an I/O error occurs
+     */
+    static void parseHeader(final Readable readable, final VcfParseListener listener) throws IOException {
+        checkNotNull(readable);
+        VcfTokenizer.tokenizeHeader(readable, new TokenListener(listener, new VcfSymbols()));
+    }
+
+    /**
+     * Parse the specified readable, skipping genotype field notifications and
+     * instead configuring the specified VCF record builder with the raw genotypes
+     * for each record, to be decoded lazily.
+     *
+     * @param readable readable, must not be null
+     * @param listener low-level event based parser callback, must not be null
+     * @param builder VCF record builder, must not be null
+     * @throws IOException if an I/O error occurs
+     */
+    static void parse(final Readable readable, final VcfParseListener listener, final VcfRecord.Builder builder) throws IOException {
+        parse(readable, listener, builder, 0L);
+    }
+
+    /**
+     * Parse the specified readable, numbering lines after the specified line number.  If
+     * the specified VCF record builder is not null, skip genotype field notifications and
+     * instead configure the specified VCF record builder with the raw genotypes for each
+     * record, to be decoded lazily.
+     *
+     * @param readable readable, must not be null
+     * @param listener low-level event based parser callback, must not be null
+     * @param builder VCF record builder, if any
+     * @param lineNumber line number of the line preceding the first line in the specified readable
+     * @throws IOException if an I/O error occurs
+     */
+    static void parse(final Readable readable,
+                      final VcfParseListener listener,
+                      final VcfRecord.Builder builder,
+                      final long lineNumber) throws IOException {
+        parse(readable, listener, builder, lineNumber, null);
+    }
+
+    /**
+     * Parse the specified readable, numbering lines after the specified line number and
+     * canonicalizing CHROM, FILTER, INFO key, and FORMAT key tokens in a symbol table
+     * delegating to the specified parent symbol table.  If the specified VCF record builder
+     * is not null, skip genotype field notifications and instead configure the specified
+     * VCF record builder with the raw genotypes for each record, to be decoded lazily.
+     *
+     * @param readable readable, must not be null
+     * @param listener low-level event based parser callback, must not be null
+     * @param builder VCF record builder, if any
+     * @param lineNumber line number of the line preceding the first line in the specified readable
+     * @param symbols parent symbol table, if any, must not be modified during parsing
+     * @throws IOException if an I/O error occurs
+     */
+    static void parse(final Readable readable,
+                      final VcfParseListener listener,
+                      final VcfRecord.Builder builder,
+                      final long lineNumber,
+                      final VcfSymbols symbols) throws IOException {
+        checkNotNull(readable);
+        VcfSymbols parseSymbols = new VcfSymbols(symbols);
+        VcfTokenizer.tokenize(readable, builder == null ? new TokenListener(listener, parseSymbols) : new LazyTokenListener(listener, builder, parseSymbols), lineNumber);
     }
 
     /**
-     * VCF line processor.
+     * VCF token listener that adapts tokens into strings for a VCF parse listener.
      */
-    private static final class VcfLineProcessor implements LineProcessor<Object> {
-        /** Line number. */
-        private long lineNumber = 0;
+    private static class TokenListener implements VcfTokenListener {
+        /** Empty array of values. */
+        private static final String[] EMPTY = new String[0];
 
         /** VCF parse listener. */
         private final VcfParseListener listener;
 
-        /** Map of sample names keyed by column. */
-        private final Map<Integer, String> samples = newHashMap();
+        /** Symbol table for CHROM, FILTER, INFO key, and FORMAT key tokens. */
+        private final VcfSymbols symbols;
+
+        /** Sample names, in column order. */
+        private String[] samples = new String[0];
+
+        /** Format ids for the current record. */
+        private String[] format = new String[0];
 
 
         /**
-         * Create a new VCF line processor.
+         * Create a new VCF token listener.
          *
          * @param listener VCF parse listener
+         * @param symbols symbol table
          */
-        private VcfLineProcessor(final VcfParseListener listener) {
+        private TokenListener(final VcfParseListener listener, final VcfSymbols symbols) {
             checkNotNull(listener);
             this.listener = listener;
+            this.symbols = symbols;
         }
 
 
         @Override
-        public Object getResult() {
-            return null;
+        public void lineNumber(final long lineNumber) throws IOException {
+            listener.lineNumber(lineNumber);
         }
 
         @Override
-        public boolean processLine(final String line) throws IOException
-        {
-            lineNumber++;
-            // consider using guava Splitter
-            String[] tokens = line.split("\t");
+        public void meta(final CharSequence meta) throws IOException {
+            symbols.seed(meta);
+            listener.meta(meta.toString());
+        }
 
-            // skip blank lines
-            if (tokens.length == 0) {
-                return true;
-            }
+        @Override
+        public void samples(final String... samples) throws IOException {
+            this.samples = samples;
+            listener.samples(samples);
+        }
+
+        @Override
+        public void chrom(final CharSequence chrom) throws IOException {
+            listener.chrom(symbols.symbol(chrom));
+        }
+
+        @Override
+        public void pos(final long pos) throws IOException {
+            listener.pos(pos);
+        }
+
+        @Override
+        public void id(final CharSequence id) throws IOException {
+            String[] idTokens = split(id, ';');
+            listener.id(isMissingValue(idTokens) ? new String[0] : idTokens);
+        }
+
+        @Override
+        public void ref(final CharSequence ref) throws IOException {
+            listener.ref(ref.toString());
+        }
 
-            if (tokens[0].startsWith("##")) {
-                // meta-information lines
-                listener.meta(line);
+        @Override
+        public void alt(final CharSequence alt) throws IOException {
+            String[] altTokens = split(alt, ',');
+            listener.alt(isMissingValue(altTokens) ? new String[0] : altTokens);
+        }
+
+        @Override
+        public void qual(final double qual) throws IOException {
+            listener.qual(Double.isNaN(qual) ? null : qual);
+        }
+
+        @Override
+        public void filter(final CharSequence filter) throws IOException {
+            String[] filterTokens = symbols.split(filter, ';');
+            listener.filter(isMissingValue(filterTokens) ? EMPTY : filterTokens);
+        }
+
+        @Override
+        public void info(final CharSequence infoId, final CharSequence values) throws IOException {
+            if (values == null) {
+                listener.info(symbols.symbol(infoId), "true");
             }
-            else if (tokens[0].startsWith("#CHROM")) {
-                // header line
-                if (tokens.length > 8) {
-                    for (int column = 9, columns = tokens.length; column < columns; column++) {
-                        samples.put(column, tokens[column]);
-                    }
-                }
-                Collection<String> values = samples.values();
-                listener.samples(values.toArray(new String[values.size()]));
+            else if (VcfTokenizer.isMissingValue(values)) {
+                listener.info(symbols.symbol(infoId));
             }
             else {
-                // data lines
-                listener.lineNumber(lineNumber);
-                if (tokens.length < 8) {
-                    throw new IOException("invalid data line at line number " + lineNumber + ", expected 8 tokens, found " + tokens.length);
-                }
+                listener.info(symbols.symbol(infoId), split(values, ','));
+            }
+        }
 
-                listener.chrom(tokens[0]);
+        @Override
+        public void format(final CharSequence format) throws IOException {
+            this.format = symbols.split(format, ':');
+            listener.format(this.format);
+        }
 
-                try {
-                    listener.pos(Long.parseLong(tokens[1]));
-                }
-                catch (NumberFormatException e) {
-                    throw new IOException("invalid pos at line number " + lineNumber, e);
-                }
+        @Override
+        public boolean genotypes(final CharSequence genotypes) throws IOException {
+            return true;
+        }
 
-                String[] idTokens = tokens[2].split(";");
-                listener.id(isMissingValue(idTokens) ? new String[0] : idTokens);
+        @Override
+        public void genotype(final int sample, final CharSequence formatId, final CharSequence values) throws IOException {
+            String sampleId = sample < samples.length ? samples[sample] : null;
+            if ("GT".contentEquals(formatId)) {
+                listener.genotype(sampleId, "GT", values.toString());
+            }
+            else if (!VcfTokenizer.isMissingValue(values)) {
+                listener.genotype(sampleId, formatId(formatId), split(values, ','));
+            }
+        }
 
-                listener.ref(tokens[3]);
+        @Override
+        public boolean complete() throws IOException {
+            return listener.complete();
+        }
 
-                String[] altTokens = tokens[4].split(",");
-                listener.alt(isMissingValue(altTokens) ? new String[0] : altTokens);
+        /**
+         * Return the sample names, in column order.
+         *
+         * @return the sample names, in column order
+         */
+        protected final String[] getSamples() {
+            return samples;
+        }
 
-                try {
-                    listener.qual(isMissingValue(tokens[5]) ? null : Double.parseDouble(tokens[5]));
-                }
-                catch (NumberFormatException e) {
-                    throw new IOException("invalid qual at line number " + lineNumber, e);
+        /**
+         * Return the format id string for the specified format id token, reusing
+         * the format id strings for the current record where possible.
+         *
+         * @param formatId format id token
+         * @return the format id string for the specified format id token
+         */
+        private String formatId(final CharSequence formatId) {
+            for (String f : format) {
+                if (f.contentEquals(formatId)) {
+                    return f;
                 }
+            }
+            return formatId.toString();
+        }
+    }
 
-                String[] filterTokens = tokens[6].split(";");
-                listener.filter(isMissingValue(filterTokens) ? new String[0] : filterTokens);
-
-                String[] infoTokens = tokens[7].split(";");
-                if (!isMissingValue(infoTokens)) {
-                    for (String infoToken : infoTokens) {
-                        String[] entryTokens = infoToken.split("=");
-                        if (entryTokens.length == 1) {
-                            listener.info(entryTokens[0], "true");
-                        }
-                        else if (entryTokens.length == 2) {
-                            String infoId = entryTokens[0];
-                            String value = entryTokens[1];
-                            if (isMissingValue(value)) {
-                                listener.info(infoId);
-                            }
-                            else {
-                                listener.info(infoId, value.split(","));
-                            }
-                        }
-                    }
-                }
+    /**
+     * VCF token listener that configures a VCF record builder with raw genotypes.
+     */
+    private static final class LazyTokenListener extends TokenListener {
+        /** VCF record builder. */
+        private final VcfRecord.Builder builder;
 
-                if (tokens.length > 8) {
-                    String[] formatTokens = tokens[8].split(":");
-                    listener.format(formatTokens);
-
-                    for (int column = 9, columns = tokens.length; column < columns; column++) {
-                        String[] genotypeTokens = tokens[column].split(":");
-
-                        if (genotypeTokens.length > formatTokens.length) {
-                            throw new IOException("invalid genotype fields at line number " + lineNumber + ", too many genotype fields");
-                        }
-                        if (formatTokens.length > 0 && "GT".equals(formatTokens[0])) {
-                            if (genotypeTokens.length == 0) {
-                                throw new IOException("invalid genotype fields at line number " + lineNumber + ", missing genotype (GT) field");
-                            }
-                            String gt = genotypeTokens[0];
-                            listener.genotype(samples.get(column), "GT", gt);
-                        }
-                        for (int i = 1, size = Math.min(formatTokens.length, genotypeTokens.length); i < size; i++) {
-                            if (!isMissingValue(genotypeTokens[i])) {
-                                listener.genotype(samples.get(column), formatTokens[i], genotypeTokens[i].split(","));
-                            }
-                        }
-                    }
-                }
 
-                if (!listener.complete()) {
-                    return false;
-                }
-            }
-            return true;
+        /**
+         * Create a new lazy VCF token listener.
+         *
+         * @param listener VCF parse listener
+         * @param builder VCF record builder
+         * @param symbols symbol table
+         */
+        private LazyTokenListener(final VcfParseListener listener, final VcfRecord.Builder builder, final VcfSymbols symbols) {
+            super(listener, symbols);
+            checkNotNull(builder);
+            this.builder = builder;
+        }
+
+
+        @Override
+        public boolean genotypes(final CharSequence genotypes) throws IOException {
+            builder.withRawGenotypes(getSamples(), genotypes.toString());
+            return false;
         }
     }
 
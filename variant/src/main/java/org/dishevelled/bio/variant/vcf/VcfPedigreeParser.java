@@ -52,7 +52,8 @@ public final class VcfPedigreeParser {
 
 
     /**
-     * Read a VCF pedigree from the specified readable.
+     * Read a VCF pedigree from the specified readable.  Only the header lines are read,
+     * reading stops at the <code>#CHROM</code> header line and data lines are never tokenized.
      *
      * @param readable readable to read from, must not be null
      * @return a VCF pedigree read from the specified readable
@@ -61,7 +62,7 @@ public final class VcfPedigreeParser {
     public static VcfPedigree pedigree(final Readable readable) throws IOException {
         checkNotNull(readable);
         ParseListener parseListener = new ParseListener();
-        VcfParser.parse(readable, parseListener);
+        VcfParser.parseHeader(readable, parseListener);
         return parseListener.getPedigree();
     }
 
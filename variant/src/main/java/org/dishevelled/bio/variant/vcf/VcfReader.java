@@ -29,6 +29,7 @@ import java.net.URL;
 
 import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileReader;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -39,10 +40,16 @@ import java.nio.file.Path;
 import java.util.HashSet;
 import java.util.Set;
 
+import java.util.function.Predicate;
+
+import java.util.zip.GZIPInputStream;
+
 import com.google.common.base.Charsets;
 
 import com.google.common.io.Resources;
 
+import org.dishevelled.bio.bgzf.Bgzf;
+
 /**
  * VCF reader.
  *
@@ -60,6 +67,17 @@ public final class VcfReader {
 
     // callback methods
 
+    /**
+     * Tokenize the specified readable.
+     *
+     * @param readable readable to tokenize, must not be null
+     * @param listener low-level event based token callback, must not be null
+     * @throws IOException if an I/O error occurs
+     */
+    public static void tokenize(final Readable readable, final VcfTokenListener listener) throws IOException {
+        VcfTokenizer.tokenize(readable, listener);
+    }
+
     /**
      * Parse the specified readable.
      *
@@ -82,6 +100,116 @@ public final class VcfReader {
         StreamingVcfParser.stream(readable, listener);
     }
 
+    /**
+     * Stream the specified readable.  If <code>lazy</code> is true, the raw genotypes
+     * for each VCF record are not parsed until the genotypes are first accessed.
+     *
+     * @param readable readable to stream, must not be null
+     * @param listener event based reader callback, must not be null
+     * @param lazy true to parse genotypes lazily
+     * @throws IOException if an I/O error occurs
+     */
+    public static void stream(final Readable readable, final VcfStreamListener listener, final boolean lazy) throws IOException {
+        StreamingVcfParser.stream(readable, listener, lazy);
+    }
+
+    /**
+     * Stream the specified readable in parallel.  Batches of data lines are parsed by
+     * a pool of parser threads, while the listener is notified of VCF records in their
+     * original order on the calling thread.
+     *
+     * @param readable readable to stream, must not be null
+     * @param listener event based reader callback, must not be null
+     * @param threads number of parser threads, must be at least one
+     * @param batchSize number of data lines per batch, must be at least one
+     * @throws IOException if an I/O error occurs
+     */
+    public static void streamParallel(final Readable readable,
+                                      final VcfStreamListener listener,
+                                      final int threads,
+                                      final int batchSize) throws IOException {
+        ParallelVcfParser.stream(readable, listener, threads, batchSize);
+    }
+
+    /**
+     * Stream the specified readable in parallel.  Batches of data lines are parsed by
+     * a pool of parser threads, while the listener is notified of VCF records in their
+     * original order on the calling thread.  If <code>lazy</code> is true, the raw genotypes
+     * for each VCF record are not parsed until the genotypes are first accessed.
+     *
+     * @param readable readable to stream, must not be null
+     * @param listener event based reader callback, must not be null
+     * @param threads number of parser threads, must be at least one
+     * @param batchSize number of data lines per batch, must be at least one
+     * @param lazy true to parse genotypes lazily
+     * @throws IOException if an I/O error occurs
+     */
+    public static void streamParallel(final Readable readable,
+                                      final VcfStreamListener listener,
+                                      final int threads,
+                                      final int batchSize,
+                                      final boolean lazy) throws IOException {
+        ParallelVcfParser.stream(readable, listener, threads, batchSize, lazy);
+    }
+
+    /**
+     * Stream the specified readable in parallel, notifying the listener of only those VCF records
+     * accepted by the specified predicate.  Batches of data lines are parsed and the predicate
+     * evaluated by a pool of parser threads, so the predicate must be thread safe, while the listener
+     * is notified of accepted VCF records in their original order on the calling thread.  If
+     * <code>lazy</code> is true, the raw genotypes for each VCF record are not parsed until the
+     * genotypes are first accessed.
+     *
+     * @param readable readable to stream, must not be null
+     * @param listener event based reader callback, must not be null
+     * @param threads number of parser threads, must be at least one
+     * @param batchSize number of data lines per batch, must be at least one
+     * @param lazy true to parse genotypes lazily
+     * @param predicate predicate evaluated against each VCF record by the parser threads, must not be null
+     * @throws IOException if an I/O error occurs
+     */
+    public static void streamParallel(final Readable readable,
+                                      final VcfStreamListener listener,
+                                      final int threads,
+                                      final int batchSize,
+                                      final boolean lazy,
+                                      final Predicate<VcfRecord> predicate) throws IOException {
+        checkNotNull(predicate);
+        ParallelVcfParser.stream(readable, listener, threads, batchSize, lazy, predicate);
+    }
+
+    /**
+     * Stream the VCF records overlapping the specified region from the specified bgzipped
+     * VCF path, using its tabix (<code>.tbi</code>) or CSI (<code>.csi</code>) index to seek
+     * directly to the BGZF blocks that may contain overlapping records.
+     *
+     * @param path bgzipped VCF path, must not be null
+     * @param chrom chromosome, must not be null
+     * @param start start, 0-based inclusive
+     * @param end end, 0-based exclusive
+     * @param listener event based reader callback, must not be null
+     * @throws IOException if an I/O error occurs or no index is found
+     */
+    public static void query(final Path path,
+                             final String chrom,
+                             final long start,
+                             final long end,
+                             final VcfStreamListener listener) throws IOException {
+        IndexedVcfParser.query(path, chrom, start, end, listener);
+    }
+
+    /**
+     * Return true if the specified path has a tabix (<code>.tbi</code>) or CSI (<code>.csi</code>)
+     * index next to it.
+     *
+     * @param path path, must not be null
+     * @return true if the specified path has a tabix (<code>.tbi</code>) or CSI (<code>.csi</code>)
+     *    index next to it
+     */
+    public static boolean isIndexed(final Path path) {
+        return IndexedVcfParser.isIndexed(path);
+    }
+
 
     // collect methods
 
@@ -129,20 +257,33 @@ public final class VcfReader {
         return VcfRecordParser.records(readable);
     }
 
+    /**
+     * Read zero or more VCF records from the specified readable.  If <code>lazy</code> is true,
+     * the raw genotypes for each VCF record are not parsed until the genotypes are first accessed.
+     *
+     * @param readable readable to read from, must not be null
+     * @param lazy true to parse genotypes lazily
+     * @return zero or more VCF records read from the specified readable
+     * @throws IOException if an I/O error occurs
+     */
+    public static Iterable<VcfRecord> records(final Readable readable, final boolean lazy) throws IOException {
+        return VcfRecordParser.records(readable, lazy);
+    }
+
 
     // convenience methods
 
     /**
      * Read the VCF header from the specified file.
      *
-     * @param file file to read from, must not be null
+     * @param file file to read from, optionally BGZF compressed, must not be null
      * @return the VCF header read from the specified file
      * @throws IOException if an I/O error occurs
      */
     public static VcfHeader header(final File file) throws IOException {
         checkNotNull(file);
         // could also use Files.asCharSource(file, Charsets.UTF_8).openBufferedStream()
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+        try (BufferedReader reader = reader(file)) {
             return header(reader);
         }
     }
@@ -150,7 +291,7 @@ public final class VcfReader {
     /**
      * Read the VCF header from the specified path.
      *
-     * @param path path to read from, must not be null
+     * @param path path to read from, optionally BGZF compressed, must not be null
      * @return the VCF header read from the specified path
      * @throws IOException if an I/O error occurs
      */
@@ -190,13 +331,13 @@ public final class VcfReader {
     /**
      * Read zero or more VCF samples from the specified file.
      *
-     * @param file file to read from, must not be null
+     * @param file file to read from, optionally BGZF compressed, must not be null
      * @return zero or more VCF samples read from the specified file
      * @throws IOException if an I/O error occurs
      */
     public static Iterable<VcfSample> samples(final File file) throws IOException {
         checkNotNull(file);
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+        try (BufferedReader reader = reader(file)) {
             return samples(reader);
         }
     }
@@ -204,7 +345,7 @@ public final class VcfReader {
     /**
      * Read zero or more VCF samples from the specified path.
      *
-     * @param path path to read from, must not be null
+     * @param path path to read from, optionally BGZF compressed, must not be null
      * @return zero or more VCF samples read from the specified path
      * @throws IOException if an I/O error occurs
      */
@@ -244,14 +385,14 @@ public final class VcfReader {
     /**
      * Read the VCF pedigree from the specified file.
      *
-     * @param file file to read from, must not be null
+     * @param file file to read from, optionally BGZF compressed, must not be null
      * @return the VCF pedigree read from the specified file
      * @throws IOException if an I/O error occurs
      */
     public static VcfPedigree pedigree(final File file) throws IOException {
         checkNotNull(file);
         // could also use Files.asCharSource(file, Charsets.UTF_8).openBufferedStream()
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+        try (BufferedReader reader = reader(file)) {
             return pedigree(reader);
         }
     }
@@ -259,7 +400,7 @@ public final class VcfReader {
     /**
      * Read the VCF pedigree from the specified path.
      *
-     * @param path path to read from, must not be null
+     * @param path path to read from, optionally BGZF compressed, must not be null
      * @return the VCF pedigree read from the specified path
      * @throws IOException if an I/O error occurs
      */
@@ -299,13 +440,13 @@ public final class VcfReader {
     /**
      * Read zero or more VCF records from the specified file.
      *
-     * @param file file to read from, must not be null
+     * @param file file to read from, optionally BGZF compressed, must not be null
      * @return zero or more VCF records read from the specified file
      * @throws IOException if an I/O error occurs
      */
     public static Iterable<VcfRecord> records(final File file) throws IOException {
         checkNotNull(file);
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+        try (BufferedReader reader = reader(file)) {
             return records(reader);
         }
     }
@@ -313,7 +454,7 @@ public final class VcfReader {
     /**
      * Read zero or more VCF records from the specified path.
      *
-     * @param path path to read from, must not be null
+     * @param path path to read from, optionally BGZF compressed, must not be null
      * @return zero or more VCF records read from the specified path
      * @throws IOException if an I/O error occurs
      */
@@ -349,4 +490,19 @@ public final class VcfReader {
             return records(reader);
         }
     }
+
+    /**
+     * Open a buffered reader over the specified file, decompressing if the specified
+     * file is BGZF compressed.  BGZF blocks are inflated only as they are read.
+     *
+     * @param file file
+     * @return a buffered reader over the specified file
+     * @throws IOException if an I/O error occurs
+     */
+    private static BufferedReader reader(final File file) throws IOException {
+        if (Bgzf.isBgzf(file.toPath())) {
+            return new BufferedReader(new InputStreamReader(new GZIPInputStream(new FileInputStream(file)), Charsets.UTF_8));
+        }
+        return new BufferedReader(new FileReader(file));
+    }
 }
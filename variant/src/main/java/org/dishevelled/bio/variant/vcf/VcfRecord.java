@@ -29,7 +29,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static org.dishevelled.bio.variant.vcf.VcfAttributes.*;
 
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -78,8 +78,20 @@ public final class VcfRecord {
     /** Format. */
     private final String[] format;
 
-    /** Genotypes keyed by sample id. */
-    private final Map<String, VcfGenotype> genotypes;
+    /** Genotypes keyed by sample id, decoded from raw genotypes on first access if necessary. */
+    private volatile Map<String, VcfGenotype> genotypes;
+
+    /** Genotypes in column order, computed on first access. */
+    private volatile VcfGenotype[] genotypeColumns;
+
+    /** Sample ids for raw genotypes, in column order. */
+    private final String[] samples;
+
+    /** Raw genotypes, tab-separated genotype columns in sample order. */
+    private final String rawGenotypes;
+
+    /** Start offsets of the raw genotype columns, computed on first access. */
+    private volatile int[] rawGenotypeOffsets;
 
     /** Count for Number=A attributes. */
     private final int a;
@@ -101,7 +113,9 @@ public final class VcfRecord {
      * @param filter array of filters
      * @param info INFO key-value(s) pairs, must not be null
      * @param format array of format keys
-     * @param genotypes genotypes keyed by sample id, must not be null
+     * @param genotypes genotypes keyed by sample id, must not be null if raw genotypes are null
+     * @param samples sample ids for raw genotypes, in column order, must not be null if raw genotypes are not null
+     * @param rawGenotypes raw genotypes, tab-separated genotype columns in sample order
      */
     private VcfRecord(final long lineNumber,
                       final String chrom,
@@ -113,20 +127,29 @@ public final class VcfRecord {
                       final String[] filter,
                       final ListMultimap<String, String> info,
                       final String[] format,
-                      final Map<String, VcfGenotype> genotypes) {
+                      final Map<String, VcfGenotype> genotypes,
+                      final String[] samples,
+                      final String rawGenotypes) {
 
         checkNotNull(chrom, "chrom must not be null");
         checkNotNull(ref, "ref must not be null");
         checkNotNull(alt, "alt must not be null");
         checkNotNull(info, "info must not be null");
-        checkNotNull(genotypes, "genotypes must not be null");
-
-        // verify genotypes have correct ref and alt
-        for (VcfGenotype genotype : genotypes.values()) {
-            checkArgument(ref.equals(genotype.getRef()),
-                "ref " + ref + " and genotype ref " + genotype.getRef() + " must be equal");
-            checkArgument(Arrays.equals(alt, genotype.getAlt()),
-                "alt " + Arrays.toString(alt) + " and genotype alt " + Arrays.toString(genotype.getAlt()) + " must be equal");
+
+        if (rawGenotypes == null) {
+            checkNotNull(genotypes, "genotypes must not be null");
+
+            // verify genotypes have correct ref and alt
+            for (VcfGenotype genotype : genotypes.values()) {
+                checkArgument(ref.equals(genotype.getRef()),
+                    "ref " + ref + " and genotype ref " + genotype.getRef() + " must be equal");
+                checkArgument(Arrays.equals(alt, genotype.getAlt()),
+                    "alt " + Arrays.toString(alt) + " and genotype alt " + Arrays.toString(genotype.getAlt()) + " must be equal");
+            }
+        }
+        else {
+            checkNotNull(samples, "samples must not be null");
+            checkNotNull(format, "format must not be null");
         }
 
         this.lineNumber = lineNumber;
@@ -139,7 +162,9 @@ public final class VcfRecord {
         this.filter = filter;
         this.info = info;
         this.format = format;
-        this.genotypes = genotypes;
+        this.genotypes = rawGenotypes == null ? genotypes : null;
+        this.samples = rawGenotypes == null ? null : samples;
+        this.rawGenotypes = rawGenotypes;
 
         this.a = this.alt.length;
         this.r = this.a + 1;
@@ -1325,12 +1350,181 @@ public final class VcfRecord {
     }
 
     /**
-     * Return the genotypes keyed by sample id for this VCF record.
+     * Return the genotypes keyed by sample id for this VCF record.  If this VCF record
+     * was read lazily, the raw genotypes are decoded on first access.
      *
      * @return the genotypes keyed by sample id for this VCF record
+     * @throws IllegalArgumentException if the raw genotypes for this VCF record are not valid
      */
     public Map<String, VcfGenotype> getGenotypes() {
-        return genotypes;
+        Map<String, VcfGenotype> result = genotypes;
+        if (result == null) {
+            result = decodeGenotypes(lineNumber, ref, alt, format, samples, rawGenotypes);
+            genotypes = result;
+        }
+        return result;
+    }
+
+    /**
+     * Return the genotype for the specified sample id for this VCF record, if any.  If this
+     * VCF record was read lazily and its genotypes have not yet been decoded, only the raw
+     * genotype for the specified sample id is decoded.
+     *
+     * @param sampleId sample id, must not be null
+     * @return the genotype for the specified sample id for this VCF record, or <code>null</code>
+     *    if this VCF record contains no genotype for the specified sample id
+     * @throws IllegalArgumentException if the raw genotype for the specified sample id is not valid
+     */
+    public VcfGenotype getGenotype(final String sampleId) {
+        checkNotNull(sampleId);
+        Map<String, VcfGenotype> result = genotypes;
+        if (result != null) {
+            return result.get(sampleId);
+        }
+        for (int i = 0, start = 0; i < samples.length && start <= rawGenotypes.length(); i++) {
+            int end = rawGenotypes.indexOf('\t', start);
+            if (end < 0) {
+                end = rawGenotypes.length();
+            }
+            if (sampleId.equals(samples[i])) {
+                return decodeGenotype(lineNumber, ref, alt, format, rawGenotypes.substring(start, end));
+            }
+            start = end + 1;
+        }
+        return null;
+    }
+
+    /**
+     * Return the genotype for the specified sample column index for this VCF record, if any.
+     * Genotype columns are in the iteration order of the genotypes keyed by sample id, which for
+     * VCF records read from a VCF file is the order of the samples in the <code>#CHROM</code> header line.
+     *
+     * @param sample sample column index, must be at least zero
+     * @return the genotype for the specified sample column index for this VCF record, or
+     *    <code>null</code> if this VCF record contains no genotype for the specified sample column index
+     */
+    VcfGenotype getGenotype(final int sample) {
+        VcfGenotype[] result = genotypeColumns;
+        if (result == null) {
+            result = getGenotypes().values().toArray(new VcfGenotype[0]);
+            genotypeColumns = result;
+        }
+        return sample < result.length ? result[sample] : null;
+    }
+
+    /**
+     * Return the sample ids for the raw genotypes for this VCF record, in column order, if any.
+     *
+     * @return the sample ids for the raw genotypes for this VCF record, in column order,
+     *    or <code>null</code> if this VCF record was not read lazily
+     */
+    String[] getSamples() {
+        return samples;
+    }
+
+    /**
+     * Return the raw genotypes for this VCF record, tab-separated genotype columns
+     * in sample order, if any.
+     *
+     * @return the raw genotypes for this VCF record, or <code>null</code> if this VCF
+     *    record was not read lazily
+     */
+    String getRawGenotypes() {
+        return rawGenotypes;
+    }
+
+    /**
+     * Return the start offsets of the raw genotype columns for this VCF record, followed by
+     * the length of the raw genotypes plus one, if any.  The raw genotype column for sample
+     * <code>i</code> spans <code>[offsets[i], offsets[i + 1] - 1)</code>.
+     *
+     * @return the start offsets of the raw genotype columns for this VCF record, or
+     *    <code>null</code> if this VCF record was not read lazily
+     */
+    int[] getRawGenotypeOffsets() {
+        if (rawGenotypes == null) {
+            return null;
+        }
+        int[] result = rawGenotypeOffsets;
+        if (result == null) {
+            int columns = 1;
+            for (int i = 0, length = rawGenotypes.length(); i < length; i++) {
+                if (rawGenotypes.charAt(i) == '\t') {
+                    columns++;
+                }
+            }
+            result = new int[columns + 1];
+            for (int i = 0, column = 1, length = rawGenotypes.length(); i < length; i++) {
+                if (rawGenotypes.charAt(i) == '\t') {
+                    result[column++] = i + 1;
+                }
+            }
+            result[columns] = rawGenotypes.length() + 1;
+            rawGenotypeOffsets = result;
+        }
+        return result;
+    }
+
+    /**
+     * Decode the specified raw genotypes.
+     *
+     * @param lineNumber line number
+     * @param ref reference allele
+     * @param alt array of alternate alleles
+     * @param format array of format keys
+     * @param samples sample ids, in column order
+     * @param rawGenotypes raw genotypes, tab-separated genotype columns in sample order
+     * @return the specified raw genotypes decoded into genotypes keyed by sample id
+     */
+    private static Map<String, VcfGenotype> decodeGenotypes(final long lineNumber,
+                                                            final String ref,
+                                                            final String[] alt,
+                                                            final String[] format,
+                                                            final String[] samples,
+                                                            final String rawGenotypes) {
+        String[] columns = VcfTokenizer.split(rawGenotypes, '\t');
+        if (columns.length > samples.length) {
+            throw new IllegalArgumentException("invalid genotypes at line number " + lineNumber + ", found " + columns.length + " genotype columns for " + samples.length + " samples");
+        }
+        ImmutableMap.Builder<String, VcfGenotype> genotypes = ImmutableMap.builder();
+        for (int i = 0; i < columns.length; i++) {
+            genotypes.put(samples[i], decodeGenotype(lineNumber, ref, alt, format, columns[i]));
+        }
+        return genotypes.build();
+    }
+
+    /**
+     * Decode the specified raw genotype column.
+     *
+     * @param lineNumber line number
+     * @param ref reference allele
+     * @param alt array of alternate alleles
+     * @param format array of format keys
+     * @param column raw genotype column
+     * @return the specified raw genotype column decoded into a genotype
+     */
+    private static VcfGenotype decodeGenotype(final long lineNumber,
+                                              final String ref,
+                                              final String[] alt,
+                                              final String[] format,
+                                              final String column) {
+        String[] fields = VcfTokenizer.split(column, ':');
+        if (fields.length > format.length) {
+            throw new IllegalArgumentException("invalid genotype fields at line number " + lineNumber + ", too many genotype fields");
+        }
+        if (fields.length == 0 && format.length > 0 && "GT".equals(format[0])) {
+            throw new IllegalArgumentException("invalid genotype fields at line number " + lineNumber + ", missing genotype (GT) field");
+        }
+        VcfGenotype.Builder builder = VcfGenotype.builder().withRef(ref).withAlt(alt);
+        for (int i = 0; i < fields.length; i++) {
+            if ("GT".equals(format[i])) {
+                builder.withField("GT", fields[i]);
+            }
+            else if (!VcfTokenizer.isMissingValue(fields[i])) {
+                builder.withField(format[i], VcfTokenizer.split(fields[i], ','));
+            }
+        }
+        return builder.build();
     }
 
     /**
@@ -1361,7 +1555,7 @@ public final class VcfRecord {
             .withFilter(record.getFilter())
             .withInfo(record.getInfo())
             .withFormat(record.getFormat())
-            .withGenotypes(record.getGenotypes());
+            .withGenotypes(record);
     }
 
     /**
@@ -1402,7 +1596,13 @@ public final class VcfRecord {
         private ImmutableMap.Builder<String, VcfGenotype> genotypes = ImmutableMap.builder();
 
         /** Map of genotype fields keyed by sample id. */
-        private Map<String, ListMultimap<String, String>> genotypeFields = new HashMap<String, ListMultimap<String, String>>();
+        private Map<String, ListMultimap<String, String>> genotypeFields = new LinkedHashMap<String, ListMultimap<String, String>>();
+
+        /** Sample ids for raw genotypes, in column order. */
+        private String[] samples;
+
+        /** Raw genotypes, tab-separated genotype columns in sample order. */
+        private String rawGenotypes;
 
 
         /**
@@ -1589,6 +1789,7 @@ public final class VcfRecord {
          */
         public Builder withGenotype(final String sampleId, final String formatId, final String... values) {
             checkNotNull(values);
+            decodeRawGenotypes();
             genotypeFields.putIfAbsent(sampleId, ArrayListMultimap.<String, String>create());
             for (String value : values) {
                 genotypeFields.get(sampleId).put(formatId, value);
@@ -1604,6 +1805,7 @@ public final class VcfRecord {
          * @return this VCF record builder configured with the specified genotype keyed by sample id
          */
         public Builder withGenotype(final String sampleId, final VcfGenotype genotype) {
+            decodeRawGenotypes();
             genotypes.put(sampleId, genotype);
             return this;
         }
@@ -1615,10 +1817,44 @@ public final class VcfRecord {
          * @return this VCF record builder configured with the specified genotypes keyed by sample id
          */
         public Builder withGenotypes(final Map<String, VcfGenotype> genotypes) {
+            decodeRawGenotypes();
             this.genotypes.putAll(genotypes);
             return this;
         }
 
+        /**
+         * Return this VCF record builder configured with the genotypes from the specified
+         * VCF record, without decoding them if the specified VCF record was read lazily.
+         *
+         * @param record VCF record, must not be null
+         * @return this VCF record builder configured with the genotypes from the specified VCF record
+         */
+        private Builder withGenotypes(final VcfRecord record) {
+            if (record.genotypes == null) {
+                return withRawGenotypes(record.getSamples(), record.getRawGenotypes());
+            }
+            return withGenotypes(record.getGenotypes());
+        }
+
+        /**
+         * Return this VCF record builder configured with the specified raw genotypes, to be
+         * decoded lazily against the configured format on first access.  Replaces any previously
+         * configured genotypes.
+         *
+         * @param samples sample ids, in column order, must not be null
+         * @param rawGenotypes raw genotypes, tab-separated genotype columns in sample order, must not be null
+         * @return this VCF record builder configured with the specified raw genotypes
+         */
+        public Builder withRawGenotypes(final String[] samples, final String rawGenotypes) {
+            checkNotNull(samples);
+            checkNotNull(rawGenotypes);
+            genotypes = ImmutableMap.builder();
+            genotypeFields.clear();
+            this.samples = samples;
+            this.rawGenotypes = rawGenotypes;
+            return this;
+        }
+
         /**
          * Return this VCF record builder configured with the specified genotypes keyed by sample id.
          * Use sparingly, more expensive than <code>withGenotypes</code>.
@@ -1627,6 +1863,9 @@ public final class VcfRecord {
          * @return this VCF record builder configured with the specified genotypes keyed by sample id
          */
         public Builder replaceGenotypes(final Map<String, VcfGenotype> genotypes) {
+            samples = null;
+            rawGenotypes = null;
+            genotypeFields.clear();
             this.genotypes = ImmutableMap.builder();
             this.genotypes.putAll(genotypes);
             return this;
@@ -1650,9 +1889,22 @@ public final class VcfRecord {
             format = null;
             genotypes = ImmutableMap.builder();
             genotypeFields.clear();
+            samples = null;
+            rawGenotypes = null;
             return this;
         }
 
+        /**
+         * Decode previously configured raw genotypes, if any, into genotypes.
+         */
+        private void decodeRawGenotypes() {
+            if (rawGenotypes != null) {
+                genotypes.putAll(decodeGenotypes(lineNumber, ref, alt, format, samples, rawGenotypes));
+                samples = null;
+                rawGenotypes = null;
+            }
+        }
+
         /**
          * Create and return a new VCF record populated from the configuration of this VCF record builder.
          *
@@ -1664,7 +1916,7 @@ public final class VcfRecord {
                 String sampleId = entry.getKey();
                 genotypes.put(sampleId, VcfGenotype.builder().withRef(ref).withAlt(alt).withFields(entry.getValue()).build());
             }
-            return new VcfRecord(lineNumber, chrom, pos, id, ref, alt, qual, filter, info.build(), format, genotypes.build());
+            return new VcfRecord(lineNumber, chrom, pos, id, ref, alt, qual, filter, info.build(), format, genotypes.build(), samples, rawGenotypes);
         }
     }
 }
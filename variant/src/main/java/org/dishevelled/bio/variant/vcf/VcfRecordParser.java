@@ -53,9 +53,55 @@ public final class VcfRecordParser {
      * @throws IOException if an I/O error occurs
      */
     public static Iterable<VcfRecord> records(final Readable readable) throws IOException {
+        return records(readable, false);
+    }
+
+    /**
+     * Read zero or more VCF records from the specified readable.  If <code>lazy</code> is true,
+     * the raw genotypes for each VCF record are not parsed until the genotypes are first accessed.
+     *
+     * @param readable readable to read from, must not be null
+     * @param lazy true to parse genotypes lazily
+     * @return zero or more VCF records read from the specified readable
+     * @throws IOException if an I/O error occurs
+     */
+    public static Iterable<VcfRecord> records(final Readable readable, final boolean lazy) throws IOException {
+        return records(readable, lazy, 0L);
+    }
+
+    /**
+     * Read zero or more VCF records from the specified readable, numbering lines after
+     * the specified line number.
+     *
+     * @param readable readable to read from, must not be null
+     * @param lazy true to parse genotypes lazily
+     * @param lineNumber line number of the line preceding the first line in the specified readable
+     * @return zero or more VCF records read from the specified readable
+     * @throws IOException if an I/O error occurs
+     */
+    static List<VcfRecord> records(final Readable readable, final boolean lazy, final long lineNumber) throws IOException {
+        return records(readable, lazy, lineNumber, null);
+    }
+
+    /**
+     * Read zero or more VCF records from the specified readable, numbering lines after
+     * the specified line number and canonicalizing tokens in a symbol table delegating
+     * to the specified parent symbol table.
+     *
+     * @param readable readable to read from, must not be null
+     * @param lazy true to parse genotypes lazily
+     * @param lineNumber line number of the line preceding the first line in the specified readable
+     * @param symbols parent symbol table, if any, must not be modified during parsing
+     * @return zero or more VCF records read from the specified readable
+     * @throws IOException if an I/O error occurs
+     */
+    static List<VcfRecord> records(final Readable readable,
+                                   final boolean lazy,
+                                   final long lineNumber,
+                                   final VcfSymbols symbols) throws IOException {
         checkNotNull(readable);
         ParseListener parseListener = new ParseListener();
-        VcfParser.parse(readable, parseListener);
+        VcfParser.parse(readable, parseListener, lazy ? parseListener.getBuilder() : null, lineNumber, symbols);
         return parseListener.getRecords();
     }
 
@@ -132,6 +178,15 @@ public final class VcfRecordParser {
             return true;
         }
 
+        /**
+         * Return the VCF record builder.
+         *
+         * @return the VCF record builder
+         */
+        VcfRecord.Builder getBuilder() {
+            return builder;
+        }
+
         /**
          * Return the list of VCF records.
          *
@@ -28,7 +28,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import java.io.IOException;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -51,7 +51,8 @@ public final class VcfSampleParser {
 
 
     /**
-     * Read zero or more VCF samples from the specified readable.
+     * Read zero or more VCF samples from the specified readable.  Only the header lines are read,
+     * reading stops at the <code>#CHROM</code> header line and data lines are never tokenized.
      *
      * @param readable readable to read from, must not be null
      * @return zero or more VCF samples read from the specified readable
@@ -60,7 +61,7 @@ public final class VcfSampleParser {
     public static Iterable<VcfSample> samples(final Readable readable) throws IOException {
         checkNotNull(readable);
         ParseListener parseListener = new ParseListener();
-        VcfParser.parse(readable, parseListener);
+        VcfParser.parseHeader(readable, parseListener);
         return parseListener.getSamples().values();
     }
 
@@ -69,7 +70,7 @@ public final class VcfSampleParser {
      */
     static final class ParseListener extends VcfParseAdapter {
         /** VCF samples keyed by name. */
-        private Map<String, VcfSample> samples = new HashMap<String, VcfSample>();
+        private Map<String, VcfSample> samples = new LinkedHashMap<String, VcfSample>();
 
         /*
           ##SAMPLE=<ID=S_ID,Genomes=G1_ID;G2_ID; ...;GK_ID,Mixture=N1;N2; ...;NK,Description=S1;S2; ...; SK >
@@ -107,12 +108,13 @@ public final class VcfSampleParser {
 
         @Override
         public void samples(final String... samples) throws IOException {
+            // order samples by column, adding if missing in meta lines
+            Map<String, VcfSample> ordered = new LinkedHashMap<String, VcfSample>();
             for (String sample : samples) {
-                // add if missing in meta lines
-                if (!this.samples.containsKey(sample)) {
-                    this.samples.put(sample, new VcfSample(sample));
-                }
+                ordered.put(sample, this.samples.containsKey(sample) ? this.samples.get(sample) : new VcfSample(sample));
             }
+            ordered.putAll(this.samples);
+            this.samples = ordered;
         }
 
         /**
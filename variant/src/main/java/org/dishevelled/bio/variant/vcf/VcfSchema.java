@@ -0,0 +1,978 @@
+/*
+
+    dsh-bio-variant  Variants.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.variant.vcf;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.concurrent.Immutable;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import com.google.common.collect.ImmutableMap;
+
+import org.dishevelled.bio.variant.vcf.header.VcfFormatHeaderLine;
+import org.dishevelled.bio.variant.vcf.header.VcfHeaderLineNumber;
+import org.dishevelled.bio.variant.vcf.header.VcfHeaderLineType;
+import org.dishevelled.bio.variant.vcf.header.VcfHeaderLines;
+import org.dishevelled.bio.variant.vcf.header.VcfInfoHeaderLine;
+
+/**
+ * VCF schema, typed INFO and FORMAT field accessors resolved once per file from
+ * the Number and Type of the INFO and FORMAT header lines.
+ *
+ * <p>
+ * Field accessors return Type=Integer and Type=Float values as primitive
+ * arrays or fill caller-supplied buffers, without boxing.  For VCF records
+ * read lazily, FORMAT field values are parsed directly from the raw genotypes
+ * without decoding VCF genotypes.
+ *
+ * <pre>
+ * VcfSchema schema = VcfSchema.fromHeader(header);
+ * VcfSchema.FormatField ad = schema.format("AD");
+ * VcfSchema.FormatField gq = schema.format("GQ");
+ * int[] buffer = new int[16];
+ *
+ * for (int sample = 0; sample &lt; sampleCount; sample++) {
+ *   if (gq.getInt(record, sample, 0) &gt;= 20) {
+ *     int n = ad.getInts(record, sample, buffer);
+ *     ...
+ *   }
+ * }
+ * </pre>
+ * </p>
+ *
+ * <p>
+ * VCF schemas are resolved at most once per VCF header lines instance, and VCF header
+ * lines at most once per VCF header instance, so callers may call {@link #fromHeader(VcfHeader)}
+ * per record or per header without re-parsing header lines.
+ * </p>
+ *
+ * @author  Michael Heuer
+ */
+@Immutable
+public final class VcfSchema {
+    /** Missing value for Type=Integer values. */
+    public static final int MISSING_INTEGER = Integer.MIN_VALUE;
+
+    /** Missing value for Type=Float values. */
+    public static final float MISSING_FLOAT = Float.NaN;
+
+    /** VCF schemas keyed by VCF header lines instance, weakly. */
+    private static final Cache<VcfHeaderLines, VcfSchema> CACHE = CacheBuilder.newBuilder().weakKeys().build();
+
+    /** INFO field accessors keyed by ID. */
+    private final Map<String, InfoField> infoFields;
+
+    /** FORMAT field accessors keyed by ID. */
+    private final Map<String, FormatField> formatFields;
+
+
+    /**
+     * Create a new VCF schema from the specified VCF header lines.
+     *
+     * @param headerLines VCF header lines, must not be null
+     */
+    private VcfSchema(final VcfHeaderLines headerLines) {
+        checkNotNull(headerLines);
+
+        ImmutableMap.Builder<String, InfoField> infoFields = ImmutableMap.builder();
+        for (VcfInfoHeaderLine infoHeaderLine : headerLines.getInfoHeaderLines().values()) {
+            infoFields.put(infoHeaderLine.getId(), new InfoField(infoHeaderLine.getId(), infoHeaderLine.getNumber(), infoHeaderLine.getType()));
+        }
+        ImmutableMap.Builder<String, FormatField> formatFields = ImmutableMap.builder();
+        for (VcfFormatHeaderLine formatHeaderLine : headerLines.getFormatHeaderLines().values()) {
+            formatFields.put(formatHeaderLine.getId(), new FormatField(formatHeaderLine.getId(), formatHeaderLine.getNumber(), formatHeaderLine.getType()));
+        }
+        this.infoFields = infoFields.build();
+        this.formatFields = formatFields.build();
+    }
+
+
+    /**
+     * Return true if this VCF schema contains an INFO field accessor for the specified ID.
+     *
+     * @param id INFO field ID
+     * @return true if this VCF schema contains an INFO field accessor for the specified ID
+     */
+    public boolean containsInfo(final String id) {
+        return infoFields.containsKey(id);
+    }
+
+    /**
+     * Return the INFO field accessor for the specified ID.
+     *
+     * @param id INFO field ID, must not be null
+     * @return the INFO field accessor for the specified ID
+     * @throws IllegalArgumentException if no INFO header line is present for the specified ID
+     */
+    public InfoField info(final String id) {
+        checkNotNull(id);
+        InfoField infoField = infoFields.get(id);
+        if (infoField == null) {
+            throw new IllegalArgumentException("no INFO header line present for ID " + id);
+        }
+        return infoField;
+    }
+
+    /**
+     * Return true if this VCF schema contains a FORMAT field accessor for the specified ID.
+     *
+     * @param id FORMAT field ID
+     * @return true if this VCF schema contains a FORMAT field accessor for the specified ID
+     */
+    public boolean containsFormat(final String id) {
+        return formatFields.containsKey(id);
+    }
+
+    /**
+     * Return the FORMAT field accessor for the specified ID.
+     *
+     * @param id FORMAT field ID, must not be null
+     * @return the FORMAT field accessor for the specified ID
+     * @throws IllegalArgumentException if no FORMAT header line is present for the specified ID
+     */
+    public FormatField format(final String id) {
+        checkNotNull(id);
+        FormatField formatField = formatFields.get(id);
+        if (formatField == null) {
+            throw new IllegalArgumentException("no FORMAT header line present for ID " + id);
+        }
+        return formatField;
+    }
+
+
+    /**
+     * Return the VCF schema for the specified VCF header.
+     *
+     * @param header VCF header, must not be null
+     * @return the VCF schema for the specified VCF header
+     */
+    public static VcfSchema fromHeader(final VcfHeader header) {
+        return fromHeaderLines(VcfHeaderLines.fromHeader(header));
+    }
+
+    /**
+     * Return the VCF schema for the specified VCF header lines.
+     *
+     * @param headerLines VCF header lines, must not be null
+     * @return the VCF schema for the specified VCF header lines
+     */
+    public static VcfSchema fromHeaderLines(final VcfHeaderLines headerLines) {
+        checkNotNull(headerLines);
+        VcfSchema schema = CACHE.getIfPresent(headerLines);
+        if (schema == null) {
+            schema = new VcfSchema(headerLines);
+            CACHE.put(headerLines, schema);
+        }
+        return schema;
+    }
+
+
+    /**
+     * Typed field accessor.
+     */
+    public abstract static class Field {
+        /** Field ID. */
+        private final String id;
+
+        /** Field number. */
+        private final VcfHeaderLineNumber number;
+
+        /** Field type. */
+        private final VcfHeaderLineType type;
+
+
+        /**
+         * Create a new typed field accessor.
+         *
+         * @param id field ID
+         * @param number field number
+         * @param type field type
+         */
+        private Field(final String id, final VcfHeaderLineNumber number, final VcfHeaderLineType type) {
+            this.id = id;
+            this.number = number;
+            this.type = type;
+        }
+
+
+        /**
+         * Return the ID for this field.
+         *
+         * @return the ID for this field
+         */
+        public final String getId() {
+            return id;
+        }
+
+        /**
+         * Return the number for this field.
+         *
+         * @return the number for this field
+         */
+        public final VcfHeaderLineNumber getNumber() {
+            return number;
+        }
+
+        /**
+         * Return the type for this field.
+         *
+         * @return the type for this field
+         */
+        public final VcfHeaderLineType getType() {
+            return type;
+        }
+
+        /**
+         * Check this field has Type=Integer.
+         */
+        final void checkInteger() {
+            if (type != VcfHeaderLineType.Integer) {
+                throw new IllegalStateException("field " + id + " has Type=" + type + ", not Type=Integer");
+            }
+        }
+
+        /**
+         * Check this field has Type=Integer or Type=Float.
+         */
+        final void checkFloat() {
+            if (type != VcfHeaderLineType.Integer && type != VcfHeaderLineType.Float) {
+                throw new IllegalStateException("field " + id + " has Type=" + type + ", not Type=Integer or Type=Float");
+            }
+        }
+
+        /**
+         * Check the specified count of values against the number for this field.
+         *
+         * @param count count of values
+         * @param a count for Number=A attributes
+         * @param r count for Number=R attributes
+         * @return the specified count of values
+         */
+        final int checkCount(final int count, final int a, final int r) {
+            int expected = -1;
+            if (number.isNumeric()) {
+                expected = number.getValue();
+            }
+            else if ("A".equals(number.getName())) {
+                expected = a;
+            }
+            else if ("R".equals(number.getName())) {
+                expected = r;
+            }
+            if (count > 0 && expected >= 0 && count != expected) {
+                throw new IllegalArgumentException("expected " + expected + " Type=" + type + " values for key " + id + ", found " + count);
+            }
+            return count;
+        }
+
+        /**
+         * Check the specified count of values is at most one.
+         *
+         * @param count count of values
+         */
+        final void checkSingle(final int count) {
+            if (count > 1) {
+                throw new IllegalArgumentException("more than one Type=" + type + " value for key " + id);
+            }
+        }
+    }
+
+    /**
+     * Typed INFO field accessor.
+     */
+    @Immutable
+    public static final class InfoField extends Field {
+
+        /**
+         * Create a new typed INFO field accessor.
+         *
+         * @param id field ID
+         * @param number field number
+         * @param type field type
+         */
+        private InfoField(final String id, final VcfHeaderLineNumber number, final VcfHeaderLineType type) {
+            super(id, number, type);
+        }
+
+
+        /**
+         * Return true if the specified VCF record contains this INFO field.
+         *
+         * @param record VCF record, must not be null
+         * @return true if the specified VCF record contains this INFO field
+         */
+        public boolean contains(final VcfRecord record) {
+            checkNotNull(record);
+            return record.getInfo().containsKey(getId());
+        }
+
+        /**
+         * Return the Type=Integer value of this INFO field for the specified VCF record,
+         * or the specified default value if the specified VCF record does not contain this INFO field.
+         *
+         * @param record VCF record, must not be null
+         * @param defaultValue default value
+         * @return the Type=Integer value of this INFO field for the specified VCF record,
+         *    or the specified default value
+         */
+        public int getInt(final VcfRecord record, final int defaultValue) {
+            checkNotNull(record);
+            checkInteger();
+            List<String> values = record.getInfo().get(getId());
+            if (values.isEmpty()) {
+                return defaultValue;
+            }
+            checkSingle(values.size());
+            return parseInt(values.get(0), 0, values.get(0).length());
+        }
+
+        /**
+         * Return the Type=Integer or Type=Float value of this INFO field for the specified VCF record,
+         * or the specified default value if the specified VCF record does not contain this INFO field.
+         *
+         * @param record VCF record, must not be null
+         * @param defaultValue default value
+         * @return the Type=Integer or Type=Float value of this INFO field for the specified VCF record,
+         *    or the specified default value
+         */
+        public float getFloat(final VcfRecord record, final float defaultValue) {
+            checkNotNull(record);
+            checkFloat();
+            List<String> values = record.getInfo().get(getId());
+            if (values.isEmpty()) {
+                return defaultValue;
+            }
+            checkSingle(values.size());
+            return parseFloat(values.get(0), 0, values.get(0).length());
+        }
+
+        /**
+         * Fill the specified buffer with the Type=Integer values of this INFO field for
+         * the specified VCF record and return the count of values.  If the count of values
+         * is greater than the length of the specified buffer, only the first
+         * <code>buffer.length</code> values are written.  Missing values are written as
+         * {@link VcfSchema#MISSING_INTEGER}.
+         *
+         * @param record VCF record, must not be null
+         * @param buffer buffer, must not be null
+         * @return the count of Type=Integer values of this INFO field for the specified VCF record,
+         *    or zero if the specified VCF record does not contain this INFO field
+         */
+        public int getInts(final VcfRecord record, final int[] buffer) {
+            checkNotNull(record);
+            checkNotNull(buffer);
+            checkInteger();
+            return checkCount(fillInts(record.getInfo().get(getId()), buffer), record.a(), record.r());
+        }
+
+        /**
+         * Return the Type=Integer values of this INFO field for the specified VCF record.
+         *
+         * @param record VCF record, must not be null
+         * @return the Type=Integer values of this INFO field for the specified VCF record,
+         *    or an empty array if the specified VCF record does not contain this INFO field
+         */
+        public int[] getInts(final VcfRecord record) {
+            checkNotNull(record);
+            int[] values = new int[record.getInfo().get(getId()).size()];
+            getInts(record, values);
+            return values;
+        }
+
+        /**
+         * Fill the specified buffer with the Type=Integer or Type=Float values of this INFO field for
+         * the specified VCF record and return the count of values.  If the count of values
+         * is greater than the length of the specified buffer, only the first
+         * <code>buffer.length</code> values are written.  Missing values are written as
+         * {@link VcfSchema#MISSING_FLOAT}.
+         *
+         * @param record VCF record, must not be null
+         * @param buffer buffer, must not be null
+         * @return the count of Type=Integer or Type=Float values of this INFO field for the specified VCF record,
+         *    or zero if the specified VCF record does not contain this INFO field
+         */
+        public int getFloats(final VcfRecord record, final float[] buffer) {
+            checkNotNull(record);
+            checkNotNull(buffer);
+            checkFloat();
+            return checkCount(fillFloats(record.getInfo().get(getId()), buffer), record.a(), record.r());
+        }
+
+        /**
+         * Return the Type=Integer or Type=Float values of this INFO field for the specified VCF record.
+         *
+         * @param record VCF record, must not be null
+         * @return the Type=Integer or Type=Float values of this INFO field for the specified VCF record,
+         *    or an empty array if the specified VCF record does not contain this INFO field
+         */
+        public float[] getFloats(final VcfRecord record) {
+            checkNotNull(record);
+            float[] values = new float[record.getInfo().get(getId()).size()];
+            getFloats(record, values);
+            return values;
+        }
+    }
+
+    /**
+     * Typed FORMAT field accessor.
+     *
+     * <p>
+     * Samples are addressed by column index, in the order of the samples in the
+     * <code>#CHROM</code> header line.  For VCF records read lazily, values are parsed
+     * directly from the raw genotypes.  Otherwise, values are read from the genotypes
+     * of the VCF record, indexed in column order once per VCF record.
+     * </p>
+     */
+    @Immutable
+    public static final class FormatField extends Field {
+
+        /**
+         * Create a new typed FORMAT field accessor.
+         *
+         * @param id field ID
+         * @param number field number
+         * @param type field type
+         */
+        private FormatField(final String id, final VcfHeaderLineNumber number, final VcfHeaderLineType type) {
+            super(id, number, type);
+        }
+
+
+        /**
+         * Return true if the specified VCF genotype contains this FORMAT field.
+         *
+         * @param genotype VCF genotype, must not be null
+         * @return true if the specified VCF genotype contains this FORMAT field
+         */
+        public boolean contains(final VcfGenotype genotype) {
+            checkNotNull(genotype);
+            return genotype.getFields().containsKey(getId());
+        }
+
+        /**
+         * Return true if the specified sample in the specified VCF record contains a
+         * non-missing value for this FORMAT field.
+         *
+         * @param record VCF record, must not be null
+         * @param sample sample column index, must be at least zero
+         * @return true if the specified sample in the specified VCF record contains a
+         *    non-missing value for this FORMAT field
+         */
+        public boolean contains(final VcfRecord record, final int sample) {
+            checkNotNull(record);
+            checkArgument(sample >= 0, "sample must be at least zero");
+            if (record.getRawGenotypes() == null) {
+                VcfGenotype genotype = genotype(record, sample);
+                return genotype != null && contains(genotype);
+            }
+            return locate(record, sample) >= 0L;
+        }
+
+        /**
+         * Return the Type=Integer value of this FORMAT field for the specified VCF genotype,
+         * or the specified default value if the specified VCF genotype does not contain this FORMAT field.
+         *
+         * @param genotype VCF genotype, must not be null
+         * @param defaultValue default value
+         * @return the Type=Integer value of this FORMAT field for the specified VCF genotype,
+         *    or the specified default value
+         */
+        public int getInt(final VcfGenotype genotype, final int defaultValue) {
+            checkNotNull(genotype);
+            checkInteger();
+            List<String> values = genotype.getFields().get(getId());
+            if (values.isEmpty()) {
+                return defaultValue;
+            }
+            checkSingle(values.size());
+            return parseInt(values.get(0), 0, values.get(0).length());
+        }
+
+        /**
+         * Return the Type=Integer value of this FORMAT field for the specified sample in the specified VCF record,
+         * or the specified default value if the specified sample does not contain this FORMAT field.
+         *
+         * @param record VCF record, must not be null
+         * @param sample sample column index, must be at least zero
+         * @param defaultValue default value
+         * @return the Type=Integer value of this FORMAT field for the specified sample in the specified VCF record,
+         *    or the specified default value
+         */
+        public int getInt(final VcfRecord record, final int sample, final int defaultValue) {
+            checkNotNull(record);
+            checkArgument(sample >= 0, "sample must be at least zero");
+            checkInteger();
+            if (record.getRawGenotypes() == null) {
+                VcfGenotype genotype = genotype(record, sample);
+                return genotype == null ? defaultValue : getInt(genotype, defaultValue);
+            }
+            long location = locate(record, sample);
+            if (location < 0L) {
+                return defaultValue;
+            }
+            String raw = record.getRawGenotypes();
+            int start = start(location);
+            int end = end(location);
+            checkSingle(count(raw, start, end));
+            return parseInt(raw, start, end);
+        }
+
+        /**
+         * Return the Type=Integer or Type=Float value of this FORMAT field for the specified VCF genotype,
+         * or the specified default value if the specified VCF genotype does not contain this FORMAT field.
+         *
+         * @param genotype VCF genotype, must not be null
+         * @param defaultValue default value
+         * @return the Type=Integer or Type=Float value of this FORMAT field for the specified VCF genotype,
+         *    or the specified default value
+         */
+        public float getFloat(final VcfGenotype genotype, final float defaultValue) {
+            checkNotNull(genotype);
+            checkFloat();
+            List<String> values = genotype.getFields().get(getId());
+            if (values.isEmpty()) {
+                return defaultValue;
+            }
+            checkSingle(values.size());
+            return parseFloat(values.get(0), 0, values.get(0).length());
+        }
+
+        /**
+         * Return the Type=Integer or Type=Float value of this FORMAT field for the specified sample in the
+         * specified VCF record, or the specified default value if the specified sample does not contain this
+         * FORMAT field.
+         *
+         * @param record VCF record, must not be null
+         * @param sample sample column index, must be at least zero
+         * @param defaultValue default value
+         * @return the Type=Integer or Type=Float value of this FORMAT field for the specified sample in the
+         *    specified VCF record, or the specified default value
+         */
+        public float getFloat(final VcfRecord record, final int sample, final float defaultValue) {
+            checkNotNull(record);
+            checkArgument(sample >= 0, "sample must be at least zero");
+            checkFloat();
+            if (record.getRawGenotypes() == null) {
+                VcfGenotype genotype = genotype(record, sample);
+                return genotype == null ? defaultValue : getFloat(genotype, defaultValue);
+            }
+            long location = locate(record, sample);
+            if (location < 0L) {
+                return defaultValue;
+            }
+            String raw = record.getRawGenotypes();
+            int start = start(location);
+            int end = end(location);
+            checkSingle(count(raw, start, end));
+            return parseFloat(raw, start, end);
+        }
+
+        /**
+         * Fill the specified buffer with the Type=Integer values of this FORMAT field for
+         * the specified VCF genotype and return the count of values.  If the count of values
+         * is greater than the length of the specified buffer, only the first
+         * <code>buffer.length</code> values are written.  Missing values are written as
+         * {@link VcfSchema#MISSING_INTEGER}.
+         *
+         * @param genotype VCF genotype, must not be null
+         * @param buffer buffer, must not be null
+         * @return the count of Type=Integer values of this FORMAT field for the specified VCF genotype,
+         *    or zero if the specified VCF genotype does not contain this FORMAT field
+         */
+        public int getInts(final VcfGenotype genotype, final int[] buffer) {
+            checkNotNull(genotype);
+            checkNotNull(buffer);
+            checkInteger();
+            return checkCount(fillInts(genotype.getFields().get(getId()), buffer), genotype.a(), genotype.r());
+        }
+
+        /**
+         * Fill the specified buffer with the Type=Integer values of this FORMAT field for
+         * the specified sample in the specified VCF record and return the count of values.
+         * If the count of values is greater than the length of the specified buffer, only
+         * the first <code>buffer.length</code> values are written.  Missing values are
+         * written as {@link VcfSchema#MISSING_INTEGER}.
+         *
+         * @param record VCF record, must not be null
+         * @param sample sample column index, must be at least zero
+         * @param buffer buffer, must not be null
+         * @return the count of Type=Integer values of this FORMAT field for the specified sample
+         *    in the specified VCF record, or zero if the specified sample does not contain this FORMAT field
+         */
+        public int getInts(final VcfRecord record, final int sample, final int[] buffer) {
+            checkNotNull(record);
+            checkArgument(sample >= 0, "sample must be at least zero");
+            checkNotNull(buffer);
+            checkInteger();
+            if (record.getRawGenotypes() == null) {
+                VcfGenotype genotype = genotype(record, sample);
+                return genotype == null ? 0 : getInts(genotype, buffer);
+            }
+            long location = locate(record, sample);
+            if (location < 0L) {
+                return 0;
+            }
+            String raw = record.getRawGenotypes();
+            int end = end(location);
+            int count = 0;
+            for (int start = start(location); start <= end; count++) {
+                int separator = indexOf(raw, ',', start, end);
+                if (count < buffer.length) {
+                    buffer[count] = parseInt(raw, start, separator);
+                }
+                start = separator + 1;
+            }
+            return checkCount(count, record.a(), record.r());
+        }
+
+        /**
+         * Return the Type=Integer values of this FORMAT field for the specified VCF genotype.
+         *
+         * @param genotype VCF genotype, must not be null
+         * @return the Type=Integer values of this FORMAT field for the specified VCF genotype,
+         *    or an empty array if the specified VCF genotype does not contain this FORMAT field
+         */
+        public int[] getInts(final VcfGenotype genotype) {
+            checkNotNull(genotype);
+            int[] values = new int[genotype.getFields().get(getId()).size()];
+            getInts(genotype, values);
+            return values;
+        }
+
+        /**
+         * Return the Type=Integer values of this FORMAT field for the specified sample in the specified VCF record.
+         *
+         * @param record VCF record, must not be null
+         * @param sample sample column index, must be at least zero
+         * @return the Type=Integer values of this FORMAT field for the specified sample in the specified VCF record,
+         *    or an empty array if the specified sample does not contain this FORMAT field
+         */
+        public int[] getInts(final VcfRecord record, final int sample) {
+            int[] values = new int[getNumber().isNumeric() ? getNumber().getValue() : record.r()];
+            int count = getInts(record, sample, values);
+            if (count > values.length) {
+                values = new int[count];
+                getInts(record, sample, values);
+            }
+            return count == values.length ? values : Arrays.copyOf(values, count);
+        }
+
+        /**
+         * Fill the specified buffer with the Type=Integer or Type=Float values of this FORMAT field for
+         * the specified VCF genotype and return the count of values.  If the count of values
+         * is greater than the length of the specified buffer, only the first
+         * <code>buffer.length</code> values are written.  Missing values are written as
+         * {@link VcfSchema#MISSING_FLOAT}.
+         *
+         * @param genotype VCF genotype, must not be null
+         * @param buffer buffer, must not be null
+         * @return the count of Type=Integer or Type=Float values of this FORMAT field for the specified
+         *    VCF genotype, or zero if the specified VCF genotype does not contain this FORMAT field
+         */
+        public int getFloats(final VcfGenotype genotype, final float[] buffer) {
+            checkNotNull(genotype);
+            checkNotNull(buffer);
+            checkFloat();
+            return checkCount(fillFloats(genotype.getFields().get(getId()), buffer), genotype.a(), genotype.r());
+        }
+
+        /**
+         * Fill the specified buffer with the Type=Integer or Type=Float values of this FORMAT field for
+         * the specified sample in the specified VCF record and return the count of values.
+         * If the count of values is greater than the length of the specified buffer, only
+         * the first <code>buffer.length</code> values are written.  Missing values are
+         * written as {@link VcfSchema#MISSING_FLOAT}.
+         *
+         * @param record VCF record, must not be null
+         * @param sample sample column index, must be at least zero
+         * @param buffer buffer, must not be null
+         * @return the count of Type=Integer or Type=Float values of this FORMAT field for the specified
+         *    sample in the specified VCF record, or zero if the specified sample does not contain this FORMAT field
+         */
+        public int getFloats(final VcfRecord record, final int sample, final float[] buffer) {
+            checkNotNull(record);
+            checkArgument(sample >= 0, "sample must be at least zero");
+            checkNotNull(buffer);
+            checkFloat();
+            if (record.getRawGenotypes() == null) {
+                VcfGenotype genotype = genotype(record, sample);
+                return genotype == null ? 0 : getFloats(genotype, buffer);
+            }
+            long location = locate(record, sample);
+            if (location < 0L) {
+                return 0;
+            }
+            String raw = record.getRawGenotypes();
+            int end = end(location);
+            int count = 0;
+            for (int start = start(location); start <= end; count++) {
+                int separator = indexOf(raw, ',', start, end);
+                if (count < buffer.length) {
+                    buffer[count] = parseFloat(raw, start, separator);
+                }
+                start = separator + 1;
+            }
+            return checkCount(count, record.a(), record.r());
+        }
+
+        /**
+         * Return the Type=Integer or Type=Float values of this FORMAT field for the specified VCF genotype.
+         *
+         * @param genotype VCF genotype, must not be null
+         * @return the Type=Integer or Type=Float values of this FORMAT field for the specified VCF genotype,
+         *    or an empty array if the specified VCF genotype does not contain this FORMAT field
+         */
+        public float[] getFloats(final VcfGenotype genotype) {
+            checkNotNull(genotype);
+            float[] values = new float[genotype.getFields().get(getId()).size()];
+            getFloats(genotype, values);
+            return values;
+        }
+
+        /**
+         * Return the Type=Integer or Type=Float values of this FORMAT field for the specified sample
+         * in the specified VCF record.
+         *
+         * @param record VCF record, must not be null
+         * @param sample sample column index, must be at least zero
+         * @return the Type=Integer or Type=Float values of this FORMAT field for the specified sample
+         *    in the specified VCF record, or an empty array if the specified sample does not contain this FORMAT field
+         */
+        public float[] getFloats(final VcfRecord record, final int sample) {
+            float[] values = new float[getNumber().isNumeric() ? getNumber().getValue() : record.r()];
+            int count = getFloats(record, sample, values);
+            if (count > values.length) {
+                values = new float[count];
+                getFloats(record, sample, values);
+            }
+            return count == values.length ? values : Arrays.copyOf(values, count);
+        }
+
+        /**
+         * Return the genotype for the specified sample column index in the specified VCF record
+         * not read lazily, if any.
+         *
+         * @param record VCF record
+         * @param sample sample column index
+         * @return the genotype for the specified sample column index in the specified VCF record,
+         *    or <code>null</code> if no such genotype exists
+         */
+        private static VcfGenotype genotype(final VcfRecord record, final int sample) {
+            return record.getGenotype(sample);
+        }
+
+        /**
+         * Locate the non-missing value of this FORMAT field for the specified sample in
+         * the raw genotypes of the specified VCF record.
+         *
+         * @param record VCF record read lazily
+         * @param sample sample column index
+         * @return the start and end offsets of the value packed into a long, or <code>-1L</code>
+         *    if the specified sample does not contain a non-missing value for this FORMAT field
+         */
+        private long locate(final VcfRecord record, final int sample) {
+            int index = -1;
+            String[] format = record.getFormat();
+            for (int i = 0; i < format.length; i++) {
+                if (getId().equals(format[i])) {
+                    index = i;
+                    break;
+                }
+            }
+            int[] offsets = record.getRawGenotypeOffsets();
+            if (index < 0 || sample >= offsets.length - 1) {
+                return -1L;
+            }
+            String raw = record.getRawGenotypes();
+            int start = offsets[sample];
+            int end = offsets[sample + 1] - 1;
+            for (int i = 0; i < index; i++) {
+                int colon = indexOf(raw, ':', start, end);
+                if (colon == end) {
+                    return -1L;
+                }
+                start = colon + 1;
+            }
+            end = indexOf(raw, ':', start, end);
+            if (start == end || (end - start == 1 && raw.charAt(start) == '.')) {
+                return -1L;
+            }
+            return ((long) start << 32) | end;
+        }
+    }
+
+
+    /**
+     * Return the start offset packed into the specified location.
+     *
+     * @param location location
+     * @return the start offset packed into the specified location
+     */
+    private static int start(final long location) {
+        return (int) (location >>> 32);
+    }
+
+    /**
+     * Return the end offset packed into the specified location.
+     *
+     * @param location location
+     * @return the end offset packed into the specified location
+     */
+    private static int end(final long location) {
+        return (int) location;
+    }
+
+    /**
+     * Return the index of the specified character in the specified range of the specified
+     * value, or the end of the range if not found.
+     *
+     * @param value value
+     * @param c character
+     * @param start start offset, inclusive
+     * @param end end offset, exclusive
+     * @return the index of the specified character in the specified range of the specified
+     *    value, or the end of the range if not found
+     */
+    private static int indexOf(final String value, final char c, final int start, final int end) {
+        for (int i = start; i < end; i++) {
+            if (value.charAt(i) == c) {
+                return i;
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Return the count of comma-separated values in the specified range of the specified value.
+     *
+     * @param value value
+     * @param start start offset, inclusive
+     * @param end end offset, exclusive
+     * @return the count of comma-separated values in the specified range of the specified value
+     */
+    private static int count(final String value, final int start, final int end) {
+        int count = 1;
+        for (int i = start; i < end; i++) {
+            if (value.charAt(i) == ',') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Fill the specified buffer with the specified values parsed into integers.
+     *
+     * @param values values
+     * @param buffer buffer
+     * @return the count of values
+     */
+    private static int fillInts(final List<String> values, final int[] buffer) {
+        for (int i = 0, size = Math.min(values.size(), buffer.length); i < size; i++) {
+            String value = values.get(i);
+            buffer[i] = parseInt(value, 0, value.length());
+        }
+        return values.size();
+    }
+
+    /**
+     * Fill the specified buffer with the specified values parsed into floats.
+     *
+     * @param values values
+     * @param buffer buffer
+     * @return the count of values
+     */
+    private static int fillFloats(final List<String> values, final float[] buffer) {
+        for (int i = 0, size = Math.min(values.size(), buffer.length); i < size; i++) {
+            String value = values.get(i);
+            buffer[i] = parseFloat(value, 0, value.length());
+        }
+        return values.size();
+    }
+
+    /**
+     * Parse the specified range of the specified value into an integer, without allocation.
+     *
+     * @param value value
+     * @param start start offset, inclusive
+     * @param end end offset, exclusive
+     * @return the specified range of the specified value parsed into an integer,
+     *    or {@link #MISSING_INTEGER} if the value is missing (<code>"."</code>)
+     * @throws NumberFormatException if the specified range of the specified value is not a valid integer
+     */
+    static int parseInt(final CharSequence value, final int start, final int end) {
+        if (end - start == 1 && value.charAt(start) == '.') {
+            return MISSING_INTEGER;
+        }
+        int i = start;
+        boolean negative = false;
+        if (i < end && (value.charAt(i) == '-' || value.charAt(i) == '+')) {
+            negative = value.charAt(i) == '-';
+            i++;
+        }
+        if (i == end) {
+            throw new NumberFormatException("invalid Type=Integer value " + value.subSequence(start, end));
+        }
+        long result = 0L;
+        for (; i < end; i++) {
+            int digit = value.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("invalid Type=Integer value " + value.subSequence(start, end));
+            }
+            result = result * 10L + digit;
+            if (result > 2147483648L) {
+                throw new NumberFormatException("Type=Integer value " + value.subSequence(start, end) + " out of range");
+            }
+        }
+        result = negative ? -result : result;
+        if (result > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Type=Integer value " + value.subSequence(start, end) + " out of range");
+        }
+        return (int) result;
+    }
+
+    /**
+     * Parse the specified range of the specified value into a float.
+     *
+     * @param value value
+     * @param start start offset, inclusive
+     * @param end end offset, exclusive
+     * @return the specified range of the specified value parsed into a float,
+     *    or {@link #MISSING_FLOAT} if the value is missing (<code>"."</code>)
+     * @throws NumberFormatException if the specified range of the specified value is not a valid float
+     */
+    static float parseFloat(final CharSequence value, final int start, final int end) {
+        if (end - start == 1 && value.charAt(start) == '.') {
+            return MISSING_FLOAT;
+        }
+        return Float.parseFloat(value.subSequence(start, end).toString());
+    }
+}
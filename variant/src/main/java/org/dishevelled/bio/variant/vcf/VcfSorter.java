@@ -0,0 +1,693 @@
+/*
+
+    dsh-bio-variant  Variants.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.variant.vcf;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.PrintWriter;
+
+import java.nio.CharBuffer;
+
+import java.nio.charset.StandardCharsets;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import com.google.common.util.concurrent.Futures;
+
+import org.dishevelled.bio.variant.vcf.header.VcfHeaderLines;
+
+/**
+ * External merge sort for VCF records, coordinate-sorting VCF records by contig and position.
+ *
+ * <p>
+ * Contigs are ordered as in the <code>##contig</code> header lines, followed by any contigs
+ * not present in header lines in the order they are first encountered.  Records at the same
+ * contig and position keep their input order.  Header lines and data lines are written verbatim.
+ * </p>
+ *
+ * <p>
+ * Data lines are read into chunks bounded by an approximate memory budget.  Chunks are sorted
+ * in parallel and spilled to temporary compressed runs, which are then k-way merged, at most
+ * {@value #MAX_RUNS} runs at a time.  If all of the data lines fit in a single chunk, they are
+ * sorted in memory without temporary files.
+ * </p>
+ *
+ * @author  Michael Heuer
+ */
+public final class VcfSorter {
+    /** Default memory budget, in bytes. */
+    public static final long DEFAULT_MEMORY = 512L * 1024L * 1024L;
+
+    /** Default number of threads. */
+    public static final int DEFAULT_THREADS = 1;
+
+    /** Maximum number of runs merged at once. */
+    static final int MAX_RUNS = 64;
+
+    /** Buffer size. */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /** Approximate memory overhead per data line, in bytes. */
+    private static final long LINE_OVERHEAD = 64L;
+
+    /** Compare data lines by contig ordinal and position. */
+    private static final Comparator<Line> LINE_COMPARATOR = new Comparator<Line>() {
+            @Override
+            public int compare(final Line line0, final Line line1) {
+                int result = Integer.compare(line0.ordinal, line1.ordinal);
+                if (result == 0) {
+                    result = Long.compare(line0.pos, line1.pos);
+                }
+                return result;
+            }
+        };
+
+    /** Compare runs by contig ordinal and position of their current data line, then by run index. */
+    private static final Comparator<RunReader> RUN_COMPARATOR = new Comparator<RunReader>() {
+            @Override
+            public int compare(final RunReader run0, final RunReader run1) {
+                int result = Integer.compare(run0.ordinal, run1.ordinal);
+                if (result == 0) {
+                    result = Long.compare(run0.pos, run1.pos);
+                }
+                if (result == 0) {
+                    result = Integer.compare(run0.index, run1.index);
+                }
+                return result;
+            }
+        };
+
+
+    /**
+     * Private no-arg constructor.
+     */
+    private VcfSorter() {
+        // empty
+    }
+
+
+    /**
+     * Sort the specified readable to the specified print writer, with the default memory
+     * budget, temporary directory, and number of threads.
+     *
+     * @param readable readable, must not be null
+     * @param writer print writer to write sorted VCF to, must not be null
+     * @throws IOException if an I/O error occurs, or if a data line is not valid
+     */
+    public static void sort(final Readable readable, final PrintWriter writer) throws IOException {
+        sort(readable, writer, DEFAULT_MEMORY, null, DEFAULT_THREADS);
+    }
+
+    /**
+     * Sort the specified readable to the specified print writer.
+     *
+     * @param readable readable, must not be null
+     * @param writer print writer to write sorted VCF to, must not be null
+     * @param memory approximate memory budget for data lines held in memory, in bytes, must be greater than zero
+     * @param tempDirectory directory for temporary runs, or <code>null</code> for the default temporary-file directory
+     * @param threads number of threads, must be at least one
+     * @throws IOException if an I/O error occurs, or if a data line is not valid
+     */
+    public static void sort(final Readable readable,
+                            final PrintWriter writer,
+                            final long memory,
+                            final File tempDirectory,
+                            final int threads) throws IOException {
+        checkNotNull(readable);
+        checkNotNull(writer);
+        checkArgument(memory > 0L, "memory must be greater than zero");
+        checkArgument(threads > 0, "threads must be at least one");
+
+        BufferedReader reader = VcfMerger.bufferedReader(readable);
+
+        // read and write header lines verbatim
+        List<String> headerLines = new ArrayList<String>();
+        StringBuilder sb = new StringBuilder();
+        String line = null;
+        long lineNumber = 0L;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isEmpty()) {
+                continue;
+            }
+            if (line.charAt(0) != '#') {
+                break;
+            }
+            headerLines.add(line);
+            sb.append(line);
+            sb.append("\n");
+        }
+        for (String headerLine : headerLines) {
+            writer.println(headerLine);
+        }
+
+        // order contigs by header lines, then as encountered
+        Map<String, Integer> ordinals = new HashMap<String, Integer>();
+        VcfHeaderLines vcfHeaderLines = VcfHeaderLines.fromHeader(VcfReader.header(CharBuffer.wrap(sb)));
+        for (int i = 0, size = vcfHeaderLines.getContigCount(); i < size; i++) {
+            ordinals.put(vcfHeaderLines.getContig(i), i);
+        }
+
+        long chunkMemory = Math.max(1L, memory / (threads + 1));
+        List<File> files = Collections.synchronizedList(new ArrayList<File>());
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        try {
+            Deque<Future<File>> pending = new ArrayDeque<Future<File>>(threads);
+            List<File> runs = new ArrayList<File>();
+            List<Line> chunk = new ArrayList<Line>();
+            long used = 0L;
+            while (line != null) {
+                if (!line.isEmpty()) {
+                    chunk.add(Line.valueOf(line, lineNumber, ordinals));
+                    used += LINE_OVERHEAD + 2L * line.length();
+
+                    if (used >= chunkMemory) {
+                        if (pending.size() >= threads) {
+                            runs.add(await(pending.removeFirst()));
+                        }
+                        pending.add(executorService.submit(new Spill(chunk, tempDirectory, files)));
+                        chunk = new ArrayList<Line>();
+                        used = 0L;
+                    }
+                }
+                line = reader.readLine();
+                lineNumber++;
+            }
+
+            if (pending.isEmpty() && runs.isEmpty()) {
+                Collections.sort(chunk, LINE_COMPARATOR);
+                for (Line l : chunk) {
+                    writer.println(l.line);
+                }
+            }
+            else {
+                if (!chunk.isEmpty()) {
+                    pending.add(executorService.submit(new Spill(chunk, tempDirectory, files)));
+                }
+                chunk = null;
+                while (!pending.isEmpty()) {
+                    runs.add(await(pending.removeFirst()));
+                }
+                while (runs.size() > MAX_RUNS) {
+                    List<Future<File>> merges = new ArrayList<Future<File>>();
+                    for (int i = 0, size = runs.size(); i < size; i += MAX_RUNS) {
+                        List<File> group = runs.subList(i, Math.min(size, i + MAX_RUNS));
+                        merges.add(group.size() == 1 ? Futures.immediateFuture(group.get(0)) : executorService.submit(new Merge(group, tempDirectory, files)));
+                    }
+                    List<File> merged = new ArrayList<File>(merges.size());
+                    for (Future<File> merge : merges) {
+                        merged.add(await(merge));
+                    }
+                    for (File run : runs) {
+                        if (!merged.contains(run)) {
+                            delete(run, files);
+                        }
+                    }
+                    runs = merged;
+                }
+                merge(runs, new TextRunWriter(writer));
+            }
+        }
+        finally {
+            executorService.shutdownNow();
+            try {
+                // wait for running tasks, so that no temporary files are created after they are deleted
+                executorService.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            synchronized (files) {
+                for (File file : files) {
+                    file.delete();
+                }
+            }
+        }
+        if (writer.checkError()) {
+            throw new IOException("could not write sorted VCF");
+        }
+    }
+
+    /**
+     * Wait for and return the result of the specified future.
+     *
+     * @param future future
+     * @return the result of the specified future
+     * @throws IOException if an I/O error occurs
+     */
+    private static File await(final Future<File> future) throws IOException {
+        try {
+            return future.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            InterruptedIOException interruptedIOException = new InterruptedIOException("interrupted while sorting VCF records");
+            interruptedIOException.initCause(e);
+            throw interruptedIOException;
+        }
+        catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Create and return a new temporary run file in the specified directory.
+     *
+     * @param tempDirectory directory for temporary runs, if any
+     * @param files temporary files to delete when sorting completes
+     * @return a new temporary run file
+     * @throws IOException if an I/O error occurs
+     */
+    private static File createRun(final File tempDirectory, final List<File> files) throws IOException {
+        File run = File.createTempFile("vcfSorter", ".run", tempDirectory);
+        files.add(run);
+        return run;
+    }
+
+    /**
+     * Delete the specified temporary run file.
+     *
+     * @param run temporary run file to delete
+     * @param files temporary files to delete when sorting completes
+     */
+    private static void delete(final File run, final List<File> files) {
+        if (run.delete()) {
+            files.remove(run);
+        }
+    }
+
+    /**
+     * Merge the specified runs to the specified run writer.
+     *
+     * @param runs runs to merge
+     * @param runWriter run writer
+     * @throws IOException if an I/O error occurs
+     */
+    private static void merge(final List<File> runs, final RunWriter runWriter) throws IOException {
+        List<RunReader> readers = new ArrayList<RunReader>(runs.size());
+        try {
+            PriorityQueue<RunReader> queue = new PriorityQueue<RunReader>(Math.max(1, runs.size()), RUN_COMPARATOR);
+            for (int i = 0, size = runs.size(); i < size; i++) {
+                RunReader runReader = new RunReader(i, runs.get(i));
+                readers.add(runReader);
+                if (runReader.next()) {
+                    queue.add(runReader);
+                }
+            }
+            while (!queue.isEmpty()) {
+                RunReader runReader = queue.poll();
+                runWriter.write(runReader.ordinal, runReader.pos, runReader.bytes, runReader.length);
+                if (runReader.next()) {
+                    queue.add(runReader);
+                }
+            }
+        }
+        finally {
+            for (RunReader runReader : readers) {
+                runReader.close();
+            }
+        }
+    }
+
+    /**
+     * Data line with its sort key.
+     */
+    private static final class Line {
+        /** Contig ordinal. */
+        private final int ordinal;
+
+        /** Position. */
+        private final long pos;
+
+        /** Data line. */
+        private final String line;
+
+
+        /**
+         * Create a new data line.
+         *
+         * @param ordinal contig ordinal
+         * @param pos position
+         * @param line data line
+         */
+        private Line(final int ordinal, final long pos, final String line) {
+            this.ordinal = ordinal;
+            this.pos = pos;
+            this.line = line;
+        }
+
+
+        /**
+         * Parse the CHROM and POS columns of the specified data line.
+         *
+         * @param line data line
+         * @param lineNumber line number
+         * @param ordinals contig ordinals keyed by contig, new contigs are added as encountered
+         * @return the specified data line with its sort key
+         * @throws IOException if the CHROM or POS column of the specified data line is not valid
+         */
+        static Line valueOf(final String line, final long lineNumber, final Map<String, Integer> ordinals) throws IOException {
+            int chromEnd = line.indexOf('\t');
+            if (chromEnd < 1) {
+                throw new IOException("invalid CHROM column at line " + lineNumber);
+            }
+            long pos = 0L;
+            int i = chromEnd + 1;
+            int length = line.length();
+            while (i < length && line.charAt(i) != '\t') {
+                char c = line.charAt(i);
+                if (c < '0' || c > '9') {
+                    throw new IOException("invalid POS column at line " + lineNumber);
+                }
+                pos = pos * 10L + (c - '0');
+                i++;
+            }
+            if (i == chromEnd + 1) {
+                throw new IOException("invalid POS column at line " + lineNumber);
+            }
+            String chrom = line.substring(0, chromEnd);
+            Integer ordinal = ordinals.get(chrom);
+            if (ordinal == null) {
+                ordinal = ordinals.size();
+                ordinals.put(chrom, ordinal);
+            }
+            return new Line(ordinal, pos, line);
+        }
+    }
+
+    /**
+     * Sort a chunk of data lines and spill it to a temporary run.
+     */
+    private static final class Spill implements Callable<File> {
+        /** Chunk of data lines. */
+        private final List<Line> chunk;
+
+        /** Directory for temporary runs, if any. */
+        private final File tempDirectory;
+
+        /** Temporary files to delete when sorting completes. */
+        private final List<File> files;
+
+
+        /**
+         * Create a new spill task.
+         *
+         * @param chunk chunk of data lines
+         * @param tempDirectory directory for temporary runs, if any
+         * @param files temporary files to delete when sorting completes
+         */
+        Spill(final List<Line> chunk, final File tempDirectory, final List<File> files) {
+            this.chunk = chunk;
+            this.tempDirectory = tempDirectory;
+            this.files = files;
+        }
+
+
+        @Override
+        public File call() throws IOException {
+            Collections.sort(chunk, LINE_COMPARATOR);
+            File run = createRun(tempDirectory, files);
+            BinaryRunWriter runWriter = new BinaryRunWriter(run);
+            try {
+                for (Line line : chunk) {
+                    byte[] bytes = line.line.getBytes(StandardCharsets.UTF_8);
+                    runWriter.write(line.ordinal, line.pos, bytes, bytes.length);
+                }
+            }
+            finally {
+                runWriter.close();
+            }
+            return run;
+        }
+    }
+
+    /**
+     * Merge a group of runs to a temporary run.
+     */
+    private static final class Merge implements Callable<File> {
+        /** Runs to merge. */
+        private final List<File> runs;
+
+        /** Directory for temporary runs, if any. */
+        private final File tempDirectory;
+
+        /** Temporary files to delete when sorting completes. */
+        private final List<File> files;
+
+
+        /**
+         * Create a new merge task.
+         *
+         * @param runs runs to merge
+         * @param tempDirectory directory for temporary runs, if any
+         * @param files temporary files to delete when sorting completes
+         */
+        Merge(final List<File> runs, final File tempDirectory, final List<File> files) {
+            this.runs = new ArrayList<File>(runs);
+            this.tempDirectory = tempDirectory;
+            this.files = files;
+        }
+
+
+        @Override
+        public File call() throws IOException {
+            File run = createRun(tempDirectory, files);
+            BinaryRunWriter runWriter = new BinaryRunWriter(run);
+            try {
+                merge(runs, runWriter);
+            }
+            finally {
+                runWriter.close();
+            }
+            return run;
+        }
+    }
+
+    /**
+     * Run writer.
+     */
+    private interface RunWriter {
+
+        /**
+         * Write the specified data line.
+         *
+         * @param ordinal contig ordinal
+         * @param pos position
+         * @param bytes data line as UTF-8 bytes
+         * @param length length of data line in bytes
+         * @throws IOException if an I/O error occurs
+         */
+        void write(int ordinal, long pos, byte[] bytes, int length) throws IOException;
+    }
+
+    /**
+     * Run writer that writes data lines to a print writer.
+     */
+    private static final class TextRunWriter implements RunWriter {
+        /** Print writer. */
+        private final PrintWriter writer;
+
+
+        /**
+         * Create a new text run writer.
+         *
+         * @param writer print writer
+         */
+        TextRunWriter(final PrintWriter writer) {
+            this.writer = writer;
+        }
+
+
+        @Override
+        public void write(final int ordinal, final long pos, final byte[] bytes, final int length) {
+            writer.println(new String(bytes, 0, length, StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Run writer that writes data lines with their sort keys to a temporary compressed run.
+     */
+    private static final class BinaryRunWriter implements RunWriter {
+        /** Deflater. */
+        private final Deflater deflater;
+
+        /** Output stream. */
+        private final DataOutputStream outputStream;
+
+
+        /**
+         * Create a new binary run writer.
+         *
+         * @param run temporary run file
+         * @throws IOException if an I/O error occurs
+         */
+        BinaryRunWriter(final File run) throws IOException {
+            deflater = new Deflater(Deflater.BEST_SPEED);
+            outputStream = new DataOutputStream(new BufferedOutputStream(new DeflaterOutputStream(new FileOutputStream(run), deflater, BUFFER_SIZE), BUFFER_SIZE));
+        }
+
+
+        @Override
+        public void write(final int ordinal, final long pos, final byte[] bytes, final int length) throws IOException {
+            outputStream.writeInt(ordinal);
+            outputStream.writeLong(pos);
+            outputStream.writeInt(length);
+            outputStream.write(bytes, 0, length);
+        }
+
+        /**
+         * Close this binary run writer.
+         *
+         * @throws IOException if an I/O error occurs
+         */
+        void close() throws IOException {
+            try {
+                outputStream.close();
+            }
+            finally {
+                deflater.end();
+            }
+        }
+    }
+
+    /**
+     * Reader for data lines with their sort keys from a temporary compressed run.
+     */
+    private static final class RunReader {
+        /** Run index. */
+        private final int index;
+
+        /** Inflater. */
+        private final Inflater inflater;
+
+        /** Input stream. */
+        private final DataInputStream inputStream;
+
+        /** Contig ordinal of the current data line. */
+        private int ordinal;
+
+        /** Position of the current data line. */
+        private long pos;
+
+        /** Current data line as UTF-8 bytes. */
+        private byte[] bytes = new byte[1024];
+
+        /** Length of the current data line in bytes. */
+        private int length;
+
+
+        /**
+         * Create a new run reader.
+         *
+         * @param index run index
+         * @param run temporary run file
+         * @throws IOException if an I/O error occurs
+         */
+        RunReader(final int index, final File run) throws IOException {
+            this.index = index;
+            inflater = new Inflater();
+            inputStream = new DataInputStream(new BufferedInputStream(new InflaterInputStream(new FileInputStream(run), inflater, BUFFER_SIZE), BUFFER_SIZE));
+        }
+
+
+        /**
+         * Read the next data line, if any.
+         *
+         * @return true if a data line was read
+         * @throws IOException if an I/O error occurs
+         */
+        boolean next() throws IOException {
+            try {
+                ordinal = inputStream.readInt();
+            }
+            catch (EOFException e) {
+                return false;
+            }
+            pos = inputStream.readLong();
+            length = inputStream.readInt();
+            if (length > bytes.length) {
+                bytes = new byte[Math.max(length, 2 * bytes.length)];
+            }
+            inputStream.readFully(bytes, 0, length);
+            return true;
+        }
+
+        /**
+         * Close this run reader.
+         */
+        void close() {
+            try {
+                inputStream.close();
+            }
+            catch (IOException e) {
+                // ignore
+            }
+            finally {
+                inflater.end();
+            }
+        }
+    }
+}
@@ -0,0 +1,336 @@
+/*
+
+    dsh-bio-variant  Variants.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.variant.vcf;
+
+import java.util.Arrays;
+
+/**
+ * Per-parse symbol table for VCF tokens with few distinct values per file,
+ * such as CHROM, FILTER values, INFO keys, and FORMAT keys.
+ *
+ * <p>
+ * Symbols are canonicalized to <code>String.intern()</code> instances, so
+ * records parsed from the same or different files share one instance per
+ * distinct value and <code>String.equals</code> succeeds on reference
+ * equality.  Split FILTER and FORMAT columns are cached, so equal FILTER or
+ * FORMAT columns are tokenized once; each caller receives its own copy of the
+ * cached array, sharing only the canonical symbols.
+ * A symbol table may be seeded from the ID of INFO, FORMAT, FILTER, and
+ * contig header lines, and may delegate to a parent symbol table that is
+ * no longer modified, e.g. one seeded from header lines and shared between
+ * threads.
+ * </p>
+ *
+ * @author  Michael Heuer
+ */
+final class VcfSymbols {
+    /** Maximum number of symbols or arrays in a symbol table, past which values are no longer canonicalized. */
+    static final int MAX_SIZE = 4096;
+
+    /** Parent symbol table, if any. */
+    private final VcfSymbols parent;
+
+    /** Open addressing hash table of symbols. */
+    private String[] symbols = new String[256];
+
+    /** Number of symbols. */
+    private int symbolCount = 0;
+
+    /** Open addressing hash table of keys for cached arrays. */
+    private String[] keys = new String[64];
+
+    /** Separators for cached arrays, parallel to keys. */
+    private char[] separators = new char[64];
+
+    /** Cached arrays, parallel to keys. */
+    private String[][] arrays = new String[64][];
+
+    /** Number of cached arrays. */
+    private int arrayCount = 0;
+
+
+    /**
+     * Create a new empty symbol table.
+     */
+    VcfSymbols() {
+        this(null);
+    }
+
+    /**
+     * Create a new empty symbol table delegating to the specified parent symbol table.
+     *
+     * @param parent parent symbol table, if any
+     */
+    VcfSymbols(final VcfSymbols parent) {
+        this.parent = parent;
+    }
+
+
+    /**
+     * Seed this symbol table with the ID of the specified INFO, FORMAT, FILTER, or contig
+     * header line.  Other header lines are ignored.
+     *
+     * @param meta meta-information header line
+     */
+    void seed(final CharSequence meta) {
+        if (startsWith(meta, "##INFO=<") || startsWith(meta, "##FORMAT=<")
+            || startsWith(meta, "##FILTER=<") || startsWith(meta, "##contig=<")) {
+
+            int length = meta.length();
+            for (int i = meta.charAt(2) == 'F' && meta.charAt(3) == 'O' ? 10 : 8; i + 3 < length; i++) {
+                char c = meta.charAt(i - 1);
+                if ((c == '<' || c == ',') && meta.charAt(i) == 'I' && meta.charAt(i + 1) == 'D' && meta.charAt(i + 2) == '=') {
+                    int start = i + 3;
+                    int end = start;
+                    while (end < length && meta.charAt(end) != ',' && meta.charAt(end) != '>') {
+                        end++;
+                    }
+                    if (end > start) {
+                        symbol(meta, start, end);
+                    }
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Return the canonical symbol for the specified value.
+     *
+     * @param value value
+     * @return the canonical symbol for the specified value
+     */
+    String symbol(final CharSequence value) {
+        return symbol(value, 0, value.length());
+    }
+
+    /**
+     * Return the canonical symbol for the specified range of the specified value.
+     *
+     * @param value value
+     * @param start start offset, inclusive
+     * @param end end offset, exclusive
+     * @return the canonical symbol for the specified range of the specified value
+     */
+    String symbol(final CharSequence value, final int start, final int end) {
+        int hash = hash(value, start, end);
+        if (parent != null) {
+            String symbol = parent.find(value, start, end, hash);
+            if (symbol != null) {
+                return symbol;
+            }
+        }
+        int mask = symbols.length - 1;
+        for (int i = hash & mask; ; i = (i + 1) & mask) {
+            String symbol = symbols[i];
+            if (symbol == null) {
+                String s = value.subSequence(start, end).toString();
+                if (symbolCount >= MAX_SIZE) {
+                    return s;
+                }
+                s = s.intern();
+                symbols[i] = s;
+                symbolCount++;
+                if (symbolCount * 2 > symbols.length) {
+                    symbols = rehash(symbols);
+                }
+                return s;
+            }
+            if (contentEquals(symbol, value, start, end)) {
+                return symbol;
+            }
+        }
+    }
+
+    /**
+     * Return a new array of canonical symbols for the specified value split around
+     * the specified separator, with the same semantics as <code>VcfTokenizer.split</code>.
+     * The returned array is a copy of a cached array and may be modified by the caller.
+     *
+     * @param value value
+     * @param separator separator
+     * @return a new array of canonical symbols for the specified value split around
+     *    the specified separator
+     */
+    String[] split(final CharSequence value, final char separator) {
+        int length = value.length();
+        int hash = hash(value, 0, length) * 31 + separator;
+        int mask = keys.length - 1;
+        int i = hash & mask;
+        for (; keys[i] != null; i = (i + 1) & mask) {
+            if (separators[i] == separator && contentEquals(keys[i], value, 0, length)) {
+                return arrays[i].clone();
+            }
+        }
+
+        int count = 1;
+        for (int j = 0; j < length; j++) {
+            if (value.charAt(j) == separator) {
+                count++;
+            }
+        }
+        String[] tokens = new String[count];
+        int n = 0;
+        int from = 0;
+        for (int j = 0; j < length; j++) {
+            if (value.charAt(j) == separator) {
+                tokens[n++] = symbol(value, from, j);
+                from = j + 1;
+            }
+        }
+        tokens[n++] = symbol(value, from, length);
+        // trailing empty strings are not included, as String.split
+        while (n > 1 && tokens[n - 1].isEmpty()) {
+            n--;
+        }
+        if (n < tokens.length) {
+            tokens = Arrays.copyOf(tokens, n);
+        }
+
+        if (arrayCount < MAX_SIZE) {
+            keys[i] = value.toString();
+            separators[i] = separator;
+            arrays[i] = tokens.clone();
+            arrayCount++;
+            if (arrayCount * 2 > keys.length) {
+                rehashArrays();
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Find the canonical symbol for the specified range of the specified value, if any.
+     *
+     * @param value value
+     * @param start start offset, inclusive
+     * @param end end offset, exclusive
+     * @param hash hash of the specified range of the specified value
+     * @return the canonical symbol for the specified range of the specified value, or
+     *    <code>null</code> if no such symbol exists
+     */
+    private String find(final CharSequence value, final int start, final int end, final int hash) {
+        int mask = symbols.length - 1;
+        for (int i = hash & mask; symbols[i] != null; i = (i + 1) & mask) {
+            if (contentEquals(symbols[i], value, start, end)) {
+                return symbols[i];
+            }
+        }
+        return parent == null ? null : parent.find(value, start, end, hash);
+    }
+
+    /**
+     * Rehash the specified open addressing hash table of symbols into one twice as large.
+     *
+     * @param table open addressing hash table of symbols
+     * @return a new open addressing hash table twice as large
+     */
+    private static String[] rehash(final String[] table) {
+        String[] result = new String[table.length * 2];
+        int mask = result.length - 1;
+        for (String symbol : table) {
+            if (symbol != null) {
+                int i = symbol.hashCode() & mask;
+                while (result[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                result[i] = symbol;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Rehash the keys and cached arrays into tables twice as large.
+     */
+    private void rehashArrays() {
+        String[] newKeys = new String[keys.length * 2];
+        char[] newSeparators = new char[keys.length * 2];
+        String[][] newArrays = new String[keys.length * 2][];
+        int mask = newKeys.length - 1;
+        for (int j = 0; j < keys.length; j++) {
+            if (keys[j] != null) {
+                int i = (keys[j].hashCode() * 31 + separators[j]) & mask;
+                while (newKeys[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                newKeys[i] = keys[j];
+                newSeparators[i] = separators[j];
+                newArrays[i] = arrays[j];
+            }
+        }
+        keys = newKeys;
+        separators = newSeparators;
+        arrays = newArrays;
+    }
+
+    /**
+     * Return the hash of the specified range of the specified value, equal to
+     * <code>String.hashCode</code> of the same characters.
+     *
+     * @param value value
+     * @param start start offset, inclusive
+     * @param end end offset, exclusive
+     * @return the hash of the specified range of the specified value
+     */
+    private static int hash(final CharSequence value, final int start, final int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + value.charAt(i);
+        }
+        return hash;
+    }
+
+    /**
+     * Return true if the specified string is equal to the specified range of the specified value.
+     *
+     * @param s string
+     * @param value value
+     * @param start start offset, inclusive
+     * @param end end offset, exclusive
+     * @return true if the specified string is equal to the specified range of the specified value
+     */
+    private static boolean contentEquals(final String s, final CharSequence value, final int start, final int end) {
+        if (s.length() != end - start) {
+            return false;
+        }
+        for (int i = 0, length = s.length(); i < length; i++) {
+            if (s.charAt(i) != value.charAt(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Return true if the specified value starts with the specified prefix.
+     *
+     * @param value value
+     * @param prefix prefix
+     * @return true if the specified value starts with the specified prefix
+     */
+    private static boolean startsWith(final CharSequence value, final String prefix) {
+        return value.length() >= prefix.length() && contentEquals(prefix, value, 0, prefix.length());
+    }
+}
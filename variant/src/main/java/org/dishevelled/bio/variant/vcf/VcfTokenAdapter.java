@@ -0,0 +1,109 @@
+/*
+
+    dsh-bio-variant  Variants.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.variant.vcf;
+
+import java.io.IOException;
+
+/**
+ * VCF token adapter.
+ *
+ * @author  Michael Heuer
+ */
+public class VcfTokenAdapter implements VcfTokenListener {
+
+    @Override
+    public void lineNumber(final long lineNumber) throws IOException {
+        // empty
+    }
+
+    @Override
+    public void meta(final CharSequence meta) throws IOException {
+        // empty
+    }
+
+    @Override
+    public void samples(final String... samples) throws IOException {
+        // empty
+    }
+
+    @Override
+    public void chrom(final CharSequence chrom) throws IOException {
+        // empty
+    }
+
+    @Override
+    public void pos(final long pos) throws IOException {
+        // empty
+    }
+
+    @Override
+    public void id(final CharSequence id) throws IOException {
+        // empty
+    }
+
+    @Override
+    public void ref(final CharSequence ref) throws IOException {
+        // empty
+    }
+
+    @Override
+    public void alt(final CharSequence alt) throws IOException {
+        // empty
+    }
+
+    @Override
+    public void qual(final double qual) throws IOException {
+        // empty
+    }
+
+    @Override
+    public void filter(final CharSequence filter) throws IOException {
+        // empty
+    }
+
+    @Override
+    public void info(final CharSequence infoId, final CharSequence values) throws IOException {
+        // empty
+    }
+
+    @Override
+    public void format(final CharSequence format) throws IOException {
+        // empty
+    }
+
+    @Override
+    public boolean genotypes(final CharSequence genotypes) throws IOException {
+        return true;
+    }
+
+    @Override
+    public void genotype(final int sample, final CharSequence formatId, final CharSequence values) throws IOException {
+        // empty
+    }
+
+    @Override
+    public boolean complete() throws IOException {
+        return true;
+    }
+}
@@ -0,0 +1,174 @@
+/*
+
+    dsh-bio-variant  Variants.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.variant.vcf;
+
+import java.io.IOException;
+
+/**
+ * VCF token listener.
+ *
+ * <p>
+ * Character sequences passed to the methods of this listener are views over
+ * the line currently being tokenized, and are only valid for the duration of
+ * the callback.  Call <code>toString()</code> on a token to retain its value.
+ * </p>
+ *
+ * @author  Michael Heuer
+ */
+public interface VcfTokenListener {
+
+    /**
+     * Notify this token listener of the line number.
+     *
+     * @param lineNumber line number
+     * @throws IOException if an I/O error occurs
+     */
+    void lineNumber(long lineNumber) throws IOException;
+
+    /**
+     * Notify this token listener of a meta line.
+     *
+     * @param meta meta line
+     * @throws IOException if an I/O error occurs
+     */
+    void meta(CharSequence meta) throws IOException;
+
+    /**
+     * Notify this token listener of sample strings.
+     *
+     * @param samples sample strings
+     * @throws IOException if an I/O error occurs
+     */
+    void samples(String... samples) throws IOException;
+
+    /**
+     * Notify this token listener of a chrom token.
+     *
+     * @param chrom chrom token
+     * @throws IOException if an I/O error occurs
+     */
+    void chrom(CharSequence chrom) throws IOException;
+
+    /**
+     * Notify this token listener of a position.
+     *
+     * @param pos position
+     * @throws IOException if an I/O error occurs
+     */
+    void pos(long pos) throws IOException;
+
+    /**
+     * Notify this token listener of an id token, zero or more ids
+     * separated by <code>;</code>.  May be the missing value (<code>"."</code>).
+     *
+     * @param id id token
+     * @throws IOException if an I/O error occurs
+     */
+    void id(CharSequence id) throws IOException;
+
+    /**
+     * Notify this token listener of a ref token.
+     *
+     * @param ref ref token
+     * @throws IOException if an I/O error occurs
+     */
+    void ref(CharSequence ref) throws IOException;
+
+    /**
+     * Notify this token listener of an alt token, zero or more alternate alleles
+     * separated by <code>,</code>.  May be the missing value (<code>"."</code>).
+     *
+     * @param alt alt token
+     * @throws IOException if an I/O error occurs
+     */
+    void alt(CharSequence alt) throws IOException;
+
+    /**
+     * Notify this token listener of a qual score.
+     *
+     * @param qual qual score, or <code>Double.NaN</code> if missing
+     * @throws IOException if an I/O error occurs
+     */
+    void qual(double qual) throws IOException;
+
+    /**
+     * Notify this token listener of a filter token, zero or more filters
+     * separated by <code>;</code>.  May be the missing value (<code>"."</code>).
+     *
+     * @param filter filter token
+     * @throws IOException if an I/O error occurs
+     */
+    void filter(CharSequence filter) throws IOException;
+
+    /**
+     * Notify this token listener of an info field.  Not called if the INFO
+     * column is the missing value (<code>"."</code>).
+     *
+     * @param infoId info id token
+     * @param values values token, zero or more values separated by <code>,</code>,
+     *    or <code>null</code> if the info field is a flag.  May be the missing
+     *    value (<code>"."</code>).
+     * @throws IOException if an I/O error occurs
+     */
+    void info(CharSequence infoId, CharSequence values) throws IOException;
+
+    /**
+     * Notify this token listener of a format token, zero or more format ids
+     * separated by <code>:</code>.
+     *
+     * @param format format token
+     * @throws IOException if an I/O error occurs
+     */
+    void format(CharSequence format) throws IOException;
+
+    /**
+     * Notify this token listener of a genotypes token, the tab-separated genotype
+     * columns following the format token, one per sample.
+     *
+     * @param genotypes genotypes token
+     * @return true to continue with genotype field notifications for this record,
+     *    false to skip them
+     * @throws IOException if an I/O error occurs
+     */
+    boolean genotypes(CharSequence genotypes) throws IOException;
+
+    /**
+     * Notify this token listener of a genotype field.
+     *
+     * @param sample sample index, in order of the samples in the <code>#CHROM</code> header line
+     * @param formatId format id token
+     * @param values values token, zero or more values separated by <code>,</code>.
+     *    May be the missing value (<code>"."</code>).
+     * @throws IOException if an I/O error occurs
+     */
+    void genotype(int sample, CharSequence formatId, CharSequence values) throws IOException;
+
+    /**
+     * Notify this token listener a record is complete.
+     *
+     * @return true to continue tokenizing
+     * @throws IOException if an I/O error occurs
+     */
+    boolean complete() throws IOException;
+}
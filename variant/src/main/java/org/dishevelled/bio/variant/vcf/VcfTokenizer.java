@@ -0,0 +1,656 @@
+/*
+
+    dsh-bio-variant  Variants.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.variant.vcf;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+
+import java.nio.CharBuffer;
+
+import java.util.Arrays;
+
+/**
+ * Low-level, allocation-light VCF tokenizer.
+ *
+ * <p>
+ * Each line is read into a reusable character buffer and walked once, with tokens
+ * passed to the listener as views over that buffer instead of as newly allocated
+ * strings or string arrays.
+ * </p>
+ *
+ * @author  Michael Heuer
+ */
+public final class VcfTokenizer {
+    /** Default read buffer size. */
+    private static final int BUFFER_SIZE = 65536;
+
+    /** Powers of ten exactly representable as doubles. */
+    private static final double[] POWERS_OF_TEN = {
+        1.0e0, 1.0e1, 1.0e2, 1.0e3, 1.0e4, 1.0e5, 1.0e6, 1.0e7, 1.0e8, 1.0e9, 1.0e10,
+        1.0e11, 1.0e12, 1.0e13, 1.0e14, 1.0e15, 1.0e16, 1.0e17, 1.0e18, 1.0e19, 1.0e20,
+        1.0e21, 1.0e22
+    };
+
+
+    /**
+     * Private no-arg constructor.
+     */
+    private VcfTokenizer() {
+        // empty
+    }
+
+
+    /**
+     * Tokenize the specified readable.
+     *
+     * @param readable readable, must not be null
+     * @param listener low-level event based token callback, must not be null
+     * @throws IOException if an I/O error occurs
+     */
+    public static void tokenize(final Readable readable, final VcfTokenListener listener) throws IOException {
+        checkNotNull(readable);
+        checkNotNull(listener);
+        tokenize(readable, listener, 0L);
+    }
+
+    /**
+     * Tokenize the specified readable, numbering lines after the specified line number.
+     *
+     * @param readable readable, must not be null
+     * @param listener low-level event based token callback, must not be null
+     * @param lineNumber line number of the line preceding the first line in the specified readable
+     * @throws IOException if an I/O error occurs
+     */
+    static void tokenize(final Readable readable, final VcfTokenListener listener, final long lineNumber) throws IOException {
+        checkNotNull(readable);
+        checkNotNull(listener);
+        new LineTokenizer(listener, lineNumber, false).tokenize(readable);
+    }
+
+    /**
+     * Tokenize the header lines of the specified readable, stopping after the <code>#CHROM</code>
+     * header line or before the first data line, whichever comes first.  Data lines are never
+     * tokenized, and only the leading characters of the specified readable are read.
+     *
+     * @param readable readable, must not be null
+     * @param listener low-level event based token callback, must not be null
+     * @throws IOException if an I/O error occurs
+     */
+    static void tokenizeHeader(final Readable readable, final VcfTokenListener listener) throws IOException {
+        checkNotNull(readable);
+        checkNotNull(listener);
+        new LineTokenizer(listener, 0L, true).tokenize(readable);
+    }
+
+    /**
+     * Return true if the specified value is the missing value (<code>"."</code>).
+     *
+     * @param value value, must not be null
+     * @return true if the specified value is the missing value (<code>"."</code>)
+     */
+    public static boolean isMissingValue(final CharSequence value) {
+        return value.length() == 1 && value.charAt(0) == '.';
+    }
+
+    /**
+     * Split the specified value around the specified separator, with the same
+     * semantics as <code>String.split</code>; trailing empty strings are not
+     * included in the resulting array.
+     *
+     * @param value value to split, must not be null
+     * @param separator separator
+     * @return the specified value split around the specified separator
+     */
+    static String[] split(final CharSequence value, final char separator) {
+        int length = value.length();
+        int count = 1;
+        for (int i = 0; i < length; i++) {
+            if (value.charAt(i) == separator) {
+                count++;
+            }
+        }
+        if (count == 1) {
+            return new String[] { value.toString() };
+        }
+        String s = value.toString();
+        String[] tokens = new String[count];
+        int from = 0;
+        int n = 0;
+        for (int i = 0; i < length; i++) {
+            if (s.charAt(i) == separator) {
+                tokens[n++] = s.substring(from, i);
+                from = i + 1;
+            }
+        }
+        tokens[n++] = s.substring(from);
+        while (n > 0 && tokens[n - 1].isEmpty()) {
+            n--;
+        }
+        return (n == tokens.length) ? tokens : Arrays.copyOf(tokens, n);
+    }
+
+    /**
+     * Parse the specified token into a long, without allocation for the common case.
+     *
+     * @param token token to parse
+     * @return the specified token parsed into a long
+     * @throws NumberFormatException if the specified token cannot be parsed into a long
+     */
+    static long parseLong(final CharSequence token) {
+        int length = token.length();
+        if (length > 0 && length < 19) {
+            long value = 0L;
+            boolean digits = true;
+            for (int i = 0; i < length; i++) {
+                char c = token.charAt(i);
+                if (c < '0' || c > '9') {
+                    digits = false;
+                    break;
+                }
+                value = value * 10L + (c - '0');
+            }
+            if (digits) {
+                return value;
+            }
+        }
+        return Long.parseLong(token.toString());
+    }
+
+    /**
+     * Parse the specified token into a double, without allocation for the common case
+     * of a plain decimal value with fifteen or fewer significant digits.
+     *
+     * @param token token to parse
+     * @return the specified token parsed into a double
+     * @throws NumberFormatException if the specified token cannot be parsed into a double
+     */
+    static double parseDouble(final CharSequence token) {
+        int length = token.length();
+        int i = 0;
+        boolean negative = false;
+        if (length > 0 && token.charAt(0) == '-') {
+            negative = true;
+            i++;
+        }
+        long mantissa = 0L;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean fraction = false;
+        boolean simple = i < length;
+        for (; i < length; i++) {
+            char c = token.charAt(i);
+            if (c >= '0' && c <= '9') {
+                mantissa = mantissa * 10L + (c - '0');
+                digits++;
+                if (fraction) {
+                    fractionDigits++;
+                }
+            }
+            else if (c == '.' && !fraction) {
+                fraction = true;
+            }
+            else {
+                simple = false;
+                break;
+            }
+        }
+        // mantissa and power of ten are both exact, so the quotient is correctly rounded
+        if (simple && digits > 0 && digits <= 15 && fractionDigits < POWERS_OF_TEN.length) {
+            double value = mantissa / POWERS_OF_TEN[fractionDigits];
+            return negative ? -value : value;
+        }
+        return Double.parseDouble(token.toString());
+    }
+
+
+    /**
+     * Reusable view over a range of a character array.
+     */
+    private static final class Token implements CharSequence {
+        /** Characters. */
+        private char[] chars;
+
+        /** Start index, inclusive. */
+        private int start;
+
+        /** End index, exclusive. */
+        private int end;
+
+
+        /**
+         * Set this token to a view over the specified range of the specified characters.
+         *
+         * @param chars characters
+         * @param start start index, inclusive
+         * @param end end index, exclusive
+         * @return this token
+         */
+        Token set(final char[] chars, final int start, final int end) {
+            this.chars = chars;
+            this.start = start;
+            this.end = end;
+            return this;
+        }
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(final int index) {
+            if (index < 0 || index >= end - start) {
+                throw new IndexOutOfBoundsException("index " + index + " out of bounds for length " + (end - start));
+            }
+            return chars[start + index];
+        }
+
+        @Override
+        public CharSequence subSequence(final int from, final int to) {
+            if (from < 0 || to > end - start || from > to) {
+                throw new IndexOutOfBoundsException("range [" + from + ", " + to + ") out of bounds for length " + (end - start));
+            }
+            return new String(chars, start + from, to - from);
+        }
+
+        @Override
+        public String toString() {
+            return new String(chars, start, end - start);
+        }
+    }
+
+    /**
+     * Line tokenizer.
+     */
+    private static final class LineTokenizer {
+        /** Line number. */
+        private long lineNumber;
+
+        /** Line buffer. */
+        private char[] line = new char[4096];
+
+        /** Length of the current line. */
+        private int length = 0;
+
+        /** Column start indices. */
+        private int[] columnStarts = new int[16];
+
+        /** Column end indices. */
+        private int[] columnEnds = new int[16];
+
+        /** Field start indices. */
+        private int[] fieldStarts = new int[16];
+
+        /** Field end indices. */
+        private int[] fieldEnds = new int[16];
+
+        /** Format id tokens. */
+        private Token[] formatIds = new Token[0];
+
+        /** Line token. */
+        private final Token lineToken = new Token();
+
+        /** Column token. */
+        private final Token column = new Token();
+
+        /** Info id token. */
+        private final Token infoId = new Token();
+
+        /** Values token. */
+        private final Token values = new Token();
+
+        /** VCF token listener. */
+        private final VcfTokenListener listener;
+
+        /** True to stop after the header lines. */
+        private final boolean headerOnly;
+
+
+        /**
+         * Create a new line tokenizer.
+         *
+         * @param listener VCF token listener
+         * @param lineNumber line number of the line preceding the first line
+         * @param headerOnly true to stop after the header lines
+         */
+        private LineTokenizer(final VcfTokenListener listener, final long lineNumber, final boolean headerOnly) {
+            this.listener = listener;
+            this.lineNumber = lineNumber;
+            this.headerOnly = headerOnly;
+        }
+
+
+        /**
+         * Tokenize the specified readable.
+         *
+         * @param readable readable
+         * @throws IOException if an I/O error occurs
+         */
+        void tokenize(final Readable readable) throws IOException {
+            char[] chars = new char[BUFFER_SIZE];
+            CharBuffer buffer = CharBuffer.wrap(chars);
+            boolean sawReturn = false;
+            while (readable.read(buffer) != -1) {
+                int limit = buffer.position();
+                int from = 0;
+                for (int i = 0; i < limit; i++) {
+                    char c = chars[i];
+                    if (c == '\n') {
+                        if (sawReturn) {
+                            sawReturn = false;
+                        }
+                        else {
+                            append(chars, from, i);
+                            if (!processLine()) {
+                                return;
+                            }
+                        }
+                        from = i + 1;
+                    }
+                    else if (c == '\r') {
+                        append(chars, from, i);
+                        if (!processLine()) {
+                            return;
+                        }
+                        from = i + 1;
+                        sawReturn = true;
+                    }
+                    else {
+                        sawReturn = false;
+                    }
+                }
+                append(chars, from, limit);
+                buffer.clear();
+            }
+            if (length > 0) {
+                processLine();
+            }
+        }
+
+        /**
+         * Append the specified range of characters to the line buffer.
+         *
+         * @param chars characters
+         * @param from from index, inclusive
+         * @param to to index, exclusive
+         */
+        private void append(final char[] chars, final int from, final int to) {
+            int n = to - from;
+            if (n > 0) {
+                if (length + n > line.length) {
+                    line = Arrays.copyOf(line, Math.max(line.length * 2, length + n));
+                }
+                System.arraycopy(chars, from, line, length, n);
+                length += n;
+            }
+        }
+
+        /**
+         * Split the specified range of the line buffer around the specified separator into
+         * the field start and end indices, with the same semantics as <code>String.split</code>.
+         *
+         * @param start start index, inclusive
+         * @param end end index, exclusive
+         * @param separator separator
+         * @return the number of fields
+         */
+        private int split(final int start, final int end, final char separator) {
+            int count = 0;
+            int from = start;
+            for (int i = start; i < end; i++) {
+                if (line[i] == separator) {
+                    count = addField(count, from, i);
+                    from = i + 1;
+                }
+            }
+            count = addField(count, from, end);
+            if (count > 1) {
+                while (count > 0 && fieldStarts[count - 1] == fieldEnds[count - 1]) {
+                    count--;
+                }
+            }
+            return count;
+        }
+
+        /**
+         * Add a field at the specified index.
+         *
+         * @param index index
+         * @param start field start index, inclusive
+         * @param end field end index, exclusive
+         * @return the next index
+         */
+        private int addField(final int index, final int start, final int end) {
+            if (index == fieldStarts.length) {
+                fieldStarts = Arrays.copyOf(fieldStarts, index * 2);
+                fieldEnds = Arrays.copyOf(fieldEnds, index * 2);
+            }
+            fieldStarts[index] = start;
+            fieldEnds[index] = end;
+            return index + 1;
+        }
+
+        /**
+         * Split the current line into tab-separated columns, with the same
+         * semantics as <code>String.split</code>.
+         *
+         * @return the number of columns
+         */
+        private int splitColumns() {
+            int count = 0;
+            int from = 0;
+            for (int i = 0; i < length; i++) {
+                if (line[i] == '\t') {
+                    count = addColumn(count, from, i);
+                    from = i + 1;
+                }
+            }
+            count = addColumn(count, from, length);
+            if (count > 1) {
+                while (count > 0 && columnStarts[count - 1] == columnEnds[count - 1]) {
+                    count--;
+                }
+            }
+            return count;
+        }
+
+        /**
+         * Add a column at the specified index.
+         *
+         * @param index index
+         * @param start column start index, inclusive
+         * @param end column end index, exclusive
+         * @return the next index
+         */
+        private int addColumn(final int index, final int start, final int end) {
+            if (index == columnStarts.length) {
+                columnStarts = Arrays.copyOf(columnStarts, index * 2);
+                columnEnds = Arrays.copyOf(columnEnds, index * 2);
+            }
+            columnStarts[index] = start;
+            columnEnds[index] = end;
+            return index + 1;
+        }
+
+        /**
+         * Return the specified column as a token.
+         *
+         * @param index column index
+         * @return the specified column as a token
+         */
+        private Token column(final int index) {
+            return column.set(line, columnStarts[index], columnEnds[index]);
+        }
+
+        /**
+         * Return true if the first column of the current line starts with the specified prefix.
+         *
+         * @param prefix prefix
+         * @return true if the first column of the current line starts with the specified prefix
+         */
+        private boolean startsWith(final String prefix) {
+            int n = prefix.length();
+            if (columnEnds[0] < n) {
+                return false;
+            }
+            for (int i = 0; i < n; i++) {
+                if (line[i] != prefix.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Process the current line.
+         *
+         * @return true to continue tokenizing
+         * @throws IOException if an I/O error occurs
+         */
+        private boolean processLine() throws IOException {
+            lineNumber++;
+            if (headerOnly && length > 0 && line[0] != '#') {
+                // first data line, do not split
+                length = 0;
+                return false;
+            }
+            try {
+                return processLine(splitColumns());
+            }
+            finally {
+                length = 0;
+            }
+        }
+
+        /**
+         * Process the current line with the specified number of columns.
+         *
+         * @param columns number of columns
+         * @return true to continue tokenizing
+         * @throws IOException if an I/O error occurs
+         */
+        private boolean processLine(final int columns) throws IOException {
+            // skip blank lines
+            if (length == 0 || columns == 0) {
+                return true;
+            }
+
+            if (startsWith("##")) {
+                // meta-information lines
+                listener.meta(lineToken.set(line, 0, length));
+            }
+            else if (startsWith("#CHROM")) {
+                // header line
+                String[] samples = new String[Math.max(0, columns - 9)];
+                for (int i = 9; i < columns; i++) {
+                    samples[i - 9] = column(i).toString();
+                }
+                listener.samples(samples);
+                return !headerOnly;
+            }
+            else {
+                // data lines
+                listener.lineNumber(lineNumber);
+                if (columns < 8) {
+                    throw new IOException("invalid data line at line number " + lineNumber + ", expected 8 tokens, found " + columns);
+                }
+
+                listener.chrom(column(0));
+
+                try {
+                    listener.pos(parseLong(column(1)));
+                }
+                catch (NumberFormatException e) {
+                    throw new IOException("invalid pos at line number " + lineNumber, e);
+                }
+
+                listener.id(column(2));
+                listener.ref(column(3));
+                listener.alt(column(4));
+
+                try {
+                    Token qual = column(5);
+                    listener.qual(isMissingValue(qual) ? Double.NaN : parseDouble(qual));
+                }
+                catch (NumberFormatException e) {
+                    throw new IOException("invalid qual at line number " + lineNumber, e);
+                }
+
+                listener.filter(column(6));
+
+                if (!isMissingValue(column(7))) {
+                    for (int i = 0, size = split(columnStarts[7], columnEnds[7], ';'); i < size; i++) {
+                        int start = fieldStarts[i];
+                        int end = fieldEnds[i];
+                        int separator = end;
+                        for (int j = start; j < end; j++) {
+                            if (line[j] == '=') {
+                                separator = j;
+                                break;
+                            }
+                        }
+                        infoId.set(line, start, separator);
+                        // flags have no value
+                        listener.info(infoId, (separator + 1 < end) ? values.set(line, separator + 1, end) : null);
+                    }
+                }
+
+                if (columns > 8) {
+                    int formats = split(columnStarts[8], columnEnds[8], ':');
+                    if (formats > formatIds.length) {
+                        int previous = formatIds.length;
+                        formatIds = Arrays.copyOf(formatIds, formats);
+                        for (int i = previous; i < formats; i++) {
+                            formatIds[i] = new Token();
+                        }
+                    }
+                    for (int i = 0; i < formats; i++) {
+                        formatIds[i].set(line, fieldStarts[i], fieldEnds[i]);
+                    }
+                    boolean gt = formats > 0 && "GT".contentEquals(formatIds[0]);
+                    listener.format(column(8));
+
+                    if (columns > 9 && !listener.genotypes(values.set(line, columnStarts[9], columnEnds[columns - 1]))) {
+                        return listener.complete();
+                    }
+                    for (int c = 9; c < columns; c++) {
+                        int fields = split(columnStarts[c], columnEnds[c], ':');
+                        if (fields > formats) {
+                            throw new IOException("invalid genotype fields at line number " + lineNumber + ", too many genotype fields");
+                        }
+                        if (gt && fields == 0) {
+                            throw new IOException("invalid genotype fields at line number " + lineNumber + ", missing genotype (GT) field");
+                        }
+                        for (int i = 0; i < fields; i++) {
+                            listener.genotype(c - 9, formatIds[i], values.set(line, fieldStarts[i], fieldEnds[i]));
+                        }
+                    }
+                }
+                return listener.complete();
+            }
+            return true;
+        }
+    }
+}
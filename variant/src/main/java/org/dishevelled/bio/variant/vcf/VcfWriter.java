@@ -188,6 +188,14 @@ public final class VcfWriter {
         if (!samples.isEmpty()) {
             sb.append("\t");
             sb.append(Joiner.on(":").join(record.getFormat()));
+
+            // write raw genotypes through untouched if samples are in the same order
+            if (record.getRawGenotypes() != null && sameOrder(samples, record.getSamples())) {
+                sb.append("\t");
+                sb.append(record.getRawGenotypes());
+                writer.println(sb.toString());
+                return;
+            }
             for (VcfSample sample : samples) {
                 sb.append("\t");
 
@@ -201,4 +209,23 @@ public final class VcfWriter {
         }
         writer.println(sb.toString());
     }
+
+    /**
+     * Return true if the specified VCF samples and sample ids are in the same order.
+     *
+     * @param samples zero or more VCF samples
+     * @param sampleIds array of sample ids
+     * @return true if the specified VCF samples and sample ids are in the same order
+     */
+    private static boolean sameOrder(final List<VcfSample> samples, final String[] sampleIds) {
+        if (samples.size() != sampleIds.length) {
+            return false;
+        }
+        for (int i = 0; i < sampleIds.length; i++) {
+            if (!sampleIds[i].equals(samples.get(i).getId())) {
+                return false;
+            }
+        }
+        return true;
+    }
 }
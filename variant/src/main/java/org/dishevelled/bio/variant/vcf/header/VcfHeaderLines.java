@@ -27,13 +27,16 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 import static org.dishevelled.bio.variant.vcf.header.VcfHeaderLineParser.isStructured;
 
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 
 import javax.annotation.concurrent.Immutable;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 
@@ -42,10 +45,22 @@ import org.dishevelled.bio.variant.vcf.VcfHeader;
 /**
  * VCF header lines.
  *
+ * <p>
+ * VCF header lines are parsed at most once per VCF header instance; subsequent calls to
+ * {@link #fromHeader(VcfHeader)} with the same VCF header return the same VCF header lines.
+ * Header lines keyed by ID are ordered as they appear in the VCF header, and contigs
+ * are assigned ordinals in that order, so that contigs may be compared as ints.
+ * </p>
+ *
  * @author  Michael Heuer
  */
 @Immutable
 public final class VcfHeaderLines {
+    /**
+     * VCF header lines keyed by VCF header instance, weakly.
+     */
+    private static final Cache<VcfHeader, VcfHeaderLines> CACHE = CacheBuilder.newBuilder().weakKeys().build();
+
     /**
      * VCF ALT header lines keyed by ID.
      */
@@ -101,6 +116,16 @@ public final class VcfHeaderLines {
      */
     private final Set<VcfStructuredHeaderLine> structuredHeaderLines;
 
+    /**
+     * Contig ordinals keyed by contig ID.
+     */
+    private final Map<String, Integer> contigOrdinals;
+
+    /**
+     * Contig IDs by ordinal.
+     */
+    private final String[] contigs;
+
 
     /**
      * Create a new VCF header lines.
@@ -151,6 +176,16 @@ public final class VcfHeaderLines {
         this.fileFormat = fileFormat;
         this.headerLines = ImmutableSet.copyOf(headerLines);
         this.structuredHeaderLines = ImmutableSet.copyOf(structuredHeaderLines);
+
+        ImmutableMap.Builder<String, Integer> ordinals = ImmutableMap.builder();
+        contigs = new String[this.contigHeaderLines.size()];
+        int ordinal = 0;
+        for (String contig : this.contigHeaderLines.keySet()) {
+            ordinals.put(contig, ordinal);
+            contigs[ordinal] = contig;
+            ordinal++;
+        }
+        this.contigOrdinals = ordinals.build();
     }
 
 
@@ -226,6 +261,88 @@ public final class VcfHeaderLines {
         return sampleHeaderLines;
     }
 
+    /**
+     * Return the VCF ALT header line with the specified ID, if any.
+     *
+     * @param id ID
+     * @return the VCF ALT header line with the specified ID, or <code>null</code> if no such header line exists
+     */
+    public VcfAltHeaderLine getAltHeaderLine(final String id) {
+        return altHeaderLines.get(id);
+    }
+
+    /**
+     * Return the VCF contig header line with the specified ID, if any.
+     *
+     * @param id ID
+     * @return the VCF contig header line with the specified ID, or <code>null</code> if no such header line exists
+     */
+    public VcfContigHeaderLine getContigHeaderLine(final String id) {
+        return contigHeaderLines.get(id);
+    }
+
+    /**
+     * Return the VCF FILTER header line with the specified ID, if any.
+     *
+     * @param id ID
+     * @return the VCF FILTER header line with the specified ID, or <code>null</code> if no such header line exists
+     */
+    public VcfFilterHeaderLine getFilterHeaderLine(final String id) {
+        return filterHeaderLines.get(id);
+    }
+
+    /**
+     * Return the VCF FORMAT header line with the specified ID, if any.
+     *
+     * @param id ID
+     * @return the VCF FORMAT header line with the specified ID, or <code>null</code> if no such header line exists
+     */
+    public VcfFormatHeaderLine getFormatHeaderLine(final String id) {
+        return formatHeaderLines.get(id);
+    }
+
+    /**
+     * Return the VCF INFO header line with the specified ID, if any.
+     *
+     * @param id ID
+     * @return the VCF INFO header line with the specified ID, or <code>null</code> if no such header line exists
+     */
+    public VcfInfoHeaderLine getInfoHeaderLine(final String id) {
+        return infoHeaderLines.get(id);
+    }
+
+    /**
+     * Return the number of contigs defined by VCF contig header lines.
+     *
+     * @return the number of contigs defined by VCF contig header lines
+     */
+    public int getContigCount() {
+        return contigs.length;
+    }
+
+    /**
+     * Return the ordinal of the specified contig, its zero-based position among the VCF
+     * contig header lines.
+     *
+     * @param contig contig ID
+     * @return the ordinal of the specified contig, or <code>-1</code> if no VCF contig
+     *    header line exists for the specified contig
+     */
+    public int getContigOrdinal(final String contig) {
+        Integer ordinal = contigOrdinals.get(contig);
+        return ordinal == null ? -1 : ordinal.intValue();
+    }
+
+    /**
+     * Return the contig ID with the specified ordinal.
+     *
+     * @param ordinal contig ordinal, must be at least zero and less than the number of contigs
+     * @return the contig ID with the specified ordinal
+     */
+    public String getContig(final int ordinal) {
+        return contigs[ordinal];
+    }
+
     /**
      * Return the VCF file format header line.
      *
@@ -300,25 +417,40 @@ public final class VcfHeaderLines {
     }
 
     /**
-     * Create a new VcfHeaderLines from the specified VcfHeader.
+     * Return the VcfHeaderLines for the specified VcfHeader, parsing the meta-information
+     * header lines of the specified VcfHeader only if they have not yet been parsed.
      *
      * @param header VcfHeader, must not be null
-     * @return a new VcfHeaderLines created from the specified VcfHeader
+     * @return the VcfHeaderLines for the specified VcfHeader
      */
     public static VcfHeaderLines fromHeader(final VcfHeader header) {
         checkNotNull(header);
+        VcfHeaderLines headerLines = CACHE.getIfPresent(header);
+        if (headerLines == null) {
+            headerLines = parse(header);
+            CACHE.put(header, headerLines);
+        }
+        return headerLines;
+    }
 
-        Map<String, VcfAltHeaderLine> altHeaderLines = new HashMap<String, VcfAltHeaderLine>();
-        Map<String, VcfContigHeaderLine> contigHeaderLines = new HashMap<String, VcfContigHeaderLine>();
-        Map<String, VcfFilterHeaderLine> filterHeaderLines = new HashMap<String, VcfFilterHeaderLine>();
-        Map<String, VcfFormatHeaderLine> formatHeaderLines = new HashMap<String, VcfFormatHeaderLine>();
-        Map<String, VcfInfoHeaderLine> infoHeaderLines = new HashMap<String, VcfInfoHeaderLine>();
-        Map<String, VcfMetaHeaderLine> metaHeaderLines = new HashMap<String, VcfMetaHeaderLine>();
-        Set<VcfPedigreeHeaderLine> pedigreeHeaderLines = new HashSet<VcfPedigreeHeaderLine>();
-        Map<String, VcfSampleHeaderLine> sampleHeaderLines = new HashMap<String, VcfSampleHeaderLine>();
+    /**
+     * Create a new VcfHeaderLines from the specified VcfHeader.
+     *
+     * @param header VcfHeader
+     * @return a new VcfHeaderLines created from the specified VcfHeader
+     */
+    private static VcfHeaderLines parse(final VcfHeader header) {
+        Map<String, VcfAltHeaderLine> altHeaderLines = new LinkedHashMap<String, VcfAltHeaderLine>();
+        Map<String, VcfContigHeaderLine> contigHeaderLines = new LinkedHashMap<String, VcfContigHeaderLine>();
+        Map<String, VcfFilterHeaderLine> filterHeaderLines = new LinkedHashMap<String, VcfFilterHeaderLine>();
+        Map<String, VcfFormatHeaderLine> formatHeaderLines = new LinkedHashMap<String, VcfFormatHeaderLine>();
+        Map<String, VcfInfoHeaderLine> infoHeaderLines = new LinkedHashMap<String, VcfInfoHeaderLine>();
+        Map<String, VcfMetaHeaderLine> metaHeaderLines = new LinkedHashMap<String, VcfMetaHeaderLine>();
+        Set<VcfPedigreeHeaderLine> pedigreeHeaderLines = new LinkedHashSet<VcfPedigreeHeaderLine>();
+        Map<String, VcfSampleHeaderLine> sampleHeaderLines = new LinkedHashMap<String, VcfSampleHeaderLine>();
         VcfHeaderLine fileFormat = VcfHeaderLine.valueOf("##fileformat=" + header.getFileFormat());
-        Set<VcfHeaderLine> headerLines = new HashSet<VcfHeaderLine>();
-        Set<VcfStructuredHeaderLine> structuredHeaderLines = new HashSet<VcfStructuredHeaderLine>();
+        Set<VcfHeaderLine> headerLines = new LinkedHashSet<VcfHeaderLine>();
+        Set<VcfStructuredHeaderLine> structuredHeaderLines = new LinkedHashSet<VcfStructuredHeaderLine>();
 
         for (String meta : header.getMeta()) {
             if (meta.startsWith("##ALT=")) {
@@ -0,0 +1,149 @@
+/*
+
+    dsh-bio-variant  Variants.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.variant.ann;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+
+import java.util.Arrays;
+
+import org.dishevelled.bio.variant.ann.SnpEffAnnotations.Field;
+
+import org.dishevelled.bio.variant.vcf.VcfRecord;
+import org.dishevelled.bio.variant.vcf.VcfRecordParser;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for SnpEffAnnotations.
+ *
+ * @author  Michael Heuer
+ */
+public final class SnpEffAnnotationsTest {
+    private VcfRecord record;
+
+    private static final String ANN = "T|upstream_gene_variant|MODIFIER|TAS1R3|ENSG00000169962|transcript|ENST00000339381.5|protein_coding||c.-485C>T|||||453|,"
+        + "T|missense_variant&splice_region_variant|HIGH|DVL1|ENSG00000107404|transcript|ENST00000378891.9|protein_coding|2/15|c.*5281G>A|p.Arg12Cys|100/2000|90/1500|30/500||WARNING_TRANSCRIPT_INCOMPLETE,"
+        + "T|intergenic_region|MODIFIER|CPTP-TAS1R3|ENSG00000224051-ENSG00000169962|intergenic_region|ENSG00000224051-ENSG00000169962|||n.1330861C>T||||||";
+
+    @Before
+    public void setUp() throws Exception {
+        StringReader reader = new StringReader("1\t1330861\trs527850923\tC\tT\t0.0\tPASS\tANN=" + ANN);
+        record = VcfRecordParser.records(reader).iterator().next();
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testValueOfNull() {
+        SnpEffAnnotations.valueOf(null);
+    }
+
+    @Test
+    public void testValueOfNoAnn() throws Exception {
+        StringReader reader = new StringReader("1\t1330861\trs527850923\tC\tT\t0.0\tPASS\tDP=42");
+        SnpEffAnnotations annotations = SnpEffAnnotations.valueOf(VcfRecordParser.records(reader).iterator().next());
+        assertTrue(annotations.isEmpty());
+        assertEquals(0, annotations.size());
+        assertFalse(annotations.anyImpact("HIGH"));
+    }
+
+    @Test
+    public void testGet() {
+        SnpEffAnnotations annotations = SnpEffAnnotations.valueOf(record);
+        assertEquals(3, annotations.size());
+        assertEquals("T", annotations.getAlternateAllele(0));
+        assertEquals("MODIFIER", annotations.getAnnotationImpact(0));
+        assertEquals("TAS1R3", annotations.getGeneName(0));
+        assertEquals("ENST00000339381.5", annotations.getFeatureId(0));
+        assertNull(annotations.get(0, Field.RANK));
+        assertEquals("453", annotations.get(0, Field.DISTANCE));
+        assertNull(annotations.get(0, Field.MESSAGES));
+        assertEquals("2/15", annotations.get(1, Field.RANK));
+        assertEquals("p.Arg12Cys", annotations.get(1, Field.HGVS_P));
+        assertEquals("WARNING_TRANSCRIPT_INCOMPLETE", annotations.get(1, Field.MESSAGES));
+        assertEquals(Arrays.asList("missense_variant", "splice_region_variant"), annotations.getEffects(1));
+    }
+
+    @Test
+    public void testIsEqual() {
+        SnpEffAnnotations annotations = SnpEffAnnotations.valueOf(record);
+        assertTrue(annotations.isEqual(1, Field.ANNOTATION_IMPACT, "HIGH"));
+        assertFalse(annotations.isEqual(1, Field.ANNOTATION_IMPACT, "HIG"));
+        assertFalse(annotations.isEqual(1, Field.ANNOTATION_IMPACT, "HIGHER"));
+        assertTrue(annotations.isEqual(0, Field.RANK, ""));
+    }
+
+    @Test
+    public void testContainsEffect() {
+        SnpEffAnnotations annotations = SnpEffAnnotations.valueOf(record);
+        assertTrue(annotations.containsEffect(0, "upstream_gene_variant"));
+        assertTrue(annotations.containsEffect(1, "missense_variant"));
+        assertTrue(annotations.containsEffect(1, "splice_region_variant"));
+        assertFalse(annotations.containsEffect(1, "splice_region"));
+        assertFalse(annotations.containsEffect(1, "missense_variant&splice_region_variant"));
+    }
+
+    @Test
+    public void testPredicates() {
+        SnpEffAnnotations annotations = SnpEffAnnotations.valueOf(record);
+        assertTrue(annotations.anyImpact("HIGH"));
+        assertTrue(annotations.anyImpact("MODIFIER"));
+        assertFalse(annotations.anyImpact("LOW"));
+        assertTrue(annotations.anyEffect("splice_region_variant"));
+        assertFalse(annotations.anyEffect("stop_gained"));
+        assertTrue(annotations.anyGeneName("DVL1"));
+        assertFalse(annotations.anyGeneName("BRCA1"));
+        assertTrue(annotations.anyMatch(Field.FEATURE_TYPE, "intergenic_region"));
+    }
+
+    @Test
+    public void testGetAnnotations() {
+        SnpEffAnnotations annotations = SnpEffAnnotations.valueOf(record);
+        assertEquals(SnpEffVariantAnnotation.annotate(record), annotations.getAnnotations());
+        SnpEffVariantAnnotation annotation = annotations.getAnnotation(1);
+        assertEquals(Integer.valueOf(2), annotation.getRank());
+        assertEquals(Integer.valueOf(15), annotation.getTotal());
+        assertEquals(Integer.valueOf(30), annotation.getProteinPosition());
+        assertEquals(ANN, annotations.getAnnotation(0) + "," + annotation + "," + annotations.getAnnotation(2));
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testBoundariesTooShort() {
+        SnpEffAnnotations.boundaries("T|upstream_gene_variant|MODIFIER");
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testBoundariesTooLong() {
+        SnpEffAnnotations.boundaries("T|upstream_gene_variant|MODIFIER|TAS1R3|ENSG00000169962|transcript|ENST00000339381.5|protein_coding||c.-485C>T|||||453||");
+    }
+
+    @Test
+    public void testSplitAnnPrefix() {
+        assertEquals(Arrays.asList("a", "b", "c"), SnpEffAnnotations.split(Arrays.asList("ANN=a,b", "c")));
+    }
+}
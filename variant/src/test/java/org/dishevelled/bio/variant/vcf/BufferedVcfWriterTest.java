@@ -0,0 +1,223 @@
+/*
+
+    dsh-bio-variant  Variants.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.variant.vcf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ListMultimap;
+
+import com.google.common.io.CharStreams;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for BufferedVcfWriter.
+ *
+ * @author  Michael Heuer
+ */
+public final class BufferedVcfWriterTest {
+    private VcfHeader header;
+    private List<VcfSample> samples;
+    private VcfRecord record;
+    private StringWriter stringWriter;
+
+    @Before
+    public void setUp() throws Exception {
+        header = new VcfHeader("VCFv4.1", ImmutableList.of("##fileformat=VCFv4.1"));
+        samples = ImmutableList.of(new VcfSample("NA19131", (VcfGenome[]) new VcfGenome[0]));
+
+        ListMultimap<String, String> info = ImmutableListMultimap.<String, String>builder().put("DP", "42").put("DB", "true").putAll("AF", "0.5", "0.25").build();
+        VcfGenotype.Builder genotypeBuilder = VcfGenotype.builder().withRef("A").withAlt("G", "T").withField("GT", "1|1");
+        Map<String, VcfGenotype> genotypes = ImmutableMap.<String, VcfGenotype>builder().put("NA19131", genotypeBuilder.build()).build();
+
+        record = VcfRecord.builder()
+            .withLineNumber(3L)
+            .withChrom("22")
+            .withPos(16140370L)
+            .withId("rs2096606")
+            .withRef("A")
+            .withAlt("G", "T")
+            .withQual(100.0d)
+            .withFilter("PASS")
+            .withInfo(info)
+            .withFormat("GT")
+            .withGenotypes(genotypes)
+            .build();
+
+        stringWriter = new StringWriter();
+    }
+
+    private static String roundTrip(final String name, final boolean lazy, final int blockSize) throws IOException {
+        final StringWriter stringWriter = new StringWriter();
+        final BufferedVcfWriter writer = new BufferedVcfWriter(stringWriter, blockSize);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(BufferedVcfWriterTest.class.getResourceAsStream(name)))) {
+            VcfReader.stream(reader, new VcfStreamAdapter() {
+                    private boolean wroteSamples = false;
+                    private List<VcfSample> samples = new ArrayList<VcfSample>();
+
+                    @Override
+                    public void header(final VcfHeader header) {
+                        try {
+                            writer.writeHeader(header);
+                        }
+                        catch (IOException e) {
+                            throw new RuntimeException(e);
+                        }
+                    }
+
+                    @Override
+                    public void sample(final VcfSample sample) {
+                        samples.add(sample);
+                    }
+
+                    @Override
+                    public void record(final VcfRecord record) {
+                        try {
+                            if (!wroteSamples) {
+                                writer.writeColumnHeader(samples);
+                                wroteSamples = true;
+                            }
+                            writer.writeRecord(samples, record);
+                        }
+                        catch (IOException e) {
+                            throw new RuntimeException(e);
+                        }
+                    }
+                }, lazy);
+        }
+        writer.close();
+        return stringWriter.toString();
+    }
+
+    private static List<String> lines(final String value) throws IOException {
+        return CharStreams.readLines(new StringReader(value));
+    }
+
+    private static List<String> resourceLines(final String name) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(BufferedVcfWriterTest.class.getResourceAsStream(name)))) {
+            return CharStreams.readLines(reader);
+        }
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testConstructorNullWriter() {
+        new BufferedVcfWriter(null);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testConstructorInvalidBlockSize() {
+        new BufferedVcfWriter(stringWriter, 0);
+    }
+
+    @Test
+    public void testConstructor() {
+        assertNotNull(new BufferedVcfWriter(stringWriter));
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testWriteHeaderNullHeader() throws Exception {
+        new BufferedVcfWriter(stringWriter).writeHeader(null);
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testWriteColumnHeaderNullSamples() throws Exception {
+        new BufferedVcfWriter(stringWriter).writeColumnHeader(null);
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testWriteRecordNullSamples() throws Exception {
+        new BufferedVcfWriter(stringWriter).writeRecord(null, record);
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testWriteRecordNullRecord() throws Exception {
+        new BufferedVcfWriter(stringWriter).writeRecord(samples, null);
+    }
+
+    @Test
+    public void testWrite() throws Exception {
+        BufferedVcfWriter writer = new BufferedVcfWriter(stringWriter);
+        writer.writeHeader(header);
+        writer.writeColumnHeader(samples);
+        writer.writeRecords(samples, ImmutableList.of(record));
+        assertEquals("", stringWriter.toString());
+        writer.flush();
+        assertEquals("##fileformat=VCFv4.1\n"
+                     + "#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\tFORMAT\tNA19131\n"
+                     + "22\t16140370\trs2096606\tA\tG,T\t100\tPASS\tDP=42;DB;AF=0.5,0.25\tGT\t1|1\n", stringWriter.toString());
+    }
+
+    @Test
+    public void testWriteMatchesVcfWriter() throws Exception {
+        VcfRecord noInfo = VcfRecord.builder()
+            .withChrom("22")
+            .withPos(-1L)
+            .withRef("A")
+            .withAlt("G")
+            .withQual(12.5d)
+            .withFormat("GT", "DP")
+            .withGenotype("NA19131", "GT", "0/1")
+            .build();
+
+        StringWriter expected = new StringWriter();
+        try (PrintWriter printWriter = new PrintWriter(expected)) {
+            VcfWriter.writeRecord(samples, noInfo, printWriter);
+        }
+        BufferedVcfWriter writer = new BufferedVcfWriter(stringWriter);
+        writer.writeRecord(samples, noInfo);
+        writer.close();
+        assertEquals(expected.toString().replace(System.lineSeparator(), "\n"), stringWriter.toString());
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        String[] names = {
+            "ALL.chr22.phase1_release_v3.20101123.snps_indels_svs.genotypes-2-indv-thin-20000bp-trim.vcf",
+            "ceph-bwa-j-gatk-haplotype-joint.excerpt.vcf",
+            "gatk-2.6-example.eff.vcf"
+        };
+        for (String name : names) {
+            List<String> expected = resourceLines(name);
+            assertEquals(expected, lines(roundTrip(name, true, BufferedVcfWriter.DEFAULT_BLOCK_SIZE)));
+            assertEquals(expected, lines(roundTrip(name, true, 1)));
+            assertEquals(expected.size(), lines(roundTrip(name, false, 128)).size());
+        }
+    }
+}
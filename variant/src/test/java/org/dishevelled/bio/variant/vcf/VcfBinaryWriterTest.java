@@ -0,0 +1,184 @@
+/*
+
+    dsh-bio-variant  Variants.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.variant.vcf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+
+import org.junit.Test;
+
+/**
+ * Unit test for VcfBinaryWriter and VcfBinaryReader.
+ *
+ * @author  Michael Heuer
+ */
+public final class VcfBinaryWriterTest {
+    private static final String[] RESOURCES = {
+        "ALL.chr22.phase1_release_v3.20101123.snps_indels_svs.genotypes-2-indv-thin-20000bp-trim.vcf",
+        "ceph-bwa-j-gatk-haplotype-joint.excerpt.vcf",
+        "gatk-2.6-example.eff.vcf",
+        "missing-id.vcf",
+        "missing-qual.vcf",
+        "missing-filter.vcf",
+        "samples.vcf"
+    };
+
+    private static BufferedReader reader(final String name) {
+        return new BufferedReader(new InputStreamReader(VcfBinaryWriterTest.class.getResourceAsStream(name)));
+    }
+
+    private static String text(final VcfHeader header, final List<VcfSample> samples, final Iterable<VcfRecord> records) {
+        StringWriter stringWriter = new StringWriter();
+        try (PrintWriter writer = new PrintWriter(stringWriter)) {
+            VcfWriter.write(header, samples, records, writer);
+        }
+        return stringWriter.toString();
+    }
+
+    private static void assertRoundTrip(final String name, final boolean lazy) throws IOException {
+        VcfHeader header;
+        List<VcfSample> samples;
+        Iterable<VcfRecord> records;
+        try (BufferedReader reader = reader(name)) {
+            header = VcfReader.header(reader);
+        }
+        try (BufferedReader reader = reader(name)) {
+            samples = ImmutableList.copyOf(VcfReader.samples(reader));
+        }
+        try (BufferedReader reader = reader(name)) {
+            records = VcfReader.records(reader, lazy);
+        }
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        VcfBinaryWriter.write(header, samples, records, outputStream);
+        byte[] bytes = outputStream.toByteArray();
+
+        VcfHeader binaryHeader = VcfBinaryReader.header(new ByteArrayInputStream(bytes));
+        List<VcfSample> binarySamples = ImmutableList.copyOf(VcfBinaryReader.samples(new ByteArrayInputStream(bytes)));
+        Iterable<VcfRecord> binaryRecords = VcfBinaryReader.records(new ByteArrayInputStream(bytes));
+
+        assertEquals(header.getFileFormat(), binaryHeader.getFileFormat());
+        assertEquals(header.getMeta(), binaryHeader.getMeta());
+        assertEquals(samples.size(), binarySamples.size());
+        for (int i = 0; i < samples.size(); i++) {
+            assertEquals(samples.get(i).getId(), binarySamples.get(i).getId());
+            assertEquals(samples.get(i).getGenomes().length, binarySamples.get(i).getGenomes().length);
+        }
+        assertEquals(text(header, samples, records), text(binaryHeader, binarySamples, binaryRecords));
+
+        int i = 0;
+        for (VcfRecord binaryRecord : binaryRecords) {
+            VcfRecord record = ImmutableList.copyOf(records).get(i++);
+            assertEquals(record.getLineNumber(), binaryRecord.getLineNumber());
+            assertEquals(record.getQual(), binaryRecord.getQual());
+            assertEquals(record.getInfo(), binaryRecord.getInfo());
+            assertEquals(record.getGenotypes().keySet(), binaryRecord.getGenotypes().keySet());
+        }
+        assertEquals(ImmutableList.copyOf(records).size(), i);
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testConstructorNullOutputStream() {
+        new VcfBinaryWriter(null);
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testWriteNullHeader() throws Exception {
+        VcfBinaryWriter.write(null, ImmutableList.<VcfSample>of(), ImmutableList.<VcfRecord>of(), new ByteArrayOutputStream());
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testWriteNullSamples() throws Exception {
+        VcfBinaryWriter.write(new VcfHeader("VCFv4.2", ImmutableList.<String>of()), null, ImmutableList.<VcfRecord>of(), new ByteArrayOutputStream());
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testWriteNullRecords() throws Exception {
+        VcfBinaryWriter.write(new VcfHeader("VCFv4.2", ImmutableList.<String>of()), ImmutableList.<VcfSample>of(), null, new ByteArrayOutputStream());
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testWriteNullOutputStream() throws Exception {
+        VcfBinaryWriter.write(new VcfHeader("VCFv4.2", ImmutableList.<String>of()), ImmutableList.<VcfSample>of(), ImmutableList.<VcfRecord>of(), null);
+    }
+
+    @Test(expected=IOException.class)
+    public void testCloseRethrowsError() throws Exception {
+        VcfBinaryWriter writer = new VcfBinaryWriter(new OutputStream() {
+                @Override
+                public void write(final int b) throws IOException {
+                    throw new IOException("expected");
+                }
+            });
+        writer.header(new VcfHeader("VCFv4.2", ImmutableList.<String>of()));
+        writer.close();
+    }
+
+    @Test
+    public void testReadEmpty() throws Exception {
+        assertNull(VcfBinaryReader.header(new ByteArrayInputStream(new byte[0])));
+        assertFalse(VcfBinaryReader.records(new ByteArrayInputStream(new byte[0])).iterator().hasNext());
+    }
+
+    @Test(expected=IOException.class)
+    public void testReadInvalidMagic() throws Exception {
+        VcfBinaryReader.records(new ByteArrayInputStream("##fileformat=VCFv4.2".getBytes("UTF-8")));
+    }
+
+    @Test(expected=IOException.class)
+    public void testReadTruncated() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        VcfBinaryWriter.write(new VcfHeader("VCFv4.2", ImmutableList.of("##fileformat=VCFv4.2")), ImmutableList.<VcfSample>of(), ImmutableList.<VcfRecord>of(), outputStream);
+        byte[] bytes = outputStream.toByteArray();
+        VcfBinaryReader.header(new ByteArrayInputStream(bytes, 0, bytes.length - 1));
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        for (String resource : RESOURCES) {
+            assertRoundTrip(resource, false);
+        }
+    }
+
+    @Test
+    public void testRoundTripLazy() throws Exception {
+        for (String resource : RESOURCES) {
+            assertRoundTrip(resource, true);
+        }
+    }
+}
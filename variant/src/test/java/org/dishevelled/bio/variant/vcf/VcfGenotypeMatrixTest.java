@@ -0,0 +1,222 @@
+/*
+
+    dsh-bio-variant  Variants.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.variant.vcf;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import static org.dishevelled.bio.variant.vcf.VcfGenotypeMatrix.HET;
+import static org.dishevelled.bio.variant.vcf.VcfGenotypeMatrix.HOM_ALT;
+import static org.dishevelled.bio.variant.vcf.VcfGenotypeMatrix.HOM_REF;
+import static org.dishevelled.bio.variant.vcf.VcfGenotypeMatrix.MISSING;
+import static org.dishevelled.bio.variant.vcf.VcfGenotypeMatrix.MISSING_VALUE;
+import static org.dishevelled.bio.variant.vcf.VcfGenotypeMatrix.hardyWeinbergP;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+
+import java.nio.CharBuffer;
+
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for VcfGenotypeMatrix.
+ *
+ * @author  Michael Heuer
+ */
+public final class VcfGenotypeMatrixTest {
+    private static final String VCF = "##fileformat=VCFv4.2\n"
+        + "#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\tFORMAT\tS1\tS2\tS3\tS4\tS5\n"
+        + "1\t100\trs1\tA\tG\t.\tPASS\t.\tGT:DP:GQ\t0/0:10:99\t0|1:20:200\t1/1:.:.\t./.\t1/0:40000:30\n"
+        + "1\t200\t.\tC\tG,T\t.\tPASS\t.\tDP:GT\t5:1/2\t6:0/2\t7:./1\t8:0/1/1\n"
+        + "2\t300\t.\tG\tT\t.\tPASS\t.\tGT\t0\t1\t10/0\t0|0\t1|1\n"
+        + "2\t400\t.\tT\tC\t.\tPASS\t.\n";
+
+    private VcfGenotypeMatrix matrix;
+
+    @Before
+    public void setUp() throws Exception {
+        matrix = VcfGenotypeMatrix.read(CharBuffer.wrap(VCF), true, true);
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testReadNull() throws Exception {
+        VcfGenotypeMatrix.read(null);
+    }
+
+    @Test(expected=IOException.class)
+    public void testReadInvalidDp() throws Exception {
+        VcfGenotypeMatrix.read(CharBuffer.wrap(VCF.replace("0/0:10:99", "0/0:ten:99")), true, false);
+    }
+
+    @Test
+    public void testVariants() {
+        assertEquals(ImmutableList.of("S1", "S2", "S3", "S4", "S5"), matrix.getSamples());
+        assertEquals(5, matrix.getSampleCount());
+        assertEquals(4, matrix.getVariantCount());
+        assertEquals("1", matrix.getChrom(0));
+        assertEquals(100L, matrix.getPos(0));
+        assertArrayEquals(new String[] { "rs1" }, matrix.getId(0));
+        assertEquals(0, matrix.getId(1).length);
+        assertEquals("C", matrix.getRef(1));
+        assertArrayEquals(new String[] { "G", "T" }, matrix.getAlt(1));
+        assertEquals("2", matrix.getChrom(3));
+        assertEquals(400L, matrix.getPos(3));
+    }
+
+    @Test
+    public void testGenotypes() {
+        assertEquals(HOM_REF, matrix.getGenotype(0, 0));
+        assertEquals(HET, matrix.getGenotype(0, 1));
+        assertEquals(HOM_ALT, matrix.getGenotype(0, 2));
+        assertEquals(MISSING, matrix.getGenotype(0, 3));
+        assertEquals(HET, matrix.getGenotype(0, 4));
+
+        assertEquals(HOM_ALT, matrix.getGenotype(1, 0));
+        assertEquals(HET, matrix.getGenotype(1, 1));
+        assertEquals(MISSING, matrix.getGenotype(1, 2));
+        assertEquals(MISSING, matrix.getGenotype(1, 3));
+        assertEquals(MISSING, matrix.getGenotype(1, 4));
+
+        assertEquals(HOM_REF, matrix.getGenotype(2, 0));
+        assertEquals(HOM_ALT, matrix.getGenotype(2, 1));
+        assertEquals(HET, matrix.getGenotype(2, 2));
+        assertEquals(HOM_REF, matrix.getGenotype(2, 3));
+        assertEquals(HOM_ALT, matrix.getGenotype(2, 4));
+
+        for (int sample = 0; sample < 5; sample++) {
+            assertEquals(MISSING, matrix.getGenotype(3, sample));
+        }
+    }
+
+    @Test(expected=IndexOutOfBoundsException.class)
+    public void testGenotypeSampleOutOfBounds() {
+        matrix.getGenotype(0, 5);
+    }
+
+    @Test(expected=IndexOutOfBoundsException.class)
+    public void testGenotypeVariantOutOfBounds() {
+        matrix.getGenotype(4, 0);
+    }
+
+    @Test
+    public void testPhased() {
+        assertFalse(matrix.isPhased(0, 0));
+        assertTrue(matrix.isPhased(0, 1));
+        assertFalse(matrix.isPhased(2, 2));
+        assertTrue(matrix.isPhased(2, 3));
+        assertTrue(matrix.isPhased(2, 4));
+    }
+
+    @Test
+    public void testDpGq() {
+        assertTrue(matrix.containsDp());
+        assertTrue(matrix.containsGq());
+        assertEquals(10, matrix.getDp(0, 0));
+        assertEquals(MISSING_VALUE, matrix.getDp(0, 2));
+        assertEquals(MISSING_VALUE, matrix.getDp(0, 3));
+        assertEquals(Short.MAX_VALUE, matrix.getDp(0, 4));
+        assertEquals(8, matrix.getDp(1, 3));
+        assertEquals(MISSING_VALUE, matrix.getDp(1, 4));
+        assertEquals(99, matrix.getGq(0, 0));
+        assertEquals(Byte.MAX_VALUE, matrix.getGq(0, 1));
+        assertEquals(MISSING_VALUE, matrix.getGq(1, 0));
+    }
+
+    @Test(expected=IllegalStateException.class)
+    public void testDpNotIncluded() throws Exception {
+        VcfGenotypeMatrix.read(CharBuffer.wrap(VCF)).getDp(0, 0);
+    }
+
+    @Test
+    public void testVariantSummaries() {
+        assertArrayEquals(new int[] { 1, 2, 1, 1 }, matrix.getGenotypeCounts(0));
+        assertArrayEquals(new int[] { 0, 1, 1, 3 }, matrix.getGenotypeCounts(1));
+        assertArrayEquals(new int[] { 2, 1, 2, 0 }, matrix.getGenotypeCounts(2));
+        assertArrayEquals(new int[] { 0, 0, 0, 5 }, matrix.getGenotypeCounts(3));
+
+        assertEquals(0.5d, matrix.getAlleleFrequency(0), 0.0001d);
+        assertEquals(0.75d, matrix.getAlleleFrequency(1), 0.0001d);
+        assertTrue(Double.isNaN(matrix.getAlleleFrequency(3)));
+        assertEquals(0.2d, matrix.getMissingRate(0), 0.0001d);
+        assertEquals(1.0d, matrix.getMissingRate(3), 0.0001d);
+
+        assertEquals(4, matrix.getAlleleFrequencies().length);
+        assertEquals(0.6d, matrix.getMissingRates()[1], 0.0001d);
+        assertTrue(Double.isNaN(matrix.getHardyWeinbergPs()[3]));
+    }
+
+    @Test
+    public void testSampleSummaries() {
+        int[][] counts = matrix.getSampleGenotypeCounts();
+        assertEquals(5, counts.length);
+        assertArrayEquals(new int[] { 2, 0, 1, 1 }, counts[0]);
+        assertArrayEquals(new int[] { 0, 2, 1, 1 }, counts[1]);
+        assertArrayEquals(new int[] { 1, 0, 0, 3 }, counts[3]);
+
+        assertEquals(0.25d, matrix.getSampleMissingRates()[0], 0.0001d);
+        assertEquals(2.0d / 3.0d, matrix.getSampleHeterozygosities()[1], 0.0001d);
+        assertEquals(7.5d, matrix.getSampleMeanDp()[0], 0.0001d);
+    }
+
+    @Test
+    public void testHardyWeinbergP() {
+        assertEquals(1.0d, hardyWeinbergP(100, 0, 0), 1.0e-9d);
+        assertEquals(2.187394057462872e-34, hardyWeinbergP(129, 14, 57), 1.0e-40d);
+        assertEquals(0.05423473159308883, hardyWeinbergP(129, 57, 14), 1.0e-9d);
+        assertEquals(0.05423473159308883, hardyWeinbergP(14, 57, 129), 1.0e-9d);
+        assertEquals(1.340302157635455e-06, hardyWeinbergP(10, 0, 10), 1.0e-12d);
+        assertEquals(0.00032865960411000825, hardyWeinbergP(50, 50, 0), 1.0e-10d);
+        assertEquals(1.0d, hardyWeinbergP(1, 1, 1), 1.0e-9d);
+        assertTrue(Double.isNaN(hardyWeinbergP(0, 0, 0)));
+    }
+
+    @Test
+    public void testSameGenotypesAsRecords() throws Exception {
+        String resource = "ALL.chr22.phase1_release_v3.20101123.snps_indels_svs.genotypes-2-indv-thin-20000bp-trim.vcf";
+        VcfGenotypeMatrix matrix = VcfGenotypeMatrix.read(new InputStreamReader(getClass().getResourceAsStream(resource)));
+        List<VcfRecord> records = ImmutableList.copyOf(VcfReader.records(new InputStreamReader(getClass().getResourceAsStream(resource))));
+        assertEquals(records.size(), matrix.getVariantCount());
+
+        for (int variant = 0; variant < records.size(); variant++) {
+            VcfRecord record = records.get(variant);
+            assertEquals(record.getChrom(), matrix.getChrom(variant));
+            assertEquals(record.getPos(), matrix.getPos(variant));
+            for (int sample = 0; sample < matrix.getSampleCount(); sample++) {
+                String gt = record.getGenotype(matrix.getSamples().get(sample)).getGt();
+                String[] alleles = gt.split("[|/]");
+                int expected = gt.contains(".") ? MISSING : ("0".equals(alleles[0]) ? 0 : 1) + ("0".equals(alleles[1]) ? 0 : 1);
+                assertEquals(expected, matrix.getGenotype(variant, sample));
+                assertEquals(gt.contains("|"), matrix.isPhased(variant, sample));
+            }
+        }
+    }
+}
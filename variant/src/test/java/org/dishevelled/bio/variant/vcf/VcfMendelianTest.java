@@ -0,0 +1,256 @@
+/*
+
+    dsh-bio-variant  Variants.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.variant.vcf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.dishevelled.bio.variant.vcf.VcfMendelian.FamilySummary;
+import org.dishevelled.bio.variant.vcf.VcfMendelian.Status;
+import org.dishevelled.bio.variant.vcf.VcfMendelian.VariantSummary;
+
+import org.junit.Test;
+
+/**
+ * Unit test for VcfMendelian.
+ *
+ * @author  Michael Heuer
+ */
+public final class VcfMendelianTest {
+    private static final String HEADER = "##fileformat=VCFv4.2\n"
+        + "##PEDIGREE=<Child=kid1,Mother=mom1,Father=dad1>\n"
+        + "##PEDIGREE=<Child=kid2,Mother=mom2,Father=dad2>\n"
+        + "#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\tFORMAT\tkid1\tmom1\tdad1\tkid2\tmom2\tdad2\n";
+
+    private static final String VCF = HEADER
+        + "chr1\t100\t.\tA\tG\t.\tPASS\t.\tGT\t0/1\t0/1\t0/0\t1/1\t0/1\t0/1\n"
+        + "chr1\t200\t.\tC\tT\t.\tPASS\t.\tGT\t1/1\t0/0\t0/1\t0/1\t./.\t0/0\n"
+        + "chr1\t300\t.\tG\tC\t.\tPASS\t.\tGT:GQ\t./.:.\t0/1:30\t0/1:30\t0|1:30\t0/0:30\t1/1:30\n"
+        + "chrX\t400\t.\tT\tA\t.\tPASS\t.\tGT\t1\t0/1\t0\t1\t0/0\t0\n";
+
+    @Test(expected=NullPointerException.class)
+    public void testCompileNullPedigree() {
+        VcfMendelian.compile(null, Collections.<String>emptyList());
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testCompileNullSamples() {
+        VcfMendelian.compile(VcfPedigree.builder().build(), null);
+    }
+
+    @Test
+    public void testCompile() throws Exception {
+        VcfMendelian mendelian = VcfMendelian.compile(VcfReader.pedigree(new StringReader(VCF)),
+                                                      Arrays.asList("kid1", "mom1", "dad1", "kid2", "mom2", "dad2"));
+        assertEquals(2, mendelian.size());
+        assertEquals("kid1", mendelian.getChildId(0));
+        assertEquals("mom1", mendelian.getMotherId(0));
+        assertEquals("dad1", mendelian.getFatherId(0));
+        assertEquals("kid2", mendelian.getChildId(1));
+        assertEquals("mom2", mendelian.getMotherId(1));
+        assertEquals("dad2", mendelian.getFatherId(1));
+    }
+
+    @Test
+    public void testCompileMissingSamples() {
+        VcfSample kid1 = new VcfSample("kid1");
+        VcfSample mom1 = new VcfSample("mom1");
+        VcfSample dad1 = new VcfSample("dad1");
+        VcfSample kid2 = new VcfSample("kid2");
+        VcfSample mom2 = new VcfSample("mom2");
+        VcfPedigree pedigree = VcfPedigree.builder()
+            .withRelationship(mom1, "Mother", kid1, "Child")
+            .withRelationship(dad1, "Father", kid1, "Child")
+            .withRelationship(mom2, "Mother", kid2, "Child")
+            .build();
+
+        VcfMendelian mendelian = VcfMendelian.compile(pedigree, Arrays.asList("dad1", "kid1", "mom2"));
+        assertEquals(1, mendelian.size());
+        assertEquals("kid1", mendelian.getChildId(0));
+        assertNull(mendelian.getMotherId(0));
+        assertEquals("dad1", mendelian.getFatherId(0));
+    }
+
+    @Test
+    public void testCompileIgnoresDerived() {
+        VcfPedigree pedigree = VcfPedigree.builder()
+            .withRelationship(new VcfSample("germline"), "Original", new VcfSample("tumor"), "Derived")
+            .build();
+        assertEquals(0, VcfMendelian.compile(pedigree, Arrays.asList("germline", "tumor")).size());
+    }
+
+    @Test
+    public void testEvaluate() throws Exception {
+        VcfMendelian mendelian = VcfMendelian.compile(VcfReader.pedigree(new StringReader(VCF)),
+                                                      Arrays.asList("kid1", "mom1", "dad1", "kid2", "mom2", "dad2"));
+        List<VariantSummary> variants = new ArrayList<VariantSummary>();
+        for (VcfRecord record : VcfReader.records(new StringReader(VCF))) {
+            variants.add(mendelian.evaluate(record));
+        }
+        assertVariants(variants);
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testCheckNullReadable() throws Exception {
+        VcfMendelian.check(null, new RecordingListener());
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testCheckNullListener() throws Exception {
+        VcfMendelian.check(new StringReader(VCF), null);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testCheckInvalidThreads() throws Exception {
+        VcfMendelian.check(new StringReader(VCF), new RecordingListener(), 0);
+    }
+
+    @Test
+    public void testCheck() throws Exception {
+        RecordingListener listener = new RecordingListener();
+        VcfMendelian.check(new StringReader(VCF), listener);
+
+        assertEquals(2, listener.mendelian.size());
+        assertVariants(listener.variants);
+        assertEquals(2, listener.families.size());
+
+        FamilySummary family1 = listener.families.get(0);
+        assertEquals(0, family1.getTrio());
+        assertEquals("kid1", family1.getChildId());
+        assertEquals("mom1", family1.getMotherId());
+        assertEquals("dad1", family1.getFatherId());
+        assertEquals(2L, family1.getConsistent());
+        assertEquals(1L, family1.getErrors());
+        assertEquals(1L, family1.getNoCalls());
+        assertEquals(1L, family1.getTransmitted());
+        assertEquals(0L, family1.getUntransmitted());
+        assertEquals(1.0d, family1.getTdt(), 0.001d);
+
+        FamilySummary family2 = listener.families.get(1);
+        assertEquals("kid2", family2.getChildId());
+        assertEquals(3L, family2.getConsistent());
+        assertEquals(1L, family2.getErrors());
+        assertEquals(0L, family2.getNoCalls());
+        assertEquals(2L, family2.getTransmitted());
+        assertEquals(0L, family2.getUntransmitted());
+    }
+
+    @Test
+    public void testCheckNoRecords() throws Exception {
+        RecordingListener listener = new RecordingListener();
+        VcfMendelian.check(new StringReader(HEADER), listener);
+
+        assertEquals(2, listener.mendelian.size());
+        assertTrue(listener.variants.isEmpty());
+        assertEquals(2, listener.families.size());
+        assertTrue(Double.isNaN(listener.families.get(0).getTdt()));
+    }
+
+    @Test
+    public void testCheckParallel() throws Exception {
+        StringBuilder sb = new StringBuilder(HEADER);
+        for (int i = 0; i < 10 * VcfMendelian.BATCH_SIZE + 1; i++) {
+            sb.append("chr1\t" + (i + 1) + "\t.\tA\tG\t.\tPASS\t.\tGT\t");
+            sb.append(i % 2 == 0 ? "0/1\t0/1\t0/0" : "1/1\t0/0\t0/0");
+            sb.append("\t0/1\t0/1\t0/1\n");
+        }
+        RecordingListener listener = new RecordingListener();
+        VcfMendelian.check(new StringReader(sb.toString()), listener, 4);
+
+        assertEquals(10 * VcfMendelian.BATCH_SIZE + 1, listener.variants.size());
+        for (int i = 0; i < listener.variants.size(); i++) {
+            VariantSummary variant = listener.variants.get(i);
+            assertEquals(i + 1L, variant.getRecord().getPos());
+            assertEquals(i + HEADER.split("\n").length + 1L, variant.getRecord().getLineNumber());
+            assertEquals(i % 2 == 0 ? Status.CONSISTENT : Status.ERROR, variant.getStatus(0));
+        }
+        assertEquals(5L * VcfMendelian.BATCH_SIZE + 1L, listener.families.get(0).getConsistent());
+        assertEquals(5L * VcfMendelian.BATCH_SIZE, listener.families.get(0).getErrors());
+        assertEquals(10L * VcfMendelian.BATCH_SIZE + 1L, listener.families.get(1).getTransmitted());
+        assertEquals(10L * VcfMendelian.BATCH_SIZE + 1L, listener.families.get(1).getUntransmitted());
+    }
+
+    private static void assertVariants(final List<VariantSummary> variants) {
+        assertEquals(4, variants.size());
+
+        VariantSummary variant = variants.get(0);
+        assertEquals(100L, variant.getRecord().getPos());
+        assertEquals(Status.CONSISTENT, variant.getStatus(0));
+        assertEquals(Status.CONSISTENT, variant.getStatus(1));
+        assertEquals(2, variant.getConsistent());
+        assertEquals(0, variant.getErrors());
+        assertEquals(0, variant.getNoCalls());
+        assertEquals(3, variant.getTransmitted());
+        assertEquals(0, variant.getUntransmitted());
+        assertTrue(variant.getErrorChildIds().isEmpty());
+
+        variant = variants.get(1);
+        assertEquals(Status.ERROR, variant.getStatus(0));
+        assertEquals(Status.CONSISTENT, variant.getStatus(1));
+        assertEquals(1, variant.getErrors());
+        assertEquals(Arrays.asList("kid1"), variant.getErrorChildIds());
+        assertEquals(0, variant.getTransmitted());
+
+        variant = variants.get(2);
+        assertEquals(Status.NO_CALL, variant.getStatus(0));
+        assertEquals(Status.CONSISTENT, variant.getStatus(1));
+        assertEquals(1, variant.getNoCalls());
+        assertEquals(0, variant.getTransmitted());
+        assertEquals(0, variant.getUntransmitted());
+
+        variant = variants.get(3);
+        assertEquals(Status.CONSISTENT, variant.getStatus(0));
+        assertEquals(Status.ERROR, variant.getStatus(1));
+        assertEquals(Arrays.asList("kid2"), variant.getErrorChildIds());
+    }
+
+    private static final class RecordingListener implements VcfMendelListener {
+        private VcfMendelian mendelian;
+        private final List<VariantSummary> variants = new ArrayList<VariantSummary>();
+        private final List<FamilySummary> families = new ArrayList<FamilySummary>();
+
+        @Override
+        public void trios(final VcfMendelian mendelian) {
+            this.mendelian = mendelian;
+        }
+
+        @Override
+        public void variant(final VariantSummary variant) {
+            variants.add(variant);
+        }
+
+        @Override
+        public void family(final FamilySummary family) {
+            families.add(family);
+        }
+    }
+}
@@ -0,0 +1,358 @@
+/*
+
+    dsh-bio-variant  Variants.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.variant.vcf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Unit test for VcfMerger.
+ *
+ * @author  Michael Heuer
+ */
+public final class VcfMergerTest {
+    private static final String HEADER = "##fileformat=VCFv4.2\n"
+        + "##contig=<ID=chr2>\n"
+        + "##contig=<ID=chr1>\n";
+
+    private static final String SAMPLE0 = HEADER
+        + "#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\tFORMAT\tNA12878\n"
+        + "chr2\t100\t.\tA\tG\t.\tPASS\t.\tGT\t0/1\n"
+        + "chr2\t200\t.\tC\tT\t.\tPASS\t.\tGT\t1/1\n"
+        + "chr2\t200\t.\tC\tA\t.\tPASS\t.\tGT\t0/1\n"
+        + "chr1\t50\t.\tG\tC\t.\tPASS\t.\tGT\t0/1\n";
+
+    private static final String SAMPLE1 = HEADER
+        + "#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\tFORMAT\tNA12891\n"
+        + "chr2\t200\t.\tC\tA\t.\tPASS\t.\tGT\t1/1\n"
+        + "chr2\t200\t.\tC\tT\t.\tPASS\t.\tGT\t0/1\n"
+        + "chr1\t50\t.\tG\tC\t.\tPASS\t.\tGT\t0/1\n"
+        + "chr1\t60\t.\tT\tA\t.\tPASS\t.\tGT\t0/1\n";
+
+    private static final String DBSNP = "##fileformat=VCFv4.2\n"
+        + "#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\n"
+        + "chr2\t100\trs1\tA\tG\t.\t.\t.\n"
+        + "chr2\t150\trs2\tT\tC\t.\t.\t.\n"
+        + "chr1\t50\trs3\tG\tT\t.\t.\t.\n";
+
+    @Test(expected=NullPointerException.class)
+    public void testMergeNullReadables() throws Exception {
+        VcfMerger.merge(null, new VcfMergeAdapter());
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testMergeNullListener() throws Exception {
+        VcfMerger.merge(Collections.<Readable>emptyList(), null);
+    }
+
+    @Test
+    public void testMergeEmpty() throws Exception {
+        final List<String> events = new ArrayList<String>();
+        VcfMerger.merge(Collections.<Readable>emptyList(), new RecordingListener(events));
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    public void testMerge() throws Exception {
+        final List<String> events = new ArrayList<String>();
+        VcfMerger.merge(Arrays.asList(new StringReader(SAMPLE0), new StringReader(SAMPLE1)), new RecordingListener(events));
+        assertEquals(Arrays.asList("header 0", "sample 0 NA12878", "header 1", "sample 1 NA12891",
+                                   "unmatched 0 chr2:100 A>G",
+                                   "matched 0,1 chr2:200 C>T",
+                                   "matched 0,1 chr2:200 C>A",
+                                   "matched 0,1 chr1:50 G>C",
+                                   "unmatched 1 chr1:60 T>A"), events);
+    }
+
+    @Test
+    public void testMergeLazy() throws Exception {
+        final List<String> genotypes = new ArrayList<String>();
+        VcfMerger.merge(Arrays.asList(new StringReader(SAMPLE0), new StringReader(SAMPLE1)), new VcfMergeAdapter() {
+                @Override
+                public void matched(final VcfRecord... records) {
+                    genotypes.add(records[0].getGenotype("NA12878").getGt() + " " + records[1].getGenotype("NA12891").getGt());
+                }
+            }, true);
+        assertEquals(Arrays.asList("1/1 0/1", "0/1 1/1", "0/1 0/1"), genotypes);
+    }
+
+    @Test
+    public void testMergeLineNumbers() throws Exception {
+        final List<Long> lineNumbers = new ArrayList<Long>();
+        VcfMerger.merge(Arrays.asList(new StringReader(SAMPLE0)), new VcfMergeAdapter() {
+                @Override
+                public void unmatched(final int input, final VcfRecord record) {
+                    lineNumbers.add(record.getLineNumber());
+                }
+            });
+        assertEquals(Arrays.asList(5L, 6L, 7L, 8L), lineNumbers);
+    }
+
+    @Test
+    public void testMergeDatabase() throws Exception {
+        final List<String> events = new ArrayList<String>();
+        VcfMerger.merge(Arrays.asList(new StringReader(SAMPLE0), new StringReader(DBSNP)), new RecordingListener(events));
+        assertEquals(Arrays.asList("header 0", "sample 0 NA12878", "header 1",
+                                   "matched 0,1 chr2:100 A>G",
+                                   "unmatched 1 chr2:150 T>C",
+                                   "unmatched 0 chr2:200 C>T",
+                                   "unmatched 0 chr2:200 C>A",
+                                   "unmatched 0 chr1:50 G>C",
+                                   "unmatched 1 chr1:50 G>T"), events);
+    }
+
+    @Test
+    public void testMergeDuplicates() throws Exception {
+        String duplicates = HEADER
+            + "#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\n"
+            + "chr2\t100\trs1\tA\tG\t.\t.\t.\n"
+            + "chr2\t100\trs2\tA\tG\t.\t.\t.\n";
+
+        final List<String> events = new ArrayList<String>();
+        VcfMerger.merge(Arrays.asList(new StringReader(SAMPLE0), new StringReader(duplicates)), new RecordingListener(events));
+        assertEquals("matched 0,1 chr2:100 A>G", events.get(3));
+        assertEquals("unmatched 1 chr2:100 A>G", events.get(4));
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testMergeNullAlleleMatching() throws Exception {
+        VcfMerger.merge(Arrays.asList(new StringReader(SAMPLE0)), new VcfMergeAdapter(), false, null);
+    }
+
+    @Test
+    public void testMergeAlleleSubset() throws Exception {
+        String multiallelic = HEADER
+            + "#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\n"
+            + "chr2\t100\trs1\tA\tG,T\t.\t.\t.\n"
+            + "chr2\t200\trs2\tC\tA,T\t.\t.\t.\n"
+            + "chr1\t50\trs3\tG\tT\t.\t.\t.\n";
+
+        final List<String> events = new ArrayList<String>();
+        VcfMerger.merge(Arrays.asList(new StringReader(SAMPLE0), new StringReader(multiallelic)), new RecordingListener(events), false, VcfMerger.AlleleMatching.SUBSET);
+        assertEquals(Arrays.asList("header 0", "sample 0 NA12878", "header 1",
+                                   "matched 0,1 chr2:100 A>G",
+                                   "matched 0,1 chr2:200 C>T",
+                                   "matched 0,1 chr2:200 C>A",
+                                   "unmatched 0 chr1:50 G>C",
+                                   "unmatched 1 chr1:50 G>T"), events);
+    }
+
+    @Test
+    public void testMergeAlleleSubsetNotSuperset() throws Exception {
+        String biallelic = HEADER
+            + "#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\n"
+            + "chr2\t100\trs1\tA\tG\t.\t.\t.\n";
+        String multiallelic = HEADER
+            + "#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\n"
+            + "chr2\t100\t.\tA\tG,T\t.\t.\t.\n";
+
+        final List<String> events = new ArrayList<String>();
+        VcfMerger.merge(Arrays.asList(new StringReader(multiallelic), new StringReader(biallelic)), new RecordingListener(events), false, VcfMerger.AlleleMatching.SUBSET);
+        assertEquals(Arrays.asList("header 0", "header 1",
+                                   "unmatched 0 chr2:100 A>G",
+                                   "unmatched 1 chr2:100 A>G"), events);
+    }
+
+    @Test
+    public void testMergeContigsNotInHeader() throws Exception {
+        String sitesOnly = "##fileformat=VCFv4.2\n"
+            + "chr3\t10\t.\tA\tG\t.\t.\t.\n"
+            + "chr4\t10\t.\tA\tG\t.\t.\t.\n";
+        try {
+            VcfMerger.merge(Arrays.asList(new StringReader(sitesOnly), new StringReader(sitesOnly)), new VcfMergeAdapter());
+            fail("expected IOException");
+        }
+        catch (IOException e) {
+            assertTrue(e.getMessage().contains("chr3"));
+        }
+    }
+
+    @Test
+    public void testMergeContigsNotInHeaderSingleInput() throws Exception {
+        String sitesOnly = "##fileformat=VCFv4.2\n"
+            + "chr3\t10\t.\tA\tG\t.\t.\t.\n"
+            + "chr4\t10\t.\tA\tG\t.\t.\t.\n";
+
+        final List<String> events = new ArrayList<String>();
+        VcfMerger.merge(Arrays.asList(new StringReader(sitesOnly)), new RecordingListener(events));
+        assertEquals(Arrays.asList("header 0", "unmatched 0 chr3:10 A>G", "unmatched 0 chr4:10 A>G"), events);
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testMergeNullContigs() throws Exception {
+        VcfMerger.merge(Arrays.asList(new StringReader(SAMPLE0)), new VcfMergeAdapter(), false, VcfMerger.AlleleMatching.EXACT, null);
+    }
+
+    @Test
+    public void testMergeContigOrder() throws Exception {
+        String sitesOnly0 = "##fileformat=VCFv4.2\n"
+            + "chr4\t10\t.\tA\tG\t.\t.\t.\n";
+        String sitesOnly1 = "##fileformat=VCFv4.2\n"
+            + "chr3\t10\t.\tA\tG\t.\t.\t.\n"
+            + "chr4\t10\t.\tA\tG\t.\t.\t.\n";
+
+        final List<String> events = new ArrayList<String>();
+        VcfMerger.merge(Arrays.asList(new StringReader(sitesOnly0), new StringReader(sitesOnly1)), new RecordingListener(events),
+                        false, VcfMerger.AlleleMatching.EXACT, Arrays.asList("chr3", "chr4"));
+        assertEquals(Arrays.asList("header 0", "header 1", "unmatched 1 chr3:10 A>G", "matched 0,1 chr4:10 A>G"), events);
+    }
+
+    @Test
+    public void testMergeContigOrderDisagrees() throws Exception {
+        String reordered = "##fileformat=VCFv4.2\n"
+            + "##contig=<ID=chr1>\n"
+            + "##contig=<ID=chr2>\n"
+            + "#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\n"
+            + "chr1\t50\t.\tG\tC\t.\t.\t.\n"
+            + "chr2\t100\t.\tA\tG\t.\t.\t.\n";
+        try {
+            VcfMerger.merge(Arrays.asList(new StringReader(SAMPLE0), new StringReader(reordered)), new VcfMergeAdapter());
+            fail("expected IOException");
+        }
+        catch (IOException e) {
+            assertTrue(e.getMessage().contains("disagrees"));
+        }
+    }
+
+    @Test
+    public void testMergeNotSorted() throws Exception {
+        String notSorted = HEADER
+            + "#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\n"
+            + "chr1\t100\t.\tA\tG\t.\t.\t.\n"
+            + "chr2\t100\t.\tA\tG\t.\t.\t.\n";
+        try {
+            VcfMerger.merge(Arrays.asList(new StringReader(notSorted)), new VcfMergeAdapter());
+            fail("expected IOException");
+        }
+        catch (IOException e) {
+            assertTrue(e.getMessage().contains("line 6"));
+        }
+    }
+
+    @Test
+    public void testMergeNotSortedPosition() throws Exception {
+        String notSorted = HEADER
+            + "#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\n"
+            + "chr2\t100\t.\tA\tG\t.\t.\t.\n"
+            + "chr2\t90\t.\tA\tG\t.\t.\t.\n";
+        try {
+            VcfMerger.merge(Arrays.asList(new StringReader(notSorted)), new VcfMergeAdapter());
+            fail("expected IOException");
+        }
+        catch (IOException e) {
+            assertTrue(e.getMessage().contains("chr2:90"));
+        }
+    }
+
+    @Test
+    public void testMergeManyBatches() throws Exception {
+        StringBuilder sb = new StringBuilder(HEADER);
+        sb.append("#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\n");
+        int n = VcfMerger.BATCH_SIZE * 3 + 7;
+        for (int i = 1; i <= n; i++) {
+            sb.append("chr2\t" + i + "\t.\tA\tG\t.\t.\t.\n");
+        }
+        final int[] count = new int[1];
+        final VcfHeader[] header = new VcfHeader[1];
+        VcfMerger.merge(Arrays.asList(new StringReader(sb.toString()), new StringReader(sb.toString())), new VcfMergeAdapter() {
+                @Override
+                public void header(final int input, final VcfHeader h) {
+                    header[0] = h;
+                }
+
+                @Override
+                public void matched(final VcfRecord... records) {
+                    assertEquals(records[0].getPos(), records[1].getPos());
+                    assertEquals(records[0].getLineNumber(), records[0].getPos() + 4L);
+                    count[0]++;
+                }
+
+                @Override
+                public void unmatched(final int input, final VcfRecord record) {
+                    fail("expected all records to match");
+                }
+            });
+        assertEquals(n, count[0]);
+        assertEquals("VCFv4.2", header[0].getFileFormat());
+    }
+
+    /**
+     * Merge listener that records events as strings.
+     */
+    private static final class RecordingListener implements VcfMergeListener {
+        private final List<String> events;
+
+        RecordingListener(final List<String> events) {
+            this.events = events;
+        }
+
+        @Override
+        public void header(final int input, final VcfHeader header) {
+            events.add("header " + input);
+        }
+
+        @Override
+        public void sample(final int input, final VcfSample sample) {
+            events.add("sample " + input + " " + sample.getId());
+        }
+
+        @Override
+        public void matched(final VcfRecord... records) {
+            StringBuilder sb = new StringBuilder("matched ");
+            VcfRecord first = null;
+            for (int i = 0; i < records.length; i++) {
+                if (records[i] != null) {
+                    if (first != null) {
+                        sb.append(",");
+                    }
+                    else {
+                        first = records[i];
+                    }
+                    sb.append(i);
+                }
+            }
+            events.add(sb.toString() + " " + describe(first));
+        }
+
+        @Override
+        public void unmatched(final int input, final VcfRecord record) {
+            events.add("unmatched " + input + " " + describe(record));
+        }
+
+        private static String describe(final VcfRecord record) {
+            return record.getChrom() + ":" + record.getPos() + " " + record.getRef() + ">" + record.getAlt()[0];
+        }
+    }
+}
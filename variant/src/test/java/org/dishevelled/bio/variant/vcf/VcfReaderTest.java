@@ -31,10 +31,13 @@ import static org.junit.Assert.assertTrue;
 
 import static org.dishevelled.bio.variant.vcf.VcfReader.parse;
 import static org.dishevelled.bio.variant.vcf.VcfReader.header;
+import static org.dishevelled.bio.variant.vcf.VcfReader.isIndexed;
 import static org.dishevelled.bio.variant.vcf.VcfReader.pedigree;
+import static org.dishevelled.bio.variant.vcf.VcfReader.query;
 import static org.dishevelled.bio.variant.vcf.VcfReader.records;
 import static org.dishevelled.bio.variant.vcf.VcfReader.samples;
 import static org.dishevelled.bio.variant.vcf.VcfReader.stream;
+import static org.dishevelled.bio.variant.vcf.VcfReader.streamParallel;
 
 import java.net.URL;
 
@@ -47,7 +50,13 @@ import java.io.IOException;
 
 import java.nio.CharBuffer;
 
+import java.nio.file.Path;
+
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+
+import java.util.function.Predicate;
 
 import com.google.common.collect.ImmutableList;
 
@@ -73,6 +82,10 @@ public final class VcfReaderTest {
     private VcfParseListener parseListener;
     private VcfStreamListener streamListener;
     private static final String VCF = "ALL.chr22.phase1_release_v3.20101123.snps_indels_svs.genotypes-2-indv-thin-20000bp-trim.vcf";
+    private static final String BGZF_VCF = VCF + ".gz";
+    private static final String HEADER_ONLY = "##fileformat=VCFv4.2\n"
+        + "##PEDIGREE=<Child=kid,Mother=mom>\n"
+        + "#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\tFORMAT\tkid\tmom\n";
 
     @Before
     public void setUp() {
@@ -183,6 +196,55 @@ public final class VcfReaderTest {
         assertTrue(pedigree.getGraph().isEmpty());
     }
 
+    @Test
+    public void testHeaderDoesNotTokenizeDataLines() throws Exception {
+        VcfHeader header = header(CharBuffer.wrap(HEADER_ONLY + "invalid data line\n"));
+        assertEquals("VCFv4.2", header.getFileFormat());
+        assertEquals(2, header.getMeta().size());
+    }
+
+    @Test
+    public void testSamplesDoesNotTokenizeDataLines() throws Exception {
+        List<VcfSample> samples = ImmutableList.copyOf(samples(CharBuffer.wrap(HEADER_ONLY + "invalid data line\n")));
+        assertEquals(2, samples.size());
+        assertEquals("kid", samples.get(0).getId());
+        assertEquals("mom", samples.get(1).getId());
+    }
+
+    @Test
+    public void testPedigreeDoesNotTokenizeDataLines() throws Exception {
+        VcfPedigree pedigree = pedigree(CharBuffer.wrap(HEADER_ONLY + "invalid data line\n"));
+        assertEquals(1, pedigree.getGraph().edgeCount());
+    }
+
+    @Test
+    public void testHeaderReadsOnlyLeadingCharacters() throws Exception {
+        UnboundedReadable unbounded = new UnboundedReadable(HEADER_ONLY);
+        assertEquals("VCFv4.2", header(unbounded).getFileFormat());
+        assertTrue(unbounded.getCharactersRead() <= HEADER_ONLY.length() + 65536L);
+    }
+
+    @Test
+    public void testSamplesReadsOnlyLeadingCharacters() throws Exception {
+        UnboundedReadable unbounded = new UnboundedReadable(HEADER_ONLY);
+        assertEquals(2, ImmutableList.copyOf(samples(unbounded)).size());
+        assertTrue(unbounded.getCharactersRead() <= HEADER_ONLY.length() + 65536L);
+    }
+
+    @Test
+    public void testPedigreeReadsOnlyLeadingCharacters() throws Exception {
+        UnboundedReadable unbounded = new UnboundedReadable(HEADER_ONLY);
+        assertEquals(1, pedigree(unbounded).getGraph().edgeCount());
+        assertTrue(unbounded.getCharactersRead() <= HEADER_ONLY.length() + 65536L);
+    }
+
+    @Test
+    public void testHeaderWithoutColumnHeaderStopsAtFirstDataLine() throws Exception {
+        UnboundedReadable unbounded = new UnboundedReadable("##fileformat=VCFv4.2\n");
+        assertEquals("VCFv4.2", header(unbounded).getFileFormat());
+        assertTrue(unbounded.getCharactersRead() <= 2 * 65536L);
+    }
+
     @Test(expected=NullPointerException.class)
     public void testRecordsNullReadable() throws Exception {
         records((Readable) null);
@@ -232,6 +294,25 @@ public final class VcfReaderTest {
     }
 
 
+    @Test
+    public void testHeaderBgzfFile() throws Exception {
+        VcfHeader header = header(createFile(BGZF_VCF));
+        assertEquals("VCFv4.1", header.getFileFormat());
+    }
+
+    @Test
+    public void testSamplesBgzfFile() throws Exception {
+        List<VcfSample> samples = ImmutableList.copyOf(samples(createFile(BGZF_VCF)));
+        assertEquals(2, samples.size());
+        assertEquals("NA19131", samples.get(0).getId());
+        assertEquals("NA19223", samples.get(1).getId());
+    }
+
+    @Test
+    public void testRecordsBgzfFile() throws Exception {
+        assertEquals(ImmutableList.copyOf(records(createFile(VCF))).size(), ImmutableList.copyOf(records(createFile(BGZF_VCF))).size());
+    }
+
     @Test(expected=NullPointerException.class)
     public void testSamplesNullFile() throws Exception {
         samples((File) null);
@@ -324,6 +405,220 @@ public final class VcfReaderTest {
         validateRecords(records(createInputStream(VCF)));
     }
 
+    @Test
+    public void testRecordsLazy() throws Exception {
+        String vcf = "ceph-bwa-j-gatk-haplotype-joint.excerpt.vcf";
+        List<VcfRecord> eager = ImmutableList.copyOf(records(new InputStreamReader(createInputStream(vcf))));
+        List<VcfRecord> lazy = ImmutableList.copyOf(records(new InputStreamReader(createInputStream(vcf)), true));
+        assertEquals(eager.size(), lazy.size());
+        for (int i = 0, size = eager.size(); i < size; i++) {
+            VcfRecord record = lazy.get(i);
+            assertNotNull(record.getRawGenotypes());
+            for (Map.Entry<String, VcfGenotype> entry : eager.get(i).getGenotypes().entrySet()) {
+                assertEquals(entry.getValue().getFields(), record.getGenotype(entry.getKey()).getFields());
+            }
+            assertEquals(eager.get(i).getGenotypes().keySet(), record.getGenotypes().keySet());
+        }
+    }
+
+    @Test
+    public void testStreamLazy() throws Exception {
+        try (BufferedReader reader = new BufferedReader(new FileReader(createFile(VCF)))) {
+            stream(reader, new VcfStreamAdapter() {
+                @Override
+                public void record(final VcfRecord record) {
+                    assertNotNull(record.getRawGenotypes());
+                    validateRecord(record);
+                }
+            }, true);
+        }
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testStreamParallelNullReadable() throws Exception {
+        streamParallel(null, streamListener, 2, 16);
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testStreamParallelNullListener() throws Exception {
+        streamParallel(readable, null, 2, 16);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testStreamParallelInvalidThreads() throws Exception {
+        streamParallel(readable, streamListener, 0, 16);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testStreamParallelInvalidBatchSize() throws Exception {
+        streamParallel(readable, streamListener, 2, 0);
+    }
+
+    @Test
+    public void testStreamParallel() throws Exception {
+        streamParallel(readable, streamListener, 2, 16);
+    }
+
+    @Test
+    public void testStreamParallelFile() throws Exception {
+        try (BufferedReader reader = new BufferedReader(new FileReader(createFile(VCF)))) {
+            streamParallel(reader, new VcfStreamAdapter() {
+                @Override
+                public void header(final VcfHeader header) {
+                    validateHeader(header);
+                }
+
+                @Override
+                public void sample(final VcfSample sample) {
+                    validateSample(sample);
+                }
+
+                @Override
+                public void record(final VcfRecord record) {
+                    validateRecord(record);
+                }
+            }, 4, 1);
+        }
+    }
+
+    @Test
+    public void testStreamParallelOrder() throws Exception {
+        String vcf = "ceph-bwa-j-gatk-haplotype-joint.excerpt.vcf";
+        List<VcfRecord> expected = ImmutableList.copyOf(records(new InputStreamReader(createInputStream(vcf))));
+        for (int batchSize : new int[] { 1, 3, 1000 }) {
+            final List<VcfRecord> observed = new ArrayList<VcfRecord>();
+            streamParallel(new InputStreamReader(createInputStream(vcf)), new VcfStreamAdapter() {
+                @Override
+                public void record(final VcfRecord record) {
+                    observed.add(record);
+                }
+            }, 4, batchSize);
+
+            assertEquals(expected.size(), observed.size());
+            for (int i = 0, size = expected.size(); i < size; i++) {
+                assertEquals(expected.get(i).getLineNumber(), observed.get(i).getLineNumber());
+                assertEquals(expected.get(i).getPos(), observed.get(i).getPos());
+                assertEquals(expected.get(i).getGenotypes().keySet(), observed.get(i).getGenotypes().keySet());
+            }
+        }
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testStreamParallelNullPredicate() throws Exception {
+        streamParallel(readable, streamListener, 2, 16, true, null);
+    }
+
+    @Test
+    public void testStreamParallelPredicate() throws Exception {
+        final List<VcfRecord> expected = new ArrayList<VcfRecord>();
+        for (VcfRecord record : records(new InputStreamReader(createInputStream(VCF)))) {
+            if (record.getPos() % 2L == 0L) {
+                expected.add(record);
+            }
+        }
+        assertFalse(expected.isEmpty());
+
+        final Thread callingThread = Thread.currentThread();
+        for (int batchSize : new int[] { 1, 3, 1000 }) {
+            final List<VcfRecord> observed = new ArrayList<VcfRecord>();
+            streamParallel(new InputStreamReader(createInputStream(VCF)), new VcfStreamAdapter() {
+                @Override
+                public void record(final VcfRecord record) {
+                    observed.add(record);
+                }
+            }, 4, batchSize, true, new Predicate<VcfRecord>() {
+                @Override
+                public boolean test(final VcfRecord record) {
+                    assertFalse(Thread.currentThread() == callingThread);
+                    return record.getPos() % 2L == 0L;
+                }
+            });
+
+            assertEquals(expected.size(), observed.size());
+            for (int i = 0, size = expected.size(); i < size; i++) {
+                assertEquals(expected.get(i).getLineNumber(), observed.get(i).getLineNumber());
+                assertEquals(expected.get(i).getPos(), observed.get(i).getPos());
+            }
+        }
+    }
+
+    @Test(expected=IOException.class)
+    public void testStreamParallelInvalidPos() throws Exception {
+        streamParallel(new InputStreamReader(createInputStream("invalid-pos.vcf")), streamListener, 2, 1);
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testQueryNullPath() throws Exception {
+        query(null, "22", 0L, 100L, streamListener);
+    }
+
+    @Test(expected=IOException.class)
+    public void testQueryMissingIndex() throws Exception {
+        query(createFile(VCF).toPath(), "22", 0L, 100L, streamListener);
+    }
+
+    @Test
+    public void testIsIndexed() throws Exception {
+        assertFalse(isIndexed(createFile(VCF).toPath()));
+        assertTrue(isIndexed(createIndexedPath(".tbi")));
+        assertTrue(isIndexed(createIndexedPath(".csi")));
+    }
+
+    @Test
+    public void testQueryTabix() throws Exception {
+        validateQuery(createIndexedPath(".tbi"));
+    }
+
+    @Test
+    public void testQueryCsi() throws Exception {
+        validateQuery(createIndexedPath(".csi"));
+    }
+
+    private static void validateQuery(final Path path) throws Exception {
+        List<VcfRecord> all = ImmutableList.copyOf(records(createInputStream(VCF)));
+        long[][] regions = new long[][] { { 0L, 100000000L }, { 16050407L, 16050408L }, { 16100000L, 17000000L }, { 20000000L, 20500000L }, { 0L, 1000L } };
+        for (long[] region : regions) {
+            List<Long> expected = new ArrayList<Long>();
+            for (VcfRecord record : all) {
+                long start = record.getPos() - 1L;
+                long end = record.containsEnd() ? record.getEnd() : start + record.getRef().length();
+                if (start < region[1] && end > region[0]) {
+                    expected.add(record.getPos());
+                }
+            }
+            final List<Long> observed = new ArrayList<Long>();
+            final List<VcfSample> samples = new ArrayList<VcfSample>();
+            query(path, "22", region[0], region[1], new VcfStreamAdapter() {
+                    @Override
+                    public void header(final VcfHeader header) {
+                        validateHeader(header);
+                    }
+
+                    @Override
+                    public void sample(final VcfSample sample) {
+                        samples.add(sample);
+                    }
+
+                    @Override
+                    public void record(final VcfRecord record) {
+                        validateRecord(record);
+                        observed.add(record.getPos());
+                    }
+                });
+            assertEquals(2, samples.size());
+            assertEquals(expected, observed);
+        }
+
+        final List<VcfRecord> none = new ArrayList<VcfRecord>();
+        query(path, "1", 0L, 100000000L, new VcfStreamAdapter() {
+                @Override
+                public void record(final VcfRecord record) {
+                    none.add(record);
+                }
+            });
+        assertTrue(none.isEmpty());
+    }
+
     @Test
     public void testSamplesFullHeader() throws Exception {
         Iterable<VcfSample> samples = samples(createInputStream("chr22-header.vcf"));
@@ -627,10 +922,51 @@ public final class VcfReaderTest {
         return VcfReaderTest.class.getResourceAsStream(name);
     }
 
+    private static Path createIndexedPath(final String indexSuffix) throws IOException {
+        Path directory = java.nio.file.Files.createTempDirectory("vcfReaderTest");
+        Path path = directory.resolve("indexed.vcf.gz");
+        Path indexPath = directory.resolve("indexed.vcf.gz" + indexSuffix);
+        Files.write(Resources.toByteArray(VcfReaderTest.class.getResource(BGZF_VCF)), path.toFile());
+        Files.write(Resources.toByteArray(VcfReaderTest.class.getResource(BGZF_VCF + indexSuffix)), indexPath.toFile());
+        path.toFile().deleteOnExit();
+        indexPath.toFile().deleteOnExit();
+        directory.toFile().deleteOnExit();
+        return path;
+    }
+
     private static File createFile(final String name) throws IOException {
         File file = File.createTempFile("vcfReaderTest", ".vcf");
         Files.write(Resources.toByteArray(VcfReaderTest.class.getResource(name)), file);
         file.deleteOnExit();
         return file;
     }
+
+    /**
+     * Readable that follows the specified header lines with an unbounded number of data lines.
+     */
+    private static final class UnboundedReadable implements Readable {
+        private final String header;
+        private final String dataLine = "22\t16050408\t.\tT\tC\t.\tPASS\t.\tGT\t0/1\t0/0\n";
+        private long charactersRead = 0L;
+
+        UnboundedReadable(final String header) {
+            this.header = header;
+        }
+
+        @Override
+        public int read(final CharBuffer buffer) {
+            int n = 0;
+            while (buffer.hasRemaining()) {
+                long position = charactersRead;
+                buffer.put(position < header.length() ? header.charAt((int) position) : dataLine.charAt((int) ((position - header.length()) % dataLine.length())));
+                charactersRead++;
+                n++;
+            }
+            return n;
+        }
+
+        long getCharactersRead() {
+            return charactersRead;
+        }
+    }
 }
@@ -25,6 +25,7 @@ package org.dishevelled.bio.variant.vcf;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 
 import static org.dishevelled.bio.variant.vcf.VcfRecord.builder;
 
@@ -330,4 +331,65 @@ public final class VcfRecordTest {
         assertEquals(format, next.getFormat());
         assertEquals(genotypes, next.getGenotypes());
     }
+
+    @Test
+    public void testBuilderRawGenotypes() {
+        VcfRecord record = builder()
+            .withLineNumber(lineNumber)
+            .withChrom(chrom)
+            .withPos(pos)
+            .withRef("A")
+            .withAlt("G")
+            .withInfo(info)
+            .withFormat("GT", "DP", "AD")
+            .withRawGenotypes(new String[] { "NA12878", "NA12891" }, "0|1:12:4,8\t1/1:.")
+            .build();
+
+        assertEquals("0|1:12:4,8\t1/1:.", record.getRawGenotypes());
+
+        VcfGenotype genotype = record.getGenotype("NA12891");
+        assertEquals("1/1", genotype.getGt());
+        assertEquals(ImmutableListMultimap.of("GT", "1/1"), genotype.getFields());
+        assertNull(record.getGenotype("NA12892"));
+
+        Map<String, VcfGenotype> genotypes = record.getGenotypes();
+        assertEquals(2, genotypes.size());
+        assertEquals("0|1", genotypes.get("NA12878").getGt());
+        assertEquals(12, genotypes.get("NA12878").getDp());
+        assertEquals(ImmutableListMultimap.of("GT", "0|1", "DP", "12", "AD", "4", "AD", "8"), genotypes.get("NA12878").getFields());
+        assertEquals(genotypes.get("NA12878").getFields(), record.getGenotype("NA12878").getFields());
+    }
+
+    @Test
+    public void testBuilderRawGenotypesCopy() {
+        VcfRecord record = builder()
+            .withChrom(chrom)
+            .withPos(pos)
+            .withRef("A")
+            .withAlt("G")
+            .withFormat("GT")
+            .withRawGenotypes(new String[] { "NA12878", "NA12891" }, "0|1\t1|1")
+            .build();
+
+        VcfRecord copy = builder(record).withLineNumber(43L).build();
+        assertEquals("0|1\t1|1", copy.getRawGenotypes());
+
+        VcfRecord decoded = builder(record).withGenotype("NA12892", VcfGenotype.builder().withRef("A").withAlt("G").withField("GT", "0|0").build()).build();
+        assertNull(decoded.getRawGenotypes());
+        assertEquals(3, decoded.getGenotypes().size());
+        assertEquals("1|1", decoded.getGenotype("NA12891").getGt());
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testRawGenotypesTooManyFields() {
+        builder()
+            .withChrom(chrom)
+            .withPos(pos)
+            .withRef("A")
+            .withAlt("G")
+            .withFormat("GT")
+            .withRawGenotypes(new String[] { "NA12878" }, "0|1:12")
+            .build()
+            .getGenotypes();
+    }
 }
@@ -0,0 +1,278 @@
+/*
+
+    dsh-bio-variant  Variants.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.variant.vcf;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.InputStreamReader;
+
+import java.nio.CharBuffer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+
+import org.dishevelled.bio.variant.vcf.header.VcfHeaderLines;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for VcfSchema.
+ *
+ * @author  Michael Heuer
+ */
+public final class VcfSchemaTest {
+    private static final String VCF = "##fileformat=VCFv4.2\n"
+        + "##INFO=<ID=DP,Number=1,Type=Integer,Description=\"Depth\">\n"
+        + "##INFO=<ID=AF,Number=A,Type=Float,Description=\"Allele frequency\">\n"
+        + "##INFO=<ID=DB,Number=0,Type=Flag,Description=\"dbSNP\">\n"
+        + "##FORMAT=<ID=GT,Number=1,Type=String,Description=\"Genotype\">\n"
+        + "##FORMAT=<ID=AD,Number=R,Type=Integer,Description=\"Allelic depths\">\n"
+        + "##FORMAT=<ID=DP,Number=1,Type=Integer,Description=\"Depth\">\n"
+        + "##FORMAT=<ID=GQ,Number=1,Type=Integer,Description=\"Genotype quality\">\n"
+        + "##FORMAT=<ID=GL,Number=G,Type=Float,Description=\"Genotype likelihoods\">\n"
+        + "#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\tFORMAT\tNA12878\tNA12891\tNA12892\n"
+        + "1\t100\t.\tA\tG,T\t.\tPASS\tDP=42;AF=0.25,.;DB\tGT:AD:DP:GQ:GL\t0/1:10,12,0:22:99:-1.5,0,-2.25,.,-3,-4\t./.:.:.\t1/1:0,.,3:-7\n"
+        + "1\t200\t.\tC\tG\t.\tPASS\t.\tGT:AD\t0/1:1,2\t0/0:3,4,5\n";
+
+    private VcfSchema schema;
+
+    @Before
+    public void setUp() throws Exception {
+        schema = VcfSchema.fromHeader(VcfReader.header(CharBuffer.wrap(VCF)));
+    }
+
+    private List<VcfRecord> records(final boolean lazy) throws Exception {
+        return ImmutableList.copyOf(VcfReader.records(CharBuffer.wrap(VCF), lazy));
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testFromHeaderNull() {
+        VcfSchema.fromHeader(null);
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testFromHeaderLinesNull() {
+        VcfSchema.fromHeaderLines(null);
+    }
+
+    @Test
+    public void testFromHeaderMemoized() throws Exception {
+        VcfHeader header = VcfReader.header(CharBuffer.wrap(VCF));
+        VcfSchema schema = VcfSchema.fromHeader(header);
+        assertSame(schema, VcfSchema.fromHeader(header));
+        assertSame(schema, VcfSchema.fromHeaderLines(VcfHeaderLines.fromHeader(header)));
+        assertSame(schema.format("GT"), VcfSchema.fromHeader(header).format("GT"));
+    }
+
+    @Test
+    public void testFields() {
+        assertTrue(schema.containsInfo("DP"));
+        assertTrue(schema.containsFormat("AD"));
+        assertFalse(schema.containsInfo("AD"));
+        assertFalse(schema.containsFormat("PL"));
+
+        VcfSchema.FormatField ad = schema.format("AD");
+        assertEquals("AD", ad.getId());
+        assertEquals("R", ad.getNumber().getName());
+        assertEquals("Integer", ad.getType().name());
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testInfoMissingHeaderLine() {
+        schema.info("AD");
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testFormatMissingHeaderLine() {
+        schema.format("PL");
+    }
+
+    @Test(expected=IllegalStateException.class)
+    public void testGetIntsFloatType() throws Exception {
+        schema.format("GL").getInts(records(true).get(0), 0, new int[4]);
+    }
+
+    @Test(expected=IllegalStateException.class)
+    public void testGetFloatsStringType() throws Exception {
+        schema.format("GT").getFloats(records(true).get(0), 0, new float[4]);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testGetIntsNegativeSample() throws Exception {
+        schema.format("AD").getInts(records(true).get(0), -1, new int[4]);
+    }
+
+    @Test
+    public void testInfo() throws Exception {
+        for (boolean lazy : new boolean[] { true, false }) {
+            VcfRecord record = records(lazy).get(0);
+            assertTrue(schema.info("DP").contains(record));
+            assertEquals(42, schema.info("DP").getInt(record, -1));
+            assertArrayEquals(new int[] { 42 }, schema.info("DP").getInts(record));
+            assertEquals(42.0f, schema.info("DP").getFloat(record, -1.0f), 0.1f);
+            assertArrayEquals(new float[] { 0.25f, VcfSchema.MISSING_FLOAT }, schema.info("AF").getFloats(record), 0.001f);
+            assertTrue(schema.info("DB").contains(record));
+
+            VcfRecord missing = records(lazy).get(1);
+            assertFalse(schema.info("DP").contains(missing));
+            assertEquals(-1, schema.info("DP").getInt(missing, -1));
+            assertEquals(0, schema.info("DP").getInts(missing).length);
+        }
+    }
+
+    @Test
+    public void testFormat() throws Exception {
+        for (boolean lazy : new boolean[] { true, false }) {
+            VcfRecord record = records(lazy).get(0);
+            VcfSchema.FormatField ad = schema.format("AD");
+            VcfSchema.FormatField dp = schema.format("DP");
+            VcfSchema.FormatField gq = schema.format("GQ");
+            VcfSchema.FormatField gl = schema.format("GL");
+
+            assertArrayEquals(new int[] { 10, 12, 0 }, ad.getInts(record, 0));
+            assertEquals(22, dp.getInt(record, 0, -1));
+            assertEquals(99, gq.getInt(record, 0, -1));
+            assertArrayEquals(new float[] { -1.5f, 0.0f, -2.25f, VcfSchema.MISSING_FLOAT, -3.0f, -4.0f }, gl.getFloats(record, 0), 0.001f);
+
+            assertFalse(ad.contains(record, 1));
+            assertEquals(0, ad.getInts(record, 1).length);
+            assertEquals(-1, dp.getInt(record, 1, -1));
+            assertEquals(-1, gq.getInt(record, 1, -1));
+
+            assertArrayEquals(new int[] { 0, VcfSchema.MISSING_INTEGER, 3 }, ad.getInts(record, 2));
+            assertEquals(-7, dp.getInt(record, 2, -1));
+            assertFalse(gq.contains(record, 2));
+            assertEquals(-1, gq.getInt(record, 2, -1));
+
+            assertFalse(ad.contains(record, 3));
+            assertEquals(-1, dp.getInt(record, 3, -1));
+        }
+    }
+
+    @Test
+    public void testFormatBuffer() throws Exception {
+        for (boolean lazy : new boolean[] { true, false }) {
+            VcfRecord record = records(lazy).get(0);
+            int[] buffer = new int[] { -1, -1 };
+            assertEquals(3, schema.format("AD").getInts(record, 0, buffer));
+            assertArrayEquals(new int[] { 10, 12 }, buffer);
+
+            float[] floatBuffer = new float[8];
+            assertEquals(3, schema.format("AD").getFloats(record, 0, floatBuffer));
+            assertEquals(12.0f, floatBuffer[1], 0.1f);
+        }
+    }
+
+    @Test
+    public void testFormatGenotype() throws Exception {
+        VcfGenotype genotype = records(false).get(0).getGenotypes().get("NA12878");
+        assertNotNull(genotype);
+        assertTrue(schema.format("AD").contains(genotype));
+        assertArrayEquals(new int[] { 10, 12, 0 }, schema.format("AD").getInts(genotype));
+        assertEquals(22, schema.format("DP").getInt(genotype, -1));
+        assertEquals(22.0f, schema.format("DP").getFloat(genotype, -1.0f), 0.1f);
+        assertEquals(6, schema.format("GL").getFloats(genotype).length);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testFormatUnexpectedCountLazy() throws Exception {
+        schema.format("AD").getInts(records(true).get(1), 1);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testFormatUnexpectedCount() throws Exception {
+        schema.format("AD").getInts(records(false).get(1), 1);
+    }
+
+    @Test
+    public void testParseInt() {
+        assertEquals(0, VcfSchema.parseInt("0", 0, 1));
+        assertEquals(-42, VcfSchema.parseInt("-42", 0, 3));
+        assertEquals(42, VcfSchema.parseInt("+42", 0, 3));
+        assertEquals(12, VcfSchema.parseInt("1,12,3", 2, 4));
+        assertEquals(Integer.MAX_VALUE, VcfSchema.parseInt("2147483647", 0, 10));
+        assertEquals(Integer.MIN_VALUE + 1, VcfSchema.parseInt("-2147483647", 0, 11));
+        assertEquals(VcfSchema.MISSING_INTEGER, VcfSchema.parseInt(".", 0, 1));
+    }
+
+    @Test(expected=NumberFormatException.class)
+    public void testParseIntEmpty() {
+        VcfSchema.parseInt("", 0, 0);
+    }
+
+    @Test(expected=NumberFormatException.class)
+    public void testParseIntInvalid() {
+        VcfSchema.parseInt("1.5", 0, 3);
+    }
+
+    @Test(expected=NumberFormatException.class)
+    public void testParseIntOverflow() {
+        VcfSchema.parseInt("2147483648", 0, 10);
+    }
+
+    @Test
+    public void testSameValuesAsGenotypes() throws Exception {
+        String resource = "ceph-bwa-j-gatk-haplotype-joint.excerpt.vcf";
+        VcfSchema schema = VcfSchema.fromHeader(VcfReader.header(new InputStreamReader(getClass().getResourceAsStream(resource))));
+        List<String> samples = new ArrayList<String>();
+        for (VcfSample sample : VcfReader.samples(new InputStreamReader(getClass().getResourceAsStream(resource)))) {
+            samples.add(sample.getId());
+        }
+        VcfSchema.FormatField ad = schema.format("AD");
+        VcfSchema.FormatField dp = schema.format("DP");
+        VcfSchema.FormatField gq = schema.format("GQ");
+        VcfSchema.FormatField pl = schema.format("PL");
+        int[] buffer = new int[64];
+
+        for (boolean lazy : new boolean[] { true, false }) {
+            for (VcfRecord record : VcfReader.records(new InputStreamReader(getClass().getResourceAsStream(resource)), lazy)) {
+                for (int i = 0; i < samples.size(); i++) {
+                    VcfGenotype genotype = record.getGenotype(samples.get(i));
+                    assertEquals(genotype.containsAd(), ad.contains(record, i));
+                    if (genotype.containsAd()) {
+                        List<Integer> expected = genotype.getFieldIntegers("AD");
+                        assertEquals(expected.size(), ad.getInts(record, i, buffer));
+                        for (int j = 0; j < expected.size(); j++) {
+                            assertEquals((int) expected.get(j), buffer[j]);
+                        }
+                    }
+                    assertEquals(genotype.containsDp() ? genotype.getDp() : -1, dp.getInt(record, i, -1));
+                    assertEquals(genotype.containsGq() ? genotype.getGq() : -1, gq.getInt(record, i, -1));
+                    if (genotype.containsPl()) {
+                        List<Integer> expected = genotype.getFieldIntegers("PL");
+                        assertEquals(expected.size(), pl.getInts(record, i).length);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,195 @@
+/*
+
+    dsh-bio-variant  Variants.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.variant.vcf;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for VcfSorter.
+ *
+ * @author  Michael Heuer
+ */
+public final class VcfSorterTest {
+    private File tempDirectory;
+
+    private static final String HEADER = "##fileformat=VCFv4.2\n"
+        + "##contig=<ID=chr2>\n"
+        + "##contig=<ID=chr1>\n"
+        + "#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\n";
+
+    private static final String UNSORTED = HEADER
+        + "chr1\t200\tb\tA\tG\t.\tPASS\t.\n"
+        + "chrX\t5\tc\tA\tG\t.\tPASS\t.\n"
+        + "chr1\t100\td\tA\tG\t.\tPASS\t.\n"
+        + "\n"
+        + "chr3\t1\te\tA\tG\t.\tPASS\t.\n"
+        + "chr2\t300\tf\tA\tG\t.\tPASS\t.\n"
+        + "chr1\t100\tg\tA\tT\t.\tPASS\t.\n";
+
+    private static final String SORTED = HEADER
+        + "chr2\t300\tf\tA\tG\t.\tPASS\t.\n"
+        + "chr1\t100\td\tA\tG\t.\tPASS\t.\n"
+        + "chr1\t100\tg\tA\tT\t.\tPASS\t.\n"
+        + "chr1\t200\tb\tA\tG\t.\tPASS\t.\n"
+        + "chrX\t5\tc\tA\tG\t.\tPASS\t.\n"
+        + "chr3\t1\te\tA\tG\t.\tPASS\t.\n";
+
+    @Before
+    public void setUp() throws Exception {
+        tempDirectory = java.nio.file.Files.createTempDirectory("vcfSorterTest").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        for (File file : tempDirectory.listFiles()) {
+            file.delete();
+        }
+        tempDirectory.delete();
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testSortNullReadable() throws Exception {
+        VcfSorter.sort(null, new PrintWriter(new StringWriter()));
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testSortNullWriter() throws Exception {
+        VcfSorter.sort(new StringReader(UNSORTED), null);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testSortInvalidMemory() throws Exception {
+        VcfSorter.sort(new StringReader(UNSORTED), new PrintWriter(new StringWriter()), 0L, null, 1);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testSortInvalidThreads() throws Exception {
+        VcfSorter.sort(new StringReader(UNSORTED), new PrintWriter(new StringWriter()), VcfSorter.DEFAULT_MEMORY, null, 0);
+    }
+
+    @Test(expected=IOException.class)
+    public void testSortInvalidPos() throws Exception {
+        VcfSorter.sort(new StringReader(HEADER + "chr1\tfoo\t.\tA\tG\t.\tPASS\t.\n"), new PrintWriter(new StringWriter()));
+    }
+
+    @Test(expected=IOException.class)
+    public void testSortInvalidPosExternal() throws Exception {
+        try {
+            VcfSorter.sort(new StringReader(UNSORTED + "chr1\n"), new PrintWriter(new StringWriter()), 1L, tempDirectory, 2);
+        }
+        finally {
+            assertEquals(0, tempDirectory.listFiles().length);
+        }
+    }
+
+    @Test
+    public void testSortInMemory() throws Exception {
+        assertEquals(SORTED, sort(UNSORTED, VcfSorter.DEFAULT_MEMORY, 1));
+        assertEquals(0, tempDirectory.listFiles().length);
+    }
+
+    @Test
+    public void testSortExternal() throws Exception {
+        assertEquals(SORTED, sort(UNSORTED, 1L, 1));
+        assertEquals(SORTED, sort(UNSORTED, 1L, 4));
+        assertEquals(0, tempDirectory.listFiles().length);
+    }
+
+    @Test
+    public void testSortHeaderOnly() throws Exception {
+        assertEquals(HEADER, sort(HEADER, 1L, 1));
+    }
+
+    @Test(expected=IOException.class)
+    public void testSortMissingFileFormat() throws Exception {
+        sort("chr1\t100\t.\tA\tG\t.\tPASS\t.\n", VcfSorter.DEFAULT_MEMORY, 1);
+    }
+
+    @Test
+    public void testSortManyRuns() throws Exception {
+        List<String> lines = new ArrayList<String>();
+        for (int i = 0; i < 10 * VcfSorter.MAX_RUNS; i++) {
+            lines.add((i % 2 == 0 ? "chr1" : "chr2") + "\t" + (i / 4 + 1) + "\t" + i + "\tA\tG\t.\tPASS\t.\n");
+        }
+        StringBuilder sorted = new StringBuilder(HEADER);
+        for (int i = 1; i < lines.size(); i += 2) {
+            sorted.append(lines.get(i));
+        }
+        for (int i = 0; i < lines.size(); i += 2) {
+            sorted.append(lines.get(i));
+        }
+
+        // shuffle blocks of lines at the same position, keeping input order within each position
+        List<List<String>> blocks = new ArrayList<List<String>>();
+        for (int i = 0; i < lines.size(); i += 4) {
+            blocks.add(lines.subList(i, i + 4));
+        }
+        Collections.shuffle(blocks, new Random(42L));
+        StringBuilder unsorted = new StringBuilder(HEADER);
+        for (List<String> block : blocks) {
+            for (String line : block) {
+                unsorted.append(line);
+            }
+        }
+
+        // 1000 bytes of memory per thread holds only a few lines, forcing intermediate merges
+        assertEquals(sorted.toString(), sort(unsorted.toString(), 2000L, 1));
+        assertEquals(sorted.toString(), sort(unsorted.toString(), 5000L, 4));
+        assertEquals(sorted.toString(), sort(unsorted.toString(), VcfSorter.DEFAULT_MEMORY, 4));
+        assertEquals(0, tempDirectory.listFiles().length);
+    }
+
+    @Test
+    public void testSortRecordsReadable() throws Exception {
+        List<Long> positions = new ArrayList<Long>();
+        for (VcfRecord record : VcfReader.records(new StringReader(sort(UNSORTED, 1L, 2)))) {
+            positions.add(record.getPos());
+        }
+        assertEquals(Arrays.asList(300L, 100L, 100L, 200L, 5L, 1L), positions);
+    }
+
+    private String sort(final String vcf, final long memory, final int threads) throws IOException {
+        StringWriter stringWriter = new StringWriter();
+        PrintWriter writer = new PrintWriter(stringWriter);
+        VcfSorter.sort(new StringReader(vcf), writer, memory, tempDirectory, threads);
+        writer.flush();
+        return stringWriter.toString().replace(System.lineSeparator(), "\n");
+    }
+}
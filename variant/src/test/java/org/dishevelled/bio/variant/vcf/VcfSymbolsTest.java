@@ -0,0 +1,151 @@
+/*
+
+    dsh-bio-variant  Variants.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.variant.vcf;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.io.InputStreamReader;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for VcfSymbols.
+ *
+ * @author  Michael Heuer
+ */
+public final class VcfSymbolsTest {
+    private VcfSymbols symbols;
+
+    @Before
+    public void setUp() {
+        symbols = new VcfSymbols();
+    }
+
+    @Test
+    public void testSymbol() {
+        String chrom = symbols.symbol(new StringBuilder("chr22"));
+        assertEquals("chr22", chrom);
+        assertSame(chrom, symbols.symbol(new StringBuilder("chr22")));
+        assertSame(chrom, symbols.symbol(new StringBuilder("xchr22x"), 1, 6));
+        assertSame("chr22", chrom);
+    }
+
+    @Test
+    public void testSymbolMany() {
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(String.valueOf(i), symbols.symbol(new StringBuilder(String.valueOf(i))));
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertSame(String.valueOf(i).intern(), symbols.symbol(new StringBuilder(String.valueOf(i))));
+        }
+    }
+
+    @Test
+    public void testSymbolMaxSize() {
+        for (int i = 0; i < VcfSymbols.MAX_SIZE; i++) {
+            symbols.symbol(new StringBuilder("s" + i));
+        }
+        String value = symbols.symbol(new StringBuilder("not-canonical"));
+        assertEquals("not-canonical", value);
+        assertNotSame(value, symbols.symbol(new StringBuilder("not-canonical")));
+    }
+
+    @Test
+    public void testSeed() {
+        symbols.seed("##contig=<ID=chr22,length=51304566>");
+        symbols.seed("##INFO=<ID=DP,Number=1,Type=Integer,Description=\"Depth\">");
+        symbols.seed("##FORMAT=<ID=GQ,Number=1,Type=Integer,Description=\"Quality\">");
+        symbols.seed("##FILTER=<ID=LowQual,Description=\"Low quality\">");
+        symbols.seed("##fileformat=VCFv4.2");
+        symbols.seed("##ALT=<ID=DEL,Description=\"Deletion\">");
+
+        VcfSymbols child = new VcfSymbols(symbols);
+        assertSame("chr22", child.symbol(new StringBuilder("chr22")));
+        assertSame("DP", child.symbol(new StringBuilder("DP")));
+        assertSame("GQ", child.symbol(new StringBuilder("GQ")));
+        assertSame("LowQual", child.symbol(new StringBuilder("LowQual")));
+    }
+
+    @Test
+    public void testSplit() {
+        String[] format = symbols.split(new StringBuilder("GT:AD:DP"), ':');
+        assertArrayEquals(new String[] { "GT", "AD", "DP" }, format);
+        String[] again = symbols.split(new StringBuilder("GT:AD:DP"), ':');
+        assertNotSame(format, again);
+        assertSame(format[0], again[0]);
+        assertSame("GT", format[0]);
+
+        assertArrayEquals(new String[] { "GT:AD:DP" }, symbols.split(new StringBuilder("GT:AD:DP"), ';'));
+        assertArrayEquals(new String[] { "q10", "s50" }, symbols.split(new StringBuilder("q10;s50;;"), ';'));
+        assertArrayEquals(new String[] { "" }, symbols.split(new StringBuilder(""), ';'));
+        assertArrayEquals(VcfTokenizer.split("a;;b", ';'), symbols.split(new StringBuilder("a;;b"), ';'));
+    }
+
+    @Test
+    public void testSplitCopies() {
+        String[] format = symbols.split(new StringBuilder("GT:AD:DP"), ':');
+        format[0] = "modified";
+        assertArrayEquals(new String[] { "GT", "AD", "DP" }, symbols.split(new StringBuilder("GT:AD:DP"), ':'));
+    }
+
+    @Test
+    public void testSplitMany() {
+        for (int i = 0; i < 1000; i++) {
+            symbols.split(new StringBuilder("GT:F" + i), ':');
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertArrayEquals(new String[] { "GT", "F" + i }, symbols.split(new StringBuilder("GT:F" + i), ':'));
+        }
+    }
+
+    @Test
+    public void testRecordsShareSymbols() throws Exception {
+        String resource = "ceph-bwa-j-gatk-haplotype-joint.excerpt.vcf";
+        List<VcfRecord> records = ImmutableList.copyOf(VcfReader.records(new InputStreamReader(getClass().getResourceAsStream(resource))));
+        VcfRecord first = records.get(0);
+        for (VcfRecord record : records) {
+            assertSame(first.getChrom(), record.getChrom());
+            if (record.getFilter().length > 0 && "PASS".equals(record.getFilter()[0])) {
+                assertSame("PASS", record.getFilter()[0]);
+            }
+            for (String key : record.getInfo().keySet()) {
+                assertSame(key.intern(), key);
+            }
+            if (record.getFormat() != null && first.getFormat() != null && Arrays.equals(first.getFormat(), record.getFormat())) {
+                for (int i = 0; i < record.getFormat().length; i++) {
+                    assertSame(first.getFormat()[i], record.getFormat()[i]);
+                }
+            }
+        }
+    }
+}
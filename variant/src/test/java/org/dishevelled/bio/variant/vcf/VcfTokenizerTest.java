@@ -0,0 +1,271 @@
+/*
+
+    dsh-bio-variant  Variants.
+    Copyright (c) 2013-2026 held jointly by the individual authors.
+
+    This library is free software; you can redistribute it and/or modify it
+    under the terms of the GNU Lesser General Public License as published
+    by the Free Software Foundation; either version 3 of the License, or (at
+    your option) any later version.
+
+    This library is distributed in the hope that it will be useful, but WITHOUT
+    ANY WARRANTY; with out even the implied warranty of MERCHANTABILITY or
+    FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public
+    License for more details.
+
+    You should have received a copy of the GNU Lesser General Public License
+    along with this library;  if not, write to the Free Software Foundation,
+    Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307  USA.
+
+    > http://www.fsf.org/licensing/licenses/lgpl.html
+    > http://www.opensource.org/licenses/lgpl-license.php
+
+*/
+package org.dishevelled.bio.variant.vcf;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import static org.dishevelled.bio.variant.vcf.VcfTokenizer.isMissingValue;
+import static org.dishevelled.bio.variant.vcf.VcfTokenizer.parseDouble;
+import static org.dishevelled.bio.variant.vcf.VcfTokenizer.parseLong;
+import static org.dishevelled.bio.variant.vcf.VcfTokenizer.split;
+import static org.dishevelled.bio.variant.vcf.VcfTokenizer.tokenize;
+
+import java.io.IOException;
+
+import java.nio.CharBuffer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for VcfTokenizer.
+ *
+ * @author  Michael Heuer
+ */
+public final class VcfTokenizerTest {
+    private Readable readable;
+    private VcfTokenListener listener;
+    private static final String VCF = "##fileformat=VCFv4.2\n"
+        + "#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\tFORMAT\tNA12878\tNA12891\n"
+        + "22\t16140370\trs2096606;rs1\tA\tG,T\t42.5\tPASS\tDP=12;DB;AF=0.5,0.25;MISSING=.\tGT:DP:AD\t0|1:10:4,6\t1/1:.\n";
+
+    @Before
+    public void setUp() {
+        readable = CharBuffer.wrap(VCF);
+        listener = new VcfTokenAdapter();
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testTokenizeNullReadable() throws Exception {
+        tokenize(null, listener);
+    }
+
+    @Test(expected=NullPointerException.class)
+    public void testTokenizeNullListener() throws Exception {
+        tokenize(readable, null);
+    }
+
+    @Test
+    public void testTokenize() throws Exception {
+        final List<String> events = new ArrayList<String>();
+        tokenize(readable, new VcfTokenAdapter() {
+                @Override
+                public void lineNumber(final long lineNumber) {
+                    events.add("lineNumber " + lineNumber);
+                }
+
+                @Override
+                public void meta(final CharSequence meta) {
+                    events.add("meta " + meta);
+                }
+
+                @Override
+                public void samples(final String... samples) {
+                    events.add("samples " + String.join(",", samples));
+                }
+
+                @Override
+                public void chrom(final CharSequence chrom) {
+                    events.add("chrom " + chrom);
+                }
+
+                @Override
+                public void pos(final long pos) {
+                    events.add("pos " + pos);
+                }
+
+                @Override
+                public void id(final CharSequence id) {
+                    events.add("id " + id);
+                }
+
+                @Override
+                public void ref(final CharSequence ref) {
+                    events.add("ref " + ref);
+                }
+
+                @Override
+                public void alt(final CharSequence alt) {
+                    events.add("alt " + alt);
+                }
+
+                @Override
+                public void qual(final double qual) {
+                    events.add("qual " + qual);
+                }
+
+                @Override
+                public void filter(final CharSequence filter) {
+                    events.add("filter " + filter);
+                }
+
+                @Override
+                public void info(final CharSequence infoId, final CharSequence values) {
+                    events.add("info " + infoId + " " + values);
+                }
+
+                @Override
+                public void format(final CharSequence format) {
+                    events.add("format " + format);
+                }
+
+                @Override
+                public void genotype(final int sample, final CharSequence formatId, final CharSequence values) {
+                    events.add("genotype " + sample + " " + formatId + " " + values);
+                }
+
+                @Override
+                public boolean complete() {
+                    events.add("complete");
+                    return true;
+                }
+            });
+
+        String[] expected = new String[] {
+            "meta ##fileformat=VCFv4.2",
+            "samples NA12878,NA12891",
+            "lineNumber 3",
+            "chrom 22",
+            "pos 16140370",
+            "id rs2096606;rs1",
+            "ref A",
+            "alt G,T",
+            "qual 42.5",
+            "filter PASS",
+            "info DP 12",
+            "info DB null",
+            "info AF 0.5,0.25",
+            "info MISSING .",
+            "format GT:DP:AD",
+            "genotype 0 GT 0|1",
+            "genotype 0 DP 10",
+            "genotype 0 AD 4,6",
+            "genotype 1 GT 1/1",
+            "genotype 1 DP .",
+            "complete"
+        };
+        assertArrayEquals(expected, events.toArray(new String[0]));
+    }
+
+    @Test
+    public void testTokenizeCarriageReturnLineFeed() throws Exception {
+        final List<String> chroms = new ArrayList<String>();
+        tokenize(CharBuffer.wrap("##fileformat=VCFv4.2\r\n\r\n1\t1\t.\tA\tG\t.\t.\t.\r\n2\t2\t.\tC\tT\t.\t.\t."), new VcfTokenAdapter() {
+                @Override
+                public void chrom(final CharSequence chrom) {
+                    chroms.add(chrom.toString());
+                }
+
+                @Override
+                public void qual(final double qual) {
+                    assertTrue(Double.isNaN(qual));
+                }
+            });
+        assertEquals(2, chroms.size());
+        assertEquals("1", chroms.get(0));
+        assertEquals("2", chroms.get(1));
+    }
+
+    @Test
+    public void testTokenizeStopsAtComplete() throws Exception {
+        final List<String> chroms = new ArrayList<String>();
+        tokenize(CharBuffer.wrap("1\t1\t.\tA\tG\t.\t.\t.\n2\t2\t.\tC\tT\t.\t.\t.\n"), new VcfTokenAdapter() {
+                @Override
+                public void chrom(final CharSequence chrom) {
+                    chroms.add(chrom.toString());
+                }
+
+                @Override
+                public boolean complete() {
+                    return false;
+                }
+            });
+        assertEquals(1, chroms.size());
+    }
+
+    @Test(expected=IOException.class)
+    public void testTokenizeInvalidPos() throws Exception {
+        tokenize(CharBuffer.wrap("1\tinvalid\t.\tA\tG\t.\t.\t.\n"), listener);
+    }
+
+    @Test(expected=IOException.class)
+    public void testTokenizeInvalidQual() throws Exception {
+        tokenize(CharBuffer.wrap("1\t1\t.\tA\tG\tinvalid\t.\t.\n"), listener);
+    }
+
+    @Test(expected=IOException.class)
+    public void testTokenizeTooFewColumns() throws Exception {
+        tokenize(CharBuffer.wrap("1\t1\t.\tA\tG\n"), listener);
+    }
+
+    @Test(expected=IOException.class)
+    public void testTokenizeTooManyGenotypeFields() throws Exception {
+        tokenize(CharBuffer.wrap("1\t1\t.\tA\tG\t.\t.\t.\tGT\t0|1:42\n"), listener);
+    }
+
+    @Test
+    public void testIsMissingValue() {
+        assertTrue(isMissingValue("."));
+        assertFalse(isMissingValue(""));
+        assertFalse(isMissingValue(".."));
+        assertFalse(isMissingValue("PASS"));
+    }
+
+    @Test
+    public void testSplit() {
+        for (String value : new String[] { "", ".", "a", "a,b", "a,,b", "a,b,", "a,b,,", ",", ",,", ",a" }) {
+            assertArrayEquals(value.split(","), split(value, ','));
+        }
+    }
+
+    @Test
+    public void testParseLong() {
+        for (String value : new String[] { "0", "1", "16140370", "-1", "+1", "123456789012345678", "1234567890123456789" }) {
+            assertEquals(Long.parseLong(value), parseLong(value));
+        }
+    }
+
+    @Test(expected=NumberFormatException.class)
+    public void testParseLongInvalid() {
+        parseLong("1.0");
+    }
+
+    @Test
+    public void testParseDouble() {
+        for (String value : new String[] { "0", "0.0", "-0.0", "1", "42.5", "-42.5", "0.1", "3.14159", "100.", ".5", "1e5", "1.2E-3", "NaN", "123456789012345678.9", "0.30000000000000004" }) {
+            assertEquals(Double.valueOf(Double.parseDouble(value)), Double.valueOf(parseDouble(value)));
+        }
+    }
+
+    @Test(expected=NumberFormatException.class)
+    public void testParseDoubleInvalid() {
+        parseDouble("invalid");
+    }
+}
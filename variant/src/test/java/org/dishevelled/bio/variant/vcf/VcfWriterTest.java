@@ -203,6 +203,30 @@ public final class VcfWriterTest {
         assertEquals("22\t16140370\trs2096606\tA\tG\t100\tPASS\t.\tGT\t1|1" + System.lineSeparator(), outputStream.toString());
     }
 
+    @Test
+    public void testWriteRecordRawGenotypes() throws Exception {
+        VcfRecord lazy = VcfRecord.builder(record)
+            .withFormat("GT", "DP")
+            .withRawGenotypes(new String[] { "NA19131" }, "1|1")
+            .build();
+
+        writeRecord(samples, lazy, writer);
+        writer.close();
+        assertEquals("22\t16140370\trs2096606\tA\tG\t100\tPASS\t.\tGT:DP\t1|1" + System.lineSeparator(), outputStream.toString());
+    }
+
+    @Test
+    public void testWriteRecordRawGenotypesDifferentSamples() throws Exception {
+        VcfRecord lazy = VcfRecord.builder(record)
+            .withFormat("GT", "DP")
+            .withRawGenotypes(new String[] { "NA19223", "NA19131" }, "0|1:4\t1|1")
+            .build();
+
+        writeRecord(samples, lazy, writer);
+        writer.close();
+        assertEquals("22\t16140370\trs2096606\tA\tG\t100\tPASS\t.\tGT:DP\t1|1:." + System.lineSeparator(), outputStream.toString());
+    }
+
     @Test
     public void testWriteRecordMissingQual() throws Exception {
         VcfRecord missingQual = VcfRecord.builder()
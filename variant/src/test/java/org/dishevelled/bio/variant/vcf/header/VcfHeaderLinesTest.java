@@ -23,16 +23,22 @@
 */
 package org.dishevelled.bio.variant.vcf.header;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
 import static org.dishevelled.bio.variant.vcf.VcfReader.header;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.StringReader;
 
+import java.util.Arrays;
 import java.util.List;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 
 import com.google.common.io.Files;
 import com.google.common.io.Resources;
@@ -58,6 +64,16 @@ public final class VcfHeaderLinesTest {
         "../samples.vcf"
      );
 
+    private static final String VCF = "##fileformat=VCFv4.2\n"
+        + "##contig=<ID=chr2,length=242193529>\n"
+        + "##contig=<ID=chr1,length=248956422>\n"
+        + "##contig=<ID=chrM,length=16569>\n"
+        + "##FILTER=<ID=q10,Description=\"Quality below 10\">\n"
+        + "##INFO=<ID=DP,Number=1,Type=Integer,Description=\"Total depth\">\n"
+        + "##FORMAT=<ID=GT,Number=1,Type=String,Description=\"Genotype\">\n"
+        + "##FORMAT=<ID=GQ,Number=1,Type=Integer,Description=\"Genotype quality\">\n"
+        + "#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\tFORMAT\tNA12878\n";
+
     @Test
     public void testVcfHeaderLines() throws Exception {
         for (String file : VCF_FILES) {
@@ -67,6 +83,53 @@ public final class VcfHeaderLinesTest {
         }
     }
 
+    @Test(expected=NullPointerException.class)
+    public void testFromHeaderNull() {
+        VcfHeaderLines.fromHeader(null);
+    }
+
+    @Test
+    public void testFromHeaderMemoized() throws Exception {
+        VcfHeader header = header(new StringReader(VCF));
+        assertSame(VcfHeaderLines.fromHeader(header), VcfHeaderLines.fromHeader(header));
+    }
+
+    @Test
+    public void testHeaderLinesById() throws Exception {
+        VcfHeaderLines headerLines = VcfHeaderLines.fromHeader(header(new StringReader(VCF)));
+        assertEquals("DP", headerLines.getInfoHeaderLine("DP").getId());
+        assertEquals(VcfHeaderLineType.Integer, headerLines.getInfoHeaderLine("DP").getType());
+        assertEquals("GT", headerLines.getFormatHeaderLine("GT").getId());
+        assertEquals("q10", headerLines.getFilterHeaderLine("q10").getId());
+        assertEquals(248956422L, headerLines.getContigHeaderLine("chr1").getLength().longValue());
+        assertNull(headerLines.getInfoHeaderLine("AF"));
+        assertNull(headerLines.getFormatHeaderLine("DP"));
+        assertNull(headerLines.getFilterHeaderLine("PASS"));
+        assertNull(headerLines.getContigHeaderLine("chr3"));
+        assertNull(headerLines.getAltHeaderLine("DEL"));
+    }
+
+    @Test
+    public void testHeaderLinesOrdered() throws Exception {
+        VcfHeaderLines headerLines = VcfHeaderLines.fromHeader(header(new StringReader(VCF)));
+        assertEquals(Arrays.asList("chr2", "chr1", "chrM"), ImmutableList.copyOf(headerLines.getContigHeaderLines().keySet()));
+        assertEquals(ImmutableSet.of("GT", "GQ"), headerLines.getFormatHeaderLines().keySet());
+    }
+
+    @Test
+    public void testContigOrdinals() throws Exception {
+        VcfHeaderLines headerLines = VcfHeaderLines.fromHeader(header(new StringReader(VCF)));
+        assertEquals(3, headerLines.getContigCount());
+        assertEquals(0, headerLines.getContigOrdinal("chr2"));
+        assertEquals(1, headerLines.getContigOrdinal("chr1"));
+        assertEquals(2, headerLines.getContigOrdinal("chrM"));
+        assertEquals(-1, headerLines.getContigOrdinal("chr3"));
+        assertEquals(-1, headerLines.getContigOrdinal(null));
+        for (int i = 0; i < headerLines.getContigCount(); i++) {
+            assertEquals(i, headerLines.getContigOrdinal(headerLines.getContig(i)));
+        }
+    }
+
     private static File createFile(final String name) throws IOException {
         File file = File.createTempFile("vcfHeaderLinesTest", ".vcf");
         Files.write(Resources.toByteArray(VcfHeaderLinesTest.class.getResource(name)), file);